@@ -0,0 +1,170 @@
+/**
+ * Incremental Chinese remaindering (Garner's method) over a euclidean ring, for residues arriving one modulus at a
+ * time.
+ *
+ * After the residues modulo m_1, ..., m_k, the accumulator holds the element x modulo M = m_1 * ... * m_k; a new residue
+ * r modulo m updates it to x + M ((r - x) M^(-1) mod m), which only needs one inverse modulo the small m. This is the
+ * right tool when the number of moduli is not known in advance: multi-modular algorithms add primes until the result
+ * is determined. Besides a bound on the size of the result, the accumulator offers an early termination check: it
+ * counts how many of the last residues were already predicted by the current value (or, when reconstructing
+ * rationals, by the current fraction), and once that happens for several moduli in a row, the value has most likely
+ * stabilized. For a fixed set of moduli known in advance, ChineseRemainderTree reconstructs in quasi-linear time.
+ *
+ * Over the IntegerRing, getValue() returns the symmetric representative, in (-M/2, M/2]. If rational reconstruction is
+ * enabled (over the integers only), a fraction a/b with 2 |a| b < M is recovered by RationalReconstruction. A
+ * reconstruction costs an extended euclidean algorithm on numbers of the size of M, so it is not repeated after every
+ * residue the current fraction fails to predict, which would make k moduli cost k reconstructions of growing size:
+ * it only runs once the number of moduli reaches the next of the geometrically spaced counts 1, 2, 3, 4, 5, 7, 9,
+ * ... (growing by a quarter each time), or when getRationalValue() asks for it. In between, the residues are only
+ * checked against the current fraction. A fraction that needs k moduli is thus found after at most 5k/4 + 1 of
+ * them, and the reconstructions together cost a constant multiple of the last one.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.fields;
+
+import java.math.BigInteger;
+
+public class ChineseRemainderAccumulator {
+	private EuclideanRing ring;
+	private boolean rational;
+	/* the canonical remainder of the accumulated element modulo the product of the moduli */
+	private RingElement value;
+	private RingElement modulus;
+	/* the current candidate for the rational value, or null if the residues do not determine one yet */
+	private Fraction fraction;
+	private int stableSteps = 0;
+	private int moduli = 0;
+	/* the number of moduli at which the next rational reconstruction runs */
+	private int nextReconstruction = 1;
+
+	public ChineseRemainderAccumulator(EuclideanRing ring) {
+		this(ring, false);
+	}
+
+	/**
+	 * @param rational whether to reconstruct a rational number from the residues, which needs the IntegerRing.
+	 * @throws IllegalArgumentException if rational reconstruction is requested over another ring.
+	 */
+	public ChineseRemainderAccumulator(EuclideanRing ring, boolean rational) {
+		if (rational && !(ring instanceof IntegerRing))
+			throw new IllegalArgumentException("Rational reconstruction from residues is only available over the integers, not over " + ring.getName());
+		this.ring = ring;
+		this.rational = rational;
+		value = ring.getZero();
+		modulus = ring.getOne();
+	}
+
+	/**
+	 * Add the residue of the element modulo another modulus.
+	 * @param residue the residue of the element modulo m
+	 * @param m a non-invertible modulus, coprime to all moduli added before
+	 * @throws OperationUndefinedException if m is not coprime to the product of the previous moduli, or the
+	 * arguments are not elements of the ring.
+	 */
+	public void add(RingElement residue, RingElement m) throws OperationUndefinedException {
+		if (!ring.contains(residue) || !ring.contains(m))
+			throw new OperationUndefinedException("Residue " + residue + " and modulus " + m + " have to be elements of " + ring.getName());
+		if (m.isZero())
+			throw new OperationUndefinedException("Cannot add a residue modulo zero");
+		m = ChineseRemainderTree.normalize(ring, ChineseRemainderTree.element(ring, m));
+		RingElement r = ChineseRemainderTree.mod(ring, ChineseRemainderTree.element(ring, residue), m);
+
+		boolean predicted = moduli > 0 && r.equals(predict(m));
+		stableSteps = predicted ? stableSteps + 1 : 0;
+
+		RingElement inverse = ChineseRemainderTree.inverseMod(ring, ChineseRemainderTree.mod(ring, modulus, m), m);
+		RingElement t = ChineseRemainderTree.mod(ring, r.subtract(value).multiply(inverse), m);
+		/* value < M and t < m, so value + M t is already reduced modulo M m */
+		value = value.add(modulus.multiply(t));
+		modulus = modulus.multiply(m);
+		moduli++;
+
+		/* a fraction that predicted the residue still lies within the (larger) bounds; one that did not is wrong */
+		if (rational && !predicted) {
+			fraction = null;
+			if (moduli >= nextReconstruction) {
+				fraction = reconstruct();
+				nextReconstruction = moduli + (moduli + 3) / 4;
+			}
+		}
+	}
+
+	/**
+	 * @return the residue modulo m of the current value, or of the current fraction when reconstructing rationals
+	 */
+	private RingElement predict(RingElement m) throws OperationUndefinedException {
+		if (!rational)
+			return ChineseRemainderTree.mod(ring, getValue(), m);
+		if (fraction == null)
+			return null;
+		BigInteger bm = ((IntegerElement)m).getBigValue();
+		BigInteger denominator = ((IntegerElement)fraction.getDenominator()).getBigValue().mod(bm);
+		if (!denominator.gcd(bm).equals(BigInteger.ONE))
+			return null;
+		BigInteger numerator = ((IntegerElement)fraction.getNumerator()).getBigValue();
+		return new IntegerElement(numerator.multiply(denominator.modInverse(bm)).mod(bm));
+	}
+
+	private Fraction reconstruct() throws OperationUndefinedException {
+		BigInteger bm = ((IntegerElement)modulus).getBigValue();
+		BigInteger bound = RationalReconstruction.defaultBound(bm);
+		if (bound.signum() == 0)
+			return null;
+		BigInteger[] ab = RationalReconstruction.reconstruct(((IntegerElement)value).getBigValue(), bm, bound, bound);
+		return ab == null ? null : new Fraction(new IntegerElement(ab[0]), new IntegerElement(ab[1]));
+	}
+
+	/**
+	 * @return the accumulated element modulo the product of the moduli; over the integers the symmetric representative.
+	 */
+	public RingElement getValue() {
+		if (ring instanceof IntegerRing)
+			return ChineseRemainderTree.symmetric((IntegerElement)value, (IntegerElement)modulus);
+		return value;
+	}
+
+	/**
+	 * @return the product of all moduli added so far; over the integers, it is positive.
+	 */
+	public RingElement getModulus() {
+		return modulus;
+	}
+
+	/**
+	 * @return the fraction with small numerator and denominator congruent to the residues
+	 * @throws IllegalStateException if rational reconstruction has not been enabled
+	 * @throws OperationUndefinedException if the residues do not determine a fraction (yet).
+	 */
+	public Fraction getRationalValue() throws OperationUndefinedException {
+		if (!rational)
+			throw new IllegalStateException("Rational reconstruction has not been enabled for this accumulator");
+		if (fraction == null && moduli > 0)
+			fraction = reconstruct();
+		if (fraction == null)
+			throw new OperationUndefinedException("There is no fraction with small numerator and denominator congruent to " + value + " modulo " + getModulus());
+		return fraction;
+	}
+
+	/**
+	 * @return the number of moduli added so far
+	 */
+	public int getModuliCount() {
+		return moduli;
+	}
+
+	/**
+	 * @return the number of consecutive residues, up to the last one, that were predicted by the value before.
+	 */
+	public int getStableSteps() {
+		return stableSteps;
+	}
+
+	/**
+	 * Check whether the value has not changed for the given number of moduli in a row. If the moduli are random
+	 * primes p, a wrong value survives each of them with probability about 1/p only.
+	 */
+	public boolean isStable(int steps) {
+		return stableSteps >= steps;
+	}
+}
@@ -0,0 +1,231 @@
+/**
+ * Chinese remaindering for a fixed set of pairwise coprime moduli m_0, ..., m_{k-1} of a euclidean ring.
+ *
+ * The moduli are the leaves of a product tree, whose inner nodes are the products of their two children and whose
+ * root is M = m_0 * ... * m_{k-1}. Reducing an element modulo all moduli passes it down the tree (the remainder
+ * tree), and reconstructing the element modulo M from its residues combines the weighted residues up the tree:
+ * with c_i the inverse of M/m_i modulo m_i, x = sum r_i c_i M/m_i modulo M, and the sum over a node is
+ * left * (product of the right child) + right * (product of the left child). Both take a quasi-linear number of
+ * operations in the size of M when the ring multiplies quasi-linearly, compared to the quadratic cost of adding one
+ * modulus after the other. The inverses c_i are computed once, when the tree is built, by passing the cofactors
+ * M/m_i down the tree; a tree should be kept and reused as long as the moduli stay the same.
+ *
+ * This works over any EuclideanRing, like the integers or polynomials over a field; over the IntegerRing, residues
+ * are taken in [0, m), and symmetric() gives the representative of least absolute value. Incremental
+ * reconstruction is done by ChineseRemainderAccumulator, the recovery of fractions by RationalReconstruction.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.fields;
+
+import java.math.BigInteger;
+
+import de.phwbrnr.lina.main.polynomials.Polynomial;
+import de.phwbrnr.lina.main.polynomials.PolynomialRing;
+
+public class ChineseRemainderTree {
+	private EuclideanRing ring;
+	/* levels[0] are the moduli; levels[k][j] is the product of the moduli j * 2^k, ..., (j + 1) * 2^k - 1 */
+	private RingElement[][] levels;
+	/* the inverses of M/m_i modulo m_i */
+	private RingElement[] cofactorInverses;
+
+	/**
+	 * Build the product tree for a set of moduli.
+	 * @param ring The euclidean ring the moduli belong to
+	 * @param moduli Pairwise coprime, non-invertible elements of the ring
+	 * @throws IllegalArgumentException if there are no moduli, or some modulus is not an element of the ring.
+	 * @throws OperationUndefinedException if the moduli are not pairwise coprime, or a modulus vanishes.
+	 */
+	public ChineseRemainderTree(EuclideanRing ring, RingElement... moduli) throws OperationUndefinedException {
+		if (moduli.length == 0)
+			throw new IllegalArgumentException("Chinese remaindering needs at least one modulus");
+		this.ring = ring;
+
+		int height = 1;
+		while ((1 << (height - 1)) < moduli.length)
+			height++;
+		levels = new RingElement[height][];
+		levels[0] = new RingElement[moduli.length];
+		for (int i = 0; i < moduli.length; i++) {
+			if (!ring.contains(moduli[i]))
+				throw new IllegalArgumentException("Modulus #" + i + " (" + moduli[i].toString() + ") is not member of ring " + ring.toString());
+			if (moduli[i].isZero())
+				throw new OperationUndefinedException("Modulus #" + i + " vanishes");
+			levels[0][i] = normalize(ring, element(ring, moduli[i]));
+		}
+		for (int k = 1; k < height; k++) {
+			RingElement[] below = levels[k - 1];
+			RingElement[] level = new RingElement[(below.length + 1) / 2];
+			for (int j = 0; j < level.length; j++)
+				level[j] = 2 * j + 1 < below.length ? below[2 * j].multiply(below[2 * j + 1]) : below[2 * j];
+			levels[k] = level;
+		}
+
+		cofactorInverses = new RingElement[moduli.length];
+		cofactorsDown(ring.getOne(), height - 1, 0);
+	}
+
+	/**
+	 * Store the inverses of M/m_i modulo m_i for the moduli below the node (k, j), where cofactor is M divided by the
+	 * node, reduced modulo the node.
+	 */
+	private void cofactorsDown(RingElement cofactor, int k, int j) throws OperationUndefinedException {
+		if (k == 0) {
+			cofactorInverses[j] = inverseMod(ring, cofactor, levels[0][j]);
+			return;
+		}
+		RingElement[] below = levels[k - 1];
+		if (2 * j + 1 >= below.length) {
+			cofactorsDown(cofactor, k - 1, 2 * j);
+			return;
+		}
+		cofactorsDown(mod(ring, cofactor.multiply(below[2 * j + 1]), below[2 * j]), k - 1, 2 * j);
+		cofactorsDown(mod(ring, cofactor.multiply(below[2 * j]), below[2 * j + 1]), k - 1, 2 * j + 1);
+	}
+
+	public EuclideanRing getRing() {
+		return ring;
+	}
+
+	/**
+	 * @return a copy of the moduli; over the integers, they are made positive.
+	 */
+	public RingElement[] getModuli() {
+		return levels[0].clone();
+	}
+
+	/**
+	 * @return the product M of all moduli, that is, the root of the tree.
+	 */
+	public RingElement getProduct() {
+		return levels[levels.length - 1][0];
+	}
+
+	/**
+	 * Reduce an element modulo all moduli by the remainder tree.
+	 * @return the residues x mod m_0, ..., x mod m_{k-1}
+	 * @throws OperationUndefinedException if x is not an element of the ring of the tree.
+	 */
+	public RingElement[] reduce(RingElement x) throws OperationUndefinedException {
+		if (!ring.contains(x))
+			throw new OperationUndefinedException("Element " + x + " is not member of ring " + ring.getName());
+		RingElement[] residues = new RingElement[levels[0].length];
+		reduceDown(mod(ring, element(ring, x), getProduct()), levels.length - 1, 0, residues);
+		return residues;
+	}
+
+	private void reduceDown(RingElement x, int k, int j, RingElement[] residues) throws OperationUndefinedException {
+		if (k == 0) {
+			residues[j] = x;
+			return;
+		}
+		RingElement[] below = levels[k - 1];
+		for (int child = 2 * j; child <= 2 * j + 1 && child < below.length; child++)
+			reduceDown(below.length == 2 * j + 1 ? x : mod(ring, x, below[child]), k - 1, child, residues);
+	}
+
+	/**
+	 * Reconstruct the unique element x modulo M with x = r_i modulo m_i for all i.
+	 * @param residues the residues r_0, ..., r_{k-1}
+	 * @return the remainder of x modulo M; over the integers, it lies in [0, M).
+	 * @throws IllegalArgumentException if the number of residues does not match the number of moduli
+	 * @throws OperationUndefinedException if a residue is not an element of the ring.
+	 */
+	public RingElement combine(RingElement... residues) throws OperationUndefinedException {
+		if (residues.length != levels[0].length)
+			throw new IllegalArgumentException("Expected " + levels[0].length + " residues, got " + residues.length);
+		RingElement[] weights = new RingElement[residues.length];
+		for (int i = 0; i < residues.length; i++) {
+			if (!ring.contains(residues[i]))
+				throw new OperationUndefinedException("Residue " + residues[i] + " is not member of ring " + ring.getName());
+			weights[i] = mod(ring, element(ring, residues[i]).multiply(cofactorInverses[i]), levels[0][i]);
+		}
+		return mod(ring, combineUp(weights, levels.length - 1, 0), getProduct());
+	}
+
+	/**
+	 * @return the sum of w_i M_v / m_i over the moduli below the node v = (k, j), with M_v the product at the node
+	 */
+	private RingElement combineUp(RingElement[] weights, int k, int j) throws OperationUndefinedException {
+		if (k == 0)
+			return weights[j];
+		RingElement[] below = levels[k - 1];
+		if (2 * j + 1 >= below.length)
+			return combineUp(weights, k - 1, 2 * j);
+		RingElement left = combineUp(weights, k - 1, 2 * j);
+		RingElement right = combineUp(weights, k - 1, 2 * j + 1);
+		return left.multiply(below[2 * j + 1]).add(right.multiply(below[2 * j]));
+	}
+
+	/**
+	 * @return the representative of x modulo a positive integer m of least absolute value, in (-m/2, m/2]
+	 */
+	public static IntegerElement symmetric(IntegerElement x, IntegerElement m) {
+		BigInteger bm = m.getBigValue();
+		BigInteger r = x.getBigValue().mod(bm);
+		if (r.shiftLeft(1).compareTo(bm) > 0)
+			r = r.subtract(bm);
+		return new IntegerElement(r);
+	}
+
+	/**
+	 * @return the remainder of x modulo m; over the integers, in [0, |m|)
+	 */
+	static RingElement mod(EuclideanRing ring, RingElement x, RingElement m) throws OperationUndefinedException {
+		if (ring instanceof IntegerRing)
+			return new IntegerElement(((IntegerElement)x).getBigValue().mod(((IntegerElement)m).getBigValue().abs()));
+		return ring.remainder_division(x, m)[1];
+	}
+
+	/**
+	 * Compute the inverse of a modulo m by the extended euclidean algorithm.
+	 * @throws OperationUndefinedException if a and m are not coprime.
+	 */
+	static RingElement inverseMod(EuclideanRing ring, RingElement a, RingElement m) throws OperationUndefinedException {
+		if (ring instanceof IntegerRing) {
+			try {
+				return new IntegerElement(((IntegerElement)a).getBigValue().modInverse(((IntegerElement)m).getBigValue().abs()));
+			} catch (ArithmeticException ex) {
+				throw new OperationUndefinedException("Element " + a + " is not invertible modulo " + m + ", the moduli have to be pairwise coprime");
+			}
+		}
+
+		/* r_i = s_i m + t_i a; only t is needed */
+		RingElement r0 = m, r1 = mod(ring, a, m);
+		RingElement t0 = ring.getZero(), t1 = ring.getOne();
+		while (!r1.isZero()) {
+			RingElement[] qr = ring.remainder_division(r0, r1);
+			RingElement t2 = t0.subtract(qr[0].multiply(t1));
+			r0 = r1;
+			r1 = qr[1];
+			t0 = t1;
+			t1 = t2;
+		}
+		/* r0 is a greatest common divisor, which has to be a unit */
+		try {
+			RingElement unitInverse = r0.inverse();
+			return mod(ring, element(ring, t0.multiply(unitInverse)), m);
+		} catch (ElementNotInvertibleException ex) {
+			throw new OperationUndefinedException("Element " + a + " is not invertible modulo " + m + ", the moduli have to be pairwise coprime");
+		}
+	}
+
+	/**
+	 * @return x as an element of the ring itself; coefficients are wrapped into constant polynomials
+	 */
+	static RingElement element(EuclideanRing ring, RingElement x) {
+		if (ring instanceof PolynomialRing && !(x instanceof Polynomial))
+			return new Polynomial(((PolynomialRing)ring).getCoefficientRing(), x);
+		return x;
+	}
+
+	/**
+	 * @return an associate of m that is used as modulus; over the integers, its absolute value
+	 */
+	static RingElement normalize(EuclideanRing ring, RingElement m) {
+		if (ring instanceof IntegerRing && ((IntegerElement)m).getBigValue().signum() < 0)
+			return m.negative();
+		return m;
+	}
+}
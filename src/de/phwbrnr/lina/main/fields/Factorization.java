@@ -0,0 +1,113 @@
+/**
+ * A factorization u * f_1^e_1 * ... * f_k^e_k of a ring element into a unit (or, depending on the computation, a
+ * constant) u and pairwise distinct factors f_i with positive exponents e_i.
+ *
+ * Unlike the lists returned by Ring.factor(), every factor is stored only once together with its exponent, so a
+ * factor of high multiplicity costs no more than any other. Instances are immutable.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.fields;
+
+import java.util.Arrays;
+
+public final class Factorization {
+	private final RingElement unit;
+	private final RingElement[] factors;
+	private final int[] exponents;
+
+	/**
+	 * @param unit the constant part of the factorization
+	 * @param factors the distinct factors; the array is copied
+	 * @param exponents the exponent of each factor; the array is copied
+	 * @throws IllegalArgumentException if the arrays differ in length or an exponent is not positive
+	 */
+	public Factorization(RingElement unit, RingElement[] factors, int[] exponents) {
+		if (factors.length != exponents.length)
+			throw new IllegalArgumentException("Got " + factors.length + " factors, but " + exponents.length + " exponents");
+		for (int e : exponents) {
+			if (e <= 0)
+				throw new IllegalArgumentException("Exponents of a factorization must be positive, but got " + e);
+		}
+		this.unit = unit;
+		this.factors = factors.clone();
+		this.exponents = exponents.clone();
+	}
+
+	public RingElement getUnit() {
+		return unit;
+	}
+
+	/**
+	 * @return the number of distinct factors, not counting the unit
+	 */
+	public int size() {
+		return factors.length;
+	}
+
+	public RingElement getFactor(int i) {
+		return factors[i];
+	}
+
+	public int getExponent(int i) {
+		return exponents[i];
+	}
+
+	/**
+	 * @return a new array of the distinct factors
+	 */
+	public RingElement[] getFactors() {
+		return factors.clone();
+	}
+
+	/**
+	 * @return a new array of the exponents, in the order of getFactors()
+	 */
+	public int[] getExponents() {
+		return exponents.clone();
+	}
+
+	/**
+	 * @return the product of all factors raised to their exponents and the unit; powers are computed by repeated
+	 * squaring. The unit is multiplied last, since it may belong to a smaller ring (like the coefficients of a
+	 * polynomial) that cannot multiply the factors.
+	 */
+	public RingElement expand() throws OperationUndefinedException {
+		RingElement result = null;
+		for (int i = 0; i < factors.length; i++) {
+			RingElement power = null, base = factors[i];
+			for (int e = exponents[i]; e > 0; e >>= 1) {
+				if ((e & 1) != 0)
+					power = power == null ? base : power.multiply(base);
+				if (e > 1)
+					base = base.multiply(base);
+			}
+			result = result == null ? power : result.multiply(power);
+		}
+		return result == null ? unit : result.multiply(unit);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof Factorization))
+			return false;
+		Factorization f = (Factorization)other;
+		return unit.equals(f.unit) && Arrays.equals(factors, f.factors) && Arrays.equals(exponents, f.exponents);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * unit.hashCode() + Arrays.hashCode(factors)) + Arrays.hashCode(exponents);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(unit.toString());
+		for (int i = 0; i < factors.length; i++) {
+			sb.append(" * (").append(factors[i]).append(')');
+			if (exponents[i] != 1)
+				sb.append('^').append(exponents[i]);
+		}
+		return sb.toString();
+	}
+}
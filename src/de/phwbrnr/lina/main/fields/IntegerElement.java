@@ -1,83 +1,125 @@
 /**
  * Element of the ring of the integers, Z.
- * 
+ *
+ * Integers have arbitrary precision: values that fit into a long are stored and computed with as primitives,
+ * larger values as BigInteger. Arithmetic switches between the two representations automatically and is exact.
+ *
  * @author Philipp Weinbrenner
  * @version 2022-10-05
  */
 package de.phwbrnr.lina.main.fields;
 
+import java.math.BigInteger;
+
 public class IntegerElement implements RingElement {
-	protected int value;
-	
+	private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+	private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+	protected long value;
+	/* the value if it does not fit into a long, null otherwise */
+	protected BigInteger bigValue;
+
 	public IntegerElement(int value) {
 		this.value = value;
 	}
-	
+
 	public IntegerElement(Integer value) {
 		this.value = value.intValue();
 	}
 
+	public IntegerElement(long value) {
+		this.value = value;
+	}
+
+	public IntegerElement(BigInteger value) {
+		if (value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0)
+			this.value = value.longValue();
+		else
+			this.bigValue = value;
+	}
+
+	private static IntegerElement checked(RingElement element) throws OperationUndefinedException {
+		if (!(element instanceof IntegerElement))
+			throw new OperationUndefinedException("Element " + element.toString() + " is not an integer");
+		return (IntegerElement)element;
+	}
+
 	@Override
 	public RingElement add(RingElement... addends) throws OperationUndefinedException {
-		int result = value;
+		IntegerElement result = this;
 		for(int i = 0; i < addends.length; i++) {
-			if (!(addends[i] instanceof IntegerElement))
-				throw new OperationUndefinedException("Element " + addends[i].toString() + " is not an integer");
-			
-			IntegerElement el = (IntegerElement)addends[i];
-			result += el.getValue();
+			IntegerElement el = checked(addends[i]);
+			if (result.bigValue == null && el.bigValue == null) {
+				long sum = result.value + el.value;
+				/* overflow iff both operands have a sign different from the result */
+				if (((result.value ^ sum) & (el.value ^ sum)) >= 0) {
+					result = new IntegerElement(sum);
+					continue;
+				}
+			}
+			result = new IntegerElement(result.getBigValue().add(el.getBigValue()));
 		}
-		
-		return new IntegerElement(result);
+
+		return result;
 	}
 
 	@Override
 	public RingElement subtract(RingElement subtrahend) throws OperationUndefinedException {
-		if (subtrahend instanceof IntegerElement) {
-			int result = value - ((IntegerElement)subtrahend).getValue();
-			return new IntegerElement(result);
-		} else {
-			throw new OperationUndefinedException("Element " + subtrahend.toString() + " is not an integer");
+		IntegerElement el = checked(subtrahend);
+		if (bigValue == null && el.bigValue == null) {
+			long difference = value - el.value;
+			if (((value ^ el.value) & (value ^ difference)) >= 0)
+				return new IntegerElement(difference);
 		}
+		return new IntegerElement(getBigValue().subtract(el.getBigValue()));
 	}
 
 	@Override
 	public RingElement multiply(RingElement... factors) throws OperationUndefinedException {
-		int result = value;
+		IntegerElement result = this;
 		for(int i = 0; i < factors.length; i++) {
-			if (!(factors[i] instanceof IntegerElement))
-				throw new OperationUndefinedException("Element " + factors[i].toString() + " is not an integer");
-			
-			IntegerElement el = (IntegerElement)factors[i];
-			result *= el.getValue();
+			IntegerElement el = checked(factors[i]);
+			if (result.bigValue == null && el.bigValue == null) {
+				long high = Math.multiplyHigh(result.value, el.value);
+				long low = result.value * el.value;
+				if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+					result = new IntegerElement(low);
+					continue;
+				}
+			}
+			result = new IntegerElement(result.getBigValue().multiply(el.getBigValue()));
 		}
-		
-		return new IntegerElement(result);
+
+		return result;
 	}
 
 	@Override
 	public boolean divisibleBy(RingElement divisor) {
 		if (!(divisor instanceof IntegerElement))
 			return false;
-		if(((IntegerElement)divisor).value == 0)
+		IntegerElement el = (IntegerElement)divisor;
+		if(el.isZero())
 			return false;
-		
-		int other_value = ((IntegerElement)divisor).getValue();
-		return (value % other_value == 0);
+
+		if (bigValue == null && el.bigValue == null)
+			return (value % el.value == 0);
+		return getBigValue().mod(el.getBigValue().abs()).signum() == 0;
 	}
 
 	@Override
 	public RingElement divide(RingElement divisor) throws OperationUndefinedException {
 		if (!divisibleBy(divisor))
 			throw new OperationUndefinedException("Element " + toString() + " not divisible by " + divisor.toString());
-		
-		int other_value = ((IntegerElement)divisor).getValue();
-		return new IntegerElement(value / other_value);
+
+		IntegerElement el = (IntegerElement)divisor;
+		if (bigValue == null && el.bigValue == null && !(value == Long.MIN_VALUE && el.value == -1))
+			return new IntegerElement(value / el.value);
+		return new IntegerElement(getBigValue().divide(el.getBigValue()));
 	}
 
 	@Override
 	public boolean invertible() {
-		return (value == 1 || value == -1);
+		return bigValue == null && (value == 1 || value == -1);
 	}
 
 	@Override
@@ -103,36 +145,71 @@ public class IntegerElement implements RingElement {
 		return IntegerRing.getInstance();
 	}
 
+	/**
+	 * @return the value as an int
+	 * @throws ArithmeticException if the value does not fit into an int; use getBigValue() for large integers.
+	 */
 	public int getValue() {
+		if (bigValue != null)
+			throw new ArithmeticException("Integer " + bigValue + " does not fit into an int");
+		return Math.toIntExact(value);
+	}
+
+	/**
+	 * @return the value as a long
+	 * @throws ArithmeticException if the value does not fit into a long, see isSmall().
+	 */
+	public long getLongValue() {
+		if (bigValue != null)
+			throw new ArithmeticException("Integer " + bigValue + " does not fit into a long");
 		return value;
 	}
 
+	/**
+	 * @return the value as an arbitrary precision integer
+	 */
+	public BigInteger getBigValue() {
+		return bigValue == null ? BigInteger.valueOf(value) : bigValue;
+	}
+
+	/**
+	 * @return whether the value fits into a long, so that it is stored and computed with as a primitive
+	 */
+	public boolean isSmall() {
+		return bigValue == null;
+	}
+
 	public int hashCode() {
-		return Integer.hashCode(value);
+		return bigValue == null ? Long.hashCode(value) : bigValue.hashCode();
 	}
-	
+
 	public boolean equals(Object other) {
 		if (!(other instanceof IntegerElement))
 			return false;
-		return ((IntegerElement)other).getValue() == value;
+		IntegerElement el = (IntegerElement)other;
+		if (bigValue == null && el.bigValue == null)
+			return el.value == value;
+		return getBigValue().equals(el.getBigValue());
 	}
-	
+
 	public String toString() {
-		return Integer.toString(value);
+		return bigValue == null ? Long.toString(value) : bigValue.toString();
 	}
 
 	@Override
 	public boolean isZero() {
-		return value == 0;
+		return bigValue == null && value == 0;
 	}
 
 	@Override
 	public boolean isOne() {
-		return value == 1;
+		return bigValue == null && value == 1;
 	}
 
 	@Override
 	public RingElement negative() {
-		return new IntegerElement(-1 * value);
+		if (bigValue == null && value != Long.MIN_VALUE)
+			return new IntegerElement(-value);
+		return new IntegerElement(getBigValue().negate());
 	}
 }
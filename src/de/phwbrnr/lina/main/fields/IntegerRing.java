@@ -6,6 +6,7 @@
  */
 package de.phwbrnr.lina.main.fields;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.LinkedList;
 
@@ -37,8 +38,7 @@ public class IntegerRing implements Ring, EuclideanRing {
 	@Override
 	public RingElement parseElement(String string) throws ElementParseException {
 		try {
-			Integer val = Integer.parseInt(string);
-			return new IntegerElement(val);
+			return new IntegerElement(new BigInteger(string.trim()));
 		} catch (NumberFormatException ex) {
 			throw new ElementParseException("Unable to parse string '" + string + "' as IntegerElement");
 		}
@@ -59,20 +59,49 @@ public class IntegerRing implements Ring, EuclideanRing {
 		if (el.isZero())
 			throw new OperationUndefinedException("The zero element has undefined degree");
 
-		return Math.abs(((IntegerElement)el).getValue());
+		/* saturates for huge integers; only the order of degrees matters for the euclidean algorithm */
+		BigInteger value = ((IntegerElement)el).getBigValue().abs();
+		return value.bitLength() < 32 ? value.intValue() : Integer.MAX_VALUE;
 	}
 
 	public RingElement[] remainder_division (RingElement dividend, RingElement divisor) throws OperationUndefinedException {
 		if (!(contains(dividend) && contains(divisor)))
 			throw new OperationUndefinedException("Dividend " + dividend.toString() + " and divisor " + divisor.toString() + " have to be elements of the integers");
 
-		int divid = ((IntegerElement)dividend).getValue();
-		int divis = ((IntegerElement)divisor).getValue();
+		if (divisor.isZero())
+			throw new OperationUndefinedException("Division by zero not possible");
 
-		int remainder = divid % divis;
-		int quotient = (divid - remainder) / divis;
+		IntegerElement divid = (IntegerElement)dividend;
+		IntegerElement divis = (IntegerElement)divisor;
+		if (divid.isSmall() && divis.isSmall() && !(divid.value == Long.MIN_VALUE && divis.value == -1)) {
+			long remainder = divid.value % divis.value;
+			long quotient = (divid.value - remainder) / divis.value;
+			return new RingElement[] { new IntegerElement(quotient), new IntegerElement(remainder) };
+		}
+
+		BigInteger[] qr = divid.getBigValue().divideAndRemainder(divis.getBigValue());
+		return new RingElement[] { new IntegerElement(qr[0]), new IntegerElement(qr[1]) };
+	}
 
-		return new RingElement[] { new IntegerElement(quotient), new IntegerElement(remainder) };
+	/**
+	 * The greatest common divisor is computed on primitive values (or by BigInteger.gcd) and is never negative.
+	 */
+	@Override
+	public RingElement gcd(RingElement a, RingElement b) throws OperationUndefinedException {
+		if (!(contains(a) && contains(b)))
+			throw new OperationUndefinedException("Arguments " + a.toString() + " and " + b.toString() + " have to be elements of the integers");
+
+		IntegerElement x = (IntegerElement)a, y = (IntegerElement)b;
+		if (x.isSmall() && y.isSmall() && x.value != Long.MIN_VALUE && y.value != Long.MIN_VALUE) {
+			long u = Math.abs(x.value), v = Math.abs(y.value);
+			while (v != 0) {
+				long t = u % v;
+				u = v;
+				v = t;
+			}
+			return new IntegerElement(u);
+		}
+		return new IntegerElement(x.getBigValue().gcd(y.getBigValue()));
 	}
 
 	@Override
@@ -92,12 +121,10 @@ public class IntegerRing implements Ring, EuclideanRing {
 			throw new OperationUndefinedException("Element " + ell + " can be interpreted as integer, but is not an instance of IntegerElement");
 		
 		IntegerElement i = (IntegerElement)ell;
-		int j = Math.abs(i.getValue());
-		for (int k = 2; k < (int)Math.pow(j, 0.5); k++)
-			if (j % k == 0)
-				return false;
-		
-		return true;
+		BigInteger j = i.getBigValue().abs();
+		if (j.compareTo(BigInteger.ONE) <= 0)
+			return true;
+		return j.isProbablePrime(64);
 	}
 
 	@Override
@@ -116,6 +143,7 @@ public class IntegerRing implements Ring, EuclideanRing {
 		}
 		
 		private IntegerFactorComputation() {
+			strategies = new LinkedList<Strategy<ArrayList<RingElement>>>();
 			strategies.add(new Strategy<ArrayList<RingElement>> () {
 				@Override
 				public String getDescription() {
@@ -124,7 +152,8 @@ public class IntegerRing implements Ring, EuclideanRing {
 
 				@Override
 				public boolean appliesTo(Object... problem) {
-					return (problem.length == 1 && problem[0] instanceof IntegerElement);
+					return (problem.length == 1 && problem[0] instanceof IntegerElement
+							&& ((IntegerElement)problem[0]).isSmall() && ((IntegerElement)problem[0]).value != Long.MIN_VALUE);
 				}
 
 				@Override
@@ -146,20 +175,27 @@ public class IntegerRing implements Ring, EuclideanRing {
 					} catch (OperationUndefinedException ex) {
 						throw new IllegalArgumentException("Unable to convert element to factor (" + problem[0].toString() + ") as IntegerElement", ex);
 					}
-					int number = i.getValue();
+					long number = i.getBigValue().longValueExact();
 
 					ArrayList<RingElement> factors = new ArrayList<RingElement>();
+					if (number < 0) {
+						factors.add(new IntegerElement(-1));
+						number = -number;
+					}
+					if (number <= 1) {
+						if (factors.isEmpty() || number == 0)
+							factors.add(new IntegerElement(number));
+						return factors;
+					}
 					
-					for (int k = 0; k < (int)Math.pow(number, 0.5); k++) {
-						if (k % number == 0) {
-							int other = number / k;
+					for (long k = 2; k <= number / k; k++) {
+						while (number % k == 0) {
 							factors.add(new IntegerElement(k));
-							number = other;
+							number /= k;
 						}
-
-						if (number == 1 || number == -1 || number == 0)
-							break;
 					}
+					if (number > 1)
+						factors.add(new IntegerElement(number));
 					
 					return factors;
 				}
@@ -175,7 +211,7 @@ public class IntegerRing implements Ring, EuclideanRing {
 		@SuppressWarnings("unchecked")
 		@Override
 		public Strategy<ArrayList<RingElement>>[] getStrategies() {
-			return (Strategy<ArrayList<RingElement>>[]) strategies.toArray();
+			return (Strategy<ArrayList<RingElement>>[]) strategies.toArray(new Strategy<?>[strategies.size()]);
 		}
 
 		@Override
@@ -0,0 +1,201 @@
+/**
+ * A template for strategies that compute an exact result over the integers or the rationals modulo many primes and
+ * lift it by Chinese remaindering.
+ *
+ * A subclass only provides the modular kernel image(), which computes the result modulo a word size prime p as a
+ * vector of residues (its integer or rational coordinates, like the coefficients of a polynomial), and assemble(),
+ * which turns the lifted coordinates back into a result. The images modulo different primes are independent, so they
+ * are computed in parallel, in batches of growing size, and combined by ChineseRemainderAccumulators; rational
+ * coordinates are recovered by RationalReconstruction.
+ *
+ * Primes are taken downward from 2^31, so that the kernel may work with PrimeField and primitive residues. A prime is
+ * unlucky if the image modulo p is not the reduction of the result; the template handles two kinds of them:
+ * - the kernel knows it beforehand, for example if p divides a leading coefficient, and returns null;
+ * - the image has the wrong shape, which is detected by imageDegree(): as for the degree of a gcd, images of lower
+ *   degree are preferred, and all images collected so far are discarded when one of lower degree turns up.
+ *
+ * The template stops adding primes once the product of the primes exceeds the bound given by coordinateBits(), which
+ * proves the result correct, or once all coordinates have stabilized for STABLE_PRIMES primes in a row. Early
+ * termination is only accepted without a bound, or if verify() confirms the candidate, so that the result never
+ * depends on chance when a bound is known.
+ *
+ * @param <ResultType> the type of the lifted result
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.fields;
+
+import java.math.BigInteger;
+import java.util.stream.IntStream;
+
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public abstract class MultiModularStrategy<ResultType> extends AbstractStrategy<ResultType> {
+	/**
+	 * The number of primes in a row whose images have to be predicted by the current candidate before it is taken
+	 * as stable.
+	 */
+	public static final int STABLE_PRIMES = 3;
+	/* the primes below 2^30 are not searched; there are more than 5 * 10^7 primes above */
+	private static final long SMALLEST_PRIME = 1L << 30;
+
+	/**
+	 * Prepare the problem instance for the modular computations, for example by converting the input to integer
+	 * coefficient arrays once. The result is passed to all other methods of the template, by default it is the
+	 * problem itself.
+	 */
+	protected Object[] prepare(Object... problem) {
+		return problem;
+	}
+
+	/**
+	 * The modular kernel: compute the coordinates of the result modulo p. This is called concurrently for different
+	 * primes, so it must not modify shared state.
+	 * @param p a prime below 2^31
+	 * @param instance the prepared problem instance
+	 * @return the coordinates of the result, as residues in [0, p), or null if p is known to be unlucky
+	 */
+	protected abstract long[] image(long p, Object... instance);
+
+	/**
+	 * Lift the coordinates to a result.
+	 * @param coordinates the coordinates of the result: IntegerElements in the symmetric range, or Fractions if
+	 * rationalCoordinates() holds
+	 * @param instance the prepared problem instance
+	 */
+	protected abstract ResultType assemble(RingElement[] coordinates, Object... instance);
+
+	/**
+	 * @return an upper bound for the bit length of the absolute values of the integer coordinates, or of the
+	 * numerators and denominators of rational coordinates; -1 if no bound is known.
+	 */
+	protected long coordinateBits(Object... instance) {
+		return -1;
+	}
+
+	/**
+	 * @return whether the coordinates are rational numbers that have to be reconstructed from their residues.
+	 */
+	protected boolean rationalCoordinates(Object... instance) {
+		return false;
+	}
+
+	/**
+	 * Rate an image for the detection of unlucky primes: images of lower degree are preferred, and images of higher
+	 * degree are discarded. By default, the degree is the number of coordinates, as for the coefficients of a gcd.
+	 */
+	protected long imageDegree(long[] image) {
+		return image.length;
+	}
+
+	/**
+	 * Check a candidate that has stabilized before the bound was reached. The default cannot verify anything, so
+	 * that results with a known bound are always proven by the bound.
+	 */
+	protected boolean verify(ResultType candidate, Object... instance) {
+		return false;
+	}
+
+	@Override
+	public ResultType execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. The strategy applies to: " + getDescription());
+		return lift(prepare(problem));
+	}
+
+	/**
+	 * Run the kernel modulo enough primes and lift the result.
+	 * @throws IllegalStateException if the images do not fit together or rational reconstruction fails.
+	 */
+	protected ResultType lift(Object... instance) {
+		boolean rational = rationalCoordinates(instance);
+		long bits = coordinateBits(instance);
+		/* the product has to exceed 2 |x| for integers, 2 N D for fractions */
+		long target = bits < 0 ? -1 : (rational ? 2 * bits + 2 : bits + 2);
+		int cores = Runtime.getRuntime().availableProcessors();
+
+		ChineseRemainderAccumulator[] accumulators = null;
+		long degree = Long.MAX_VALUE;
+		BigInteger product = BigInteger.ONE;
+		int lucky = 0;
+		long next = PrimeField.MAX_CHARACTERISTIC;
+		try {
+			for (int batch = cores; ; batch = Math.min(2 * batch, 64 * cores)) {
+				/* do not compute more images than the bound needs */
+				int count = batch;
+				if (target >= 0)
+					count = (int)Math.max(1, Math.min(count, (target - product.bitLength()) / 30 + 1));
+				long[] primes = new long[count];
+				for (int i = 0; i < count; i++) {
+					next = previousPrime(next);
+					primes[i] = next;
+				}
+				long[][] images = new long[count][];
+				IntStream.range(0, count).parallel().forEach(i -> images[i] = image(primes[i], instance));
+
+				for (int i = 0; i < count; i++) {
+					if (images[i] == null)
+						continue;
+					long d = imageDegree(images[i]);
+					if (d > degree)
+						continue;
+					if (d < degree) {
+						/* all primes so far were unlucky */
+						degree = d;
+						accumulators = new ChineseRemainderAccumulator[images[i].length];
+						for (int j = 0; j < accumulators.length; j++)
+							accumulators[j] = new ChineseRemainderAccumulator(IntegerRing.getInstance(), rational);
+						product = BigInteger.ONE;
+						lucky = 0;
+					}
+					if (images[i].length != accumulators.length)
+						throw new IllegalStateException("Images of the same degree " + d + " with " + images[i].length + " and "
+								+ accumulators.length + " coordinates");
+					IntegerElement p = new IntegerElement(primes[i]);
+					for (int j = 0; j < accumulators.length; j++)
+						accumulators[j].add(new IntegerElement(images[i][j]), p);
+					product = product.multiply(BigInteger.valueOf(primes[i]));
+					lucky++;
+				}
+
+				if (accumulators == null)
+					continue;
+				if (target >= 0 && product.bitLength() > target)
+					return assemble(coordinates(accumulators, rational), instance);
+				if (lucky > STABLE_PRIMES && stable(accumulators)) {
+					ResultType candidate = assemble(coordinates(accumulators, rational), instance);
+					if (target < 0 || verify(candidate, instance))
+						return candidate;
+				}
+			}
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("Chinese remaindering failed for " + getDescription(), ex);
+		}
+	}
+
+	private static boolean stable(ChineseRemainderAccumulator[] accumulators) {
+		for (ChineseRemainderAccumulator accumulator : accumulators)
+			if (!accumulator.isStable(STABLE_PRIMES))
+				return false;
+		return true;
+	}
+
+	private static RingElement[] coordinates(ChineseRemainderAccumulator[] accumulators, boolean rational) throws OperationUndefinedException {
+		RingElement[] coordinates = new RingElement[accumulators.length];
+		for (int j = 0; j < coordinates.length; j++)
+			coordinates[j] = rational ? accumulators[j].getRationalValue() : accumulators[j].getValue();
+		return coordinates;
+	}
+
+	/**
+	 * @return the largest prime below p
+	 * @throws IllegalStateException if all primes above 2^30 are used up
+	 */
+	private static long previousPrime(long p) {
+		do {
+			p--;
+			if (p < SMALLEST_PRIME)
+				throw new IllegalStateException("Ran out of primes for the multi-modular computation");
+		} while (!BigInteger.valueOf(p).isProbablePrime(40));
+		return p;
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ * Represent the field F_p of integers modulo a prime p; its elements are represented by the PrimeFieldElement class.
+ *
+ * There is one instance per prime, obtained by getInstance(). The prime has to be smaller than 2^31, so that the
+ * product of two reduced residues fits into a long; algorithms working on primitive residues rely on this.
+ *
+ * @see PrimeFieldElement
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.fields;
+
+import java.math.BigInteger;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class PrimeField extends Field {
+	/**
+	 * The largest admissible characteristic is smaller than this bound.
+	 */
+	public static final long MAX_CHARACTERISTIC = 1L << 31;
+
+	private static ConcurrentHashMap<Long, PrimeField> instances = new ConcurrentHashMap<Long, PrimeField>();
+	private long characteristic;
+	private PrimeFieldElement zero, one;
+
+	/**
+	 * @param p a prime smaller than 2^31
+	 * @return the field with p elements
+	 * @throws IllegalArgumentException if p is not a prime or too large
+	 */
+	public static PrimeField getInstance(long p) {
+		PrimeField field = instances.get(p);
+		if (field == null) {
+			if (p < 2 || p >= MAX_CHARACTERISTIC || !BigInteger.valueOf(p).isProbablePrime(40))
+				throw new IllegalArgumentException(p + " is not a prime smaller than 2^31");
+			instances.putIfAbsent(p, new PrimeField(p));
+			field = instances.get(p);
+		}
+		return field;
+	}
+
+	private PrimeField(long p) {
+		characteristic = p;
+		zero = new PrimeFieldElement(this, 0);
+		one = new PrimeFieldElement(this, 1 % p);
+	}
+
+	/**
+	 * @return the prime p
+	 */
+	public long getCharacteristic() {
+		return characteristic;
+	}
+
+	/**
+	 * @return the residue class of an arbitrary integer
+	 */
+	public PrimeFieldElement element(long value) {
+		value %= characteristic;
+		if (value < 0)
+			value += characteristic;
+		return new PrimeFieldElement(this, value);
+	}
+
+	@Override
+	public String getName() {
+		return "F_" + characteristic;
+	}
+
+	@Override
+	public RingElement getZero() {
+		return zero;
+	}
+
+	@Override
+	public RingElement getOne() {
+		return one;
+	}
+
+	@Override
+	public RingElement parseElement(String string) throws ElementParseException {
+		try {
+			return element(Long.parseLong(string.trim()));
+		} catch (NumberFormatException ex) {
+			throw new ElementParseException("Unable to parse string '" + string + "' as element of " + getName());
+		}
+	}
+
+	@Override
+	public boolean contains(RingElement el) {
+		return (el instanceof PrimeFieldElement) && ((PrimeFieldElement)el).getRing().equals(this);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return (other instanceof PrimeField) && ((PrimeField)other).characteristic == characteristic;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(characteristic);
+	}
+
+	@Override
+	public String toString() {
+		return getName();
+	}
+}
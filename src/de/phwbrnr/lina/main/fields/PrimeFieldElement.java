@@ -0,0 +1,157 @@
+/**
+ * Element of a prime field F_p, stored as its reduced residue 0 <= value < p.
+ *
+ * @see PrimeField
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.fields;
+
+public class PrimeFieldElement implements RingElement {
+	private PrimeField field;
+	private long value;
+
+	/**
+	 * Use PrimeField.element() to create elements from arbitrary integers.
+	 */
+	PrimeFieldElement(PrimeField field, long value) {
+		this.field = field;
+		this.value = value;
+	}
+
+	private long checkedValue(RingElement other) throws OperationUndefinedException {
+		if (!canAdd(other))
+			throw new OperationUndefinedException("Element " + other.toString() + " is not an element of " + field.getName());
+		return ((PrimeFieldElement)other).value;
+	}
+
+	@Override
+	public RingElement add(RingElement... addends) throws OperationUndefinedException {
+		long p = field.getCharacteristic();
+		long result = value;
+		for (int i = 0; i < addends.length; i++) {
+			result += checkedValue(addends[i]);
+			if (result >= p)
+				result -= p;
+		}
+		return new PrimeFieldElement(field, result);
+	}
+
+	@Override
+	public RingElement subtract(RingElement subtrahend) throws OperationUndefinedException {
+		long result = value - checkedValue(subtrahend);
+		if (result < 0)
+			result += field.getCharacteristic();
+		return new PrimeFieldElement(field, result);
+	}
+
+	@Override
+	public RingElement multiply(RingElement... factors) throws OperationUndefinedException {
+		long p = field.getCharacteristic();
+		long result = value;
+		for (int i = 0; i < factors.length; i++)
+			result = (result * checkedValue(factors[i])) % p;
+		return new PrimeFieldElement(field, result);
+	}
+
+	@Override
+	public boolean divisibleBy(RingElement divisor) {
+		return canMultiply(divisor) && !divisor.isZero();
+	}
+
+	@Override
+	public RingElement divide(RingElement divisor) throws OperationUndefinedException {
+		try {
+			return multiply(divisor.inverse());
+		} catch (ElementNotInvertibleException ex) {
+			throw new OperationUndefinedException("Division by zero in " + field.getName());
+		}
+	}
+
+	@Override
+	public boolean invertible() {
+		return value != 0;
+	}
+
+	@Override
+	public RingElement inverse() throws ElementNotInvertibleException {
+		if (value == 0)
+			throw new ElementNotInvertibleException("Zero is not invertible", this);
+		return new PrimeFieldElement(field, inverse(value, field.getCharacteristic()));
+	}
+
+	/**
+	 * Compute the inverse of a nonzero residue modulo the prime p by the extended euclidean algorithm.
+	 */
+	public static long inverse(long a, long p) {
+		long r0 = p, r1 = a % p, s0 = 0, s1 = 1;
+		if (r1 < 0)
+			r1 += p;
+		while (r1 != 0) {
+			long q = r0 / r1;
+			long t = r0 - q * r1;
+			r0 = r1;
+			r1 = t;
+			t = s0 - q * s1;
+			s0 = s1;
+			s1 = t;
+		}
+		if (r0 != 1)
+			throw new ArithmeticException(a + " is not invertible modulo " + p);
+		return s0 < 0 ? s0 + p : s0;
+	}
+
+	@Override
+	public RingElement negative() {
+		return new PrimeFieldElement(field, value == 0 ? 0 : field.getCharacteristic() - value);
+	}
+
+	@Override
+	public boolean canAdd(RingElement other) {
+		return (other instanceof PrimeFieldElement) && ((PrimeFieldElement)other).field.equals(field);
+	}
+
+	@Override
+	public boolean canMultiply(RingElement other) {
+		return canAdd(other);
+	}
+
+	@Override
+	public Ring getRing() {
+		return field;
+	}
+
+	/**
+	 * @return the residue, between 0 and p - 1
+	 */
+	public long getValue() {
+		return value;
+	}
+
+	@Override
+	public boolean isZero() {
+		return value == 0;
+	}
+
+	@Override
+	public boolean isOne() {
+		return value == 1;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(value);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof PrimeFieldElement))
+			return false;
+		PrimeFieldElement o = (PrimeFieldElement)other;
+		return o.value == value && o.field.equals(field);
+	}
+
+	@Override
+	public String toString() {
+		return Long.toString(value);
+	}
+}
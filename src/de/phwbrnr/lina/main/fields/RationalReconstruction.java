@@ -0,0 +1,118 @@
+/**
+ * Recover a fraction a/b from its residue u = a b^(-1) modulo m.
+ *
+ * Multi-modular algorithms over the rationals compute their result modulo many primes and combine the residues by
+ * Chinese remaindering, which gives an integer u modulo the product m. If the result is a fraction a/b with
+ * 2 |a| b < m, then it is the unique fraction with |a| <= N, 0 < b <= D and a = u b modulo m, for bounds with
+ * 2 N D < m, and it is found by the extended euclidean algorithm on m and u, stopped at the first remainder of size at
+ * most N (Wang's algorithm): the remainder and the corresponding cofactor of u are the numerator and denominator. If
+ * no fraction within the bounds exists, the cofactor is too large or not coprime to the remainder, and the
+ * reconstruction fails.
+ *
+ * Without explicit bounds, N = D = floor(sqrt((m - 1)/2)) are used, which is the right choice if nothing is known
+ * about the sizes of numerator and denominator. The same works over polynomial rings over a field, with degrees in
+ * place of absolute values, which gives rational functions (Pade approximants).
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.fields;
+
+import java.math.BigInteger;
+
+public final class RationalReconstruction {
+
+	private RationalReconstruction() {
+	}
+
+	/**
+	 * Reconstruct a rational number from its residue modulo m, with balanced bounds for numerator and denominator.
+	 * @throws OperationUndefinedException if there is no fraction within the bounds.
+	 */
+	public static Fraction reconstruct(IntegerElement residue, IntegerElement modulus) throws OperationUndefinedException {
+		BigInteger bound = defaultBound(modulus.getBigValue().abs());
+		return reconstruct(residue, modulus, new IntegerElement(bound), new IntegerElement(bound));
+	}
+
+	/**
+	 * Reconstruct the rational number a/b with a = residue b modulo m, |a| <= numeratorBound and 0 < b <= denominatorBound.
+	 * @throws IllegalArgumentException if the modulus or one of the bounds is not positive.
+	 * @throws OperationUndefinedException if there is no fraction within the bounds.
+	 */
+	public static Fraction reconstruct(IntegerElement residue, IntegerElement modulus, IntegerElement numeratorBound,
+			IntegerElement denominatorBound) throws OperationUndefinedException {
+		BigInteger[] ab = reconstruct(residue.getBigValue(), modulus.getBigValue(), numeratorBound.getBigValue(), denominatorBound.getBigValue());
+		if (ab == null)
+			throw new OperationUndefinedException("There is no fraction with numerator at most " + numeratorBound + " and denominator at most "
+					+ denominatorBound + " congruent to " + residue + " modulo " + modulus);
+		return new Fraction(new IntegerElement(ab[0]), new IntegerElement(ab[1]));
+	}
+
+	/**
+	 * @return the numerator and the positive denominator, or null if there is no fraction within the bounds
+	 */
+	static BigInteger[] reconstruct(BigInteger u, BigInteger m, BigInteger numeratorBound, BigInteger denominatorBound) {
+		if (m.signum() <= 0 || numeratorBound.signum() < 0 || denominatorBound.signum() <= 0)
+			throw new IllegalArgumentException("Rational reconstruction needs a positive modulus and positive bounds, but got modulus "
+					+ m + " and bounds " + numeratorBound + ", " + denominatorBound);
+
+		/* r_i = s_i m + t_i u, with |t_i| growing as r_i shrinks */
+		BigInteger r0 = m, r1 = u.mod(m);
+		BigInteger t0 = BigInteger.ZERO, t1 = BigInteger.ONE;
+		while (r1.compareTo(numeratorBound) > 0) {
+			BigInteger[] qr = r0.divideAndRemainder(r1);
+			BigInteger t2 = t0.subtract(qr[0].multiply(t1));
+			r0 = r1;
+			r1 = qr[1];
+			t0 = t1;
+			t1 = t2;
+		}
+		if (t1.abs().compareTo(denominatorBound) > 0 || !r1.gcd(t1).equals(BigInteger.ONE))
+			return null;
+		if (t1.signum() < 0)
+			return new BigInteger[] { r1.negate(), t1.negate() };
+		return new BigInteger[] { r1, t1 };
+	}
+
+	/**
+	 * @return floor(sqrt((m - 1)/2)), the largest balanced bound N with 2 N^2 < m
+	 */
+	static BigInteger defaultBound(BigInteger m) {
+		return m.subtract(BigInteger.ONE).shiftRight(1).sqrt();
+	}
+
+	/**
+	 * Reconstruct a fraction a/b over a euclidean ring with a = residue b modulo m, deg a <= numeratorDegree and
+	 * deg b < deg m - numeratorDegree. Over a polynomial ring over a field, this is the Pade approximation of the
+	 * residue.
+	 * @param numeratorDegree a bound for the degree of the numerator; at most deg m - 1
+	 * @return the pair (a, b) of numerator and denominator
+	 * @throws IllegalArgumentException if the modulus vanishes, or the degree bound is negative or too large.
+	 * @throws OperationUndefinedException if there is no fraction within the bounds.
+	 */
+	public static RingElement[] reconstruct(EuclideanRing ring, RingElement residue, RingElement modulus, int numeratorDegree)
+			throws OperationUndefinedException {
+		if (modulus.isZero())
+			throw new IllegalArgumentException("Rational reconstruction modulo zero is impossible");
+		int modulusDegree = ring.degree(ChineseRemainderTree.element(ring, modulus));
+		if (numeratorDegree < 0 || numeratorDegree >= modulusDegree)
+			throw new IllegalArgumentException("The numerator degree bound " + numeratorDegree + " has to lie between 0 and " + (modulusDegree - 1));
+
+		RingElement r0 = ChineseRemainderTree.element(ring, modulus);
+		RingElement r1 = ChineseRemainderTree.mod(ring, ChineseRemainderTree.element(ring, residue), r0);
+		RingElement t0 = ring.getZero(), t1 = ring.getOne();
+		while (!r1.isZero() && ring.degree(r1) > numeratorDegree) {
+			RingElement[] qr = ring.remainder_division(r0, r1);
+			RingElement t2 = t0.subtract(qr[0].multiply(t1));
+			r0 = r1;
+			r1 = qr[1];
+			t0 = t1;
+			t1 = t2;
+		}
+		if (ring.degree(ChineseRemainderTree.element(ring, t1)) >= modulusDegree - numeratorDegree)
+			throw new OperationUndefinedException("There is no fraction with numerator degree at most " + numeratorDegree
+					+ " congruent to " + residue + " modulo " + modulus);
+		if (!r1.isZero() && !ring.gcd(r1, t1).invertible())
+			throw new OperationUndefinedException("The reconstructed numerator " + r1 + " and denominator " + t1 + " are not coprime");
+		return new RingElement[] { r1, ChineseRemainderTree.element(ring, t1) };
+	}
+}
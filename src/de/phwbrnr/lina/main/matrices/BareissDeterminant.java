@@ -0,0 +1,64 @@
+/**
+ * Determinants of matrices over a commutative integral domain by fraction-free elimination (see BareissElimination).
+ *
+ * Only ring operations and exact divisions are needed, so this works over the integers and over polynomial rings
+ * without passing to the quotient field, and the intermediate entries are minors of the matrix.
+ *
+ * The problem instance is a square Matrix over a commutative integral domain; the result is its determinant.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.polynomials.Polynomial;
+import de.phwbrnr.lina.main.polynomials.PolynomialRing;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class BareissDeterminant extends AbstractStrategy<RingElement> {
+
+	@Override
+	public String getDescription() {
+		return "Compute the determinant of a matrix over an integral domain by fraction-free elimination";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		if (problem.length != 1 || !(problem[0] instanceof Matrix) || !((Matrix)problem[0]).isSquare())
+			return false;
+		Ring ring = ((Matrix)problem[0]).getCoefficientRing();
+		return ring.isIntegralDomain() && ring.isCommutative();
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		Matrix matrix = (Matrix)problem[0];
+		double n = matrix.getRowCount();
+		/* n^3 / 3 updates of three multiplications and an exact division each, on entries growing linearly */
+		double operations = 2 * n * n * n * Math.max(1, Math.log(n + 1));
+		/* over a polynomial ring, the minors have about n d / 2 coefficients on average, and each operation multiplies them */
+		if (matrix.getCoefficientRing() instanceof PolynomialRing) {
+			int degree = 0;
+			for (RingElement entry : matrix.entries())
+				if (entry instanceof Polynomial)
+					degree = Math.max(degree, ((Polynomial)entry).getDegree());
+			operations *= Math.pow(1 + n * degree / 2, 2);
+		}
+		return costFromOperations(operations);
+	}
+
+	@Override
+	public RingElement execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a square matrix over a commutative integral domain");
+		try {
+			return new BareissElimination((Matrix)problem[0]).getDeterminant();
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("The determinant of a square matrix is undefined", ex);
+		}
+	}
+}
@@ -0,0 +1,179 @@
+/**
+ * Fraction-free Gaussian elimination over an integral domain, by Bareiss' algorithm.
+ *
+ * Ordinary elimination over the quotient field creates a fraction, and reduces it by a gcd, for every entry
+ * operation. The one-step variant of Bareiss avoids the quotient field: when row r with pivot a_rc eliminates column c,
+ * the other rows are updated by
+ *   a_ij <- (a_rc a_ij - a_ic a_rj) / p,
+ * where p is the previous pivot (1 for the first one). By Sylvester's identity, the division is exact, and every
+ * entry of the result is a minor of the original matrix, so the entries stay ring elements, and their size only grows
+ * linearly with the number of steps (over the integers, they are bounded by Hadamard's bound). Columns without a
+ * pivot are skipped, which keeps the entries minors; the last pivot of a square regular matrix is its determinant up
+ * to the sign of the row permutation.
+ *
+ * The elimination is done once, in the constructor; determinant, rank and the echelon form are read off the result.
+ * Systems are solved in the style of Cramer's rule, but without computing n + 1 determinants: the elimination of the
+ * extended matrix is followed by a fraction-free back substitution for the numerators det(A_i).
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.Arrays;
+
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+public class BareissElimination {
+	private Matrix matrix;
+	private Ring ring;
+	private int rows, columns;
+	/* the echelon form in row-major order */
+	private RingElement[] echelon;
+	private int[] pivotColumns;
+	/* whether the rows were permuted by an odd permutation */
+	private boolean oddPermutation;
+
+	/**
+	 * Eliminate a matrix.
+	 * @throws IllegalArgumentException if the entries are not from a commutative integral domain
+	 * @throws IllegalStateException if the ring operations fail, in particular if the exact divisions are not
+	 * supported by the ring elements
+	 */
+	public BareissElimination(Matrix matrix) {
+		ring = matrix.getCoefficientRing();
+		if (!ring.isIntegralDomain() || !ring.isCommutative())
+			throw new IllegalArgumentException("Fraction-free elimination needs a commutative integral domain, but got " + ring.getName());
+		this.matrix = matrix;
+		rows = matrix.getRowCount();
+		columns = matrix.getColumnCount();
+		echelon = matrix.entries().clone();
+		int[] pivots = new int[Math.min(rows, columns)];
+		int rank;
+		try {
+			rank = eliminate(echelon, rows, columns, columns, pivots);
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("Ring operations failed in the fraction-free elimination over " + ring.getName(), ex);
+		}
+		pivotColumns = Arrays.copyOf(pivots, rank);
+	}
+
+	/**
+	 * Eliminate the first limit columns of a matrix in place, updating all columns.
+	 * @param pivots receives the columns of the pivots
+	 * @return the number of pivots, that is, the rank of the first limit columns
+	 */
+	private int eliminate(RingElement[] m, int rows, int columns, int limit, int[] pivots) throws OperationUndefinedException {
+		RingElement zero = ring.getZero(), previous = ring.getOne();
+		oddPermutation = false;
+		int r = 0;
+		for (int c = 0; c < limit && r < rows; c++) {
+			int pivotRow = r;
+			while (pivotRow < rows && m[pivotRow * columns + c].isZero())
+				pivotRow++;
+			if (pivotRow == rows)
+				continue;
+			if (pivotRow != r) {
+				MatrixArithmetic.swapRows(m, columns, pivotRow, r);
+				oddPermutation = !oddPermutation;
+			}
+			RingElement pivot = m[r * columns + c];
+			for (int i = r + 1; i < rows; i++) {
+				RingElement f = m[i * columns + c];
+				for (int j = c + 1; j < columns; j++) {
+					RingElement x = pivot.multiply(m[i * columns + j]);
+					if (!f.isZero())
+						x = x.subtract(f.multiply(m[r * columns + j]));
+					m[i * columns + j] = previous.isOne() ? x : x.divide(previous);
+				}
+				m[i * columns + c] = zero;
+			}
+			previous = pivot;
+			pivots[r++] = c;
+		}
+		return r;
+	}
+
+	/**
+	 * @return the eliminated matrix, in row echelon form: the pivot of row i is in column getPivotColumns()[i] and
+	 * is the leading principal minor of order i + 1 of the row-permuted matrix; rows below the rank vanish
+	 */
+	public Matrix getEchelonForm() {
+		return new Matrix(ring, rows, columns, echelon, true);
+	}
+
+	public int getRank() {
+		return pivotColumns.length;
+	}
+
+	/**
+	 * @return the columns of the pivots, ascending
+	 */
+	public int[] getPivotColumns() {
+		return pivotColumns.clone();
+	}
+
+	/**
+	 * @throws OperationUndefinedException if the matrix is not square
+	 */
+	public RingElement getDeterminant() throws OperationUndefinedException {
+		if (rows != columns)
+			throw new OperationUndefinedException("Only square matrices have a determinant, not " + rows + " x " + columns + " matrices");
+		if (rows == 0)
+			return ring.getOne();
+		if (getRank() < rows)
+			return ring.getZero();
+		RingElement last = echelon[rows * columns - 1];
+		return oddPermutation ? last.negative() : last;
+	}
+
+	/**
+	 * Solve a regular system A x = b by Cramer's rule, with the numerators computed by fraction-free elimination.
+	 * @return the vector of the determinants det(A_i), where A_i is A with column i replaced by b, so that
+	 * x = y / det(A)
+	 * @throws OperationUndefinedException if the matrix is not square or singular, or b has the wrong length
+	 */
+	public Vector cramer(Vector b) throws OperationUndefinedException {
+		if (!b.getRing().equals(ring))
+			throw new OperationUndefinedException("Cannot solve a system over " + ring.getName() + " for a vector over " + b.getRing().getName());
+		Matrix y = cramer(new Matrix(ring, b.getLength(), 1, b.entries(), true));
+		return y.getColumn(0);
+	}
+
+	/**
+	 * Solve a regular system A X = B for a matrix B by Cramer's rule, column by column.
+	 * @return the matrix Y = det(A) X
+	 * @throws OperationUndefinedException if the matrix is not square or singular, or B has the wrong number of rows
+	 */
+	public Matrix cramer(Matrix b) throws OperationUndefinedException {
+		if (rows != columns || getRank() < rows)
+			throw new OperationUndefinedException("Cramer's rule needs a regular square matrix, but got a " + rows + " x " + columns + " matrix of rank " + getRank());
+		if (!b.getCoefficientRing().equals(ring) || b.getRowCount() != rows)
+			throw new OperationUndefinedException("Cannot solve a system with a " + rows + " x " + columns + " matrix over " + ring.getName()
+					+ " for a " + b.getRowCount() + " x " + b.getColumnCount() + " matrix over " + b.getCoefficientRing().getName());
+		int n = rows, k = b.getColumnCount(), width = n + k;
+		RingElement[] a = matrix.entries(), bEntries = b.entries();
+		RingElement[] m = new RingElement[n * width];
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(a, i * n, m, i * width, n);
+			System.arraycopy(bEntries, i * k, m, i * width + n, k);
+		}
+		boolean odd = oddPermutation;
+		eliminate(m, n, width, n, new int[n]);
+		oddPermutation = odd;
+
+		/* with d = det(A), the numerators satisfy u_ii y_i = d c_i - sum_(j > i) u_ij y_j, and the division is exact */
+		RingElement d = getDeterminant();
+		RingElement[] y = new RingElement[n * k];
+		for (int l = 0; l < k; l++) {
+			for (int i = n - 1; i >= 0; i--) {
+				RingElement s = d.multiply(m[i * width + n + l]);
+				for (int j = i + 1; j < n; j++)
+					s = s.subtract(m[i * width + j].multiply(y[j * k + l]));
+				y[i * k + l] = s.divide(m[i * width + i]);
+			}
+		}
+		return new Matrix(ring, n, k, y, true);
+	}
+}
@@ -0,0 +1,56 @@
+/**
+ * Characteristic polynomials of matrices over a commutative ring by Berkowitz's algorithm.
+ *
+ * The algorithm builds the characteristic polynomial of the leading blocks of the matrix one row and column at a
+ * time, by products with Toeplitz matrices whose entries are of the form R A^j S (see MatrixArithmetic.berkowitz).
+ * It uses additions and multiplications only, so it works over every commutative ring, also with zero divisors, like
+ * Z/nZ or polynomial rings, where elimination would need divisions. It takes O(n^4) ring operations.
+ *
+ * The problem instance is a square Matrix over a commutative Ring; the result is the monic Polynomial det(x I - A)
+ * over it.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.polynomials.Polynomial;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class BerkowitzCharacteristicPolynomial extends AbstractStrategy<RingElement> {
+
+	@Override
+	public String getDescription() {
+		return "Compute the characteristic polynomial of a matrix over a commutative ring by Berkowitz's division-free algorithm";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		return problem.length == 1 && problem[0] instanceof Matrix && ((Matrix)problem[0]).isSquare()
+				&& ((Matrix)problem[0]).getCoefficientRing().isCommutative();
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		double n = ((Matrix)problem[0]).getRowCount();
+		/* n^4 / 4 products for the sequences R A^j S on objects, with entries growing linearly */
+		return costFromOperations(2.5 * n * n * n * n * Math.max(1, Math.log(n + 1)));
+	}
+
+	@Override
+	public RingElement execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a square matrix over a commutative ring");
+		Matrix matrix = (Matrix)problem[0];
+		Ring ring = matrix.getCoefficientRing();
+		try {
+			return new Polynomial(ring, MatrixArithmetic.berkowitz(ring, matrix.entries(), matrix.getRowCount()));
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("Ring operations failed for the characteristic polynomial over " + ring.getName(), ex);
+		}
+	}
+}
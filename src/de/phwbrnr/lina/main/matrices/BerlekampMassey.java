@@ -0,0 +1,177 @@
+/**
+ * Minimal polynomials of linearly recurrent sequences over a prime field, by the Berlekamp-Massey algorithm, and of
+ * sparse matrices, by Wiedemann's method on top of it.
+ *
+ * The minimal polynomial of a sequence s_0, s_1, ... is the monic f = sum f_k x^k of least degree with
+ * sum_k f_k s_(j+k) = 0 for all j. If it has degree at most L, it is determined by the first 2 L terms, and the
+ * Berlekamp-Massey algorithm finds it from them with O(L^2) operations, updating the shortest recurrence for every
+ * new term.
+ *
+ * For a square matrix A and random vectors u and v, the sequence u^T A^i v has a minimal polynomial that divides
+ * the one of A, and equals it with probability about 1 - 2 n / p. The least common multiple over a few such
+ * sequences is computed until it no longer grows; A is only multiplied with blocks of vectors, 2 n times per round.
+ * This is a Monte Carlo method: over small fields, factors of the minimal polynomial may be missed.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.PrimeFieldElement;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.polynomials.Polynomial;
+
+public final class BerlekampMassey {
+	/**
+	 * The number of sequences u^T A^i v computed at once for the minimal polynomial of a matrix.
+	 */
+	static final int PROJECTIONS = 4;
+
+	private static Random random = new Random();
+
+	private BerlekampMassey() {
+	}
+
+	/**
+	 * @param sequence the first terms of the sequence, from the prime field
+	 * @return the minimal polynomial of the shortest linear recurrence that generates the terms; it is the minimal
+	 * polynomial of the sequence if that has degree at most half the number of terms
+	 * @throws IllegalArgumentException if a term is not from the field
+	 */
+	public static Polynomial minimalPolynomial(PrimeField field, RingElement... sequence) {
+		long[] s = new long[sequence.length];
+		for (int i = 0; i < s.length; i++) {
+			if (!field.contains(sequence[i]))
+				throw new IllegalArgumentException("Term #" + i + " (" + sequence[i] + ") is not member of " + field.getName());
+			s[i] = ((PrimeFieldElement)sequence[i]).getValue();
+		}
+		return toPolynomial(field, minimalPolynomial(s, field.getCharacteristic()));
+	}
+
+	/**
+	 * @return the minimal polynomial of a square sparse matrix, correct with high probability if p is large compared
+	 * to the dimension
+	 * @throws IllegalArgumentException if the matrix is not square
+	 */
+	public static Polynomial minimalPolynomial(SparseMatrix a) {
+		if (!a.isSquare())
+			throw new IllegalArgumentException("Only square matrices have a minimal polynomial, but got a " + a.getRowCount() + " x " + a.getColumnCount() + " matrix");
+		long p = a.getCoefficientRing().getCharacteristic();
+		int n = a.getRowCount(), k = PROJECTIONS;
+		long[] f = { 1 };
+		while (true) {
+			long[] u = SparseOperator.randomBlock(n, k, p, random), w = SparseOperator.randomBlock(n, k, p, random);
+			long[][] sequences = new long[k][2 * n];
+			for (int i = 0; i < 2 * n; i++) {
+				/* the diagonal of U^T A^i V holds the terms of the k sequences */
+				for (int j = 0; j < k; j++) {
+					long s = 0;
+					for (int l = 0; l < n; l++)
+						s = (s + u[l * k + j] * w[l * k + j]) % p;
+					sequences[j][i] = s;
+				}
+				if (i + 1 < 2 * n)
+					w = a.apply(w, k);
+			}
+			int degree = f.length;
+			for (long[] s : sequences)
+				f = lcm(f, minimalPolynomial(s, p), p);
+			if (f.length == degree || f.length == n + 1)
+				return toPolynomial(a.getCoefficientRing(), f);
+		}
+	}
+
+	/**
+	 * @return the coefficients of the minimal polynomial of the shortest linear recurrence of the terms, constant
+	 * coefficient first; it is monic
+	 */
+	static long[] minimalPolynomial(long[] s, long p) {
+		/* the connection polynomial c with sum_i c_i s_(j-i) = 0, and the one before the last length change */
+		long[] c = new long[s.length + 1], b = new long[s.length + 1];
+		c[0] = b[0] = 1;
+		int length = 0, m = 1;
+		long last = 1;
+		for (int j = 0; j < s.length; j++) {
+			long d = s[j];
+			for (int i = 1; i <= length; i++)
+				d = (d + c[i] * s[j - i]) % p;
+			if (d == 0) {
+				m++;
+				continue;
+			}
+			long f = p - d * PrimeFieldElement.inverse(last, p) % p;
+			long[] t = 2 * length <= j ? c.clone() : null;
+			for (int i = 0; i + m < c.length; i++)
+				c[i + m] = (c[i + m] + f * b[i]) % p;
+			if (t == null) {
+				m++;
+				continue;
+			}
+			length = j + 1 - length;
+			b = t;
+			last = d;
+			m = 1;
+		}
+		/* the minimal polynomial is the reversal x^L c(1/x) */
+		long[] result = new long[length + 1];
+		for (int i = 0; i <= length; i++)
+			result[length - i] = c[i];
+		return result;
+	}
+
+	/**
+	 * @return the monic least common multiple of two monic polynomials
+	 */
+	static long[] lcm(long[] f, long[] g, long p) {
+		long[] a = f, b = g;
+		while (b.length > 1 || b[0] != 0) {
+			long[] r = divide(a, b, p)[1];
+			a = b;
+			b = r;
+		}
+		/* a is the gcd up to a unit, and both factors are monic */
+		long[] quotient = divide(f, a, p)[0];
+		long[] result = new long[quotient.length + g.length - 1];
+		for (int i = 0; i < quotient.length; i++)
+			for (int j = 0; j < g.length; j++)
+				result[i + j] = (result[i + j] + quotient[i] * g[j]) % p;
+		long inverse = PrimeFieldElement.inverse(result[result.length - 1], p);
+		for (int i = 0; i < result.length; i++)
+			result[i] = result[i] * inverse % p;
+		return result;
+	}
+
+	/**
+	 * @return the quotient and the remainder of polynomials, constant coefficient first, the zero polynomial being {0}
+	 */
+	private static long[][] divide(long[] f, long[] g, long p) {
+		int n = g.length - 1;
+		long[] r = f.clone();
+		if (f.length <= n)
+			return new long[][] { { 0 }, r };
+		long[] q = new long[f.length - n];
+		long inverse = PrimeFieldElement.inverse(g[n], p);
+		for (int i = f.length - 1; i >= n; i--) {
+			long c = r[i] * inverse % p;
+			q[i - n] = c;
+			if (c == 0)
+				continue;
+			for (int j = 0; j <= n; j++)
+				r[i - n + j] = (r[i - n + j] + (p - c) * g[j]) % p;
+		}
+		int degree = n - 1;
+		while (degree > 0 && r[degree] == 0)
+			degree--;
+		return new long[][] { q, Arrays.copyOf(r, Math.max(1, degree + 1)) };
+	}
+
+	static Polynomial toPolynomial(PrimeField field, long[] coefficients) {
+		RingElement[] c = new RingElement[coefficients.length];
+		for (int i = 0; i < c.length; i++)
+			c[i] = field.element(coefficients[i]);
+		return new Polynomial(field, c);
+	}
+}
@@ -0,0 +1,289 @@
+/**
+ * Represent a dense matrix over F_2, with the entries packed into 64 bit words.
+ *
+ * A Matrix over F_2 takes a long for every entry; a BinaryMatrix takes a bit, so that a 50000 x 50000 matrix fits into
+ * about 300 MB, and adding two rows takes one exclusive or per 64 entries. Products are computed by M4RM and
+ * eliminations by M4RI, which both replace groups of row additions by the lookup of tabulated sums, in parallel on
+ * large matrices (see BinaryMatrixArithmetic).
+ *
+ * Binary matrices are immutable, and convert from and to Matrix over PrimeField.getInstance(2).
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import de.phwbrnr.lina.main.fields.ElementNotInvertibleException;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.PrimeFieldElement;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+public class BinaryMatrix {
+	private int rows, columns, stride;
+	private long[] words;
+
+	/**
+	 * Create the zero matrix with the given numbers of rows and columns.
+	 */
+	public BinaryMatrix(int rows, int columns) {
+		if (rows < 0 || columns < 0)
+			throw new IllegalArgumentException("The numbers of rows and columns have to be non-negative, but got " + rows + " x " + columns);
+		this.rows = rows;
+		this.columns = columns;
+		stride = BinaryMatrixArithmetic.stride(columns);
+		words = new long[rows * stride];
+	}
+
+	/**
+	 * Create the packed form of a matrix over F_2.
+	 * @throws IllegalArgumentException if the entries are not from F_2
+	 */
+	public BinaryMatrix(Matrix matrix) {
+		this(matrix.getRowCount(), matrix.getColumnCount());
+		if (!matrix.getCoefficientRing().equals(PrimeField.getInstance(2)))
+			throw new IllegalArgumentException("Binary matrices are only defined over F_2, not over " + matrix.getCoefficientRing().getName());
+		long[] values = matrix.values();
+		for (int i = 0; i < rows; i++)
+			for (int j = 0; j < columns; j++)
+				words[i * stride + (j >>> 6)] |= values[i * columns + j] << (j & 63);
+	}
+
+	/**
+	 * Wrap packed rows without checking or copying them; the bits beyond the last column have to be zero.
+	 */
+	BinaryMatrix(int rows, int columns, long[] words, boolean trusted) {
+		this.rows = rows;
+		this.columns = columns;
+		this.stride = BinaryMatrixArithmetic.stride(columns);
+		this.words = words;
+	}
+
+	/**
+	 * @return the n x n identity matrix
+	 */
+	public static BinaryMatrix identity(int n) {
+		BinaryMatrix result = new BinaryMatrix(n, n);
+		for (int i = 0; i < n; i++)
+			result.words[i * result.stride + (i >>> 6)] |= 1L << (i & 63);
+		return result;
+	}
+
+	/**
+	 * @return a matrix of independent uniformly random bits
+	 */
+	public static BinaryMatrix random(int rows, int columns, Random random) {
+		BinaryMatrix result = new BinaryMatrix(rows, columns);
+		long last = columns % 64 == 0 ? -1L : (1L << (columns % 64)) - 1;
+		for (int i = 0; i < rows; i++) {
+			for (int w = 0; w < result.stride; w++)
+				result.words[i * result.stride + w] = random.nextLong();
+			if (result.stride > 0)
+				result.words[(i + 1) * result.stride - 1] &= last;
+		}
+		return result;
+	}
+
+	/**
+	 * @return the field F_2 of the entries
+	 */
+	public PrimeField getCoefficientRing() {
+		return PrimeField.getInstance(2);
+	}
+
+	public int getRowCount() {
+		return rows;
+	}
+
+	public int getColumnCount() {
+		return columns;
+	}
+
+	public boolean isSquare() {
+		return rows == columns;
+	}
+
+	/**
+	 * @return the entry in row i and column j, counting from 0
+	 */
+	public RingElement get(int i, int j) {
+		if (i < 0 || i >= rows || j < 0 || j >= columns)
+			throw new IndexOutOfBoundsException("Entry (" + i + ", " + j + ") is outside of a " + rows + " x " + columns + " matrix");
+		return getCoefficientRing().element(BinaryMatrixArithmetic.get(words, stride, i, j) ? 1 : 0);
+	}
+
+	/**
+	 * @throws OperationUndefinedException if the shapes differ
+	 */
+	public BinaryMatrix add(BinaryMatrix other) throws OperationUndefinedException {
+		if (other.rows != rows || other.columns != columns)
+			throw new OperationUndefinedException("Cannot add " + rows + " x " + columns + " matrix and " + other.rows + " x " + other.columns + " matrix");
+		long[] result = new long[words.length];
+		for (int i = 0; i < result.length; i++)
+			result[i] = words[i] ^ other.words[i];
+		return new BinaryMatrix(rows, columns, result, true);
+	}
+
+	/**
+	 * @throws OperationUndefinedException if the number of columns does not match the number of rows of the factor
+	 */
+	public BinaryMatrix multiply(BinaryMatrix other) throws OperationUndefinedException {
+		if (other.rows != columns)
+			throw new OperationUndefinedException("Cannot multiply " + rows + " x " + columns + " matrix and " + other.rows + " x " + other.columns + " matrix");
+		return new BinaryMatrix(rows, other.columns, BinaryMatrixArithmetic.multiply(words, other.words, rows, columns, other.columns), true);
+	}
+
+	/**
+	 * @return the image of a column vector under the matrix
+	 * @throws OperationUndefinedException if the vector is not over F_2 or its length is not the number of columns
+	 */
+	public Vector multiply(Vector vector) throws OperationUndefinedException {
+		if (!vector.getRing().equals(getCoefficientRing()) || vector.getLength() != columns)
+			throw new OperationUndefinedException("Cannot apply " + rows + " x " + columns + " matrix over F_2 to vector of length "
+					+ vector.getLength() + " over " + vector.getRing().getName());
+		long[] v = pack(vector);
+		RingElement[] result = new RingElement[rows];
+		for (int i = 0; i < rows; i++) {
+			long x = 0;
+			for (int w = 0; w < stride; w++)
+				x ^= words[i * stride + w] & v[w];
+			result[i] = getCoefficientRing().element(Long.bitCount(x) & 1);
+		}
+		return new Vector(getCoefficientRing(), result, true);
+	}
+
+	public BinaryMatrix transpose() {
+		return new BinaryMatrix(columns, rows, BinaryMatrixArithmetic.transpose(words, rows, columns), true);
+	}
+
+	/**
+	 * @return the reduced row echelon form
+	 */
+	public BinaryMatrix getEchelonForm() {
+		long[] result = words.clone();
+		BinaryMatrixArithmetic.reduce(result, rows, columns, true);
+		return new BinaryMatrix(rows, columns, result, true);
+	}
+
+	public int getRank() {
+		return BinaryMatrixArithmetic.reduce(words.clone(), rows, columns, false).length;
+	}
+
+	/**
+	 * @return a basis of the kernel, as the rows of a matrix in which every basis vector has a one in a column where
+	 * all others have a zero
+	 */
+	public BinaryMatrix getKernel() {
+		long[] reduced = words.clone();
+		int[] pivots = BinaryMatrixArithmetic.reduce(reduced, rows, columns, true);
+		return new BinaryMatrix(columns - pivots.length, columns, BinaryMatrixArithmetic.kernel(reduced, columns, pivots), true);
+	}
+
+	/**
+	 * @return a solution x of A x = b, with zeros in the columns without pivot
+	 * @throws OperationUndefinedException if the vector is not over F_2, its length is not the number of rows, or
+	 * there is no solution
+	 */
+	public Vector solve(Vector b) throws OperationUndefinedException {
+		if (!b.getRing().equals(getCoefficientRing()) || b.getLength() != rows)
+			throw new OperationUndefinedException("Cannot solve a system with " + rows + " x " + columns + " matrix over F_2 for vector of length "
+					+ b.getLength() + " over " + b.getRing().getName());
+		/* the reduced row echelon form of [A | b] */
+		int s = BinaryMatrixArithmetic.stride(columns + 1);
+		long[] augmented = augment(columns + 1);
+		long[] v = pack(b);
+		for (int i = 0; i < rows; i++)
+			if ((v[i >>> 6] >>> (i & 63) & 1) != 0)
+				augmented[i * s + (columns >>> 6)] |= 1L << (columns & 63);
+		int[] pivots = BinaryMatrixArithmetic.reduce(augmented, rows, columns + 1, true);
+		if (pivots.length > 0 && pivots[pivots.length - 1] == columns)
+			throw new OperationUndefinedException("The system has no solution");
+		RingElement[] x = new RingElement[columns];
+		Arrays.fill(x, getCoefficientRing().getZero());
+		for (int i = 0; i < pivots.length; i++)
+			if (BinaryMatrixArithmetic.get(augmented, s, i, columns))
+				x[pivots[i]] = getCoefficientRing().getOne();
+		return new Vector(getCoefficientRing(), x, true);
+	}
+
+	/**
+	 * @throws ElementNotInvertibleException if the matrix is not square or singular
+	 */
+	public BinaryMatrix inverse() throws ElementNotInvertibleException {
+		if (!isSquare())
+			throw new ElementNotInvertibleException("Only square matrices can be invertible");
+		/* the reduced row echelon form of [A | I] is [I | A^(-1)] */
+		int n = rows, s = BinaryMatrixArithmetic.stride(2 * n);
+		long[] augmented = augment(2 * n);
+		for (int i = 0; i < n; i++)
+			augmented[i * s + ((n + i) >>> 6)] |= 1L << ((n + i) & 63);
+		int[] pivots = BinaryMatrixArithmetic.reduce(augmented, n, 2 * n, true);
+		if (pivots.length < n || pivots[n - 1] != n - 1)
+			throw new ElementNotInvertibleException("The matrix is singular");
+		BinaryMatrix result = new BinaryMatrix(n, n);
+		for (int i = 0; i < n; i++)
+			for (int j = 0; j < n; j++)
+				if (BinaryMatrixArithmetic.get(augmented, s, i, n + j))
+					result.words[i * stride + (j >>> 6)] |= 1L << (j & 63);
+		return result;
+	}
+
+	/**
+	 * @return the rows, widened to the given number of columns
+	 */
+	private long[] augment(int width) {
+		int s = BinaryMatrixArithmetic.stride(width);
+		long[] result = new long[rows * s];
+		for (int i = 0; i < rows; i++)
+			System.arraycopy(words, i * stride, result, i * s, stride);
+		return result;
+	}
+
+	private static long[] pack(Vector vector) {
+		long[] result = new long[BinaryMatrixArithmetic.stride(vector.getLength())];
+		for (int i = 0; i < vector.getLength(); i++)
+			result[i >>> 6] |= ((PrimeFieldElement)vector.get(i)).getValue() << (i & 63);
+		return result;
+	}
+
+	/**
+	 * @return the matrix over F_2 with the same entries
+	 */
+	public Matrix toMatrix() {
+		long[] values = new long[rows * columns];
+		for (int i = 0; i < rows; i++)
+			for (int j = 0; j < columns; j++)
+				values[i * columns + j] = words[i * stride + (j >>> 6)] >>> (j & 63) & 1;
+		return new Matrix(getCoefficientRing(), rows, columns, values, true);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof BinaryMatrix))
+			return false;
+		BinaryMatrix m = (BinaryMatrix)other;
+		return m.rows == rows && m.columns == columns && Arrays.equals(m.words, words);
+	}
+
+	@Override
+	public int hashCode() {
+		return (31 * rows + columns) * 31 + Arrays.hashCode(words);
+	}
+
+	/**
+	 * @return the rows as strings of bits, as in "binary[011,100]"
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("binary[");
+		for (int i = 0; i < rows; i++) {
+			if (i > 0)
+				sb.append(',');
+			for (int j = 0; j < columns; j++)
+				sb.append(BinaryMatrixArithmetic.get(words, stride, i, j) ? '1' : '0');
+		}
+		return sb.append(']').toString();
+	}
+}
@@ -0,0 +1,358 @@
+/**
+ * Arithmetic on matrices over F_2, with the entries packed into the bits of 64 bit words.
+ *
+ * Every row takes stride(columns) words; column j of a row is bit j % 64 of its word j / 64, and the bits beyond the
+ * last column are zero. Adding rows is then one exclusive or per 64 entries. The methods never modify their
+ * arguments, unless they say so.
+ *
+ * Both main algorithms are "Method of the Four Russians" (Arlazarov, Dinic, Kronrod, Faradzev; Bard; Albrecht et al.):
+ * - M4RM multiplies by groups of TABLE_BITS rows of the right factor: the 2^TABLE_BITS sums of them are tabulated in
+ *   Gray code order, one row addition each, and every row of the left factor adds the sum its bits select, instead of
+ *   up to TABLE_BITS rows.
+ * - M4RI eliminates by blocks of up to TABLE_BITS pivots: the pivot rows are brought into reduced form among each
+ *   other, and every other row is cleared in the pivot columns by adding the one tabulated sum of pivot rows that its
+ *   bits in those columns select.
+ * The tables are applied in chunks of CHUNK_WORDS words, so that the part of the table in use stays in the cache
+ * while the rows pass by, and large products and eliminations are split into bands of rows across cores in the
+ * common fork-join pool.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+final class BinaryMatrixArithmetic {
+	/**
+	 * The number of rows whose sums are tabulated at once.
+	 */
+	static final int TABLE_BITS = 8;
+	/**
+	 * The number of words of a row that are processed with one part of a table.
+	 */
+	static final int CHUNK_WORDS = 64;
+	/**
+	 * Products and eliminations with fewer word operations are not split across cores.
+	 */
+	static final long PARALLEL_THRESHOLD = 1L << 20;
+
+	private BinaryMatrixArithmetic() {
+	}
+
+	/**
+	 * @return the number of words of a row with the given number of columns
+	 */
+	static int stride(int columns) {
+		return (columns + 63) >>> 6;
+	}
+
+	static boolean get(long[] a, int stride, int i, int j) {
+		return (a[i * stride + (j >>> 6)] >>> (j & 63) & 1) != 0;
+	}
+
+	/**
+	 * Add row j to row i from the word from on, in place.
+	 */
+	private static void addRow(long[] a, int stride, int i, int j, int from) {
+		int x = i * stride, y = j * stride;
+		for (int w = from; w < stride; w++)
+			a[x + w] ^= a[y + w];
+	}
+
+	private static void swapRows(long[] a, int stride, int i, int j) {
+		for (int w = 0; w < stride; w++) {
+			long t = a[i * stride + w];
+			a[i * stride + w] = a[j * stride + w];
+			a[j * stride + w] = t;
+		}
+	}
+
+	/**
+	 * @return the product of the n x m matrix a and the m x k matrix b
+	 */
+	static long[] multiply(long[] a, long[] b, int n, int m, int k) {
+		long[] result = new long[n * stride(k)];
+		Product product = new Product(a, b, result, n, m, k, 0, n);
+		if ((long)n * stride(m) * stride(k) * TABLE_BITS >= PARALLEL_THRESHOLD)
+			ForkJoinPool.commonPool().invoke(product);
+		else
+			product.compute();
+		return result;
+	}
+
+	/**
+	 * A band of rows of a product, split in halves while it is large; every band builds its own tables.
+	 */
+	private static final class Product extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final long[] a, b, result;
+		private final int n, m, k, from, to;
+
+		Product(long[] a, long[] b, long[] result, int n, int m, int k, int from, int to) {
+			this.a = a;
+			this.b = b;
+			this.result = result;
+			this.n = n;
+			this.m = m;
+			this.k = k;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			/* a band has to be long enough to pay for its tables */
+			if ((long)(to - from) * stride(m) * stride(k) * TABLE_BITS >= 2 * PARALLEL_THRESHOLD && to - from >= 512) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Product(a, b, result, n, m, k, from, mid), new Product(a, b, result, n, m, k, mid, to));
+				return;
+			}
+			multiplyRows(a, b, result, from, to, m, k);
+		}
+	}
+
+	/**
+	 * Compute the rows from (inclusive) to to (exclusive) of the product of a and the m x k matrix b into result, by
+	 * M4RM: for every chunk of columns and every word of columns of a, the sums of each group of TABLE_BITS rows of b
+	 * are tabulated, and the bytes of the word of a row select the sums to add.
+	 */
+	private static void multiplyRows(long[] a, long[] b, long[] result, int from, int to, int m, int k) {
+		int sa = stride(m), sb = stride(k), size = 1 << TABLE_BITS, groups = 64 / TABLE_BITS;
+		long[][] tables = new long[groups][size * CHUNK_WORDS];
+		for (int chunk = 0; chunk < sb; chunk += CHUNK_WORDS) {
+			int width = Math.min(CHUNK_WORDS, sb - chunk);
+			for (int word = 0; word < sa; word++) {
+				for (int g = 0; g < groups; g++) {
+					int first = word * 64 + g * TABLE_BITS;
+					fillTable(tables[g], b, sb, first, Math.max(0, Math.min(TABLE_BITS, m - first)), chunk, width);
+				}
+				for (int i = from; i < to; i++) {
+					long x = a[i * sa + word];
+					if (x == 0)
+						continue;
+					int row = i * sb + chunk;
+					for (int g = 0; g < groups; g++, x >>>= TABLE_BITS) {
+						int index = (int)x & (size - 1);
+						if (index == 0)
+							continue;
+						long[] table = tables[g];
+						int offset = index * width;
+						for (int w = 0; w < width; w++)
+							result[row + w] ^= table[offset + w];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Tabulate the sums of the count rows of b from the row first on, in the words from chunk to chunk + width: entry
+	 * s is the sum of the rows first + l for the bits l of s. In Gray code order, every entry is one row away from the
+	 * one before.
+	 */
+	private static void fillTable(long[] table, long[] b, int stride, int first, int count, int chunk, int width) {
+		Arrays.fill(table, 0, width, 0);
+		for (int s = 1; s < 1 << count; s++) {
+			int gray = s ^ (s >>> 1), previous = (s - 1) ^ ((s - 1) >>> 1);
+			int row = (first + Integer.numberOfTrailingZeros(s)) * stride + chunk;
+			for (int w = 0; w < width; w++)
+				table[gray * width + w] = table[previous * width + w] ^ b[row + w];
+		}
+	}
+
+	/**
+	 * Bring a rows x columns matrix into row echelon form by M4RI, in place; if full is set, into reduced row echelon
+	 * form.
+	 * @return the pivot columns, ascending
+	 */
+	static int[] reduce(long[] a, int rows, int columns, boolean full) {
+		int s = stride(columns);
+		int[] pivots = new int[Math.min(rows, columns)];
+		int[] applied = new int[rows], pivotColumns = new int[TABLE_BITS];
+		long[] table = new long[(1 << TABLE_BITS) * s];
+		int r = 0, c = 0;
+		while (r < rows && c < columns) {
+			/* find up to TABLE_BITS pivots, bringing the rows passed on the way up to date with the pivots found */
+			int found = 0, from = c >>> 6;
+			Arrays.fill(applied, r, rows, 0);
+			for (; c < columns && found < TABLE_BITS && r + found < rows; c++) {
+				int pivot = -1;
+				for (int i = r + found; i < rows && pivot < 0; i++) {
+					for (; applied[i] < found; applied[i]++)
+						if (get(a, s, i, pivotColumns[applied[i]]))
+							addRow(a, s, i, r + applied[i], from);
+					if (get(a, s, i, c))
+						pivot = i;
+				}
+				if (pivot < 0)
+					continue;
+				int p = r + found;
+				if (pivot != p) {
+					swapRows(a, s, pivot, p);
+					int t = applied[pivot];
+					applied[pivot] = applied[p];
+					applied[p] = t;
+				}
+				/* the pivot rows of the block are kept reduced among each other */
+				for (int j = 0; j < found; j++)
+					if (get(a, s, r + j, c))
+						addRow(a, s, r + j, p, from);
+				pivotColumns[found++] = c;
+			}
+			if (found == 0)
+				break;
+
+			int width = s - from, size = 1 << found;
+			Arrays.fill(table, 0, width, 0);
+			for (int g = 1; g < size; g++) {
+				int gray = g ^ (g >>> 1), previous = (g - 1) ^ ((g - 1) >>> 1);
+				int row = (r + Integer.numberOfTrailingZeros(g)) * s + from;
+				for (int w = 0; w < width; w++)
+					table[gray * width + w] = table[previous * width + w] ^ a[row + w];
+			}
+			int[] block = Arrays.copyOf(pivotColumns, found);
+			Elimination below = new Elimination(a, s, table, block, from, r + found, rows);
+			if (full)
+				invoke(new Elimination(a, s, table, block, from, 0, r), below);
+			else
+				invoke(below);
+			System.arraycopy(block, 0, pivots, r, found);
+			r += found;
+		}
+		return Arrays.copyOf(pivots, r);
+	}
+
+	private static void invoke(Elimination... tasks) {
+		long work = 0;
+		for (Elimination task : tasks)
+			work += task.work();
+		if (work >= PARALLEL_THRESHOLD)
+			ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					invokeAll(tasks);
+				}
+			});
+		else
+			for (Elimination task : tasks)
+				task.compute();
+	}
+
+	/**
+	 * Clear the pivot columns of a block in a band of rows, by adding the tabulated sums of pivot rows.
+	 */
+	private static final class Elimination extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final long[] a, table;
+		private final int stride, from, first, last;
+		private final int[] pivotColumns;
+
+		Elimination(long[] a, int stride, long[] table, int[] pivotColumns, int from, int first, int last) {
+			this.a = a;
+			this.stride = stride;
+			this.table = table;
+			this.pivotColumns = pivotColumns;
+			this.from = from;
+			this.first = first;
+			this.last = last;
+		}
+
+		long work() {
+			return (long)(last - first) * (stride - from);
+		}
+
+		@Override
+		protected void compute() {
+			if (work() >= 2 * PARALLEL_THRESHOLD && last - first >= 2) {
+				int mid = (first + last) >>> 1;
+				invokeAll(new Elimination(a, stride, table, pivotColumns, from, first, mid), new Elimination(a, stride, table, pivotColumns, from, mid, last));
+				return;
+			}
+			int width = stride - from;
+			int[] index = new int[last - first];
+			for (int i = first; i < last; i++)
+				for (int j = 0; j < pivotColumns.length; j++)
+					if (BinaryMatrixArithmetic.get(a, stride, i, pivotColumns[j]))
+						index[i - first] |= 1 << j;
+			for (int chunk = 0; chunk < width; chunk += CHUNK_WORDS) {
+				int end = Math.min(width, chunk + CHUNK_WORDS);
+				for (int i = first; i < last; i++) {
+					int offset = index[i - first] * width;
+					if (offset == 0)
+						continue;
+					int row = i * stride + from;
+					for (int w = chunk; w < end; w++)
+						a[row + w] ^= table[offset + w];
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the transpose of a rows x columns matrix, by transposing blocks of 64 x 64 bits
+	 */
+	static long[] transpose(long[] a, int rows, int columns) {
+		int sa = stride(columns), st = stride(rows);
+		long[] result = new long[columns * st], block = new long[64];
+		for (int bi = 0; bi < st; bi++) {
+			for (int bj = 0; bj < sa; bj++) {
+				int height = Math.min(64, rows - bi * 64), breadth = Math.min(64, columns - bj * 64);
+				for (int x = 0; x < 64; x++)
+					block[x] = x < height ? a[(bi * 64 + x) * sa + bj] : 0;
+				transpose(block);
+				for (int y = 0; y < breadth; y++)
+					result[(bj * 64 + y) * st + bi] = block[y];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Transpose a 64 x 64 block of bits in place, with row x in word x and column y in bit y, by swapping ever smaller
+	 * quadrants.
+	 */
+	private static void transpose(long[] block) {
+		long mask = 0x00000000FFFFFFFFL;
+		for (int j = 32; j != 0; j >>>= 1, mask ^= mask << j) {
+			for (int k = 0; k < 64; k = ((k | j) + 1) & ~j) {
+				long t = ((block[k] >>> j) ^ block[k | j]) & mask;
+				block[k] ^= t << j;
+				block[k | j] ^= t;
+			}
+		}
+	}
+
+	/**
+	 * @return the kernel of a matrix in reduced row echelon form with the given pivot columns, as the rows of a
+	 * (columns - rank) x columns matrix
+	 */
+	static long[] kernel(long[] a, int columns, int[] pivots) {
+		int s = stride(columns), k = columns - pivots.length;
+		long[] result = new long[k * s];
+		boolean[] isPivot = new boolean[columns];
+		for (int c : pivots)
+			isPivot[c] = true;
+		/* every free column f gives the kernel vector e_f + sum_i a_(i,f) e_(pivot i) */
+		long[] t = transpose(a, pivots.length, columns);
+		int st = stride(pivots.length);
+		for (int f = 0, l = 0; f < columns; f++) {
+			if (isPivot[f])
+				continue;
+			result[l * s + (f >>> 6)] |= 1L << (f & 63);
+			for (int w = 0; w < st; w++) {
+				for (long x = t[f * st + w]; x != 0; x &= x - 1) {
+					int c = pivots[w * 64 + Long.numberOfTrailingZeros(x)];
+					result[l * s + (c >>> 6)] |= 1L << (c & 63);
+				}
+			}
+			l++;
+		}
+		return result;
+	}
+}
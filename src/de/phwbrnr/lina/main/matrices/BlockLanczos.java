@@ -0,0 +1,81 @@
+/**
+ * The block Lanczos method for symmetric sparse operators over a prime field (Montgomery).
+ *
+ * Starting from an n x BLOCK matrix V_0, the iteration builds blocks V_0, V_1, ... that are pairwise orthogonal
+ * with respect to the symmetric operator A, that is V_i^T A V_j = 0 for i != j:
+ *   V_(i+1) = A V_i - V_i W_i^(-1) (A V_i)^T (A V_i) - V_(i-1) W_(i-1)^(-1) (A V_(i-1))^T (A V_i),
+ * where W_i = V_i^T A V_i. The solution of A X = V_0 is collected on the way as X = sum_i V_i W_i^(-1) V_i^T V_0.
+ * Each step is one product of A with a block of vectors and a few products of BLOCK x BLOCK matrices, and only
+ * three blocks are kept, so the memory is that of A and a few blocks of vectors.
+ *
+ * This is the simple variant that keeps the whole block in every step. Montgomery selects the columns of V_i for
+ * which W_i is invertible, so that the method also works over F_2; here the iteration stops as soon as W_i is
+ * singular, which for random blocks only happens with probability about BLOCK / p before the Krylov space is
+ * exhausted. So this is meant for large p; the caller combines the results into the solution or the kernel vectors,
+ * and starts over with other random blocks if that fails.
+ *
+ * Matrices are long arrays in row-major order, with the entries reduced into [0, p).
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+final class BlockLanczos {
+	/**
+	 * The number of vectors in a block.
+	 */
+	static final int BLOCK = 4;
+
+	private BlockLanczos() {
+	}
+
+	/**
+	 * @return whether p is large enough that a singular W_i is unlikely on the way through a space of dimension n
+	 */
+	static boolean suitable(long p, int n) {
+		return p >= 16L * (n + BLOCK);
+	}
+
+	/**
+	 * Run the iteration for a symmetric operator.
+	 * @param v0 the n x BLOCK start block
+	 * @return {X, V}: the n x BLOCK matrix X with A X = V_0 if the iteration ran until V became zero, and the last
+	 * block V, which is nonzero if it stopped at a singular W
+	 */
+	static long[][] iterate(SparseOperator a, long[] v0, long p) {
+		int n = a.dimension(), b = BLOCK;
+		long[] x = new long[n * b];
+		long[] v = v0, previous = null, previousImage = null, previousInverse = null;
+		for (int step = 0; step <= n / b + 2; step++) {
+			if (isZero(v))
+				return new long[][] { x, v };
+			long[] image = a.apply(v, b);
+			long[] inverse = PrimeFieldMatrixArithmetic.inverse(PrimeFieldMatrixArithmetic.transposeMultiply(v, image, n, b, b, p), b, p);
+			if (inverse == null)
+				return new long[][] { x, v };
+
+			long[] coefficients = PrimeFieldMatrixArithmetic.multiply(inverse, PrimeFieldMatrixArithmetic.transposeMultiply(v, v0, n, b, b, p), b, b, b, p);
+			x = PrimeFieldMatrixArithmetic.add(x, PrimeFieldMatrixArithmetic.multiply(v, coefficients, n, b, b, p), p, false);
+
+			long[] next = image;
+			long[] c = PrimeFieldMatrixArithmetic.multiply(inverse, PrimeFieldMatrixArithmetic.transposeMultiply(image, image, n, b, b, p), b, b, b, p);
+			next = PrimeFieldMatrixArithmetic.add(next, PrimeFieldMatrixArithmetic.multiply(v, c, n, b, b, p), p, true);
+			if (previous != null) {
+				c = PrimeFieldMatrixArithmetic.multiply(previousInverse, PrimeFieldMatrixArithmetic.transposeMultiply(previousImage, image, n, b, b, p), b, b, b, p);
+				next = PrimeFieldMatrixArithmetic.add(next, PrimeFieldMatrixArithmetic.multiply(previous, c, n, b, b, p), p, true);
+			}
+			previous = v;
+			previousImage = image;
+			previousInverse = inverse;
+			v = next;
+		}
+		return new long[][] { x, v };
+	}
+
+	private static boolean isZero(long[] v) {
+		for (long y : v)
+			if (y != 0)
+				return false;
+		return true;
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * Kernels of sparse matrices over a large prime field by block Lanczos (see BlockLanczos).
+ *
+ * The iteration runs on the preconditioned operator A' = A^T D A of SparseOperator.preconditioned(), starting from
+ * V_0 = A' W for a random block W, so that A' (X - W) = 0 if it runs until V becomes zero. If it stops early at a
+ * singular W_i, the last block V is nearly in the kernel as well. The kernel vectors of A among the combinations of
+ * the columns of X, V and W are added to the basis found so far, and other random blocks are tried until
+ * SparseOperator.KernelSearch is confident that the basis is complete.
+ *
+ * The problem instance is a SparseMatrix over a prime field p that is large compared to the number of columns (see
+ * BlockLanczos.suitable()); the result is a list of linearly independent vectors z with A z = 0, in reduced row
+ * echelon form. With high probability, they are a basis of the kernel.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class BlockLanczosKernel extends AbstractStrategy<ArrayList<Vector>> {
+	private Random random = new Random();
+
+	@Override
+	public String getDescription() {
+		return "Compute the kernel of a sparse matrix over a large prime field by block Lanczos";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		return problem.length == 1 && problem[0] instanceof SparseMatrix
+				&& BlockLanczos.suitable(((SparseMatrix)problem[0]).getCoefficientRing().getCharacteristic(), ((SparseMatrix)problem[0]).getColumnCount());
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		SparseMatrix matrix = (SparseMatrix)problem[0];
+		double n = matrix.getColumnCount();
+		return costFromOperations(2 * n * matrix.getNonzeroCount() + 6 * BlockLanczos.BLOCK * n * n);
+	}
+
+	@Override
+	public ArrayList<Vector> execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a sparse matrix over a large prime field");
+		SparseMatrix matrix = (SparseMatrix)problem[0];
+		long p = matrix.getCoefficientRing().getCharacteristic();
+		int width = BlockLanczos.BLOCK;
+		SparseOperator.KernelSearch search = new SparseOperator.KernelSearch(matrix);
+		boolean complete = false;
+		while (!complete) {
+			SparseOperator a = SparseOperator.preconditioned(matrix, random);
+			int n = a.dimension();
+			long[] w = SparseOperator.randomBlock(n, width, p, random);
+			long[][] xv = BlockLanczos.iterate(a, a.apply(w, width), p);
+			complete = search.add(SparseOperator.join(xv[0], width, xv[1], width, n), 2 * width, w, width);
+		}
+		return search.getVectors();
+	}
+}
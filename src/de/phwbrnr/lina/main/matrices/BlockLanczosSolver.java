@@ -0,0 +1,72 @@
+/**
+ * Solve sparse linear systems over a large prime field by block Lanczos (see BlockLanczos).
+ *
+ * The iteration runs on the symmetric operator of SparseOperator.symmetric(), starting from V_0 = [b' | A Y] for the
+ * right hand side b' of that operator and a random block Y, so that the first column of X solves the system. If the
+ * iteration stops early at a singular W, the solution is looked for among the combinations of the columns of X and
+ * the last block V, and other random blocks are tried a few times, on A^T D A also for symmetric matrices.
+ *
+ * The problem instance is a SparseMatrix A and a Vector b over the same prime field, with one entry per row of A, where
+ * p is large compared to the number of columns (see BlockLanczos.suitable()); the result is a vector x with A x = b.
+ * An IllegalStateException is thrown if none is found, which means that the system has no solution, with high
+ * probability.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.Random;
+
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class BlockLanczosSolver extends AbstractStrategy<Vector> {
+	private Random random = new Random();
+
+	@Override
+	public String getDescription() {
+		return "Solve a sparse linear system over a large prime field by block Lanczos";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		if (problem.length != 2 || !(problem[0] instanceof SparseMatrix) || !(problem[1] instanceof Vector))
+			return false;
+		SparseMatrix matrix = (SparseMatrix)problem[0];
+		Vector b = (Vector)problem[1];
+		return b.getRing().equals(matrix.getCoefficientRing()) && b.getLength() == matrix.getRowCount()
+				&& BlockLanczos.suitable(matrix.getCoefficientRing().getCharacteristic(), matrix.getColumnCount());
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		SparseMatrix matrix = (SparseMatrix)problem[0];
+		double n = matrix.getColumnCount();
+		/* n / BLOCK steps, each with a product of A^T D A with a block and a few dense products */
+		return costFromOperations(2 * n * matrix.getNonzeroCount() + 6 * BlockLanczos.BLOCK * n * n);
+	}
+
+	@Override
+	public Vector execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a sparse matrix and a vector over the same large prime field, with one entry per row");
+		SparseMatrix matrix = (SparseMatrix)problem[0];
+		long p = matrix.getCoefficientRing().getCharacteristic();
+		long[] b = SparseMatrix.toValues((Vector)problem[1]);
+		int width = BlockLanczos.BLOCK;
+		for (int attempt = 0; attempt < BlockWiedemannSolver.ATTEMPTS; attempt++) {
+			SparseOperator a = attempt == 0 ? SparseOperator.symmetric(matrix, random) : SparseOperator.preconditioned(matrix, random);
+			int n = a.dimension();
+			long[] v0 = a.apply(SparseOperator.randomBlock(n, width, p, random), width), rhs = a.rightHandSide(b);
+			for (int i = 0; i < n; i++)
+				v0[i * width] = rhs[i];
+			long[][] xv = BlockLanczos.iterate(a, v0, p);
+			long[] x = SparseOperator.combine(matrix, SparseOperator.join(xv[0], width, xv[1], width, n), 2 * width, b);
+			if (x != null)
+				return SparseMatrix.toVector(matrix.getCoefficientRing(), x);
+		}
+		throw new IllegalStateException("Found no solution of the sparse system over " + matrix.getCoefficientRing().getName()
+				+ "; with high probability, it has none");
+	}
+}
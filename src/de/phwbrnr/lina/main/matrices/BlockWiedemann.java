@@ -0,0 +1,177 @@
+/**
+ * The block Wiedemann method for sparse linear algebra over a prime field (Coppersmith; Kaltofen; Villard).
+ *
+ * For an n x n operator A, random blocks X and V of BLOCK vectors give the sequence of BLOCK x BLOCK matrices
+ * a_k = X^T A^k V, for k < L = 2 n / BLOCK + 10. A vector polynomial c(x) = sum c_j x^j of degree d with
+ * sum_j a_(k+j) c_j = 0 for all k <= L - 1 - d, where L - d exceeds n / BLOCK, is with high probability a generator
+ * of the block Krylov sequence itself: sum_j A^j V c_j = 0. Each of these products is a product of A with a block of
+ * vectors, so A is only touched about 3 n / BLOCK times, as a black box.
+ *
+ * The generators come from an order basis of [S^T ; -I], where S is the generating series of the a_k: its rows
+ * [c^rev, g] with S c^rev = g modulo x^L and deg g < deg c^rev are the reversed generators. The basis is computed
+ * by the iterative M-Basis algorithm (Giorgi, Jeannerod and Villard), one power of x at a time.
+ *
+ * Matrices are long arrays in row-major order, with the entries reduced into [0, p).
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import de.phwbrnr.lina.main.fields.PrimeFieldElement;
+
+final class BlockWiedemann {
+	/**
+	 * The number of vectors in the blocks X and V.
+	 */
+	static final int BLOCK = 4;
+
+	private BlockWiedemann() {
+	}
+
+	/**
+	 * Compute generators of the block Krylov sequence of A and V.
+	 * @param v an n x width matrix, usually of width BLOCK
+	 * @return the generators c_0, ..., c_d as (d + 1) x width matrices, one for every row of the order basis that is
+	 * short enough to be trusted
+	 */
+	static ArrayList<long[]> generators(SparseOperator a, long[] v, int width, long p, Random random) {
+		int n = a.dimension(), b = width;
+		int length = 2 * ((n + b - 1) / b) + 10;
+		long[] x = SparseOperator.randomBlock(n, b, p, random);
+		long[][] sequence = new long[length][];
+		long[] w = v;
+		for (int k = 0; k < length; k++) {
+			sequence[k] = PrimeFieldMatrixArithmetic.transposeMultiply(x, w, n, b, b, p);
+			if (k + 1 < length)
+				w = a.apply(w, b);
+		}
+		return orderBasis(sequence, b, length, length - (n + b - 1) / b - 4, p);
+	}
+
+	/**
+	 * Compute an order basis of [S^T ; -I] modulo x^length by M-Basis, with the shifts 0 on the b columns of c^rev and
+	 * 1 on those of g.
+	 * @param bound the largest shifted degree of a row that is returned as a generator
+	 */
+	static ArrayList<long[]> orderBasis(long[][] sequence, int b, int length, int bound, long p) {
+		int mu = 2 * b, capacity = length + 2;
+		/* residual[r][c * length + k] is coefficient k of entry (r, c) of P [S^T ; -I] */
+		long[][] residual = new long[mu][b * length];
+		/* basis[r][c * capacity + k] is coefficient k of entry (r, c) of P */
+		long[][] basis = new long[mu][mu * capacity];
+		int[] degree = new int[mu];
+		for (int r = 0; r < b; r++) {
+			for (int c = 0; c < b; c++)
+				for (int k = 0; k < length; k++)
+					residual[r][c * length + k] = sequence[k][c * b + r];
+			basis[r][r * capacity] = 1;
+		}
+		for (int r = b; r < mu; r++) {
+			residual[r][(r - b) * length] = p - 1;
+			basis[r][r * capacity] = 1;
+			degree[r] = 1;
+		}
+
+		int[] order = new int[mu];
+		for (int r = 0; r < mu; r++)
+			order[r] = r;
+		for (int k = 0; k < length; k++) {
+			/* the rows by ascending shifted degree, by insertion sort, since the order hardly changes from step to step */
+			for (int l = 1; l < mu; l++) {
+				int r = order[l], i = l;
+				for (; i > 0 && degree[order[i - 1]] > degree[r]; i--)
+					order[i] = order[i - 1];
+				order[i] = r;
+			}
+			boolean[] pivot = new boolean[mu];
+			for (int c = 0; c < b; c++) {
+				int pi = -1;
+				for (int l = 0; l < mu && pi < 0; l++)
+					if (!pivot[order[l]] && residual[order[l]][c * length + k] != 0)
+						pi = order[l];
+				if (pi < 0)
+					continue;
+				pivot[pi] = true;
+				long inverse = PrimeFieldElement.inverse(residual[pi][c * length + k], p);
+				/* rows of smaller shifted degree come first in the order, and have a zero in column c at this point */
+				for (int r = 0; r < mu; r++) {
+					long f = residual[r][c * length + k];
+					if (pivot[r] || f == 0)
+						continue;
+					f = p - f * inverse % p;
+					for (int j = 0; j < b; j++)
+						for (int l = j * length + k; l < (j + 1) * length; l++)
+							residual[r][l] = (residual[r][l] + f * residual[pi][l]) % p;
+					/* the entries of a row have degrees up to its shifted degree */
+					for (int j = 0; j < mu; j++)
+						for (int l = j * capacity; l <= j * capacity + degree[pi]; l++)
+							basis[r][l] = (basis[r][l] + f * basis[pi][l]) % p;
+				}
+			}
+			/* the pivot rows are multiplied by x */
+			for (int r = 0; r < mu; r++) {
+				if (!pivot[r])
+					continue;
+				for (int j = 0; j < b; j++) {
+					for (int l = (j + 1) * length - 1; l > j * length; l--)
+						residual[r][l] = residual[r][l - 1];
+					residual[r][j * length] = 0;
+				}
+				for (int j = 0; j < mu; j++) {
+					for (int l = j * capacity + degree[r] + 1; l > j * capacity; l--)
+						basis[r][l] = basis[r][l - 1];
+					basis[r][j * capacity] = 0;
+				}
+				degree[r]++;
+			}
+		}
+
+		ArrayList<long[]> result = new ArrayList<long[]>();
+		for (int r = 0; r < mu; r++) {
+			int d = degree[r];
+			if (d > bound)
+				continue;
+			/* c_j is coefficient d - j of c^rev */
+			long[] c = new long[(d + 1) * b];
+			boolean zero = true;
+			for (int j = 0; j <= d; j++) {
+				for (int i = 0; i < b; i++) {
+					c[j * b + i] = basis[r][i * capacity + d - j];
+					zero &= c[j * b + i] == 0;
+				}
+			}
+			if (!zero)
+				result.add(c);
+		}
+		return result;
+	}
+
+	/**
+	 * @param y an n x width matrix
+	 * @param generators t generators of degrees d_i, as (d_i + 1) x width matrices
+	 * @return the n x t matrix whose column i is sum_j A^j Y c_j for generator i
+	 */
+	static long[] evaluate(SparseOperator a, long[] y, int width, ArrayList<long[]> generators, long p) {
+		int n = a.dimension(), t = generators.size(), degree = 0;
+		for (long[] c : generators)
+			degree = Math.max(degree, c.length / width - 1);
+		long[] z = new long[n * t];
+		/* Horner's rule on all generators at once, with zero coefficients above the degree of each */
+		for (int j = degree; j >= 0; j--) {
+			if (j < degree)
+				z = a.apply(z, t);
+			long[] coefficients = new long[width * t];
+			for (int i = 0; i < t; i++) {
+				long[] c = generators.get(i);
+				if (j < c.length / width)
+					for (int l = 0; l < width; l++)
+						coefficients[l * t + i] = c[j * width + l];
+			}
+			z = PrimeFieldMatrixArithmetic.add(z, PrimeFieldMatrixArithmetic.multiply(y, coefficients, n, width, t, p), p, false);
+		}
+		return z;
+	}
+}
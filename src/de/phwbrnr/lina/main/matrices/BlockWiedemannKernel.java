@@ -0,0 +1,75 @@
+/**
+ * Kernels of sparse matrices over a prime field by block Wiedemann (see BlockWiedemann).
+ *
+ * The search runs on the preconditioned operator A' = A^T D A of SparseOperator.preconditioned(). With V = A' W for a
+ * random n x WIDTH block W, every generator c of the block Krylov sequence of A' and V gives A' z = 0 for
+ * z = sum_j A'^j W c_j. The combinations of these candidates and the columns of W with A z = 0 are added to the
+ * basis found so far, and other random blocks are tried until SparseOperator.KernelSearch is confident that the
+ * basis is complete: a round that finds nothing new is not enough, since nilpotent Jordan blocks of A' may hide
+ * kernel vectors from single rounds.
+ *
+ * The problem instance is a SparseMatrix; the result is a list of linearly independent vectors z with A z = 0, in
+ * reduced row echelon form. With high probability, they are a basis of the kernel.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class BlockWiedemannKernel extends AbstractStrategy<ArrayList<Vector>> {
+	/**
+	 * The number of vectors in the random blocks. Nilpotent Jordan blocks of the operator take away some of the
+	 * samples of every round, so wider blocks than for solving pay off, in particular over small fields.
+	 */
+	static final int WIDTH = 4 * BlockWiedemann.BLOCK;
+
+	private Random random = new Random();
+
+	@Override
+	public String getDescription() {
+		return "Compute the kernel of a sparse matrix over a prime field by block Wiedemann";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		return problem.length == 1 && problem[0] instanceof SparseMatrix;
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		SparseMatrix matrix = (SparseMatrix)problem[0];
+		double n = Math.max(matrix.getRowCount(), matrix.getColumnCount());
+		return costFromOperations(4 * n * matrix.getNonzeroCount() + 4 * WIDTH * n * n);
+	}
+
+	@Override
+	public ArrayList<Vector> execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a sparse matrix");
+		SparseMatrix matrix = (SparseMatrix)problem[0];
+		long p = matrix.getCoefficientRing().getCharacteristic();
+		int width = WIDTH;
+		SparseOperator.KernelSearch search = new SparseOperator.KernelSearch(matrix);
+		boolean complete = false;
+		while (!complete) {
+			SparseOperator a = SparseOperator.preconditioned(matrix, random);
+			int n = a.dimension();
+			long[] w = SparseOperator.randomBlock(n, width, p, random);
+			/* z = sum_j A'^j W c_j = W c_0 + U c' for the shifted generator c'_j = c_(j+1) */
+			ArrayList<long[]> generators = BlockWiedemann.generators(a, a.apply(w, width), width, p, random);
+			for (long[] c : generators) {
+				for (int j = 0; j < c.length; j++)
+					c[j] = j + width < c.length ? c[j + width] : 0;
+			}
+			long[] u = BlockWiedemann.evaluate(a, a.apply(w, width), width, generators, p);
+			complete = search.add(u, generators.size(), w, width);
+		}
+		return search.getVectors();
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * Solve sparse linear systems over a prime field by block Wiedemann (see BlockWiedemann).
+ *
+ * With V = [b | A Y] for a random n x (BLOCK - 1) matrix Y, a generator c_j = (beta_j, gamma_j) of the block Krylov
+ * sequence of A and V with beta_0 != 0 gives a solution: rearranging sum_j A^j V c_j = 0 yields
+ *   A x = b for x = -(1 / beta_0) sum_j A^j (b beta_(j+1) + Y gamma_j).
+ * The sums for all generators are computed at once, and their combination that solves A x = b is found by a small
+ * dense elimination, which also takes care of the scaling. Non-square systems are solved through the operator of
+ * SparseOperator.of(). If no solution is found, other random blocks are tried a few times, on the preconditioned
+ * operator A^T D A, since a singular square matrix may hide b from the Krylov space of A.
+ *
+ * The problem instance is a SparseMatrix A and a Vector b over the same prime field, with one entry per row of A; the
+ * result is a vector x with A x = b. An IllegalStateException is thrown if none is found, which means that the
+ * system has no solution, with high probability.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class BlockWiedemannSolver extends AbstractStrategy<Vector> {
+	/**
+	 * The number of times the method is started over with other random blocks before giving up.
+	 */
+	static final int ATTEMPTS = 3;
+
+	private Random random = new Random();
+
+	@Override
+	public String getDescription() {
+		return "Solve a sparse linear system over a prime field by block Wiedemann";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		return problem.length == 2 && problem[0] instanceof SparseMatrix && problem[1] instanceof Vector
+				&& ((Vector)problem[1]).getRing().equals(((SparseMatrix)problem[0]).getCoefficientRing())
+				&& ((Vector)problem[1]).getLength() == ((SparseMatrix)problem[0]).getRowCount();
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		SparseMatrix matrix = (SparseMatrix)problem[0];
+		double n = Math.max(matrix.getRowCount(), matrix.getColumnCount());
+		/* about 3 n / BLOCK products with blocks, and the order basis */
+		return costFromOperations(4 * n * matrix.getNonzeroCount() + 16 * BlockWiedemann.BLOCK * n * n);
+	}
+
+	@Override
+	public Vector execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a sparse matrix and a vector over the same prime field, with one entry per row");
+		SparseMatrix matrix = (SparseMatrix)problem[0];
+		long p = matrix.getCoefficientRing().getCharacteristic();
+		long[] b = SparseMatrix.toValues((Vector)problem[1]);
+		int width = BlockWiedemann.BLOCK;
+		for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+			SparseOperator a = attempt == 0 ? SparseOperator.of(matrix, random) : SparseOperator.preconditioned(matrix, random);
+			int n = a.dimension();
+			long[] y = SparseOperator.randomBlock(n, width, p, random), rhs = a.rightHandSide(b);
+			for (int i = 0; i < n; i++)
+				y[i * width] = rhs[i];
+			/* V = [b | A Y'], where Y' are the other columns of y */
+			long[] v = a.apply(y, width);
+			for (int i = 0; i < n; i++)
+				v[i * width] = rhs[i];
+
+			/* shift the coefficients of b by one: column j of the new generator is (beta_(j+1), gamma_j) */
+			ArrayList<long[]> generators = BlockWiedemann.generators(a, v, width, p, random);
+			for (long[] c : generators) {
+				for (int j = 0; j < c.length; j += width)
+					c[j] = j + width < c.length ? c[j + width] : 0;
+			}
+			if (generators.isEmpty())
+				continue;
+			long[] x = SparseOperator.combine(matrix, BlockWiedemann.evaluate(a, y, width, generators, p), generators.size(), b);
+			if (x != null)
+				return SparseMatrix.toVector(matrix.getCoefficientRing(), x);
+		}
+		throw new IllegalStateException("Found no solution of the sparse system over " + matrix.getCoefficientRing().getName()
+				+ "; with high probability, it has none");
+	}
+}
@@ -0,0 +1,400 @@
+/**
+ * Solve regular linear systems over the rationals by Dixon's p-adic lifting.
+ *
+ * Gaussian elimination over Q creates fractions whose numerators and denominators grow with every step, and reduces
+ * them by a gcd each time. Dixon's algorithm only works with integers and residues: after the denominators of each
+ * row are cleared, A is inverted once modulo a prime p, to C = A^(-1) mod p, and the solution is lifted digit by
+ * digit. With r_0 = b,
+ *   x_i = C r_i mod p,  r_(i+1) = (r_i - A x_i) / p,
+ * where the division is exact, so that A (x_0 + x_1 p + ... + x_(k-1) p^(k-1)) = b modulo p^k. Every digit takes one
+ * matrix-vector product on residues and one on integers, and the residues r_i stay bounded by about n |A|, so a digit
+ * costs O(n^2) word operations. By Cramer's rule, the solution is (det A_1, ..., det A_n) / det A, where A_j is A with
+ * column j replaced by b, and all these determinants are bounded by the product H of the euclidean norms of the rows
+ * of [A | b] (Hadamard's inequality). So once p^k > 2 H^2, rational reconstruction (see RationalReconstruction)
+ * recovers the fractions from the p-adic approximation.
+ *
+ * The bound H is usually far from sharp, so the reconstruction is already tried whenever the number of digits has
+ * doubled, which makes the running time depend on the size of the actual solution. The coordinates are reconstructed
+ * with a common denominator: each one is multiplied by the denominator found so far, which mostly leaves an integer,
+ * and a candidate is only accepted if A x = b holds exactly.
+ *
+ * The matrix-vector products are split into bands of rows across cores in the common fork-join pool for large
+ * matrices. The prime is drawn at random below 2^PRIME_BITS, so that up to 2048 products of residues can be summed in a
+ * long; if A is singular modulo p, another prime is tried, and after a few of them, A is checked for singularity by
+ * fraction-free elimination (see BareissElimination).
+ *
+ * The problem instance is a regular square Matrix over the IntegerRing or the RationalsField and a Vector b over the
+ * same ring; the result is the Vector x of Fractions over the RationalsField with A x = b. An IllegalStateException is
+ * thrown if the matrix is singular.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import de.phwbrnr.lina.main.fields.Fraction;
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.IntegerRing;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.RationalReconstruction;
+import de.phwbrnr.lina.main.fields.RationalsField;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class DixonSolver extends AbstractStrategy<Vector> {
+	/**
+	 * The primes are drawn from [2^(PRIME_BITS - 1), 2^PRIME_BITS).
+	 */
+	static final int PRIME_BITS = 26;
+	/* the number of products of two residues that can be added to a residue in a long */
+	private static final int UNREDUCED_TERMS = 1 << (63 - 2 * PRIME_BITS);
+	/* the number of primes modulo which A may be singular before it is checked over the rationals */
+	private static final int SINGULAR_PRIMES = 3;
+	/* the number of digits after which the reconstruction is first tried */
+	private static final int FIRST_RECONSTRUCTION = 4;
+	private Random random = new Random();
+
+	@Override
+	public String getDescription() {
+		return "Solve a regular linear system over the rationals by p-adic lifting";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		if (problem.length != 2 || !(problem[0] instanceof Matrix) || !(problem[1] instanceof Vector))
+			return false;
+		Matrix matrix = (Matrix)problem[0];
+		Vector b = (Vector)problem[1];
+		return matrix.isSquare() && (matrix.getCoefficientRing() instanceof IntegerRing || matrix.getCoefficientRing() instanceof RationalsField)
+				&& b.getRing().equals(matrix.getCoefficientRing()) && b.getLength() == matrix.getRowCount();
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		double n = ((Matrix)problem[0]).getRowCount();
+		double digits = 2.0 * boundBits(integral((Matrix)problem[0], (Vector)problem[1])) / (PRIME_BITS - 1) + 1;
+		/* the inverse modulo p, and two products per digit, for about half the digits of the bound */
+		return costFromOperations(n * n * n + digits * n * n);
+	}
+
+	@Override
+	public Vector execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a square matrix and a vector over the integers or the rationals, with one entry per row");
+		Matrix matrix = (Matrix)problem[0];
+		int n = matrix.getRowCount();
+		BigInteger[][] system = integral(matrix, (Vector)problem[1]);
+		BigInteger[] a = new BigInteger[n * n], b = new BigInteger[n];
+		int bits = 0;
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				a[i * n + j] = system[i][j];
+				bits = Math.max(bits, system[i][j].bitLength());
+			}
+			b[i] = system[i][n];
+		}
+		/* with n |A| < 2^61, the residuals fit into longs after a few digits */
+		long[] small = null;
+		if (bits + 64 - Long.numberOfLeadingZeros(n) <= 61) {
+			small = new long[n * n];
+			for (int i = 0; i < a.length; i++)
+				small[i] = a[i].longValue();
+		}
+
+		long p;
+		long[] c;
+		for (int failures = 1; ; failures++) {
+			p = randomPrime();
+			BigInteger bp = BigInteger.valueOf(p);
+			long[] residues = new long[n * n];
+			for (int i = 0; i < a.length; i++)
+				residues[i] = small != null ? Math.floorMod(small[i], p) : a[i].mod(bp).longValue();
+			c = PrimeFieldMatrixArithmetic.inverse(residues, n, p);
+			if (c != null)
+				break;
+			if (failures == SINGULAR_PRIMES && new BareissElimination(new Matrix(IntegerRing.getInstance(), n, n, elements(a))).getRank() < n)
+				throw new IllegalStateException("The matrix is singular, so the system has no unique solution");
+		}
+
+		/* p^k > 2 H^2 for p >= 2^(PRIME_BITS - 1) */
+		int enough = (int)((2 * boundBits(system) + 2) / (PRIME_BITS - 1)) + 1;
+		Lifting lifting = new Lifting(a, small, b, c, n, p);
+		ArrayList<long[]> digits = new ArrayList<long[]>();
+		for (int next = FIRST_RECONSTRUCTION; ; next *= 2) {
+			while (digits.size() < Math.min(next, enough))
+				digits.add(lifting.step());
+			Vector x = reconstruct(a, b, digits, n, p);
+			if (x != null)
+				return x;
+			if (digits.size() >= enough)
+				throw new IllegalStateException("Rational reconstruction failed after " + enough + " digits, which exceed the Hadamard bound");
+		}
+	}
+
+	/**
+	 * The state of the lifting: the residual r_i, as longs once it fits, and the products that compute the next
+	 * digit. With |A| n < 2^61 and |r_i| < 2^61, also |r_(i+1)| <= |r_i| / p + n |A| < 2^62, so r_(i+1) is the
+	 * exact quotient of r_i - A x_i by p that fits into a long. Then it is computed modulo 2^64, in wrapping long
+	 * arithmetic, as (r_i - A x_i) p^(-1), even though A x_i itself need not fit.
+	 */
+	private static final class Lifting {
+		private final BigInteger[] a;
+		private final long[] small, c;
+		private final int n;
+		private final long p, inverse;
+		private BigInteger[] big;
+		private long[] residual;
+
+		Lifting(BigInteger[] a, long[] small, BigInteger[] b, long[] c, int n, long p) {
+			this.a = a;
+			this.small = small;
+			this.c = c;
+			this.n = n;
+			this.p = p;
+			long inverse = p;
+			/* Newton's iteration doubles the number of correct bits of p^(-1) modulo 2^64, starting with 3 */
+			for (int i = 0; i < 5; i++)
+				inverse *= 2 - p * inverse;
+			this.inverse = inverse;
+			this.big = b.clone();
+			compact();
+		}
+
+		/**
+		 * @return the next digit x_i = C r_i mod p, after which the residual is r_(i+1) = (r_i - A x_i) / p
+		 */
+		long[] step() {
+			long[] r = new long[n];
+			BigInteger bp = BigInteger.valueOf(p);
+			for (int i = 0; i < n; i++)
+				r[i] = residual != null ? Math.floorMod(residual[i], p) : big[i].mod(bp).longValue();
+			long[] x = new long[n];
+			forRows(n, (from, to) -> {
+				for (int i = from; i < to; i++) {
+					long s = 0;
+					for (int start = 0; start < n; start += UNREDUCED_TERMS) {
+						for (int j = start; j < Math.min(n, start + UNREDUCED_TERMS); j++)
+							s += c[i * n + j] * r[j];
+						s %= p;
+					}
+					x[i] = s;
+				}
+			});
+			forRows(n, (from, to) -> {
+				for (int i = from; i < to; i++) {
+					if (residual != null) {
+						long s = residual[i];
+						for (int j = 0; j < n; j++)
+							s -= small[i * n + j] * x[j];
+						residual[i] = s * inverse;
+					} else {
+						BigInteger s = big[i];
+						for (int j = 0; j < n; j++) {
+							if (x[j] != 0 && a[i * n + j].signum() != 0)
+								s = s.subtract(a[i * n + j].multiply(BigInteger.valueOf(x[j])));
+						}
+						big[i] = s.divide(bp);
+					}
+				}
+			});
+			if (residual == null)
+				compact();
+			return x;
+		}
+
+		/**
+		 * Switch to longs if A is small and the residual fits.
+		 */
+		private void compact() {
+			if (small == null)
+				return;
+			for (BigInteger x : big)
+				if (x.bitLength() > 61)
+					return;
+			residual = new long[n];
+			for (int i = 0; i < n; i++)
+				residual[i] = big[i].longValue();
+			big = null;
+		}
+	}
+
+	private interface RowRange {
+		void apply(int from, int to);
+	}
+
+	/**
+	 * Work on a band of rows, which is halved as long as there is enough work for another core.
+	 */
+	private static final class Band extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final RowRange work;
+		private final int from, to, n;
+
+		Band(RowRange work, int from, int to, int n) {
+			this.work = work;
+			this.from = from;
+			this.to = to;
+			this.n = n;
+		}
+
+		@Override
+		protected void compute() {
+			if ((long)(to - from) * n >= 2 * PrimeFieldMatrixArithmetic.PARALLEL_THRESHOLD && to - from >= 2) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Band(work, from, mid, n), new Band(work, mid, to, n));
+				return;
+			}
+			work.apply(from, to);
+		}
+	}
+
+	/**
+	 * Run a matrix-vector product on the rows of an n x n matrix, in parallel if it is large enough.
+	 */
+	private static void forRows(int n, RowRange work) {
+		if ((long)n * n < 2 * PrimeFieldMatrixArithmetic.PARALLEL_THRESHOLD)
+			work.apply(0, n);
+		else
+			ForkJoinPool.commonPool().invoke(new Band(work, 0, n, n));
+	}
+
+	/**
+	 * Reconstruct the solution from the digits x_0, ..., x_(k-1) with a common denominator, and check it.
+	 * @return the solution, or null if the digits do not suffice yet
+	 */
+	private static Vector reconstruct(BigInteger[] a, BigInteger[] b, ArrayList<long[]> digits, int n, long p) {
+		BigInteger modulus = BigInteger.valueOf(p).pow(digits.size());
+		IntegerElement m = new IntegerElement(modulus);
+		BigInteger[] x = combine(digits, 0, digits.size(), n, BigInteger.valueOf(p));
+		BigInteger denominator = BigInteger.ONE;
+		BigInteger[] numerators = new BigInteger[n];
+		for (int j = 0; j < n; j++) {
+			Fraction f;
+			try {
+				f = RationalReconstruction.reconstruct(new IntegerElement(x[j].multiply(denominator).mod(modulus)), m);
+			} catch (OperationUndefinedException ex) {
+				return null;
+			}
+			BigInteger d = ((IntegerElement)f.getDenominator()).getBigValue();
+			/* x_j = f / denominator */
+			if (!d.equals(BigInteger.ONE)) {
+				for (int l = 0; l < j; l++)
+					numerators[l] = numerators[l].multiply(d);
+				denominator = denominator.multiply(d);
+			}
+			numerators[j] = ((IntegerElement)f.getNumerator()).getBigValue();
+		}
+
+		/* A x = b, that is, A numerators = denominator b */
+		boolean[] solves = { true };
+		BigInteger common = denominator;
+		forRows(n, (from, to) -> {
+			for (int i = from; i < to && solves[0]; i++) {
+				BigInteger s = BigInteger.ZERO;
+				for (int j = 0; j < n; j++) {
+					if (a[i * n + j].signum() != 0 && numerators[j].signum() != 0)
+						s = s.add(a[i * n + j].multiply(numerators[j]));
+				}
+				if (!s.equals(common.multiply(b[i])))
+					solves[0] = false;
+			}
+		});
+		if (!solves[0])
+			return null;
+		RingElement[] result = new RingElement[n];
+		IntegerElement d = new IntegerElement(denominator);
+		try {
+			for (int j = 0; j < n; j++)
+				result[j] = new Fraction(new IntegerElement(numerators[j]), d);
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("Programming error: the common denominator vanishes", ex);
+		}
+		return new Vector(RationalsField.getInstance(), result, true);
+	}
+
+	/**
+	 * @return the coordinates of sum_(i = from)^(to - 1) x_i p^(i - from), combined by halves
+	 */
+	private static BigInteger[] combine(ArrayList<long[]> digits, int from, int to, int n, BigInteger p) {
+		BigInteger[] result = new BigInteger[n];
+		if (to - from == 1) {
+			for (int j = 0; j < n; j++)
+				result[j] = BigInteger.valueOf(digits.get(from)[j]);
+			return result;
+		}
+		int mid = (from + to) >>> 1;
+		BigInteger[] low = combine(digits, from, mid, n, p), high = combine(digits, mid, to, n, p);
+		BigInteger power = p.pow(mid - from);
+		for (int j = 0; j < n; j++)
+			result[j] = low[j].add(high[j].multiply(power));
+		return result;
+	}
+
+	/**
+	 * @return the rows of [A | b] with their denominators cleared, as integers
+	 */
+	private static BigInteger[][] integral(Matrix matrix, Vector b) {
+		int n = matrix.getRowCount();
+		RingElement[] entries = matrix.entries(), rhs = b.entries();
+		BigInteger[][] result = new BigInteger[n][n + 1];
+		for (int i = 0; i < n; i++) {
+			BigInteger[] numerators = new BigInteger[n + 1], denominators = new BigInteger[n + 1];
+			BigInteger lcm = BigInteger.ONE;
+			for (int j = 0; j <= n; j++) {
+				RingElement e = j < n ? entries[i * n + j] : rhs[i];
+				if (e instanceof Fraction) {
+					numerators[j] = ((IntegerElement)((Fraction)e).getNumerator()).getBigValue();
+					denominators[j] = ((IntegerElement)((Fraction)e).getDenominator()).getBigValue();
+					if (denominators[j].signum() < 0) {
+						numerators[j] = numerators[j].negate();
+						denominators[j] = denominators[j].negate();
+					}
+				} else {
+					numerators[j] = ((IntegerElement)e).getBigValue();
+					denominators[j] = BigInteger.ONE;
+				}
+				lcm = lcm.divide(lcm.gcd(denominators[j])).multiply(denominators[j]);
+			}
+			for (int j = 0; j <= n; j++)
+				result[i][j] = denominators[j].equals(lcm) ? numerators[j] : numerators[j].multiply(lcm.divide(denominators[j]));
+		}
+		return result;
+	}
+
+	/**
+	 * @return an upper bound for log_2 H, where H is the product of the euclidean norms of the rows
+	 */
+	private static long boundBits(BigInteger[][] rows) {
+		long bits = 1;
+		for (BigInteger[] row : rows) {
+			BigInteger norm = BigInteger.ZERO;
+			for (BigInteger x : row)
+				norm = norm.add(x.multiply(x));
+			bits += (norm.bitLength() + 1) / 2;
+		}
+		return bits;
+	}
+
+	private static RingElement[] elements(BigInteger[] values) {
+		RingElement[] result = new RingElement[values.length];
+		for (int i = 0; i < values.length; i++)
+			result[i] = new IntegerElement(values[i]);
+		return result;
+	}
+
+	private long randomPrime() {
+		long p;
+		do {
+			p = (1L << (PRIME_BITS - 1)) + random.nextInt(1 << (PRIME_BITS - 1));
+		} while (!BigInteger.valueOf(p).isProbablePrime(40));
+		return p;
+	}
+}
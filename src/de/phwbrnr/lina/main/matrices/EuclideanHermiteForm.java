@@ -0,0 +1,44 @@
+/**
+ * Hermite normal forms of matrices over a Euclidean ring by elimination with the extended Euclidean algorithm (see
+ * HermiteNormalForm).
+ *
+ * The problem instance is a Matrix over a EuclideanRing; the result is its Hermite normal form, a Matrix of the same
+ * shape.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import de.phwbrnr.lina.main.fields.EuclideanRing;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class EuclideanHermiteForm extends AbstractStrategy<RingElement> {
+
+	@Override
+	public String getDescription() {
+		return "Compute the Hermite normal form of a matrix over a Euclidean ring by the extended Euclidean algorithm";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		return problem.length == 1 && problem[0] instanceof Matrix && ((Matrix)problem[0]).getCoefficientRing() instanceof EuclideanRing;
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		Matrix m = (Matrix)problem[0];
+		double rows = m.getRowCount(), columns = m.getColumnCount();
+		/* rows * columns * min gcd steps, on entries that grow with the number of steps */
+		return costFromOperations(2 * rows * columns * Math.min(rows, columns) * Math.max(rows, columns));
+	}
+
+	@Override
+	public RingElement execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a matrix over a Euclidean ring");
+		return new HermiteNormalForm((Matrix)problem[0]).getHermiteForm();
+	}
+}
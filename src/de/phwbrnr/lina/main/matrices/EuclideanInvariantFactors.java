@@ -0,0 +1,44 @@
+/**
+ * Invariant factors of matrices over a Euclidean ring by the Smith normal form (see SmithNormalForm).
+ *
+ * The problem instance is a Matrix over a EuclideanRing; the result lists the nonzero invariant factors
+ * s_1 | s_2 | ... | s_r, normalized, where r is the rank.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.ArrayList;
+
+import de.phwbrnr.lina.main.fields.EuclideanRing;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class EuclideanInvariantFactors extends AbstractStrategy<ArrayList<RingElement>> {
+
+	@Override
+	public String getDescription() {
+		return "Compute the invariant factors of a matrix over a Euclidean ring by its Smith normal form";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		return problem.length == 1 && problem[0] instanceof Matrix && ((Matrix)problem[0]).getCoefficientRing() instanceof EuclideanRing;
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		Matrix m = (Matrix)problem[0];
+		double rows = m.getRowCount(), columns = m.getColumnCount();
+		return costFromOperations(4 * rows * columns * Math.min(rows, columns) * Math.max(rows, columns));
+	}
+
+	@Override
+	public ArrayList<RingElement> execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a matrix over a Euclidean ring");
+		return new SmithNormalForm((Matrix)problem[0]).getInvariantFactors();
+	}
+}
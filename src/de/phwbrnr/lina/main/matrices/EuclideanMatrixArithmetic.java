@@ -0,0 +1,127 @@
+/**
+ * Unimodular row and column operations on matrices over a Euclidean ring, with the entries stored as RingElements in
+ * row-major order, as needed for the Hermite and Smith normal forms.
+ *
+ * Normal forms are only unique up to units; this class fixes them as usual: integers are made non-negative, and
+ * polynomials over a field monic. Over other Euclidean rings, elements are left as they are.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import de.phwbrnr.lina.main.fields.ElementNotInvertibleException;
+import de.phwbrnr.lina.main.fields.EuclideanRing;
+import de.phwbrnr.lina.main.fields.Field;
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.polynomials.Polynomial;
+
+final class EuclideanMatrixArithmetic {
+
+	private EuclideanMatrixArithmetic() {
+	}
+
+	/**
+	 * @return the unit u such that u a is the normalized associate of a
+	 */
+	static RingElement unit(EuclideanRing ring, RingElement a) throws OperationUndefinedException {
+		if (a instanceof IntegerElement && ((IntegerElement)a).getBigValue().signum() < 0)
+			return ring.getOne().negative();
+		if (a instanceof Polynomial && !a.isZero() && ((Polynomial)a).getRing() instanceof Field) {
+			Polynomial f = (Polynomial)a;
+			try {
+				return new Polynomial(f.getRing(), f.getLeadingCoefficient().inverse());
+			} catch (ElementNotInvertibleException ex) {
+				throw new OperationUndefinedException("Leading coefficient of " + f + " not invertible in a field");
+			}
+		}
+		return ring.getOne();
+	}
+
+	/**
+	 * Extended Euclidean algorithm.
+	 * @return {g, s, t} with s a + t b = g, where g is a normalized gcd of a and b
+	 */
+	static RingElement[] extendedGcd(EuclideanRing ring, RingElement a, RingElement b) throws OperationUndefinedException {
+		RingElement r0 = a, s0 = ring.getOne(), t0 = ring.getZero();
+		RingElement r1 = b, s1 = ring.getZero(), t1 = ring.getOne();
+		while (!r1.isZero()) {
+			RingElement[] qr = ring.remainder_division(r0, r1);
+			RingElement s = s0.subtract(qr[0].multiply(s1)), t = t0.subtract(qr[0].multiply(t1));
+			r0 = r1;
+			s0 = s1;
+			t0 = t1;
+			r1 = qr[1];
+			s1 = s;
+			t1 = t;
+		}
+		RingElement u = unit(ring, r0);
+		if (u.isOne())
+			return new RingElement[] { r0, s0, t0 };
+		return new RingElement[] { u.multiply(r0), u.multiply(s0), u.multiply(t0) };
+	}
+
+	/**
+	 * @return the quotient q such that x - q h is the normalized remainder of x modulo h: for integers, it lies in
+	 * [0, |h|)
+	 */
+	static RingElement reductionQuotient(EuclideanRing ring, RingElement x, RingElement h) throws OperationUndefinedException {
+		RingElement[] qr = ring.remainder_division(x, h);
+		if (qr[1] instanceof IntegerElement && ((IntegerElement)qr[1]).getBigValue().signum() < 0) {
+			boolean positive = ((IntegerElement)h).getBigValue().signum() > 0;
+			return positive ? qr[0].subtract(ring.getOne()) : qr[0].add(ring.getOne());
+		}
+		return qr[0];
+	}
+
+	/**
+	 * Replace rows i and j by a row_i + b row_j and c row_i + d row_j, in the columns from on.
+	 */
+	static void combineRows(RingElement[] m, int columns, int i, int j, RingElement a, RingElement b, RingElement c, RingElement d, int from) throws OperationUndefinedException {
+		for (int l = from; l < columns; l++) {
+			RingElement x = m[i * columns + l], y = m[j * columns + l];
+			if (x.isZero() && y.isZero())
+				continue;
+			m[i * columns + l] = a.multiply(x).add(b.multiply(y));
+			m[j * columns + l] = c.multiply(x).add(d.multiply(y));
+		}
+	}
+
+	/**
+	 * Replace columns i and j by a col_i + b col_j and c col_i + d col_j.
+	 */
+	static void combineColumns(RingElement[] m, int rows, int columns, int i, int j, RingElement a, RingElement b, RingElement c, RingElement d) throws OperationUndefinedException {
+		for (int l = 0; l < rows; l++) {
+			RingElement x = m[l * columns + i], y = m[l * columns + j];
+			if (x.isZero() && y.isZero())
+				continue;
+			m[l * columns + i] = a.multiply(x).add(b.multiply(y));
+			m[l * columns + j] = c.multiply(x).add(d.multiply(y));
+		}
+	}
+
+	/**
+	 * Subtract f times row j from row i, in the columns from on.
+	 */
+	static void subtractRow(RingElement[] m, int columns, int i, int j, RingElement f, int from) throws OperationUndefinedException {
+		for (int l = from; l < columns; l++) {
+			RingElement y = m[j * columns + l];
+			if (!y.isZero())
+				m[i * columns + l] = m[i * columns + l].subtract(f.multiply(y));
+		}
+	}
+
+	static void scaleRow(RingElement[] m, int columns, int i, RingElement u) throws OperationUndefinedException {
+		for (int l = 0; l < columns; l++)
+			m[i * columns + l] = u.multiply(m[i * columns + l]);
+	}
+
+	static void swapColumns(RingElement[] m, int rows, int columns, int i, int j) {
+		for (int l = 0; l < rows; l++) {
+			RingElement t = m[l * columns + i];
+			m[l * columns + i] = m[l * columns + j];
+			m[l * columns + j] = t;
+		}
+	}
+}
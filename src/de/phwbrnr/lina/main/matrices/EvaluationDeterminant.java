@@ -0,0 +1,289 @@
+/**
+ * Determinants of polynomial matrices over the integers or a prime field by evaluation and interpolation.
+ *
+ * The determinant of A(x) has degree at most D, the smaller of the sums of the largest entry degrees in the rows and
+ * in the columns. Over F_p, A is evaluated at distinct random points t, the scalar determinants det A(t) are computed
+ * by Gaussian elimination on residues (see PrimeFieldMatrixArithmetic), in parallel, and the determinant is recovered
+ * by Newton interpolation from D + 1 of them. The entries of the minors never have to be formed, while fraction-free
+ * elimination multiplies and divides polynomials whose degrees grow linearly with the step.
+ *
+ * The bound D is often far from sharp, for example if the leading terms cancel. Each new value extends the Newton
+ * interpolant by one divided difference, which vanishes if the value is predicted by the interpolant so far. Once
+ * this happened for enough points in a row, the interpolation stops early: the difference between the determinant and
+ * a wrong interpolant would be a nonzero polynomial of degree at most D, which vanishes at a random point with
+ * probability at most D / p, so the number of points is chosen to keep the probability of an error below
+ * 2^-CONFIDENCE_BITS. Over small fields, where this does not pay off, all D + 1 points are used.
+ *
+ * Over the integers, the determinant is computed in this way modulo enough primes below 2^31 and lifted by the
+ * MultiModularStrategy template. The norm |f|_1, the sum of the absolute values of the coefficients, is
+ * submultiplicative, so by expanding the determinant, the coefficients of det A are bounded by the product of the
+ * sums of the norms of the entries in each row, and by the same for the columns. The determinant commutes with the
+ * reduction modulo p, so there are no unlucky primes.
+ *
+ * The problem instance is a square Matrix over a PolynomialRing over the IntegerRing or over a PrimeField with more
+ * than D elements; the result is its determinant, a Polynomial over the same coefficient ring.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.IntegerRing;
+import de.phwbrnr.lina.main.fields.MultiModularStrategy;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.PrimeFieldElement;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.polynomials.Polynomial;
+import de.phwbrnr.lina.main.polynomials.PolynomialRing;
+
+public class EvaluationDeterminant extends MultiModularStrategy<RingElement> {
+	/* an early terminated interpolation is wrong with probability below 2^-CONFIDENCE_BITS */
+	private static final int CONFIDENCE_BITS = 64;
+	/* the number of points evaluated in parallel per core, before the interpolant is checked */
+	private static final int POINTS_PER_CORE = 4;
+	private Random random = new Random();
+
+	@Override
+	public String getDescription() {
+		return "Compute the determinant of a polynomial matrix over the integers or a prime field by evaluation and interpolation";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		if (problem.length != 1 || !(problem[0] instanceof Matrix) || !((Matrix)problem[0]).isSquare())
+			return false;
+		Matrix matrix = (Matrix)problem[0];
+		if (!(matrix.getCoefficientRing() instanceof PolynomialRing))
+			return false;
+		Ring ring = ((PolynomialRing)matrix.getCoefficientRing()).getCoefficientRing();
+		/* D + 1 distinct points are needed */
+		return ring instanceof IntegerRing || ring instanceof PrimeField && ((PrimeField)ring).getCharacteristic() > degreeBound(matrix);
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		Matrix matrix = (Matrix)problem[0];
+		double n = matrix.getRowCount(), points = Math.max(degreeBound(matrix), 0) + 1, degree = maxDegree(matrix) + 1;
+		double primes = 1;
+		if (((PolynomialRing)matrix.getCoefficientRing()).getCoefficientRing() instanceof IntegerRing)
+			primes = coefficientBits(integerCoefficients(matrix), matrix.getRowCount()) / 30.0 + 1;
+		/* per prime and point, the evaluation of the entries and an elimination; the quadratic interpolation */
+		return costFromOperations(primes * (points * (n * n * n / 3 + n * n * degree) + points * points) + primes * primes * points);
+	}
+
+	@Override
+	public RingElement execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a square matrix over Z[X] or F_p[X], with p above the degree of the determinant");
+		Matrix matrix = (Matrix)problem[0];
+		Ring ring = ((PolynomialRing)matrix.getCoefficientRing()).getCoefficientRing();
+		int bound = degreeBound(matrix);
+		if (bound < 0)
+			return new Polynomial(ring);
+		if (ring instanceof IntegerRing)
+			return super.execute(problem);
+
+		PrimeField field = (PrimeField)ring;
+		long p = field.getCharacteristic();
+		int n = matrix.getRowCount();
+		RingElement[] entries = matrix.entries();
+		long[][] residues = new long[entries.length][];
+		for (int i = 0; i < entries.length; i++) {
+			RingElement[] c = coefficients(entries[i]);
+			residues[i] = new long[c.length];
+			for (int j = 0; j < c.length; j++)
+				residues[i][j] = ((PrimeFieldElement)c[j]).getValue();
+		}
+		long[] d = determinant(residues, n, bound, p, random);
+		RingElement[] result = new RingElement[d.length];
+		for (int i = 0; i < d.length; i++)
+			result[i] = field.element(d[i]);
+		return new Polynomial(field, result);
+	}
+
+	@Override
+	protected Object[] prepare(Object... problem) {
+		Matrix matrix = (Matrix)problem[0];
+		return new Object[] { matrix, integerCoefficients(matrix), degreeBound(matrix) };
+	}
+
+	@Override
+	protected long[] image(long p, Object... instance) {
+		Matrix matrix = (Matrix)instance[0];
+		BigInteger[][] a = (BigInteger[][])instance[1];
+		BigInteger bp = BigInteger.valueOf(p);
+		long[][] residues = new long[a.length][];
+		for (int i = 0; i < a.length; i++) {
+			residues[i] = new long[a[i].length];
+			for (int j = 0; j < a[i].length; j++)
+				residues[i][j] = a[i][j].mod(bp).longValue();
+		}
+		return determinant(residues, matrix.getRowCount(), (Integer)instance[2], p, random);
+	}
+
+	@Override
+	protected long coordinateBits(Object... instance) {
+		return coefficientBits((BigInteger[][])instance[1], ((Matrix)instance[0]).getRowCount());
+	}
+
+	@Override
+	protected RingElement assemble(RingElement[] coordinates, Object... instance) {
+		return new Polynomial(IntegerRing.getInstance(), coordinates);
+	}
+
+	/**
+	 * Compute the determinant of an n x n matrix over F_p[X] by evaluation at random points and Newton interpolation.
+	 * @param entries the coefficients of the entries in row-major order, the constant ones first
+	 * @param bound an upper bound D for the degree of the determinant, below p
+	 * @return the D + 1 coefficients of the determinant, the constant one first
+	 */
+	static long[] determinant(long[][] entries, int n, int bound, long p, Random random) {
+		int count = bound + 1;
+		/* D (D / (p - D - 1))^k < 2^-CONFIDENCE_BITS for k confirming points, as long as the points are fresh */
+		int confirmations = Integer.MAX_VALUE;
+		double ratio = (p - count) / (double)Math.max(bound, 1);
+		if (ratio > 2)
+			confirmations = (int)Math.ceil((CONFIDENCE_BITS + Math.log(count) / Math.log(2)) / (Math.log(ratio) / Math.log(2)));
+
+		long[] points = new long[count], newton = new long[count];
+		HashSet<Long> used = new HashSet<Long>();
+		int batch = Math.max(1, Runtime.getRuntime().availableProcessors()) * POINTS_PER_CORE;
+		int m = 0, agreeing = 0;
+		while (m < count && agreeing < confirmations) {
+			int size = Math.min(batch, count - m);
+			for (int i = m; i < m + size; i++) {
+				long t;
+				do
+					t = Math.floorMod(random.nextLong(), p);
+				while (!used.add(t));
+				points[i] = t;
+			}
+			long[] values = new long[size];
+			int offset = m;
+			IntStream.range(0, size).parallel().forEach(i -> values[i] = PrimeFieldMatrixArithmetic.determinant(evaluate(entries, points[offset + i], p), n, p));
+
+			for (int i = 0; i < size && agreeing < confirmations; i++, m++) {
+				/* the divided difference [x_0, ..., x_m] f = (f(x_m) - N(x_m)) / prod_(j < m) (x_m - x_j) */
+				long t = points[m], value = 0, product = 1;
+				for (int j = m - 1; j >= 0; j--)
+					value = (value * ((t - points[j] + p) % p) + newton[j]) % p;
+				for (int j = 0; j < m; j++)
+					product = product * ((t - points[j] + p) % p) % p;
+				newton[m] = (values[i] - value + p) % p * PrimeFieldElement.inverse(product, p) % p;
+				agreeing = newton[m] == 0 ? agreeing + 1 : 0;
+			}
+		}
+
+		/* expand N = c_0 + (x - x_0) (c_1 + (x - x_1) (c_2 + ...)) from the inside */
+		long[] result = new long[count];
+		for (int j = m - 1; j >= 0; j--) {
+			for (int k = m - 1 - j; k > 0; k--)
+				result[k] = (result[k - 1] + (p - points[j]) * result[k]) % p;
+			result[0] = ((p - points[j]) * result[0] + newton[j]) % p;
+		}
+		return result;
+	}
+
+	/**
+	 * @return the entries of the matrix evaluated at t
+	 */
+	private static long[] evaluate(long[][] entries, long t, long p) {
+		long[] result = new long[entries.length];
+		for (int i = 0; i < entries.length; i++) {
+			long[] f = entries[i];
+			long value = 0;
+			for (int k = f.length - 1; k >= 0; k--)
+				value = (value * t + f[k]) % p;
+			result[i] = value;
+		}
+		return result;
+	}
+
+	/**
+	 * @return the coefficients of an entry up to its degree, the constant one first; constant entries may be elements
+	 * of the coefficient ring
+	 */
+	private static RingElement[] coefficients(RingElement entry) {
+		if (!(entry instanceof Polynomial))
+			return entry.isZero() ? new RingElement[0] : new RingElement[] { entry };
+		Polynomial f = (Polynomial)entry;
+		RingElement[] c = new RingElement[f.getDegree() + 1];
+		System.arraycopy(f.getCoefficients(), 0, c, 0, c.length);
+		return c;
+	}
+
+	/**
+	 * @return the smaller of the sums of the largest entry degrees in each row and in each column, an upper bound for
+	 * the degree of the determinant; -1 if a row or column vanishes
+	 */
+	static int degreeBound(Matrix matrix) {
+		int n = matrix.getRowCount();
+		RingElement[] entries = matrix.entries();
+		int[] rows = new int[n], columns = new int[n];
+		Arrays.fill(rows, -1);
+		Arrays.fill(columns, -1);
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				int degree = coefficients(entries[i * n + j]).length - 1;
+				rows[i] = Math.max(rows[i], degree);
+				columns[j] = Math.max(columns[j], degree);
+			}
+		}
+		int rowSum = 0, columnSum = 0;
+		for (int i = 0; i < n; i++) {
+			if (rows[i] < 0 || columns[i] < 0)
+				return -1;
+			rowSum += rows[i];
+			columnSum += columns[i];
+		}
+		return Math.min(rowSum, columnSum);
+	}
+
+	private static int maxDegree(Matrix matrix) {
+		int degree = 0;
+		for (RingElement entry : matrix.entries())
+			degree = Math.max(degree, coefficients(entry).length - 1);
+		return degree;
+	}
+
+	private static BigInteger[][] integerCoefficients(Matrix matrix) {
+		RingElement[] entries = matrix.entries();
+		BigInteger[][] result = new BigInteger[entries.length][];
+		for (int i = 0; i < entries.length; i++) {
+			RingElement[] c = coefficients(entries[i]);
+			result[i] = new BigInteger[c.length];
+			for (int j = 0; j < c.length; j++)
+				result[i][j] = ((IntegerElement)c[j]).getBigValue();
+		}
+		return result;
+	}
+
+	/**
+	 * @return an upper bound for the bit length of the coefficients of the determinant: the product over the rows of
+	 * the sums of |a_ij|_1, or the same for the columns if that is smaller
+	 */
+	private static long coefficientBits(BigInteger[][] a, int n) {
+		long rowBits = 1, columnBits = 1;
+		for (int i = 0; i < n; i++) {
+			BigInteger row = BigInteger.ZERO, column = BigInteger.ZERO;
+			for (int j = 0; j < n; j++) {
+				for (BigInteger c : a[i * n + j])
+					row = row.add(c.abs());
+				for (BigInteger c : a[j * n + i])
+					column = column.add(c.abs());
+			}
+			rowBits += row.bitLength();
+			columnBits += column.bitLength();
+		}
+		return Math.min(rowBits, columnBits);
+	}
+}
@@ -0,0 +1,46 @@
+/**
+ * Determinants of matrices over a prime field by Gaussian elimination on primitive residues.
+ *
+ * Over F_p there is no coefficient growth, so plain elimination with one inversion per pivot is the cheapest way; it
+ * runs on the long arrays of the matrix (see PrimeFieldMatrixArithmetic).
+ *
+ * The problem instance is a square Matrix over a PrimeField; the result is its determinant.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class GaussianDeterminant extends AbstractStrategy<RingElement> {
+
+	@Override
+	public String getDescription() {
+		return "Compute the determinant of a matrix over a prime field by Gaussian elimination";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		return problem.length == 1 && problem[0] instanceof Matrix && ((Matrix)problem[0]).isSquare()
+				&& ((Matrix)problem[0]).getCoefficientRing() instanceof PrimeField;
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		double n = ((Matrix)problem[0]).getRowCount();
+		return costFromOperations(n * n * n / 3);
+	}
+
+	@Override
+	public RingElement execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a square matrix over a prime field");
+		Matrix matrix = (Matrix)problem[0];
+		PrimeField field = (PrimeField)matrix.getCoefficientRing();
+		return field.element(PrimeFieldMatrixArithmetic.determinant(matrix.values(), matrix.getRowCount(), field.getCharacteristic()));
+	}
+}
@@ -0,0 +1,88 @@
+/**
+ * Solve regular linear systems over a field by Gaussian elimination.
+ *
+ * Over a prime field, the extended matrix [A | b] is brought into reduced row echelon form on primitive residues (see
+ * PrimeFieldMatrixArithmetic), which leaves the solution in the last column. Over other fields, A is inverted by
+ * Gauss-Jordan elimination on the ring elements. Over the rationals, this suffers from the growth of the fractions,
+ * which DixonSolver avoids.
+ *
+ * The problem instance is a regular square Matrix over a Field and a Vector b over the same field; the result is the
+ * Vector x with A x = b. An IllegalStateException is thrown if the matrix is singular.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import de.phwbrnr.lina.main.fields.Field;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.PrimeFieldElement;
+import de.phwbrnr.lina.main.fields.RationalsField;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class GaussianSolver extends AbstractStrategy<Vector> {
+
+	@Override
+	public String getDescription() {
+		return "Solve a regular linear system over a field by Gaussian elimination";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		if (problem.length != 2 || !(problem[0] instanceof Matrix) || !(problem[1] instanceof Vector))
+			return false;
+		Matrix matrix = (Matrix)problem[0];
+		Vector b = (Vector)problem[1];
+		return matrix.isSquare() && matrix.getCoefficientRing() instanceof Field && b.getRing().equals(matrix.getCoefficientRing())
+				&& b.getLength() == matrix.getRowCount();
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		Matrix matrix = (Matrix)problem[0];
+		double n = matrix.getRowCount();
+		if (matrix.getCoefficientRing() instanceof PrimeField)
+			return costFromOperations(n * n * n / 3);
+		/* over the rationals, the entries grow to about n times their size, and every operation takes a gcd */
+		if (matrix.getCoefficientRing() instanceof RationalsField)
+			return costFromOperations(10 * n * n * n * n * n);
+		return costFromOperations(10 * n * n * n);
+	}
+
+	@Override
+	public Vector execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a square matrix and a vector over the same field, with one entry per row");
+		Matrix matrix = (Matrix)problem[0];
+		Vector b = (Vector)problem[1];
+		int n = matrix.getRowCount();
+		if (matrix.getCoefficientRing() instanceof PrimeField) {
+			PrimeField field = (PrimeField)matrix.getCoefficientRing();
+			long p = field.getCharacteristic();
+			long[] a = matrix.values(), extended = new long[n * (n + 1)];
+			RingElement[] rhs = b.entries();
+			for (int i = 0; i < n; i++) {
+				System.arraycopy(a, i * n, extended, i * (n + 1), n);
+				extended[i * (n + 1) + n] = ((PrimeFieldElement)rhs[i]).getValue();
+			}
+			int[] pivots = PrimeFieldMatrixArithmetic.reduce(extended, n, n + 1, p);
+			if (pivots.length < n || n > 0 && pivots[n - 1] != n - 1)
+				throw new IllegalStateException("The matrix is singular, so the system has no unique solution");
+			RingElement[] x = new RingElement[n];
+			for (int i = 0; i < n; i++)
+				x[i] = field.element(extended[i * (n + 1) + n]);
+			return new Vector(field, x, true);
+		}
+		try {
+			RingElement[] inverse = MatrixArithmetic.inverse(matrix.getCoefficientRing(), matrix.entries(), n);
+			if (inverse == null)
+				throw new IllegalStateException("The matrix is singular, so the system has no unique solution");
+			return new Vector(matrix.getCoefficientRing(), MatrixArithmetic.apply(matrix.getCoefficientRing(), inverse, b.entries(), n, n), true);
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("Field operations failed in the elimination over " + matrix.getCoefficientRing().getName(), ex);
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * The Hermite normal form of a matrix over a Euclidean ring, with a unimodular transformation.
+ *
+ * The Hermite normal form H of a matrix A is the row echelon form U A = H, for an invertible U, in which every pivot is
+ * normalized (positive for integers, monic for polynomials over a field) and the entries above a pivot are reduced
+ * modulo it. It is unique, and the nonzero rows of H are a canonical basis of the module spanned by the rows of A.
+ *
+ * It is computed column by column: the extended Euclidean algorithm combines the pivot row with each row below by a
+ * 2 x 2 transformation of determinant one, which moves the gcd into the pivot row and clears the other row. The
+ * transformation is accumulated alongside. The elimination is done once, in the constructor.
+ *
+ * Over the integers, the entries of U and intermediate rows can grow large; ModularHermiteForm avoids that for
+ * square regular matrices, but does not compute U.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.Arrays;
+
+import de.phwbrnr.lina.main.fields.EuclideanRing;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+public class HermiteNormalForm {
+	private EuclideanRing ring;
+	private int rows, columns;
+	private RingElement[] hermite, transformation;
+	private int[] pivotColumns;
+
+	/**
+	 * @throws IllegalArgumentException if the entries are not from a Euclidean ring
+	 * @throws IllegalStateException if the ring operations fail
+	 */
+	public HermiteNormalForm(Matrix matrix) {
+		if (!(matrix.getCoefficientRing() instanceof EuclideanRing))
+			throw new IllegalArgumentException("The Hermite normal form needs a Euclidean ring, but got " + matrix.getCoefficientRing().getName());
+		ring = (EuclideanRing)matrix.getCoefficientRing();
+		rows = matrix.getRowCount();
+		columns = matrix.getColumnCount();
+		hermite = matrix.entries().clone();
+		transformation = Matrix.identity(ring, rows).entries().clone();
+		int[] pivots = new int[Math.min(rows, columns)];
+		int rank;
+		try {
+			rank = eliminate(pivots);
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("Ring operations failed in the Hermite normal form over " + ring.getName(), ex);
+		}
+		pivotColumns = Arrays.copyOf(pivots, rank);
+	}
+
+	private int eliminate(int[] pivots) throws OperationUndefinedException {
+		RingElement[] h = hermite, u = transformation;
+		int r = 0;
+		for (int c = 0; c < columns && r < rows; c++) {
+			for (int i = r + 1; i < rows; i++) {
+				RingElement b = h[i * columns + c];
+				if (b.isZero())
+					continue;
+				RingElement a = h[r * columns + c];
+				if (a.isZero()) {
+					MatrixArithmetic.swapRows(h, columns, r, i);
+					MatrixArithmetic.swapRows(u, rows, r, i);
+					continue;
+				}
+				/* (row_r, row_i) <- (s row_r + t row_i, -(b/g) row_r + (a/g) row_i), of determinant (s a + t b) / g = 1 */
+				RingElement[] gst = EuclideanMatrixArithmetic.extendedGcd(ring, a, b);
+				RingElement x = b.divide(gst[0]).negative(), y = a.divide(gst[0]);
+				EuclideanMatrixArithmetic.combineRows(h, columns, r, i, gst[1], gst[2], x, y, c);
+				EuclideanMatrixArithmetic.combineRows(u, rows, r, i, gst[1], gst[2], x, y, 0);
+			}
+			RingElement pivot = h[r * columns + c];
+			if (pivot.isZero())
+				continue;
+			RingElement unit = EuclideanMatrixArithmetic.unit(ring, pivot);
+			if (!unit.isOne()) {
+				EuclideanMatrixArithmetic.scaleRow(h, columns, r, unit);
+				EuclideanMatrixArithmetic.scaleRow(u, rows, r, unit);
+				pivot = h[r * columns + c];
+			}
+			for (int i = 0; i < r; i++) {
+				RingElement q = EuclideanMatrixArithmetic.reductionQuotient(ring, h[i * columns + c], pivot);
+				if (q.isZero())
+					continue;
+				EuclideanMatrixArithmetic.subtractRow(h, columns, i, r, q, c);
+				EuclideanMatrixArithmetic.subtractRow(u, rows, i, r, q, 0);
+			}
+			pivots[r++] = c;
+		}
+		return r;
+	}
+
+	/**
+	 * @return the Hermite normal form H = U A
+	 */
+	public Matrix getHermiteForm() {
+		return new Matrix(ring, rows, columns, hermite, true);
+	}
+
+	/**
+	 * @return the invertible matrix U with U A = H
+	 */
+	public Matrix getTransformation() {
+		return new Matrix(ring, rows, rows, transformation, true);
+	}
+
+	public int getRank() {
+		return pivotColumns.length;
+	}
+
+	/**
+	 * @return the columns of the pivots, ascending
+	 */
+	public int[] getPivotColumns() {
+		return pivotColumns.clone();
+	}
+}
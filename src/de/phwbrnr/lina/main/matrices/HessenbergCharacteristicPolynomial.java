@@ -0,0 +1,69 @@
+/**
+ * Characteristic polynomials of matrices over a field by reduction to Hessenberg form.
+ *
+ * Elementary similarity transformations bring the matrix into upper Hessenberg form H, with zeros below the first
+ * subdiagonal, and the characteristic polynomials of the leading blocks of H follow from a recurrence along the
+ * columns. Both steps take O(n^3) field operations. Over a prime field they run on primitive residues (see
+ * PrimeFieldMatrixArithmetic); over other fields, like the rationals, on RingElements, where the entries may grow.
+ *
+ * The problem instance is a square Matrix over a Field; the result is the monic Polynomial det(x I - A) over it.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import de.phwbrnr.lina.main.fields.Field;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.polynomials.Polynomial;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class HessenbergCharacteristicPolynomial extends AbstractStrategy<RingElement> {
+
+	@Override
+	public String getDescription() {
+		return "Compute the characteristic polynomial of a matrix over a field by Hessenberg reduction";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		return problem.length == 1 && problem[0] instanceof Matrix && ((Matrix)problem[0]).isSquare()
+				&& ((Matrix)problem[0]).getCoefficientRing() instanceof Field;
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		Matrix matrix = (Matrix)problem[0];
+		double n = matrix.getRowCount();
+		/* 10/3 n^3 for the reduction and n^3 / 6 for the recurrence; operations on objects cost about ten times more */
+		double operations = 4 * n * n * n;
+		if (!(matrix.getCoefficientRing() instanceof PrimeField))
+			operations *= 10;
+		return costFromOperations(operations);
+	}
+
+	@Override
+	public RingElement execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a square matrix over a field");
+		Matrix matrix = (Matrix)problem[0];
+		Field field = (Field)matrix.getCoefficientRing();
+		int n = matrix.getRowCount();
+		if (field instanceof PrimeField) {
+			PrimeField f = (PrimeField)field;
+			long[] c = PrimeFieldMatrixArithmetic.characteristicPolynomial(matrix.values(), n, f.getCharacteristic());
+			RingElement[] coefficients = new RingElement[c.length];
+			for (int i = 0; i < c.length; i++)
+				coefficients[i] = f.element(c[i]);
+			return new Polynomial(f, coefficients);
+		}
+		try {
+			return new Polynomial(field, MatrixArithmetic.characteristicPolynomial(field, matrix.entries(), n));
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("Field operations failed for the characteristic polynomial over " + field.getName(), ex);
+		}
+	}
+}
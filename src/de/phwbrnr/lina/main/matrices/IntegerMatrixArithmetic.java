@@ -0,0 +1,81 @@
+/**
+ * Arithmetic on integer matrices whose entries fit into a long, with the entries stored as primitives.
+ *
+ * Matrices are long arrays in row-major order. All operations are exact: they return null as soon as an entry of the
+ * result leaves the range of long, and the caller falls back to the generic arithmetic on IntegerElements, which
+ * switches to arbitrary precision. The methods never modify their arguments.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+final class IntegerMatrixArithmetic {
+
+	private IntegerMatrixArithmetic() {
+	}
+
+	/**
+	 * @return a + b, or a - b if subtract is set, or null on overflow
+	 */
+	static long[] add(long[] a, long[] b, boolean subtract) {
+		long[] result = new long[a.length];
+		try {
+			for (int i = 0; i < a.length; i++)
+				result[i] = subtract ? Math.subtractExact(a[i], b[i]) : Math.addExact(a[i], b[i]);
+		} catch (ArithmeticException ex) {
+			return null;
+		}
+		return result;
+	}
+
+	/**
+	 * @return -a, or null on overflow
+	 */
+	static long[] negate(long[] a) {
+		long[] result = new long[a.length];
+		try {
+			for (int i = 0; i < a.length; i++)
+				result[i] = Math.negateExact(a[i]);
+		} catch (ArithmeticException ex) {
+			return null;
+		}
+		return result;
+	}
+
+	/**
+	 * @return c a, or null on overflow
+	 */
+	static long[] scale(long[] a, long c) {
+		long[] result = new long[a.length];
+		try {
+			for (int i = 0; i < a.length; i++)
+				result[i] = Math.multiplyExact(a[i], c);
+		} catch (ArithmeticException ex) {
+			return null;
+		}
+		return result;
+	}
+
+	/**
+	 * @return the product of the n x m matrix a and the m x k matrix b, or null on overflow
+	 */
+	static long[] multiply(long[] a, long[] b, int n, int m, int k) {
+		long[] result = new long[n * k];
+		try {
+			for (int i = 0; i < n; i++) {
+				int row = i * k;
+				for (int l = 0; l < m; l++) {
+					long x = a[i * m + l];
+					if (x == 0)
+						continue;
+					int column = l * k;
+					for (int j = 0; j < k; j++)
+						result[row + j] = Math.addExact(result[row + j], Math.multiplyExact(x, b[column + j]));
+				}
+			}
+		} catch (ArithmeticException ex) {
+			return null;
+		}
+		return result;
+	}
+}
@@ -0,0 +1,130 @@
+/**
+ * Minimal polynomials of dense matrices over a prime field from Krylov spaces.
+ *
+ * For a vector v, the first linear dependency among v, v A, v A^2, ... gives the minimal polynomial of v, which
+ * divides the minimal polynomial of A (the one of A^T, which is the same). The Krylov vectors are reduced against the
+ * ones before as they are computed, keeping track of each as a polynomial in A applied to v, so the dependency is
+ * read off as soon as a vector reduces to zero. For a minimal polynomial of degree d, this takes d products of A with
+ * a vector and about d^2 n / 2 operations for the elimination, so 3/2 n^3 in the generic case d = n, less than the
+ * 10/3 n^3 of the Hessenberg reduction for the characteristic polynomial.
+ *
+ * Keller-Gehrig builds the Krylov matrix K = [v; v A; ...; v A^(k-1)] by doubling it to [K; K A^k] and squaring A^k
+ * instead, with O(log n) products of n x n matrices. That only pays off if these products are much faster than n^3;
+ * with the products of PrimeFieldMatrixArithmetic, it is several times slower than the vector steps for n up to a
+ * few thousand, so it is not used.
+ *
+ * The least common multiple of the minimal polynomials of random vectors is the minimal polynomial of A with high
+ * probability. It is accepted once it has degree n, or once f(A) U = 0 for a block U of random vectors; for f(A) != 0
+ * this happens with probability at most p^-k for k vectors, and k is chosen so that this is below 2^-CONFIDENCE_BITS.
+ * Otherwise, another random vector is added. This is a Monte Carlo method only through that last test.
+ *
+ * The problem instance is a square Matrix over a PrimeField; the result is its monic minimal Polynomial.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.Random;
+
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.PrimeFieldElement;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class KrylovMinimalPolynomial extends AbstractStrategy<RingElement> {
+	/**
+	 * A result of degree less than n is wrong with probability at most 2^-CONFIDENCE_BITS.
+	 */
+	public static final int CONFIDENCE_BITS = 20;
+
+	private Random random = new Random();
+
+	@Override
+	public String getDescription() {
+		return "Compute the minimal polynomial of a matrix over a prime field from Krylov spaces";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		return problem.length == 1 && problem[0] instanceof Matrix && ((Matrix)problem[0]).isSquare()
+				&& ((Matrix)problem[0]).getCoefficientRing() instanceof PrimeField;
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		double n = ((Matrix)problem[0]).getRowCount();
+		/* usually one vector, and the test if the degree is less than n */
+		return costFromOperations(3 * n * n * n);
+	}
+
+	@Override
+	public RingElement execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a square matrix over a prime field");
+		Matrix matrix = (Matrix)problem[0];
+		PrimeField field = (PrimeField)matrix.getCoefficientRing();
+		long p = field.getCharacteristic();
+		int n = matrix.getRowCount();
+		long[] a = matrix.values();
+		int k = (int)Math.ceil(CONFIDENCE_BITS / (Math.log(p) / Math.log(2)));
+
+		long[] f = { 1 % p };
+		while (f.length <= n) {
+			f = BerlekampMassey.lcm(f, krylovPolynomial(a, n, SparseOperator.randomBlock(n, 1, p, random), p), p);
+			if (f.length == n + 1 || annihilates(f, a, n, SparseOperator.randomBlock(n, k, p, random), k, p))
+				break;
+		}
+		return BerlekampMassey.toPolynomial(field, f);
+	}
+
+	/**
+	 * @return the monic f of least degree with v f(A) = 0 for the row vector v, the constant coefficient first
+	 */
+	static long[] krylovPolynomial(long[] a, int n, long[] v, long p) {
+		/* the reduced rows of the Krylov matrix with their pivot columns, each as a combination of v, v A, ..., v A^i */
+		long[][] reduced = new long[n + 1][], combinations = new long[n + 1][];
+		int[] pivots = new int[n + 1];
+		long[] w = v;
+		for (int i = 0; ; i++) {
+			long[] r = w.clone(), c = new long[i + 1];
+			c[i] = 1 % p;
+			for (int j = 0; j < i; j++) {
+				long f = r[pivots[j]];
+				if (f == 0)
+					continue;
+				f = p - f;
+				long[] row = reduced[j], combination = combinations[j];
+				for (int l = 0; l < n; l++)
+					r[l] = (r[l] + f * row[l]) % p;
+				for (int l = 0; l < combination.length; l++)
+					c[l] = (c[l] + f * combination[l]) % p;
+			}
+			int pivot = 0;
+			while (pivot < n && r[pivot] == 0)
+				pivot++;
+			/* v A^i depends on the rows before, and c, whose leading coefficient was never touched, is the dependency */
+			if (pivot == n)
+				return c;
+			long inverse = PrimeFieldElement.inverse(r[pivot], p);
+			reduced[i] = PrimeFieldMatrixArithmetic.scale(r, inverse, p);
+			combinations[i] = PrimeFieldMatrixArithmetic.scale(c, inverse, p);
+			pivots[i] = pivot;
+			w = PrimeFieldMatrixArithmetic.multiply(w, a, 1, n, n, p);
+		}
+	}
+
+	/**
+	 * @return whether f(A) U = 0 for the n x k block U, evaluated by Horner's rule
+	 */
+	private static boolean annihilates(long[] f, long[] a, int n, long[] u, int k, long p) {
+		long[] r = PrimeFieldMatrixArithmetic.scale(u, f[f.length - 1], p);
+		for (int i = f.length - 2; i >= 0; i--)
+			r = PrimeFieldMatrixArithmetic.add(PrimeFieldMatrixArithmetic.multiply(a, r, n, n, k, p), PrimeFieldMatrixArithmetic.scale(u, f[i], p), p, false);
+		for (long x : r)
+			if (x != 0)
+				return false;
+		return true;
+	}
+}
@@ -0,0 +1,675 @@
+/**
+ * LLL reduction of integer lattices, with floating point Gram-Schmidt coefficients and an exact fallback, and the
+ * stronger reductions by deep insertions and by BKZ.
+ *
+ * A basis b_1, ..., b_n is LLL reduced if it is size reduced, |mu_ij| <= 1/2 for the Gram-Schmidt coefficients
+ * mu_ij = <b_i, b*_j> / |b*_j|^2, and if delta |b*_(k-1)|^2 <= |b*_k|^2 + mu_(k,k-1)^2 |b*_(k-1)|^2 (the Lovasz
+ * condition), here with delta = 0.99. Then b_1 is at most 2^((n-1)/2) times longer than the shortest lattice vector,
+ * and usually much closer to it.
+ *
+ * reduce() runs the floating point variant of Schnorr and Euchner, in the spirit of the L^2 algorithm of Nguyen and
+ * Stehle: the basis is kept exactly, as longs for the entries that fit, but the Gram-Schmidt coefficients are
+ * doubles computed from double approximations of the vectors. Dot products that cancel are recomputed exactly, and
+ * size reduction is repeated until all coefficients are at most ETA = 0.51. Each approximation is scaled by a power
+ * of two of its own, for the longest entry of its vector, and the Gram-Schmidt data is kept relative to the same
+ * scales (the row exponents of fplll), so short vectors next to ones with entries of thousands of bits, as in
+ * knapsack lattices, are approximated equally well; only their mantissas meet in the arithmetic. If size reduction
+ * does not settle, or a |b*_k|^2 is lost to rounding, the precision is exhausted, and the reduction continues from
+ * the current basis in exact arithmetic. This is the integral variant (Cohen, A Course in Computational Algebraic Number Theory,
+ * Algorithm 2.6.7): instead of the rational Gram-Schmidt coefficients, it keeps the Gram determinants d_i and the
+ * integers lambda_ij = d_j mu_ij, so that no fractions ever occur.
+ *
+ * reduceDeep() moves b_k in front of b_i, instead of only swapping it with b_(k-1), as soon as that shortens b*_i by
+ * the factor delta (deep insertions). reduceBlockwise() is BKZ: for each block b_j, ..., b_(j+beta-1) of an LLL
+ * reduced basis in turn, the shortest vector of the block projected orthogonally to b_1, ..., b_(j-1) is found by
+ * Schnorr-Euchner enumeration, and inserted at position j if it is shorter than b*_j by the factor delta, until a
+ * whole tour over the blocks changes nothing. The cost of enumeration grows exponentially with the block size beta.
+ *
+ * The squared Gram-Schmidt norms |b*_i|^2 = d_i / d_(i-1) are what the recombination of factors inspects after the
+ * reduction; they are exact, which may take an exact pass over a basis reduced in floating point.
+ *
+ * The basis vectors (rows) have to be linearly independent.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.math.BigInteger;
+
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.IntegerRing;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+public class LatticeReduction {
+	/* the Lovasz condition is checked with delta = DELTA_NUMERATOR / DELTA_DENOMINATOR */
+	private static final BigInteger DELTA_NUMERATOR = BigInteger.valueOf(99);
+	private static final BigInteger DELTA_DENOMINATOR = BigInteger.valueOf(100);
+	private static final double DELTA = 0.99;
+	/* the floating point variant size reduces to |mu_ij| <= ETA, which leaves room for rounding errors */
+	private static final double ETA = 0.51;
+	/* dot products below this fraction of the product of the norms are recomputed exactly */
+	private static final double CANCELLATION = 0x1p-26;
+	/* the number of passes of size reduction of one vector after which the precision is taken as exhausted */
+	private static final int SIZE_REDUCTIONS = 64;
+
+	private final int n, m;
+	/* the basis vectors: an entry is large[i][j] if that is set, and small[i][j] otherwise */
+	private long[][] small;
+	private BigInteger[][] large;
+	/* the basis vectors during the exact reduction */
+	private BigInteger[][] basis;
+	/*
+	 * the approximations of the vectors with their squared norms, the Gram-Schmidt coefficients and |b*_i|^2, scaled
+	 * by the bit length bits[i] of the longest entry of b_i: approximations[i] is b_i 2^-bits[i], norms[i] and r[i]
+	 * are |b_i|^2 and |b*_i|^2 times 2^(-2 bits[i]), and mu[k][j] is mu_kj 2^(bits[j] - bits[k]), so all of them stay
+	 * near 1 however long the vectors are
+	 */
+	private double[][] approximations, mu;
+	private double[] norms, r;
+	private int[] bits;
+	/* d[0] = 1, d[i + 1] the Gram determinant of the first i + 1 vectors; only up to date if exact is set */
+	private final BigInteger[] d;
+	private final BigInteger[][] lambda;
+	private boolean exact;
+
+	/**
+	 * @param basis the rows span the lattice
+	 * @throws IllegalArgumentException if the entries are not integers
+	 */
+	public LatticeReduction(Matrix basis) {
+		this(rows(basis));
+	}
+
+	/**
+	 * @param basis the rows span the lattice; the array is copied
+	 */
+	public LatticeReduction(BigInteger[][] basis) {
+		n = basis.length;
+		m = n == 0 ? 0 : basis[0].length;
+		this.basis = new BigInteger[n][];
+		for (int i = 0; i < n; i++)
+			this.basis[i] = basis[i].clone();
+		this.d = new BigInteger[n + 1];
+		this.lambda = new BigInteger[n][n];
+		compact();
+	}
+
+	private static BigInteger[][] rows(Matrix matrix) {
+		if (!(matrix.getCoefficientRing() instanceof IntegerRing))
+			throw new IllegalArgumentException("Lattice reduction needs an integer matrix, but got one over " + matrix.getCoefficientRing().getName());
+		RingElement[] entries = matrix.entries();
+		int columns = matrix.getColumnCount();
+		BigInteger[][] result = new BigInteger[matrix.getRowCount()][columns];
+		for (int i = 0; i < result.length; i++)
+			for (int j = 0; j < columns; j++)
+				result[i][j] = ((IntegerElement)entries[i * columns + j]).getBigValue();
+		return result;
+	}
+
+	/**
+	 * LLL reduce the basis.
+	 * @throws IllegalArgumentException if the vectors are linearly dependent
+	 */
+	public void reduce() {
+		lll(0);
+	}
+
+	/**
+	 * LLL reduce the basis with deep insertions: b_k may be inserted in front of b_i for i < depth or i >= k - depth.
+	 * If the precision of doubles does not suffice, the result is only LLL reduced.
+	 * @throws IllegalArgumentException if the vectors are linearly dependent
+	 */
+	public void reduceDeep(int depth) {
+		lll(Math.max(depth, 0));
+	}
+
+	/**
+	 * BKZ reduce the basis with blocks of the given size; a block size of n gives a basis whose first vector is a
+	 * shortest lattice vector. If the precision of doubles does not suffice, the result is only LLL reduced.
+	 * @throws IllegalArgumentException if the vectors are linearly dependent or the block size is less than 2
+	 */
+	public void reduceBlockwise(int blockSize) {
+		if (blockSize < 2)
+			throw new IllegalArgumentException("BKZ needs blocks of at least two vectors, but got " + blockSize);
+		lll(0);
+		if (n < 2)
+			return;
+		prepare();
+		exact = false;
+		if (!floating(1, 0)) {
+			exactReduce();
+			return;
+		}
+		int unchanged = 0, j = -1;
+		while (unchanged < n - 1) {
+			j = (j + 1) % (n - 1);
+			int k = Math.min(j + blockSize - 1, n - 1);
+			long[] u = enumerate(j, k);
+			if (u == null) {
+				unchanged++;
+				continue;
+			}
+			unchanged = 0;
+			insert(j, u);
+			if (j == 0)
+				r[0] = norms[0];
+			if (!floating(Math.max(j, 1), 0)) {
+				exactReduce();
+				return;
+			}
+		}
+	}
+
+	private void lll(int depth) {
+		if (n == 0)
+			return;
+		exact = false;
+		prepare();
+		if (floating(1, depth))
+			return;
+		exactReduce();
+		/* the exact reduction has shortened the vectors, so doubles may do for the deep insertions now */
+		if (depth > 0) {
+			exact = false;
+			prepare();
+			if (!floating(1, depth))
+				exactReduce();
+		}
+	}
+
+	/**
+	 * Approximate all vectors by doubles.
+	 */
+	private void prepare() {
+		approximations = new double[n][m];
+		norms = new double[n];
+		mu = new double[n][n];
+		r = new double[n];
+		bits = new int[n];
+		for (int i = 0; i < n; i++)
+			approximate(i);
+		if (isZero(0))
+			throw new IllegalArgumentException("Lattice basis vectors are linearly dependent");
+		r[0] = norms[0];
+	}
+
+	/**
+	 * Run the floating point reduction from position k on; the Gram-Schmidt data of the vectors before k has to be
+	 * up to date.
+	 * @return false if the precision is exhausted; the vectors are still a basis of the lattice then
+	 */
+	private boolean floating(int k, int depth) {
+		double[] rk = new double[n];
+		while (k < n) {
+			if (!sizeReduce(k, rk))
+				return false;
+			if (isZero(k))
+				throw new IllegalArgumentException("Lattice basis vectors are linearly dependent");
+			int i = insertion(k, depth);
+			if (i == k) {
+				/*
+				 * |b*_k|^2 is computed with an error relative to |b_k|^2, so it may be meaningless while b_k is far
+				 * from reduced; but then b_k is moved, and only a vector that stays needs a valid one
+				 */
+				if (!(r[k] > 0) || Double.isInfinite(r[k]))
+					return false;
+				k++;
+				continue;
+			}
+			rotate(i, k);
+			if (i == 0)
+				r[0] = norms[0];
+			k = Math.max(i, 1);
+		}
+		return true;
+	}
+
+	/**
+	 * Size reduce b_k against the vectors before it, and compute its Gram-Schmidt coefficients and |b*_k|^2.
+	 * @return false if size reduction does not settle
+	 */
+	private boolean sizeReduce(int k, double[] rk) {
+		for (int pass = 0; pass < SIZE_REDUCTIONS; pass++) {
+			gramSchmidt(k, rk);
+			boolean reduced = true;
+			for (int j = k - 1; j >= 0; j--) {
+				/* mu_kj = mu[k][j] 2^e */
+				int e = bits[k] - bits[j];
+				if (Math.abs(mu[k][j]) <= Math.scalb(ETA, -e))
+					continue;
+				if (!Double.isFinite(mu[k][j]))
+					return false;
+				/* x 2^t is mu_kj rounded to an integer, or to its leading bits if it does not fit in a long */
+				int t = Math.max(Math.getExponent(mu[k][j]) + e - 61, 0);
+				long x = Math.round(Math.scalb(mu[k][j], e - t));
+				addMultiple(k, j, BigInteger.valueOf(-x).shiftLeft(t));
+				/* b_k -= x 2^t b_j changes mu[k][l] by y mu[j][l], in the scales of b_k and b_j */
+				double y = Math.scalb((double)x, t - e);
+				for (int l = 0; l < j; l++)
+					mu[k][l] -= y * mu[j][l];
+				mu[k][j] -= y;
+				reduced = false;
+			}
+			if (reduced)
+				return true;
+			approximate(k);
+		}
+		return false;
+	}
+
+	/**
+	 * Compute mu_kj for j < k and |b*_k|^2 from the approximations, with r_kj = mu_kj |b*_j|^2 in rk.
+	 */
+	private void gramSchmidt(int k, double[] rk) {
+		double[] bk = approximations[k];
+		for (int j = 0; j < k; j++) {
+			double s = dot(bk, approximations[j]);
+			if (Math.abs(s) < CANCELLATION * Math.sqrt(norms[k] * norms[j]))
+				s = scale(exactDot(k, j), bits[k] + bits[j]);
+			for (int l = 0; l < j; l++)
+				s -= mu[j][l] * rk[l];
+			rk[j] = s;
+			mu[k][j] = s / r[j];
+		}
+		double s = norms[k];
+		for (int j = 0; j < k; j++)
+			s -= mu[k][j] * rk[j];
+		r[k] = s;
+	}
+
+	/**
+	 * @return the first position i in front of which b_k is to be inserted, or k if it stays; b*_i becomes shorter
+	 * by the factor delta by the insertion, which for i = k - 1 is the violation of the Lovasz condition
+	 */
+	private int insertion(int k, int depth) {
+		/* c = |pi_i(b_k)|^2 2^(-2 bits[k]), the squared norm of b_k projected orthogonally to b_1, ..., b_(i-1) */
+		double c = norms[k];
+		for (int i = 0; i < k; i++) {
+			if ((i < depth || i >= k - Math.max(depth, 1)) && c < Math.scalb(DELTA * r[i], 2 * (bits[i] - bits[k])))
+				return i;
+			c -= mu[k][i] * mu[k][i] * r[i];
+		}
+		return k;
+	}
+
+	/**
+	 * Find the shortest nonzero vector of the block b_j, ..., b_k projected orthogonally to the vectors before, by
+	 * Schnorr-Euchner enumeration: the coordinates are chosen from the last one down, each zigzagging around the
+	 * center given by the ones above, and a subtree is cut as soon as its partial norm exceeds the best one so far.
+	 * @return the coordinates of the vector, if it is shorter than b*_j by the factor delta, or null
+	 */
+	private long[] enumerate(int j, int k) {
+		int size = k - j + 1;
+		long[] x = new long[size], dx = new long[size], ddx = new long[size], best = null;
+		double[] c = new double[size], l = new double[size + 1];
+		/* the Gram-Schmidt data of the block in a common scale, the norms relative to 2^(2 bits[j]) */
+		double[] rb = new double[size];
+		double[][] mub = new double[size][size];
+		for (int s = 0; s < size; s++) {
+			rb[s] = Math.scalb(r[j + s], 2 * (bits[j + s] - bits[j]));
+			for (int t = 0; t < s; t++)
+				mub[s][t] = Math.scalb(mu[j + s][j + t], bits[j + s] - bits[j + t]);
+		}
+		double bound = DELTA * rb[0];
+		x[0] = 1;
+		int t = 0;
+		while (true) {
+			double y = x[t] - c[t];
+			double partial = l[t + 1] + y * y * rb[t];
+			if (partial < bound) {
+				if (t > 0) {
+					l[t] = partial;
+					t--;
+					double center = 0;
+					for (int s = t + 1; s < size; s++)
+						center -= x[s] * mub[s][t];
+					c[t] = center;
+					x[t] = Math.round(center);
+					dx[t] = ddx[t] = center < x[t] ? -1 : 1;
+					continue;
+				}
+				if (partial > 0) {
+					bound = partial;
+					best = x.clone();
+				}
+			} else if (++t == size) {
+				return best;
+			}
+			/* the next coordinate at level t; while all above are zero, only one of v and -v is needed */
+			if (l[t + 1] == 0) {
+				x[t]++;
+			} else {
+				x[t] += dx[t];
+				ddx[t] = -ddx[t];
+				dx[t] = ddx[t] - dx[t];
+			}
+		}
+	}
+
+	/**
+	 * Make sum_t u_t b_(j+t) the vector at position j by unimodular operations on the block: the Euclidean algorithm
+	 * on two coefficients, applied to the vectors, leaves their gcd as the coefficient of one of them, and zero as the
+	 * coefficient of the other.
+	 */
+	private void insert(int j, long[] u) {
+		int s = -1;
+		for (int t = 0; t < u.length; t++) {
+			if (u[t] == 0)
+				continue;
+			if (s < 0) {
+				s = t;
+				continue;
+			}
+			while (u[t] != 0) {
+				/* u_s b_s + u_t b_t = (u_s - q u_t) b_s + u_t (b_t + q b_s) */
+				long q = u[s] / u[t];
+				u[s] -= q * u[t];
+				addMultiple(j + t, j + s, BigInteger.valueOf(q));
+				long w = u[s];
+				u[s] = u[t];
+				u[t] = w;
+				swapRows(j + s, j + t);
+			}
+		}
+		/* the shortest vector is primitive, so the gcd is a unit */
+		if (u[s] < 0)
+			negate(j + s);
+		for (int t = 0; t < u.length; t++)
+			approximate(j + t);
+		rotate(j, j + s);
+	}
+
+	/**
+	 * The exact integral LLL reduction of the current basis; afterwards, d and lambda are up to date.
+	 * @throws IllegalArgumentException if the vectors are linearly dependent
+	 */
+	private void exactReduce() {
+		expand();
+		if (n > 0) {
+			d[0] = BigInteger.ONE;
+			d[1] = dot(basis[0], basis[0]);
+			if (d[1].signum() == 0)
+				throw new IllegalArgumentException("Lattice basis vectors are linearly dependent");
+		}
+
+		int k = 1, kmax = 0;
+		while (k < n) {
+			if (k > kmax) {
+				kmax = k;
+				for (int j = 0; j <= k; j++) {
+					BigInteger u = dot(basis[k], basis[j]);
+					for (int i = 0; i < j; i++)
+						u = d[i + 1].multiply(u).subtract(lambda[k][i].multiply(lambda[j][i])).divide(d[i]);
+					if (j < k) {
+						lambda[k][j] = u;
+					} else {
+						if (u.signum() == 0)
+							throw new IllegalArgumentException("Lattice basis vectors are linearly dependent");
+						d[k + 1] = u;
+					}
+				}
+			}
+
+			exactSizeReduce(k, k - 1);
+			BigInteger l = lambda[k][k - 1];
+			BigInteger lhs = DELTA_DENOMINATOR.multiply(d[k + 1]).multiply(d[k - 1]);
+			BigInteger rhs = DELTA_NUMERATOR.multiply(d[k].multiply(d[k])).subtract(DELTA_DENOMINATOR.multiply(l.multiply(l)));
+			if (lhs.compareTo(rhs) < 0) {
+				exactSwap(k, kmax);
+				k = Math.max(1, k - 1);
+			} else {
+				for (int j = k - 2; j >= 0; j--)
+					exactSizeReduce(k, j);
+				k++;
+			}
+		}
+		exact = true;
+		compact();
+	}
+
+	private void exactSizeReduce(int k, int l) {
+		BigInteger twice = lambda[k][l].shiftLeft(1);
+		if (twice.abs().compareTo(d[l + 1]) <= 0)
+			return;
+		/* q is the integer nearest to lambda_kl / d_(l+1) */
+		BigInteger q = floorDivide(twice.add(d[l + 1]), d[l + 1].shiftLeft(1));
+		BigInteger[] bk = basis[k], bl = basis[l];
+		for (int i = 0; i < bk.length; i++)
+			bk[i] = bk[i].subtract(q.multiply(bl[i]));
+		lambda[k][l] = lambda[k][l].subtract(q.multiply(d[l + 1]));
+		for (int i = 0; i < l; i++)
+			lambda[k][i] = lambda[k][i].subtract(q.multiply(lambda[l][i]));
+	}
+
+	private void exactSwap(int k, int kmax) {
+		BigInteger[] t = basis[k];
+		basis[k] = basis[k - 1];
+		basis[k - 1] = t;
+		for (int j = 0; j < k - 1; j++) {
+			BigInteger u = lambda[k][j];
+			lambda[k][j] = lambda[k - 1][j];
+			lambda[k - 1][j] = u;
+		}
+
+		BigInteger l = lambda[k][k - 1];
+		BigInteger b = d[k - 1].multiply(d[k + 1]).add(l.multiply(l)).divide(d[k]);
+		for (int i = k + 1; i <= kmax; i++) {
+			BigInteger u = lambda[i][k];
+			lambda[i][k] = d[k + 1].multiply(lambda[i][k - 1]).subtract(l.multiply(u)).divide(d[k]);
+			lambda[i][k - 1] = b.multiply(u).add(l.multiply(lambda[i][k])).divide(d[k + 1]);
+		}
+		d[k] = b;
+	}
+
+	/**
+	 * b_k += x b_j, on longs for the entries that fit
+	 */
+	private void addMultiple(int k, int j, BigInteger x) {
+		long[] bk = small[k], bj = small[j];
+		boolean fits = x.bitLength() < 64;
+		long y = x.longValue();
+		for (int i = 0; i < m; i++) {
+			if (fits && (large == null || large[k][i] == null && large[j][i] == null)) {
+				try {
+					bk[i] = Math.addExact(bk[i], Math.multiplyExact(y, bj[i]));
+					continue;
+				} catch (ArithmeticException ex) {
+					/* the entry continues as a BigInteger */
+				}
+			}
+			BigInteger b = entry(j, i);
+			if (b.signum() != 0)
+				setEntry(k, i, entry(k, i).add(x.multiply(b)));
+		}
+	}
+
+	private void negate(int k) {
+		for (int i = 0; i < m; i++) {
+			if (large != null && large[k][i] != null)
+				large[k][i] = large[k][i].negate();
+			else if (small[k][i] == Long.MIN_VALUE)
+				setEntry(k, i, BigInteger.valueOf(small[k][i]).negate());
+			else
+				small[k][i] = -small[k][i];
+		}
+	}
+
+	private void swapRows(int i, int k) {
+		rotate(i, k);
+		if (k > i + 1)
+			rotate(i + 1, k);
+	}
+
+	/**
+	 * Move the vector at position k to position i < k, and the ones in between one position up, together with their
+	 * approximations.
+	 */
+	private void rotate(int i, int k) {
+		rotate(small, i, k);
+		if (large != null)
+			rotate(large, i, k);
+		rotate(approximations, i, k);
+		double norm = norms[k];
+		System.arraycopy(norms, i, norms, i + 1, k - i);
+		norms[i] = norm;
+		int length = bits[k];
+		System.arraycopy(bits, i, bits, i + 1, k - i);
+		bits[i] = length;
+	}
+
+	private static void rotate(Object[] a, int i, int k) {
+		Object t = a[k];
+		System.arraycopy(a, i, a, i + 1, k - i);
+		a[i] = t;
+	}
+
+	private void approximate(int k) {
+		double[] a = approximations[k];
+		int length = 0;
+		for (int i = 0; i < m; i++) {
+			if (large != null && large[k][i] != null)
+				length = Math.max(length, large[k][i].bitLength());
+			else
+				length = Math.max(length, 64 - Long.numberOfLeadingZeros(Math.abs(small[k][i])));
+		}
+		for (int i = 0; i < m; i++) {
+			if (large != null && large[k][i] != null)
+				a[i] = scale(large[k][i], length);
+			else
+				a[i] = Math.scalb((double)small[k][i], -length);
+		}
+		bits[k] = length;
+		norms[k] = dot(a, a);
+	}
+
+	private boolean isZero(int k) {
+		for (int i = 0; i < m; i++) {
+			if (small[k][i] != 0 || large != null && large[k][i] != null)
+				return false;
+		}
+		return true;
+	}
+
+	private BigInteger exactDot(int i, int j) {
+		BigInteger result = BigInteger.ZERO;
+		for (int l = 0; l < m; l++) {
+			BigInteger a = entry(i, l), b = entry(j, l);
+			if (a.signum() != 0 && b.signum() != 0)
+				result = result.add(a.multiply(b));
+		}
+		return result;
+	}
+
+	private BigInteger entry(int i, int j) {
+		return large != null && large[i][j] != null ? large[i][j] : BigInteger.valueOf(small[i][j]);
+	}
+
+	private void setEntry(int i, int j, BigInteger x) {
+		if (x.bitLength() < 64) {
+			small[i][j] = x.longValue();
+			if (large != null)
+				large[i][j] = null;
+		} else {
+			if (large == null)
+				large = new BigInteger[n][m];
+			large[i][j] = x;
+		}
+	}
+
+	/**
+	 * Store the basis as longs, and as BigIntegers only where the entries do not fit.
+	 */
+	private void compact() {
+		small = new long[n][m];
+		large = null;
+		for (int i = 0; i < n; i++)
+			for (int j = 0; j < m; j++)
+				setEntry(i, j, basis[i][j]);
+		basis = null;
+	}
+
+	/**
+	 * Store the basis as BigIntegers, for the exact reduction.
+	 */
+	private void expand() {
+		basis = new BigInteger[n][m];
+		for (int i = 0; i < n; i++)
+			for (int j = 0; j < m; j++)
+				basis[i][j] = entry(i, j);
+		small = null;
+		large = null;
+	}
+
+	/**
+	 * @return x 2^-e, rounded to a double
+	 */
+	private static double scale(BigInteger x, int e) {
+		int excess = x.bitLength() - 64;
+		if (excess <= 0)
+			return Math.scalb(x.doubleValue(), -e);
+		return Math.scalb(x.shiftRight(excess).doubleValue(), excess - e);
+	}
+
+	private static BigInteger floorDivide(BigInteger a, BigInteger b) {
+		BigInteger[] qr = a.divideAndRemainder(b);
+		if (qr[1].signum() != 0 && (qr[1].signum() < 0) != (b.signum() < 0))
+			return qr[0].subtract(BigInteger.ONE);
+		return qr[0];
+	}
+
+	private static BigInteger dot(BigInteger[] a, BigInteger[] b) {
+		BigInteger result = BigInteger.ZERO;
+		for (int i = 0; i < a.length; i++) {
+			if (a[i].signum() != 0 && b[i].signum() != 0)
+				result = result.add(a[i].multiply(b[i]));
+		}
+		return result;
+	}
+
+	private static double dot(double[] a, double[] b) {
+		double result = 0;
+		for (int i = 0; i < a.length; i++)
+			result += a[i] * b[i];
+		return result;
+	}
+
+	/**
+	 * @return the current basis, as the rows of an integer matrix
+	 */
+	public Matrix getBasis() {
+		RingElement[] entries = new RingElement[n * m];
+		for (int i = 0; i < n; i++) {
+			BigInteger[] row = getVector(i);
+			for (int j = 0; j < m; j++)
+				entries[i * m + j] = new IntegerElement(row[j]);
+		}
+		return new Matrix(IntegerRing.getInstance(), n, m, entries, true);
+	}
+
+	/**
+	 * @return the i-th vector of the current basis, counting from 0
+	 */
+	public BigInteger[] getVector(int i) {
+		BigInteger[] result = new BigInteger[m];
+		for (int j = 0; j < m; j++)
+			result[j] = entry(i, j);
+		return result;
+	}
+
+	/**
+	 * @return whether the Gram-Schmidt data is exact, which is the case if the last reduction had to fall back to exact
+	 * arithmetic, or after gramSchmidtNormExceeds
+	 */
+	public boolean isExact() {
+		return exact;
+	}
+
+	/**
+	 * @return whether the squared norm of the i-th Gram-Schmidt vector of the reduced basis exceeds the bound
+	 */
+	public boolean gramSchmidtNormExceeds(int i, BigInteger bound) {
+		if (!exact)
+			exactReduce();
+		return d[i + 1].compareTo(bound.multiply(d[i])) > 0;
+	}
+}
@@ -0,0 +1,613 @@
+/**
+ * Represent a matrix over a ring.
+ *
+ * Matrices are immutable, and stored densely in row-major order. Over the integers and over prime fields, the entries
+ * are kept as primitive longs - residues in [0, p) over F_p, and the integers themselves over Z as long as they all
+ * fit - and the arithmetic runs on those (see PrimeFieldMatrixArithmetic and IntegerMatrixArithmetic) instead of
+ * going through RingElement dispatch for every entry; integer matrices whose entries grow beyond the range of long
+ * fall back to IntegerElements. Over other rings the entries are RingElements (see MatrixArithmetic).
+ *
+ * A matrix is a RingElement of its MatrixRing, so square matrices can be handled like the elements of any other
+ * ring. Products are only defined if the number of columns of the left factor matches the number of rows of the
+ * right one; elements of the coefficient ring act as scalars, and are added to square matrices as scalar matrices.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.Arrays;
+
+import de.phwbrnr.lina.main.fields.ElementNotInvertibleException;
+import de.phwbrnr.lina.main.fields.Field;
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.IntegerRing;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.PrimeFieldElement;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+public class Matrix implements RingElement {
+	private Ring ring;
+	private int rows, columns;
+	/* the entries, or null if they are stored as values */
+	private RingElement[] entries;
+	/* the residues over a prime field, or the integers over Z if they all fit into a long; null otherwise */
+	private long[] values;
+
+	/**
+	 * Create the zero matrix with the given numbers of rows and columns.
+	 */
+	public Matrix(Ring ring, int rows, int columns) {
+		this(ring, rows, columns, zeros(ring, rows, columns), true);
+	}
+
+	/**
+	 * @param entries the rows of the matrix, which all have to have the same length; they are copied
+	 * @throws IllegalArgumentException if the rows have different lengths or an entry does not belong to the ring
+	 */
+	public Matrix(Ring ring, RingElement[][] entries) {
+		this(ring, entries.length, entries.length == 0 ? 0 : entries[0].length, flatten(entries));
+	}
+
+	/**
+	 * @param entries the entries in row-major order, which are copied
+	 * @throws IllegalArgumentException if the number of entries does not match the shape or an entry does not belong
+	 * to the ring
+	 */
+	public Matrix(Ring ring, int rows, int columns, RingElement... entries) {
+		checkShape(rows, columns);
+		if (entries.length != rows * columns)
+			throw new IllegalArgumentException("A " + rows + " x " + columns + " matrix needs " + rows * columns + " entries, but got " + entries.length);
+		for (int i = 0; i < entries.length; i++) {
+			if (!ring.contains(entries[i]))
+				throw new IllegalArgumentException("Entry #" + i + " (" + entries[i].toString() + ") is not member of ring " + ring.toString());
+		}
+		this.ring = ring;
+		this.rows = rows;
+		this.columns = columns;
+		store(entries.clone());
+	}
+
+	/**
+	 * Create a matrix over the integers or a prime field from primitive values; over F_p, they are reduced.
+	 * @param values the entries in row-major order, which are copied
+	 * @throws IllegalArgumentException if the ring is neither the integers nor a prime field, or the number of values
+	 * does not match the shape
+	 */
+	public Matrix(Ring ring, int rows, int columns, long... values) {
+		checkShape(rows, columns);
+		if (values.length != rows * columns)
+			throw new IllegalArgumentException("A " + rows + " x " + columns + " matrix needs " + rows * columns + " entries, but got " + values.length);
+		if (!(ring instanceof PrimeField || ring instanceof IntegerRing))
+			throw new IllegalArgumentException("Matrices of primitive values are only defined over the integers and prime fields, not over " + ring.getName());
+		this.ring = ring;
+		this.rows = rows;
+		this.columns = columns;
+		this.values = values.clone();
+		if (ring instanceof PrimeField) {
+			long p = ((PrimeField)ring).getCharacteristic();
+			for (int i = 0; i < this.values.length; i++)
+				this.values[i] = Math.floorMod(this.values[i], p);
+		}
+	}
+
+	/**
+	 * Wrap row-major entries of the ring without checking or copying them.
+	 */
+	Matrix(Ring ring, int rows, int columns, RingElement[] entries, boolean trusted) {
+		this.ring = ring;
+		this.rows = rows;
+		this.columns = columns;
+		store(entries);
+	}
+
+	/**
+	 * Wrap row-major primitive values without checking or copying them: residues in [0, p) over a prime field, or
+	 * integers over Z.
+	 */
+	Matrix(Ring ring, int rows, int columns, long[] values, boolean trusted) {
+		this.ring = ring;
+		this.rows = rows;
+		this.columns = columns;
+		this.values = values;
+	}
+
+	/**
+	 * @return the n x n identity matrix over a ring
+	 */
+	public static Matrix identity(Ring ring, int n) {
+		return scalar(ring, n, ring.getOne());
+	}
+
+	/**
+	 * @return the n x n matrix with c on the diagonal
+	 */
+	private static Matrix scalar(Ring ring, int n, RingElement c) {
+		checkShape(n, n);
+		RingElement[] entries = zeros(ring, n, n);
+		for (int i = 0; i < n; i++)
+			entries[i * n + i] = c;
+		return new Matrix(ring, n, n, entries, true);
+	}
+
+	private static void checkShape(int rows, int columns) {
+		if (rows < 0 || columns < 0)
+			throw new IllegalArgumentException("The numbers of rows and columns have to be non-negative, but got " + rows + " x " + columns);
+		if ((long)rows * columns > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("A " + rows + " x " + columns + " matrix has too many entries");
+	}
+
+	private static RingElement[] zeros(Ring ring, int rows, int columns) {
+		checkShape(rows, columns);
+		RingElement[] result = new RingElement[rows * columns];
+		Arrays.fill(result, ring.getZero());
+		return result;
+	}
+
+	private static RingElement[] flatten(RingElement[][] entries) {
+		int columns = entries.length == 0 ? 0 : entries[0].length;
+		RingElement[] result = new RingElement[entries.length * columns];
+		for (int i = 0; i < entries.length; i++) {
+			if (entries[i].length != columns)
+				throw new IllegalArgumentException("Row #" + i + " has " + entries[i].length + " entries, but row #0 has " + columns);
+			System.arraycopy(entries[i], 0, result, i * columns, columns);
+		}
+		return result;
+	}
+
+	/**
+	 * Store entries of the ring, as primitive values if possible.
+	 */
+	private void store(RingElement[] entries) {
+		if (ring instanceof PrimeField) {
+			values = new long[entries.length];
+			for (int i = 0; i < entries.length; i++)
+				values[i] = ((PrimeFieldElement)entries[i]).getValue();
+			return;
+		}
+		if (ring instanceof IntegerRing) {
+			long[] v = new long[entries.length];
+			for (int i = 0; i < entries.length; i++) {
+				IntegerElement x = (IntegerElement)entries[i];
+				if (!x.isSmall()) {
+					this.entries = entries;
+					return;
+				}
+				v[i] = x.getLongValue();
+			}
+			values = v;
+			return;
+		}
+		this.entries = entries;
+	}
+
+	/**
+	 * @return the entry for a primitive value
+	 */
+	private RingElement element(long value) {
+		if (ring instanceof PrimeField)
+			return ((PrimeField)ring).element(value);
+		return new IntegerElement(value);
+	}
+
+	/**
+	 * @return the entries in row-major order; they are only copied from the values, if any
+	 */
+	RingElement[] entries() {
+		if (entries != null)
+			return entries;
+		RingElement[] result = new RingElement[values.length];
+		for (int i = 0; i < values.length; i++)
+			result[i] = element(values[i]);
+		return result;
+	}
+
+	/**
+	 * @return the primitive values in row-major order without copying them, or null if the entries are RingElements
+	 */
+	long[] values() {
+		return values;
+	}
+
+	/**
+	 * @return the characteristic of the prime field of the coefficients
+	 */
+	private long characteristic() {
+		return ((PrimeField)ring).getCharacteristic();
+	}
+
+	/**
+	 * @return An instance of the ring the entries are from.
+	 */
+	public Ring getCoefficientRing() {
+		return ring;
+	}
+
+	public int getRowCount() {
+		return rows;
+	}
+
+	public int getColumnCount() {
+		return columns;
+	}
+
+	public boolean isSquare() {
+		return rows == columns;
+	}
+
+	/**
+	 * @return the entry in row i and column j, counting from 0
+	 */
+	public RingElement get(int i, int j) {
+		if (i < 0 || i >= rows || j < 0 || j >= columns)
+			throw new IndexOutOfBoundsException("Entry (" + i + ", " + j + ") is outside of a " + rows + " x " + columns + " matrix");
+		return values != null ? element(values[i * columns + j]) : entries[i * columns + j];
+	}
+
+	/**
+	 * @return row #i, counting from 0
+	 */
+	public Vector getRow(int i) {
+		RingElement[] row = new RingElement[columns];
+		for (int j = 0; j < columns; j++)
+			row[j] = get(i, j);
+		return new Vector(ring, row, true);
+	}
+
+	/**
+	 * @return column #j, counting from 0
+	 */
+	public Vector getColumn(int j) {
+		RingElement[] column = new RingElement[rows];
+		for (int i = 0; i < rows; i++)
+			column[i] = get(i, j);
+		return new Vector(ring, column, true);
+	}
+
+	/**
+	 * @return the rows of the matrix
+	 */
+	public RingElement[][] toArray() {
+		RingElement[] e = entries();
+		RingElement[][] result = new RingElement[rows][];
+		for (int i = 0; i < rows; i++)
+			result[i] = Arrays.copyOfRange(e, i * columns, (i + 1) * columns);
+		return result;
+	}
+
+	public Matrix transpose() {
+		if (values != null) {
+			long[] result = new long[values.length];
+			for (int i = 0; i < rows; i++)
+				for (int j = 0; j < columns; j++)
+					result[j * rows + i] = values[i * columns + j];
+			return new Matrix(ring, columns, rows, result, true);
+		}
+		RingElement[] result = new RingElement[entries.length];
+		for (int i = 0; i < rows; i++)
+			for (int j = 0; j < columns; j++)
+				result[j * rows + i] = entries[i * columns + j];
+		return new Matrix(ring, columns, rows, result, true);
+	}
+
+	/**
+	 * Interpret a ring element as a matrix of the same shape; elements of the coefficient ring become scalar matrices.
+	 */
+	private Matrix asMatrix(RingElement element) {
+		if (element instanceof Matrix && ((Matrix)element).ring.equals(ring))
+			return (Matrix)element;
+		return scalar(ring, rows, element);
+	}
+
+	@Override
+	public Matrix add(RingElement... addends) throws OperationUndefinedException {
+		Matrix result = this;
+		for (int i = 0; i < addends.length; i++) {
+			if (!canAdd(addends[i]))
+				throw new OperationUndefinedException("Cannot add " + rows + " x " + columns + " matrix over " + ring.getName() + " and element of " + addends[i].getRing());
+			result = result.add(asMatrix(addends[i]), false);
+		}
+		return result;
+	}
+
+	@Override
+	public Matrix subtract(RingElement subtrahend) throws OperationUndefinedException {
+		if (!canAdd(subtrahend))
+			throw new OperationUndefinedException("Cannot subtract element of " + subtrahend.getRing() + " from " + rows + " x " + columns + " matrix over " + ring.getName());
+		return add(asMatrix(subtrahend), true);
+	}
+
+	private Matrix add(Matrix other, boolean subtract) throws OperationUndefinedException {
+		if (values != null && other.values != null) {
+			long[] result = ring instanceof PrimeField ? PrimeFieldMatrixArithmetic.add(values, other.values, characteristic(), subtract)
+					: IntegerMatrixArithmetic.add(values, other.values, subtract);
+			if (result != null)
+				return new Matrix(ring, rows, columns, result, true);
+		}
+		return new Matrix(ring, rows, columns, MatrixArithmetic.add(entries(), other.entries(), subtract), true);
+	}
+
+	/**
+	 * Multiply with matrices with matching numbers of rows and with scalars, which act from the right.
+	 */
+	@Override
+	public Matrix multiply(RingElement... factors) throws OperationUndefinedException {
+		Matrix result = this;
+		for (int i = 0; i < factors.length; i++) {
+			if (!result.canMultiply(factors[i]))
+				throw new OperationUndefinedException("Cannot multiply " + result.rows + " x " + result.columns + " matrix over " + ring.getName() + " and element of " + factors[i].getRing());
+			if (factors[i] instanceof Matrix && ((Matrix)factors[i]).ring.equals(ring))
+				result = result.multiply((Matrix)factors[i]);
+			else
+				result = result.scale(factors[i]);
+		}
+		return result;
+	}
+
+	private Matrix multiply(Matrix other) throws OperationUndefinedException {
+		int n = rows, m = columns, k = other.columns;
+		if (values != null && other.values != null) {
+			long[] result = ring instanceof PrimeField ? PrimeFieldMatrixArithmetic.multiply(values, other.values, n, m, k, characteristic())
+					: IntegerMatrixArithmetic.multiply(values, other.values, n, m, k);
+			if (result != null)
+				return new Matrix(ring, n, k, result, true);
+		}
+		return new Matrix(ring, n, k, MatrixArithmetic.multiply(ring, entries(), other.entries(), n, m, k), true);
+	}
+
+	private Matrix scale(RingElement c) throws OperationUndefinedException {
+		if (values != null) {
+			long[] result = null;
+			if (ring instanceof PrimeField)
+				result = PrimeFieldMatrixArithmetic.scale(values, ((PrimeFieldElement)c).getValue(), characteristic());
+			else if (((IntegerElement)c).isSmall())
+				result = IntegerMatrixArithmetic.scale(values, ((IntegerElement)c).getLongValue());
+			if (result != null)
+				return new Matrix(ring, rows, columns, result, true);
+		}
+		return new Matrix(ring, rows, columns, MatrixArithmetic.scale(entries(), c), true);
+	}
+
+	/**
+	 * @return the image of a column vector under the matrix
+	 * @throws OperationUndefinedException if the vector is over another ring or its length is not the number of
+	 * columns
+	 */
+	public Vector multiply(Vector vector) throws OperationUndefinedException {
+		if (!vector.getRing().equals(ring) || vector.getLength() != columns)
+			throw new OperationUndefinedException("Cannot apply " + rows + " x " + columns + " matrix over " + ring.getName()
+					+ " to vector of length " + vector.getLength() + " over " + vector.getRing().getName());
+		if (ring instanceof PrimeField) {
+			long p = characteristic();
+			long[] v = new long[columns];
+			for (int j = 0; j < columns; j++)
+				v[j] = ((PrimeFieldElement)vector.get(j)).getValue();
+			long[] image = PrimeFieldMatrixArithmetic.apply(values, v, rows, columns, p);
+			RingElement[] result = new RingElement[rows];
+			for (int i = 0; i < rows; i++)
+				result[i] = element(image[i]);
+			return new Vector(ring, result, true);
+		}
+		return new Vector(ring, MatrixArithmetic.apply(ring, entries(), vector.entries(), rows, columns), true);
+	}
+
+	/**
+	 * A matrix is divisible by an invertible matrix, and by a scalar dividing all its entries.
+	 */
+	@Override
+	public boolean divisibleBy(RingElement divisor) {
+		if (!canMultiply(divisor))
+			return false;
+		if (divisor instanceof Matrix && ((Matrix)divisor).ring.equals(ring))
+			return divisor.invertible();
+		for (RingElement x : entries())
+			if (!x.divisibleBy(divisor))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Divide by a matrix, that is, multiply with its inverse from the right, or divide all entries by a scalar.
+	 * @throws OperationUndefinedException if the divisor is a singular matrix, or a scalar which does not divide all
+	 * entries.
+	 */
+	@Override
+	public Matrix divide(RingElement divisor) throws OperationUndefinedException {
+		if (!canMultiply(divisor))
+			throw new OperationUndefinedException("Cannot divide " + rows + " x " + columns + " matrix over " + ring.getName() + " by element of " + divisor.getRing());
+		try {
+			if (divisor instanceof Matrix && ((Matrix)divisor).ring.equals(ring))
+				return multiply((Matrix)divisor.inverse());
+			if (divisor.invertible())
+				return scale(divisor.inverse());
+		} catch (ElementNotInvertibleException ex) {
+			throw new OperationUndefinedException("Division by the non-invertible " + divisor + " not possible");
+		}
+		RingElement[] e = entries(), result = new RingElement[e.length];
+		for (int i = 0; i < e.length; i++)
+			result[i] = e[i].divide(divisor);
+		return new Matrix(ring, rows, columns, result, true);
+	}
+
+	/**
+	 * Square matrices over a field are invertible if they are regular, and over a commutative integral domain if
+	 * their determinant is a unit; over other rings, only the invertibility of 1 x 1 matrices is known.
+	 */
+	@Override
+	public boolean invertible() {
+		if (!isSquare())
+			return false;
+		if (rows == 1)
+			return get(0, 0).invertible();
+		if (!(ring instanceof Field) && !(ring.isIntegralDomain() && ring.isCommutative()))
+			return false;
+		try {
+			return inverseEntries() != null;
+		} catch (OperationUndefinedException ex) {
+			return false;
+		}
+	}
+
+	@Override
+	public RingElement inverse() throws ElementNotInvertibleException {
+		if (!isSquare())
+			throw new ElementNotInvertibleException("Only square matrices can be invertible", this);
+		if (rows == 1)
+			return new Matrix(ring, 1, 1, new RingElement[] { get(0, 0).inverse() }, true);
+		if (!(ring instanceof Field) && !(ring.isIntegralDomain() && ring.isCommutative()))
+			throw new ElementNotInvertibleException("Inverses of matrices are only computed over fields and commutative integral domains, not over " + ring.getName());
+		Matrix inverse;
+		try {
+			inverse = inverseEntries();
+		} catch (OperationUndefinedException ex) {
+			throw new ElementNotInvertibleException("Elimination failed: " + ex.getMessage());
+		}
+		if (inverse == null)
+			throw new ElementNotInvertibleException("The matrix is singular", this);
+		return inverse;
+	}
+
+	/**
+	 * @return the inverse of a square matrix over a field or a commutative integral domain, or null if it does not
+	 * exist; over integral domains, it is adj(A) / det(A), with the adjugate from a fraction-free elimination
+	 */
+	private Matrix inverseEntries() throws OperationUndefinedException {
+		if (ring instanceof PrimeField) {
+			long[] result = PrimeFieldMatrixArithmetic.inverse(values, rows, characteristic());
+			return result == null ? null : new Matrix(ring, rows, rows, result, true);
+		}
+		if (!(ring instanceof Field)) {
+			BareissElimination elimination = new BareissElimination(this);
+			if (elimination.getRank() < rows)
+				return null;
+			RingElement d = elimination.getDeterminant();
+			if (!d.invertible())
+				return null;
+			try {
+				return elimination.cramer(identity(ring, rows)).scale(d.inverse());
+			} catch (ElementNotInvertibleException ex) {
+				return null;
+			}
+		}
+		RingElement[] result = MatrixArithmetic.inverse(ring, entries(), rows);
+		return result == null ? null : new Matrix(ring, rows, rows, result, true);
+	}
+
+	@Override
+	public Matrix negative() {
+		if (values != null) {
+			long[] result = ring instanceof PrimeField ? PrimeFieldMatrixArithmetic.negate(values, characteristic()) : IntegerMatrixArithmetic.negate(values);
+			if (result != null)
+				return new Matrix(ring, rows, columns, result, true);
+		}
+		return new Matrix(ring, rows, columns, MatrixArithmetic.negate(entries()), true);
+	}
+
+	/**
+	 * Matrices of the same shape can be added, and elements of the coefficient ring to square matrices.
+	 */
+	@Override
+	public boolean canAdd(RingElement other) {
+		if (other instanceof Matrix) {
+			Matrix m = (Matrix)other;
+			if (m.ring.equals(ring))
+				return m.rows == rows && m.columns == columns;
+		}
+		return isSquare() && ring.contains(other);
+	}
+
+	/**
+	 * Matrices can be multiplied with matrices that have as many rows as they have columns, and with elements of the
+	 * coefficient ring.
+	 */
+	@Override
+	public boolean canMultiply(RingElement other) {
+		if (other instanceof Matrix) {
+			Matrix m = (Matrix)other;
+			if (m.ring.equals(ring))
+				return m.rows == columns;
+		}
+		return ring.contains(other);
+	}
+
+	@Override
+	public Ring getRing() {
+		return new MatrixRing(ring, rows, columns);
+	}
+
+	@Override
+	public boolean isZero() {
+		if (values != null) {
+			for (long x : values)
+				if (x != 0)
+					return false;
+			return true;
+		}
+		for (RingElement x : entries)
+			if (!x.isZero())
+				return false;
+		return true;
+	}
+
+	@Override
+	public boolean isOne() {
+		if (!isSquare())
+			return false;
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < columns; j++) {
+				RingElement x = get(i, j);
+				if (i == j ? !x.isOne() : !x.isZero())
+					return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof Matrix))
+			return false;
+		Matrix m = (Matrix)other;
+		if (m.rows != rows || m.columns != columns || !m.ring.equals(ring))
+			return false;
+		if (values != null && m.values != null)
+			return Arrays.equals(values, m.values);
+		RingElement[] e = entries(), me = m.entries();
+		for (int i = 0; i < e.length; i++)
+			if (!e[i].equals(me[i]))
+				return false;
+		return true;
+	}
+
+	/**
+	 * The hash code combines those of the entries, so it does not depend on how they are stored.
+	 */
+	@Override
+	public int hashCode() {
+		int hash = 31 * rows + columns;
+		if (values != null) {
+			for (long x : values)
+				hash = 31 * hash + Long.hashCode(x);
+		} else {
+			for (RingElement x : entries)
+				hash = 31 * hash + x.hashCode();
+		}
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("matrix[");
+		for (int i = 0; i < rows; i++) {
+			sb.append(i == 0 ? "[" : ",[");
+			for (int j = 0; j < columns; j++) {
+				if (j > 0)
+					sb.append(",");
+				sb.append(get(i, j));
+			}
+			sb.append("]");
+		}
+		return sb.append("]").toString();
+	}
+}
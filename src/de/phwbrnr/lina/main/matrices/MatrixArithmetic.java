@@ -0,0 +1,264 @@
+/**
+ * Arithmetic on matrices over an arbitrary ring, with the entries stored as RingElements in row-major order.
+ *
+ * This is the fallback for rings without a primitive representation (see PrimeFieldMatrixArithmetic and
+ * IntegerMatrixArithmetic). Products respect the order of the factors, so they are correct over non-commutative
+ * coefficient rings, like matrices of matrices. The methods never modify their arguments.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import de.phwbrnr.lina.main.fields.ElementNotInvertibleException;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+final class MatrixArithmetic {
+
+	private MatrixArithmetic() {
+	}
+
+	/**
+	 * @return a + b, or a - b if subtract is set
+	 */
+	static RingElement[] add(RingElement[] a, RingElement[] b, boolean subtract) throws OperationUndefinedException {
+		RingElement[] result = new RingElement[a.length];
+		for (int i = 0; i < a.length; i++)
+			result[i] = subtract ? a[i].subtract(b[i]) : a[i].add(b[i]);
+		return result;
+	}
+
+	static RingElement[] negate(RingElement[] a) {
+		RingElement[] result = new RingElement[a.length];
+		for (int i = 0; i < a.length; i++)
+			result[i] = a[i].negative();
+		return result;
+	}
+
+	/**
+	 * @return the entries multiplied by c from the right
+	 */
+	static RingElement[] scale(RingElement[] a, RingElement c) throws OperationUndefinedException {
+		RingElement[] result = new RingElement[a.length];
+		for (int i = 0; i < a.length; i++)
+			result[i] = a[i].multiply(c);
+		return result;
+	}
+
+	/**
+	 * @return the product of the n x m matrix a and the m x k matrix b
+	 */
+	static RingElement[] multiply(Ring ring, RingElement[] a, RingElement[] b, int n, int m, int k) throws OperationUndefinedException {
+		RingElement zero = ring.getZero();
+		RingElement[] result = new RingElement[n * k];
+		for (int i = 0; i < n; i++) {
+			int row = i * k;
+			for (int j = 0; j < k; j++)
+				result[row + j] = zero;
+			for (int l = 0; l < m; l++) {
+				RingElement x = a[i * m + l];
+				if (x.isZero())
+					continue;
+				int column = l * k;
+				for (int j = 0; j < k; j++) {
+					if (!b[column + j].isZero())
+						result[row + j] = result[row + j].add(x.multiply(b[column + j]));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the image of the vector v under the n x m matrix a
+	 */
+	static RingElement[] apply(Ring ring, RingElement[] a, RingElement[] v, int n, int m) throws OperationUndefinedException {
+		RingElement[] result = new RingElement[n];
+		for (int i = 0; i < n; i++) {
+			RingElement s = ring.getZero();
+			for (int j = 0; j < m; j++) {
+				if (!a[i * m + j].isZero() && !v[j].isZero())
+					s = s.add(a[i * m + j].multiply(v[j]));
+			}
+			result[i] = s;
+		}
+		return result;
+	}
+
+	/**
+	 * Invert an n x n matrix over a field by Gauss-Jordan elimination.
+	 * @return the inverse, or null if the matrix is singular
+	 */
+	static RingElement[] inverse(Ring field, RingElement[] a, int n) throws OperationUndefinedException {
+		RingElement[] m = a.clone();
+		RingElement[] result = new RingElement[n * n];
+		RingElement zero = field.getZero(), one = field.getOne();
+		for (int i = 0; i < n * n; i++)
+			result[i] = i % (n + 1) == 0 ? one : zero;
+		for (int c = 0; c < n; c++) {
+			int pivot = c;
+			while (pivot < n && m[pivot * n + c].isZero())
+				pivot++;
+			if (pivot == n)
+				return null;
+			swapRows(m, n, pivot, c);
+			swapRows(result, n, pivot, c);
+			RingElement inverse;
+			try {
+				inverse = m[c * n + c].inverse();
+			} catch (ElementNotInvertibleException ex) {
+				throw new OperationUndefinedException("The pivot " + m[c * n + c] + " is not invertible in " + field.getName());
+			}
+			for (int j = 0; j < n; j++) {
+				m[c * n + j] = inverse.multiply(m[c * n + j]);
+				result[c * n + j] = inverse.multiply(result[c * n + j]);
+			}
+			for (int i = 0; i < n; i++) {
+				RingElement f = m[i * n + c];
+				if (i == c || f.isZero())
+					continue;
+				for (int j = 0; j < n; j++) {
+					m[i * n + j] = m[i * n + j].subtract(f.multiply(m[c * n + j]));
+					result[i * n + j] = result[i * n + j].subtract(f.multiply(result[c * n + j]));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Compute the characteristic polynomial det(x I - A) of an n x n matrix over a field by Hessenberg reduction, as
+	 * PrimeFieldMatrixArithmetic.characteristicPolynomial does on residues.
+	 * @return the coefficients, the constant one first; the polynomial is monic of degree n
+	 */
+	static RingElement[] characteristicPolynomial(Ring field, RingElement[] a, int n) throws OperationUndefinedException {
+		RingElement[] h = a.clone();
+		for (int c = 0; c + 2 < n; c++) {
+			int pivot = c + 1;
+			while (pivot < n && h[pivot * n + c].isZero())
+				pivot++;
+			if (pivot == n)
+				continue;
+			if (pivot != c + 1) {
+				swapRows(h, n, pivot, c + 1);
+				for (int i = 0; i < n; i++) {
+					RingElement t = h[i * n + pivot];
+					h[i * n + pivot] = h[i * n + c + 1];
+					h[i * n + c + 1] = t;
+				}
+			}
+			RingElement inverse;
+			try {
+				inverse = h[(c + 1) * n + c].inverse();
+			} catch (ElementNotInvertibleException ex) {
+				throw new OperationUndefinedException("The pivot " + h[(c + 1) * n + c] + " is not invertible in " + field.getName());
+			}
+			for (int k = c + 2; k < n; k++) {
+				RingElement u = h[k * n + c].multiply(inverse);
+				if (u.isZero())
+					continue;
+				/* row_k -= u row_(c+1), then col_(c+1) += u col_k, which keeps the matrix similar */
+				for (int j = c; j < n; j++)
+					h[k * n + j] = h[k * n + j].subtract(u.multiply(h[(c + 1) * n + j]));
+				for (int i = 0; i < n; i++)
+					h[i * n + c + 1] = h[i * n + c + 1].add(u.multiply(h[i * n + k]));
+			}
+		}
+
+		RingElement[][] polynomials = new RingElement[n + 1][];
+		polynomials[0] = new RingElement[] { field.getOne() };
+		for (int m = 1; m <= n; m++) {
+			RingElement[] previous = polynomials[m - 1], next = new RingElement[m + 1];
+			RingElement diagonal = h[(m - 1) * n + m - 1];
+			next[0] = diagonal.negative().multiply(previous[0]);
+			for (int j = 1; j < m; j++)
+				next[j] = previous[j - 1].subtract(diagonal.multiply(previous[j]));
+			next[m] = previous[m - 1];
+			RingElement product = field.getOne();
+			for (int i = m - 1; i >= 1; i--) {
+				product = product.multiply(h[i * n + i - 1]);
+				if (product.isZero())
+					break;
+				RingElement f = h[(i - 1) * n + m - 1].multiply(product);
+				if (f.isZero())
+					continue;
+				RingElement[] q = polynomials[i - 1];
+				for (int j = 0; j < q.length; j++)
+					next[j] = next[j].subtract(f.multiply(q[j]));
+			}
+			polynomials[m] = next;
+		}
+		return polynomials[n];
+	}
+
+	/**
+	 * Compute the characteristic polynomial det(x I - A) of an n x n matrix over a commutative ring by Berkowitz's
+	 * algorithm, without any division. With the leading k x k block A_k, the row R and the column S next to it and the
+	 * diagonal entry a, the characteristic polynomial of A_(k+1) is T c_k, for the coefficients c_k of the one of A_k,
+	 * leading one first, and the lower triangular Toeplitz matrix T with first column
+	 *   1, -a, -R S, -R A_k S, ..., -R A_k^(k-1) S.
+	 * This takes O(n^4) ring operations.
+	 * @return the coefficients, the constant one first; the polynomial is monic of degree n
+	 */
+	static RingElement[] berkowitz(Ring ring, RingElement[] a, int n) throws OperationUndefinedException {
+		RingElement zero = ring.getZero();
+		RingElement[] c = { ring.getOne() };
+		for (int k = 0; k < n; k++) {
+			RingElement[] t = new RingElement[k + 2];
+			t[0] = ring.getOne();
+			t[1] = a[k * n + k].negative();
+			RingElement[] v = new RingElement[k];
+			for (int i = 0; i < k; i++)
+				v[i] = a[i * n + k];
+			for (int j = 0; j < k; j++) {
+				RingElement s = zero;
+				for (int l = 0; l < k; l++) {
+					if (!a[k * n + l].isZero() && !v[l].isZero())
+						s = s.add(a[k * n + l].multiply(v[l]));
+				}
+				t[j + 2] = s.negative();
+				if (j + 1 < k) {
+					/* v = A_k v */
+					RingElement[] w = new RingElement[k];
+					for (int i = 0; i < k; i++) {
+						s = zero;
+						for (int l = 0; l < k; l++) {
+							if (!a[i * n + l].isZero() && !v[l].isZero())
+								s = s.add(a[i * n + l].multiply(v[l]));
+						}
+						w[i] = s;
+					}
+					v = w;
+				}
+			}
+			RingElement[] next = new RingElement[k + 2];
+			for (int i = 0; i < next.length; i++) {
+				RingElement s = zero;
+				for (int j = Math.max(0, i - t.length + 1); j <= Math.min(i, k); j++) {
+					if (!t[i - j].isZero() && !c[j].isZero())
+						s = s.add(t[i - j].multiply(c[j]));
+				}
+				next[i] = s;
+			}
+			c = next;
+		}
+		RingElement[] result = new RingElement[n + 1];
+		for (int i = 0; i <= n; i++)
+			result[i] = c[n - i];
+		return result;
+	}
+
+	/**
+	 * Swap two rows of a matrix with the given number of columns in place.
+	 */
+	static void swapRows(RingElement[] a, int columns, int i, int j) {
+		if (i == j)
+			return;
+		for (int l = 0; l < columns; l++) {
+			RingElement t = a[i * columns + l];
+			a[i * columns + l] = a[j * columns + l];
+			a[j * columns + l] = t;
+		}
+	}
+}
@@ -0,0 +1,438 @@
+/**
+ * Represent the matrices of a fixed shape over a ring.
+ *
+ * The n x n matrices over a ring R form the ring M_n(R), which is not commutative for n > 1, even if R is. Matrices
+ * of other shapes do not form a ring, but they can still be added, and multiplied with matrices of matching shape;
+ * this class describes them as well, so that every Matrix has a getRing(), but getOne() is undefined for them.
+ * The coefficient ring R is embedded into M_n(R) as the scalar matrices, so elements of R can be added to square
+ * matrices.
+ *
+ * Elements are written row by row as "matrix[[a00,a01,...],[a10,a11,...],...]".
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import de.phwbrnr.lina.main.fields.ElementParseException;
+import de.phwbrnr.lina.main.fields.NotImplementedException;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.Computation;
+import de.phwbrnr.lina.main.strategies.Strategy;
+
+public class MatrixRing implements Ring {
+	private Ring ring;
+	private int rows, columns;
+
+	/**
+	 * Create the ring of n x n matrices over a ring.
+	 */
+	public MatrixRing(Ring ring, int n) {
+		this(ring, n, n);
+	}
+
+	/**
+	 * Create the set of matrices with the given numbers of rows and columns over a ring.
+	 */
+	public MatrixRing(Ring ring, int rows, int columns) {
+		if (rows < 0 || columns < 0)
+			throw new IllegalArgumentException("The numbers of rows and columns have to be non-negative, but got " + rows + " x " + columns);
+		this.ring = ring;
+		this.rows = rows;
+		this.columns = columns;
+	}
+
+	@Override
+	public String getName() {
+		if (isSquare())
+			return "M_" + rows + "(" + ring.getName() + ")";
+		return "M_" + rows + "x" + columns + "(" + ring.getName() + ")";
+	}
+
+	@Override
+	public RingElement getZero() {
+		return new Matrix(ring, rows, columns);
+	}
+
+	/**
+	 * @return the identity matrix
+	 * @throws IllegalStateException if the matrices are not square
+	 */
+	@Override
+	public RingElement getOne() {
+		if (!isSquare())
+			throw new IllegalStateException("There is no identity among the " + rows + " x " + columns + " matrices");
+		return Matrix.identity(ring, rows);
+	}
+
+	/**
+	 * @return An instance of the ring the entries are from.
+	 */
+	public Ring getCoefficientRing() {
+		return ring;
+	}
+
+	public int getRowCount() {
+		return rows;
+	}
+
+	public int getColumnCount() {
+		return columns;
+	}
+
+	/**
+	 * @return whether the matrices are square, so that they form a ring
+	 */
+	public boolean isSquare() {
+		return rows == columns;
+	}
+
+	@Override
+	public boolean isCommutative() {
+		return rows == 1 && columns == 1 && ring.isCommutative();
+	}
+
+	@Override
+	public boolean isIntegralDomain() {
+		return rows == 1 && columns == 1 && ring.isIntegralDomain();
+	}
+
+	@Override
+	public RingElement parseElement(String string) throws ElementParseException {
+		Pattern p = Pattern.compile("matrix\\[(.*)\\]");
+		Matcher m = p.matcher(string.trim());
+		if (!m.matches())
+			throw new ElementParseException("Matrix strings have to be of the form 'matrix[[a00,a01,...],[a10,a11,...],...]'");
+
+		ArrayList<String> rowStrings = split(m.group(1));
+		if (rowStrings.size() != rows)
+			throw new ElementParseException("Expected " + rows + " rows, but got " + rowStrings.size() + " in '" + string + "'");
+		RingElement[] entries = new RingElement[rows * columns];
+		for (int i = 0; i < rows; i++) {
+			String row = rowStrings.get(i).trim();
+			if (!row.startsWith("[") || !row.endsWith("]"))
+				throw new ElementParseException("Matrix rows have to be of the form '[a0,a1,...]', but got '" + row + "'");
+			ArrayList<String> entryStrings = split(row.substring(1, row.length() - 1));
+			if (entryStrings.size() != columns)
+				throw new ElementParseException("Expected " + columns + " entries, but got " + entryStrings.size() + " in row '" + row + "'");
+			for (int j = 0; j < columns; j++)
+				entries[i * columns + j] = ring.parseElement(entryStrings.get(j));
+		}
+		return new Matrix(ring, rows, columns, entries);
+	}
+
+	/**
+	 * Split a string at the commas outside of brackets; entries may be written with brackets and commas themselves,
+	 * like fraction[1,2].
+	 */
+	private static ArrayList<String> split(String string) {
+		ArrayList<String> parts = new ArrayList<String>();
+		if (string.trim().isEmpty())
+			return parts;
+		int depth = 0, start = 0;
+		for (int i = 0; i <= string.length(); i++) {
+			if (i == string.length() || (string.charAt(i) == ',' && depth == 0)) {
+				parts.add(string.substring(start, i));
+				start = i + 1;
+			} else if (string.charAt(i) == '[') {
+				depth++;
+			} else if (string.charAt(i) == ']') {
+				depth--;
+			}
+		}
+		return parts;
+	}
+
+	@Override
+	public boolean contains(RingElement el) {
+		if (el instanceof Matrix) {
+			Matrix m = (Matrix)el;
+			if (m.getCoefficientRing().equals(ring))
+				return m.getRowCount() == rows && m.getColumnCount() == columns;
+		}
+		return isSquare() && ring.contains(el);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof MatrixRing))
+			return false;
+		MatrixRing r = (MatrixRing)other;
+		return r.rows == rows && r.columns == columns && r.ring.equals(ring);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * ring.hashCode() + rows) + columns;
+	}
+
+	@Override
+	public String toString() {
+		return getName();
+	}
+
+	/**
+	 * Determinants: for a square matrix over a commutative ring, the element of the coefficient ring that is
+	 * invertible if and only if the matrix is. Which strategy applies depends on the coefficient ring.
+	 */
+	public Computation<RingElement> determinant() {
+		return DeterminantComputation.getInstance();
+	}
+
+	public static class DeterminantComputation extends Computation<RingElement> {
+		private LinkedList<Strategy<RingElement>> strategies;
+		private static DeterminantComputation instance;
+
+		public static synchronized DeterminantComputation getInstance() {
+			if(instance == null)
+				instance = new DeterminantComputation();
+			return instance;
+		}
+
+		private DeterminantComputation() {
+			strategies = new LinkedList<Strategy<RingElement>>();
+			strategies.add(new GaussianDeterminant());
+			strategies.add(new BareissDeterminant());
+			strategies.add(new EvaluationDeterminant());
+		}
+
+		@Override
+		public String getDescription() {
+			return "Compute the determinant of a square matrix";
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Strategy<RingElement>[] getStrategies() {
+			return (Strategy<RingElement>[]) strategies.toArray(new Strategy<?>[strategies.size()]);
+		}
+
+		@Override
+		public void addStrategy(Strategy<RingElement> strategy) {
+			strategies.add(strategy);
+		}
+	}
+
+	/**
+	 * Linear systems: for a regular square matrix A and a vector b over the same ring, the solution x of A x = b over
+	 * the quotient field, so over the integers, a vector of fractions. The strategies throw an IllegalStateException
+	 * if the matrix is singular.
+	 */
+	public Computation<Vector> solve() {
+		return SolveComputation.getInstance();
+	}
+
+	public static class SolveComputation extends Computation<Vector> {
+		private LinkedList<Strategy<Vector>> strategies;
+		private static SolveComputation instance;
+
+		public static synchronized SolveComputation getInstance() {
+			if(instance == null)
+				instance = new SolveComputation();
+			return instance;
+		}
+
+		private SolveComputation() {
+			strategies = new LinkedList<Strategy<Vector>>();
+			strategies.add(new GaussianSolver());
+			strategies.add(new DixonSolver());
+		}
+
+		@Override
+		public String getDescription() {
+			return "Solve a regular linear system";
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Strategy<Vector>[] getStrategies() {
+			return (Strategy<Vector>[]) strategies.toArray(new Strategy<?>[strategies.size()]);
+		}
+
+		@Override
+		public void addStrategy(Strategy<Vector> strategy) {
+			strategies.add(strategy);
+		}
+	}
+
+	/**
+	 * Characteristic polynomials: for a square matrix over a commutative ring, the monic polynomial det(x I - A) over
+	 * the coefficient ring. Which strategy applies depends on the coefficient ring.
+	 */
+	public Computation<RingElement> characteristicPolynomial() {
+		return CharacteristicPolynomialComputation.getInstance();
+	}
+
+	public static class CharacteristicPolynomialComputation extends Computation<RingElement> {
+		private LinkedList<Strategy<RingElement>> strategies;
+		private static CharacteristicPolynomialComputation instance;
+
+		public static synchronized CharacteristicPolynomialComputation getInstance() {
+			if(instance == null)
+				instance = new CharacteristicPolynomialComputation();
+			return instance;
+		}
+
+		private CharacteristicPolynomialComputation() {
+			strategies = new LinkedList<Strategy<RingElement>>();
+			strategies.add(new HessenbergCharacteristicPolynomial());
+			strategies.add(new MultiModularCharacteristicPolynomial());
+			strategies.add(new BerkowitzCharacteristicPolynomial());
+		}
+
+		@Override
+		public String getDescription() {
+			return "Compute the characteristic polynomial of a square matrix";
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Strategy<RingElement>[] getStrategies() {
+			return (Strategy<RingElement>[]) strategies.toArray(new Strategy<?>[strategies.size()]);
+		}
+
+		@Override
+		public void addStrategy(Strategy<RingElement> strategy) {
+			strategies.add(strategy);
+		}
+	}
+
+	/**
+	 * Minimal polynomials: for a square matrix over a field, the monic polynomial f of least degree with f(A) = 0.
+	 * Only prime fields are supported so far.
+	 */
+	public Computation<RingElement> minimalPolynomial() {
+		return MinimalPolynomialComputation.getInstance();
+	}
+
+	public static class MinimalPolynomialComputation extends Computation<RingElement> {
+		private LinkedList<Strategy<RingElement>> strategies;
+		private static MinimalPolynomialComputation instance;
+
+		public static synchronized MinimalPolynomialComputation getInstance() {
+			if(instance == null)
+				instance = new MinimalPolynomialComputation();
+			return instance;
+		}
+
+		private MinimalPolynomialComputation() {
+			strategies = new LinkedList<Strategy<RingElement>>();
+			strategies.add(new KrylovMinimalPolynomial());
+		}
+
+		@Override
+		public String getDescription() {
+			return "Compute the minimal polynomial of a square matrix";
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Strategy<RingElement>[] getStrategies() {
+			return (Strategy<RingElement>[]) strategies.toArray(new Strategy<?>[strategies.size()]);
+		}
+
+		@Override
+		public void addStrategy(Strategy<RingElement> strategy) {
+			strategies.add(strategy);
+		}
+	}
+
+	/**
+	 * Hermite normal forms: for a matrix over a Euclidean ring, the canonical row echelon form of the module spanned
+	 * by its rows (see HermiteNormalForm). Which strategy applies depends on the coefficient ring and the shape.
+	 */
+	public Computation<RingElement> hermiteForm() {
+		return HermiteFormComputation.getInstance();
+	}
+
+	public static class HermiteFormComputation extends Computation<RingElement> {
+		private LinkedList<Strategy<RingElement>> strategies;
+		private static HermiteFormComputation instance;
+
+		public static synchronized HermiteFormComputation getInstance() {
+			if(instance == null)
+				instance = new HermiteFormComputation();
+			return instance;
+		}
+
+		private HermiteFormComputation() {
+			strategies = new LinkedList<Strategy<RingElement>>();
+			strategies.add(new ModularHermiteForm());
+			strategies.add(new EuclideanHermiteForm());
+		}
+
+		@Override
+		public String getDescription() {
+			return "Compute the Hermite normal form of a matrix";
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Strategy<RingElement>[] getStrategies() {
+			return (Strategy<RingElement>[]) strategies.toArray(new Strategy<?>[strategies.size()]);
+		}
+
+		@Override
+		public void addStrategy(Strategy<RingElement> strategy) {
+			strategies.add(strategy);
+		}
+	}
+
+	/**
+	 * Invariant factors: for a matrix over a Euclidean ring, the nonzero diagonal entries s_1 | s_2 | ... | s_r of its
+	 * Smith normal form (see SmithNormalForm). Which strategy applies depends on the coefficient ring and the entries.
+	 */
+	public Computation<ArrayList<RingElement>> invariantFactors() {
+		return InvariantFactorComputation.getInstance();
+	}
+
+	public static class InvariantFactorComputation extends Computation<ArrayList<RingElement>> {
+		private LinkedList<Strategy<ArrayList<RingElement>>> strategies;
+		private static InvariantFactorComputation instance;
+
+		public static synchronized InvariantFactorComputation getInstance() {
+			if(instance == null)
+				instance = new InvariantFactorComputation();
+			return instance;
+		}
+
+		private InvariantFactorComputation() {
+			strategies = new LinkedList<Strategy<ArrayList<RingElement>>>();
+			strategies.add(new PencilInvariantFactors());
+			strategies.add(new ModularInvariantFactors());
+			strategies.add(new EuclideanInvariantFactors());
+		}
+
+		@Override
+		public String getDescription() {
+			return "Compute the invariant factors of a matrix";
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Strategy<ArrayList<RingElement>>[] getStrategies() {
+			return (Strategy<ArrayList<RingElement>>[]) strategies.toArray(new Strategy<?>[strategies.size()]);
+		}
+
+		@Override
+		public void addStrategy(Strategy<ArrayList<RingElement>> strategy) {
+			strategies.add(strategy);
+		}
+	}
+
+	@Override
+	public boolean irreducible(RingElement el) throws OperationUndefinedException {
+		throw new NotImplementedException("The MatrixRing does not know about irreducible elements");
+	}
+
+	@Override
+	public Computation<ArrayList<RingElement>> factor() throws OperationUndefinedException {
+		throw new NotImplementedException("Matrices cannot be factored");
+	}
+}
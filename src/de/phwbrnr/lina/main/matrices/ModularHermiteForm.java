@@ -0,0 +1,78 @@
+/**
+ * Hermite normal forms of square integer matrices, computed modulo the determinant (see ModularNormalForms).
+ *
+ * The determinant is computed by fraction-free elimination first; afterwards, no entry exceeds it, whereas the
+ * Euclidean elimination lets the intermediate entries grow far beyond the size of the result. Singular matrices do not
+ * have a multiple of their determinant in the lattice, so they are handed to the Euclidean elimination.
+ *
+ * The problem instance is a square Matrix over the IntegerRing; the result is its Hermite normal form.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.math.BigInteger;
+
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.IntegerRing;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class ModularHermiteForm extends AbstractStrategy<RingElement> {
+
+	@Override
+	public String getDescription() {
+		return "Compute the Hermite normal form of a square integer matrix modulo its determinant";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		return problem.length == 1 && problem[0] instanceof Matrix && ((Matrix)problem[0]).isSquare()
+				&& ((Matrix)problem[0]).getCoefficientRing() instanceof IntegerRing;
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		double n = ((Matrix)problem[0]).getRowCount();
+		/* the determinant and n^3 / 2 row operations on entries below it */
+		return costFromOperations(3 * n * n * n * Math.max(1, Math.log(n + 1)));
+	}
+
+	@Override
+	public RingElement execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a square integer matrix");
+		Matrix matrix = (Matrix)problem[0];
+		int n = matrix.getRowCount();
+		BigInteger d = determinant(matrix);
+		if (d.signum() == 0)
+			return new HermiteNormalForm(matrix).getHermiteForm();
+		BigInteger[] h = ModularNormalForms.hermite(bigValues(matrix), n, d);
+		RingElement[] entries = new RingElement[h.length];
+		for (int i = 0; i < h.length; i++)
+			entries[i] = new IntegerElement(h[i]);
+		return new Matrix(matrix.getCoefficientRing(), n, n, entries);
+	}
+
+	/**
+	 * @return the absolute value of the determinant of a square integer matrix
+	 */
+	static BigInteger determinant(Matrix matrix) {
+		try {
+			return ((IntegerElement)new BareissElimination(matrix).getDeterminant()).getBigValue().abs();
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("The determinant of a square matrix is undefined", ex);
+		}
+	}
+
+	static BigInteger[] bigValues(Matrix matrix) {
+		RingElement[] entries = matrix.entries();
+		BigInteger[] result = new BigInteger[entries.length];
+		for (int i = 0; i < entries.length; i++)
+			result[i] = ((IntegerElement)entries[i]).getBigValue();
+		return result;
+	}
+}
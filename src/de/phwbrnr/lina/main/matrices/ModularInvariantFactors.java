@@ -0,0 +1,57 @@
+/**
+ * Invariant factors of square integer matrices, computed modulo the determinant (see ModularNormalForms).
+ *
+ * As with ModularHermiteForm, the entries stay below the determinant throughout; singular matrices are handed to the
+ * Euclidean Smith normal form.
+ *
+ * The problem instance is a square Matrix over the IntegerRing; the result lists the positive invariant factors
+ * s_1 | s_2 | ... | s_r, where r is the rank.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.IntegerRing;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class ModularInvariantFactors extends AbstractStrategy<ArrayList<RingElement>> {
+
+	@Override
+	public String getDescription() {
+		return "Compute the invariant factors of a square integer matrix modulo its determinant";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		return problem.length == 1 && problem[0] instanceof Matrix && ((Matrix)problem[0]).isSquare()
+				&& ((Matrix)problem[0]).getCoefficientRing() instanceof IntegerRing;
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		double n = ((Matrix)problem[0]).getRowCount();
+		return costFromOperations(4 * n * n * n * Math.max(1, Math.log(n + 1)));
+	}
+
+	@Override
+	public ArrayList<RingElement> execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a square integer matrix");
+		Matrix matrix = (Matrix)problem[0];
+		BigInteger d = ModularHermiteForm.determinant(matrix);
+		if (d.signum() == 0)
+			return new SmithNormalForm(matrix).getInvariantFactors();
+		BigInteger[] factors = ModularNormalForms.invariantFactors(ModularHermiteForm.bigValues(matrix), matrix.getRowCount(), d);
+		ArrayList<RingElement> result = new ArrayList<RingElement>(factors.length);
+		for (BigInteger s : factors)
+			result.add(new IntegerElement(s));
+		return result;
+	}
+}
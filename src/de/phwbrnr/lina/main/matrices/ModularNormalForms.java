@@ -0,0 +1,211 @@
+/**
+ * Hermite and Smith normal forms of square regular integer matrices, computed modulo the determinant.
+ *
+ * If A is a regular n x n integer matrix and D = |det(A)|, then D Z^n is contained in the lattice L spanned by the
+ * rows of A, since D e_i is a row of adj(A) A up to sign. So rows may be reduced modulo D without changing L, and all
+ * entries stay below D, whereas the Euclidean elimination on exact integers lets them grow far beyond the size of
+ * the result (Domich, Kannan and Trotter; Cohen, Algorithm 2.4.8).
+ *
+ * Matrices are BigInteger arrays in row-major order, with entries in [0, D). The methods never modify their
+ * arguments.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.math.BigInteger;
+
+final class ModularNormalForms {
+
+	private ModularNormalForms() {
+	}
+
+	/**
+	 * @return {g, s, t} with s a + t b = g = gcd(a, b) >= 0
+	 */
+	static BigInteger[] extendedGcd(BigInteger a, BigInteger b) {
+		BigInteger r0 = a, s0 = BigInteger.ONE, t0 = BigInteger.ZERO;
+		BigInteger r1 = b, s1 = BigInteger.ZERO, t1 = BigInteger.ONE;
+		while (r1.signum() != 0) {
+			BigInteger[] qr = r0.divideAndRemainder(r1);
+			BigInteger s = s0.subtract(qr[0].multiply(s1)), t = t0.subtract(qr[0].multiply(t1));
+			r0 = r1;
+			s0 = s1;
+			t0 = t1;
+			r1 = qr[1];
+			s1 = s;
+			t1 = t;
+		}
+		if (r0.signum() < 0)
+			return new BigInteger[] { r0.negate(), s0.negate(), t0.negate() };
+		return new BigInteger[] { r0, s0, t0 };
+	}
+
+	/**
+	 * @return the entries reduced into [0, d)
+	 */
+	static BigInteger[] reduce(BigInteger[] a, BigInteger d) {
+		BigInteger[] result = new BigInteger[a.length];
+		for (int i = 0; i < a.length; i++)
+			result[i] = a[i].mod(d);
+		return result;
+	}
+
+	/**
+	 * Replace rows i and j by a row_i + b row_j and c row_i + d row_j modulo the modulus, in the columns from on.
+	 */
+	private static void combineRows(BigInteger[] m, int columns, int i, int j, BigInteger a, BigInteger b, BigInteger c, BigInteger d, int from, BigInteger modulus) {
+		for (int l = from; l < columns; l++) {
+			BigInteger x = m[i * columns + l], y = m[j * columns + l];
+			if (x.signum() == 0 && y.signum() == 0)
+				continue;
+			m[i * columns + l] = a.multiply(x).add(b.multiply(y)).mod(modulus);
+			m[j * columns + l] = c.multiply(x).add(d.multiply(y)).mod(modulus);
+		}
+	}
+
+	private static void combineColumns(BigInteger[] m, int rows, int columns, int i, int j, BigInteger a, BigInteger b, BigInteger c, BigInteger d, BigInteger modulus) {
+		for (int l = 0; l < rows; l++) {
+			BigInteger x = m[l * columns + i], y = m[l * columns + j];
+			if (x.signum() == 0 && y.signum() == 0)
+				continue;
+			m[l * columns + i] = a.multiply(x).add(b.multiply(y)).mod(modulus);
+			m[l * columns + j] = c.multiply(x).add(d.multiply(y)).mod(modulus);
+		}
+	}
+
+	private static <T> void swap(T[] m, int i, int j) {
+		T t = m[i];
+		m[i] = m[j];
+		m[j] = t;
+	}
+
+	/**
+	 * Compute the Hermite normal form of the lattice spanned by the rows of a regular n x n matrix.
+	 * @param d a positive multiple of |det(a)|
+	 * @return the upper triangular Hermite normal form, with positive pivots and the entries above each pivot in
+	 * [0, pivot)
+	 */
+	static BigInteger[] hermite(BigInteger[] a, int n, BigInteger d) {
+		BigInteger[] h = reduce(a, d);
+		BigInteger modulus = d;
+		for (int c = 0; c < n; c++) {
+			for (int i = c + 1; i < n; i++) {
+				BigInteger y = h[i * n + c];
+				if (y.signum() == 0)
+					continue;
+				BigInteger x = h[c * n + c];
+				if (x.signum() == 0) {
+					for (int l = c; l < n; l++)
+						swap(h, c * n + l, i * n + l);
+					continue;
+				}
+				BigInteger[] gst = extendedGcd(x, y);
+				combineRows(h, n, c, i, gst[1], gst[2], y.divide(gst[0]).negate(), x.divide(gst[0]), c, modulus);
+			}
+
+			/* the pivot is the gcd of the column and the modulus: s x + t R = g, so s row_c + t R e_c lies in L */
+			BigInteger[] gst = extendedGcd(h[c * n + c], modulus);
+			for (int l = c + 1; l < n; l++)
+				h[c * n + l] = gst[1].multiply(h[c * n + l]).mod(modulus);
+			h[c * n + c] = gst[0];
+			/* the lattice of the remaining columns has determinant |det(a)| / g, and contains R / g times Z^(n-c-1) */
+			modulus = modulus.divide(gst[0]);
+			for (int i = c + 1; i < n; i++)
+				for (int l = c + 1; l < n; l++)
+					h[i * n + l] = h[i * n + l].mod(modulus);
+		}
+
+		/* reduce the entries above each pivot exactly */
+		for (int c = 1; c < n; c++) {
+			BigInteger pivot = h[c * n + c];
+			for (int i = 0; i < c; i++) {
+				BigInteger q = h[i * n + c].divide(pivot);
+				if (h[i * n + c].signum() < 0 && !q.multiply(pivot).equals(h[i * n + c]))
+					q = q.subtract(BigInteger.ONE);
+				if (q.signum() == 0)
+					continue;
+				for (int l = c; l < n; l++)
+					h[i * n + l] = h[i * n + l].subtract(q.multiply(h[c * n + l]));
+			}
+		}
+		return h;
+	}
+
+	/**
+	 * Compute the invariant factors of a regular n x n matrix: its Smith normal form is computed over Z / d Z,
+	 * where every pivot g is replaced by gcd(g, d), which adds the lattice vector d e_k to the pivot row.
+	 * @param d a positive multiple of |det(a)|
+	 * @return the invariant factors s_1 | s_2 | ... | s_n
+	 */
+	static BigInteger[] invariantFactors(BigInteger[] a, int n, BigInteger d) {
+		BigInteger[] m = reduce(a, d);
+		BigInteger[] result = new BigInteger[n];
+		for (int k = 0; k < n; k++) {
+			int pivotRow = -1, pivotColumn = -1;
+			for (int i = k; i < n; i++) {
+				for (int j = k; j < n; j++) {
+					BigInteger x = m[i * n + j];
+					if (x.signum() != 0 && (pivotRow < 0 || x.compareTo(m[pivotRow * n + pivotColumn]) < 0)) {
+						pivotRow = i;
+						pivotColumn = j;
+					}
+				}
+			}
+			if (pivotRow < 0) {
+				for (int i = k; i < n; i++)
+					result[i] = d;
+				break;
+			}
+			for (int l = 0; l < n; l++)
+				swap(m, pivotRow * n + l, k * n + l);
+			for (int l = 0; l < n; l++)
+				swap(m, l * n + pivotColumn, l * n + k);
+
+			while (true) {
+				boolean clear = true;
+				for (int i = k + 1; i < n; i++) {
+					BigInteger y = m[i * n + k];
+					if (y.signum() == 0)
+						continue;
+					BigInteger x = m[k * n + k];
+					BigInteger[] gst = extendedGcd(x, y);
+					combineRows(m, n, k, i, gst[1], gst[2], y.divide(gst[0]).negate(), x.divide(gst[0]), k, d);
+				}
+				for (int j = k + 1; j < n; j++) {
+					BigInteger y = m[k * n + j];
+					if (y.signum() == 0)
+						continue;
+					BigInteger x = m[k * n + k];
+					if (y.mod(x).signum() == 0) {
+						/* col_j <- col_j - (y / x) col_k keeps the column below the pivot clear */
+						combineColumns(m, n, n, k, j, BigInteger.ONE, BigInteger.ZERO, y.divide(x).negate(), BigInteger.ONE, d);
+						continue;
+					}
+					BigInteger[] gst = extendedGcd(x, y);
+					combineColumns(m, n, n, k, j, gst[1], gst[2], y.divide(gst[0]).negate(), x.divide(gst[0]), d);
+					clear = false;
+				}
+				if (!clear)
+					continue;
+
+				BigInteger g = m[k * n + k].gcd(d);
+				m[k * n + k] = g;
+				int bad = -1;
+				for (int i = k + 1; i < n && bad < 0; i++)
+					for (int j = k + 1; j < n; j++)
+						if (m[i * n + j].mod(g).signum() != 0) {
+							bad = i;
+							break;
+						}
+				if (bad < 0)
+					break;
+				/* row_k <- row_k + row_bad, and the next round reduces the pivot */
+				for (int l = k + 1; l < n; l++)
+					m[k * n + l] = m[k * n + l].add(m[bad * n + l]).mod(d);
+			}
+			result[k] = m[k * n + k];
+		}
+		return result;
+	}
+}
@@ -0,0 +1,95 @@
+/**
+ * Characteristic polynomials of integer matrices by multi-modular computation.
+ *
+ * The coefficient of x^(n-k) in det(x I - A) is, up to sign, the sum of the principal k x k minors of A. By
+ * Hadamard's inequality, a minor on the rows S is at most the product of the euclidean norms |a_i| of these rows, so
+ * all coefficients are bounded by the product of (1 + |a_i|) over all rows. The characteristic polynomial is computed
+ * modulo enough primes below 2^31 that their product exceeds twice this bound, each time by Hessenberg reduction over
+ * F_p (see PrimeFieldMatrixArithmetic), and recovered by Chinese remaindering into the symmetric range. The
+ * characteristic polynomial commutes with the reduction modulo p, so there are no unlucky primes, and the images are
+ * computed in parallel by the MultiModularStrategy template.
+ *
+ * This takes O(n^3) operations on residues per prime, and the number of primes grows like n log(n |A|), while the
+ * division-free algorithm works on integers of that size throughout.
+ *
+ * The problem instance is a square Matrix over the IntegerRing; the result is the monic Polynomial det(x I - A) over
+ * the integers.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.math.BigInteger;
+
+import de.phwbrnr.lina.main.fields.IntegerRing;
+import de.phwbrnr.lina.main.fields.MultiModularStrategy;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.polynomials.Polynomial;
+
+public class MultiModularCharacteristicPolynomial extends MultiModularStrategy<RingElement> {
+
+	@Override
+	public String getDescription() {
+		return "Compute the characteristic polynomial of an integer matrix modulo many primes";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		return problem.length == 1 && problem[0] instanceof Matrix && ((Matrix)problem[0]).isSquare()
+				&& ((Matrix)problem[0]).getCoefficientRing() instanceof IntegerRing;
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		Matrix matrix = (Matrix)problem[0];
+		double n = matrix.getRowCount();
+		double primes = boundBits(ModularHermiteForm.bigValues(matrix), matrix.getRowCount()) / 30.0 + 1;
+		/* one Hessenberg reduction per prime, and the quadratic Chinese remaindering of n + 1 coefficients */
+		return costFromOperations(primes * 4 * n * n * n + primes * primes * (n + 1));
+	}
+
+	@Override
+	protected Object[] prepare(Object... problem) {
+		Matrix matrix = (Matrix)problem[0];
+		return new Object[] { matrix, ModularHermiteForm.bigValues(matrix) };
+	}
+
+	@Override
+	protected long[] image(long p, Object... instance) {
+		Matrix matrix = (Matrix)instance[0];
+		BigInteger[] a = (BigInteger[])instance[1];
+		BigInteger bp = BigInteger.valueOf(p);
+		long[] residues = new long[a.length];
+		for (int i = 0; i < a.length; i++)
+			residues[i] = a[i].mod(bp).longValue();
+		return PrimeFieldMatrixArithmetic.characteristicPolynomial(residues, matrix.getRowCount(), p);
+	}
+
+	@Override
+	protected long coordinateBits(Object... instance) {
+		return boundBits((BigInteger[])instance[1], ((Matrix)instance[0]).getRowCount());
+	}
+
+	@Override
+	protected RingElement assemble(RingElement[] coordinates, Object... instance) {
+		return new Polynomial(IntegerRing.getInstance(), coordinates);
+	}
+
+	/**
+	 * @return an upper bound for the bit length of the product of 1 + |a_i| over the rows a_i of an n x n matrix
+	 */
+	private static long boundBits(BigInteger[] a, int n) {
+		long bits = 1;
+		for (int i = 0; i < n; i++) {
+			BigInteger norm = BigInteger.ZERO;
+			for (int j = 0; j < n; j++)
+				norm = norm.add(a[i * n + j].multiply(a[i * n + j]));
+			/* 1 + |a_i| <= 2 |a_i| for nonzero rows */
+			if (norm.signum() != 0)
+				bits += 1 + (norm.bitLength() + 1) / 2;
+		}
+		return bits;
+	}
+}
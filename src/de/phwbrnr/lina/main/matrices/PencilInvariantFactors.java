@@ -0,0 +1,157 @@
+/**
+ * Invariant factors of matrix pencils x B + A over F_p[x] with a regular B, like the characteristic matrix x I - C,
+ * without any elimination on polynomials.
+ *
+ * Since x B + A = B (x I - C) for C = -B^(-1) A and B is invertible over F_p[x], the pencil has the invariant factors
+ * of x I - C, that is, of C as a linear map. They are read off from the structure of C:
+ *   1. the characteristic polynomial of C is computed by Hessenberg reduction and factored over F_p;
+ *   2. an irreducible factor f of multiplicity one only divides the last invariant factor, once;
+ *   3. for a factor f of degree d and multiplicity m > 1, the number of invariant factors divisible by f^k is
+ *      (dim ker f(C)^k - dim ker f(C)^(k-1)) / d, and the ranks of f(C)^k are computed until the kernel has
+ *      dimension m d.
+ * This takes O(n^3) operations on residues, besides the factorization of a polynomial of degree n, whereas the
+ * Euclidean Smith normal form works on polynomials whose degrees grow with every step.
+ *
+ * The problem instance is a square Matrix over a FieldPolynomialRing over a PrimeField, with entries of degree at
+ * most one; the result lists its invariant factors s_1 | s_2 | ... | s_n, monic, with the leading ones included. If
+ * the coefficient matrix B of x is singular, the Euclidean Smith normal form is computed instead.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.ArrayList;
+
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.PrimeFieldElement;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.polynomials.FieldPolynomialRing;
+import de.phwbrnr.lina.main.polynomials.Polynomial;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+import de.phwbrnr.lina.main.strategies.NoStrategyException;
+
+public class PencilInvariantFactors extends AbstractStrategy<ArrayList<RingElement>> {
+
+	@Override
+	public String getDescription() {
+		return "Compute the invariant factors of a matrix pencil over a prime field from the characteristic polynomial";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		if (problem.length != 1 || !(problem[0] instanceof Matrix) || !((Matrix)problem[0]).isSquare())
+			return false;
+		Matrix matrix = (Matrix)problem[0];
+		if (!(matrix.getCoefficientRing() instanceof FieldPolynomialRing)
+				|| !(((FieldPolynomialRing)matrix.getCoefficientRing()).getCoefficientRing() instanceof PrimeField))
+			return false;
+		for (RingElement x : matrix.entries())
+			if (x instanceof Polynomial && ((Polynomial)x).getDegree() > 1)
+				return false;
+		return true;
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		double n = ((Matrix)problem[0]).getRowCount();
+		/* inversion, product, Hessenberg reduction and a few ranks and products for repeated factors */
+		return costFromOperations(6 * n * n * n);
+	}
+
+	@Override
+	public ArrayList<RingElement> execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a square matrix of polynomials of degree at most one over a prime field");
+		Matrix matrix = (Matrix)problem[0];
+		FieldPolynomialRing ring = (FieldPolynomialRing)matrix.getCoefficientRing();
+		PrimeField field = (PrimeField)ring.getCoefficientRing();
+		long p = field.getCharacteristic();
+		int n = matrix.getRowCount();
+
+		RingElement[] entries = matrix.entries();
+		long[] a = new long[n * n], b = new long[n * n];
+		for (int i = 0; i < entries.length; i++) {
+			if (entries[i] instanceof Polynomial) {
+				Polynomial f = (Polynomial)entries[i];
+				a[i] = ((PrimeFieldElement)f.getCoefficient(0)).getValue();
+				b[i] = ((PrimeFieldElement)f.getCoefficient(1)).getValue();
+			} else {
+				a[i] = ((PrimeFieldElement)entries[i]).getValue();
+			}
+		}
+		long[] bInverse = PrimeFieldMatrixArithmetic.inverse(b, n, p);
+		if (bInverse == null)
+			return new SmithNormalForm(matrix).getInvariantFactors();
+		long[] c = PrimeFieldMatrixArithmetic.negate(PrimeFieldMatrixArithmetic.multiply(bInverse, a, n, n, n, p), p);
+
+		try {
+			RingElement[] invariantFactors = new RingElement[n];
+			for (int i = 0; i < n; i++)
+				invariantFactors[i] = ring.getOne();
+			if (n > 0) {
+				ArrayList<RingElement> factors = ring.factor().compute(toPolynomial(field, PrimeFieldMatrixArithmetic.characteristicPolynomial(c, n, p)));
+				for (int i = 0; i < factors.size(); ) {
+					Polynomial f = (Polynomial)factors.get(i);
+					int multiplicity = 1;
+					while (i + multiplicity < factors.size() && factors.get(i + multiplicity).equals(f))
+						multiplicity++;
+					i += multiplicity;
+					if (f.getDegree() < 1)
+						continue;
+					int[] exponents = exponents(f, multiplicity, c, n, p);
+					for (int j = 0; j < exponents.length; j++)
+						for (int e = 0; e < exponents[j]; e++)
+							invariantFactors[n - 1 - j] = invariantFactors[n - 1 - j].multiply(f);
+				}
+			}
+			ArrayList<RingElement> result = new ArrayList<RingElement>(n);
+			for (RingElement s : invariantFactors)
+				result.add(s);
+			return result;
+		} catch (NoStrategyException ex) {
+			throw new IllegalStateException("Cannot factor the characteristic polynomial over " + field.getName(), ex);
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("Ring operations failed for the invariant factors over " + ring.getName(), ex);
+		}
+	}
+
+	/**
+	 * @return the exponents of an irreducible factor f of the characteristic polynomial of c in the invariant
+	 * factors, the last invariant factor first
+	 */
+	private static int[] exponents(Polynomial f, int multiplicity, long[] c, int n, long p) {
+		if (multiplicity == 1)
+			return new int[] { 1 };
+		int d = f.getDegree();
+		long[] coefficients = new long[d + 1];
+		for (int i = 0; i <= d; i++)
+			coefficients[i] = ((PrimeFieldElement)f.getCoefficient(i)).getValue();
+
+		/* blocks[k] is the number of invariant factors divisible by f^(k+1) */
+		ArrayList<Integer> blocks = new ArrayList<Integer>();
+		long[] fc = PrimeFieldMatrixArithmetic.evaluate(coefficients, c, n, p), power = fc;
+		int kernel = 0;
+		while (kernel < multiplicity * d) {
+			if (!blocks.isEmpty())
+				power = PrimeFieldMatrixArithmetic.multiply(power, fc, n, n, n, p);
+			int next = n - PrimeFieldMatrixArithmetic.rank(power, n, n, p);
+			blocks.add((next - kernel) / d);
+			kernel = next;
+		}
+		int[] result = new int[blocks.get(0)];
+		for (int k = 0; k < blocks.size(); k++)
+			for (int j = 0; j < blocks.get(k); j++)
+				result[j]++;
+		return result;
+	}
+
+	private static Polynomial toPolynomial(PrimeField field, long[] coefficients) {
+		RingElement[] c = new RingElement[coefficients.length];
+		for (int i = 0; i < c.length; i++)
+			c[i] = field.element(coefficients[i]);
+		return new Polynomial(field, c);
+	}
+}
@@ -0,0 +1,570 @@
+/**
+ * Arithmetic on matrices over a prime field F_p, with the entries stored as primitive residues.
+ *
+ * Matrices are long arrays in row-major order, with the entries reduced into [0, p). The prime has to be smaller than
+ * 2^31 (see PrimeField), so that the product of two residues fits into a long. The methods never modify their
+ * arguments, unless they say so.
+ *
+ * Products are the main kernel of the dense linear algebra over F_p, so they are done with care:
+ * - The classical product runs over tiles of BLOCK_DEPTH rows and BLOCK_COLUMNS columns of the right factor, which
+ *   stay in the cache while all rows of the left factor pass by.
+ * - Reductions modulo p are delayed: the products of residues are summed up in 64 bits, and only the final sums are
+ *   reduced. If the sums could overflow, a multiple of p^2 is subtracted whenever they leave the range of long,
+ *   which is a shift, an and and a subtraction instead of a division.
+ * - Above STRASSEN_THRESHOLD, the Strassen-Winograd recursion multiplies the quadrants with 7 instead of 8 products
+ *   and 15 additions.
+ * - Large products are split across cores in the common fork-join pool: the 7 products of a Strassen step, and
+ *   bands of rows of the classical product.
+ * The class and multiply() are public, so that the polynomial arithmetic over F_p can run its matrix products, like
+ * those of the Brent-Kung composition, on the same engine; everything else stays within the package.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import de.phwbrnr.lina.main.fields.PrimeFieldElement;
+
+public final class PrimeFieldMatrixArithmetic {
+	/**
+	 * The number of rows of the right factor in a tile of the classical product.
+	 */
+	static final int BLOCK_DEPTH = 64;
+	/**
+	 * The number of columns of the right factor in a tile of the classical product.
+	 */
+	static final int BLOCK_COLUMNS = 256;
+	/**
+	 * If all dimensions of a product are at least this large, it is computed by the Strassen-Winograd recursion.
+	 */
+	static final int STRASSEN_THRESHOLD = 256;
+	/**
+	 * Products with fewer multiplications of residues are not split across cores.
+	 */
+	static final long PARALLEL_THRESHOLD = 1L << 21;
+
+	private PrimeFieldMatrixArithmetic() {
+	}
+
+	/**
+	 * @return a + b, or a - b if subtract is set
+	 */
+	static long[] add(long[] a, long[] b, long p, boolean subtract) {
+		long[] result = new long[a.length];
+		for (int i = 0; i < a.length; i++) {
+			long s = subtract ? a[i] - b[i] : a[i] + b[i];
+			if (s < 0)
+				s += p;
+			else if (s >= p)
+				s -= p;
+			result[i] = s;
+		}
+		return result;
+	}
+
+	static long[] negate(long[] a, long p) {
+		long[] result = new long[a.length];
+		for (int i = 0; i < a.length; i++)
+			result[i] = a[i] == 0 ? 0 : p - a[i];
+		return result;
+	}
+
+	static long[] scale(long[] a, long c, long p) {
+		long[] result = new long[a.length];
+		if (c == 0)
+			return result;
+		for (int i = 0; i < a.length; i++)
+			result[i] = a[i] * c % p;
+		return result;
+	}
+
+	/**
+	 * @return the product of the n x m matrix a and the m x k matrix b
+	 */
+	public static long[] multiply(long[] a, long[] b, int n, int m, int k, long p) {
+		Product product = new Product(a, b, n, m, k, p);
+		if ((long)n * m * k >= PARALLEL_THRESHOLD)
+			return ForkJoinPool.commonPool().invoke(product);
+		return product.compute();
+	}
+
+	/**
+	 * The product of an n x m and an m x k matrix; by Strassen-Winograd steps as long as all dimensions are at least
+	 * STRASSEN_THRESHOLD, classically below.
+	 */
+	private static final class Product extends RecursiveTask<long[]> {
+		private static final long serialVersionUID = 1L;
+
+		private final long[] a, b;
+		private final int n, m, k;
+		private final long p;
+
+		Product(long[] a, long[] b, int n, int m, int k, long p) {
+			this.a = a;
+			this.b = b;
+			this.n = n;
+			this.m = m;
+			this.k = k;
+			this.p = p;
+		}
+
+		@Override
+		protected long[] compute() {
+			if (Math.min(n, Math.min(m, k)) < STRASSEN_THRESHOLD) {
+				long[] result = new long[n * k];
+				Band band = new Band(a, b, result, 0, n, m, k, p);
+				if ((long)n * m * k >= PARALLEL_THRESHOLD)
+					band.invoke();
+				else
+					band.compute();
+				return result;
+			}
+			return strassenWinograd();
+		}
+
+		/**
+		 * One step of the recursion, in the schedule of Winograd's variant: the factors are split into quadrants,
+		 * padded with zeros where a dimension is odd.
+		 */
+		private long[] strassenWinograd() {
+			int hn = (n + 1) / 2, hm = (m + 1) / 2, hk = (k + 1) / 2;
+			long[] a11 = quadrant(a, n, m, 0, 0, hn, hm), a12 = quadrant(a, n, m, 0, hm, hn, hm);
+			long[] a21 = quadrant(a, n, m, hn, 0, hn, hm), a22 = quadrant(a, n, m, hn, hm, hn, hm);
+			long[] b11 = quadrant(b, m, k, 0, 0, hm, hk), b12 = quadrant(b, m, k, 0, hk, hm, hk);
+			long[] b21 = quadrant(b, m, k, hm, 0, hm, hk), b22 = quadrant(b, m, k, hm, hk, hm, hk);
+
+			long[] s1 = add(a21, a22, p, false), s2 = add(s1, a11, p, true);
+			long[] s3 = add(a11, a21, p, true), s4 = add(a12, s2, p, true);
+			long[] t1 = add(b12, b11, p, true), t2 = add(b22, t1, p, true);
+			long[] t3 = add(b22, b12, p, true), t4 = add(t2, b21, p, true);
+
+			Product[] products = new Product[] {
+					new Product(a11, b11, hn, hm, hk, p), new Product(a12, b21, hn, hm, hk, p),
+					new Product(s4, b22, hn, hm, hk, p), new Product(a22, t4, hn, hm, hk, p),
+					new Product(s1, t1, hn, hm, hk, p), new Product(s2, t2, hn, hm, hk, p),
+					new Product(s3, t3, hn, hm, hk, p) };
+			long[][] q = new long[7][];
+			if ((long)n * m * k >= PARALLEL_THRESHOLD) {
+				invokeAll(products);
+				for (int i = 0; i < 7; i++)
+					q[i] = products[i].join();
+			} else {
+				for (int i = 0; i < 7; i++)
+					q[i] = products[i].compute();
+			}
+
+			long[] u2 = add(q[0], q[5], p, false), u3 = add(u2, q[6], p, false), u4 = add(u2, q[4], p, false);
+			long[] c11 = add(q[0], q[1], p, false), c12 = add(u4, q[2], p, false);
+			long[] c21 = add(u3, q[3], p, true), c22 = add(u3, q[4], p, false);
+
+			long[] result = new long[n * k];
+			place(result, n, k, c11, 0, 0, hn, hk);
+			place(result, n, k, c12, 0, hk, hn, hk);
+			place(result, n, k, c21, hn, 0, hn, hk);
+			place(result, n, k, c22, hn, hk, hn, hk);
+			return result;
+		}
+	}
+
+	/**
+	 * @return the rows x columns block of the matrix a with the given shape at (row, column), padded with zeros
+	 */
+	private static long[] quadrant(long[] a, int aRows, int aColumns, int row, int column, int rows, int columns) {
+		long[] result = new long[rows * columns];
+		int width = Math.min(columns, aColumns - column);
+		for (int i = 0; i < rows && row + i < aRows; i++)
+			System.arraycopy(a, (row + i) * aColumns + column, result, i * columns, width);
+		return result;
+	}
+
+	/**
+	 * Copy the part of a rows x columns block that lies inside the matrix a with the given shape to (row, column).
+	 */
+	private static void place(long[] a, int aRows, int aColumns, long[] block, int row, int column, int rows, int columns) {
+		int width = Math.min(columns, aColumns - column);
+		for (int i = 0; i < rows && row + i < aRows; i++)
+			System.arraycopy(block, i * columns, a, (row + i) * aColumns + column, width);
+	}
+
+	/**
+	 * The classical product for a band of rows of the left factor, which is halved as long as there is enough work
+	 * for another core.
+	 */
+	private static final class Band extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final long[] a, b, result;
+		private final int from, to, m, k;
+		private final long p;
+
+		Band(long[] a, long[] b, long[] result, int from, int to, int m, int k, long p) {
+			this.a = a;
+			this.b = b;
+			this.result = result;
+			this.from = from;
+			this.to = to;
+			this.m = m;
+			this.k = k;
+			this.p = p;
+		}
+
+		@Override
+		protected void compute() {
+			if ((long)(to - from) * m * k >= 2 * PARALLEL_THRESHOLD && to - from >= 2) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Band(a, b, result, from, mid, m, k, p), new Band(a, b, result, mid, to, m, k, p));
+				return;
+			}
+			multiplyRows(a, b, result, from, to, m, k, p);
+		}
+	}
+
+	/**
+	 * Compute the rows from (inclusive) to to (exclusive) of the product of the n x m matrix a and the m x k matrix
+	 * b into result.
+	 */
+	private static void multiplyRows(long[] a, long[] b, long[] result, int from, int to, int m, int k, long p) {
+		long square = (p - 1) * (p - 1);
+		/* the sums of m products of residues fit into a long, or are brought back by subtracting a multiple of p^2 */
+		boolean exact = m <= Long.MAX_VALUE / square;
+		long excess = (Long.MAX_VALUE / (p * p)) * (p * p);
+		for (int depth = 0; depth < m; depth += BLOCK_DEPTH) {
+			int depthEnd = Math.min(m, depth + BLOCK_DEPTH);
+			for (int column = 0; column < k; column += BLOCK_COLUMNS) {
+				int columnEnd = Math.min(k, column + BLOCK_COLUMNS);
+				for (int i = from; i < to; i++) {
+					int row = i * k, l = depth;
+					/* four rows of the tile at a time, so each entry of the result is loaded and stored once for them */
+					for (; exact && l + 4 <= depthEnd; l += 4) {
+						long x0 = a[i * m + l], x1 = a[i * m + l + 1], x2 = a[i * m + l + 2], x3 = a[i * m + l + 3];
+						int o0 = l * k - row, o1 = o0 + k, o2 = o1 + k, o3 = o2 + k;
+						for (int j = row + column; j < row + columnEnd; j++)
+							result[j] += x0 * b[o0 + j] + x1 * b[o1 + j] + x2 * b[o2 + j] + x3 * b[o3 + j];
+					}
+					for (; l < depthEnd; l++) {
+						long x = a[i * m + l];
+						if (x == 0)
+							continue;
+						int offset = l * k - row;
+						if (exact) {
+							for (int j = row + column; j < row + columnEnd; j++)
+								result[j] += x * b[offset + j];
+						} else {
+							for (int j = row + column; j < row + columnEnd; j++) {
+								long t = result[j] + x * b[offset + j];
+								result[j] = t - ((t >> 63) & excess);
+							}
+						}
+					}
+				}
+			}
+		}
+		for (int j = from * k; j < to * k; j++)
+			result[j] %= p;
+	}
+
+	/**
+	 * @return the image of the vector v under the n x m matrix a
+	 */
+	static long[] apply(long[] a, long[] v, int n, int m, long p) {
+		long[] result = new long[n];
+		for (int i = 0; i < n; i++) {
+			long s = 0;
+			for (int j = 0; j < m; j++)
+				s = (s + a[i * m + j] * v[j]) % p;
+			result[i] = s;
+		}
+		return result;
+	}
+
+	/**
+	 * @return the product a^T b of the transpose of the n x k matrix a and the n x l matrix b, a k x l matrix; meant
+	 * for tall blocks of vectors, with n much larger than k and l
+	 */
+	static long[] transposeMultiply(long[] a, long[] b, int n, int k, int l, long p) {
+		long[] result = new long[k * l];
+		long square = (p - 1) * (p - 1);
+		boolean exact = n <= Long.MAX_VALUE / square;
+		long excess = (Long.MAX_VALUE / (p * p)) * (p * p);
+		for (int i = 0; i < n; i++) {
+			for (int x = 0; x < k; x++) {
+				long y = a[i * k + x];
+				if (y == 0)
+					continue;
+				int row = x * l, offset = i * l;
+				if (exact) {
+					for (int j = 0; j < l; j++)
+						result[row + j] += y * b[offset + j];
+				} else {
+					for (int j = 0; j < l; j++) {
+						long t = result[row + j] + y * b[offset + j];
+						result[row + j] = t - ((t >> 63) & excess);
+					}
+				}
+			}
+		}
+		for (int j = 0; j < result.length; j++)
+			result[j] %= p;
+		return result;
+	}
+
+	/**
+	 * Bring a rows x columns matrix into reduced row echelon form, in place.
+	 * @return the pivot columns, ascending
+	 */
+	static int[] reduce(long[] m, int rows, int columns, long p) {
+		int[] pivots = new int[Math.min(rows, columns)];
+		int r = 0;
+		for (int c = 0; c < columns && r < rows; c++) {
+			int pivot = r;
+			while (pivot < rows && m[pivot * columns + c] == 0)
+				pivot++;
+			if (pivot == rows)
+				continue;
+			swapRows(m, columns, pivot, r);
+			long inverse = PrimeFieldElement.inverse(m[r * columns + c], p);
+			for (int j = c; j < columns; j++)
+				m[r * columns + j] = m[r * columns + j] * inverse % p;
+			for (int i = 0; i < rows; i++) {
+				long f = m[i * columns + c];
+				if (i == r || f == 0)
+					continue;
+				f = p - f;
+				for (int j = c; j < columns; j++)
+					m[i * columns + j] = (m[i * columns + j] + f * m[r * columns + j]) % p;
+			}
+			pivots[r++] = c;
+		}
+		return Arrays.copyOf(pivots, r);
+	}
+
+	/**
+	 * @return a basis of the kernel of a rows x columns matrix, as the columns of a columns x k matrix, where k is
+	 * the dimension of the kernel
+	 */
+	static long[] kernel(long[] a, int rows, int columns, long p) {
+		long[] m = a.clone();
+		int[] pivots = reduce(m, rows, columns, p);
+		int k = columns - pivots.length;
+		long[] result = new long[columns * k];
+		boolean[] isPivot = new boolean[columns];
+		for (int c : pivots)
+			isPivot[c] = true;
+		/* every free column f gives the kernel vector e_f - sum_i m_(i,f) e_(pivot i) */
+		for (int f = 0, l = 0; f < columns; f++) {
+			if (isPivot[f])
+				continue;
+			result[f * k + l] = 1 % p;
+			for (int i = 0; i < pivots.length; i++)
+				result[pivots[i] * k + l] = (p - m[i * columns + f]) % p;
+			l++;
+		}
+		return result;
+	}
+
+	/**
+	 * Invert an n x n matrix by Gauss-Jordan elimination.
+	 * @return the inverse, or null if the matrix is singular
+	 */
+	static long[] inverse(long[] a, int n, long p) {
+		long[] m = a.clone();
+		long[] result = new long[n * n];
+		for (int i = 0; i < n; i++)
+			result[i * n + i] = 1 % p;
+		for (int c = 0; c < n; c++) {
+			int pivot = c;
+			while (pivot < n && m[pivot * n + c] == 0)
+				pivot++;
+			if (pivot == n)
+				return null;
+			swapRows(m, n, pivot, c);
+			swapRows(result, n, pivot, c);
+			long inverse = PrimeFieldElement.inverse(m[c * n + c], p);
+			for (int j = 0; j < n; j++) {
+				m[c * n + j] = m[c * n + j] * inverse % p;
+				result[c * n + j] = result[c * n + j] * inverse % p;
+			}
+			for (int i = 0; i < n; i++) {
+				long f = m[i * n + c];
+				if (i == c || f == 0)
+					continue;
+				f = p - f;
+				for (int j = 0; j < n; j++) {
+					m[i * n + j] = (m[i * n + j] + f * m[c * n + j]) % p;
+					result[i * n + j] = (result[i * n + j] + f * result[c * n + j]) % p;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the determinant of an n x n matrix, by Gaussian elimination
+	 */
+	static long determinant(long[] a, int n, long p) {
+		long[] m = a.clone();
+		long result = 1 % p;
+		for (int c = 0; c < n; c++) {
+			int pivot = c;
+			while (pivot < n && m[pivot * n + c] == 0)
+				pivot++;
+			if (pivot == n)
+				return 0;
+			if (pivot != c) {
+				swapRows(m, n, pivot, c);
+				result = p - result;
+			}
+			long d = m[c * n + c];
+			result = result * d % p;
+			long inverse = PrimeFieldElement.inverse(d, p);
+			for (int i = c + 1; i < n; i++) {
+				long f = m[i * n + c];
+				if (f == 0)
+					continue;
+				f = p - f * inverse % p;
+				for (int j = c + 1; j < n; j++)
+					m[i * n + j] = (m[i * n + j] + f * m[c * n + j]) % p;
+			}
+		}
+		return result % p;
+	}
+
+	/**
+	 * @return the rank of a rows x columns matrix, by Gaussian elimination
+	 */
+	static int rank(long[] a, int rows, int columns, long p) {
+		long[] m = a.clone();
+		int r = 0;
+		for (int c = 0; c < columns && r < rows; c++) {
+			int pivot = r;
+			while (pivot < rows && m[pivot * columns + c] == 0)
+				pivot++;
+			if (pivot == rows)
+				continue;
+			swapRows(m, columns, pivot, r);
+			long inverse = PrimeFieldElement.inverse(m[r * columns + c], p);
+			for (int i = r + 1; i < rows; i++) {
+				long f = m[i * columns + c];
+				if (f == 0)
+					continue;
+				f = p - f * inverse % p;
+				for (int j = c + 1; j < columns; j++)
+					m[i * columns + j] = (m[i * columns + j] + f * m[r * columns + j]) % p;
+			}
+			r++;
+		}
+		return r;
+	}
+
+	/**
+	 * Compute the characteristic polynomial det(x I - A) of an n x n matrix in O(n^3): A is reduced to an upper
+	 * Hessenberg matrix H by similarity transformations, and the characteristic polynomials p_m of the leading m x m
+	 * blocks of H satisfy
+	 *   p_m = (x - h_mm) p_(m-1) - sum_(i < m) h_im h_(i+1,i) ... h_(m,m-1) p_(i-1).
+	 * @return the coefficients, the constant one first; the polynomial is monic of degree n
+	 */
+	static long[] characteristicPolynomial(long[] a, int n, long p) {
+		long[] h = a.clone();
+		for (int c = 0; c + 2 < n; c++) {
+			int pivot = c + 1;
+			while (pivot < n && h[pivot * n + c] == 0)
+				pivot++;
+			if (pivot == n)
+				continue;
+			if (pivot != c + 1) {
+				swapRows(h, n, pivot, c + 1);
+				for (int i = 0; i < n; i++) {
+					long t = h[i * n + pivot];
+					h[i * n + pivot] = h[i * n + c + 1];
+					h[i * n + c + 1] = t;
+				}
+			}
+			long inverse = PrimeFieldElement.inverse(h[(c + 1) * n + c], p);
+			for (int k = c + 2; k < n; k++) {
+				long u = h[k * n + c] * inverse % p;
+				if (u == 0)
+					continue;
+				/* row_k -= u row_(c+1), then col_(c+1) += u col_k, which keeps the matrix similar */
+				for (int j = c; j < n; j++)
+					h[k * n + j] = (h[k * n + j] + (p - u) * h[(c + 1) * n + j]) % p;
+				for (int i = 0; i < n; i++)
+					h[i * n + c + 1] = (h[i * n + c + 1] + u * h[i * n + k]) % p;
+			}
+		}
+
+		long[][] polynomials = new long[n + 1][];
+		polynomials[0] = new long[] { 1 % p };
+		for (int m = 1; m <= n; m++) {
+			long[] previous = polynomials[m - 1], next = new long[m + 1];
+			long diagonal = h[(m - 1) * n + m - 1];
+			for (int j = 0; j < m; j++) {
+				next[j + 1] = (next[j + 1] + previous[j]) % p;
+				next[j] = (next[j] + (p - diagonal) * previous[j]) % p;
+			}
+			long product = 1 % p;
+			for (int i = m - 1; i >= 1; i--) {
+				product = product * h[i * n + i - 1] % p;
+				if (product == 0)
+					break;
+				long f = h[(i - 1) * n + m - 1] * product % p;
+				if (f == 0)
+					continue;
+				long[] q = polynomials[i - 1];
+				for (int j = 0; j < q.length; j++)
+					next[j] = (next[j] + (p - f) * q[j]) % p;
+			}
+			polynomials[m] = next;
+		}
+		return polynomials[n];
+	}
+
+	/**
+	 * Evaluate a polynomial at an n x n matrix by the method of Paterson and Stockmeyer: with the powers A^0, ...,
+	 * A^s for s about sqrt(deg f), f(A) is a polynomial in A^s whose coefficients are combinations of these powers,
+	 * so only about 2 sqrt(deg f) matrix products are needed.
+	 * @param f the coefficients, the constant one first
+	 */
+	static long[] evaluate(long[] f, long[] a, int n, long p) {
+		int degree = f.length - 1;
+		long[] result = new long[n * n];
+		if (degree < 0)
+			return result;
+		int s = Math.max(1, (int)Math.ceil(Math.sqrt(degree + 1)));
+		long[][] powers = new long[s + 1][];
+		powers[0] = new long[n * n];
+		for (int i = 0; i < n; i++)
+			powers[0][i * n + i] = 1 % p;
+		for (int i = 1; i <= s; i++)
+			powers[i] = i == 1 ? a.clone() : multiply(powers[i - 1], a, n, n, n, p);
+		for (int block = degree / s; block >= 0; block--) {
+			if (block != degree / s)
+				result = multiply(result, powers[s], n, n, n, p);
+			for (int i = 0; i < s && block * s + i <= degree; i++) {
+				long c = f[block * s + i];
+				if (c == 0)
+					continue;
+				long[] power = powers[i];
+				for (int j = 0; j < result.length; j++)
+					result[j] = (result[j] + c * power[j]) % p;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Swap two rows of a matrix with the given number of columns in place.
+	 */
+	static void swapRows(long[] a, int columns, int i, int j) {
+		if (i == j)
+			return;
+		for (int l = 0; l < columns; l++) {
+			long t = a[i * columns + l];
+			a[i * columns + l] = a[j * columns + l];
+			a[j * columns + l] = t;
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/**
+ * The Smith normal form of a matrix over a Euclidean ring, with unimodular transformations from both sides.
+ *
+ * The Smith normal form of A is the diagonal matrix S = U A V, for invertible U and V, whose diagonal entries
+ * s_1 | s_2 | ... | s_r are normalized and nonzero, followed by zeros. The s_i are the invariant factors of A; they
+ * are unique, and describe the module R^n / (rows of A) as the sum of the cyclic modules R / (s_i) and a free part.
+ *
+ * The entry of smallest degree is moved to the pivot position, and its row and column are cleared by 2 x 2
+ * transformations from the extended Euclidean algorithm, until both are zero. If the pivot does not divide some
+ * remaining entry, the row of that entry is added to the pivot row and the step is repeated; the degree of the pivot
+ * decreases each time, so this terminates. The elimination is done once, in the constructor.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.ArrayList;
+
+import de.phwbrnr.lina.main.fields.EuclideanRing;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+public class SmithNormalForm {
+	private EuclideanRing ring;
+	private int rows, columns;
+	private RingElement[] smith, left, right;
+	private int rank;
+
+	/**
+	 * @throws IllegalArgumentException if the entries are not from a Euclidean ring
+	 * @throws IllegalStateException if the ring operations fail
+	 */
+	public SmithNormalForm(Matrix matrix) {
+		if (!(matrix.getCoefficientRing() instanceof EuclideanRing))
+			throw new IllegalArgumentException("The Smith normal form needs a Euclidean ring, but got " + matrix.getCoefficientRing().getName());
+		ring = (EuclideanRing)matrix.getCoefficientRing();
+		rows = matrix.getRowCount();
+		columns = matrix.getColumnCount();
+		smith = matrix.entries().clone();
+		left = Matrix.identity(ring, rows).entries().clone();
+		right = Matrix.identity(ring, columns).entries().clone();
+		try {
+			eliminate();
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("Ring operations failed in the Smith normal form over " + ring.getName(), ex);
+		}
+	}
+
+	private void eliminate() throws OperationUndefinedException {
+		RingElement[] m = smith;
+		for (int k = 0; k < Math.min(rows, columns); k++) {
+			/* the entry of smallest degree becomes the pivot */
+			int pivotRow = -1, pivotColumn = -1, degree = 0;
+			for (int i = k; i < rows; i++) {
+				for (int j = k; j < columns; j++) {
+					RingElement x = m[i * columns + j];
+					if (!x.isZero() && (pivotRow < 0 || ring.degree(x) < degree)) {
+						degree = ring.degree(x);
+						pivotRow = i;
+						pivotColumn = j;
+					}
+				}
+			}
+			if (pivotRow < 0)
+				break;
+			if (pivotRow != k) {
+				MatrixArithmetic.swapRows(m, columns, pivotRow, k);
+				MatrixArithmetic.swapRows(left, rows, pivotRow, k);
+			}
+			if (pivotColumn != k) {
+				EuclideanMatrixArithmetic.swapColumns(m, rows, columns, pivotColumn, k);
+				EuclideanMatrixArithmetic.swapColumns(right, columns, columns, pivotColumn, k);
+			}
+
+			boolean done = false;
+			while (!done) {
+				clearColumn(k);
+				if (!clearRow(k))
+					continue;
+				done = true;
+				RingElement pivot = m[k * columns + k];
+				for (int i = k + 1; i < rows && done; i++) {
+					for (int j = k + 1; j < columns; j++) {
+						RingElement x = m[i * columns + j];
+						if (!x.isZero() && !ring.remainder_division(x, pivot)[1].isZero()) {
+							/* row_k <- row_k + row_i brings x into the pivot row, where the next round reduces it */
+							RingElement one = ring.getOne(), zero = ring.getZero();
+							EuclideanMatrixArithmetic.combineRows(m, columns, k, i, one, one, zero, one, k);
+							EuclideanMatrixArithmetic.combineRows(left, rows, k, i, one, one, zero, one, 0);
+							done = false;
+							break;
+						}
+					}
+				}
+			}
+			RingElement unit = EuclideanMatrixArithmetic.unit(ring, m[k * columns + k]);
+			if (!unit.isOne()) {
+				EuclideanMatrixArithmetic.scaleRow(m, columns, k, unit);
+				EuclideanMatrixArithmetic.scaleRow(left, rows, k, unit);
+			}
+			rank = k + 1;
+		}
+	}
+
+	/**
+	 * Clear the column below the pivot (k, k) by row operations.
+	 */
+	private void clearColumn(int k) throws OperationUndefinedException {
+		RingElement[] m = smith;
+		for (int i = k + 1; i < rows; i++) {
+			RingElement a = m[k * columns + k], b = m[i * columns + k];
+			if (b.isZero())
+				continue;
+			if (ring.remainder_division(b, a)[1].isZero()) {
+				RingElement q = b.divide(a);
+				EuclideanMatrixArithmetic.subtractRow(m, columns, i, k, q, k);
+				EuclideanMatrixArithmetic.subtractRow(left, rows, i, k, q, 0);
+				continue;
+			}
+			RingElement[] gst = EuclideanMatrixArithmetic.extendedGcd(ring, a, b);
+			RingElement x = b.divide(gst[0]).negative(), y = a.divide(gst[0]);
+			EuclideanMatrixArithmetic.combineRows(m, columns, k, i, gst[1], gst[2], x, y, k);
+			EuclideanMatrixArithmetic.combineRows(left, rows, k, i, gst[1], gst[2], x, y, 0);
+		}
+	}
+
+	/**
+	 * Clear the row right of the pivot (k, k) by column operations.
+	 * @return whether the column below the pivot is still clear
+	 */
+	private boolean clearRow(int k) throws OperationUndefinedException {
+		RingElement[] m = smith;
+		boolean clear = true;
+		for (int j = k + 1; j < columns; j++) {
+			RingElement a = m[k * columns + k], b = m[k * columns + j];
+			if (b.isZero())
+				continue;
+			RingElement s, t, x, y;
+			if (ring.remainder_division(b, a)[1].isZero()) {
+				/* col_j <- col_j - q col_k keeps the column below the pivot clear */
+				s = ring.getOne();
+				t = ring.getZero();
+				x = b.divide(a).negative();
+				y = ring.getOne();
+			} else {
+				RingElement[] gst = EuclideanMatrixArithmetic.extendedGcd(ring, a, b);
+				s = gst[1];
+				t = gst[2];
+				x = b.divide(gst[0]).negative();
+				y = a.divide(gst[0]);
+				clear = false;
+			}
+			EuclideanMatrixArithmetic.combineColumns(m, rows, columns, k, j, s, t, x, y);
+			EuclideanMatrixArithmetic.combineColumns(right, columns, columns, k, j, s, t, x, y);
+		}
+		return clear;
+	}
+
+	/**
+	 * @return the Smith normal form S = U A V
+	 */
+	public Matrix getSmithForm() {
+		return new Matrix(ring, rows, columns, smith, true);
+	}
+
+	/**
+	 * @return the invertible matrix U with U A V = S
+	 */
+	public Matrix getLeftTransformation() {
+		return new Matrix(ring, rows, rows, left, true);
+	}
+
+	/**
+	 * @return the invertible matrix V with U A V = S
+	 */
+	public Matrix getRightTransformation() {
+		return new Matrix(ring, columns, columns, right, true);
+	}
+
+	public int getRank() {
+		return rank;
+	}
+
+	/**
+	 * @return the nonzero diagonal entries s_1 | s_2 | ... | s_r of the Smith normal form
+	 */
+	public ArrayList<RingElement> getInvariantFactors() {
+		ArrayList<RingElement> result = new ArrayList<RingElement>(rank);
+		for (int k = 0; k < rank; k++)
+			result.add(smith[k * columns + k]);
+		return result;
+	}
+}
@@ -0,0 +1,441 @@
+/**
+ * Represent a sparse matrix over a prime field F_p in compressed sparse row (CSR) form.
+ *
+ * Only the nonzero entries are stored: the residues in [0, p) and their columns, row after row and ascending within a
+ * row, and for every row the position where it starts. So a matrix with millions of rows and a few dozen nonzeros
+ * in each takes memory proportional to its nonzeros, where a dense Matrix would not fit at all. The transpose is
+ * built on first use, and kept.
+ *
+ * Sparse matrices are immutable. The arithmetic they are made for is the product with (blocks of) vectors, which the
+ * black box methods for sparse linear systems are built on: solve() and kernel() offer block Wiedemann and block
+ * Lanczos, and BerlekampMassey computes minimal polynomials. Products with blocks of vectors sum up the products of
+ * residues in 64 bits and reduce only the sums (see PrimeFieldMatrixArithmetic), and large ones are split into bands
+ * of rows across cores in the common fork-join pool.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.PrimeFieldElement;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.Computation;
+import de.phwbrnr.lina.main.strategies.Strategy;
+
+public class SparseMatrix {
+	/**
+	 * Products with fewer multiplications of residues are not split across cores.
+	 */
+	static final long PARALLEL_THRESHOLD = 1L << 18;
+
+	private PrimeField field;
+	private long p;
+	private int rows, columns;
+	/* row i has the entries rowStart[i] to rowStart[i + 1] - 1 */
+	private int[] rowStart, columnIndex;
+	private long[] values;
+	private SparseMatrix transpose;
+
+	/**
+	 * Create a sparse matrix from its entries as triplets (row, column, value): the values are reduced modulo p,
+	 * values at the same position are added up, and zeros are dropped.
+	 * @throws IllegalArgumentException if the arrays have different lengths or a position is outside of the matrix
+	 */
+	public SparseMatrix(PrimeField field, int rows, int columns, int[] rowIndices, int[] columnIndices, long[] values) {
+		if (rows < 0 || columns < 0)
+			throw new IllegalArgumentException("The numbers of rows and columns have to be non-negative, but got " + rows + " x " + columns);
+		if (rowIndices.length != columnIndices.length || rowIndices.length != values.length)
+			throw new IllegalArgumentException("Got " + rowIndices.length + " rows, " + columnIndices.length + " columns and " + values.length + " values for the entries");
+		this.field = field;
+		this.p = field.getCharacteristic();
+		this.rows = rows;
+		this.columns = columns;
+		int n = values.length;
+		int[] start = new int[rows + 1];
+		for (int l = 0; l < n; l++) {
+			if (rowIndices[l] < 0 || rowIndices[l] >= rows || columnIndices[l] < 0 || columnIndices[l] >= columns)
+				throw new IllegalArgumentException("Entry (" + rowIndices[l] + ", " + columnIndices[l] + ") is outside of a " + rows + " x " + columns + " matrix");
+			start[rowIndices[l] + 1]++;
+		}
+		for (int i = 0; i < rows; i++)
+			start[i + 1] += start[i];
+
+		/* distribute the entries to their rows, then sort each row by column, with the column in the upper half of a key */
+		long[] keys = new long[n];
+		int[] next = Arrays.copyOf(start, rows);
+		for (int l = 0; l < n; l++)
+			keys[next[rowIndices[l]]++] = (long)columnIndices[l] << 32 | l;
+		rowStart = new int[rows + 1];
+		columnIndex = new int[n];
+		this.values = new long[n];
+		int count = 0;
+		for (int i = 0; i < rows; i++) {
+			Arrays.sort(keys, start[i], start[i + 1]);
+			for (int l = start[i]; l < start[i + 1]; ) {
+				int column = (int)(keys[l] >>> 32);
+				long sum = 0;
+				for (; l < start[i + 1] && (int)(keys[l] >>> 32) == column; l++)
+					sum = (sum + Math.floorMod(values[(int)keys[l]], p)) % p;
+				if (sum != 0) {
+					columnIndex[count] = column;
+					this.values[count++] = sum;
+				}
+			}
+			rowStart[i + 1] = count;
+		}
+		if (count < n) {
+			columnIndex = Arrays.copyOf(columnIndex, count);
+			this.values = Arrays.copyOf(this.values, count);
+		}
+	}
+
+	/**
+	 * Create the sparse form of a dense matrix over a prime field.
+	 * @throws IllegalArgumentException if the entries are not from a prime field
+	 */
+	public SparseMatrix(Matrix matrix) {
+		if (!(matrix.getCoefficientRing() instanceof PrimeField))
+			throw new IllegalArgumentException("Sparse matrices are only defined over prime fields, not over " + matrix.getCoefficientRing().getName());
+		field = (PrimeField)matrix.getCoefficientRing();
+		p = field.getCharacteristic();
+		rows = matrix.getRowCount();
+		columns = matrix.getColumnCount();
+		long[] dense = matrix.values();
+		int count = 0;
+		for (long x : dense)
+			if (x != 0)
+				count++;
+		rowStart = new int[rows + 1];
+		columnIndex = new int[count];
+		values = new long[count];
+		count = 0;
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < columns; j++) {
+				long x = dense[i * columns + j];
+				if (x != 0) {
+					columnIndex[count] = j;
+					values[count++] = x;
+				}
+			}
+			rowStart[i + 1] = count;
+		}
+	}
+
+	/**
+	 * Wrap CSR arrays without checking or copying them: the rows have to be ascending by column, with nonzero
+	 * residues in [0, p).
+	 */
+	SparseMatrix(PrimeField field, int rows, int columns, int[] rowStart, int[] columnIndex, long[] values, boolean trusted) {
+		this.field = field;
+		this.p = field.getCharacteristic();
+		this.rows = rows;
+		this.columns = columns;
+		this.rowStart = rowStart;
+		this.columnIndex = columnIndex;
+		this.values = values;
+	}
+
+	/**
+	 * @return the prime field the entries are from
+	 */
+	public PrimeField getCoefficientRing() {
+		return field;
+	}
+
+	public int getRowCount() {
+		return rows;
+	}
+
+	public int getColumnCount() {
+		return columns;
+	}
+
+	public boolean isSquare() {
+		return rows == columns;
+	}
+
+	/**
+	 * @return the number of nonzero entries
+	 */
+	public int getNonzeroCount() {
+		return values.length;
+	}
+
+	/**
+	 * @return the entry in row i and column j, counting from 0
+	 */
+	public RingElement get(int i, int j) {
+		if (i < 0 || i >= rows || j < 0 || j >= columns)
+			throw new IndexOutOfBoundsException("Entry (" + i + ", " + j + ") is outside of a " + rows + " x " + columns + " matrix");
+		int l = Arrays.binarySearch(columnIndex, rowStart[i], rowStart[i + 1], j);
+		return field.element(l >= 0 ? values[l] : 0);
+	}
+
+	public synchronized SparseMatrix transpose() {
+		if (transpose == null) {
+			int n = values.length;
+			int[] start = new int[columns + 1];
+			for (int l = 0; l < n; l++)
+				start[columnIndex[l] + 1]++;
+			for (int j = 0; j < columns; j++)
+				start[j + 1] += start[j];
+			int[] next = Arrays.copyOf(start, columns), index = new int[n];
+			long[] transposed = new long[n];
+			/* running through the rows in order keeps the entries of every column of the transpose ascending */
+			for (int i = 0; i < rows; i++) {
+				for (int l = rowStart[i]; l < rowStart[i + 1]; l++) {
+					int position = next[columnIndex[l]]++;
+					index[position] = i;
+					transposed[position] = values[l];
+				}
+			}
+			transpose = new SparseMatrix(field, columns, rows, start, index, transposed, true);
+			transpose.transpose = this;
+		}
+		return transpose;
+	}
+
+	/**
+	 * @return the dense form of the matrix
+	 */
+	public Matrix toMatrix() {
+		long[] dense = new long[rows * columns];
+		for (int i = 0; i < rows; i++)
+			for (int l = rowStart[i]; l < rowStart[i + 1]; l++)
+				dense[i * columns + columnIndex[l]] = values[l];
+		return new Matrix(field, rows, columns, dense, true);
+	}
+
+	/**
+	 * @return the image of a vector under the matrix
+	 * @throws IllegalArgumentException if the vector does not belong to the matrix
+	 */
+	public Vector multiply(Vector vector) {
+		if (!vector.getRing().equals(field) || vector.getLength() != columns)
+			throw new IllegalArgumentException("Cannot multiply a " + rows + " x " + columns + " matrix over " + field.getName()
+					+ " with a vector of length " + vector.getLength() + " over " + vector.getRing().getName());
+		return toVector(field, apply(toValues(vector), 1));
+	}
+
+	/**
+	 * @return the product of the matrix with the columns x width matrix x, whose rows are contiguous, as a rows x width
+	 * matrix
+	 */
+	long[] apply(long[] x, int width) {
+		long[] result = new long[rows * width];
+		Rows task = new Rows(this, x, result, width, 0, rows);
+		if ((long)values.length * width >= PARALLEL_THRESHOLD)
+			ForkJoinPool.commonPool().invoke(task);
+		else
+			task.compute();
+		return result;
+	}
+
+	/**
+	 * @return the product of the transpose with the rows x width matrix x, as a columns x width matrix
+	 */
+	long[] applyTransposed(long[] x, int width) {
+		return transpose().apply(x, width);
+	}
+
+	/**
+	 * A band of rows of a product with a block of vectors, split in halves while it has enough nonzeros.
+	 */
+	private static final class Rows extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final SparseMatrix a;
+		private final long[] x, result;
+		private final int width, from, to;
+
+		Rows(SparseMatrix a, long[] x, long[] result, int width, int from, int to) {
+			this.a = a;
+			this.x = x;
+			this.result = result;
+			this.width = width;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if ((long)(a.rowStart[to] - a.rowStart[from]) * width >= 2 * PARALLEL_THRESHOLD && to - from >= 2) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Rows(a, x, result, width, from, mid), new Rows(a, x, result, width, mid, to));
+				return;
+			}
+			a.multiplyRows(x, result, width, from, to);
+		}
+	}
+
+	/**
+	 * Compute the rows from (inclusive) to to (exclusive) of the product with the columns x width matrix x into result.
+	 */
+	private void multiplyRows(long[] x, long[] result, int width, int from, int to) {
+		long square = (p - 1) * (p - 1);
+		long excess = (Long.MAX_VALUE / (p * p)) * (p * p);
+		for (int i = from; i < to; i++) {
+			int row = i * width;
+			/* the sum of a row fits into a long, or is brought back by subtracting a multiple of p^2 */
+			boolean exact = rowStart[i + 1] - rowStart[i] <= Long.MAX_VALUE / square;
+			for (int l = rowStart[i]; l < rowStart[i + 1]; l++) {
+				long y = values[l];
+				int offset = columnIndex[l] * width;
+				if (exact) {
+					for (int j = 0; j < width; j++)
+						result[row + j] += y * x[offset + j];
+				} else {
+					for (int j = 0; j < width; j++) {
+						long t = result[row + j] + y * x[offset + j];
+						result[row + j] = t - ((t >> 63) & excess);
+					}
+				}
+			}
+			for (int j = row; j < row + width; j++)
+				result[j] %= p;
+		}
+	}
+
+	/**
+	 * @return whether the matrix equals its transpose
+	 */
+	boolean isSymmetric() {
+		if (rows != columns)
+			return false;
+		SparseMatrix t = transpose();
+		return Arrays.equals(rowStart, t.rowStart) && Arrays.equals(columnIndex, t.columnIndex) && Arrays.equals(values, t.values);
+	}
+
+	/**
+	 * @return the residues of a vector over a prime field
+	 */
+	static long[] toValues(Vector vector) {
+		RingElement[] entries = vector.entries();
+		long[] result = new long[entries.length];
+		for (int i = 0; i < entries.length; i++)
+			result[i] = ((PrimeFieldElement)entries[i]).getValue();
+		return result;
+	}
+
+	static Vector toVector(PrimeField field, long[] values) {
+		RingElement[] entries = new RingElement[values.length];
+		for (int i = 0; i < values.length; i++)
+			entries[i] = field.element(values[i]);
+		return new Vector(field, entries, true);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof SparseMatrix))
+			return false;
+		SparseMatrix m = (SparseMatrix)other;
+		return m.field.equals(field) && m.rows == rows && m.columns == columns && Arrays.equals(m.rowStart, rowStart)
+				&& Arrays.equals(m.columnIndex, columnIndex) && Arrays.equals(m.values, values);
+	}
+
+	@Override
+	public int hashCode() {
+		return ((field.hashCode() * 31 + rows) * 31 + columns) * 31 + Arrays.hashCode(values);
+	}
+
+	/**
+	 * @return the shape and the nonzero entries, as in "sparse[2x3,(0,1)=5,(1,2)=1]"
+	 */
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder("sparse[").append(rows).append('x').append(columns);
+		for (int i = 0; i < rows; i++)
+			for (int l = rowStart[i]; l < rowStart[i + 1]; l++)
+				s.append(",(").append(i).append(',').append(columnIndex[l]).append(")=").append(values[l]);
+		return s.append(']').toString();
+	}
+
+	/**
+	 * Sparse linear systems: for a SparseMatrix A and a Vector b over the same prime field, a solution x of A x = b.
+	 * The strategies are randomized black box methods, which only multiply A with blocks of vectors; they throw an
+	 * IllegalStateException if the system has no solution.
+	 */
+	public static Computation<Vector> solve() {
+		return SolveComputation.getInstance();
+	}
+
+	public static class SolveComputation extends Computation<Vector> {
+		private LinkedList<Strategy<Vector>> strategies;
+		private static SolveComputation instance;
+
+		public static synchronized SolveComputation getInstance() {
+			if(instance == null)
+				instance = new SolveComputation();
+			return instance;
+		}
+
+		private SolveComputation() {
+			strategies = new LinkedList<Strategy<Vector>>();
+			strategies.add(new BlockLanczosSolver());
+			strategies.add(new BlockWiedemannSolver());
+		}
+
+		@Override
+		public String getDescription() {
+			return "Solve a sparse linear system over a prime field";
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Strategy<Vector>[] getStrategies() {
+			return (Strategy<Vector>[]) strategies.toArray(new Strategy<?>[strategies.size()]);
+		}
+
+		@Override
+		public void addStrategy(Strategy<Vector> strategy) {
+			strategies.add(strategy);
+		}
+	}
+
+	/**
+	 * Kernels: for a SparseMatrix A, linearly independent vectors z with A z = 0. Being randomized, the strategies
+	 * find a basis of the kernel with high probability, but may miss some of it when the kernel is large.
+	 */
+	public static Computation<ArrayList<Vector>> kernel() {
+		return KernelComputation.getInstance();
+	}
+
+	public static class KernelComputation extends Computation<ArrayList<Vector>> {
+		private LinkedList<Strategy<ArrayList<Vector>>> strategies;
+		private static KernelComputation instance;
+
+		public static synchronized KernelComputation getInstance() {
+			if(instance == null)
+				instance = new KernelComputation();
+			return instance;
+		}
+
+		private KernelComputation() {
+			strategies = new LinkedList<Strategy<ArrayList<Vector>>>();
+			strategies.add(new BlockLanczosKernel());
+			strategies.add(new BlockWiedemannKernel());
+		}
+
+		@Override
+		public String getDescription() {
+			return "Compute the kernel of a sparse matrix over a prime field";
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Strategy<ArrayList<Vector>>[] getStrategies() {
+			return (Strategy<ArrayList<Vector>>[]) strategies.toArray(new Strategy<?>[strategies.size()]);
+		}
+
+		@Override
+		public void addStrategy(Strategy<ArrayList<Vector>> strategy) {
+			strategies.add(strategy);
+		}
+	}
+}
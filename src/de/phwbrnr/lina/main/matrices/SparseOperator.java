@@ -0,0 +1,237 @@
+/**
+ * A square linear operator on F_p^n made from a sparse matrix, for the black box solvers, which need to apply a map
+ * to its own image.
+ *
+ * A square matrix A is taken as it is. Otherwise, and whenever a symmetric operator is needed (block Lanczos), the
+ * operator is A^T D A for a random regular diagonal matrix D: it is symmetric, and for p large compared to the number
+ * of rows it has the kernel of A with high probability, while A^T A alone can have isotropic vectors over a finite
+ * field. It is never formed; it is applied as three sparse products. Padding a matrix with fewer rows than columns
+ * with zero rows would be cheaper, but whenever its leading square part is singular, the padded matrix has nilpotent
+ * Jordan blocks, and the Krylov methods only find the kernel vectors in the image of its powers.
+ *
+ * The same happens for singular square matrices: a random sparse matrix has many Jordan blocks of size two and more
+ * for the eigenvalue 0, which hide right hand sides in their image from the Krylov space. So singular matrices are
+ * preconditioned to A^T D A as well. Over small fields, its kernel may be somewhat larger than that of A, so the
+ * callers check their results against A itself.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.PrimeFieldElement;
+
+final class SparseOperator {
+	private final SparseMatrix a;
+	private final long p;
+	/* the diagonal of D, or null if the operator is A itself */
+	private final long[] scaling;
+
+	private SparseOperator(SparseMatrix a, long[] scaling) {
+		this.a = a;
+		this.p = a.getCoefficientRing().getCharacteristic();
+		this.scaling = scaling;
+	}
+
+	/**
+	 * @return A if it is square, A^T D A otherwise
+	 */
+	static SparseOperator of(SparseMatrix a, Random random) {
+		if (a.isSquare())
+			return new SparseOperator(a, null);
+		return normal(a, random);
+	}
+
+	/**
+	 * @return A^T D A, also for square matrices, which may be singular
+	 */
+	static SparseOperator preconditioned(SparseMatrix a, Random random) {
+		return normal(a, random);
+	}
+
+	/**
+	 * @return A if it is symmetric, A^T D A otherwise
+	 */
+	static SparseOperator symmetric(SparseMatrix a, Random random) {
+		if (a.isSymmetric())
+			return new SparseOperator(a, null);
+		return normal(a, random);
+	}
+
+	private static SparseOperator normal(SparseMatrix a, Random random) {
+		long p = a.getCoefficientRing().getCharacteristic();
+		long[] scaling = new long[a.getRowCount()];
+		for (int i = 0; i < scaling.length; i++)
+			scaling[i] = 1 + Math.floorMod(random.nextLong(), p - 1);
+		return new SparseOperator(a, scaling);
+	}
+
+	SparseMatrix getMatrix() {
+		return a;
+	}
+
+	/**
+	 * @return the dimension n of the space the operator acts on, the number of columns of A
+	 */
+	int dimension() {
+		return a.getColumnCount();
+	}
+
+	/**
+	 * @return the product of the operator with the n x width matrix x
+	 */
+	long[] apply(long[] x, int width) {
+		long[] y = a.apply(x, width);
+		if (scaling == null)
+			return y;
+		scale(y, width);
+		return a.applyTransposed(y, width);
+	}
+
+	/**
+	 * @return the right hand side b' such that A x = b implies that the operator maps x to b'
+	 */
+	long[] rightHandSide(long[] b) {
+		if (scaling == null)
+			return b;
+		long[] y = b.clone();
+		scale(y, 1);
+		return a.applyTransposed(y, 1);
+	}
+
+	private void scale(long[] y, int width) {
+		for (int i = 0; i < scaling.length; i++)
+			for (int j = i * width; j < (i + 1) * width; j++)
+				y[j] = y[j] * scaling[i] % p;
+	}
+
+	/**
+	 * The kernel vectors of A found so far by a randomized search, and the rule when to stop it.
+	 *
+	 * Every round of the search takes a random n x width block W and candidates U that the Krylov method computed
+	 * from the operator applied to W, and adds the combinations z = U c + W e with A z = 0 to the basis. Write W as
+	 * W_0 + W_1 with the columns of W_0 in the kernel of A and those of W_1 in a fixed complement: U and the
+	 * coefficients (c, e) only depend on W_1, so z is a fixed kernel vector plus W_0 e, which is uniformly distributed
+	 * in the kernel for e != 0. So the rank of the coefficients e is the number of independent uniform samples of the
+	 * kernel that a round draws. If the basis only spans a proper subspace, a sample lies in it with probability at
+	 * most 1 / p; the search stops once this happened for CONFIDENCE_BITS / log_2(p) samples in a row. This is the
+	 * rank check: a round that finds nothing new does not end the search by itself, since the Krylov methods may
+	 * miss kernel vectors systematically, for example behind nilpotent Jordan blocks of the operator.
+	 */
+	static final class KernelSearch {
+		/* a search that stops early misses kernel vectors with probability below 2^-CONFIDENCE_BITS */
+		private static final int CONFIDENCE_BITS = 40;
+		private final SparseMatrix a;
+		private final int n;
+		private final long p;
+		private final int needed;
+		/* the kernel vectors found, as the rows of a matrix in reduced row echelon form with n columns */
+		private long[] basis = new long[0];
+		private int confirmed;
+
+		KernelSearch(SparseMatrix a) {
+			this.a = a;
+			this.n = a.getColumnCount();
+			this.p = a.getCoefficientRing().getCharacteristic();
+			this.needed = (int)Math.ceil(CONFIDENCE_BITS / (Math.log(p) / Math.log(2)));
+		}
+
+		/**
+		 * Add the kernel vectors among the combinations of [U | W].
+		 * @param u the candidates computed from the operator applied to W, as the columns of an n x count matrix
+		 * @param w the random n x width block
+		 * @return whether the search is complete
+		 */
+		boolean add(long[] u, int count, long[] w, int width) {
+			int columns = count + width;
+			long[] z = join(u, count, w, width, n);
+			long[] combinations = PrimeFieldMatrixArithmetic.kernel(a.apply(z, columns), a.getRowCount(), columns, p);
+			int k = combinations.length / columns;
+			int samples = PrimeFieldMatrixArithmetic.rank(Arrays.copyOfRange(combinations, count * k, columns * k), width, k, p);
+
+			int known = basis.length;
+			if (k > 0) {
+				long[] vectors = PrimeFieldMatrixArithmetic.multiply(z, combinations, n, columns, k, p);
+				long[] m = Arrays.copyOf(basis, basis.length + n * k);
+				for (int i = 0; i < n; i++)
+					for (int j = 0; j < k; j++)
+						m[basis.length + j * n + i] = vectors[i * k + j];
+				int rank = PrimeFieldMatrixArithmetic.reduce(m, m.length / n, n, p).length;
+				basis = Arrays.copyOf(m, rank * n);
+			}
+			confirmed = basis.length > known ? 0 : confirmed + samples;
+			return confirmed >= needed || basis.length == n * n;
+		}
+
+		/**
+		 * @return the kernel vectors found, in reduced row echelon form
+		 */
+		ArrayList<Vector> getVectors() {
+			return toVectors(a.getCoefficientRing(), basis, n);
+		}
+	}
+
+	/**
+	 * @param w the candidates, as the columns of an n x count matrix
+	 * @return a combination x of the candidates with A x = b, or null if there is none
+	 */
+	static long[] combine(SparseMatrix a, long[] w, int count, long[] b) {
+		int rows = a.getRowCount();
+		long p = a.getCoefficientRing().getCharacteristic();
+		long[] aw = a.apply(w, count), augmented = new long[rows * (count + 1)];
+		for (int i = 0; i < rows; i++) {
+			System.arraycopy(aw, i * count, augmented, i * (count + 1), count);
+			augmented[i * (count + 1) + count] = b[i];
+		}
+		/* a kernel vector (c, e) of [A W | b] with e != 0 gives A W (-c / e) = b */
+		long[] kernel = PrimeFieldMatrixArithmetic.kernel(augmented, rows, count + 1, p);
+		int k = kernel.length / (count + 1);
+		for (int j = 0; j < k; j++) {
+			long e = kernel[count * k + j];
+			if (e == 0)
+				continue;
+			long f = p - PrimeFieldElement.inverse(e, p);
+			long[] c = new long[count];
+			for (int i = 0; i < count; i++)
+				c[i] = kernel[i * k + j] * f % p;
+			return PrimeFieldMatrixArithmetic.multiply(w, c, w.length / count, count, 1, p);
+		}
+		return null;
+	}
+
+	/**
+	 * @return the rows of a matrix with n columns, as vectors
+	 */
+	static ArrayList<Vector> toVectors(PrimeField field, long[] rows, int n) {
+		ArrayList<Vector> result = new ArrayList<Vector>();
+		for (int i = 0; i < rows.length; i += n)
+			result.add(SparseMatrix.toVector(field, Arrays.copyOfRange(rows, i, i + n)));
+		return result;
+	}
+
+	/**
+	 * @return the n x (k + l) matrix [x | y] of an n x k matrix x and an n x l matrix y
+	 */
+	static long[] join(long[] x, int k, long[] y, int l, int n) {
+		long[] result = new long[n * (k + l)];
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(x, i * k, result, i * (k + l), k);
+			System.arraycopy(y, i * l, result, i * (k + l) + k, l);
+		}
+		return result;
+	}
+
+	/**
+	 * @return an n x width matrix of random residues
+	 */
+	static long[] randomBlock(int n, int width, long p, Random random) {
+		long[] result = new long[n * width];
+		for (int i = 0; i < result.length; i++)
+			result[i] = Math.floorMod(random.nextLong(), p);
+		return result;
+	}
+}
@@ -0,0 +1,164 @@
+/**
+ * Represent a vector over a ring, that is, a finite sequence of entries from the ring.
+ *
+ * Vectors are immutable. They are the columns that matrices act on (see Matrix.multiply(Vector)), and the rows and
+ * columns that matrices are made of. Vectors are written as "vector[x0,x1,...]".
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.matrices;
+
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+public class Vector {
+	private Ring ring;
+	private RingElement[] entries;
+
+	/**
+	 * Create the zero vector of the given length.
+	 */
+	public Vector(Ring ring, int length) {
+		if (length < 0)
+			throw new IllegalArgumentException("The length of a vector has to be non-negative, but got " + length);
+		this.ring = ring;
+		entries = new RingElement[length];
+		RingElement zero = ring.getZero();
+		for (int i = 0; i < length; i++)
+			entries[i] = zero;
+	}
+
+	/**
+	 * @param entries the entries, which are copied
+	 * @throws IllegalArgumentException if an entry does not belong to the ring
+	 */
+	public Vector(Ring ring, RingElement... entries) {
+		for (int i = 0; i < entries.length; i++) {
+			if (!ring.contains(entries[i]))
+				throw new IllegalArgumentException("Entry #" + i + " (" + entries[i].toString() + ") is not member of ring " + ring.toString());
+		}
+		this.ring = ring;
+		this.entries = entries.clone();
+	}
+
+	/**
+	 * Wrap an array of entries of the ring without checking or copying it.
+	 */
+	Vector(Ring ring, RingElement[] entries, boolean trusted) {
+		this.ring = ring;
+		this.entries = entries;
+	}
+
+	/**
+	 * @return the ring the entries are from
+	 */
+	public Ring getRing() {
+		return ring;
+	}
+
+	public int getLength() {
+		return entries.length;
+	}
+
+	/**
+	 * @return entry #i, counting from 0
+	 */
+	public RingElement get(int i) {
+		return entries[i];
+	}
+
+	/**
+	 * @return a copy of the entries
+	 */
+	public RingElement[] toArray() {
+		return entries.clone();
+	}
+
+	/**
+	 * @return the entries without copying them
+	 */
+	RingElement[] entries() {
+		return entries;
+	}
+
+	private void checkCompatible(Vector other) throws OperationUndefinedException {
+		if (!other.ring.equals(ring) || other.entries.length != entries.length)
+			throw new OperationUndefinedException("Cannot combine vector of length " + entries.length + " over " + ring.getName()
+					+ " with vector of length " + other.entries.length + " over " + other.ring.getName());
+	}
+
+	public Vector add(Vector other) throws OperationUndefinedException {
+		checkCompatible(other);
+		return new Vector(ring, MatrixArithmetic.add(entries, other.entries, false), true);
+	}
+
+	public Vector subtract(Vector other) throws OperationUndefinedException {
+		checkCompatible(other);
+		return new Vector(ring, MatrixArithmetic.add(entries, other.entries, true), true);
+	}
+
+	/**
+	 * @return the vector multiplied by a scalar from the right
+	 * @throws OperationUndefinedException if the scalar is not an element of the ring
+	 */
+	public Vector multiply(RingElement scalar) throws OperationUndefinedException {
+		if (!ring.contains(scalar))
+			throw new OperationUndefinedException("Cannot multiply vector over " + ring.getName() + " with element of " + scalar.getRing());
+		return new Vector(ring, MatrixArithmetic.scale(entries, scalar), true);
+	}
+
+	public Vector negative() {
+		return new Vector(ring, MatrixArithmetic.negate(entries), true);
+	}
+
+	/**
+	 * @return the sum of the products of the corresponding entries
+	 */
+	public RingElement dot(Vector other) throws OperationUndefinedException {
+		checkCompatible(other);
+		RingElement result = ring.getZero();
+		for (int i = 0; i < entries.length; i++)
+			result = result.add(entries[i].multiply(other.entries[i]));
+		return result;
+	}
+
+	public boolean isZero() {
+		for (RingElement x : entries)
+			if (!x.isZero())
+				return false;
+		return true;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof Vector))
+			return false;
+		Vector v = (Vector)other;
+		if (v.entries.length != entries.length || !v.ring.equals(ring))
+			return false;
+		for (int i = 0; i < entries.length; i++)
+			if (!entries[i].equals(v.entries[i]))
+				return false;
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 0;
+		for (RingElement x : entries)
+			hash = 31 * hash + x.hashCode();
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("vector[");
+		for (int i = 0; i < entries.length; i++) {
+			if (i > 0)
+				sb.append(",");
+			sb.append(entries[i]);
+		}
+		return sb.append("]").toString();
+	}
+}
@@ -0,0 +1,179 @@
+/**
+ * Factor polynomials over a prime field by Berlekamp's algorithm.
+ *
+ * For a square-free f of degree n, the polynomials v with v^p = v mod f form an F_p-subspace of F_p[X]/(f) whose
+ * dimension r is the number of irreducible factors of f; it is the kernel of Q - I, where Q is the matrix of the
+ * Frobenius map. Every such v that is not constant splits f by gcd(f, v - s) for some s in F_p. For small p, all s are
+ * tried, which makes the algorithm deterministic; for large p, random elements v of the kernel are raised to the
+ * power (p-1)/2 instead.
+ *
+ * @see PrimeFieldFactorStrategy for the format of problem and result
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Random;
+
+import de.phwbrnr.lina.main.fields.PrimeFieldElement;
+
+public class BerlekampFactorization extends PrimeFieldFactorStrategy {
+
+	@Override
+	public String getDescription() {
+		return "Factor a polynomial over a prime field by Berlekamp's algorithm";
+	}
+
+	/**
+	 * For primes up to this bound (or up to the degree, if that is larger), the splitting tries all s in F_p.
+	 */
+	static final long SMALL_PRIME_BOUND = 16;
+
+	private static boolean splitsDeterministically(int n, long p) {
+		return p <= Math.max(SMALL_PRIME_BOUND, n);
+	}
+
+	@Override
+	double estimateOperations(int n, long p) {
+		double n2 = (double)n * n;
+		/* Frobenius matrix and the kernel of Q - I, then the splitting by all s in F_p or by random kernel elements */
+		double splitting = splitsDeterministically(n, p) ? 0.9 * p * n2 * log(n + 1) : 3.2 * n2 * log(p) * log(n + 1);
+		return frobeniusOperations(n, p) + 0.5 * n2 * n + splitting;
+	}
+
+	@Override
+	void factorSquareFree(long[] f, long p, Random random, ArrayList<long[]> out) {
+		int n = f.length - 1;
+		if (n == 1) {
+			out.add(f);
+			return;
+		}
+
+		long[][] q = PrimeFieldArithmetic.frobeniusMatrix(f, p);
+		/* v Q = v, that is, the transpose of Q - I annihilates v */
+		long[][] m = new long[n][n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++)
+				m[j][i] = q[i][j];
+			m[i][i] = (m[i][i] + p - 1) % p;
+		}
+		long[][] kernel = kernel(m, p);
+		int r = kernel.length;
+
+		ArrayList<long[]> factors = new ArrayList<long[]>();
+		factors.add(f);
+		if (r == 1) {
+			out.add(f);
+			return;
+		}
+
+		if (splitsDeterministically(n, p)) {
+			for (int k = 0; k < r && factors.size() < r; k++) {
+				long[] v = PrimeFieldArithmetic.trim(kernel[k]);
+				if (v.length <= 1)
+					continue;
+				for (long s = 0; s < p && factors.size() < r; s++) {
+					long[] vs = PrimeFieldArithmetic.subtract(v, new long[] { s }, p);
+					splitAll(factors, vs, p);
+				}
+			}
+		} else {
+			BigInteger exponent = BigInteger.valueOf((p - 1) / 2);
+			while (factors.size() < r) {
+				long[] v = PrimeFieldArithmetic.ZERO;
+				for (int k = 0; k < r; k++) {
+					long c = Math.floorMod(random.nextLong(), p);
+					v = PrimeFieldArithmetic.add(v, PrimeFieldArithmetic.scale(PrimeFieldArithmetic.trim(kernel[k]), c, p), p);
+				}
+				ArrayList<long[]> current = new ArrayList<long[]>(factors);
+				factors.clear();
+				for (long[] u : current) {
+					if (u.length <= 2) {
+						factors.add(u);
+						continue;
+					}
+					long[] w = PrimeFieldArithmetic.subtract(PrimeFieldArithmetic.powerMod(v, exponent, u, p), PrimeFieldArithmetic.ONE, p);
+					long[] g = PrimeFieldArithmetic.gcd(w, u, p);
+					if (g.length > 1 && g.length < u.length) {
+						factors.add(g);
+						factors.add(PrimeFieldArithmetic.divide(u, g, p));
+					} else {
+						factors.add(u);
+					}
+				}
+			}
+		}
+
+		out.addAll(factors);
+	}
+
+	/**
+	 * Replace every factor that has a proper common divisor with v by that divisor and its cofactor.
+	 */
+	private static void splitAll(ArrayList<long[]> factors, long[] v, long p) {
+		for (int i = 0; i < factors.size(); i++) {
+			long[] u = factors.get(i);
+			if (u.length <= 2)
+				continue;
+			long[] g = PrimeFieldArithmetic.gcd(v, u, p);
+			if (g.length > 1 && g.length < u.length) {
+				factors.set(i, g);
+				factors.add(PrimeFieldArithmetic.divide(u, g, p));
+			}
+		}
+	}
+
+	/**
+	 * Compute a basis of the kernel of a square matrix over F_p by Gauss-Jordan elimination. The matrix is
+	 * overwritten.
+	 */
+	static long[][] kernel(long[][] m, long p) {
+		int n = m.length, cols = m[0].length;
+		int[] pivotColumn = new int[n];
+		boolean[] isPivot = new boolean[cols];
+		int rank = 0;
+		for (int col = 0; col < cols && rank < n; col++) {
+			int pivot = -1;
+			for (int row = rank; row < n; row++) {
+				if (m[row][col] != 0) {
+					pivot = row;
+					break;
+				}
+			}
+			if (pivot == -1)
+				continue;
+			long[] t = m[pivot];
+			m[pivot] = m[rank];
+			m[rank] = t;
+
+			long inv = PrimeFieldElement.inverse(m[rank][col], p);
+			for (int j = col; j < cols; j++)
+				m[rank][j] = m[rank][j] * inv % p;
+			for (int row = 0; row < n; row++) {
+				long c = m[row][col];
+				if (row == rank || c == 0)
+					continue;
+				long negc = p - c;
+				for (int j = col; j < cols; j++)
+					m[row][j] = (m[row][j] + negc * m[rank][j]) % p;
+			}
+			pivotColumn[rank] = col;
+			isPivot[col] = true;
+			rank++;
+		}
+
+		long[][] basis = new long[cols - rank][];
+		int k = 0;
+		for (int free = 0; free < cols; free++) {
+			if (isPivot[free])
+				continue;
+			long[] v = new long[cols];
+			v[free] = 1;
+			for (int i = 0; i < rank; i++)
+				v[pivotColumn[i]] = (p - m[i][free]) % p;
+			basis[k++] = v;
+		}
+		return basis;
+	}
+}
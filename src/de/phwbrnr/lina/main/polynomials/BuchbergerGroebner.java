@@ -0,0 +1,218 @@
+/**
+ * Compute the reduced Groebner basis of a polynomial ideal over any field by Buchberger's algorithm.
+ *
+ * The S-polynomials of the critical pairs are formed one at a time, in the sugar strategy (see CriticalPairs), and
+ * reduced by the current basis with the heap division of MultivariateArithmetic.divideWithRemainder(), whose
+ * quotients also give the sugar of the remainder; every nonzero remainder becomes a new basis element. Useless pairs
+ * are discarded by the criteria of Gebauer and Moeller (see CriticalPairs). At the end, the basis is made minimal,
+ * and every element is reduced by the others and made monic, which gives the unique reduced Groebner basis of the
+ * ideal in the monomial order of the ring. Lex bases of zero-dimensional ideals are computed in GREVLEX and
+ * converted (see FglmConversion); only the other lex bases are computed directly.
+ *
+ * The arithmetic works on RingElements, so this applies to every coefficient field, but it pays for the generality
+ * on every coefficient operation; over prime fields F4Groebner is faster for all but the smallest systems, and over
+ * the rationals, where the coefficients grow, MultiModularGroebner is for all but small ones.
+ *
+ * The problem instance is a non-empty list of MultivariatePolynomials of the same ring over a Field; the result is
+ * the reduced Groebner basis, sorted by descending leading monomials, which is empty for the zero ideal.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.util.ArrayList;
+
+import de.phwbrnr.lina.main.fields.ElementNotInvertibleException;
+import de.phwbrnr.lina.main.fields.Field;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class BuchbergerGroebner extends AbstractStrategy<ArrayList<MultivariatePolynomial>> {
+
+	@Override
+	public String getDescription() {
+		return "Compute the reduced Groebner basis of polynomials over a field by Buchberger's algorithm";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		MultivariatePolynomialRing ring = ringOf(problem);
+		return ring != null && ring.getCoefficientRing() instanceof Field;
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		double size = basisSize(problem);
+		MultivariatePolynomialRing ring = ringOf(problem);
+		if (ring.getCoefficientRing() instanceof PrimeField)
+			return costFromOperations(30 * size * size);
+		/* coefficients of other fields, like the rationals, grow with the size of the computation, far more so on the
+		 * way to a lex basis than in a graded order (see MultiModularGroebner for the fit) */
+		if (ring.getOrder().isGraded())
+			return costFromOperations(300 * size * size);
+		return costFromOperations(10 * size * size * size);
+	}
+
+	@Override
+	public ArrayList<MultivariatePolynomial> execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass multivariate polynomials of the same ring over a field");
+		MultivariatePolynomialRing ring = ringOf(problem);
+
+		try {
+			if (!ring.getOrder().isGraded()) {
+				ArrayList<MultivariatePolynomial> result = lexBasis(ring, problem);
+				if (result != null)
+					return result;
+			}
+
+			ArrayList<MultivariatePolynomial> elements = new ArrayList<MultivariatePolynomial>();
+			CriticalPairs pairs = new CriticalPairs(ring.layout());
+			MultivariatePolynomial[] basis = new MultivariatePolynomial[0];
+			for (Object generator : problem) {
+				MultivariatePolynomial f = (MultivariatePolynomial)generator;
+				MultivariatePolynomial[] qr = MultivariateArithmetic.divideWithRemainder(f, basis);
+				MultivariatePolynomial r = qr[basis.length];
+				if (r.isZero())
+					continue;
+				elements.add(monic(r));
+				pairs.add(r.layout(), r.monomials(), sugar(f.getTotalDegree(), qr, pairs));
+				basis = select(elements, pairs.basis());
+			}
+
+			while (!pairs.isEmpty()) {
+				CriticalPairs.Pair pair = pairs.select(false).get(0);
+				MultivariatePolynomial f = elements.get(pair.first), g = elements.get(pair.second);
+				RingElement one = ring.getCoefficientRing().getOne();
+				int[] lcm = pairs.lcm(pair);
+				MultivariatePolynomial s = MultivariateArithmetic.multiplyTerm(f, cofactor(lcm, f), one)
+						.subtract(MultivariateArithmetic.multiplyTerm(g, cofactor(lcm, g), one));
+				MultivariatePolynomial[] qr = MultivariateArithmetic.divideWithRemainder(s, basis);
+				MultivariatePolynomial r = qr[basis.length];
+				if (r.isZero())
+					continue;
+				elements.add(monic(r));
+				pairs.add(r.layout(), r.monomials(), sugar(pair.sugar, qr, pairs));
+				basis = select(elements, pairs.basis());
+			}
+			return reducedBasis(basis);
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("Buchberger's algorithm failed in " + ring.getName() + ": " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Compute a lex basis through the GREVLEX basis (see FglmConversion).
+	 * @return the reduced basis, or null if the ideal is not zero-dimensional or its total degrees exceed the maximal
+	 * degree
+	 */
+	private ArrayList<MultivariatePolynomial> lexBasis(MultivariatePolynomialRing ring, Object... problem) throws OperationUndefinedException {
+		MultivariatePolynomialRing graded = ring.withOrder(MonomialOrder.GREVLEX);
+		MultivariatePolynomial[] generators = new MultivariatePolynomial[problem.length];
+		try {
+			for (int i = 0; i < generators.length; i++)
+				generators[i] = graded.convert((MultivariatePolynomial)problem[i]);
+		} catch (IllegalArgumentException ex) {
+			/* a total degree exceeds Integer.MAX_VALUE */
+			return null;
+		}
+		return FglmConversion.convert(ring, execute((Object[])generators));
+	}
+
+	/**
+	 * @return the ring of a valid problem instance, a non-empty list of polynomials of the same ring, or null
+	 */
+	static MultivariatePolynomialRing ringOf(Object... problem) {
+		if (problem.length == 0 || !(problem[0] instanceof MultivariatePolynomial))
+			return null;
+		MultivariatePolynomialRing ring = ((MultivariatePolynomial)problem[0]).getRing();
+		for (Object f : problem)
+			if (!(f instanceof MultivariatePolynomial) || !((MultivariatePolynomial)f).getRing().equals(ring))
+				return null;
+		return ring;
+	}
+
+	/**
+	 * Estimate the size of a Groebner basis computation by the number of monomials up to the Macaulay bound
+	 * d_1 + ... + d_s - s + 1 on the degrees that occur for homogeneous systems, at most up to the degree the ring
+	 * supports. The strategies take their cost as a power of this size.
+	 */
+	static double basisSize(Object... problem) {
+		MultivariatePolynomialRing ring = ringOf(problem);
+		int n = ring.getVariableCount();
+		long degree = 1;
+		for (Object f : problem) {
+			int d = ((MultivariatePolynomial)f).getTotalDegree();
+			if (d > 0)
+				degree += d - 1;
+		}
+		degree = Math.min(degree, ring.getMaxDegree());
+		/* the binomial coefficient (n + D choose n) */
+		double size = 1;
+		for (int i = 1; i <= n; i++)
+			size = size * (degree + i) / i;
+		return Math.min(size, 1e12);
+	}
+
+	/**
+	 * Turn a minimal Groebner basis into the reduced one: every element reduced by the others and made monic.
+	 * @return the reduced basis, sorted by descending leading monomials
+	 */
+	static ArrayList<MultivariatePolynomial> reducedBasis(MultivariatePolynomial[] basis) throws OperationUndefinedException {
+		ArrayList<MultivariatePolynomial> result = new ArrayList<MultivariatePolynomial>();
+		for (int i = 0; i < basis.length; i++) {
+			MultivariatePolynomial[] others = new MultivariatePolynomial[basis.length - 1];
+			for (int j = 0, k = 0; j < basis.length; j++)
+				if (j != i)
+					others[k++] = basis[j];
+			result.add(monic(basis[i].reduce(others)));
+		}
+		result.sort((f, g) -> MultivariateArithmetic.compareLeading(g, f));
+		return result;
+	}
+
+	/**
+	 * @param sugar the sugar degree of the reduced polynomial
+	 * @param qr the quotients by the current basis elements, and the remainder
+	 * @return the sugar degree of the remainder: the largest of sugar and deg(q_i) + sugar(g_i)
+	 */
+	private static int sugar(int sugar, MultivariatePolynomial[] qr, CriticalPairs pairs) {
+		ArrayList<Integer> indices = pairs.basis();
+		for (int i = 0; i < indices.size(); i++)
+			if (!qr[i].isZero())
+				sugar = Math.max(sugar, qr[i].getTotalDegree() + pairs.sugar(indices.get(i)));
+		return sugar;
+	}
+
+	/**
+	 * @return the exponents of lcm / lt(f), for a monomial lcm that lt(f) divides
+	 */
+	private static int[] cofactor(int[] lcm, MultivariatePolynomial f) {
+		int[] e = f.getLeadingExponents(), result = new int[lcm.length];
+		for (int i = 0; i < lcm.length; i++)
+			result[i] = lcm[i] - e[i];
+		return result;
+	}
+
+	private static MultivariatePolynomial[] select(ArrayList<MultivariatePolynomial> elements, ArrayList<Integer> indices) {
+		MultivariatePolynomial[] result = new MultivariatePolynomial[indices.size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = elements.get(indices.get(i));
+		return result;
+	}
+
+	private static MultivariatePolynomial monic(MultivariatePolynomial f) throws OperationUndefinedException {
+		RingElement lc = f.getLeadingCoefficient();
+		if (lc.isOne())
+			return f;
+		try {
+			return f.multiply(lc.inverse());
+		} catch (ElementNotInvertibleException ex) {
+			throw new OperationUndefinedException("The leading coefficient " + lc + " is not invertible");
+		}
+	}
+}
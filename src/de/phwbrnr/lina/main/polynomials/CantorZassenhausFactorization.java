@@ -0,0 +1,34 @@
+/**
+ * Factor polynomials over a prime field by the Cantor-Zassenhaus method: square-free decomposition, distinct-degree
+ * factorization with the Frobenius matrix (so X^(p^d) mod f costs one vector-matrix product per degree d),
+ * and randomized equal-degree splitting.
+ *
+ * @see PrimeFieldFactorStrategy for the format of problem and result
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public class CantorZassenhausFactorization extends PrimeFieldFactorStrategy {
+
+	@Override
+	public String getDescription() {
+		return "Factor a polynomial over a prime field by distinct-degree factorization and Cantor-Zassenhaus splitting";
+	}
+
+	@Override
+	double estimateOperations(int n, long p) {
+		double n2 = (double)n * n;
+		/* Frobenius matrix, distinct-degree loop (one vector-matrix product and one gcd per degree up to n/2), and
+		 * splitting by powering to (p^d - 1)/2 */
+		return frobeniusOperations(n, p) + 1.9 * n2 * n + 0.9 * n2 * log(p) * log(n + 1);
+	}
+
+	@Override
+	void factorSquareFree(long[] f, long p, Random random, ArrayList<long[]> out) {
+		for (PrimeFieldArithmetic.Factor block : PrimeFieldArithmetic.distinctDegreeFactorization(f, p))
+			PrimeFieldArithmetic.equalDegreeFactorization(block.polynomial, block.multiplicity, p, random, out);
+	}
+}
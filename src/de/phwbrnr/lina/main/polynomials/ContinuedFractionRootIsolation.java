@@ -0,0 +1,309 @@
+/**
+ * Isolate the real roots of a polynomial over the integers or rationals by the continued fraction method of Vincent,
+ * Akritas and Strzebonski, a variant of the Vincent-Collins-Akritas algorithm.
+ *
+ * Descartes' rule of signs bounds the number of positive roots of a polynomial by the number of sign variations of
+ * its coefficients, and the bound is exact if it is 0 or 1. The method works on polynomials p together with Moebius
+ * transformations M(x) = (ax + b) / (cx + d) with non-negative integers a, b, c, d, such that the positive roots of p
+ * correspond to the roots of the input between M(0) and M(infinity). If p has more than one sign variation, a lower
+ * bound s for its positive roots is computed and p is shifted to p(x + s), which plays the role of the partial
+ * quotients of a continued fraction expansion; then p is split into p(x + 1) (roots greater than one) and
+ * (x + 1)^n p(1 / (x + 1)) (roots between zero and one). Shifts are by powers of two, which only cost bit shifts
+ * besides a shift by one, and the two subproblems of a split are explored in parallel for large degrees.
+ *
+ * Negative roots are found as the positive roots of p(-x). Only the square-free part of the input is isolated; the
+ * multiplicity of each root is determined from the square-free decomposition.
+ *
+ * The problem instance is a single nonzero Polynomial over the IntegerRing or the RationalsField. The result lists
+ * one IsolatingInterval per distinct real root, in increasing order; the intervals are pairwise disjoint.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import de.phwbrnr.lina.main.fields.IntegerRing;
+import de.phwbrnr.lina.main.fields.RationalsField;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class ContinuedFractionRootIsolation extends AbstractStrategy<ArrayList<IsolatingInterval>> {
+	/**
+	 * From this degree on, the two halves of a split are explored by different tasks of a fork-join pool.
+	 */
+	static final int PARALLEL_DEGREE = 48;
+
+	@Override
+	public String getDescription() {
+		return "Isolate the real roots of a polynomial over the integers or rationals by the continued fraction method";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		return problem.length == 1 && problem[0] instanceof Polynomial
+				&& (((Polynomial)problem[0]).getRing() instanceof IntegerRing || ((Polynomial)problem[0]).getRing() instanceof RationalsField)
+				&& !((Polynomial)problem[0]).isZero();
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		double n = ((Polynomial)problem[0]).getDegree() + 1;
+		/* O(n) Taylor shifts in the typical case, each with n^2 additions of numbers with O(n) bits */
+		return costFromOperations(n * n * n * n / 16);
+	}
+
+	@Override
+	public ArrayList<IsolatingInterval> execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a single nonzero polynomial over the integers or rationals");
+
+		Polynomial f = (Polynomial)problem[0];
+		BigInteger[] a = f.getRing() instanceof RationalsField ? IntegerPolynomialArithmetic.fromRationalPolynomial(f)
+				: IntegerPolynomialArithmetic.fromPolynomial(f);
+		ArrayList<IsolatingInterval> result = new ArrayList<IsolatingInterval>();
+		a = IntegerPolynomialArithmetic.primitivePart(a);
+		if (a.length <= 1)
+			return result;
+
+		ArrayList<IntegerPolynomialArithmetic.Factor> decomposition = IntegerPolynomialArithmetic.squareFreeDecomposition(a);
+		BigInteger[] squareFree = IntegerPolynomialArithmetic.ONE;
+		for (IntegerPolynomialArithmetic.Factor g : decomposition)
+			squareFree = IntegerPolynomialArithmetic.multiply(squareFree, g.polynomial);
+
+		ConcurrentLinkedQueue<BigInteger[]> roots = new ConcurrentLinkedQueue<BigInteger[]>();
+		BigInteger[] p = squareFree;
+		if (p[0].signum() == 0) {
+			roots.add(new BigInteger[] { BigInteger.ZERO, BigInteger.ONE });
+			p = divideByX(p);
+		}
+		isolatePositive(p, false, roots);
+		isolatePositive(negateVariable(p), true, roots);
+
+		BigInteger[] derivative = IntegerPolynomialArithmetic.derivative(squareFree);
+		for (BigInteger[] root : roots)
+			result.add(interval(avoidRootEndpoints(root, squareFree, derivative), decomposition));
+		Collections.sort(result);
+		return result;
+	}
+
+	/**
+	 * Isolate the positive roots of a square-free p with p(0) != 0.
+	 * @param negate whether the roots are reported negated (p is f(-x))
+	 * @param roots receives arrays (numerator, denominator) for exact roots and (left numerator, left denominator,
+	 * right numerator, right denominator) for open intervals
+	 */
+	private static void isolatePositive(BigInteger[] p, boolean negate, ConcurrentLinkedQueue<BigInteger[]> roots) {
+		if (variations(p) == 0)
+			return;
+		/* the endpoint M(infinity) = a/c with c = 0 is replaced by an upper bound for the positive roots */
+		int upper = upperBoundExponent(p) + 1;
+		BigInteger[] bound = upper >= 0 ? new BigInteger[] { BigInteger.ONE.shiftLeft(upper), BigInteger.ONE }
+				: new BigInteger[] { BigInteger.ONE, BigInteger.ONE.shiftLeft(-upper) };
+		Isolation task = new Isolation(p, BigInteger.ONE, BigInteger.ZERO, BigInteger.ZERO, BigInteger.ONE, bound, negate, roots);
+		if (p.length - 1 >= PARALLEL_DEGREE)
+			ForkJoinPool.commonPool().invoke(task);
+		else
+			task.compute();
+	}
+
+	/**
+	 * The search below one node of the continued fraction tree: the positive roots of p, mapped by
+	 * M(x) = (ax + b) / (cx + d).
+	 */
+	private static final class Isolation extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private BigInteger[] p;
+		private BigInteger a, b, c, d;
+		private final BigInteger[] bound;
+		private final boolean negate;
+		private final ConcurrentLinkedQueue<BigInteger[]> roots;
+
+		Isolation(BigInteger[] p, BigInteger a, BigInteger b, BigInteger c, BigInteger d, BigInteger[] bound,
+				boolean negate, ConcurrentLinkedQueue<BigInteger[]> roots) {
+			this.p = p;
+			this.a = a;
+			this.b = b;
+			this.c = c;
+			this.d = d;
+			this.bound = bound;
+			this.negate = negate;
+			this.roots = roots;
+		}
+
+		@Override
+		protected void compute() {
+			ArrayList<Isolation> forked = new ArrayList<Isolation>();
+			while (true) {
+				if (p[0].signum() == 0) {
+					addExact(b, d);
+					p = divideByX(p);
+				}
+				int v = variations(p);
+				if (v == 0)
+					break;
+				if (v == 1) {
+					addInterval();
+					break;
+				}
+
+				/* shift by a lower bound of the positive roots, that is, the inverse of an upper bound for p(1/x) */
+				int lower = -upperBoundExponent(IntegerPolynomialArithmetic.reverse(p));
+				if (lower >= 0) {
+					BigInteger s = BigInteger.ONE.shiftLeft(lower);
+					p = IntegerPolynomialArithmetic.taylorShift(p, lower);
+					b = b.add(a.multiply(s));
+					d = d.add(c.multiply(s));
+					if (p[0].signum() == 0)
+						continue;
+				}
+
+				/* roots above 1: p(x + 1) with M(x + 1); roots below 1: (x + 1)^n p(1 / (x + 1)) with M(1 / (x + 1)) */
+				BigInteger[] above = IntegerPolynomialArithmetic.taylorShift(p);
+				BigInteger[] below = IntegerPolynomialArithmetic.taylorShift(IntegerPolynomialArithmetic.reverse(p));
+				if (above[0].signum() == 0) {
+					/* the root M(1) is reported once, and removed from both halves */
+					addExact(a.add(b), c.add(d));
+					above = divideByX(above);
+					below = divideByX(below);
+				}
+				Isolation lowerHalf = new Isolation(below, b, a.add(b), d, c.add(d), bound, negate, roots);
+				if (p.length - 1 >= PARALLEL_DEGREE) {
+					lowerHalf.fork();
+					forked.add(lowerHalf);
+				} else {
+					lowerHalf.compute();
+				}
+				p = above;
+				b = a.add(b);
+				d = c.add(d);
+			}
+			for (Isolation task : forked)
+				task.join();
+		}
+
+		private void addExact(BigInteger num, BigInteger den) {
+			BigInteger g = num.gcd(den);
+			roots.add(new BigInteger[] { negate ? num.negate().divide(g) : num.divide(g), den.divide(g) });
+		}
+
+		private void addInterval() {
+			BigInteger[] left = new BigInteger[] { b, d };
+			BigInteger[] right = c.signum() == 0 ? bound : new BigInteger[] { a, c };
+			if (left[0].multiply(right[1]).compareTo(right[0].multiply(left[1])) > 0) {
+				BigInteger[] t = left;
+				left = right;
+				right = t;
+			}
+			if (negate)
+				roots.add(new BigInteger[] { right[0].negate(), right[1], left[0].negate(), left[1] });
+			else
+				roots.add(new BigInteger[] { left[0], left[1], right[0], right[1] });
+		}
+	}
+
+	/**
+	 * An endpoint of an interval may be a rational root that was split off and reported exactly (like M(0) below a
+	 * node where M(1) was a root). Such intervals still contain exactly one other root in their interior; bisect them
+	 * until no endpoint is a root, so they can be refined by the sign of the polynomial.
+	 * @param f the square-free polynomial the roots were isolated for
+	 * @param derivative its derivative; at a root, its sign is the sign of f just right of the root
+	 */
+	private static BigInteger[] avoidRootEndpoints(BigInteger[] root, BigInteger[] f, BigInteger[] derivative) {
+		if (root.length == 2)
+			return root;
+		BigInteger ln = root[0], ld = root[1], rn = root[2], rd = root[3];
+		while (true) {
+			int leftSign = IntegerPolynomialArithmetic.signAt(f, ln, ld);
+			if (leftSign != 0 && IntegerPolynomialArithmetic.signAt(f, rn, rd) != 0)
+				return new BigInteger[] { ln, ld, rn, rd };
+			/* the sign of f between the left endpoint and the root */
+			int inner = leftSign != 0 ? leftSign : IntegerPolynomialArithmetic.signAt(derivative, ln, ld);
+			BigInteger mn = ln.multiply(rd).add(rn.multiply(ld)), md = ld.multiply(rd).shiftLeft(1);
+			BigInteger g = mn.gcd(md);
+			mn = mn.divide(g);
+			md = md.divide(g);
+			int sign = IntegerPolynomialArithmetic.signAt(f, mn, md);
+			if (sign == 0)
+				return new BigInteger[] { mn, md };
+			if (sign == inner) {
+				ln = mn;
+				ld = md;
+			} else {
+				rn = mn;
+				rd = md;
+			}
+		}
+	}
+
+	/**
+	 * Attach a root to the square-free factor that has it, which gives its multiplicity.
+	 */
+	private static IsolatingInterval interval(BigInteger[] root, ArrayList<IntegerPolynomialArithmetic.Factor> decomposition) {
+		for (IntegerPolynomialArithmetic.Factor g : decomposition) {
+			BigInteger[] h = g.polynomial;
+			if (root.length == 2) {
+				if (IntegerPolynomialArithmetic.signAt(h, root[0], root[1]) == 0)
+					return new IsolatingInterval(h, g.multiplicity, root[0], root[1]);
+			} else if (IntegerPolynomialArithmetic.signAt(h, root[0], root[1]) != IntegerPolynomialArithmetic.signAt(h, root[2], root[3])) {
+				return new IsolatingInterval(h, g.multiplicity, root[0], root[1], root[2], root[3]);
+			}
+		}
+		throw new IllegalStateException("Isolated root does not belong to any square-free factor");
+	}
+
+	/**
+	 * @return the number of sign changes in the coefficient sequence, ignoring zeros
+	 */
+	static int variations(BigInteger[] p) {
+		int result = 0, last = 0;
+		for (BigInteger c : p) {
+			int sign = c.signum();
+			if (sign == 0)
+				continue;
+			if (last != 0 && sign != last)
+				result++;
+			last = sign;
+		}
+		return result;
+	}
+
+	/**
+	 * Kioustelidis' bound: every positive root is at most 2 max (|p_i| / lc)^(1/(n-i)) over the coefficients p_i whose
+	 * sign differs from that of the leading coefficient.
+	 * @return an exponent e such that 2^e bounds the positive roots (a very small value if there are none)
+	 */
+	static int upperBoundExponent(BigInteger[] p) {
+		int n = p.length - 1;
+		int lcSign = p[n].signum(), lcBits = p[n].bitLength();
+		int result = Integer.MIN_VALUE / 2;
+		for (int i = 0; i < n; i++) {
+			if (p[i].signum() == 0 || p[i].signum() == lcSign)
+				continue;
+			/* |p_i| < 2^bits(p_i) and |lc| >= 2^(bits(lc) - 1) */
+			int k = p[i].bitLength() - lcBits + 1;
+			result = Math.max(result, Math.floorDiv(k + n - i - 1, n - i));
+		}
+		return result + 1;
+	}
+
+	private static BigInteger[] divideByX(BigInteger[] p) {
+		BigInteger[] result = new BigInteger[p.length - 1];
+		System.arraycopy(p, 1, result, 0, result.length);
+		return result;
+	}
+
+	private static BigInteger[] negateVariable(BigInteger[] p) {
+		BigInteger[] result = new BigInteger[p.length];
+		for (int i = 0; i < p.length; i++)
+			result[i] = i % 2 == 0 ? p[i] : p[i].negate();
+		return result;
+	}
+}
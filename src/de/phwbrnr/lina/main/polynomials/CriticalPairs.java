@@ -0,0 +1,226 @@
+/**
+ * The critical pairs of a Groebner basis computation, shared by the Buchberger and the F4 strategy.
+ *
+ * The basis is only known to the pair set by the packed leading monomials of its elements, indexed in the order
+ * they were added. The pair set keeps them and the lcms of its pairs in one MonomialLayout, which it widens when an
+ * element of a wider one is added, or when the lcm of a graded order does not fit; the computation follows it by
+ * layout(). A new element h is added by the update of Gebauer and Moeller (in the formulation of Becker and
+ * Weispfenning), which discards most useless pairs before any S-polynomial is formed:
+ * - of the new pairs (g, h) with the same lcm, and of those whose lcm is a proper multiple of another new lcm, only
+ *   one respectively none is kept (chain criterion M and F);
+ * - new pairs with coprime leading monomials are dropped (Buchberger's product criterion);
+ * - old pairs (g_1, g_2) whose lcm is divisible by lt(h), but differs from lcm(g_1, h) and lcm(g_2, h), are dropped
+ *   (chain criterion B);
+ * - elements whose leading monomial is divisible by lt(h) leave the basis; their pairs stay.
+ * Pairs are selected by the sugar strategy of Giovini, Mora, Niesi, Robbiano and Traverso: every element carries a
+ * sugar degree, the total degree it would have if the generators were homogenized, which is the total degree for the
+ * generators, and the sugar of a pair (g, h) is the larger of sugar(g) + deg(lcm / lt(g)) and sugar(h) +
+ * deg(lcm / lt(h)). The pairs of the smallest sugar come first, ties broken by the normal strategy, the smallest
+ * lcm. For graded orders and homogeneous systems, this is the normal strategy; for lex orders and non-homogeneous
+ * systems, the degree of the lcm alone says little about the degrees of the reductions, and the normal strategy
+ * produces elements of huge degree that later reduce away.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+
+final class CriticalPairs {
+	static final class Pair {
+		final int first, second;
+		/* the packed lcm, repacked when the layout is widened */
+		long[] lcm;
+		final int degree, sugar;
+
+		Pair(int first, int second, long[] lcm, int degree, int sugar) {
+			this.first = first;
+			this.second = second;
+			this.lcm = lcm;
+			this.degree = degree;
+			this.sugar = sugar;
+		}
+	}
+
+	private MonomialLayout layout;
+	/* the leading monomials of the elements by their index */
+	private long[] leads;
+	private int count = 0;
+	private ArrayList<Integer> sugars = new ArrayList<Integer>();
+	private BitSet active = new BitSet();
+	private ArrayList<Pair> pairs = new ArrayList<Pair>();
+
+	CriticalPairs(MonomialLayout layout) {
+		this.layout = layout;
+		leads = new long[16 * layout.words];
+	}
+
+	/**
+	 * @return the layout of the leading monomials and the lcms
+	 */
+	MonomialLayout layout() {
+		return layout;
+	}
+
+	/**
+	 * Add an element to the basis.
+	 * @param from the layout of its monomials
+	 * @param monomials its monomials, of which only the leading one is used
+	 * @param sugar its sugar degree: the total degree for generators, the sugar of the pairs it was reduced from
+	 * otherwise
+	 * @return its index
+	 * @throws OperationUndefinedException if an lcm exceeds the maximal degree of the ring.
+	 */
+	int add(MonomialLayout from, long[] monomials, int sugar) throws OperationUndefinedException {
+		if (!layout.equals(MonomialLayout.wider(layout, from)))
+			widen(from, null);
+		int leadDegree = from.degree(monomials, 0);
+		/* in graded orders, the lcm with another element may exceed the layout; its degree is at most the sum of both */
+		int maxDegree = 0;
+		for (int g = active.nextSetBit(0); g >= 0; g = active.nextSetBit(g + 1))
+			maxDegree = Math.max(maxDegree, layout.degree(leads, g));
+		if (layout.getOrder().isGraded() && !layout.fits((long)maxDegree + leadDegree))
+			widen(layout.widen((long)maxDegree + leadDegree), null);
+		long[] lead = new long[layout.words];
+		layout.repack(from, monomials, 0, lead, 0);
+
+		int h = count;
+		ArrayList<Pair> candidates = new ArrayList<Pair>();
+		for (int g = active.nextSetBit(0); g >= 0; g = active.nextSetBit(g + 1)) {
+			long[] lcm = new long[layout.words];
+			layout.lcm(leads, g, lead, 0, lcm, 0);
+			int degree = layout.degree(lcm, 0);
+			int pairSugar = Math.max(sugars.get(g) + degree - layout.degree(leads, g), sugar + degree - leadDegree);
+			candidates.add(new Pair(g, h, lcm, degree, pairSugar));
+		}
+
+		/* criteria M and F: keep a new pair only if no other new pair has an lcm dividing its lcm */
+		ArrayList<Pair> kept = new ArrayList<Pair>();
+		for (int i = 0; i < candidates.size(); i++) {
+			Pair pair = candidates.get(i);
+			if (!coprime(pair, leadDegree) && (dividedBy(pair, candidates, i + 1) || dividedBy(pair, kept, 0)))
+				continue;
+			kept.add(pair);
+		}
+
+		/* criterion B on the old pairs */
+		ArrayList<Pair> remaining = new ArrayList<Pair>();
+		long[] lcm = new long[layout.words];
+		for (Pair pair : pairs) {
+			if (layout.divides(lead, 0, pair.lcm, 0) && !(layout.lcm(leads, pair.first, lead, 0, lcm, 0) && layout.equal(lcm, 0, pair.lcm, 0))
+					&& !(layout.lcm(leads, pair.second, lead, 0, lcm, 0) && layout.equal(lcm, 0, pair.lcm, 0)))
+				continue;
+			remaining.add(pair);
+		}
+		/* the product criterion on the new ones */
+		for (Pair pair : kept)
+			if (!coprime(pair, leadDegree))
+				remaining.add(pair);
+		pairs = remaining;
+
+		for (int g = active.nextSetBit(0); g >= 0; g = active.nextSetBit(g + 1))
+			if (layout.divides(lead, 0, leads, g))
+				active.clear(g);
+		if (count == leads.length / layout.words)
+			leads = Arrays.copyOf(leads, 2 * leads.length);
+		System.arraycopy(lead, 0, leads, count * layout.words, layout.words);
+		count++;
+		sugars.add(sugar);
+		active.set(h);
+		return h;
+	}
+
+	/**
+	 * @return whether the leading monomials of a new pair are coprime, that is, their lcm is their product
+	 */
+	private boolean coprime(Pair pair, int leadDegree) {
+		return pair.degree == layout.degree(leads, pair.first) + leadDegree;
+	}
+
+	private boolean dividedBy(Pair pair, ArrayList<Pair> others, int from) {
+		for (int i = from; i < others.size(); i++)
+			if (layout.divides(others.get(i).lcm, 0, pair.lcm, 0))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Repack the leading monomials and the lcms of all pairs, and of the given ones taken out by select(), into a
+	 * layout at least as wide as the given one.
+	 */
+	void widen(MonomialLayout to, ArrayList<Pair> selected) {
+		to = MonomialLayout.wider(layout, to);
+		if (to.equals(layout))
+			return;
+		long[] repacked = new long[Math.max(count, 16) * to.words];
+		for (int g = 0; g < count; g++)
+			to.repack(layout, leads, g, repacked, g);
+		leads = repacked;
+		for (Pair pair : pairs)
+			pair.lcm = to.repack(layout, pair.lcm);
+		if (selected != null)
+			for (Pair pair : selected)
+				pair.lcm = to.repack(layout, pair.lcm);
+		layout = to;
+	}
+
+	/**
+	 * @return the exponent vector of the lcm of a pair
+	 */
+	int[] lcm(Pair pair) {
+		return layout.unpack(pair.lcm, 0);
+	}
+
+	/**
+	 * @return the sugar degree of the element with the given index
+	 */
+	int sugar(int element) {
+		return sugars.get(element);
+	}
+
+	boolean isEmpty() {
+		return pairs.isEmpty();
+	}
+
+	int size() {
+		return pairs.size();
+	}
+
+	/**
+	 * Remove the pairs to be treated next.
+	 * @param all whether to select all pairs of the smallest sugar, as F4 does, or only one with the smallest lcm
+	 * among them
+	 */
+	ArrayList<Pair> select(boolean all) {
+		Pair best = null;
+		for (Pair pair : pairs) {
+			if (best == null || pair.sugar < best.sugar || (pair.sugar == best.sugar
+					&& (pair.degree < best.degree || (pair.degree == best.degree && layout.compare(pair.lcm, 0, best.lcm, 0) < 0))))
+				best = pair;
+		}
+		ArrayList<Pair> selected = new ArrayList<Pair>(), remaining = new ArrayList<Pair>();
+		for (Pair pair : pairs) {
+			if (all ? pair.sugar == best.sugar : pair == best)
+				selected.add(pair);
+			else
+				remaining.add(pair);
+		}
+		pairs = remaining;
+		return selected;
+	}
+
+	/**
+	 * @return the indices of the elements still in the basis, whose leading monomials are pairwise not divisible by
+	 * each other
+	 */
+	ArrayList<Integer> basis() {
+		ArrayList<Integer> result = new ArrayList<Integer>();
+		for (int g = active.nextSetBit(0); g >= 0; g = active.nextSetBit(g + 1))
+			result.add(g);
+		return result;
+	}
+}
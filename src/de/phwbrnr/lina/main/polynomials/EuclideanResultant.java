@@ -0,0 +1,95 @@
+/**
+ * Resultants of polynomials over a field by the euclidean algorithm.
+ *
+ * For deg a = m >= deg b = n > 0 and the remainder r of a by b, of degree k, the resultant satisfies
+ * res(a, b) = (-1)^(mn) lc(b)^(m - k) res(b, r), and res(a, c) = c^m for a constant c, so the resultant is collected
+ * along the remainder sequence. Over a PrimeField, the computation runs on primitive residues, and for high degrees
+ * the half-gcd algorithm skips over half of the remainder sequence at a time (see PrimeFieldArithmetic.resultant),
+ * which takes O(M(n) log n) instead of O(n^2) operations.
+ *
+ * The problem instance is a pair of Polynomials over the same Field. The result is the resultant, an element of the
+ * field; it vanishes if one of the polynomials does.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import de.phwbrnr.lina.main.fields.Field;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class EuclideanResultant extends AbstractStrategy<RingElement> {
+
+	@Override
+	public String getDescription() {
+		return "Compute the resultant of two polynomials over a field along the euclidean remainder sequence";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		if (problem.length != 2 || !(problem[0] instanceof Polynomial) || !(problem[1] instanceof Polynomial))
+			return false;
+		Ring ring = ((Polynomial)problem[0]).getRing();
+		return ((Polynomial)problem[1]).getRing().equals(ring) && ring instanceof Field;
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		double n = Math.max(((Polynomial)problem[0]).getDegree(), ((Polynomial)problem[1]).getDegree()) + 1;
+		if (((Polynomial)problem[0]).getRing() instanceof PrimeField)
+			return costFromOperations(n * n);
+		/* the remainders over other fields, like the rationals, have growing coefficients that are costly to normalize */
+		return costFromOperations(8 * n * n * n);
+	}
+
+	@Override
+	public RingElement execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass two polynomials over the same field");
+
+		Polynomial f = (Polynomial)problem[0], g = (Polynomial)problem[1];
+		Ring field = f.getRing();
+		if (field instanceof PrimeField) {
+			PrimeField fp = (PrimeField)field;
+			long p = fp.getCharacteristic();
+			return fp.element(PrimeFieldArithmetic.resultant(PrimeFieldArithmetic.fromPolynomial(f), PrimeFieldArithmetic.fromPolynomial(g), p));
+		}
+		try {
+			return resultant(field, f.trimmedCoefficients(), g.trimmedCoefficients());
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("Field operations failed in the remainder sequence over " + field.getName(), ex);
+		}
+	}
+
+	private static RingElement resultant(Ring field, RingElement[] a, RingElement[] b) throws OperationUndefinedException {
+		if (a.length == 0 || b.length == 0)
+			return field.getZero();
+		boolean negate = false;
+		if (a.length < b.length) {
+			negate = ((a.length - 1) & (b.length - 1) & 1) != 0;
+			RingElement[] t = a;
+			a = b;
+			b = t;
+		}
+
+		RingElement result = field.getOne();
+		while (b.length > 1) {
+			int m = a.length - 1, n = b.length - 1;
+			RingElement[] r = PolynomialArithmetic.divideWithRemainder(field, a, b, null)[1];
+			if (r.length == 0)
+				return field.getZero();
+			if ((m & n & 1) != 0)
+				negate = !negate;
+			result = result.multiply(SubresultantResultant.power(field, b[n], m - (r.length - 1)));
+			a = b;
+			b = r;
+		}
+		result = result.multiply(SubresultantResultant.power(field, b[0], a.length - 1));
+		return negate ? result.negative() : result;
+	}
+}
@@ -0,0 +1,532 @@
+/**
+ * Compute the reduced Groebner basis of a polynomial ideal over a prime field by Faugere's F4 algorithm.
+ *
+ * Instead of reducing one S-polynomial after the other, F4 reduces all critical pairs of the lowest sugar degree (see
+ * CriticalPairs) at once, as the rows of one sparse matrix over F_p:
+ * - the two halves m_1 g_1 and m_2 g_2 of every selected pair become rows; one row per leading monomial is taken as
+ *   its pivot, the others are to be reduced;
+ * - symbolic preprocessing adds, for every monomial of the rows that is divisible by a leading monomial of the basis
+ *   and has no pivot yet, the multiple of that basis element as a further pivot row, until no such monomial is left;
+ * - the columns are the monomials in descending order, so the pivot rows form a triangular block with known pivots;
+ *   the rows to be reduced are reduced by this block, and by each other, in one sparse elimination pass. Its rows
+ *   whose leading monomial is new are the new basis elements.
+ * The elimination works on a dense accumulator row of residues kept in [0, p^2), so that the products of the pivot
+ * entries are added without reducing them modulo p; only an entry that is about to be eliminated is reduced. The
+ * critical pairs are managed by the Gebauer and Moeller criteria (see CriticalPairs), and the new elements get the
+ * sugar degree of the selected pairs. At the end, the basis is inter-reduced by one more matrix, whose pivot rows are
+ * reduced from the last column to the first. Lex bases of zero-dimensional ideals are computed in GREVLEX and
+ * converted (see FglmConversion); only the other lex bases are computed directly.
+ *
+ * Polynomials are represented as packed monomials and residues (see Sparse), so the kernel basis() also serves the
+ * images of MultiModularGroebner. All elements share the MonomialLayout of the critical pairs. In graded orders, the
+ * pairs widen it when an lcm would not fit, and no row of a matrix exceeds its lcm; in LEX, the tails of the rows may
+ * outgrow the layout, and then the step is repeated with wider fields.
+ *
+ * The problem instance is a non-empty list of MultivariatePolynomials of the same ring over a PrimeField; the result
+ * is the reduced Groebner basis, sorted by descending leading monomials.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.PrimeFieldElement;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class F4Groebner extends AbstractStrategy<ArrayList<MultivariatePolynomial>> {
+
+	/**
+	 * A polynomial over F_p: its packed monomials in descending order and its nonzero residues.
+	 */
+	static final class Sparse {
+		final MonomialLayout layout;
+		final long[] monomials;
+		final long[] coefficients;
+
+		Sparse(MonomialLayout layout, long[] monomials, long[] coefficients) {
+			this.layout = layout;
+			this.monomials = monomials;
+			this.coefficients = coefficients;
+		}
+
+		/**
+		 * @return the polynomial with its monomials in another layout of the same order
+		 */
+		Sparse repack(MonomialLayout to) {
+			if (to.equals(layout))
+				return this;
+			return new Sparse(to, to.repack(layout, monomials), coefficients);
+		}
+	}
+
+	@Override
+	public String getDescription() {
+		return "Compute the reduced Groebner basis of polynomials over a prime field by the F4 algorithm";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		MultivariatePolynomialRing ring = BuchbergerGroebner.ringOf(problem);
+		return ring != null && ring.getCoefficientRing() instanceof PrimeField;
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		double size = BuchbergerGroebner.basisSize(problem);
+		/* the matrices have to be set up, but their elimination works on primitive residues */
+		return costFromOperations(size * size + 16384);
+	}
+
+	@Override
+	public ArrayList<MultivariatePolynomial> execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass multivariate polynomials of the same ring over a prime field");
+		MultivariatePolynomialRing ring = BuchbergerGroebner.ringOf(problem);
+		PrimeField field = (PrimeField)ring.getCoefficientRing();
+		long p = field.getCharacteristic();
+
+		ArrayList<Sparse> generators = new ArrayList<Sparse>();
+		for (Object f : problem)
+			generators.add(sparse((MultivariatePolynomial)f));
+		ArrayList<MultivariatePolynomial> result = new ArrayList<MultivariatePolynomial>();
+		try {
+			for (Sparse g : basis(ring, generators, p))
+				result.add(polynomial(ring, g));
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("The F4 algorithm failed in " + ring.getName() + ": " + ex.getMessage(), ex);
+		}
+		return result;
+	}
+
+	/**
+	 * Compute the reduced Groebner basis of the ideal generated by polynomials over F_p.
+	 * @param ring the ring whose order and degree hint the polynomials use; its coefficients do not matter
+	 * @return the reduced basis, monic and sorted by descending leading monomials
+	 * @throws OperationUndefinedException if a monomial exceeds the maximal degree of the ring.
+	 */
+	static ArrayList<Sparse> basis(MultivariatePolynomialRing ring, ArrayList<Sparse> generators, long p) throws OperationUndefinedException {
+		if (!ring.getOrder().isGraded()) {
+			ArrayList<Sparse> result = lexBasis(ring, generators, p);
+			if (result != null)
+				return result;
+		}
+		MonomialLayout layout = ring.layout();
+		for (Sparse g : generators)
+			layout = MonomialLayout.wider(layout, g.layout);
+		ArrayList<Sparse> elements = new ArrayList<Sparse>();
+		CriticalPairs pairs = new CriticalPairs(layout);
+		for (Sparse g : generators) {
+			if (g.coefficients.length == 0)
+				continue;
+			int degree = 0;
+			for (int i = 0; i < g.coefficients.length; i++)
+				degree = Math.max(degree, g.layout.degree(g.monomials, i));
+			elements.add(monic(g, p));
+			pairs.add(g.layout, g.monomials, degree);
+			repack(elements, pairs.layout());
+		}
+
+		while (!pairs.isEmpty()) {
+			ArrayList<Integer> reducers = pairs.basis();
+			ArrayList<CriticalPairs.Pair> selected = pairs.select(true);
+			ArrayList<Sparse> reduced;
+			while ((reduced = step(elements, reducers, selected, pairs.layout(), p)) == null) {
+				pairs.widen(pairs.layout().widen(0), selected);
+				repack(elements, pairs.layout());
+			}
+			for (Sparse h : reduced) {
+				elements.add(h);
+				pairs.add(h.layout, h.monomials, selected.get(0).sugar);
+				repack(elements, pairs.layout());
+			}
+		}
+		return interreduce(elements, pairs.basis(), pairs.layout(), p);
+	}
+
+	/**
+	 * Reduce the selected pairs by one matrix.
+	 * @return the new basis elements, or null if a monomial does not fit into the layout
+	 */
+	private static ArrayList<Sparse> step(ArrayList<Sparse> elements, ArrayList<Integer> reducers, ArrayList<CriticalPairs.Pair> selected,
+			MonomialLayout layout, long p) {
+		Matrix matrix = new Matrix(layout, elements, reducers);
+		for (CriticalPairs.Pair pair : selected)
+			if (!matrix.addRow(pair.first, pair.lcm) || !matrix.addRow(pair.second, pair.lcm))
+				return null;
+		return matrix.reduce(p);
+	}
+
+	/**
+	 * Repack all elements into the given layout.
+	 */
+	private static void repack(ArrayList<Sparse> elements, MonomialLayout layout) {
+		for (int i = 0; i < elements.size(); i++)
+			elements.set(i, elements.get(i).repack(layout));
+	}
+
+	/**
+	 * Compute a lex basis through the GREVLEX basis (see FglmConversion).
+	 * @return the reduced basis, or null if the ideal is not zero-dimensional or its total degrees exceed the maximal
+	 * degree
+	 */
+	private static ArrayList<Sparse> lexBasis(MultivariatePolynomialRing ring, ArrayList<Sparse> generators, long p) throws OperationUndefinedException {
+		MultivariatePolynomialRing lex = new MultivariatePolynomialRing(PrimeField.getInstance(p), ring.getOrder(), ring.getDegreeHint(), ring.getVariables());
+		MultivariatePolynomialRing graded = lex.withOrder(MonomialOrder.GREVLEX);
+		ArrayList<Sparse> converted = new ArrayList<Sparse>();
+		try {
+			for (Sparse g : generators)
+				converted.add(sparse(graded.convert(polynomial(lex, g))));
+		} catch (IllegalArgumentException ex) {
+			/* a total degree exceeds Integer.MAX_VALUE */
+			return null;
+		}
+		ArrayList<MultivariatePolynomial> basis = new ArrayList<MultivariatePolynomial>();
+		for (Sparse g : basis(graded, converted, p))
+			basis.add(polynomial(graded, g));
+		ArrayList<MultivariatePolynomial> reduced = FglmConversion.convert(lex, basis);
+		if (reduced == null)
+			return null;
+		ArrayList<Sparse> result = new ArrayList<Sparse>();
+		for (MultivariatePolynomial g : reduced)
+			result.add(sparse(g));
+		return result;
+	}
+
+	/**
+	 * @return the monomials and residues of a polynomial over a prime field
+	 */
+	private static Sparse sparse(MultivariatePolynomial f) {
+		long[] residues = new long[f.getTermCount()];
+		for (int i = 0; i < residues.length; i++)
+			residues[i] = ((PrimeFieldElement)f.coefficients()[i]).getValue();
+		return new Sparse(f.layout(), f.monomials(), residues);
+	}
+
+	/**
+	 * @return the polynomial of a ring over a prime field with the given monomials and residues
+	 */
+	private static MultivariatePolynomial polynomial(MultivariatePolynomialRing ring, Sparse g) {
+		PrimeField field = (PrimeField)ring.getCoefficientRing();
+		RingElement[] coefficients = new RingElement[g.coefficients.length];
+		for (int i = 0; i < coefficients.length; i++)
+			coefficients[i] = field.element(g.coefficients[i]);
+		return new MultivariatePolynomial(ring, g.layout, g.monomials, coefficients);
+	}
+
+	/**
+	 * Make the basis elements at the given indices minimal and reduce each of them by the others.
+	 */
+	private static ArrayList<Sparse> interreduce(ArrayList<Sparse> elements, ArrayList<Integer> indices, MonomialLayout layout, long p) throws OperationUndefinedException {
+		ArrayList<Integer> minimal = new ArrayList<Integer>();
+		for (int i : indices) {
+			long[] lead = elements.get(i).monomials;
+			boolean redundant = false;
+			for (int j : indices) {
+				long[] other = elements.get(j).monomials;
+				if (j != i && layout.divides(other, 0, lead, 0) && (!layout.equal(other, 0, lead, 0) || j < i))
+					redundant = true;
+			}
+			if (!redundant)
+				minimal.add(i);
+		}
+
+		ArrayList<Sparse> result;
+		while (true) {
+			Matrix matrix = new Matrix(layout, elements, minimal);
+			for (int i : minimal)
+				matrix.addRow(i, elements.get(i).monomials);
+			result = matrix.interreduce(p);
+			if (result != null)
+				break;
+			layout = layout.widen(0);
+			repack(elements, layout);
+		}
+		MonomialLayout order = layout;
+		result.sort((f, g) -> order.compare(g.monomials, 0, f.monomials, 0));
+		return result;
+	}
+
+	private static Sparse monic(Sparse g, long p) {
+		long inverse = PrimeFieldElement.inverse(g.coefficients[0], p);
+		if (inverse == 1)
+			return g;
+		long[] coefficients = new long[g.coefficients.length];
+		for (int i = 0; i < coefficients.length; i++)
+			coefficients[i] = g.coefficients[i] * inverse % p;
+		return new Sparse(g.layout, g.monomials, coefficients);
+	}
+
+	/**
+	 * The Macaulay matrix of one F4 step: rows are multiples of basis elements, columns are monomials.
+	 */
+	private static final class Matrix {
+		private MonomialLayout layout;
+		private ArrayList<Sparse> elements;
+		private ArrayList<Integer> reducers;
+		/* the monomials of the rows by their id, and the multipliers of the rows by theirs */
+		private MonomialTable monomials, multipliers;
+		/* the rows, as the index of the basis element and the ids of the monomials of its multiple */
+		private ArrayList<Integer> rowElements = new ArrayList<Integer>();
+		private ArrayList<int[]> rowIds = new ArrayList<int[]>();
+		/* the pivot row of a monomial by its id, or -1, and the rows to be reduced */
+		private int[] pivots = new int[16];
+		private ArrayList<Integer> reduced = new ArrayList<Integer>();
+		/* the monomials with an id below this one have been preprocessed */
+		private int processed = 0;
+		/* the basis elements already present per multiplier, as the id of the multiplier and the element */
+		private HashSet<Long> present = new HashSet<Long>();
+		/* the ids of the monomials by column, descending, and the columns by id */
+		private int[] columns, columnOf;
+		private long[] product, multiplier;
+
+		Matrix(MonomialLayout layout, ArrayList<Sparse> elements, ArrayList<Integer> reducers) {
+			this.layout = layout;
+			this.elements = elements;
+			this.reducers = reducers;
+			monomials = new MonomialTable(layout);
+			multipliers = new MonomialTable(layout);
+			Arrays.fill(pivots, -1);
+			product = new long[layout.words];
+			multiplier = new long[layout.words];
+		}
+
+		/**
+		 * Add the multiple of a basis element with the given leading monomial.
+		 * @return false if a monomial of the row does not fit into the layout
+		 */
+		boolean addRow(int element, long[] lead) {
+			layout.divide(lead, 0, elements.get(element).monomials, 0, multiplier, 0);
+			if (!present.add((long)multipliers.add(multiplier, 0) << 32 | element))
+				return true;
+			int row = add(element, multiplier);
+			if (row < 0)
+				return false;
+			int id = rowIds.get(row)[0];
+			if (pivot(id) >= 0)
+				reduced.add(row);
+			else
+				setPivot(id, row);
+			return true;
+		}
+
+		/**
+		 * @return the index of the new row, or -1 if a monomial of it does not fit into the layout
+		 */
+		private int add(int element, long[] multiplier) {
+			Sparse g = elements.get(element);
+			int[] ids = new int[g.coefficients.length];
+			for (int i = 0; i < ids.length; i++) {
+				if (!layout.multiply(g.monomials, i, multiplier, 0, product, 0))
+					return -1;
+				ids[i] = monomials.add(product, 0);
+			}
+			rowElements.add(element);
+			rowIds.add(ids);
+			return rowIds.size() - 1;
+		}
+
+		private int pivot(int id) {
+			return id < pivots.length ? pivots[id] : -1;
+		}
+
+		private void setPivot(int id, int row) {
+			if (id >= pivots.length) {
+				int length = pivots.length;
+				pivots = Arrays.copyOf(pivots, Math.max(2 * length, id + 1));
+				Arrays.fill(pivots, length, pivots.length, -1);
+			}
+			pivots[id] = row;
+		}
+
+		/**
+		 * Symbolic preprocessing: add a pivot row for every monomial that is divisible by a leading monomial of the
+		 * reducers, preferring the reducer with the fewest terms, and order the monomials to columns.
+		 * @return false if a monomial does not fit into the layout
+		 */
+		private boolean preprocess() {
+			for (; processed < monomials.size(); processed++) {
+				int id = processed;
+				if (pivot(id) >= 0)
+					continue;
+				long[] m = monomials.monomials();
+				int best = -1;
+				for (int g : reducers) {
+					Sparse element = elements.get(g);
+					if (layout.divides(element.monomials, 0, m, id) && (best < 0 || element.coefficients.length < elements.get(best).coefficients.length))
+						best = g;
+				}
+				if (best >= 0) {
+					layout.divide(m, id, elements.get(best).monomials, 0, multiplier, 0);
+					int row = add(best, multiplier);
+					if (row < 0)
+						return false;
+					setPivot(id, row);
+				}
+			}
+			columns = monomials.descending();
+			columnOf = new int[columns.length];
+			for (int col = 0; col < columns.length; col++)
+				columnOf[columns[col]] = col;
+			return true;
+		}
+
+		/**
+		 * @return the columns of the entries of a row, ascending
+		 */
+		private int[] rowColumns(int row) {
+			int[] ids = rowIds.get(row);
+			int[] result = new int[ids.length];
+			for (int i = 0; i < ids.length; i++)
+				result[i] = columnOf[ids[i]];
+			return result;
+		}
+
+		/**
+		 * @return the polynomial with the given columns and residues
+		 */
+		private Sparse sparse(int[] entryColumns, long[] values) {
+			long[] m = new long[entryColumns.length * layout.words];
+			long[] all = monomials.monomials();
+			for (int i = 0; i < entryColumns.length; i++)
+				System.arraycopy(all, columns[entryColumns[i]] * layout.words, m, i * layout.words, layout.words);
+			return new Sparse(layout, m, values);
+		}
+
+		/**
+		 * Reduce the rows to be reduced by the pivot rows and by each other.
+		 * @return the reduced rows with new leading monomials, monic, or null if a monomial does not fit into the
+		 * layout
+		 */
+		ArrayList<Sparse> reduce(long p) {
+			if (!preprocess())
+				return null;
+			int[][] pivotColumns = new int[columns.length][];
+			long[][] pivotValues = new long[columns.length][];
+			for (int id = 0; id < columns.length; id++) {
+				int row = pivot(id);
+				if (row < 0)
+					continue;
+				int[] c = rowColumns(row);
+				pivotColumns[c[0]] = c;
+				pivotValues[c[0]] = elements.get(rowElements.get(row)).coefficients;
+			}
+
+			ArrayList<Sparse> result = new ArrayList<Sparse>();
+			long[] accumulator = new long[columns.length];
+			for (int row : reduced) {
+				int[] c = rowColumns(row);
+				long[] v = elements.get(rowElements.get(row)).coefficients;
+				for (int i = 0; i < c.length; i++)
+					accumulator[c[i]] = v[i];
+				ArrayList<Integer> entryColumns = new ArrayList<Integer>();
+				ArrayList<Long> entryValues = new ArrayList<Long>();
+				eliminate(accumulator, c[0], pivotColumns, pivotValues, entryColumns, entryValues, p);
+				if (entryColumns.isEmpty())
+					continue;
+
+				/* a new pivot: make it monic and let the following rows be reduced by it */
+				int[] newColumns = new int[entryColumns.size()];
+				long[] newValues = new long[newColumns.length];
+				long inverse = PrimeFieldElement.inverse(entryValues.get(0), p);
+				for (int i = 0; i < newColumns.length; i++) {
+					newColumns[i] = entryColumns.get(i);
+					newValues[i] = entryValues.get(i) * inverse % p;
+				}
+				pivotColumns[newColumns[0]] = newColumns;
+				pivotValues[newColumns[0]] = newValues;
+				result.add(sparse(newColumns, newValues));
+			}
+			return result;
+		}
+
+		/**
+		 * Fully reduce all pivot rows, from the last column to the first, so that every row is reduced by all rows
+		 * below it.
+		 * @return the rows of the basis elements the matrix was set up with, reduced, or null if a monomial does not
+		 * fit into the layout
+		 */
+		ArrayList<Sparse> interreduce(long p) {
+			if (!preprocess())
+				return null;
+			int[] pivotRows = new int[columns.length];
+			Arrays.fill(pivotRows, -1);
+			for (int id = 0; id < columns.length; id++)
+				if (pivot(id) >= 0)
+					pivotRows[columnOf[id]] = pivot(id);
+
+			int[][] pivotColumns = new int[columns.length][];
+			long[][] pivotValues = new long[columns.length][];
+			long[] accumulator = new long[columns.length];
+			ArrayList<Integer> entryColumns = new ArrayList<Integer>();
+			ArrayList<Long> entryValues = new ArrayList<Long>();
+			for (int col = columns.length - 1; col >= 0; col--) {
+				int row = pivotRows[col];
+				if (row < 0)
+					continue;
+				int[] c = rowColumns(row);
+				long[] v = elements.get(rowElements.get(row)).coefficients;
+				for (int i = 1; i < c.length; i++)
+					accumulator[c[i]] = v[i];
+				entryColumns.clear();
+				entryValues.clear();
+				entryColumns.add(col);
+				entryValues.add(1L);
+				if (c.length > 1)
+					eliminate(accumulator, c[1], pivotColumns, pivotValues, entryColumns, entryValues, p);
+				int[] newColumns = new int[entryColumns.size()];
+				long[] newValues = new long[newColumns.length];
+				for (int i = 0; i < newColumns.length; i++) {
+					newColumns[i] = entryColumns.get(i);
+					newValues[i] = entryValues.get(i);
+				}
+				pivotColumns[col] = newColumns;
+				pivotValues[col] = newValues;
+			}
+
+			ArrayList<Sparse> result = new ArrayList<Sparse>();
+			for (int g : reducers) {
+				int col = columnOf[monomials.find(elements.get(g).monomials, 0)];
+				result.add(sparse(pivotColumns[col], pivotValues[col]));
+			}
+			return result;
+		}
+
+		/**
+		 * Eliminate the entries of the accumulator from column start on by the pivot rows, and move the remaining
+		 * nonzero entries, reduced modulo p, to the entry lists. The accumulator is left zero.
+		 */
+		private static void eliminate(long[] accumulator, int start, int[][] pivotColumns, long[][] pivotValues,
+				ArrayList<Integer> entryColumns, ArrayList<Long> entryValues, long p) {
+			long square = p * p;
+			for (int col = start; col < accumulator.length; col++) {
+				if (accumulator[col] == 0)
+					continue;
+				long value = accumulator[col] % p;
+				accumulator[col] = 0;
+				if (value == 0)
+					continue;
+				int[] c = pivotColumns[col];
+				if (c == null) {
+					entryColumns.add(col);
+					entryValues.add(value);
+					continue;
+				}
+				/* add -value times the monic pivot row, keeping the entries in [0, p^2) */
+				long factor = p - value;
+				long[] v = pivotValues[col];
+				for (int i = 1; i < c.length; i++) {
+					long entry = accumulator[c[i]] + factor * v[i];
+					accumulator[c[i]] = entry >= square ? entry - square : entry;
+				}
+			}
+		}
+	}
+}
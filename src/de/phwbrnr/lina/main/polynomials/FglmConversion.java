@@ -0,0 +1,299 @@
+/**
+ * Convert the Groebner basis of a zero-dimensional ideal to the lex order by the change of order of Faugere, Gianni,
+ * Lazard and Mora.
+ *
+ * The direct computation of a lex basis reduces by elements whose tails have a far higher degree than their leading
+ * monomials; even with the sugar strategy, the intermediate polynomials of systems whose lex basis has degree 20
+ * reach degrees in the hundreds, or rational coefficients with thousands of digits. In a graded order this cannot
+ * happen, so the Groebner strategies compute lex bases in GREVLEX first. If every variable has a pure power among the
+ * leading monomials, the ideal is zero-dimensional, and the monomials below the staircase, b_1, ..., b_D, are a basis
+ * of the quotient ring as a vector space over the coefficient field. The normal forms of x_i b_j give the matrices of
+ * the multiplications by the variables, and the lex basis follows by linear algebra in dimension D:
+ * - the monomials m are visited in ascending lex order, starting from 1, each as x_i times a monomial visited before,
+ *   so that its normal form is the product of the multiplication matrix of x_i and a known normal form;
+ * - if the normal form of m is a combination of those of the lex standard monomials found so far, the relation
+ *   m - sum a_k b'_k is an element of the lex basis, and the multiples of m are not visited; otherwise m is a new
+ *   lex standard monomial, and its multiples x_i m are visited later.
+ * The elements come out monic with their tails in the lex staircase, so they form the reduced lex basis. The cost is
+ * about n D^3 coefficient operations, for D the number of solutions with multiplicity.
+ *
+ * Both sides know their degrees in advance, so their MonomialLayouts are chosen once: the standard monomials of
+ * the graded basis lie below the pure powers x_i^(a_i), so they and their multiples x_i b_j have a total degree of at
+ * most sum (a_i - 1) + 1, and a lex standard monomial has no exponent of D or more, as its divisors are standard too.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import de.phwbrnr.lina.main.fields.ElementNotInvertibleException;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+final class FglmConversion {
+	private MultivariatePolynomialRing graded;
+	private MultivariatePolynomial[] basis;
+	private RingElement zero;
+	/* the layout of the graded side, which holds the standard monomials and their multiples by the variables */
+	private MonomialLayout layout;
+	private long[][] variables;
+	/* the monomials below the staircase of the graded basis, by their id as index */
+	private MonomialTable standard;
+	/* column j of multiplications[i] is the normal form of x_i b_j */
+	private RingElement[][][] multiplications;
+
+	private FglmConversion(ArrayList<MultivariatePolynomial> basis) {
+		this.basis = basis.toArray(new MultivariatePolynomial[basis.size()]);
+		graded = this.basis[0].getRing();
+		zero = graded.getCoefficientRing().getZero();
+	}
+
+	/**
+	 * @param ring the ring in the LEX order to convert to, with the same coefficients and variables
+	 * @param basis the reduced Groebner basis of an ideal in a graded order, over a field
+	 * @return the reduced lex basis of the ideal, sorted by descending leading monomials, or null if the ideal is not
+	 * zero-dimensional
+	 */
+	static ArrayList<MultivariatePolynomial> convert(MultivariatePolynomialRing ring, ArrayList<MultivariatePolynomial> basis) throws OperationUndefinedException {
+		if (basis.isEmpty())
+			return null;
+		FglmConversion conversion = new FglmConversion(basis);
+		if (!conversion.isZeroDimensional())
+			return null;
+		return conversion.convert(ring);
+	}
+
+	/**
+	 * Check that every variable has a pure power among the leading monomials, and enumerate the standard monomials.
+	 * @return whether the ideal is zero-dimensional
+	 */
+	private boolean isZeroDimensional() {
+		int n = graded.getVariableCount();
+		/* the smallest pure power of every variable among the leading monomials, or 0 */
+		long[] powers = new long[n];
+		boolean unit = false;
+		for (MultivariatePolynomial g : basis) {
+			int[] e = g.getLeadingExponents();
+			int support = 0, variable = 0;
+			for (int i = 0; i < n; i++) {
+				if (e[i] > 0) {
+					support++;
+					variable = i;
+				}
+			}
+			if (support == 1 && (powers[variable] == 0 || e[variable] < powers[variable]))
+				powers[variable] = e[variable];
+			else if (support == 0)
+				/* the unit ideal, whose quotient ring is zero */
+				unit = true;
+		}
+		long degree = 1;
+		for (long a : powers) {
+			if (a == 0 && !unit)
+				return false;
+			degree += Math.max(a - 1, 0);
+		}
+
+		layout = graded.layoutFor(Math.min(degree, Integer.MAX_VALUE));
+		for (MultivariatePolynomial g : basis)
+			layout = MonomialLayout.wider(layout, g.layout());
+		for (int k = 0; k < basis.length; k++)
+			basis[k] = basis[k].repack(layout);
+		variables = new long[n][];
+		for (int i = 0; i < n; i++)
+			variables[i] = layout.variable(i);
+		standard = new MonomialTable(layout);
+		/* the monomials visited so far; those from index visited on are still to be visited */
+		MonomialTable pending = new MonomialTable(layout);
+		long[] next = new long[layout.words];
+		pending.add(next, 0);
+		for (int visited = 0; visited < pending.size(); visited++) {
+			long[] m = pending.monomials();
+			if (reducer(m, visited) != null)
+				continue;
+			standard.add(m, visited);
+			for (int i = 0; i < n; i++) {
+				layout.multiply(pending.monomials(), visited, variables[i], 0, next, 0);
+				pending.add(next, 0);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the lex basis, from the normal forms of the monomials
+	 */
+	private ArrayList<MultivariatePolynomial> convert(MultivariatePolynomialRing ring) throws OperationUndefinedException {
+		int n = graded.getVariableCount(), d = standard.size();
+		multiplications = new RingElement[n][d][];
+		long[] product = new long[layout.words];
+		for (int b = 0; b < d; b++) {
+			for (int i = 0; i < n; i++) {
+				layout.multiply(standard.monomials(), b, variables[i], 0, product, 0);
+				multiplications[i][b] = normalForm(product);
+			}
+		}
+
+		MonomialLayout lex = ring.layoutFor(Math.max(d, 1));
+		long[][] lexVariables = new long[n][];
+		for (int i = 0; i < n; i++)
+			lexVariables[i] = lex.variable(i);
+		/* the lex standard monomials with their normal forms, and the echelon form of these: row r has its pivot in
+		 * column pivots[r], and combinations[r] expresses it by the normal forms of the lex standard monomials */
+		ArrayList<Integer> lexStandard = new ArrayList<Integer>();
+		ArrayList<RingElement[]> forms = new ArrayList<RingElement[]>();
+		ArrayList<Integer> pivots = new ArrayList<Integer>();
+		ArrayList<RingElement[]> rows = new ArrayList<RingElement[]>(), combinations = new ArrayList<RingElement[]>();
+		ArrayList<MultivariatePolynomial> result = new ArrayList<MultivariatePolynomial>();
+		ArrayList<Integer> leads = new ArrayList<Integer>();
+
+		/* the monomials to visit by their id, with the variable and the lex standard monomial they are a multiple of */
+		MonomialTable monomials = new MonomialTable(lex);
+		TreeSet<Integer> candidates = new TreeSet<Integer>((a, b) -> lex.compare(monomials.monomials(), a, monomials.monomials(), b));
+		ArrayList<int[]> origins = new ArrayList<int[]>();
+		long[] next = new long[lex.words];
+		candidates.add(monomials.add(next, 0));
+		origins.add(null);
+		while (!candidates.isEmpty()) {
+			int m = candidates.pollFirst();
+			boolean multiple = false;
+			for (int lead : leads)
+				multiple |= lex.divides(monomials.monomials(), lead, monomials.monomials(), m);
+			if (multiple)
+				continue;
+
+			RingElement[] form;
+			int[] origin = origins.get(m);
+			if (origin == null)
+				form = normalForm(new long[layout.words]);
+			else
+				form = multiply(multiplications[origin[0]], forms.get(origin[1]));
+
+			/* reduce the normal form by the echelon rows, and track the combination of the lex standard monomials */
+			RingElement[] v = form.clone(), c = new RingElement[d];
+			Arrays.fill(c, zero);
+			for (int r = 0; r < rows.size(); r++) {
+				RingElement factor = v[pivots.get(r)];
+				if (factor.isZero())
+					continue;
+				subtract(v, rows.get(r), factor);
+				subtract(c, combinations.get(r), factor);
+			}
+			int pivot = 0;
+			while (pivot < d && v[pivot].isZero())
+				pivot++;
+
+			if (pivot == d) {
+				/* the normal form of m + sum_k c_k b'_k vanishes */
+				MultivariatePolynomial.Terms terms = new MultivariatePolynomial.Terms(lex);
+				terms.add(monomials.monomials(), m, ring.getCoefficientRing().getOne());
+				for (int k = lexStandard.size() - 1; k >= 0; k--)
+					if (!c[k].isZero())
+						terms.add(monomials.monomials(), lexStandard.get(k), c[k]);
+				result.add(terms.build(ring));
+				leads.add(m);
+				continue;
+			}
+
+			/* a new lex standard monomial: v = NF(m) + sum_k c_k NF(b'_k), scaled to a monic pivot */
+			int index = lexStandard.size();
+			c[index] = ring.getCoefficientRing().getOne();
+			RingElement inverse;
+			try {
+				inverse = v[pivot].inverse();
+			} catch (ElementNotInvertibleException ex) {
+				throw new OperationUndefinedException("The coefficient " + v[pivot] + " is not invertible");
+			}
+			for (int j = 0; j < d; j++)
+				v[j] = v[j].multiply(inverse);
+			for (int k = 0; k <= index; k++)
+				c[k] = c[k].multiply(inverse);
+			rows.add(v);
+			combinations.add(c);
+			pivots.add(pivot);
+			lexStandard.add(m);
+			forms.add(form);
+			for (int i = 0; i < n; i++) {
+				lex.multiply(monomials.monomials(), m, lexVariables[i], 0, next, 0);
+				int id = monomials.add(next, 0);
+				if (id == origins.size()) {
+					origins.add(new int[] { i, index });
+					candidates.add(id);
+				}
+			}
+		}
+		result.sort((f, g) -> lex.compare(g.monomials(), 0, f.monomials(), 0));
+		return result;
+	}
+
+	/**
+	 * @return the basis element whose leading monomial divides m_i, or null if m_i is a standard monomial
+	 */
+	private MultivariatePolynomial reducer(long[] m, int i) {
+		for (MultivariatePolynomial g : basis)
+			if (layout.divides(g.monomials(), 0, m, i))
+				return g;
+		return null;
+	}
+
+	/**
+	 * @return the normal form of a monomial by the graded basis, as its coefficients on the standard monomials
+	 */
+	private RingElement[] normalForm(long[] m) throws OperationUndefinedException {
+		RingElement[] result = new RingElement[standard.size()];
+		Arrays.fill(result, zero);
+		TreeMap<long[], RingElement> terms = new TreeMap<long[], RingElement>((a, b) -> layout.compare(a, 0, b, 0));
+		terms.put(m.clone(), graded.getCoefficientRing().getOne());
+		long[] u = new long[layout.words];
+		while (!terms.isEmpty()) {
+			long[] t = terms.lastKey();
+			RingElement c = terms.remove(t);
+			int index = standard.find(t, 0);
+			if (index >= 0) {
+				result[index] = c;
+				continue;
+			}
+			/* t = u lt(g) for a monic g: replace it by -c u (g - lt(g)), whose monomials are smaller */
+			MultivariatePolynomial g = reducer(t, 0);
+			long[] monomials = g.monomials();
+			layout.divide(t, 0, monomials, 0, u, 0);
+			RingElement[] coefficients = g.coefficients();
+			for (int i = 1; i < coefficients.length; i++) {
+				long[] product = new long[layout.words];
+				layout.multiply(monomials, i, u, 0, product, 0);
+				RingElement value = terms.getOrDefault(product, zero).subtract(c.multiply(coefficients[i]));
+				if (value.isZero())
+					terms.remove(product);
+				else
+					terms.put(product, value);
+			}
+		}
+		return result;
+	}
+	private RingElement[] multiply(RingElement[][] columns, RingElement[] v) throws OperationUndefinedException {
+		RingElement[] result = new RingElement[v.length];
+		Arrays.fill(result, zero);
+		for (int j = 0; j < v.length; j++) {
+			if (v[j].isZero())
+				continue;
+			RingElement[] column = columns[j];
+			for (int i = 0; i < result.length; i++)
+				if (!column[i].isZero())
+					result[i] = result[i].add(v[j].multiply(column[i]));
+		}
+		return result;
+	}
+
+	/**
+	 * Subtract factor times the row b from the row a.
+	 */
+	private static void subtract(RingElement[] a, RingElement[] b, RingElement factor) throws OperationUndefinedException {
+		for (int i = 0; i < b.length; i++)
+			if (!b[i].isZero())
+				a[i] = a[i].subtract(factor.multiply(b[i]));
+	}
+}
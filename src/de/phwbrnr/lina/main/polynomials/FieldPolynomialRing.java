@@ -40,21 +40,27 @@ public class FieldPolynomialRing extends PolynomialRing implements EuclideanRing
 			throws OperationUndefinedException {
 		if(divis.isZero())
 			throw new OperationUndefinedException("Division by zero not possible");
+		if(!contains(divid) || !contains(divis))
+			throw new OperationUndefinedException("Dividend " + divid.toString() + " and divisor " + divis.toString() + " have to be elements of " + getName());
 		
-		Polynomial remainder = (Polynomial)divid, divisor = (Polynomial)divis;
-		Polynomial quotient = null;
-		Field coefficientField = (Field)remainder.getRing();
-		
-		while(degree(remainder) > degree(divisor)) {
-			int newdeg = degree(remainder) - degree(divisor);
-			RingElement factor = remainder.getLeadingCoefficient().divide(divisor.getLeadingCoefficient());
-			Polynomial new_quotient = new Polynomial(coefficientField, newdeg, factor);
-			
-			remainder = remainder.subtract(new_quotient.multiply(divisor));
-			quotient = quotient.add(new_quotient);
-		}
-		
-		return new RingElement[] {quotient, remainder};
+		Polynomial dividend = asPolynomial(divid), divisor = asPolynomial(divis);
+		return dividend.divideWithRemainder(divisor);
+	}
+	
+	/**
+	 * Compute the polynomial of degree less than the number of points that takes the given values at the given
+	 * (pairwise distinct) points.
+	 * If the same points are used repeatedly, build a SubproductTree once and use SubproductTree.interpolate().
+	 * @throws OperationUndefinedException if two points coincide or the values are not elements of the coefficient field.
+	 */
+	public Polynomial interpolate(RingElement[] points, RingElement[] values) throws OperationUndefinedException {
+		return new SubproductTree(getCoefficientRing(), points).interpolate(values);
+	}
+	
+	private Polynomial asPolynomial(RingElement element) {
+		if(element instanceof Polynomial)
+			return (Polynomial)element;
+		return new Polynomial(getCoefficientRing(), element);
 	}
 
 }
@@ -0,0 +1,149 @@
+/**
+ * Quadratic multifactor Hensel lifting of a factorization modulo a prime p to a factorization modulo p^a.
+ *
+ * Given an integer polynomial f whose leading coefficient is not divisible by p and pairwise coprime monic factors
+ * g_1, ..., g_r with f = lc(f) g_1 ... g_r modulo p, the factors are arranged as the leaves of a balanced binary tree.
+ * Every inner node holds the product of its leaves together with Bezout cofactors s, t of its two children, and one
+ * Hensel step lifts factors and cofactors of a node from modulus m to (almost) m^2 at once; the steps then descend
+ * into the children. The precision therefore doubles in every round, and each round only costs a constant number of
+ * polynomial multiplications per tree level.
+ *
+ * The lifting is incremental: after liftTo(a), a later liftTo(b) with b greater than a continues from p^a.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+final class HenselLifting {
+	private final BigInteger[] f;
+	private final BigInteger p;
+	private final Node root;
+	private final Node[] leaves;
+	private int exponent;
+	private BigInteger modulus;
+
+	private static final class Node {
+		BigInteger[] polynomial;
+		Node left, right;
+		/* s left + t right = 1 modulo the current modulus */
+		BigInteger[] s, t;
+	}
+
+	/**
+	 * @param f an integer polynomial whose leading coefficient is not divisible by p
+	 * @param p a prime smaller than 2^31
+	 * @param factors pairwise coprime monic factors modulo p, whose product is f / lc(f) modulo p
+	 */
+	HenselLifting(BigInteger[] f, long p, List<long[]> factors) {
+		this.f = f;
+		this.p = BigInteger.valueOf(p);
+		this.leaves = new Node[factors.size()];
+		this.root = build(factors, 0, factors.size(), p);
+		this.exponent = 1;
+		this.modulus = this.p;
+	}
+
+	private Node build(List<long[]> factors, int from, int to, long p) {
+		Node node = new Node();
+		if (to - from == 1) {
+			node.polynomial = IntegerPolynomialArithmetic.fromResidues(factors.get(from));
+			leaves[from] = node;
+			return node;
+		}
+
+		/* split where half of the total degree is reached, so that both subtrees are about equally expensive */
+		int total = 0;
+		for (int i = from; i < to; i++)
+			total += factors.get(i).length - 1;
+		int mid = from + 1, degree = factors.get(from).length - 1;
+		while (mid < to - 1 && 2 * (degree + factors.get(mid).length - 1) <= total)
+			degree += factors.get(mid++).length - 1;
+
+		node.left = build(factors, from, mid, p);
+		node.right = build(factors, mid, to, p);
+		long[] g = IntegerPolynomialArithmetic.toResidues(node.left.polynomial, p);
+		long[] h = IntegerPolynomialArithmetic.toResidues(node.right.polynomial, p);
+		long[][] gst = PrimeFieldArithmetic.extendedGcd(g, h, p);
+		if (!PrimeFieldArithmetic.isOne(gst[0]))
+			throw new IllegalArgumentException("Factors for Hensel lifting are not coprime modulo " + p);
+		node.polynomial = IntegerPolynomialArithmetic.fromResidues(PrimeFieldArithmetic.multiply(g, h, p));
+		node.s = IntegerPolynomialArithmetic.fromResidues(gst[1]);
+		node.t = IntegerPolynomialArithmetic.fromResidues(gst[2]);
+		return node;
+	}
+
+	/**
+	 * Lift the factorization to the modulus p^a; nothing happens if it already is at least that precise.
+	 */
+	void liftTo(int a) {
+		if (a <= exponent)
+			return;
+
+		/* a, ceil(a/2), ceil(a/4), ... down to the current exponent: each step at most squares the modulus */
+		ArrayList<Integer> chain = new ArrayList<Integer>();
+		for (int e = a; e > exponent; e = Math.max((e + 1) / 2, exponent))
+			chain.add(e);
+		for (int i = chain.size() - 1; i >= 0; i--) {
+			int e = chain.get(i);
+			BigInteger next = p.pow(e);
+			BigInteger lcInverse = IntegerPolynomialArithmetic.leadingCoefficient(f).modInverse(next);
+			lift(root, IntegerPolynomialArithmetic.scaleMod(f, lcInverse, next), next);
+			exponent = e;
+			modulus = next;
+		}
+	}
+
+	/**
+	 * Hensel step at a node (von zur Gathen and Gerhard, Algorithm 15.10), followed by the steps at its children.
+	 * @param target the monic lifted product of the node's leaves modulo m, congruent to the current product modulo
+	 * the current modulus
+	 */
+	private static void lift(Node node, BigInteger[] target, BigInteger m) {
+		node.polynomial = target;
+		if (node.left == null)
+			return;
+
+		BigInteger[] g = node.left.polynomial, h = node.right.polynomial, s = node.s, t = node.t;
+		BigInteger[] e = IntegerPolynomialArithmetic.subtractMod(target, IntegerPolynomialArithmetic.multiplyMod(g, h, m), m);
+		BigInteger[][] qr = IntegerPolynomialArithmetic.divideWithRemainderMod(IntegerPolynomialArithmetic.multiplyMod(s, e, m), h, m);
+		BigInteger[] gLifted = IntegerPolynomialArithmetic.addMod(g, IntegerPolynomialArithmetic.addMod(
+				IntegerPolynomialArithmetic.multiplyMod(t, e, m), IntegerPolynomialArithmetic.multiplyMod(qr[0], g, m), m), m);
+		BigInteger[] hLifted = IntegerPolynomialArithmetic.addMod(h, qr[1], m);
+
+		BigInteger[] b = IntegerPolynomialArithmetic.subtractMod(IntegerPolynomialArithmetic.addMod(
+				IntegerPolynomialArithmetic.multiplyMod(s, gLifted, m), IntegerPolynomialArithmetic.multiplyMod(t, hLifted, m), m),
+				IntegerPolynomialArithmetic.ONE, m);
+		BigInteger[][] cd = IntegerPolynomialArithmetic.divideWithRemainderMod(IntegerPolynomialArithmetic.multiplyMod(s, b, m), hLifted, m);
+		node.s = IntegerPolynomialArithmetic.subtractMod(s, cd[1], m);
+		node.t = IntegerPolynomialArithmetic.subtractMod(IntegerPolynomialArithmetic.subtractMod(t,
+				IntegerPolynomialArithmetic.multiplyMod(t, b, m), m), IntegerPolynomialArithmetic.multiplyMod(cd[0], gLifted, m), m);
+
+		lift(node.left, gLifted, m);
+		lift(node.right, hLifted, m);
+	}
+
+	/**
+	 * @return the lifted monic factors, in the order in which they were passed to the constructor
+	 */
+	BigInteger[][] getFactors() {
+		BigInteger[][] result = new BigInteger[leaves.length][];
+		for (int i = 0; i < leaves.length; i++)
+			result[i] = leaves[i].polynomial;
+		return result;
+	}
+
+	int getExponent() {
+		return exponent;
+	}
+
+	/**
+	 * @return p^a, where a is the current exponent
+	 */
+	BigInteger getModulus() {
+		return modulus;
+	}
+}
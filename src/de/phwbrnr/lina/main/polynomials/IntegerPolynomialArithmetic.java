@@ -0,0 +1,603 @@
+/**
+ * Arithmetic on polynomials over the integers, and over Z/mZ, with BigInteger coefficients.
+ *
+ * The factorization of integer polynomials works with coefficients far beyond the range of a long (the modulus p^a
+ * of Hensel lifting, intermediate products), so it converts its input once into BigInteger arrays instead of going
+ * through IntegerElement for every coefficient operation.
+ *
+ * Arrays hold the coefficients in ascending order and are trimmed: either empty (the zero polynomial) or with a
+ * nonzero last entry. The methods ending in Mod expect coefficients reduced into [0, m) and return them reduced. The
+ * methods never modify their arguments.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import de.phwbrnr.lina.main.fields.Fraction;
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.IntegerRing;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.RationalsField;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+final class IntegerPolynomialArithmetic {
+	/**
+	 * From this length (of the shorter factor) on, products are computed by Kronecker substitution, that is,
+	 * by packing both polynomials into one large integer each and using the subquadratic BigInteger multiplication.
+	 */
+	static final int KRONECKER_THRESHOLD = 8;
+	static final BigInteger[] ZERO = new BigInteger[0];
+	static final BigInteger[] ONE = new BigInteger[] { BigInteger.ONE };
+
+	private IntegerPolynomialArithmetic() {
+	}
+
+	/**
+	 * A square-free factor together with its multiplicity.
+	 */
+	static final class Factor {
+		final BigInteger[] polynomial;
+		final int multiplicity;
+
+		Factor(BigInteger[] polynomial, int multiplicity) {
+			this.polynomial = polynomial;
+			this.multiplicity = multiplicity;
+		}
+	}
+
+	/**
+	 * @return the coefficients of a polynomial over the integers
+	 * @throws IllegalArgumentException if the polynomial is not over the IntegerRing
+	 */
+	static BigInteger[] fromPolynomial(Polynomial f) {
+		if (!(f.getRing() instanceof IntegerRing))
+			throw new IllegalArgumentException("Polynomial " + f + " is not over the integers");
+
+		BigInteger[] a = new BigInteger[f.getDegree() + 1];
+		RingElement[] c = f.getCoefficients();
+		for (int i = 0; i < a.length; i++)
+			a[i] = ((IntegerElement)c[i]).getBigValue();
+		return a;
+	}
+
+	/**
+	 * @return the coefficients of a polynomial over the rationals, multiplied by the least common multiple of their
+	 * denominators
+	 * @throws IllegalArgumentException if the polynomial is not over the RationalsField
+	 */
+	static BigInteger[] fromRationalPolynomial(Polynomial f) {
+		if (!(f.getRing() instanceof RationalsField))
+			throw new IllegalArgumentException("Polynomial " + f + " is not over the rationals");
+
+		RingElement[] c = f.getCoefficients();
+		BigInteger[] numerators = new BigInteger[f.getDegree() + 1];
+		BigInteger[] denominators = new BigInteger[numerators.length];
+		BigInteger lcm = BigInteger.ONE;
+		for (int i = 0; i < numerators.length; i++) {
+			if (c[i] instanceof Fraction) {
+				numerators[i] = ((IntegerElement)((Fraction)c[i]).getNumerator()).getBigValue();
+				denominators[i] = ((IntegerElement)((Fraction)c[i]).getDenominator()).getBigValue();
+			} else {
+				numerators[i] = ((IntegerElement)c[i]).getBigValue();
+				denominators[i] = BigInteger.ONE;
+			}
+			lcm = lcm.divide(lcm.gcd(denominators[i])).multiply(denominators[i]);
+		}
+		for (int i = 0; i < numerators.length; i++)
+			numerators[i] = numerators[i].multiply(lcm.divide(denominators[i]));
+		return numerators;
+	}
+
+	static Polynomial toPolynomial(BigInteger[] a) {
+		RingElement[] c = new RingElement[a.length];
+		for (int i = 0; i < a.length; i++)
+			c[i] = new IntegerElement(a[i]);
+		return new Polynomial(IntegerRing.getInstance(), c, true);
+	}
+
+	static BigInteger[] trim(BigInteger[] a) {
+		int len = a.length;
+		while (len > 0 && a[len - 1].signum() == 0)
+			len--;
+		if (len == a.length)
+			return a;
+		BigInteger[] result = new BigInteger[len];
+		System.arraycopy(a, 0, result, 0, len);
+		return result;
+	}
+
+	static BigInteger leadingCoefficient(BigInteger[] a) {
+		return a.length == 0 ? BigInteger.ZERO : a[a.length - 1];
+	}
+
+	static BigInteger[] add(BigInteger[] a, BigInteger[] b) {
+		if (a.length < b.length) {
+			BigInteger[] t = a;
+			a = b;
+			b = t;
+		}
+		BigInteger[] result = a.clone();
+		for (int i = 0; i < b.length; i++)
+			result[i] = a[i].add(b[i]);
+		return trim(result);
+	}
+
+	static BigInteger[] subtract(BigInteger[] a, BigInteger[] b) {
+		BigInteger[] result = new BigInteger[Math.max(a.length, b.length)];
+		for (int i = 0; i < result.length; i++) {
+			BigInteger x = i < a.length ? a[i] : BigInteger.ZERO;
+			result[i] = i < b.length ? x.subtract(b[i]) : x;
+		}
+		return trim(result);
+	}
+
+	static BigInteger[] scale(BigInteger[] a, BigInteger c) {
+		if (c.signum() == 0)
+			return ZERO;
+		BigInteger[] result = new BigInteger[a.length];
+		for (int i = 0; i < a.length; i++)
+			result[i] = a[i].multiply(c);
+		return result;
+	}
+
+	static BigInteger[] multiply(BigInteger[] a, BigInteger[] b) {
+		if (a.length == 0 || b.length == 0)
+			return ZERO;
+		if (Math.min(a.length, b.length) >= KRONECKER_THRESHOLD)
+			return multiplyKronecker(a, b);
+		BigInteger[] result = new BigInteger[a.length + b.length - 1];
+		for (int k = 0; k < result.length; k++) {
+			BigInteger acc = BigInteger.ZERO;
+			for (int i = Math.max(0, k - b.length + 1); i <= Math.min(k, a.length - 1); i++)
+				acc = acc.add(a[i].multiply(b[k - i]));
+			result[k] = acc;
+		}
+		return result;
+	}
+
+	/**
+	 * Multiply signed integer polynomials by Kronecker substitution: both are evaluated at a power of two large
+	 * enough that the coefficients of the product can be read off its balanced digits.
+	 */
+	private static BigInteger[] multiplyKronecker(BigInteger[] a, BigInteger[] b) {
+		int bits = maxBitLength(a) + maxBitLength(b) + 34 - Integer.numberOfLeadingZeros(Math.min(a.length, b.length));
+		int slot = bits / 8 + 1;
+		BigInteger product = packSigned(a, slot).multiply(packSigned(b, slot));
+
+		byte[] bytes = product.toByteArray();
+		byte sign = (byte)(product.signum() < 0 ? -1 : 0);
+		BigInteger half = BigInteger.ONE.shiftLeft(8 * slot - 1), full = half.shiftLeft(1);
+		BigInteger[] result = new BigInteger[a.length + b.length - 1];
+		byte[] c = new byte[slot];
+		boolean carry = false;
+		for (int k = 0; k < result.length; k++) {
+			int end = bytes.length - k * slot;
+			for (int i = 0; i < slot; i++) {
+				int pos = end - slot + i;
+				c[i] = pos >= 0 ? bytes[pos] : sign;
+			}
+			BigInteger t = new BigInteger(1, c);
+			if (carry)
+				t = t.add(BigInteger.ONE);
+			carry = t.compareTo(half) >= 0;
+			result[k] = carry ? t.subtract(full) : t;
+		}
+		return result;
+	}
+
+	private static int maxBitLength(BigInteger[] a) {
+		int result = 0;
+		for (BigInteger c : a)
+			result = Math.max(result, c.bitLength());
+		return result;
+	}
+
+	private static BigInteger packSigned(BigInteger[] a, int slot) {
+		BigInteger[] positive = new BigInteger[a.length], negative = new BigInteger[a.length];
+		boolean hasNegative = false;
+		for (int i = 0; i < a.length; i++) {
+			positive[i] = a[i].signum() > 0 ? a[i] : BigInteger.ZERO;
+			negative[i] = a[i].signum() < 0 ? a[i].negate() : BigInteger.ZERO;
+			hasNegative |= a[i].signum() < 0;
+		}
+		BigInteger result = new BigInteger(1, pack(positive, slot));
+		return hasNegative ? result.subtract(new BigInteger(1, pack(negative, slot))) : result;
+	}
+
+	/**
+	 * @return a(X + 1), by the classical method with n^2/2 additions. Splitting a = lo + X^m hi and multiplying
+	 * hi(X + 1) by (X + 1)^m is asymptotically faster only with FFT-based integer multiplication; with the Toom-Cook
+	 * multiplication of BigInteger, it was about twice as slow as this for all tested degrees and coefficient sizes.
+	 */
+	static BigInteger[] taylorShift(BigInteger[] a) {
+		int n = a.length;
+		BigInteger[] r = a.clone();
+		for (int i = 0; i < n - 1; i++) {
+			for (int j = n - 2; j >= i; j--)
+				r[j] = r[j].add(r[j + 1]);
+		}
+		return r;
+	}
+
+	/**
+	 * @return a(X + 2^k), computed as a(2^k X) shifted by one and scaled back, which only needs bit shifts
+	 */
+	static BigInteger[] taylorShift(BigInteger[] a, int k) {
+		if (k == 0)
+			return taylorShift(a);
+		BigInteger[] scaled = new BigInteger[a.length];
+		for (int i = 0; i < a.length; i++)
+			scaled[i] = a[i].shiftLeft(k * i);
+		BigInteger[] shifted = taylorShift(scaled);
+		for (int i = 0; i < shifted.length; i++)
+			shifted[i] = shifted[i].shiftRight(k * i);
+		return shifted;
+	}
+
+	/**
+	 * @return X^(n-1) a(1/X) for an array of length n, that is, the coefficients in reverse order
+	 */
+	static BigInteger[] reverse(BigInteger[] a) {
+		BigInteger[] result = new BigInteger[a.length];
+		for (int i = 0; i < a.length; i++)
+			result[i] = a[a.length - 1 - i];
+		return trim(result);
+	}
+
+	/**
+	 * @return the sign of a(num / den) for a positive denominator
+	 */
+	static int signAt(BigInteger[] a, BigInteger num, BigInteger den) {
+		if (a.length == 0)
+			return 0;
+		/* den^n a(num / den) by the homogenized Horner scheme */
+		BigInteger acc = a[a.length - 1], power = BigInteger.ONE;
+		for (int i = a.length - 2; i >= 0; i--) {
+			power = power.multiply(den);
+			acc = acc.multiply(num).add(a[i].multiply(power));
+		}
+		return acc.signum();
+	}
+
+	static BigInteger[] derivative(BigInteger[] a) {
+		if (a.length <= 1)
+			return ZERO;
+		BigInteger[] result = new BigInteger[a.length - 1];
+		for (int i = 1; i < a.length; i++)
+			result[i - 1] = a[i].multiply(BigInteger.valueOf(i));
+		return trim(result);
+	}
+
+	/**
+	 * @return the non-negative greatest common divisor of the coefficients
+	 */
+	static BigInteger content(BigInteger[] a) {
+		BigInteger c = BigInteger.ZERO;
+		for (int i = a.length - 1; i >= 0 && !c.equals(BigInteger.ONE); i--)
+			c = c.gcd(a[i]);
+		return c;
+	}
+
+	/**
+	 * @return a divided by its content, with a positive leading coefficient
+	 */
+	static BigInteger[] primitivePart(BigInteger[] a) {
+		if (a.length == 0)
+			return a;
+		BigInteger c = content(a);
+		if (leadingCoefficient(a).signum() < 0)
+			c = c.negate();
+		if (c.equals(BigInteger.ONE))
+			return a;
+		BigInteger[] result = new BigInteger[a.length];
+		for (int i = 0; i < a.length; i++)
+			result[i] = a[i].divide(c);
+		return result;
+	}
+
+	/**
+	 * Divide a by a nonzero b over the integers.
+	 * @return the quotient, or null if b does not divide a in Z[X]. The constant terms are checked first, since a
+	 * failing trial division usually fails there.
+	 */
+	static BigInteger[] divideExact(BigInteger[] a, BigInteger[] b) {
+		int db = b.length - 1;
+		if (a.length == 0)
+			return ZERO;
+		if (a.length - 1 < db)
+			return null;
+		if (b[0].signum() != 0 && a[0].remainder(b[0]).signum() != 0)
+			return null;
+
+		BigInteger lc = b[db];
+		BigInteger[] r = a.clone();
+		BigInteger[] q = new BigInteger[a.length - db];
+		for (int i = a.length - 1; i >= db; i--) {
+			BigInteger[] qr = r[i].divideAndRemainder(lc);
+			if (qr[1].signum() != 0)
+				return null;
+			BigInteger c = qr[0];
+			q[i - db] = c;
+			if (c.signum() == 0)
+				continue;
+			for (int j = 0; j < db; j++)
+				r[i - db + j] = r[i - db + j].subtract(c.multiply(b[j]));
+		}
+		for (int j = 0; j < db; j++) {
+			if (r[j].signum() != 0)
+				return null;
+		}
+		return q;
+	}
+
+	/**
+	 * Pseudo-remainder of a by b: the remainder of lc(b)^(deg a - deg b + 1) a divided by b, which is an integer
+	 * polynomial.
+	 */
+	static BigInteger[] pseudoRemainder(BigInteger[] a, BigInteger[] b) {
+		int db = b.length - 1;
+		if (a.length - 1 < db)
+			return a;
+		BigInteger lc = b[db];
+		BigInteger[] r = a.clone();
+		for (int i = a.length - 1; i >= db; i--) {
+			BigInteger c = r[i];
+			for (int j = 0; j < i; j++)
+				r[j] = r[j].multiply(lc);
+			if (c.signum() != 0) {
+				for (int j = 0; j < db; j++)
+					r[i - db + j] = r[i - db + j].subtract(c.multiply(b[j]));
+			}
+			r[i] = BigInteger.ZERO;
+		}
+		return trim(r);
+	}
+
+	/**
+	 * Greatest common divisor over the integers: the gcd of the contents times the gcd of the primitive parts, which
+	 * MultiModularGcd computes from the gcds modulo many primes. If the gcd modulo one prime not dividing both leading
+	 * coefficients is constant, so is the gcd over Z, which settles most coprime inputs after a single modular gcd.
+	 * @return the greatest common divisor with a positive leading coefficient
+	 */
+	static BigInteger[] gcd(BigInteger[] a, BigInteger[] b) {
+		if (a.length == 0)
+			return primitivePart(b);
+		if (b.length == 0)
+			return primitivePart(a);
+		BigInteger c = content(a).gcd(content(b));
+		a = primitivePart(a);
+		b = primitivePart(b);
+		if (a.length == 1 || b.length == 1)
+			return new BigInteger[] { c };
+
+		/* 2^31 - 1 is prime */
+		long p = PrimeField.MAX_CHARACTERISTIC - 1;
+		BigInteger bp = BigInteger.valueOf(p);
+		if (leadingCoefficient(a).gcd(leadingCoefficient(b)).mod(bp).signum() != 0
+				&& PrimeFieldArithmetic.gcd(toResidues(a, p), toResidues(b, p), p).length == 1)
+			return new BigInteger[] { c };
+		BigInteger[] g = new MultiModularGcd().execute(a, b);
+		/* the bound proves the result unless all primes were unlucky, which the trial division rules out */
+		if (!MultiModularGcd.divides(g, a, b))
+			g = remainderSequenceGcd(a, b);
+		return scale(g, c);
+	}
+
+	/**
+	 * Greatest common divisor of primitive polynomials of positive degree by the primitive polynomial remainder
+	 * sequence.
+	 */
+	private static BigInteger[] remainderSequenceGcd(BigInteger[] a, BigInteger[] b) {
+		if (a.length < b.length) {
+			BigInteger[] t = a;
+			a = b;
+			b = t;
+		}
+		while (b.length > 1) {
+			BigInteger[] r = primitivePart(pseudoRemainder(a, b));
+			a = b;
+			b = r;
+		}
+		if (b.length == 1)
+			return ONE;
+		return a;
+	}
+
+	/**
+	 * Square-free decomposition of a primitive polynomial of positive degree and positive leading coefficient by
+	 * Yun's algorithm: pairwise coprime square-free primitive factors g_i with multiplicities m_i, such that f is the
+	 * product of the g_i^m_i. Over the integers (characteristic zero), no p-th roots are needed.
+	 */
+	static ArrayList<Factor> squareFreeDecomposition(BigInteger[] f) {
+		ArrayList<Factor> result = new ArrayList<Factor>();
+		BigInteger[] df = derivative(f);
+		BigInteger[] c = gcd(f, df);
+		BigInteger[] w = divideExact(f, c);
+		BigInteger[] y = divideExact(df, c);
+		BigInteger[] z = subtract(y, derivative(w));
+		int i = 1;
+		while (w.length > 1) {
+			BigInteger[] g = gcd(w, z);
+			if (g.length > 1)
+				result.add(new Factor(g, i));
+			w = divideExact(w, g);
+			y = divideExact(z, g);
+			z = subtract(y, derivative(w));
+			i++;
+		}
+		return result;
+	}
+
+	/**
+	 * @return the squared Euclidean norm of the coefficient vector
+	 */
+	static BigInteger normSquared(BigInteger[] a) {
+		BigInteger result = BigInteger.ZERO;
+		for (BigInteger c : a)
+			result = result.add(c.multiply(c));
+		return result;
+	}
+
+	/**
+	 * @return the coefficients reduced into [0, m)
+	 */
+	static BigInteger[] reduce(BigInteger[] a, BigInteger m) {
+		BigInteger[] result = new BigInteger[a.length];
+		for (int i = 0; i < a.length; i++)
+			result[i] = a[i].mod(m);
+		return trim(result);
+	}
+
+	/**
+	 * @return the coefficients reduced into the symmetric range (-m/2, m/2]
+	 */
+	static BigInteger[] symmetric(BigInteger[] a, BigInteger m) {
+		BigInteger half = m.shiftRight(1);
+		BigInteger[] result = new BigInteger[a.length];
+		for (int i = 0; i < a.length; i++) {
+			BigInteger c = a[i].mod(m);
+			result[i] = c.compareTo(half) > 0 ? c.subtract(m) : c;
+		}
+		return trim(result);
+	}
+
+	static BigInteger[] addMod(BigInteger[] a, BigInteger[] b, BigInteger m) {
+		if (a.length < b.length) {
+			BigInteger[] t = a;
+			a = b;
+			b = t;
+		}
+		BigInteger[] result = a.clone();
+		for (int i = 0; i < b.length; i++) {
+			BigInteger s = a[i].add(b[i]);
+			result[i] = s.compareTo(m) >= 0 ? s.subtract(m) : s;
+		}
+		return trim(result);
+	}
+
+	static BigInteger[] subtractMod(BigInteger[] a, BigInteger[] b, BigInteger m) {
+		BigInteger[] result = new BigInteger[Math.max(a.length, b.length)];
+		for (int i = 0; i < result.length; i++) {
+			BigInteger x = i < a.length ? a[i] : BigInteger.ZERO;
+			if (i >= b.length) {
+				result[i] = x;
+			} else {
+				BigInteger d = x.subtract(b[i]);
+				result[i] = d.signum() < 0 ? d.add(m) : d;
+			}
+		}
+		return trim(result);
+	}
+
+	static BigInteger[] scaleMod(BigInteger[] a, BigInteger c, BigInteger m) {
+		BigInteger[] result = new BigInteger[a.length];
+		for (int i = 0; i < a.length; i++)
+			result[i] = a[i].multiply(c).mod(m);
+		return trim(result);
+	}
+
+	static BigInteger[] multiplyMod(BigInteger[] a, BigInteger[] b, BigInteger m) {
+		if (a.length == 0 || b.length == 0)
+			return ZERO;
+		if (Math.min(a.length, b.length) < KRONECKER_THRESHOLD) {
+			BigInteger[] result = multiply(a, b);
+			for (int i = 0; i < result.length; i++)
+				result[i] = result[i].mod(m);
+			return trim(result);
+		}
+
+		/* the coefficients of the product are smaller than min(len a, len b) m^2, so they occupy disjoint slots */
+		int bits = 2 * m.bitLength() + 32 - Integer.numberOfLeadingZeros(Math.min(a.length, b.length));
+		int slot = bits / 8 + 1;
+		BigInteger product = new BigInteger(1, pack(a, slot)).multiply(new BigInteger(1, pack(b, slot)));
+		return unpack(product, a.length + b.length - 1, slot, m);
+	}
+
+	private static byte[] pack(BigInteger[] a, int slot) {
+		byte[] result = new byte[a.length * slot];
+		for (int i = 0; i < a.length; i++) {
+			byte[] c = a[i].toByteArray();
+			int len = Math.min(c.length, slot);
+			/* big-endian: the constant term comes last */
+			System.arraycopy(c, c.length - len, result, (a.length - i) * slot - len, len);
+		}
+		return result;
+	}
+
+	private static BigInteger[] unpack(BigInteger x, int count, int slot, BigInteger m) {
+		byte[] bytes = x.toByteArray();
+		BigInteger[] result = new BigInteger[count];
+		byte[] c = new byte[slot];
+		for (int i = 0; i < count; i++) {
+			int end = bytes.length - i * slot;
+			int start = Math.max(0, end - slot);
+			if (end <= 0) {
+				result[i] = BigInteger.ZERO;
+				continue;
+			}
+			Arrays.fill(c, (byte)0);
+			System.arraycopy(bytes, start, c, slot - (end - start), end - start);
+			result[i] = new BigInteger(1, c).mod(m);
+		}
+		return trim(result);
+	}
+
+	/**
+	 * Divide a by a monic polynomial h modulo m.
+	 * @return the pair (quotient, remainder)
+	 */
+	static BigInteger[][] divideWithRemainderMod(BigInteger[] a, BigInteger[] h, BigInteger m) {
+		int dh = h.length - 1;
+		if (a.length - 1 < dh)
+			return new BigInteger[][] { ZERO, a };
+
+		BigInteger[] r = a.clone();
+		BigInteger[] q = new BigInteger[a.length - dh];
+		for (int i = a.length - 1; i >= dh; i--) {
+			BigInteger c = r[i].mod(m);
+			q[i - dh] = c;
+			if (c.signum() == 0)
+				continue;
+			for (int j = 0; j < dh; j++)
+				r[i - dh + j] = r[i - dh + j].subtract(c.multiply(h[j]));
+		}
+		BigInteger[] remainder = new BigInteger[dh];
+		for (int j = 0; j < dh; j++)
+			remainder[j] = r[j].mod(m);
+		return new BigInteger[][] { trim(q), trim(remainder) };
+	}
+
+	static BigInteger[] fromResidues(long[] a) {
+		BigInteger[] result = new BigInteger[a.length];
+		for (int i = 0; i < a.length; i++)
+			result[i] = BigInteger.valueOf(a[i]);
+		return result;
+	}
+
+	static long[] toResidues(BigInteger[] a, long p) {
+		BigInteger bp = BigInteger.valueOf(p);
+		long[] result = new long[a.length];
+		for (int i = 0; i < a.length; i++)
+			result[i] = a[i].mod(bp).longValue();
+		return PrimeFieldArithmetic.trim(result);
+	}
+
+	/**
+	 * Order polynomials by degree, then by their coefficients from the top; used to return factors in a
+	 * reproducible order.
+	 */
+	static int compare(BigInteger[] a, BigInteger[] b) {
+		if (a.length != b.length)
+			return Integer.compare(a.length, b.length);
+		for (int i = a.length - 1; i >= 0; i--) {
+			int c = a[i].compareTo(b[i]);
+			if (c != 0)
+				return c;
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,150 @@
+/**
+ * An isolating interval of a real root of an integer polynomial: an open interval (left, right) with rational
+ * endpoints that contains exactly one real root, or a single rational point that is the root.
+ *
+ * The interval can be refined on demand by bisection; it keeps a square-free integer polynomial that vanishes at the
+ * root and changes its sign across it. The endpoints are returned as elements of the RationalsField.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.math.BigInteger;
+
+import de.phwbrnr.lina.main.fields.Fraction;
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+public class IsolatingInterval implements Comparable<IsolatingInterval> {
+	private final BigInteger[] polynomial;
+	private final int multiplicity;
+	/* endpoints as fractions with positive denominators */
+	private BigInteger leftNumerator, leftDenominator, rightNumerator, rightDenominator;
+	/* sign of the polynomial at the left endpoint; 0 if the interval is exact */
+	private int leftSign;
+
+	/**
+	 * Create an open isolating interval; neither endpoint may be a root of the polynomial.
+	 */
+	IsolatingInterval(BigInteger[] polynomial, int multiplicity, BigInteger leftNumerator, BigInteger leftDenominator,
+			BigInteger rightNumerator, BigInteger rightDenominator) {
+		this.polynomial = polynomial;
+		this.multiplicity = multiplicity;
+		this.leftNumerator = leftNumerator;
+		this.leftDenominator = leftDenominator;
+		this.rightNumerator = rightNumerator;
+		this.rightDenominator = rightDenominator;
+		this.leftSign = IntegerPolynomialArithmetic.signAt(polynomial, leftNumerator, leftDenominator);
+	}
+
+	/**
+	 * Create the exact interval of a rational root.
+	 */
+	IsolatingInterval(BigInteger[] polynomial, int multiplicity, BigInteger numerator, BigInteger denominator) {
+		this.polynomial = polynomial;
+		this.multiplicity = multiplicity;
+		this.leftNumerator = this.rightNumerator = numerator;
+		this.leftDenominator = this.rightDenominator = denominator;
+		this.leftSign = 0;
+	}
+
+	/**
+	 * @return the left endpoint as an element of the RationalsField
+	 */
+	public synchronized RingElement getLeft() {
+		return fraction(leftNumerator, leftDenominator);
+	}
+
+	/**
+	 * @return the right endpoint as an element of the RationalsField
+	 */
+	public synchronized RingElement getRight() {
+		return fraction(rightNumerator, rightDenominator);
+	}
+
+	private static RingElement fraction(BigInteger numerator, BigInteger denominator) {
+		try {
+			return new Fraction(new IntegerElement(numerator), new IntegerElement(denominator));
+		} catch (OperationUndefinedException ex) {
+			throw new Error("Programming error: isolating intervals have positive denominators", ex);
+		}
+	}
+
+	/**
+	 * @return whether the interval is a single point, that is, the root is known exactly
+	 */
+	public synchronized boolean isExact() {
+		return leftSign == 0;
+	}
+
+	/**
+	 * @return the multiplicity of the root as a root of the polynomial it was isolated for
+	 */
+	public int getMultiplicity() {
+		return multiplicity;
+	}
+
+	/**
+	 * Halve the interval: keep the half that contains the root, or make the interval exact if the midpoint is the
+	 * root.
+	 */
+	public synchronized void refine() {
+		if (leftSign == 0)
+			return;
+		BigInteger num = leftNumerator.multiply(rightDenominator).add(rightNumerator.multiply(leftDenominator));
+		BigInteger den = leftDenominator.multiply(rightDenominator).shiftLeft(1);
+		BigInteger g = num.gcd(den);
+		num = num.divide(g);
+		den = den.divide(g);
+
+		int sign = IntegerPolynomialArithmetic.signAt(polynomial, num, den);
+		if (sign == 0) {
+			leftNumerator = rightNumerator = num;
+			leftDenominator = rightDenominator = den;
+			leftSign = 0;
+		} else if (sign == leftSign) {
+			leftNumerator = num;
+			leftDenominator = den;
+		} else {
+			rightNumerator = num;
+			rightDenominator = den;
+		}
+	}
+
+	/**
+	 * Refine the interval until its width is at most 2^-bits (or it is exact).
+	 */
+	public synchronized void refine(int bits) {
+		while (leftSign != 0) {
+			/* width = (rn ld - ln rd) / (ld rd) <= 2^-bits */
+			BigInteger width = rightNumerator.multiply(leftDenominator).subtract(leftNumerator.multiply(rightDenominator));
+			if (width.shiftLeft(bits).compareTo(leftDenominator.multiply(rightDenominator)) <= 0)
+				return;
+			refine();
+		}
+	}
+
+	/**
+	 * Order isolating intervals of distinct roots by their position; they are disjoint, so comparing the left
+	 * endpoints suffices.
+	 */
+	@Override
+	public int compareTo(IsolatingInterval other) {
+		BigInteger[] mine = leftEndpoint(), theirs = other.leftEndpoint();
+		return mine[0].multiply(theirs[1]).compareTo(theirs[0].multiply(mine[1]));
+	}
+
+	private synchronized BigInteger[] leftEndpoint() {
+		return new BigInteger[] { leftNumerator, leftDenominator };
+	}
+
+	@Override
+	public synchronized String toString() {
+		String left = leftNumerator + (leftDenominator.equals(BigInteger.ONE) ? "" : "/" + leftDenominator);
+		if (leftSign == 0)
+			return "[" + left + "]";
+		String right = rightNumerator + (rightDenominator.equals(BigInteger.ONE) ? "" : "/" + rightDenominator);
+		return "(" + left + ", " + right + ")";
+	}
+}
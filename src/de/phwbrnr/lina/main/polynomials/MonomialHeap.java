@@ -0,0 +1,190 @@
+/**
+ * A binary max-heap of packed monomials for the merging of term products, with chaining of equal monomials.
+ *
+ * Sparse multiplication and division (Johnson; Monagan and Pearce) merge the products of the terms of one polynomial
+ * with the terms of another in descending order of their monomials. The heap holds one candidate product per term of
+ * the first factor, its row, so it stays small, and the terms of the result are produced in order without sorting.
+ * Every row has at most one entry, so entries are identified by their row and carry the column of the other factor.
+ * A new entry whose monomial is already found on its way up the heap is chained to that node instead of taking a
+ * node of its own: for dense products, where many products share a monomial, this saves most of the sifting.
+ * The keys are the packed monomials of a MonomialLayout, one or more words compared as signed longs from the first
+ * one on, or plain exponents.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.util.Arrays;
+
+final class MonomialHeap {
+	private final int words;
+	/* the nodes of the heap: their monomials (words words each) and the first row of their chains */
+	private long[] keys;
+	private int[] heads;
+	private int size = 0;
+	/* per row: the column of its entry and the next row in the same chain, or -1 */
+	private int[] columns;
+	private int[] next;
+	private final long[] single = new long[1];
+
+	/**
+	 * A heap of single word keys.
+	 */
+	MonomialHeap(int rows) {
+		this(rows, 1);
+	}
+
+	MonomialHeap(int rows, int words) {
+		rows = Math.max(rows, 4);
+		this.words = words;
+		keys = new long[rows * words];
+		heads = new int[rows];
+		columns = new int[rows];
+		next = new int[rows];
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return the largest key of a heap of single words; only valid if the heap is not empty
+	 */
+	long topKey() {
+		return keys[0];
+	}
+
+	/**
+	 * @return whether the largest key equals the key a_i; only valid if the heap is not empty
+	 */
+	boolean topEquals(long[] a, int i) {
+		return compare(0, a, i) == 0;
+	}
+
+	/**
+	 * Copy the largest key to the key into_i; only valid if the heap is not empty.
+	 */
+	void top(long[] into, int i) {
+		System.arraycopy(keys, 0, into, i * words, words);
+	}
+
+	/**
+	 * Insert the entry of a row with a single word key; the row must not have an entry in the heap.
+	 */
+	void push(long key, int row, int column) {
+		single[0] = key;
+		push(single, 0, row, column);
+	}
+
+	/**
+	 * Insert the entry of a row with the key a_i; the row must not have an entry in the heap.
+	 */
+	void push(long[] a, int index, int row, int column) {
+		if (row >= columns.length) {
+			int capacity = Math.max(2 * columns.length, row + 1);
+			columns = Arrays.copyOf(columns, capacity);
+			next = Arrays.copyOf(next, capacity);
+		}
+		columns[row] = column;
+
+		/* the keys grow along the path to the root, so an equal key can only be at the end of the ascent */
+		int i = size;
+		while (i > 0) {
+			int parent = (i - 1) >> 1;
+			int c = compare(parent, a, index);
+			if (c > 0)
+				break;
+			if (c == 0) {
+				next[row] = heads[parent];
+				heads[parent] = row;
+				return;
+			}
+			i = parent;
+		}
+
+		if (size == heads.length) {
+			keys = Arrays.copyOf(keys, 2 * size * words);
+			heads = Arrays.copyOf(heads, 2 * size);
+		}
+		next[row] = -1;
+		i = size++;
+		while (i > 0) {
+			int parent = (i - 1) >> 1;
+			if (compare(parent, a, index) > 0)
+				break;
+			move(parent, i);
+			i = parent;
+		}
+		if (words == 1)
+			keys[i] = a[index];
+		else
+			System.arraycopy(a, index * words, keys, i * words, words);
+		heads[i] = row;
+	}
+
+	/**
+	 * Remove the top node.
+	 * @return the first row of its chain; the others follow by next(), their columns by column(). The chain has to
+	 * be read before any of its rows is pushed again.
+	 */
+	int pop() {
+		int head = heads[0];
+		size--;
+		if (size == 0)
+			return head;
+		/* sift the last node down from the root; its key stays in place until it is moved to its position */
+		int last = size;
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size)
+				break;
+			if (child + 1 < size && compareNodes(child + 1, child) > 0)
+				child++;
+			if (compareNodes(child, last) <= 0)
+				break;
+			move(child, i);
+			i = child;
+		}
+		move(last, i);
+		return head;
+	}
+
+	/**
+	 * @return the next row in the chain of a popped row, or -1 at its end
+	 */
+	int next(int row) {
+		return next[row];
+	}
+
+	int column(int row) {
+		return columns[row];
+	}
+
+	/**
+	 * @return the comparison of the key of a node with the key a_i
+	 */
+	private int compare(int node, long[] a, int i) {
+		for (int w = 0; w < words; w++) {
+			long x = keys[node * words + w], y = a[i * words + w];
+			if (x != y)
+				return x < y ? -1 : 1;
+		}
+		return 0;
+	}
+
+	private int compareNodes(int node, int other) {
+		return compare(node, keys, other);
+	}
+
+	/**
+	 * Copy a node to another position.
+	 */
+	private void move(int from, int to) {
+		if (words == 1)
+			keys[to] = keys[from];
+		else
+			System.arraycopy(keys, from * words, keys, to * words, words);
+		heads[to] = heads[from];
+	}
+}
@@ -0,0 +1,365 @@
+/**
+ * The packing of the monomials of a MultivariatePolynomialRing into one or more longs (words).
+ *
+ * The n fields of a monomial, one per variable, are chosen such that comparing the words as numbers, the first word
+ * first, compares the monomials in the MonomialOrder, and adding the words multiplies the monomials:
+ * - LEX: the exponents e_1, ..., e_n;
+ * - GRLEX: the total degree d, then e_1, ..., e_(n-1) (e_n follows from d);
+ * - GREVLEX: the total degree d, then d - e_n, ..., d - e_2 (e_1 follows from d).
+ * Every field has b bits, whose top bit is kept free as a guard: the fields stay below 2^(b-1), so a sum of two
+ * monomials cannot carry into the next field, and an overflow shows in the guard bits. A word holds up to 63 / b
+ * fields, field k in word k / perWord, counted from the most significant one; the fields are spread evenly over the
+ * words, so their width is 63 / perWord. A single word holds all fields as long as every field gets the bits the
+ * degree needs, which for degree 63 are 7 bits, enough for 9 variables; beyond that, the monomial takes several
+ * words instead of shrinking the fields.
+ *
+ * Layouts are chosen for a degree, the largest field that has to fit: the total degree for graded orders, the largest
+ * exponent for LEX. When a computation outgrows its layout, it moves on to a wider one by widen(), and repacks its
+ * monomials. Monomials are handled as slices of flat long arrays: the monomial with index i of an array occupies the
+ * words from i * words on.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.util.Arrays;
+
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+
+final class MonomialLayout {
+	private final int variables;
+	private final MonomialOrder order;
+	/* the number of words, of fields per word and the width of a field */
+	final int words;
+	private final int perWord;
+	private final int bits;
+	/* the mask of a field, and the mask of the guard bits of all fields of a word */
+	private final long fieldMask;
+	private final long guardMask;
+
+	private MonomialLayout(int variables, MonomialOrder order, int words) {
+		this.variables = variables;
+		this.order = order;
+		this.words = words;
+		perWord = (variables + words - 1) / words;
+		bits = 63 / perWord;
+		fieldMask = (1L << bits) - 1;
+		long guards = 0;
+		for (int k = 0; k < perWord; k++)
+			guards |= 1L << (bits * k + bits - 1);
+		guardMask = guards;
+	}
+
+	/**
+	 * @return the layout with the fewest words whose fields hold the given degree
+	 * @throws IllegalArgumentException if the degree exceeds Integer.MAX_VALUE.
+	 */
+	static MonomialLayout forDegree(int variables, MonomialOrder order, long degree) {
+		if (degree > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Monomials of degree " + degree + " exceed the maximal degree " + Integer.MAX_VALUE);
+		/* the bits of the degree and the guard */
+		int needed = 65 - Long.numberOfLeadingZeros(Math.max(degree, 1));
+		int perWord = Math.max(Math.min(variables, 63 / needed), 1);
+		return new MonomialLayout(variables, order, (variables + perWord - 1) / perWord);
+	}
+
+	/**
+	 * @return a layout of the same order for at least the given degree, and at least twice the current one, so that
+	 * a growing computation repacks only a few times
+	 * @throws OperationUndefinedException if the degree exceeds Integer.MAX_VALUE.
+	 */
+	MonomialLayout widen(long degree) throws OperationUndefinedException {
+		if (degree > Integer.MAX_VALUE)
+			throw new OperationUndefinedException("Monomials of degree " + degree + " exceed the maximal degree " + Integer.MAX_VALUE);
+		return forDegree(variables, order, Math.min(Math.max(degree, 2L * getMaxDegree() + 1), Integer.MAX_VALUE));
+	}
+
+	/**
+	 * @return the wider of two layouts of the same ring
+	 */
+	static MonomialLayout wider(MonomialLayout a, MonomialLayout b) {
+		return a.bits >= b.bits ? a : b;
+	}
+
+	MonomialOrder getOrder() {
+		return order;
+	}
+
+	/**
+	 * @return the largest value of a field, that is, the largest total degree for graded orders, the largest exponent
+	 * for LEX
+	 */
+	int getMaxDegree() {
+		return (int)Math.min(Integer.MAX_VALUE, (1L << (bits - 1)) - 1);
+	}
+
+	/**
+	 * @return whether a monomial of this layout with the given degree (or largest exponent, for LEX) fits
+	 */
+	boolean fits(long degree) {
+		return degree <= getMaxDegree();
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof MonomialLayout))
+			return false;
+		MonomialLayout o = (MonomialLayout)other;
+		return o.variables == variables && o.order == order && o.bits == bits;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * variables + order.hashCode()) + bits;
+	}
+
+	private long field(long[] a, int i, int k) {
+		return (a[i * words + k / perWord] >>> (bits * (perWord - 1 - k % perWord))) & fieldMask;
+	}
+
+	/**
+	 * @return the largest field of an exponent vector in this order: the total degree for graded orders, the largest
+	 * exponent for LEX
+	 * @throws IllegalArgumentException if the vector has the wrong length or negative entries.
+	 */
+	long degreeOf(int[] exponents) {
+		if (exponents.length != variables)
+			throw new IllegalArgumentException("Expected " + variables + " exponents, got " + exponents.length);
+		long degree = 0, max = 0;
+		for (int e : exponents) {
+			if (e < 0)
+				throw new IllegalArgumentException("Exponents must not be negative, but got " + Arrays.toString(exponents));
+			degree += e;
+			max = Math.max(max, e);
+		}
+		return order.isGraded() ? degree : max;
+	}
+
+	/**
+	 * @return the packed monomial of an exponent vector
+	 * @throws IllegalArgumentException if the vector has the wrong length, negative entries, or too large a degree.
+	 */
+	long[] pack(int[] exponents) {
+		long[] result = new long[words];
+		pack(exponents, result, 0);
+		return result;
+	}
+
+	/**
+	 * Pack an exponent vector into the monomial with index i of an array.
+	 * @throws IllegalArgumentException if the vector has the wrong length, negative entries, or too large a degree.
+	 */
+	void pack(int[] exponents, long[] into, int i) {
+		if (!fits(degreeOf(exponents)))
+			throw new IllegalArgumentException("The monomial " + Arrays.toString(exponents) + " exceeds the maximal degree " + getMaxDegree() + " of its packing");
+		int n = variables;
+		long degree = 0;
+		for (int e : exponents)
+			degree += e;
+		for (int w = 0; w < words; w++)
+			into[i * words + w] = 0;
+		for (int k = 0; k < n; k++) {
+			long value;
+			if (order == MonomialOrder.LEX)
+				value = exponents[k];
+			else if (k == 0)
+				value = degree;
+			else if (order == MonomialOrder.GRLEX)
+				value = exponents[k - 1];
+			else
+				value = degree - exponents[n - k];
+			into[i * words + k / perWord] |= value << (bits * (perWord - 1 - k % perWord));
+		}
+	}
+
+	/**
+	 * @return the exponent vector of the monomial with index i of an array
+	 */
+	int[] unpack(long[] a, int i) {
+		int n = variables;
+		int[] exponents = new int[n];
+		if (order == MonomialOrder.LEX) {
+			for (int k = 0; k < n; k++)
+				exponents[k] = (int)field(a, i, k);
+			return exponents;
+		}
+		long degree = field(a, i, 0), rest = degree;
+		for (int k = 1; k < n; k++) {
+			int e = (int)(order == MonomialOrder.GRLEX ? field(a, i, k) : degree - field(a, i, k));
+			exponents[order == MonomialOrder.GRLEX ? k - 1 : n - k] = e;
+			rest -= e;
+		}
+		exponents[order == MonomialOrder.GRLEX ? n - 1 : 0] = (int)rest;
+		return exponents;
+	}
+
+	/**
+	 * Repack the monomial with index i of an array of another layout of the same order into the monomial with index j
+	 * of this one.
+	 */
+	void repack(MonomialLayout from, long[] a, int i, long[] into, int j) {
+		if (from.bits == bits)
+			System.arraycopy(a, i * words, into, j * words, words);
+		else
+			pack(from.unpack(a, i), into, j);
+	}
+
+	/**
+	 * @return the monomials of an array of another layout of the same order, repacked into this one
+	 */
+	long[] repack(MonomialLayout from, long[] a) {
+		if (from.bits == bits)
+			return a;
+		int count = a.length / from.words;
+		long[] result = new long[count * words];
+		for (int i = 0; i < count; i++)
+			pack(from.unpack(a, i), result, i);
+		return result;
+	}
+
+	/**
+	 * @return the comparison of the monomials a_i and b_j in the order
+	 */
+	int compare(long[] a, int i, long[] b, int j) {
+		for (int w = 0; w < words; w++) {
+			long x = a[i * words + w], y = b[j * words + w];
+			if (x != y)
+				return x < y ? -1 : 1;
+		}
+		return 0;
+	}
+
+	boolean equal(long[] a, int i, long[] b, int j) {
+		for (int w = 0; w < words; w++)
+			if (a[i * words + w] != b[j * words + w])
+				return false;
+		return true;
+	}
+
+	/**
+	 * @return whether a_i is the monomial 1
+	 */
+	boolean isOne(long[] a, int i) {
+		for (int w = 0; w < words; w++)
+			if (a[i * words + w] != 0)
+				return false;
+		return true;
+	}
+
+	int hash(long[] a, int i) {
+		long h = 0;
+		for (int w = 0; w < words; w++)
+			h = (h + a[i * words + w]) * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 29));
+	}
+
+	/**
+	 * Store the product a_i b_j as the monomial with index k of into.
+	 * @return false if a field of the product does not fit
+	 */
+	boolean multiply(long[] a, int i, long[] b, int j, long[] into, int k) {
+		long guards = 0;
+		for (int w = 0; w < words; w++) {
+			long m = a[i * words + w] + b[j * words + w];
+			guards |= m;
+			into[k * words + w] = m;
+		}
+		return (guards & guardMask) == 0;
+	}
+
+	/**
+	 * Store the quotient a_i / b_j, for a monomial b_j that divides a_i, as the monomial with index k of into.
+	 */
+	void divide(long[] a, int i, long[] b, int j, long[] into, int k) {
+		for (int w = 0; w < words; w++)
+			into[k * words + w] = a[i * words + w] - b[j * words + w];
+	}
+
+	/**
+	 * @return whether the monomial a_i divides the monomial m_j
+	 */
+	boolean divides(long[] a, int i, long[] m, int j) {
+		if (order == MonomialOrder.LEX) {
+			/* no field of m - a borrows iff every exponent of a is at most that of m */
+			for (int w = 0; w < words; w++)
+				if (((m[j * words + w] - a[i * words + w]) & guardMask) != 0)
+					return false;
+			return true;
+		}
+		long da = field(a, i, 0), dm = field(m, j, 0);
+		if (da > dm)
+			return false;
+		/* the exponents given by the fields 1 to n - 1, and the remaining one by the degree */
+		long restA = da, restM = dm;
+		for (int k = 1; k < variables; k++) {
+			long ea = field(a, i, k), em = field(m, j, k);
+			if (order == MonomialOrder.GREVLEX) {
+				ea = da - ea;
+				em = dm - em;
+			}
+			if (ea > em)
+				return false;
+			restA -= ea;
+			restM -= em;
+		}
+		return restA <= restM;
+	}
+
+	/**
+	 * Store the least common multiple of a_i and b_j, which always fits for LEX, as the monomial with index k of
+	 * into.
+	 * @return false if its total degree does not fit
+	 */
+	boolean lcm(long[] a, int i, long[] b, int j, long[] into, int k) {
+		int[] ea = unpack(a, i), eb = unpack(b, j);
+		for (int v = 0; v < ea.length; v++)
+			ea[v] = Math.max(ea[v], eb[v]);
+		if (!fits(degreeOf(ea)))
+			return false;
+		pack(ea, into, k);
+		return true;
+	}
+
+	/**
+	 * @return the total degree of a_i
+	 */
+	int degree(long[] a, int i) {
+		if (order.isGraded())
+			return (int)field(a, i, 0);
+		long degree = 0;
+		for (int k = 0; k < variables; k++)
+			degree += field(a, i, k);
+		return (int)Math.min(degree, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return the largest field of a_i, which bounds the fields of its products
+	 */
+	long maxField(long[] a, int i) {
+		if (order.isGraded())
+			return field(a, i, 0);
+		long max = 0;
+		for (int k = 0; k < variables; k++)
+			max = Math.max(max, field(a, i, k));
+		return max;
+	}
+
+	/**
+	 * @return the largest field of all monomials of an array
+	 */
+	long maxField(long[] a) {
+		long max = 0;
+		for (int i = 0; i < a.length / words; i++)
+			max = Math.max(max, maxField(a, i));
+		return max;
+	}
+
+	/**
+	 * @return the packed monomial of the variable with the given index
+	 */
+	long[] variable(int index) {
+		int[] e = new int[variables];
+		e[index] = 1;
+		return pack(e);
+	}
+}
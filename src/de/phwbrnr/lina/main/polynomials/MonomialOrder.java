@@ -0,0 +1,25 @@
+/**
+ * The monomial orders available for multivariate polynomials.
+ *
+ * For exponent vectors a, b of the variables x_1, ..., x_n:
+ * - LEX: a > b if the first nonzero entry of a - b is positive;
+ * - GRLEX: a > b if the total degree of a is larger, or the degrees agree and a > b in LEX;
+ * - GREVLEX: a > b if the total degree of a is larger, or the degrees agree and the last nonzero entry of a - b is
+ *   negative.
+ * All of them are compatible with multiplication, so MultivariatePolynomialRing can pack the exponent vectors into
+ * single words such that the order is the order of the words and multiplication is addition.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+public enum MonomialOrder {
+	LEX, GRLEX, GREVLEX;
+
+	/**
+	 * @return whether the order compares total degrees first
+	 */
+	public boolean isGraded() {
+		return this != LEX;
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * A hash set of packed monomials of one MonomialLayout, which numbers them in the order they are added.
+ *
+ * The monomials are stored in one flat array, so the id of a monomial is its index there, and the ids of the
+ * monomials added after some point form a queue for free. The hash table is open addressing with linear probing on
+ * the ids, without any boxing; the Macaulay matrices of F4 and the change of order of FglmConversion look up every
+ * monomial they meet in such a table.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.util.Arrays;
+
+final class MonomialTable {
+	private final MonomialLayout layout;
+	private final int words;
+	/* the monomials by their id */
+	private long[] monomials;
+	private int size = 0;
+	/* the hash table: id + 1 of the monomial in a slot, or 0 for a free one */
+	private int[] slots;
+
+	MonomialTable(MonomialLayout layout) {
+		this.layout = layout;
+		words = layout.words;
+		monomials = new long[16 * words];
+		slots = new int[32];
+	}
+
+	MonomialLayout getLayout() {
+		return layout;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return the monomials by their id; the monomial with id i starts at word i * words
+	 */
+	long[] monomials() {
+		return monomials;
+	}
+
+	/**
+	 * Add the monomial a_i, if it is not present yet.
+	 * @return its id; a new monomial gets the id size() - 1
+	 */
+	int add(long[] a, int i) {
+		int slot = slot(a, i);
+		if (slots[slot] != 0)
+			return slots[slot] - 1;
+		if (size == monomials.length / words)
+			monomials = Arrays.copyOf(monomials, 2 * monomials.length);
+		System.arraycopy(a, i * words, monomials, size * words, words);
+		slots[slot] = ++size;
+		if (2 * size > slots.length)
+			rehash();
+		return size - 1;
+	}
+
+	/**
+	 * @return the id of the monomial a_i, or -1 if it is not present
+	 */
+	int find(long[] a, int i) {
+		return slots[slot(a, i)] - 1;
+	}
+
+	/**
+	 * @return the slot of the monomial a_i, or the free slot where it belongs
+	 */
+	private int slot(long[] a, int i) {
+		int mask = slots.length - 1;
+		int slot = layout.hash(a, i) & mask;
+		while (slots[slot] != 0 && !layout.equal(monomials, slots[slot] - 1, a, i))
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	private void rehash() {
+		slots = new int[2 * slots.length];
+		int mask = slots.length - 1;
+		for (int id = 0; id < size; id++) {
+			int slot = layout.hash(monomials, id) & mask;
+			while (slots[slot] != 0)
+				slot = (slot + 1) & mask;
+			slots[slot] = id + 1;
+		}
+	}
+
+	/**
+	 * @return the ids of all monomials, sorted by descending monomials
+	 */
+	int[] descending() {
+		int[] ids = new int[size], buffer = new int[size];
+		for (int i = 0; i < size; i++)
+			ids[i] = i;
+		/* bottom-up merge sort */
+		for (int width = 1; width < size; width *= 2) {
+			for (int low = 0; low < size; low += 2 * width) {
+				int middle = Math.min(low + width, size), high = Math.min(low + 2 * width, size);
+				int i = low, j = middle, k = low;
+				while (i < middle && j < high)
+					buffer[k++] = layout.compare(monomials, ids[i], monomials, ids[j]) >= 0 ? ids[i++] : ids[j++];
+				while (i < middle)
+					buffer[k++] = ids[i++];
+				while (j < high)
+					buffer[k++] = ids[j++];
+			}
+			int[] t = ids;
+			ids = buffer;
+			buffer = t;
+		}
+		return ids;
+	}
+}
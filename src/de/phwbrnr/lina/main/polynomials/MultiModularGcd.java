@@ -0,0 +1,110 @@
+/**
+ * Greatest common divisors of primitive integer polynomials by the small primes modular algorithm of Brown.
+ *
+ * For primitive a and b with g = gcd(a, b) and l = gcd(lc(a), lc(b)), the polynomial h = (l / lc(g)) g has the
+ * leading coefficient l, and modulo every prime p not dividing l, its image is l times the monic gcd of the images of
+ * a and b over F_p, provided p is lucky. Modulo an unlucky prime the gcd over F_p has a higher degree; the
+ * MultiModularStrategy template prefers the images of lowest degree, so such primes are discarded. The gcds over F_p
+ * are computed by PrimeFieldArithmetic.gcd (with the half-gcd for large degrees), and the coefficients of h are
+ * recovered by Chinese remaindering; g is the primitive part of h.
+ *
+ * Since g divides a, the bound of Mignotte gives |h|_inf <= 2^deg g |a| |l / lc(a)| <= 2^deg g |a| for the euclidean
+ * norm, and likewise for b; the template stops once the product of the primes exceeds twice this bound, or earlier
+ * if the coefficients have stabilized and the trial divisions of a and b by the candidate succeed. The number of
+ * primes grows linearly with the size of the gcd, not with the intermediate coefficients of a remainder sequence
+ * over Z.
+ *
+ * The problem instance is a pair of BigInteger coefficient arrays (see IntegerPolynomialArithmetic) of primitive
+ * polynomials of positive degree with positive leading coefficients. The result is the primitive gcd with a positive
+ * leading coefficient.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.math.BigInteger;
+
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.MultiModularStrategy;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+final class MultiModularGcd extends MultiModularStrategy<BigInteger[]> {
+
+	@Override
+	public String getDescription() {
+		return "Compute the greatest common divisor of two primitive integer polynomials modulo many primes";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		if (problem.length != 2 || !(problem[0] instanceof BigInteger[]) || !(problem[1] instanceof BigInteger[]))
+			return false;
+		BigInteger[] a = (BigInteger[])problem[0], b = (BigInteger[])problem[1];
+		return a.length > 1 && b.length > 1 && IntegerPolynomialArithmetic.leadingCoefficient(a).signum() > 0
+				&& IntegerPolynomialArithmetic.leadingCoefficient(b).signum() > 0;
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		BigInteger[] a = (BigInteger[])problem[0], b = (BigInteger[])problem[1];
+		double n = Math.max(a.length, b.length);
+		double primes = boundBits(a, b) / 30.0 + 1;
+		/* one quadratic gcd per prime, and the Chinese remaindering of every coefficient */
+		return costFromOperations(primes * n * n + primes * primes * n);
+	}
+
+	@Override
+	protected Object[] prepare(Object... problem) {
+		BigInteger[] a = (BigInteger[])problem[0], b = (BigInteger[])problem[1];
+		BigInteger l = IntegerPolynomialArithmetic.leadingCoefficient(a).gcd(IntegerPolynomialArithmetic.leadingCoefficient(b));
+		return new Object[] { a, b, l };
+	}
+
+	@Override
+	protected long[] image(long p, Object... instance) {
+		BigInteger[] a = (BigInteger[])instance[0], b = (BigInteger[])instance[1];
+		long l = ((BigInteger)instance[2]).mod(BigInteger.valueOf(p)).longValue();
+		/* the degrees of a and b, and with them the gcd, may drop modulo primes dividing both leading coefficients */
+		if (l == 0)
+			return null;
+		long[] g = PrimeFieldArithmetic.gcd(IntegerPolynomialArithmetic.toResidues(a, p), IntegerPolynomialArithmetic.toResidues(b, p), p);
+		return PrimeFieldArithmetic.scale(g, l, p);
+	}
+
+	@Override
+	protected long coordinateBits(Object... instance) {
+		return boundBits((BigInteger[])instance[0], (BigInteger[])instance[1]);
+	}
+
+	@Override
+	protected boolean verify(BigInteger[] candidate, Object... instance) {
+		return divides(candidate, (BigInteger[])instance[0], (BigInteger[])instance[1]);
+	}
+
+	@Override
+	protected BigInteger[] assemble(RingElement[] coordinates, Object... instance) {
+		BigInteger[] h = new BigInteger[coordinates.length];
+		for (int i = 0; i < h.length; i++)
+			h[i] = ((IntegerElement)coordinates[i]).getBigValue();
+		return IntegerPolynomialArithmetic.primitivePart(IntegerPolynomialArithmetic.trim(h));
+	}
+
+	/**
+	 * @return whether the candidate is a nonzero common divisor of a and b in Z[X]
+	 */
+	static boolean divides(BigInteger[] candidate, BigInteger[] a, BigInteger[] b) {
+		return candidate.length > 0 && IntegerPolynomialArithmetic.divideExact(a, candidate) != null
+				&& IntegerPolynomialArithmetic.divideExact(b, candidate) != null;
+	}
+
+	/**
+	 * @return an upper bound for the bit length of the coefficients of h, 2^deg g min(|a|, |b|)
+	 */
+	private static long boundBits(BigInteger[] a, BigInteger[] b) {
+		long normA = (IntegerPolynomialArithmetic.normSquared(a).bitLength() + 1) / 2;
+		long normB = (IntegerPolynomialArithmetic.normSquared(b).bitLength() + 1) / 2;
+		return Math.min(a.length, b.length) - 1 + Math.min(normA, normB) + 1;
+	}
+}
@@ -0,0 +1,222 @@
+/**
+ * Compute the reduced Groebner basis of a polynomial ideal over the rationals by multi-modular lifting.
+ *
+ * The generators are scaled to integer coefficients, and the reduced Groebner basis is computed by the F4 kernel
+ * modulo word size primes (see F4Groebner.basis). For all but finitely many primes, the basis modulo p is the
+ * reduction of the rational basis, which has the same monomials; the coefficients of its elements are lifted by
+ * Chinese remaindering and rational reconstruction in the MultiModularStrategy template. This avoids the growth of
+ * the intermediate coefficients, which makes Buchberger's algorithm over the rationals slow, entirely: only the
+ * coefficients of the result have to be reconstructed.
+ *
+ * Unlucky primes give a basis with other monomials. As there is no cheap way to order the shapes of bases, the shape
+ * that two of the first few primes agree on is taken as the reference, and the images of other shapes are discarded;
+ * primes dividing a leading coefficient of a generator are skipped right away. There is no a priori bound for the
+ * coefficients of the basis, so the lifting stops once all of them have been stable for
+ * MultiModularStrategy.STABLE_PRIMES primes; the result is correct with overwhelming probability, but not proven.
+ *
+ * The problem instance is a non-empty list of MultivariatePolynomials of the same ring over the RationalsField; the
+ * result is the reduced Groebner basis, sorted by descending leading monomials.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import de.phwbrnr.lina.main.fields.Fraction;
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.MultiModularStrategy;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.RationalsField;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+public class MultiModularGroebner extends MultiModularStrategy<ArrayList<MultivariatePolynomial>> {
+	/* the number of primes tried to find two bases of the same shape */
+	private static final int SHAPE_PRIMES = 8;
+
+	@Override
+	public String getDescription() {
+		return "Compute the reduced Groebner basis of polynomials over the rationals by F4 modulo many primes";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		MultivariatePolynomialRing ring = BuchbergerGroebner.ringOf(problem);
+		return ring != null && ring.getCoefficientRing() instanceof RationalsField;
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		double size = BuchbergerGroebner.basisSize(problem);
+		/* about 30 ms for the shape primes and the stabilization, then one F4 computation per prime: a few dozen
+		 * primes for graded bases, but for lex bases, whose coefficients grow with the degree of the eliminant, up to
+		 * hundreds (fitted to Katsura-2 to -6 and cyclic-3 to -5, one operation being about a nanosecond) */
+		double perSize = BuchbergerGroebner.ringOf(problem).getOrder().isGraded() ? 100 : 4000;
+		return costFromOperations(3e7 + perSize * size * size);
+	}
+
+	@Override
+	protected Object[] prepare(Object... problem) {
+		MultivariatePolynomialRing ring = BuchbergerGroebner.ringOf(problem);
+		MonomialLayout layout = ring.layout();
+		for (Object f : problem)
+			layout = MonomialLayout.wider(layout, ((MultivariatePolynomial)f).layout());
+		long[][] monomials = new long[problem.length][];
+		BigInteger[][] coefficients = new BigInteger[problem.length][];
+		for (int i = 0; i < problem.length; i++) {
+			MultivariatePolynomial f = (MultivariatePolynomial)problem[i];
+			monomials[i] = layout.repack(f.layout(), f.monomials());
+			coefficients[i] = integerCoefficients(f);
+		}
+
+		/* find the shape of the basis that two primes agree on */
+		ArrayList<long[]> shapes = new ArrayList<long[]>();
+		long p = PrimeField.MAX_CHARACTERISTIC;
+		for (int tries = 0; tries < SHAPE_PRIMES; tries++) {
+			do {
+				p--;
+			} while (!BigInteger.valueOf(p).isProbablePrime(40));
+			ArrayList<F4Groebner.Sparse> basis = basis(ring, layout, monomials, coefficients, p);
+			if (basis == null)
+				continue;
+			long[] shape = shape(basis);
+			for (long[] other : shapes)
+				if (Arrays.equals(other, shape))
+					return new Object[] { ring, layout, monomials, coefficients, shape };
+			shapes.add(shape);
+		}
+		throw new IllegalStateException("No two of " + SHAPE_PRIMES + " primes give Groebner bases of the same shape");
+	}
+
+	@Override
+	protected long[] image(long p, Object... instance) {
+		MultivariatePolynomialRing ring = (MultivariatePolynomialRing)instance[0];
+		ArrayList<F4Groebner.Sparse> basis = basis(ring, (MonomialLayout)instance[1], (long[][])instance[2], (BigInteger[][])instance[3], p);
+		if (basis == null || !Arrays.equals(shape(basis), (long[])instance[4]))
+			return null;
+		/* the leading coefficients are one, the others are the coordinates */
+		int count = 0;
+		for (F4Groebner.Sparse g : basis)
+			count += g.coefficients.length - 1;
+		long[] coordinates = new long[count];
+		int k = 0;
+		for (F4Groebner.Sparse g : basis)
+			for (int i = 1; i < g.coefficients.length; i++)
+				coordinates[k++] = g.coefficients[i];
+		return coordinates;
+	}
+
+	@Override
+	protected boolean rationalCoordinates(Object... instance) {
+		return true;
+	}
+
+	@Override
+	protected ArrayList<MultivariatePolynomial> assemble(RingElement[] coordinates, Object... instance) {
+		MultivariatePolynomialRing ring = (MultivariatePolynomialRing)instance[0];
+		long[] shape = (long[])instance[4];
+		int n = ring.getVariableCount();
+		ArrayList<MultivariatePolynomial> result = new ArrayList<MultivariatePolynomial>();
+		RingElement one = ring.getCoefficientRing().getOne();
+		int k = 0;
+		for (int position = 0; position < shape.length; ) {
+			int length = (int)shape[position++];
+			int[][] exponents = new int[length][n];
+			long degree = 0;
+			for (int i = 0; i < length; i++) {
+				for (int j = 0; j < n; j++)
+					exponents[i][j] = (int)shape[position++];
+				degree = Math.max(degree, ring.layout().degreeOf(exponents[i]));
+			}
+			MonomialLayout layout = ring.layoutFor(degree);
+			long[] monomials = new long[length * layout.words];
+			RingElement[] coefficients = new RingElement[length];
+			coefficients[0] = one;
+			for (int i = 0; i < length; i++) {
+				layout.pack(exponents[i], monomials, i);
+				if (i > 0)
+					coefficients[i] = coordinates[k++];
+			}
+			result.add(new MultivariatePolynomial(ring, layout, monomials, coefficients));
+		}
+		return result;
+	}
+
+	/**
+	 * @return the reduced Groebner basis modulo p of the generators with the given integer coefficients, or null if p
+	 * divides a leading coefficient
+	 */
+	private static ArrayList<F4Groebner.Sparse> basis(MultivariatePolynomialRing ring, MonomialLayout layout, long[][] monomials, BigInteger[][] coefficients, long p) {
+		BigInteger bp = BigInteger.valueOf(p);
+		int words = layout.words;
+		ArrayList<F4Groebner.Sparse> generators = new ArrayList<F4Groebner.Sparse>();
+		for (int i = 0; i < monomials.length; i++) {
+			if (coefficients[i].length == 0)
+				continue;
+			long[] m = new long[monomials[i].length], c = new long[coefficients[i].length];
+			int k = 0;
+			for (int j = 0; j < c.length; j++) {
+				long residue = coefficients[i][j].mod(bp).longValue();
+				if (residue == 0) {
+					if (j == 0)
+						return null;
+					continue;
+				}
+				System.arraycopy(monomials[i], j * words, m, k * words, words);
+				c[k++] = residue;
+			}
+			generators.add(new F4Groebner.Sparse(layout, Arrays.copyOf(m, k * words), Arrays.copyOf(c, k)));
+		}
+		try {
+			return F4Groebner.basis(ring, generators, p);
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("The F4 algorithm failed in " + ring.getName() + ": " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * @return the monomials of a basis, as the number of terms of each element followed by the exponent vectors of its
+	 * monomials, which do not depend on the layout the images were computed in
+	 */
+	private static long[] shape(ArrayList<F4Groebner.Sparse> basis) {
+		ArrayList<Long> shape = new ArrayList<Long>();
+		for (F4Groebner.Sparse g : basis) {
+			shape.add((long)g.coefficients.length);
+			for (int i = 0; i < g.coefficients.length; i++)
+				for (int e : g.layout.unpack(g.monomials, i))
+					shape.add((long)e);
+		}
+		long[] result = new long[shape.size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = shape.get(i);
+		return result;
+	}
+
+	/**
+	 * @return the coefficients of a rational polynomial, multiplied by the lcm of their denominators
+	 */
+	private static BigInteger[] integerCoefficients(MultivariatePolynomial f) {
+		RingElement[] c = f.coefficients();
+		BigInteger[] numerators = new BigInteger[c.length], denominators = new BigInteger[c.length];
+		BigInteger lcm = BigInteger.ONE;
+		for (int i = 0; i < c.length; i++) {
+			if (c[i] instanceof Fraction) {
+				numerators[i] = ((IntegerElement)((Fraction)c[i]).getNumerator()).getBigValue();
+				denominators[i] = ((IntegerElement)((Fraction)c[i]).getDenominator()).getBigValue();
+			} else {
+				numerators[i] = ((IntegerElement)c[i]).getBigValue();
+				denominators[i] = BigInteger.ONE;
+			}
+			lcm = lcm.divide(lcm.gcd(denominators[i])).multiply(denominators[i]);
+		}
+		BigInteger[] result = new BigInteger[c.length];
+		for (int i = 0; i < c.length; i++)
+			result[i] = numerators[i].multiply(lcm.divide(denominators[i]));
+		return result;
+	}
+}
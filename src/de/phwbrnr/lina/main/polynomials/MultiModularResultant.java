@@ -0,0 +1,128 @@
+/**
+ * Resultants of polynomials over the integers and the rationals by multi-modular computation.
+ *
+ * The resultant is the determinant of the Sylvester matrix, so by Hadamard's inequality its absolute value is at
+ * most |a|^deg b |b|^deg a for the euclidean norms of the coefficient vectors. It is computed modulo enough primes
+ * below 2^31 that their product exceeds twice this bound, each time by the fast euclidean algorithm over F_p (see
+ * PrimeFieldArithmetic.resultant), and recovered from the residues by Chinese remaindering into the symmetric range.
+ * Primes dividing a leading coefficient are skipped, because the degrees, and with them the resultant, would change
+ * modulo such primes. The images modulo the primes are independent, so they are computed in parallel by the
+ * MultiModularStrategy template.
+ *
+ * This avoids the coefficient growth of remainder sequences over Z entirely: every prime costs one resultant of word
+ * size residues, and the number of primes grows only linearly with the size of the result.
+ *
+ * The problem instance is a pair of Polynomials, both over the IntegerRing or both over the RationalsField; rational
+ * polynomials are scaled to integer ones first, using res(c a, d b) = c^deg b d^deg a res(a, b). The result is the
+ * resultant in the coefficient ring; it vanishes if one of the polynomials does.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.math.BigInteger;
+
+import de.phwbrnr.lina.main.fields.Fraction;
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.IntegerRing;
+import de.phwbrnr.lina.main.fields.MultiModularStrategy;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.RationalsField;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+public class MultiModularResultant extends MultiModularStrategy<RingElement> {
+
+	@Override
+	public String getDescription() {
+		return "Compute the resultant of two polynomials over the integers or rationals modulo many primes";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		if (problem.length != 2 || !(problem[0] instanceof Polynomial) || !(problem[1] instanceof Polynomial))
+			return false;
+		Ring ring = ((Polynomial)problem[0]).getRing();
+		return ((Polynomial)problem[1]).getRing().equals(ring) && (ring instanceof IntegerRing || ring instanceof RationalsField);
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		BigInteger[] a = integerCoefficients((Polynomial)problem[0]), b = integerCoefficients((Polynomial)problem[1]);
+		double n = Math.max(a.length, b.length);
+		double primes = boundBits(a, b) / 30.0 + 1;
+		/* one quadratic resultant per prime, and the quadratic Chinese remaindering */
+		return costFromOperations(primes * n * n + primes * primes);
+	}
+
+	@Override
+	protected Object[] prepare(Object... problem) {
+		Polynomial f = (Polynomial)problem[0], g = (Polynomial)problem[1];
+		return new Object[] { f, g, integerCoefficients(f), integerCoefficients(g) };
+	}
+
+	@Override
+	protected long[] image(long p, Object... instance) {
+		BigInteger[] a = (BigInteger[])instance[2], b = (BigInteger[])instance[3];
+		/* the degrees, and with them the resultant, change modulo primes dividing a leading coefficient */
+		BigInteger bp = BigInteger.valueOf(p);
+		if (a.length > 0 && b.length > 0 && (a[a.length - 1].mod(bp).signum() == 0 || b[b.length - 1].mod(bp).signum() == 0))
+			return null;
+		return new long[] { PrimeFieldArithmetic.resultant(IntegerPolynomialArithmetic.toResidues(a, p), IntegerPolynomialArithmetic.toResidues(b, p), p) };
+	}
+
+	@Override
+	protected long coordinateBits(Object... instance) {
+		return boundBits((BigInteger[])instance[2], (BigInteger[])instance[3]);
+	}
+
+	@Override
+	protected RingElement assemble(RingElement[] coordinates, Object... instance) {
+		Polynomial f = (Polynomial)instance[0], g = (Polynomial)instance[1];
+		BigInteger[] a = (BigInteger[])instance[2], b = (BigInteger[])instance[3];
+		if (f.getRing() instanceof IntegerRing)
+			return coordinates[0];
+
+		try {
+			/* undo the scaling: a = c f, b = d g */
+			int m = a.length - 1, n = b.length - 1;
+			BigInteger scale = scaleFactor(f, a).pow(Math.max(n, 0)).multiply(scaleFactor(g, b).pow(Math.max(m, 0)));
+			return new Fraction(coordinates[0], new IntegerElement(scale));
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("Unable to scale the resultant back to the rationals", ex);
+		}
+	}
+
+	/**
+	 * @return an upper bound for the bit length of |res(a, b)| <= |a|^deg b |b|^deg a
+	 */
+	private static long boundBits(BigInteger[] a, BigInteger[] b) {
+		if (a.length == 0 || b.length == 0)
+			return 0;
+		long normA = (IntegerPolynomialArithmetic.normSquared(a).bitLength() + 1) / 2;
+		long normB = (IntegerPolynomialArithmetic.normSquared(b).bitLength() + 1) / 2;
+		return normA * (b.length - 1) + normB * (a.length - 1) + 1;
+	}
+
+	private static BigInteger[] integerCoefficients(Polynomial f) {
+		if (f.getRing() instanceof RationalsField)
+			return IntegerPolynomialArithmetic.fromRationalPolynomial(f);
+		return IntegerPolynomialArithmetic.fromPolynomial(f);
+	}
+
+	/**
+	 * @return the integer c with a = c f, for the scaled coefficients a of a nonzero rational polynomial f
+	 */
+	private static BigInteger scaleFactor(Polynomial f, BigInteger[] a) {
+		if (a.length == 0)
+			return BigInteger.ONE;
+		RingElement lc = f.getLeadingCoefficient();
+		if (!(lc instanceof Fraction))
+			return a[a.length - 1].divide(((IntegerElement)lc).getBigValue());
+		Fraction c = (Fraction)lc;
+		return a[a.length - 1].multiply(((IntegerElement)c.getDenominator()).getBigValue())
+				.divide(((IntegerElement)c.getNumerator()).getBigValue());
+	}
+}
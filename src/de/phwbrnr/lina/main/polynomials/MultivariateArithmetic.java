@@ -0,0 +1,361 @@
+/**
+ * Arithmetic on the sparse term lists of MultivariatePolynomial.
+ *
+ * Products are computed by Johnson's heap algorithm in the variant of Monagan and Pearce: the heap holds at most one
+ * product f_i g_j per term f_i of the first factor, and the row of f_(i+1) only enters the heap once f_i g_1 has been
+ * taken out. The terms of the product leave the heap in descending order, products with equal monomials leave it one
+ * after the other and are summed at once, so the result is never sorted and no intermediate list of all products is
+ * formed. Equal monomials are chained in the heap, so a dense product costs little more sifting than its result
+ * has terms. Division works the same way, with the dividend and the products of the quotient terms found so far with
+ * their divisors as rows, for any number of divisors. Over a PrimeField, the coefficients are summed as primitive residues.
+ *
+ * Operands of different MonomialLayouts are repacked to the wider one. A product gets a layout wide enough for the
+ * sum of the largest fields of its factors, so it never overflows; in a division, the monomials only decrease in
+ * graded orders, but in LEX the products of the quotient terms with the tails of the divisors may outgrow the
+ * dividend, and the division restarts with wider fields.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.util.Arrays;
+
+import de.phwbrnr.lina.main.fields.ElementNotInvertibleException;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.PrimeFieldElement;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+final class MultivariateArithmetic {
+
+	private MultivariateArithmetic() {
+	}
+
+	/**
+	 * @return f + g, or f - g if subtract is set
+	 */
+	static MultivariatePolynomial add(MultivariatePolynomial f, MultivariatePolynomial g, boolean subtract) throws OperationUndefinedException {
+		MonomialLayout layout = MonomialLayout.wider(f.layout(), g.layout());
+		long[] fm = layout.repack(f.layout(), f.monomials()), gm = layout.repack(g.layout(), g.monomials());
+		RingElement[] fc = f.coefficients(), gc = g.coefficients();
+		int words = layout.words;
+		long[] monomials = new long[fm.length + gm.length];
+		RingElement[] coefficients = new RingElement[fc.length + gc.length];
+		int i = 0, j = 0, k = 0;
+		while (i < fc.length || j < gc.length) {
+			int c = i == fc.length ? -1 : j == gc.length ? 1 : layout.compare(fm, i, gm, j);
+			if (c > 0) {
+				System.arraycopy(fm, i * words, monomials, k * words, words);
+				coefficients[k++] = fc[i++];
+			} else if (c < 0) {
+				System.arraycopy(gm, j * words, monomials, k * words, words);
+				coefficients[k++] = subtract ? gc[j++].negative() : gc[j++];
+			} else {
+				RingElement sum = subtract ? fc[i].subtract(gc[j]) : fc[i].add(gc[j]);
+				if (!sum.isZero()) {
+					System.arraycopy(fm, i * words, monomials, k * words, words);
+					coefficients[k++] = sum;
+				}
+				i++;
+				j++;
+			}
+		}
+		return shrink(f.getRing(), layout, monomials, coefficients, k);
+	}
+
+	/**
+	 * @return the product of f with a coefficient
+	 */
+	static MultivariatePolynomial multiply(MultivariatePolynomial f, RingElement c) throws OperationUndefinedException {
+		MonomialLayout layout = f.layout();
+		long[] fm = f.monomials();
+		RingElement[] fc = f.coefficients();
+		int words = layout.words;
+		long[] monomials = new long[fm.length];
+		RingElement[] coefficients = new RingElement[fc.length];
+		int k = 0;
+		for (int i = 0; i < fc.length; i++) {
+			RingElement product = fc[i].multiply(c);
+			if (!product.isZero()) {
+				System.arraycopy(fm, i * words, monomials, k * words, words);
+				coefficients[k++] = product;
+			}
+		}
+		return shrink(f.getRing(), layout, monomials, coefficients, k);
+	}
+
+	/**
+	 * @return the product f g, by the heap algorithm
+	 * @throws OperationUndefinedException if the degree of the product exceeds the maximal degree of the ring.
+	 */
+	static MultivariatePolynomial multiply(MultivariatePolynomial f, MultivariatePolynomial g) throws OperationUndefinedException {
+		MultivariatePolynomialRing ring = f.getRing();
+		if (f.isZero() || g.isZero())
+			return (MultivariatePolynomial)ring.getZero();
+		MonomialLayout layout = productLayout(f, maxField(g), g.layout());
+		/* the heap holds one entry per term of the first factor, which may be swapped if coefficients commute */
+		boolean swap = f.getTermCount() > g.getTermCount() && ring.getCoefficientRing().isCommutative();
+		if (swap) {
+			MultivariatePolynomial t = f;
+			f = g;
+			g = t;
+		}
+		long[] fm = layout.repack(f.layout(), f.monomials()), gm = layout.repack(g.layout(), g.monomials());
+		RingElement[] fc = f.coefficients(), gc = g.coefficients();
+		int fn = fc.length, gn = gc.length;
+		Ring coefficientRing = ring.getCoefficientRing();
+		PrimeField field = coefficientRing instanceof PrimeField ? (PrimeField)coefficientRing : null;
+		long[] fv = field == null ? null : residues(fc), gv = field == null ? null : residues(gc);
+		long p = field == null ? 0 : field.getCharacteristic();
+
+		MonomialHeap heap = new MonomialHeap(fn, layout.words);
+		/* the layout holds every product, so multiply() cannot fail */
+		long[] product = new long[layout.words], m = new long[layout.words];
+		layout.multiply(fm, 0, gm, 0, product, 0);
+		heap.push(product, 0, 0, 0);
+		MultivariatePolynomial.Terms terms = new MultivariatePolynomial.Terms(layout);
+		int[] poppedRows = new int[fn], poppedColumns = new int[fn];
+		while (!heap.isEmpty()) {
+			heap.top(m, 0);
+			RingElement sum = null;
+			long residue = 0;
+			int popped = 0;
+			/* every row has at most one entry in the heap, so at most fn entries share the monomial */
+			while (!heap.isEmpty() && heap.topEquals(m, 0)) {
+				for (int i = heap.pop(); i >= 0; i = heap.next(i)) {
+					int j = heap.column(i);
+					if (field != null) {
+						residue = (residue + fv[i] * gv[j]) % p;
+					} else {
+						RingElement t = fc[i].multiply(gc[j]);
+						sum = sum == null ? t : sum.add(t);
+					}
+					poppedRows[popped] = i;
+					poppedColumns[popped++] = j;
+				}
+			}
+			for (int l = 0; l < popped; l++) {
+				int i = poppedRows[l], j = poppedColumns[l];
+				if (j == 0 && i + 1 < fn) {
+					layout.multiply(fm, i + 1, gm, 0, product, 0);
+					heap.push(product, 0, i + 1, 0);
+				}
+				if (j + 1 < gn) {
+					layout.multiply(fm, i, gm, j + 1, product, 0);
+					heap.push(product, 0, i, j + 1);
+				}
+			}
+			RingElement c = field != null ? field.element(residue) : sum;
+			if (!c.isZero())
+				terms.add(m, 0, c);
+		}
+		return terms.build(ring);
+	}
+
+	/**
+	 * Divide f by the divisors g_1, ..., g_s by the heap division of Monagan and Pearce: a term is reduced by the
+	 * first divisor whose leading monomial divides its monomial and whose leading coefficient divides its
+	 * coefficient, and moved to the remainder if there is none.
+	 * @return the quotients q_1, ..., q_s and the remainder r, with f = q_1 g_1 + ... + q_s g_s + r
+	 */
+	static MultivariatePolynomial[] divideWithRemainder(MultivariatePolynomial f, MultivariatePolynomial... g) throws OperationUndefinedException {
+		MonomialLayout layout = f.layout();
+		for (MultivariatePolynomial divisor : g)
+			layout = MonomialLayout.wider(layout, divisor.layout());
+		while (true) {
+			MultivariatePolynomial[] result = divideWithRemainder(layout, f, g);
+			if (result != null)
+				return result;
+			layout = layout.widen(0);
+		}
+	}
+
+	/**
+	 * The division with all monomials in the given layout.
+	 * @return the quotients and the remainder, or null if a monomial does not fit into the layout
+	 */
+	private static MultivariatePolynomial[] divideWithRemainder(MonomialLayout layout, MultivariatePolynomial f, MultivariatePolynomial... g) throws OperationUndefinedException {
+		MultivariatePolynomialRing ring = f.getRing();
+		Ring coefficientRing = ring.getCoefficientRing();
+		int words = layout.words;
+		long[] fm = layout.repack(f.layout(), f.monomials());
+		RingElement[] fc = f.coefficients();
+		int s = g.length;
+		long[][] gm = new long[s][];
+		RingElement[] lcInverse = new RingElement[s];
+		for (int k = 0; k < s; k++) {
+			gm[k] = layout.repack(g[k].layout(), g[k].monomials());
+			RingElement lc = g[k].coefficients()[0];
+			if (lc.invertible()) {
+				try {
+					lcInverse[k] = lc.inverse();
+				} catch (ElementNotInvertibleException ex) {
+					lcInverse[k] = null;
+				}
+			}
+		}
+
+		MultivariatePolynomial.Terms[] quotients = new MultivariatePolynomial.Terms[s];
+		for (int k = 0; k < s; k++)
+			quotients[k] = new MultivariatePolynomial.Terms(layout);
+		MultivariatePolynomial.Terms remainder = new MultivariatePolynomial.Terms(layout);
+		/* row 0 runs through the terms of f, every further row through the products of one quotient term with the
+		 * terms g_(k,2), g_(k,3), ... of its divisor */
+		int rows = 1;
+		int[] rowDivisors = new int[16];
+		long[] rowMonomials = new long[16 * words];
+		RingElement[] rowCoefficients = new RingElement[16];
+		rowDivisors[0] = -1;
+		MonomialHeap heap = new MonomialHeap(16, words);
+		if (fc.length > 0)
+			heap.push(fm, 0, 0, 0);
+		RingElement zero = coefficientRing.getZero();
+		long[] m = new long[words], product = new long[words];
+		int[] poppedRows = new int[16], poppedColumns = new int[16];
+		while (!heap.isEmpty()) {
+			heap.top(m, 0);
+			RingElement c = zero;
+			int popped = 0;
+			while (!heap.isEmpty() && heap.topEquals(m, 0)) {
+				for (int row = heap.pop(); row >= 0; row = heap.next(row)) {
+					int j = heap.column(row);
+					if (row == 0)
+						c = c.add(fc[j]);
+					else
+						c = c.subtract(rowCoefficients[row].multiply(g[rowDivisors[row]].coefficients()[j]));
+					if (popped == poppedRows.length) {
+						poppedRows = Arrays.copyOf(poppedRows, 2 * popped);
+						poppedColumns = Arrays.copyOf(poppedColumns, 2 * popped);
+					}
+					poppedRows[popped] = row;
+					poppedColumns[popped++] = j;
+				}
+			}
+			for (int l = 0; l < popped; l++) {
+				int row = poppedRows[l], j = poppedColumns[l];
+				if (row == 0) {
+					if (j + 1 < fc.length)
+						heap.push(fm, j + 1, 0, j + 1);
+				} else {
+					int k = rowDivisors[row];
+					if (j + 1 < g[k].getTermCount()) {
+						if (!layout.multiply(rowMonomials, row, gm[k], j + 1, product, 0))
+							return null;
+						heap.push(product, 0, row, j + 1);
+					}
+				}
+			}
+			if (c.isZero())
+				continue;
+
+			RingElement q = null;
+			int k = 0;
+			for (; k < s && q == null; k++) {
+				if (!layout.divides(gm[k], 0, m, 0))
+					continue;
+				if (lcInverse[k] != null)
+					q = c.multiply(lcInverse[k]);
+				else if (c.divisibleBy(g[k].coefficients()[0]))
+					q = c.divide(g[k].coefficients()[0]);
+			}
+			if (q == null) {
+				remainder.add(m, 0, c);
+				continue;
+			}
+			k--;
+			if (rows == rowDivisors.length) {
+				rowDivisors = Arrays.copyOf(rowDivisors, 2 * rows);
+				rowMonomials = Arrays.copyOf(rowMonomials, 2 * rows * words);
+				rowCoefficients = Arrays.copyOf(rowCoefficients, 2 * rows);
+			}
+			layout.divide(m, 0, gm[k], 0, rowMonomials, rows);
+			quotients[k].add(rowMonomials, rows, q);
+			if (g[k].getTermCount() > 1) {
+				rowDivisors[rows] = k;
+				rowCoefficients[rows] = q;
+				if (!layout.multiply(rowMonomials, rows, gm[k], 1, product, 0))
+					return null;
+				heap.push(product, 0, rows++, 1);
+			}
+		}
+		MultivariatePolynomial[] result = new MultivariatePolynomial[s + 1];
+		for (int k = 0; k < s; k++)
+			result[k] = quotients[k].build(ring);
+		result[s] = remainder.build(ring);
+		return result;
+	}
+
+	/**
+	 * @return the product of f with the term c x^u, for an exponent vector u
+	 * @throws OperationUndefinedException if the degree of the product exceeds the maximal degree of the ring.
+	 */
+	static MultivariatePolynomial multiplyTerm(MultivariatePolynomial f, int[] u, RingElement c) throws OperationUndefinedException {
+		MultivariatePolynomialRing ring = f.getRing();
+		if (f.isZero())
+			return f;
+		MonomialLayout layout = productLayout(f, f.layout().degreeOf(u), f.layout());
+		long[] fm = layout.repack(f.layout(), f.monomials()), um = layout.pack(u);
+		RingElement[] fc = f.coefficients();
+		long[] monomials = new long[fm.length];
+		RingElement[] coefficients = new RingElement[fc.length];
+		int k = 0;
+		for (int i = 0; i < fc.length; i++) {
+			RingElement product = c.isOne() ? fc[i] : fc[i].multiply(c);
+			if (!product.isZero()) {
+				layout.multiply(um, 0, fm, i, monomials, k);
+				coefficients[k++] = product;
+			}
+		}
+		return shrink(ring, layout, monomials, coefficients, k);
+	}
+
+	/**
+	 * @return the comparison of the leading monomials of two nonzero polynomials of the same ring
+	 */
+	static int compareLeading(MultivariatePolynomial f, MultivariatePolynomial g) {
+		if (f.layout().equals(g.layout()))
+			return f.layout().compare(f.monomials(), 0, g.monomials(), 0);
+		MonomialLayout layout = MonomialLayout.wider(f.layout(), g.layout());
+		return layout.compare(layout.pack(f.getLeadingExponents()), 0, layout.pack(g.getLeadingExponents()), 0);
+	}
+
+	/**
+	 * @return a layout of the ring of f that holds the products of the monomials of f with monomials of the given
+	 * largest field, and is at least as wide as f's and the other one
+	 * @throws OperationUndefinedException if the products exceed the maximal degree of the ring.
+	 */
+	private static MonomialLayout productLayout(MultivariatePolynomial f, long otherField, MonomialLayout other) throws OperationUndefinedException {
+		long bound = maxField(f) + otherField;
+		if (bound > Integer.MAX_VALUE)
+			throw new OperationUndefinedException("The product exceeds the maximal degree " + Integer.MAX_VALUE + " of " + f.getRing().getName());
+		MonomialLayout layout = MonomialLayout.wider(f.layout(), other);
+		return layout.fits(bound) ? layout : MonomialLayout.wider(layout, f.getRing().layoutFor(bound));
+	}
+
+	/**
+	 * @return the largest field of the monomials of f, which bounds the fields of its products
+	 */
+	private static long maxField(MultivariatePolynomial f) {
+		if (f.isZero())
+			return 0;
+		if (f.getRing().getOrder().isGraded())
+			return f.layout().maxField(f.monomials(), 0);
+		return f.layout().maxField(f.monomials());
+	}
+
+	private static long[] residues(RingElement[] c) {
+		long[] result = new long[c.length];
+		for (int i = 0; i < c.length; i++)
+			result[i] = ((PrimeFieldElement)c[i]).getValue();
+		return result;
+	}
+
+	private static MultivariatePolynomial shrink(MultivariatePolynomialRing ring, MonomialLayout layout, long[] monomials, RingElement[] coefficients, int length) {
+		if (length < coefficients.length) {
+			monomials = Arrays.copyOf(monomials, length * layout.words);
+			coefficients = Arrays.copyOf(coefficients, length);
+		}
+		return new MultivariatePolynomial(ring, layout, monomials, coefficients);
+	}
+}
@@ -0,0 +1,429 @@
+/**
+ * Represent a polynomial in several variables, as an element of a MultivariatePolynomialRing.
+ *
+ * The polynomial is stored as its nonzero terms, sorted descending in the monomial order of the ring, with the
+ * monomials packed into one flat array of longs by a MonomialLayout (see MultivariatePolynomialRing). The layout is
+ * the ring's own unless the degrees of the polynomial need wider fields; arithmetic on polynomials of different
+ * layouts repacks to the wider one, and equality and hash codes do not depend on the layout. Sums are merges of the
+ * term lists. Products and divisions merge the term products through a heap (see MultivariateArithmetic), which needs
+ * memory for one candidate per term of the smaller factor, instead of for all products at once.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import de.phwbrnr.lina.main.fields.ElementNotInvertibleException;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+public class MultivariatePolynomial implements RingElement {
+	/**
+	 * Collects the terms of a polynomial in descending order.
+	 */
+	static final class Terms {
+		private final MonomialLayout layout;
+		private long[] monomials;
+		private RingElement[] coefficients;
+		private int size = 0;
+
+		Terms(MonomialLayout layout) {
+			this.layout = layout;
+			monomials = new long[8 * layout.words];
+			coefficients = new RingElement[8];
+		}
+
+		/**
+		 * Append the term c a_i, whose monomial has to be smaller than the ones before, and c nonzero.
+		 */
+		void add(long[] a, int i, RingElement c) {
+			if (size == coefficients.length) {
+				monomials = Arrays.copyOf(monomials, 2 * monomials.length);
+				coefficients = Arrays.copyOf(coefficients, 2 * size);
+			}
+			System.arraycopy(a, i * layout.words, monomials, size * layout.words, layout.words);
+			coefficients[size++] = c;
+		}
+
+		MultivariatePolynomial build(MultivariatePolynomialRing ring) {
+			return new MultivariatePolynomial(ring, layout, Arrays.copyOf(monomials, size * layout.words), Arrays.copyOf(coefficients, size));
+		}
+	}
+
+	private MultivariatePolynomialRing ring;
+	private MonomialLayout layout;
+	private long[] monomials;
+	private RingElement[] coefficients;
+
+	/**
+	 * Wrap terms that are known to be sorted descending and to have nonzero coefficients of the coefficient ring,
+	 * without checking or copying them.
+	 */
+	MultivariatePolynomial(MultivariatePolynomialRing ring, MonomialLayout layout, long[] monomials, RingElement[] coefficients) {
+		this.ring = ring;
+		this.layout = layout;
+		this.monomials = monomials;
+		this.coefficients = coefficients;
+	}
+
+	MonomialLayout layout() {
+		return layout;
+	}
+
+	/**
+	 * @return the monomials, packed by layout()
+	 */
+	long[] monomials() {
+		return monomials;
+	}
+
+	RingElement[] coefficients() {
+		return coefficients;
+	}
+
+	/**
+	 * @return the same polynomial with its monomials packed by another layout of the ring, which has to hold them
+	 */
+	MultivariatePolynomial repack(MonomialLayout to) {
+		if (to.equals(layout))
+			return this;
+		return new MultivariatePolynomial(ring, to, to.repack(layout, monomials), coefficients);
+	}
+
+	/**
+	 * Interpret a ring element as a polynomial of the same ring.
+	 */
+	private MultivariatePolynomial asPolynomial(RingElement element) {
+		if (element instanceof MultivariatePolynomial)
+			return (MultivariatePolynomial)element;
+		return ring.constant(element);
+	}
+
+	@Override
+	public MultivariatePolynomial add(RingElement... addends) throws OperationUndefinedException {
+		MultivariatePolynomial result = this;
+		for (int i = 0; i < addends.length; i++) {
+			if (!canAdd(addends[i]))
+				throw new OperationUndefinedException("Cannot add polynomial over " + ring.getName() + " and element of " + addends[i].getRing());
+			result = MultivariateArithmetic.add(result, asPolynomial(addends[i]), false);
+		}
+		return result;
+	}
+
+	@Override
+	public MultivariatePolynomial subtract(RingElement subtrahend) throws OperationUndefinedException {
+		if (!canAdd(subtrahend))
+			throw new OperationUndefinedException("Cannot subtract element of " + subtrahend.getRing() + " from polynomial over " + ring.getName());
+		return MultivariateArithmetic.add(this, asPolynomial(subtrahend), true);
+	}
+
+	@Override
+	public MultivariatePolynomial multiply(RingElement... factors) throws OperationUndefinedException {
+		MultivariatePolynomial result = this;
+		for (int i = 0; i < factors.length; i++) {
+			if (!canMultiply(factors[i]))
+				throw new OperationUndefinedException("Cannot multiply polynomial over " + ring.getName() + " and element of " + factors[i].getRing());
+			if (factors[i] instanceof MultivariatePolynomial)
+				result = MultivariateArithmetic.multiply(result, (MultivariatePolynomial)factors[i]);
+			else
+				result = MultivariateArithmetic.multiply(result, factors[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Divide by a polynomial with remainder, by the heap division of Monagan and Pearce: a term of the remainder
+	 * sequence is reduced if the leading monomial of the divisor divides its monomial and the leading coefficient of
+	 * the divisor divides its coefficient, otherwise it is moved to the remainder.
+	 * @return the pair (q, r) with this = q * divisor + r, where no term of r is divisible by the leading term of the
+	 * divisor.
+	 * @throws OperationUndefinedException if the divisor vanishes or belongs to another ring.
+	 */
+	public MultivariatePolynomial[] divideWithRemainder(MultivariatePolynomial divisor) throws OperationUndefinedException {
+		if (!canMultiply(divisor))
+			throw new OperationUndefinedException("Cannot divide polynomial over " + ring.getName() + " by element of " + divisor.getRing());
+		if (divisor.isZero())
+			throw new OperationUndefinedException("Division by zero not possible");
+		return MultivariateArithmetic.divideWithRemainder(this, divisor);
+	}
+
+	/**
+	 * Reduce by several polynomials at once, as in the division algorithm of Groebner basis theory: every term is
+	 * reduced by the first divisor whose leading term divides it. If the divisors form a Groebner basis, the result
+	 * is the normal form, which vanishes if and only if the polynomial lies in their ideal.
+	 * @return the remainder of the division by all divisors
+	 * @throws OperationUndefinedException if a divisor vanishes or belongs to another ring.
+	 */
+	public MultivariatePolynomial reduce(MultivariatePolynomial... divisors) throws OperationUndefinedException {
+		for (MultivariatePolynomial divisor : divisors) {
+			if (!canMultiply(divisor))
+				throw new OperationUndefinedException("Cannot divide polynomial over " + ring.getName() + " by element of " + divisor.getRing());
+			if (divisor.isZero())
+				throw new OperationUndefinedException("Division by zero not possible");
+		}
+		if (divisors.length == 0)
+			return this;
+		return MultivariateArithmetic.divideWithRemainder(this, divisors)[divisors.length];
+	}
+
+	@Override
+	public boolean divisibleBy(RingElement divisor) {
+		if (!canMultiply(divisor) || divisor.isZero())
+			return false;
+		try {
+			return divideWithRemainder(asPolynomial(divisor))[1].isZero();
+		} catch (OperationUndefinedException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Divide exactly by a polynomial or a coefficient.
+	 * @throws OperationUndefinedException if the division leaves a remainder.
+	 */
+	@Override
+	public MultivariatePolynomial divide(RingElement divisor) throws OperationUndefinedException {
+		if (!canMultiply(divisor))
+			throw new OperationUndefinedException("Cannot divide polynomial over " + ring.getName() + " by element of " + divisor.getRing());
+		if (divisor.isZero())
+			throw new OperationUndefinedException("Division by zero not possible");
+		MultivariatePolynomial[] qr = divideWithRemainder(asPolynomial(divisor));
+		if (!qr[1].isZero())
+			throw new OperationUndefinedException(divisor.toString() + " does not divide " + toString());
+		return qr[0];
+	}
+
+	@Override
+	public boolean invertible() {
+		return isConstant() && coefficients[0].invertible();
+	}
+
+	@Override
+	public RingElement inverse() throws ElementNotInvertibleException {
+		if (!isConstant() || isZero())
+			throw new ElementNotInvertibleException("Only non-zero constant polynomials have a chance to be invertible");
+		return ring.constant(coefficients[0].inverse());
+	}
+
+	@Override
+	public RingElement negative() {
+		RingElement[] negated = new RingElement[coefficients.length];
+		for (int i = 0; i < negated.length; i++)
+			negated[i] = coefficients[i].negative();
+		return new MultivariatePolynomial(ring, layout, monomials, negated);
+	}
+
+	@Override
+	public boolean canAdd(RingElement other) {
+		if (other instanceof MultivariatePolynomial)
+			return ((MultivariatePolynomial)other).ring.equals(ring);
+		return ring.getCoefficientRing().contains(other);
+	}
+
+	@Override
+	public boolean canMultiply(RingElement other) {
+		return canAdd(other);
+	}
+
+	@Override
+	public MultivariatePolynomialRing getRing() {
+		return ring;
+	}
+
+	public Ring getCoefficientRing() {
+		return ring.getCoefficientRing();
+	}
+
+	/**
+	 * @return the number of nonzero terms
+	 */
+	public int getTermCount() {
+		return coefficients.length;
+	}
+
+	/**
+	 * @return the coefficient of the i-th term, counted from the leading one
+	 */
+	public RingElement getTermCoefficient(int i) {
+		return coefficients[i];
+	}
+
+	/**
+	 * @return the exponent vector of the i-th term, counted from the leading one
+	 */
+	public int[] getTermExponents(int i) {
+		return layout.unpack(monomials, i);
+	}
+
+	/**
+	 * @return the coefficient of the monomial with the given exponents, which is zero if there is no such term
+	 */
+	public RingElement getCoefficient(int... exponents) {
+		if (!layout.fits(layout.degreeOf(exponents)))
+			return ring.getCoefficientRing().getZero();
+		long[] m = layout.pack(exponents);
+		/* binary search in the descending monomials */
+		int low = 0, high = coefficients.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int c = layout.compare(monomials, middle, m, 0);
+			if (c == 0)
+				return coefficients[middle];
+			if (c > 0)
+				low = middle + 1;
+			else
+				high = middle - 1;
+		}
+		return ring.getCoefficientRing().getZero();
+	}
+
+	/**
+	 * @return the coefficient of the leading term, or zero for the zero polynomial
+	 */
+	public RingElement getLeadingCoefficient() {
+		if (isZero())
+			return ring.getCoefficientRing().getZero();
+		return coefficients[0];
+	}
+
+	/**
+	 * @return the exponent vector of the leading term
+	 * @throws IllegalStateException for the zero polynomial
+	 */
+	public int[] getLeadingExponents() {
+		if (isZero())
+			throw new IllegalStateException("The zero polynomial has no leading term");
+		return layout.unpack(monomials, 0);
+	}
+
+	/**
+	 * @return the total degree, or -1 for the zero polynomial
+	 */
+	public int getTotalDegree() {
+		int degree = -1;
+		if (ring.getOrder().isGraded())
+			return isZero() ? -1 : layout.degree(monomials, 0);
+		for (int i = 0; i < coefficients.length; i++)
+			degree = Math.max(degree, layout.degree(monomials, i));
+		return degree;
+	}
+
+	/**
+	 * @return the degree in one variable, or -1 for the zero polynomial
+	 */
+	public int getDegree(int variable) {
+		int degree = -1;
+		for (int i = 0; i < coefficients.length; i++)
+			degree = Math.max(degree, layout.unpack(monomials, i)[variable]);
+		return degree;
+	}
+
+	public boolean isConstant() {
+		return coefficients.length == 0 || (coefficients.length == 1 && layout.isOne(monomials, 0));
+	}
+
+	/**
+	 * Evaluate the polynomial at a point, given by one value for every variable, from a ring the coefficients can be
+	 * multiplied with.
+	 * @throws IllegalArgumentException if the number of values does not match the number of variables
+	 * @throws OperationUndefinedException if the values cannot be multiplied with the coefficients.
+	 */
+	public RingElement evaluate(RingElement... point) throws OperationUndefinedException {
+		int n = ring.getVariableCount();
+		if (point.length != n)
+			throw new IllegalArgumentException("Expected " + n + " values, got " + point.length);
+		/* the powers of every value, as far as needed */
+		ArrayList<ArrayList<RingElement>> powers = new ArrayList<ArrayList<RingElement>>();
+		for (int v = 0; v < n; v++) {
+			ArrayList<RingElement> list = new ArrayList<RingElement>();
+			list.add(null);
+			list.add(point[v]);
+			powers.add(list);
+		}
+
+		RingElement result = ring.getCoefficientRing().getZero();
+		for (int i = 0; i < coefficients.length; i++) {
+			int[] exponents = layout.unpack(monomials, i);
+			RingElement term = coefficients[i];
+			for (int v = 0; v < n; v++) {
+				if (exponents[v] == 0)
+					continue;
+				ArrayList<RingElement> list = powers.get(v);
+				while (list.size() <= exponents[v])
+					list.add(list.get(list.size() - 1).multiply(point[v]));
+				term = term.multiply(list.get(exponents[v]));
+			}
+			result = result.add(term);
+		}
+		return result;
+	}
+
+	@Override
+	public boolean isZero() {
+		return coefficients.length == 0;
+	}
+
+	@Override
+	public boolean isOne() {
+		return coefficients.length == 1 && layout.isOne(monomials, 0) && coefficients[0].isOne();
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof RingElement))
+			return false;
+		if (!(other instanceof MultivariatePolynomial)) {
+			if (isZero())
+				return ((RingElement)other).isZero();
+			return isConstant() && coefficients[0].equals(other);
+		}
+
+		MultivariatePolynomial p = (MultivariatePolynomial)other;
+		if (p.coefficients.length != coefficients.length || !p.ring.equals(ring))
+			return false;
+		MonomialLayout wider = MonomialLayout.wider(layout, p.layout);
+		long[] a = wider.repack(layout, monomials), b = wider.repack(p.layout, p.monomials);
+		for (int i = 0; i < coefficients.length; i++) {
+			if (!wider.equal(a, i, b, i) || !coefficients[i].equals(p.coefficients[i]))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 0;
+		for (int i = 0; i < coefficients.length; i++)
+			hash = 31 * (31 * hash + Arrays.hashCode(layout.unpack(monomials, i))) + coefficients[i].hashCode();
+		return hash;
+	}
+
+	/**
+	 * @return the terms as 'multivariate[c:e1,...,en|...]', which MultivariatePolynomialRing.parseElement() reads back
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("multivariate[");
+		for (int i = 0; i < coefficients.length; i++) {
+			if (i > 0)
+				sb.append("|");
+			sb.append(coefficients[i]).append(":");
+			int[] exponents = layout.unpack(monomials, i);
+			for (int v = 0; v < exponents.length; v++)
+				sb.append(v > 0 ? "," : "").append(exponents[v]);
+		}
+		return sb.append("]").toString();
+	}
+
+	@Override
+	public RingElement interpret(Ring r) throws OperationUndefinedException {
+		if (r.equals(ring))
+			return this;
+		if (isConstant())
+			return isZero() ? r.getZero() : coefficients[0].interpret(r);
+		return RingElement.interpret(this, r);
+	}
+}
@@ -0,0 +1,384 @@
+/**
+ * Represent the ring of polynomials in several variables over a ring, with a fixed monomial order.
+ *
+ * Polynomials are stored sparsely, as their nonzero terms in descending order (see MultivariatePolynomial), which is
+ * far cheaper than nesting PolynomialRings, where every coefficient is a dense polynomial again. Each monomial is
+ * packed into one or more longs, with one field per variable, such that comparing the words compares the monomials
+ * in the chosen MonomialOrder and adding them multiplies the monomials (see MonomialLayout). The width of the fields
+ * follows from the number of variables and a degree hint, the total degree (for LEX, the largest exponent) the
+ * monomials are expected to reach, by default DEFAULT_DEGREE = 63: as long as one word holds fields of that size,
+ * which it does for up to 9 variables, a monomial is a single long; otherwise it takes several. The hint is no
+ * limit: polynomials whose degrees outgrow the fields, in products, divisions or Groebner basis computations, are
+ * repacked into wider ones, up to degree Integer.MAX_VALUE (see getMaxDegree()).
+ *
+ * The coefficients may come from any Ring; coefficient ring elements are accepted wherever polynomials are, as
+ * constants. Two rings are equal if they have the same coefficient ring, variables and order; withOrder() and
+ * convert() move polynomials between orders.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import de.phwbrnr.lina.main.fields.ElementParseException;
+import de.phwbrnr.lina.main.fields.NotImplementedException;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.Computation;
+import de.phwbrnr.lina.main.strategies.Strategy;
+
+public class MultivariatePolynomialRing implements Ring {
+	/* the degree hint of rings constructed without one */
+	public static final int DEFAULT_DEGREE = 63;
+
+	private Ring ring;
+	private MonomialOrder order;
+	private String[] variables;
+	private int degreeHint;
+	/* the packing of the monomials up to the degree hint */
+	private MonomialLayout layout;
+
+	/**
+	 * @param ring the coefficient ring
+	 * @param order the monomial order
+	 * @param variables the names of the variables, at least one
+	 * @throws IllegalArgumentException if there are no variables or names repeat.
+	 */
+	public MultivariatePolynomialRing(Ring ring, MonomialOrder order, String... variables) {
+		this(ring, order, DEFAULT_DEGREE, variables);
+	}
+
+	/**
+	 * @param ring the coefficient ring
+	 * @param order the monomial order
+	 * @param degree the total degree (for LEX, the largest exponent) the monomials are expected to reach, which
+	 * chooses the width of their packed fields; larger degrees still work, at the cost of repacking
+	 * @param variables the names of the variables, at least one
+	 * @throws IllegalArgumentException if there are no variables, names repeat or the degree is not positive.
+	 */
+	public MultivariatePolynomialRing(Ring ring, MonomialOrder order, int degree, String... variables) {
+		if (variables.length == 0)
+			throw new IllegalArgumentException("A multivariate polynomial ring needs at least one variable");
+		if (degree < 1)
+			throw new IllegalArgumentException("The degree hint has to be positive, got " + degree);
+		for (int i = 0; i < variables.length; i++)
+			for (int j = 0; j < i; j++)
+				if (variables[i].equals(variables[j]))
+					throw new IllegalArgumentException("The variable " + variables[i] + " occurs twice");
+
+		this.ring = ring;
+		this.order = order;
+		this.variables = variables.clone();
+		degreeHint = degree;
+		layout = MonomialLayout.forDegree(variables.length, order, degree);
+	}
+
+	/**
+	 * @return the same ring of polynomials with another monomial order.
+	 */
+	public MultivariatePolynomialRing withOrder(MonomialOrder order) {
+		return new MultivariatePolynomialRing(ring, order, degreeHint, variables);
+	}
+
+	public Ring getCoefficientRing() {
+		return ring;
+	}
+
+	public MonomialOrder getOrder() {
+		return order;
+	}
+
+	public String[] getVariables() {
+		return variables.clone();
+	}
+
+	public int getVariableCount() {
+		return variables.length;
+	}
+
+	/**
+	 * @return the degree the packing of the monomials was chosen for
+	 */
+	public int getDegreeHint() {
+		return degreeHint;
+	}
+
+	/**
+	 * @return the largest total degree (and exponent) a monomial of this ring can have.
+	 */
+	public int getMaxDegree() {
+		return Integer.MAX_VALUE;
+	}
+
+	/**
+	 * @return the packing of the monomials up to the degree hint
+	 */
+	MonomialLayout layout() {
+		return layout;
+	}
+
+	/**
+	 * @return the packing of the ring if monomials of the given degree (for LEX, largest exponent) fit into it, or the
+	 * narrowest one they fit into
+	 * @throws IllegalArgumentException if the degree exceeds Integer.MAX_VALUE.
+	 */
+	MonomialLayout layoutFor(long degree) {
+		return layout.fits(degree) ? layout : MonomialLayout.forDegree(variables.length, order, degree);
+	}
+
+	@Override
+	public String getName() {
+		return ring.getName() + "[" + String.join(",", variables) + "]";
+	}
+
+	@Override
+	public RingElement getZero() {
+		return new MultivariatePolynomial(this, layout, new long[0], new RingElement[0]);
+	}
+
+	@Override
+	public RingElement getOne() {
+		return constant(ring.getOne());
+	}
+
+	/**
+	 * @return the polynomial consisting of the variable with the given index
+	 */
+	public MultivariatePolynomial variable(int index) {
+		int[] exponents = new int[variables.length];
+		exponents[index] = 1;
+		return monomial(ring.getOne(), exponents);
+	}
+
+	/**
+	 * @return the polynomial consisting of the variable with the given name
+	 * @throws IllegalArgumentException if there is no such variable.
+	 */
+	public MultivariatePolynomial variable(String name) {
+		for (int i = 0; i < variables.length; i++)
+			if (variables[i].equals(name))
+				return variable(i);
+		throw new IllegalArgumentException("There is no variable " + name + " in " + getName());
+	}
+
+	/**
+	 * @return the term c x_1^e_1 ... x_n^e_n
+	 * @throws IllegalArgumentException if the coefficient does not belong to the coefficient ring, or the exponents do
+	 * not fit the ring.
+	 */
+	public MultivariatePolynomial monomial(RingElement coefficient, int... exponents) {
+		if (!ring.contains(coefficient))
+			throw new IllegalArgumentException("Coefficient " + coefficient + " is not member of ring " + ring.getName());
+		if (coefficient.isZero())
+			return (MultivariatePolynomial)getZero();
+		MonomialLayout to = layoutFor(layout.degreeOf(exponents));
+		return new MultivariatePolynomial(this, to, to.pack(exponents), new RingElement[] { coefficient });
+	}
+
+	/**
+	 * @return the constant polynomial c
+	 */
+	public MultivariatePolynomial constant(RingElement c) {
+		return monomial(c, new int[variables.length]);
+	}
+
+	/**
+	 * Embed a univariate polynomial as a polynomial in one of the variables.
+	 * @throws IllegalArgumentException if the coefficient rings differ.
+	 */
+	public MultivariatePolynomial fromUnivariate(Polynomial f, int variable) {
+		if (!f.getRing().equals(ring))
+			throw new IllegalArgumentException("Cannot embed polynomial over " + f.getRing().getName() + " into " + getName());
+		int[] exponents = new int[variables.length];
+		MonomialLayout to = layoutFor(Math.max(f.getDegree(), 0));
+		MultivariatePolynomial.Terms terms = new MultivariatePolynomial.Terms(to);
+		long[] m = new long[to.words];
+		for (int i = f.getDegree(); i >= 0; i--) {
+			if (f.getCoefficient(i).isZero())
+				continue;
+			exponents[variable] = i;
+			to.pack(exponents, m, 0);
+			terms.add(m, 0, f.getCoefficient(i));
+		}
+		return terms.build(this);
+	}
+
+	/**
+	 * Convert a polynomial from a ring with the same coefficients and variables, but possibly another order.
+	 * @throws OperationUndefinedException if the polynomial belongs to a ring with other coefficients or variables.
+	 */
+	public MultivariatePolynomial convert(MultivariatePolynomial f) throws OperationUndefinedException {
+		MultivariatePolynomialRing other = f.getRing();
+		if (other.equals(this))
+			return f;
+		if (!other.ring.equals(ring) || !Arrays.equals(other.variables, variables))
+			throw new OperationUndefinedException("Cannot convert polynomial over " + other.getName() + " to " + getName());
+
+		int count = f.getTermCount();
+		int[][] exponents = new int[count][];
+		long degree = 0;
+		for (int i = 0; i < count; i++) {
+			exponents[i] = f.layout().unpack(f.monomials(), i);
+			degree = Math.max(degree, layout.degreeOf(exponents[i]));
+		}
+		MonomialLayout to = layoutFor(degree);
+		long[] monomials = new long[count * to.words];
+		Integer[] permutation = new Integer[count];
+		for (int i = 0; i < count; i++) {
+			to.pack(exponents[i], monomials, i);
+			permutation[i] = i;
+		}
+		Arrays.sort(permutation, (i, j) -> to.compare(monomials, j, monomials, i));
+		long[] sortedMonomials = new long[monomials.length];
+		RingElement[] sortedCoefficients = new RingElement[count];
+		for (int i = 0; i < count; i++) {
+			System.arraycopy(monomials, permutation[i] * to.words, sortedMonomials, i * to.words, to.words);
+			sortedCoefficients[i] = f.coefficients()[permutation[i]];
+		}
+		return new MultivariatePolynomial(this, to, sortedMonomials, sortedCoefficients);
+	}
+
+	/**
+	 * Parse a polynomial of the form 'multivariate[c:e_1,...,e_n|...]', with one coefficient and exponent vector per
+	 * term, as produced by MultivariatePolynomial.toString().
+	 */
+	@Override
+	public RingElement parseElement(String string) throws ElementParseException {
+		string = string.trim();
+		if (!string.startsWith("multivariate[") || !string.endsWith("]"))
+			throw new ElementParseException("Multivariate polynomial strings have to be of the form 'multivariate[c:e1,...,en|...]'");
+		String body = string.substring("multivariate[".length(), string.length() - 1);
+		MultivariatePolynomial result = (MultivariatePolynomial)getZero();
+		if (body.isEmpty())
+			return result;
+
+		int depth = 0, start = 0;
+		try {
+			for (int i = 0; i <= body.length(); i++) {
+				char c = i < body.length() ? body.charAt(i) : '|';
+				if (c == '[' || c == '(')
+					depth++;
+				else if (c == ']' || c == ')')
+					depth--;
+				else if (c == '|' && depth == 0) {
+					result = result.add(parseTerm(body.substring(start, i)));
+					start = i + 1;
+				}
+			}
+		} catch (OperationUndefinedException ex) {
+			throw new ElementParseException("Terms of '" + string + "' cannot be added", ex);
+		}
+		return result;
+	}
+
+	private MultivariatePolynomial parseTerm(String term) throws ElementParseException {
+		int colon = term.lastIndexOf(':');
+		if (colon < 0)
+			throw new ElementParseException("Term '" + term + "' has to be of the form 'c:e1,...,en'");
+		String[] parts = term.substring(colon + 1).split(",");
+		if (parts.length != variables.length)
+			throw new ElementParseException("Term '" + term + "' needs " + variables.length + " exponents");
+		int[] exponents = new int[parts.length];
+		try {
+			for (int i = 0; i < parts.length; i++)
+				exponents[i] = Integer.parseInt(parts[i].trim());
+			return monomial(ring.parseElement(term.substring(0, colon)), exponents);
+		} catch (NumberFormatException ex) {
+			throw new ElementParseException("Unable to parse the exponents of term '" + term + "'");
+		} catch (IllegalArgumentException ex) {
+			throw new ElementParseException("Term '" + term + "' does not fit into " + getName() + ": " + ex.getMessage());
+		}
+	}
+
+	@Override
+	public boolean contains(RingElement el) {
+		if (el instanceof MultivariatePolynomial)
+			return ((MultivariatePolynomial)el).getRing().equals(this);
+		return ring.contains(el);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof MultivariatePolynomialRing))
+			return false;
+		MultivariatePolynomialRing o = (MultivariatePolynomialRing)other;
+		return o.order == order && o.ring.equals(ring) && Arrays.equals(o.variables, variables);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * ring.hashCode() + order.hashCode()) + Arrays.hashCode(variables);
+	}
+
+	@Override
+	public String toString() {
+		return getName() + " (" + order + ")";
+	}
+
+	@Override
+	public boolean isCommutative() {
+		return ring.isCommutative();
+	}
+
+	@Override
+	public boolean isIntegralDomain() {
+		return ring.isIntegralDomain();
+	}
+
+	@Override
+	public boolean irreducible(RingElement el) throws OperationUndefinedException {
+		throw new NotImplementedException("Irreducibility of multivariate polynomials is not implemented");
+	}
+
+	@Override
+	public Computation<ArrayList<RingElement>> factor() throws OperationUndefinedException {
+		throw new NotImplementedException("Factorization of multivariate polynomials is not implemented");
+	}
+
+	/**
+	 * Groebner bases: for a non-empty list of polynomials of this ring, the reduced Groebner basis of the ideal they
+	 * generate in the monomial order of the ring, as an ArrayList of monic MultivariatePolynomials sorted by
+	 * descending leading monomials. Which strategy applies depends on the coefficient ring.
+	 */
+	public Computation<ArrayList<MultivariatePolynomial>> groebnerBasis() {
+		return GroebnerBasisComputation.getInstance();
+	}
+
+	public static class GroebnerBasisComputation extends Computation<ArrayList<MultivariatePolynomial>> {
+		private LinkedList<Strategy<ArrayList<MultivariatePolynomial>>> strategies;
+		private static GroebnerBasisComputation instance;
+
+		public static synchronized GroebnerBasisComputation getInstance() {
+			if(instance == null)
+				instance = new GroebnerBasisComputation();
+			return instance;
+		}
+
+		private GroebnerBasisComputation() {
+			strategies = new LinkedList<Strategy<ArrayList<MultivariatePolynomial>>>();
+			strategies.add(new F4Groebner());
+			strategies.add(new MultiModularGroebner());
+			strategies.add(new BuchbergerGroebner());
+		}
+
+		@Override
+		public String getDescription() {
+			return "Compute the reduced Groebner basis of a list of multivariate polynomials";
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Strategy<ArrayList<MultivariatePolynomial>>[] getStrategies() {
+			return (Strategy<ArrayList<MultivariatePolynomial>>[]) strategies.toArray(new Strategy<?>[strategies.size()]);
+		}
+
+		@Override
+		public void addStrategy(Strategy<ArrayList<MultivariatePolynomial>> strategy) {
+			strategies.add(strategy);
+		}
+	}
+}
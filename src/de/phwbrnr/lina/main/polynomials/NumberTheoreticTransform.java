@@ -0,0 +1,135 @@
+/**
+ * Multiplication of polynomials over F_p by number theoretic transforms.
+ *
+ * The primes p supported by PrimeField are arbitrary, so they do not have the roots of unity a transform needs.
+ * Instead, the product is computed over the integers: both factors are multiplied with a fast Fourier transform
+ * modulo each of three primes of the form c 2^k + 1, and the exact integer coefficients are recovered by Chinese
+ * remaindering (Garner's method) and reduced modulo p. Since every coefficient of the integer product is less than
+ * min(deg a, deg b) (p - 1)^2 < 2^82 for the supported sizes, and the three primes multiply to more than 2^86, the
+ * reconstruction is exact.
+ *
+ * This is asymptotically faster than Karatsuba's method, O(n log n) instead of O(n^1.59), and pays off from a few
+ * thousand coefficients on.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+final class NumberTheoreticTransform {
+	/* the primes are 119 * 2^23 + 1, 5 * 2^25 + 1 and 7 * 2^26 + 1, all with primitive root 3 */
+	private static final long[] PRIMES = { 998244353L, 167772161L, 469762049L };
+	private static final long PRIMITIVE_ROOT = 3;
+	/**
+	 * The largest supported transform length; products must have fewer coefficients.
+	 */
+	static final int MAX_LENGTH = 1 << 23;
+
+	/* Garner's constants: q0^-1 mod q1, (q0 q1)^-1 mod q2 */
+	private static final long Q0_INVERSE_MOD_Q1 = power(PRIMES[0] % PRIMES[1], PRIMES[1] - 2, PRIMES[1]);
+	private static final long Q01_INVERSE_MOD_Q2 = power(PRIMES[0] % PRIMES[2] * (PRIMES[1] % PRIMES[2]) % PRIMES[2], PRIMES[2] - 2, PRIMES[2]);
+
+	private NumberTheoreticTransform() {
+	}
+
+	/**
+	 * @return the (untrimmed) product of a and b modulo p, of length a.length + b.length - 1
+	 * @throws IllegalArgumentException if the product is longer than MAX_LENGTH
+	 */
+	static long[] multiply(long[] a, long[] b, long p) {
+		int resultLength = a.length + b.length - 1;
+		if (resultLength > MAX_LENGTH)
+			throw new IllegalArgumentException("Polynomials too long for the number theoretic transform");
+		int n = Integer.highestOneBit(Math.max(1, resultLength - 1)) << 1;
+
+		long[][] residues = new long[PRIMES.length][];
+		for (int k = 0; k < PRIMES.length; k++)
+			residues[k] = multiplyModPrime(a, b, n, PRIMES[k], a == b);
+
+		long q0 = PRIMES[0], q1 = PRIMES[1], q2 = PRIMES[2];
+		long q0ModP = q0 % p, q01ModP = q0 % p * (q1 % p) % p;
+		long q0ModQ2 = q0 % q2;
+		long[] result = new long[resultLength];
+		for (int i = 0; i < resultLength; i++) {
+			long r0 = residues[0][i], r1 = residues[1][i], r2 = residues[2][i];
+			/* x = v0 + v1 q0 + v2 q0 q1 with 0 <= v_k < q_k */
+			long v1 = Math.floorMod(r1 - r0, q1) * Q0_INVERSE_MOD_Q1 % q1;
+			long partial = (r0 % q2 + q0ModQ2 * v1) % q2;
+			long v2 = Math.floorMod(r2 - partial, q2) * Q01_INVERSE_MOD_Q2 % q2;
+			result[i] = (r0 % p + q0ModP * (v1 % p) % p + q01ModP * (v2 % p)) % p;
+		}
+		return result;
+	}
+
+	/**
+	 * @return the first a.length + b.length - 1 coefficients of the cyclic product of length n modulo q
+	 */
+	private static long[] multiplyModPrime(long[] a, long[] b, int n, long q, boolean square) {
+		long[] fa = new long[n];
+		for (int i = 0; i < a.length; i++)
+			fa[i] = a[i] % q;
+		transform(fa, q, false);
+		long[] fb = fa;
+		if (!square) {
+			fb = new long[n];
+			for (int i = 0; i < b.length; i++)
+				fb[i] = b[i] % q;
+			transform(fb, q, false);
+		}
+		for (int i = 0; i < n; i++)
+			fa[i] = fa[i] * fb[i] % q;
+		transform(fa, q, true);
+		long nInverse = power(n, q - 2, q);
+		for (int i = 0; i < n; i++)
+			fa[i] = fa[i] * nInverse % q;
+		return fa;
+	}
+
+	/**
+	 * In-place iterative radix-2 transform of a power-of-two length; the inverse transform is not scaled by 1/n.
+	 */
+	private static void transform(long[] a, long q, boolean inverse) {
+		int n = a.length;
+		for (int i = 1, j = 0; i < n; i++) {
+			int bit = n >> 1;
+			for (; (j & bit) != 0; bit >>= 1)
+				j ^= bit;
+			j ^= bit;
+			if (i < j) {
+				long t = a[i];
+				a[i] = a[j];
+				a[j] = t;
+			}
+		}
+
+		long[] roots = new long[n / 2];
+		for (int length = 2; length <= n; length <<= 1) {
+			long w = power(PRIMITIVE_ROOT, (q - 1) / length, q);
+			if (inverse)
+				w = power(w, q - 2, q);
+			int half = length >> 1;
+			roots[0] = 1;
+			for (int i = 1; i < half; i++)
+				roots[i] = roots[i - 1] * w % q;
+			for (int start = 0; start < n; start += length) {
+				for (int i = 0; i < half; i++) {
+					long u = a[start + i], v = a[start + i + half] * roots[i] % q;
+					long s = u + v;
+					a[start + i] = s >= q ? s - q : s;
+					long d = u - v;
+					a[start + i + half] = d < 0 ? d + q : d;
+				}
+			}
+		}
+	}
+
+	private static long power(long base, long e, long q) {
+		long result = 1;
+		base %= q;
+		for (; e > 0; e >>= 1) {
+			if ((e & 1) != 0)
+				result = result * base % q;
+			base = base * base % q;
+		}
+		return result;
+	}
+}
@@ -1,20 +1,44 @@
 /**
  * Represent a polynomial over a ring.
- * 
+ *
+ * A polynomial is stored either densely, as the array of all its coefficients up to the degree, or sparsely, as the
+ * ascending exponents of its nonzero terms with their coefficients. The representation is chosen automatically:
+ * polynomials of degree at least SPARSE_DEGREE are stored sparsely if at most every SPARSE_FILL-th coefficient is
+ * nonzero, so that X^1000000 + X^17 + 3 takes memory for three terms. Sums, products and divisions with a sparse
+ * operand work on the terms (see SparsePolynomialArithmetic); algorithms that need the dense array, like the fast
+ * multiplication and division of dense polynomials, get it from getCoefficients(), which expands sparse polynomials.
+ *
  * @author Philipp Weinbrenner
  * @version 2022-10-05
  */
 package de.phwbrnr.lina.main.polynomials;
 
+import java.util.Arrays;
+
 import de.phwbrnr.lina.main.fields.ElementNotInvertibleException;
+import de.phwbrnr.lina.main.fields.IntegerElement;
 import de.phwbrnr.lina.main.fields.OperationUndefinedException;
 import de.phwbrnr.lina.main.fields.Ring;
 import de.phwbrnr.lina.main.fields.RingElement;
 
 public class Polynomial implements RingElement {
+	/**
+	 * The smallest degree of sparsely stored polynomials.
+	 */
+	public static final int SPARSE_DEGREE = 64;
+	/**
+	 * Polynomials are stored sparsely if at most one in SPARSE_FILL of their coefficients is nonzero.
+	 */
+	public static final int SPARSE_FILL = 4;
+
+	/* the dense coefficients, or null if the polynomial is sparse */
 	private RingElement[] coefficients;
+	/* the ascending exponents of the nonzero terms and their coefficients, or null if the polynomial is dense */
+	private int[] termExponents;
+	private RingElement[] termCoefficients;
 	private Ring ring;
-	
+	private int degree;
+
 	/**
 	 * Create a polynomial over a ring.
 	 * @param ring
@@ -23,13 +47,15 @@ public class Polynomial implements RingElement {
 	public Polynomial(Ring ring, RingElement... coefficients) {
 		this.ring = ring;
 		this.coefficients = coefficients;
-		
+
 		for (int i = 0; i < coefficients.length; i++) {
 			if (!ring.contains(coefficients[i]))
-				throw new IllegalArgumentException("Coefficient #" + i + " (" + coefficients[i].toString() + ") is not member of ring " + ring.toString()); 
+				throw new IllegalArgumentException("Coefficient #" + i + " (" + coefficients[i].toString() + ") is not member of ring " + ring.toString());
 		}
+		degree = PolynomialArithmetic.degree(coefficients);
+		sparsifyIfThin();
 	}
-	
+
 	/**
 	 * Create the zero polynomial over a ring.
 	 * @param ring
@@ -37,103 +63,289 @@ public class Polynomial implements RingElement {
 	public Polynomial(Ring ring) {
 		this(ring, ring.getZero());
 	}
-	
+
 	/**
 	 * Create a polynomial of the form c * X^i.
 	 */
 	public Polynomial (Ring ring, int degree, RingElement coefficient) {
 		if(!ring.contains(coefficient))
 			throw new IllegalArgumentException("Coefficient " + coefficient.toString() + "is not member of ring " + ring.toString());
-		
+
 		this.ring = ring;
-		coefficients = new RingElement[degree];
-		for (int i = 0; i < degree - 1; i++)
-			coefficients[i] = ring.getZero();
-		coefficients[degree - 1] = coefficient;
+		if (degree >= SPARSE_DEGREE && !coefficient.isZero()) {
+			termExponents = new int[] { degree };
+			termCoefficients = new RingElement[] { coefficient };
+			this.degree = degree;
+			return;
+		}
+		RingElement zero = ring.getZero();
+		coefficients = new RingElement[degree + 1];
+		for (int i = 0; i < degree; i++)
+			coefficients[i] = zero;
+		coefficients[degree] = coefficient;
+		this.degree = coefficient.isZero() ? -1 : degree;
+	}
+
+	/**
+	 * Wrap an array of coefficients that is known to belong to the ring, without checking it.
+	 * Used by the algorithms of this package, which produce their coefficients by ring operations.
+	 */
+	Polynomial(Ring ring, RingElement[] coefficients, boolean trusted) {
+		this.ring = ring;
+		if (coefficients.length == 0)
+			coefficients = new RingElement[] { ring.getZero() };
+		this.coefficients = coefficients;
+		degree = PolynomialArithmetic.degree(coefficients);
+		sparsifyIfThin();
+	}
+
+	/**
+	 * Wrap an array of coefficients whose entries beyond the given degree are known to vanish, without checking or
+	 * copying it; used by PolynomialBuilder.
+	 */
+	Polynomial(Ring ring, RingElement[] coefficients, int degree) {
+		this.ring = ring;
+		if (coefficients.length == 0)
+			coefficients = new RingElement[] { ring.getZero() };
+		this.coefficients = coefficients;
+		this.degree = degree;
+		sparsifyIfThin();
+	}
+
+	/**
+	 * Create a polynomial from its terms.
+	 * @param exponents the exponents of the terms, strictly ascending
+	 * @param coefficients the coefficients of the terms; vanishing ones are dropped
+	 * @return the polynomial, stored sparsely or densely depending on the fill ratio
+	 * @throws IllegalArgumentException if the exponents are negative or not strictly ascending, their number does not
+	 * match the coefficients, or a coefficient does not belong to the ring.
+	 */
+	public static Polynomial fromTerms(Ring ring, int[] exponents, RingElement[] coefficients) {
+		if (exponents.length != coefficients.length)
+			throw new IllegalArgumentException("Got " + exponents.length + " exponents for " + coefficients.length + " coefficients");
+		int[] e = new int[exponents.length];
+		RingElement[] c = new RingElement[exponents.length];
+		int k = 0;
+		for (int i = 0; i < exponents.length; i++) {
+			if (exponents[i] < 0 || (i > 0 && exponents[i] <= exponents[i - 1]))
+				throw new IllegalArgumentException("The exponents have to be non-negative and strictly ascending, but got " + Arrays.toString(exponents));
+			if (!ring.contains(coefficients[i]))
+				throw new IllegalArgumentException("Coefficient #" + i + " (" + coefficients[i].toString() + ") is not member of ring " + ring.toString());
+			if (coefficients[i].isZero())
+				continue;
+			e[k] = exponents[i];
+			c[k++] = coefficients[i];
+		}
+		return fromTerms(ring, e, c, k);
+	}
+
+	/**
+	 * Wrap the first count terms, with strictly ascending exponents and nonzero coefficients of the ring, without
+	 * checking them; the arrays are only copied if the polynomial is stored densely or they are longer than count.
+	 */
+	static Polynomial fromTerms(Ring ring, int[] exponents, RingElement[] coefficients, int count) {
+		int degree = count == 0 ? -1 : exponents[count - 1];
+		if (!isThin(degree, count)) {
+			RingElement zero = ring.getZero();
+			RingElement[] dense = new RingElement[Math.max(degree + 1, 1)];
+			Arrays.fill(dense, zero);
+			for (int i = 0; i < count; i++)
+				dense[exponents[i]] = coefficients[i];
+			return new Polynomial(ring, dense, degree);
+		}
+		Polynomial result = new Polynomial(ring);
+		result.coefficients = null;
+		result.termExponents = count == exponents.length ? exponents : Arrays.copyOf(exponents, count);
+		result.termCoefficients = count == coefficients.length ? coefficients : Arrays.copyOf(coefficients, count);
+		result.degree = degree;
+		return result;
+	}
+
+	/**
+	 * @return whether a polynomial of the given degree with the given number of nonzero terms is stored sparsely
+	 */
+	private static boolean isThin(int degree, int terms) {
+		return degree >= SPARSE_DEGREE && (long)terms * SPARSE_FILL <= degree + 1L;
+	}
+
+	/**
+	 * Switch a dense polynomial to the sparse representation if few of its coefficients are nonzero. Counting stops
+	 * as soon as there are too many, so for dense polynomials this only looks at their first few coefficients.
+	 */
+	private void sparsifyIfThin() {
+		if (degree < SPARSE_DEGREE)
+			return;
+		int limit = (degree + 1) / SPARSE_FILL, count = 0;
+		for (int i = 0; i <= degree; i++) {
+			if (!coefficients[i].isZero() && ++count > limit)
+				return;
+		}
+		termExponents = new int[count];
+		termCoefficients = new RingElement[count];
+		for (int i = 0, k = 0; i <= degree; i++) {
+			if (!coefficients[i].isZero()) {
+				termExponents[k] = i;
+				termCoefficients[k++] = coefficients[i];
+			}
+		}
+		coefficients = null;
+	}
+
+	/**
+	 * @return whether the polynomial is stored as its nonzero terms rather than as the array of all coefficients
+	 */
+	public boolean isSparse() {
+		return coefficients == null;
+	}
+
+	/**
+	 * @return the number of nonzero terms
+	 */
+	public int getTermCount() {
+		if (isSparse())
+			return termExponents.length;
+		int count = 0;
+		for (int i = 0; i <= degree; i++)
+			if (!coefficients[i].isZero())
+				count++;
+		return count;
+	}
+
+	/**
+	 * @return the exponents of the nonzero terms, ascending
+	 */
+	public int[] getTermExponents() {
+		return termExponents().clone();
+	}
+
+	/**
+	 * @return the coefficients of the nonzero terms, in the order of getTermExponents()
+	 */
+	public RingElement[] getTermCoefficients() {
+		return termCoefficients().clone();
+	}
+
+	/**
+	 * @return the exponents of the nonzero terms, without copying them for sparse polynomials
+	 */
+	int[] termExponents() {
+		if (isSparse())
+			return termExponents;
+		int[] result = new int[getTermCount()];
+		for (int i = 0, k = 0; i <= degree; i++)
+			if (!coefficients[i].isZero())
+				result[k++] = i;
+		return result;
+	}
+
+	/**
+	 * @return the coefficients of the nonzero terms, without copying them for sparse polynomials
+	 */
+	RingElement[] termCoefficients() {
+		if (isSparse())
+			return termCoefficients;
+		RingElement[] result = new RingElement[getTermCount()];
+		for (int i = 0, k = 0; i <= degree; i++)
+			if (!coefficients[i].isZero())
+				result[k++] = coefficients[i];
+		return result;
+	}
+
+	/**
+	 * @return the coefficients up to the degree, that is, without vanishing leading coefficients; sparse polynomials
+	 * are expanded.
+	 */
+	RingElement[] trimmedCoefficients() {
+		if (isSparse())
+			return expand();
+		if (coefficients.length == degree + 1)
+			return coefficients;
+		RingElement[] result = new RingElement[degree + 1];
+		System.arraycopy(coefficients, 0, result, 0, degree + 1);
+		return result;
+	}
+
+	/**
+	 * Interpret a ring element as a polynomial over the same coefficient ring.
+	 */
+	private Polynomial asPolynomial(RingElement element) {
+		if (element instanceof Polynomial)
+			return (Polynomial)element;
+		/* simple ring element */
+		return new Polynomial(ring, element);
+	}
+
+	/**
+	 * @return the dense coefficients of a sparse polynomial
+	 */
+	private RingElement[] expand() {
+		RingElement[] result = new RingElement[degree + 1];
+		Arrays.fill(result, ring.getZero());
+		for (int i = 0; i < termExponents.length; i++)
+			result[termExponents[i]] = termCoefficients[i];
+		return result;
 	}
-	
+
 	@Override
 	public Polynomial add(RingElement... addends) throws OperationUndefinedException {
-		Polynomial result = new Polynomial(ring);
+		int length = degree + 1;
+		boolean sparse = isSparse();
 		for (int i = 0; i < addends.length; i++) {
 			if (!canAdd(addends[i]))
 					throw new OperationUndefinedException("Cannot add polynomial over " + ring.getName() + " and element of " + addends[i].getRing());
-			
-			Polynomial other = null;
 			if (addends[i] instanceof Polynomial) {
-				other = (Polynomial)addends[i];
-			} else {
-				/* simple ring element */
-				other = new Polynomial(ring, addends[i]);
+				length = Math.max(length, ((Polynomial)addends[i]).getDegree() + 1);
+				sparse |= ((Polynomial)addends[i]).isSparse();
 			}
-				
-			int len = Math.max(result.getDegree(), other.getDegree());
-				
-			RingElement[] coefficients = new RingElement[len];
-			for (int j = 0; j < len; j++)
-				coefficients[j] = result.getCoefficient(j).add(other.getCoefficient(j));
-				
-			result = new Polynomial(ring, coefficients);
 		}
-		
-		return result;
+		if (sparse) {
+			Polynomial result = this;
+			for (int i = 0; i < addends.length; i++)
+				result = SparsePolynomialArithmetic.add(result, asPolynomial(addends[i]), false);
+			return result;
+		}
+
+		/* all summands go into a single array */
+		PolynomialBuilder result = new PolynomialBuilder(ring, Math.max(length, 1));
+		result.shiftAdd(coefficients, degree + 1, 0);
+		for (int i = 0; i < addends.length; i++) {
+			Polynomial addend = asPolynomial(addends[i]);
+			result.shiftAdd(addend.coefficients, addend.degree + 1, 0);
+		}
+		return result.build();
 	}
 
 	@Override
 	public Polynomial subtract(RingElement subtrahend) throws OperationUndefinedException {
-		Polynomial other = null;
-		if (subtrahend instanceof Polynomial) {
-			other = (Polynomial)subtrahend;
-		} else {
-			/* simple ring element */
-			other = new Polynomial(ring, subtrahend);
-		}
-			
-		int len = Math.max(getDegree(), other.getDegree());
-			
-		RingElement[] coefficients = new RingElement[len];
-		for (int j = 0; j < len; j++)
-			coefficients[j] = getCoefficient(j).subtract(other.getCoefficient(j));
-			
-		return new Polynomial(ring, coefficients);
+		if (!canAdd(subtrahend))
+			throw new OperationUndefinedException("Cannot subtract element of " + subtrahend.getRing() + " from polynomial over " + ring.getName());
+
+		Polynomial other = asPolynomial(subtrahend);
+		if (isSparse() || other.isSparse())
+			return SparsePolynomialArithmetic.add(this, other, true);
+		return new Polynomial(ring, PolynomialArithmetic.subtract(trimmedCoefficients(), other.trimmedCoefficients()), true);
 	}
 
 	@Override
 	public Polynomial multiply(RingElement... factors) throws OperationUndefinedException {
-		Polynomial result = new Polynomial(ring, ring.getOne());
+		Polynomial result = this;
 		for (int i = 0; i < factors.length; i++) {
-			if (!canAdd(factors[i]))
+			if (!canMultiply(factors[i]))
 					throw new OperationUndefinedException("Cannot multiply polynomial over " + ring.getName() + " and element of " + factors[i].getRing());
-			
-			Polynomial other = null;
+
+			/* sparse operands are multiplied term by term, dense ones by the fast dense algorithms */
 			if (factors[i] instanceof Polynomial) {
-				other = (Polynomial)factors[i];
+				Polynomial factor = (Polynomial)factors[i];
+				if (result.isSparse() || factor.isSparse())
+					result = SparsePolynomialArithmetic.multiply(result, factor);
+				else
+					result = new Polynomial(ring, PolynomialArithmetic.multiply(ring, result.trimmedCoefficients(), factor.trimmedCoefficients()), true);
+			} else if (result.isSparse()) {
+				result = SparsePolynomialArithmetic.scale(result, factors[i]);
 			} else {
-				/* simple ring element */
-				other = new Polynomial(ring, factors[i]);
-			}
-			
-			if (other.getDegree() == -1) {
-				/* multiplication with zero */
-				return other;
+				result = new Polynomial(ring, PolynomialArithmetic.scale(result.trimmedCoefficients(), factors[i]), true);
 			}
-				
-			int len = result.getDegree() + other.getDegree();
-				
-			RingElement[] coefficients = new RingElement[len];
-			for (int j = 0; j < len; j++) {
-				/* compute coefficients[j] */
-				RingElement intermediate = ring.getZero();
-				for (int k = 0; k < j; k++) {
-					intermediate = intermediate.add(result.getCoefficient(k).multiply(other.getCoefficient(j - k)));
-				}
-				
-				coefficients[j] = intermediate;
-			}
-				
-			result = new Polynomial(ring, coefficients);
 		}
-		
 		return result;
 	}
 
@@ -149,51 +361,76 @@ public class Polynomial implements RingElement {
 
 	@Override
 	public Polynomial divide(RingElement divisor) throws OperationUndefinedException {
-		if (ring.contains(divisor)) {
+		if (!(divisor instanceof Polynomial)) {
+			if (!ring.contains(divisor))
+				throw new OperationUndefinedException("Can only divide polynomials by other polynomials or by scalars");
 			// scalar multiplication
 			try {
 				return multiply(divisor.inverse());
 			} catch (ElementNotInvertibleException ex) {
 				throw new OperationUndefinedException("Scalar element to divide by is not invertible");
 			}
-		} else if (!(divisor instanceof Polynomial)) {
-			throw new OperationUndefinedException("Can only divide polynomials by other polynomials or by scalars");
 		}
-		
+
 		Polynomial div = (Polynomial)divisor;
 		if (div.getDegree() == -1)
 			throw new OperationUndefinedException("Divison by zero polynomial not possible");
-		
-		Polynomial remainder = this;
-		Polynomial quotient = new Polynomial(ring);
-		
-		while(remainder.getDegree() <= div.getDegree()) {
-			int fromDeg = div.getDegree();
-			int toDeg = remainder.getDegree();
-			RingElement leading_coefficient = remainder.getCoefficient(toDeg).divide(div.getCoefficient(fromDeg));
-			
-			Polynomial factor = new Polynomial(ring, toDeg - fromDeg, leading_coefficient);
-			quotient = quotient.add(factor);
-			
-			remainder = remainder.subtract(div.multiply(factor));
+		if (isSparse() || div.isSparse())
+			return SparsePolynomialArithmetic.divideWithRemainder(this, div, true)[0];
+
+		RingElement[] divisorCoefficients = div.trimmedCoefficients();
+		int fromDeg = div.getDegree();
+		PolynomialBuilder remainder = new PolynomialBuilder(this);
+		PolynomialBuilder quotient = new PolynomialBuilder(ring, Math.max(degree - fromDeg + 1, 0));
+
+		/* the leading coefficient of the divisor need not be invertible, but each step has to divide evenly */
+		for (int toDeg = degree; toDeg >= fromDeg; toDeg--) {
+			RingElement c = remainder.getCoefficient(toDeg);
+			if (c.isZero())
+				continue;
+			RingElement leading_coefficient = c.divide(divisorCoefficients[fromDeg]);
+			quotient.setCoefficient(toDeg - fromDeg, leading_coefficient);
+			remainder.subMul(leading_coefficient, divisorCoefficients, fromDeg + 1, toDeg - fromDeg);
 		}
-		
+
 		if (remainder.getDegree() != -1)
-			throw new OperationUndefinedException("Polynomial " + toString() + " over " + ring.getName() + " not evenly divisible by " + divisor.toString() + " (remainder " + remainder.toString() + ")");
-		
-		return quotient;
+			throw new OperationUndefinedException("Polynomial " + toString() + " over " + ring.getName() + " not evenly divisible by " + divisor.toString() + " (remainder " + remainder.build().toString() + ")");
+
+		return quotient.build();
+	}
+
+	/**
+	 * Divide by a polynomial whose leading coefficient is invertible in the coefficient ring, with remainder.
+	 * Long divisions are carried out by Newton inversion of the reversed divisor, so the cost is a small multiple
+	 * of a multiplication.
+	 * @return The pair (q, r) such that this = q * divisor + r and the degree of r is smaller than the degree of divisor.
+	 * @throws OperationUndefinedException if the divisor vanishes or its leading coefficient is not invertible.
+	 */
+	public Polynomial[] divideWithRemainder(Polynomial divisor) throws OperationUndefinedException {
+		if (isSparse() || divisor.isSparse())
+			return SparsePolynomialArithmetic.divideWithRemainder(this, divisor, false);
+		RingElement[][] qr = PolynomialArithmetic.divideWithRemainder(ring, trimmedCoefficients(), divisor.trimmedCoefficients(), null);
+		return new Polynomial[] { new Polynomial(ring, qr[0], true), new Polynomial(ring, qr[1], true) };
+	}
+
+	/**
+	 * Compute the remainder of the division by a polynomial with invertible leading coefficient.
+	 * @see #divideWithRemainder(Polynomial)
+	 */
+	public Polynomial mod(Polynomial divisor) throws OperationUndefinedException {
+		return divideWithRemainder(divisor)[1];
 	}
 
 	@Override
 	public boolean invertible() {
-		return (getDegree() == 0 && coefficients[0].invertible()); 
+		return (getDegree() == 0 && getCoefficient(0).invertible());
 	}
 
 	@Override
 	public RingElement inverse() throws ElementNotInvertibleException {
 		if (getDegree() != 0)
 			throw new ElementNotInvertibleException("Only non-zero polynomials of degree 0 have a chance to be invertible");
-		return coefficients[0].inverse();
+		return getCoefficient(0).inverse();
 	}
 
 	@Override
@@ -215,39 +452,123 @@ public class Polynomial implements RingElement {
 		return ring;
 	}
 
+	/**
+	 * @return the array of the coefficients, the constant one first; it may extend beyond the degree with zeros.
+	 * Sparse polynomials are expanded into a new array of length degree + 1.
+	 */
 	public RingElement[] getCoefficients() {
+		if (isSparse())
+			return expand();
 		return coefficients;
 	}
-	
+
 	/**
 	 * Compute the degree of the polynomial.
 	 * @return If it is not the zero polynomial: The degree of the polynomial, that is, the highest term coefficient
 	 * that does not vanish; -1, otherwise.
 	 */
 	public int getDegree () {
-		for (int i = coefficients.length - 1; i > 0; i--) {
-			if (!coefficients[i].isZero())
-				return i;
-		}
-		
-		return -1;
+		return degree;
 	}
-	
+
 	/**
 	 * Return the i-th coefficient, where the 0th coefficient is the constant term.
 	 * If i is greater than the degree of the polynomial, 0 is returned.
 	 */
 	public RingElement getCoefficient(int index) {
-		if (index > getDegree())
+		if (index > getDegree() || index < 0)
 			return ring.getZero();
+		if (isSparse()) {
+			int i = Arrays.binarySearch(termExponents, index);
+			return i < 0 ? ring.getZero() : termCoefficients[i];
+		}
 		return coefficients[index];
 	}
-	
+
 	/**
 	 * @return the leading term coefficient of the polynomial.
 	 */
 	public RingElement getLeadingCoefficient() {
-		return coefficients[getDegree() - 1];
+		if (degree == -1)
+			return ring.getZero();
+		if (isSparse())
+			return termCoefficients[termCoefficients.length - 1];
+		return coefficients[degree];
+	}
+
+	/**
+	 * Evaluate the polynomial at a point of the coefficient ring (or of a ring that the coefficients can be multiplied
+	 * with) by Horner's scheme.
+	 * Over the integers, the scheme runs on primitive values and creates a single result element, unless
+	 * intermediate values leave the range of long.
+	 * @throws OperationUndefinedException if the point cannot be multiplied with the coefficients.
+	 */
+	public RingElement evaluate(RingElement point) throws OperationUndefinedException {
+		if (isSparse())
+			return SparsePolynomialArithmetic.evaluate(this, point);
+		if (point instanceof IntegerElement && ((IntegerElement)point).isSmall() && allSmallIntegerCoefficients()) {
+			long x = ((IntegerElement)point).getLongValue();
+			long acc = 0;
+			boolean exact = true;
+			for (int i = degree; i >= 0 && exact; i--) {
+				try {
+					acc = Math.addExact(Math.multiplyExact(acc, x), ((IntegerElement)coefficients[i]).getLongValue());
+				} catch (ArithmeticException ex) {
+					/* continue with arbitrary precision below */
+					exact = false;
+				}
+			}
+			if (exact)
+				return new IntegerElement(acc);
+		}
+
+		return PolynomialArithmetic.evaluate(ring, trimmedCoefficients(), point);
+	}
+
+	private boolean allSmallIntegerCoefficients() {
+		for (int i = 0; i <= degree; i++) {
+			if (!(coefficients[i] instanceof IntegerElement) || !((IntegerElement)coefficients[i]).isSmall())
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Evaluate the polynomial at all points of a subproduct tree, using the remainder tree.
+	 * @see SubproductTree#evaluate(Polynomial)
+	 */
+	public RingElement[] evaluate(SubproductTree points) throws OperationUndefinedException {
+		return points.evaluate(this);
+	}
+
+	/**
+	 * Evaluate the polynomial at a number of points.
+	 * For many points, this builds a SubproductTree; if the same points are used repeatedly, build the tree once
+	 * and use evaluate(SubproductTree) instead.
+	 */
+	public RingElement[] evaluateAll(RingElement... points) throws OperationUndefinedException {
+		if (points.length <= SubproductTree.HORNER_CUTOFF || degree < SubproductTree.HORNER_CUTOFF) {
+			RingElement[] values = new RingElement[points.length];
+			for (int i = 0; i < points.length; i++)
+				values[i] = evaluate(points[i]);
+			return values;
+		}
+		return new SubproductTree(ring, points).evaluate(this);
+	}
+
+	/**
+	 * @return the formal derivative of the polynomial.
+	 */
+	public Polynomial derivative() throws OperationUndefinedException {
+		if (degree <= 0)
+			return new Polynomial(ring);
+		if (isSparse())
+			return SparsePolynomialArithmetic.derivative(this);
+
+		RingElement[] result = new RingElement[degree];
+		for (int i = 1; i <= degree; i++)
+			result[i - 1] = PolynomialArithmetic.multiplyByInteger(ring, coefficients[i], i);
+		return new Polynomial(ring, PolynomialArithmetic.trim(result), true);
 	}
 
 	@Override
@@ -257,31 +578,76 @@ public class Polynomial implements RingElement {
 
 	@Override
 	public boolean isOne() {
-		return (getDegree() == 0 && coefficients[0].isOne());
+		return (getDegree() == 0 && getCoefficient(0).isOne());
 	}
-	
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof RingElement))
+			return false;
+		if (!(other instanceof Polynomial))
+			return degree <= 0 && getCoefficient(0).equals(other);
+
+		Polynomial p = (Polynomial)other;
+		if (p.degree != degree || !p.ring.equals(ring))
+			return false;
+		if (isSparse() || p.isSparse()) {
+			int[] e = termExponents(), pe = p.termExponents();
+			RingElement[] c = termCoefficients(), pc = p.termCoefficients();
+			if (!Arrays.equals(e, pe))
+				return false;
+			for (int i = 0; i < c.length; i++) {
+				if (!c[i].equals(pc[i]))
+					return false;
+			}
+			return true;
+		}
+		for (int i = 0; i <= degree; i++) {
+			if (!coefficients[i].equals(p.coefficients[i]))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * The hash code only depends on the nonzero terms, so it is the same for both representations.
+	 */
+	@Override
+	public int hashCode() {
+		int[] e = termExponents();
+		RingElement[] c = termCoefficients();
+		int hash = 0;
+		for (int i = 0; i < e.length; i++)
+			hash = 31 * (31 * hash + e[i]) + c[i].hashCode();
+		return hash;
+	}
+
 	@Override
 	public String toString() {
+		/* the coefficient array may have room left beyond the degree, see PolynomialBuilder */
+		RingElement[] coefficients = getCoefficients();
+		int length = Math.max(degree + 1, 1);
 		StringBuilder sb = new StringBuilder("polynomial[");
-		for (int i = 0; i < coefficients.length - 1; i++) {
+		for (int i = 0; i < length - 1; i++) {
 			sb.append(coefficients[i] + ",");
 		}
-		sb.append(coefficients[coefficients.length - 1] + "]");
+		sb.append(coefficients[length - 1] + "]");
 		return sb.toString();
 	}
 
 	@Override
 	public RingElement negative() {
-		RingElement[] coefficients = new RingElement[this.coefficients.length];
-		for (int i = 0; i < coefficients.length; i++)
-			coefficients[i] = this.coefficients[i].negative();
-		return new Polynomial(ring, coefficients);
+		if (isSparse())
+			return fromTerms(ring, termExponents, PolynomialArithmetic.negate(termCoefficients), termExponents.length);
+		return new Polynomial(ring, PolynomialArithmetic.negate(trimmedCoefficients()), true);
 	}
-	
+
 	@Override
 	public RingElement interpret(Ring r) throws OperationUndefinedException {
-		if (coefficients.length == 1)
-			return coefficients[0].interpret(r);
+		if (r instanceof PolynomialRing && ((PolynomialRing)r).getCoefficientRing().equals(ring))
+			return this;
+		if (degree <= 0)
+			return getCoefficient(0).interpret(r);
 		else
 			return RingElement.interpret(this, r);
 	}
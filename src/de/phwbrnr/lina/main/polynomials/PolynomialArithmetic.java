@@ -0,0 +1,346 @@
+/**
+ * Arithmetic on dense coefficient arrays, shared by Polynomial and the algorithms of this package.
+ *
+ * All arrays hold the coefficients in ascending order (index 0 is the constant term) and are expected to be
+ * trimmed, that is, either empty (the zero polynomial) or with a non-vanishing last entry. The methods never modify
+ * their arguments; coefficients are immutable RingElements and may therefore be shared between arrays.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import de.phwbrnr.lina.main.fields.ElementNotInvertibleException;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+final class PolynomialArithmetic {
+	/**
+	 * Below this length (of the shorter factor), schoolbook multiplication is faster than Karatsuba's method.
+	 */
+	static final int KARATSUBA_THRESHOLD = 24;
+
+	/**
+	 * Below this quotient length, schoolbook division is faster than division by Newton inversion.
+	 */
+	static final int NEWTON_DIVISION_THRESHOLD = 48;
+
+	static final RingElement[] EMPTY = new RingElement[0];
+
+	private PolynomialArithmetic() {
+	}
+
+	/**
+	 * @return the index of the last non-vanishing entry of the array, or -1 if there is none.
+	 */
+	static int degree(RingElement[] a) {
+		for (int i = a.length - 1; i >= 0; i--) {
+			if (!a[i].isZero())
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the array itself if it is already trimmed, a trimmed copy otherwise.
+	 */
+	static RingElement[] trim(RingElement[] a) {
+		int len = degree(a) + 1;
+		if (len == a.length)
+			return a;
+		RingElement[] result = new RingElement[len];
+		System.arraycopy(a, 0, result, 0, len);
+		return result;
+	}
+
+	static RingElement[] add(RingElement[] a, RingElement[] b) throws OperationUndefinedException {
+		if (a.length < b.length) {
+			RingElement[] t = a;
+			a = b;
+			b = t;
+		}
+		RingElement[] result = a.clone();
+		for (int i = 0; i < b.length; i++)
+			result[i] = a[i].add(b[i]);
+		return trim(result);
+	}
+
+	static RingElement[] subtract(RingElement[] a, RingElement[] b) throws OperationUndefinedException {
+		int len = Math.max(a.length, b.length);
+		RingElement[] result = new RingElement[len];
+		for (int i = 0; i < len; i++) {
+			if (i >= b.length)
+				result[i] = a[i];
+			else if (i >= a.length)
+				result[i] = b[i].negative();
+			else
+				result[i] = a[i].subtract(b[i]);
+		}
+		return trim(result);
+	}
+
+	static RingElement[] negate(RingElement[] a) {
+		RingElement[] result = new RingElement[a.length];
+		for (int i = 0; i < a.length; i++)
+			result[i] = a[i].negative();
+		return result;
+	}
+
+	/**
+	 * Multiply every coefficient by a scalar from the coefficient ring.
+	 */
+	static RingElement[] scale(RingElement[] a, RingElement scalar) throws OperationUndefinedException {
+		RingElement[] result = new RingElement[a.length];
+		for (int i = 0; i < a.length; i++)
+			result[i] = a[i].multiply(scalar);
+		return trim(result);
+	}
+
+	/**
+	 * Compute k * c, where k is an integer and c a ring element, by doubling and adding.
+	 * This works in any ring, also in those that do not know how to interpret integers.
+	 */
+	static RingElement multiplyByInteger(Ring ring, RingElement c, long k) throws OperationUndefinedException {
+		if (k < 0)
+			return multiplyByInteger(ring, c, -k).negative();
+
+		RingElement result = ring.getZero();
+		RingElement power = c;
+		while (k > 0) {
+			if ((k & 1) == 1)
+				result = result.add(power);
+			k >>= 1;
+			if (k > 0)
+				power = power.add(power);
+		}
+		return result;
+	}
+
+	/**
+	 * Compute the product of two coefficient arrays; Karatsuba's method is used for long factors.
+	 */
+	static RingElement[] multiply(Ring ring, RingElement[] a, RingElement[] b) throws OperationUndefinedException {
+		if (a.length == 0 || b.length == 0)
+			return EMPTY;
+
+		RingElement[] result = new RingElement[a.length + b.length - 1];
+		multiplyInto(ring, a, 0, a.length, b, 0, b.length, result, 0);
+		return trim(result);
+	}
+
+	/**
+	 * Compute the product of two coefficient arrays modulo X^n.
+	 */
+	static RingElement[] multiplyLow(Ring ring, RingElement[] a, RingElement[] b, int n) throws OperationUndefinedException {
+		int la = Math.min(a.length, n), lb = Math.min(b.length, n);
+		if (la == 0 || lb == 0 || n == 0)
+			return EMPTY;
+
+		if (Math.min(la, lb) < KARATSUBA_THRESHOLD) {
+			/* only compute the coefficients we need */
+			RingElement zero = ring.getZero();
+			int len = Math.min(n, la + lb - 1);
+			RingElement[] result = new RingElement[len];
+			for (int i = 0; i < len; i++)
+				result[i] = zero;
+			for (int i = 0; i < la; i++) {
+				if (a[i].isZero())
+					continue;
+				for (int j = 0; j < lb && i + j < len; j++)
+					result[i + j] = result[i + j].add(a[i].multiply(b[j]));
+			}
+			return trim(result);
+		}
+
+		RingElement[] full = new RingElement[la + lb - 1];
+		multiplyInto(ring, a, 0, la, b, 0, lb, full, 0);
+		return truncate(full, n);
+	}
+
+	/**
+	 * @return the coefficients of a modulo X^n.
+	 */
+	static RingElement[] truncate(RingElement[] a, int n) {
+		if (a.length <= n)
+			return a;
+		RingElement[] result = new RingElement[n];
+		System.arraycopy(a, 0, result, 0, n);
+		return trim(result);
+	}
+
+	/**
+	 * Write the product of a[aOff..aOff+aLen) and b[bOff..bOff+bLen) into result[rOff..rOff+aLen+bLen-1),
+	 * overwriting what was there before.
+	 */
+	private static void multiplyInto(Ring ring, RingElement[] a, int aOff, int aLen, RingElement[] b, int bOff, int bLen,
+			RingElement[] result, int rOff) throws OperationUndefinedException {
+		if (aLen < bLen) {
+			multiplyInto(ring, b, bOff, bLen, a, aOff, aLen, result, rOff);
+			return;
+		}
+
+		RingElement zero = ring.getZero();
+		if (bLen < KARATSUBA_THRESHOLD) {
+			for (int i = 0; i < aLen + bLen - 1; i++)
+				result[rOff + i] = zero;
+			for (int i = 0; i < aLen; i++) {
+				RingElement ai = a[aOff + i];
+				if (ai.isZero())
+					continue;
+				for (int j = 0; j < bLen; j++)
+					result[rOff + i + j] = result[rOff + i + j].add(ai.multiply(b[bOff + j]));
+			}
+			return;
+		}
+
+		int m = (aLen + 1) / 2;
+		if (bLen <= m) {
+			/* unbalanced: multiply blocks of a of the length of b and add the overlapping products */
+			for (int i = 0; i < aLen + bLen - 1; i++)
+				result[rOff + i] = zero;
+			RingElement[] block = new RingElement[2 * bLen - 1];
+			for (int start = 0; start < aLen; start += bLen) {
+				int len = Math.min(bLen, aLen - start);
+				multiplyInto(ring, a, aOff + start, len, b, bOff, bLen, block, 0);
+				for (int i = 0; i < len + bLen - 1; i++)
+					result[rOff + start + i] = result[rOff + start + i].add(block[i]);
+			}
+			return;
+		}
+
+		/* Karatsuba: a = a0 + X^m a1, b = b0 + X^m b1 */
+		int a1Len = aLen - m, b1Len = bLen - m;
+
+		RingElement[] aSum = new RingElement[m];
+		for (int i = 0; i < m; i++)
+			aSum[i] = i < a1Len ? a[aOff + i].add(a[aOff + m + i]) : a[aOff + i];
+		RingElement[] bSum = new RingElement[m];
+		for (int i = 0; i < m; i++)
+			bSum[i] = i < b1Len ? b[bOff + i].add(b[bOff + m + i]) : b[bOff + i];
+
+		RingElement[] low = new RingElement[2 * m - 1];
+		RingElement[] high = new RingElement[a1Len + b1Len - 1];
+		RingElement[] mid = new RingElement[2 * m - 1];
+		multiplyInto(ring, a, aOff, m, b, bOff, m, low, 0);
+		multiplyInto(ring, a, aOff + m, a1Len, b, bOff + m, b1Len, high, 0);
+		multiplyInto(ring, aSum, 0, m, bSum, 0, m, mid, 0);
+
+		for (int i = 0; i < low.length; i++)
+			mid[i] = mid[i].subtract(low[i]);
+		for (int i = 0; i < high.length; i++)
+			mid[i] = mid[i].subtract(high[i]);
+
+		for (int i = 0; i < aLen + bLen - 1; i++)
+			result[rOff + i] = zero;
+		for (int i = 0; i < low.length; i++)
+			result[rOff + i] = low[i];
+		for (int i = 0; i < high.length; i++)
+			result[rOff + 2 * m + i] = high[i];
+		for (int i = 0; i < mid.length; i++)
+			result[rOff + m + i] = result[rOff + m + i].add(mid[i]);
+	}
+
+	/**
+	 * @return the coefficients in reversed order, padded with zeros (or cut off) to the given length.
+	 */
+	static RingElement[] reverse(Ring ring, RingElement[] a, int length) {
+		RingElement zero = ring.getZero();
+		RingElement[] result = new RingElement[length];
+		for (int i = 0; i < length; i++) {
+			int j = length - 1 - i;
+			result[i] = j < a.length ? a[j] : zero;
+		}
+		return trim(result);
+	}
+
+	/**
+	 * Compute the power series inverse of f modulo X^n by Newton iteration; each step doubles the precision
+	 * so the total cost is a small multiple of one multiplication of length n.
+	 * @throws ElementNotInvertibleException if the constant term of f is not invertible.
+	 */
+	static RingElement[] inverseSeries(Ring ring, RingElement[] f, int n) throws OperationUndefinedException, ElementNotInvertibleException {
+		if (f.length == 0)
+			throw new ElementNotInvertibleException("The zero series is not invertible");
+
+		RingElement two = ring.getOne().add(ring.getOne());
+		RingElement[] g = new RingElement[] { f[0].inverse() };
+		int precision = 1;
+		while (precision < n) {
+			precision = Math.min(2 * precision, n);
+			/* g <- g * (2 - f * g) mod X^precision */
+			RingElement[] e = negate(multiplyLow(ring, truncate(f, precision), g, precision));
+			if (e.length == 0)
+				e = new RingElement[] { two };
+			else
+				e[0] = e[0].add(two);
+			g = multiplyLow(ring, g, trim(e), precision);
+		}
+		return g;
+	}
+
+	/**
+	 * Divide a by b with remainder; the leading coefficient of b has to be invertible.
+	 * @param bReverseInverse an optional precomputed inverse series of the reversal of b, of at least the length of the
+	 * quotient, or null.
+	 * @return the pair (quotient, remainder)
+	 * @throws OperationUndefinedException if b vanishes or its leading coefficient is not invertible.
+	 */
+	static RingElement[][] divideWithRemainder(Ring ring, RingElement[] a, RingElement[] b, RingElement[] bReverseInverse) throws OperationUndefinedException {
+		int da = a.length - 1, db = b.length - 1;
+		if (db < 0)
+			throw new OperationUndefinedException("Division by zero polynomial not possible");
+		if (da < db)
+			return new RingElement[][] { EMPTY, a };
+
+		int quotientLength = da - db + 1;
+
+		if (bReverseInverse == null && (quotientLength < NEWTON_DIVISION_THRESHOLD || db < KARATSUBA_THRESHOLD)) {
+			RingElement lcInverse;
+			try {
+				lcInverse = b[db].inverse();
+			} catch (ElementNotInvertibleException ex) {
+				throw new OperationUndefinedException("Leading coefficient " + b[db] + " of the divisor is not invertible");
+			}
+
+			RingElement[] r = a.clone();
+			RingElement[] q = new RingElement[quotientLength];
+			for (int i = da; i >= db; i--) {
+				RingElement c = r[i].multiply(lcInverse);
+				q[i - db] = c;
+				if (c.isZero())
+					continue;
+				for (int j = 0; j < db; j++)
+					r[i - db + j] = r[i - db + j].subtract(c.multiply(b[j]));
+				r[i] = ring.getZero();
+			}
+			return new RingElement[][] { trim(q), truncate(trim(r), db) };
+		}
+
+		RingElement[] inverse = bReverseInverse;
+		if (inverse == null || inverse.length < quotientLength) {
+			try {
+				inverse = inverseSeries(ring, reverse(ring, b, b.length), quotientLength);
+			} catch (ElementNotInvertibleException ex) {
+				throw new OperationUndefinedException("Leading coefficient " + b[db] + " of the divisor is not invertible");
+			}
+		}
+
+		RingElement[] reversedQuotient = multiplyLow(ring, reverse(ring, a, a.length), inverse, quotientLength);
+		RingElement[] q = reverse(ring, reversedQuotient, quotientLength);
+		RingElement[] r = subtract(truncate(a, db), multiplyLow(ring, b, q, db));
+		return new RingElement[][] { q, r };
+	}
+
+	/**
+	 * Evaluate the coefficient array at a point by Horner's scheme.
+	 */
+	static RingElement evaluate(Ring ring, RingElement[] a, RingElement point) throws OperationUndefinedException {
+		if (a.length == 0)
+			return ring.getZero();
+
+		RingElement acc = a[a.length - 1];
+		for (int i = a.length - 2; i >= 0; i--)
+			acc = acc.multiply(point).add(a[i]);
+		return acc;
+	}
+}
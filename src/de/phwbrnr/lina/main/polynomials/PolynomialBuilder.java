@@ -0,0 +1,253 @@
+/**
+ * Build a polynomial over a ring step by step, in place.
+ *
+ * Polynomials are immutable, so an algorithm that accumulates a polynomial as a sum of many terms or scaled
+ * polynomials, like long division or the combination steps of evaluation and interpolation, would create a new
+ * coefficient array (and Polynomial object) on every step. A builder instead keeps a growable array of
+ * coefficients and updates it in place by fused operations: addMul adds c X^k a, subMul subtracts it, and shiftAdd
+ * adds X^k a. Once the polynomial is complete, build() freezes it into a Polynomial that takes over the coefficient
+ * array without copying it; the builder cannot be used any more afterwards.
+ *
+ * Reserving the final number of coefficients in advance avoids all reallocations, and lets the Polynomial use the
+ * array without trimming it later on.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+public class PolynomialBuilder {
+	private Ring ring;
+	private RingElement zero;
+	/* all entries are ring elements, those at index length and beyond are zero */
+	private RingElement[] coefficients;
+	private int length;
+	private boolean frozen;
+
+	/**
+	 * Start with the zero polynomial.
+	 */
+	public PolynomialBuilder(Ring ring) {
+		this(ring, 0);
+	}
+
+	/**
+	 * Start with the zero polynomial, with room for a number of coefficients.
+	 */
+	public PolynomialBuilder(Ring ring, int capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("The capacity of a polynomial builder cannot be negative, but got " + capacity);
+		this.ring = ring;
+		zero = ring.getZero();
+		coefficients = PolynomialArithmetic.EMPTY;
+		reserve(capacity);
+	}
+
+	/**
+	 * Start with a copy of a polynomial.
+	 */
+	public PolynomialBuilder(Polynomial initial) {
+		this(initial.getRing(), initial.getDegree() + 1);
+		RingElement[] c = initial.getCoefficients();
+		length = initial.getDegree() + 1;
+		System.arraycopy(c, 0, coefficients, 0, length);
+	}
+
+	/**
+	 * Make sure that there is room for the given number of coefficients, that is, for degree capacity - 1.
+	 */
+	public void reserve(int capacity) {
+		checkNotFrozen();
+		if (capacity <= coefficients.length)
+			return;
+		RingElement[] grown = new RingElement[capacity];
+		System.arraycopy(coefficients, 0, grown, 0, length);
+		for (int i = length; i < capacity; i++)
+			grown[i] = zero;
+		coefficients = grown;
+	}
+
+	public Ring getRing() {
+		return ring;
+	}
+
+	/**
+	 * @return the degree of the polynomial built so far, -1 for the zero polynomial
+	 */
+	public int getDegree() {
+		while (length > 0 && coefficients[length - 1].isZero())
+			length--;
+		return length - 1;
+	}
+
+	/**
+	 * @return the coefficient of X^index of the polynomial built so far
+	 */
+	public RingElement getCoefficient(int index) {
+		if (index < 0 || index >= length)
+			return zero;
+		return coefficients[index];
+	}
+
+	/**
+	 * Set the coefficient of X^index.
+	 * @throws OperationUndefinedException if the coefficient is not an element of the ring.
+	 */
+	public PolynomialBuilder setCoefficient(int index, RingElement c) throws OperationUndefinedException {
+		checkNotFrozen();
+		if (!ring.contains(c))
+			throw new OperationUndefinedException("Coefficient " + c + " is not member of ring " + ring.getName());
+		if (index < 0)
+			throw new IllegalArgumentException("Negative exponent " + index);
+		grow(index + 1);
+		coefficients[index] = c;
+		return this;
+	}
+
+	/**
+	 * Add X^shift a.
+	 * @throws OperationUndefinedException if a is not a polynomial over the ring of the builder.
+	 */
+	public PolynomialBuilder shiftAdd(Polynomial a, int shift) throws OperationUndefinedException {
+		check(a);
+		return shiftAdd(a.getCoefficients(), a.getDegree() + 1, shift);
+	}
+
+	/**
+	 * Add c a for a scalar c.
+	 * @throws OperationUndefinedException if a or c do not belong to the ring of the builder.
+	 */
+	public PolynomialBuilder addMul(RingElement c, Polynomial a) throws OperationUndefinedException {
+		return addMul(c, a, 0);
+	}
+
+	/**
+	 * Add c X^shift a for a scalar c.
+	 * @throws OperationUndefinedException if a or c do not belong to the ring of the builder.
+	 */
+	public PolynomialBuilder addMul(RingElement c, Polynomial a, int shift) throws OperationUndefinedException {
+		check(a);
+		if (!ring.contains(c))
+			throw new OperationUndefinedException("Scalar " + c + " is not member of ring " + ring.getName());
+		return addMul(c, a.getCoefficients(), a.getDegree() + 1, shift);
+	}
+
+	/**
+	 * Subtract c a for a scalar c.
+	 * @throws OperationUndefinedException if a or c do not belong to the ring of the builder.
+	 */
+	public PolynomialBuilder subMul(RingElement c, Polynomial a) throws OperationUndefinedException {
+		return subMul(c, a, 0);
+	}
+
+	/**
+	 * Subtract c X^shift a for a scalar c.
+	 * @throws OperationUndefinedException if a or c do not belong to the ring of the builder.
+	 */
+	public PolynomialBuilder subMul(RingElement c, Polynomial a, int shift) throws OperationUndefinedException {
+		check(a);
+		if (!ring.contains(c))
+			throw new OperationUndefinedException("Scalar " + c + " is not member of ring " + ring.getName());
+		return subMul(c, a.getCoefficients(), a.getDegree() + 1, shift);
+	}
+
+	/**
+	 * Add the product a b of two polynomials.
+	 * @throws OperationUndefinedException if a or b is not a polynomial over the ring of the builder.
+	 */
+	public PolynomialBuilder addMul(Polynomial a, Polynomial b) throws OperationUndefinedException {
+		check(a);
+		check(b);
+		return addMul(a.trimmedCoefficients(), b.trimmedCoefficients());
+	}
+
+	/**
+	 * Freeze the builder into a polynomial, which takes over the coefficient array without copying it.
+	 * @throws IllegalStateException if the builder has been frozen before.
+	 */
+	public Polynomial build() {
+		checkNotFrozen();
+		frozen = true;
+		return new Polynomial(ring, coefficients, getDegree());
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("builder[");
+		for (int i = 0; i < Math.max(length, 1); i++)
+			sb.append(i == 0 ? "" : ",").append(coefficients.length == 0 ? zero : coefficients[i]);
+		return sb.append("]").toString();
+	}
+
+	/* operations on trusted coefficient arrays, for the algorithms of this package */
+
+	PolynomialBuilder shiftAdd(RingElement[] a, int aLength, int shift) throws OperationUndefinedException {
+		checkNotFrozen();
+		grow(shift + aLength);
+		for (int i = 0; i < aLength; i++)
+			coefficients[shift + i] = coefficients[shift + i].add(a[i]);
+		return this;
+	}
+
+	PolynomialBuilder addMul(RingElement c, RingElement[] a, int aLength, int shift) throws OperationUndefinedException {
+		checkNotFrozen();
+		if (c.isZero())
+			return this;
+		grow(shift + aLength);
+		for (int i = 0; i < aLength; i++)
+			coefficients[shift + i] = coefficients[shift + i].add(c.multiply(a[i]));
+		return this;
+	}
+
+	PolynomialBuilder subMul(RingElement c, RingElement[] a, int aLength, int shift) throws OperationUndefinedException {
+		checkNotFrozen();
+		if (c.isZero())
+			return this;
+		grow(shift + aLength);
+		for (int i = 0; i < aLength; i++)
+			coefficients[shift + i] = coefficients[shift + i].subtract(c.multiply(a[i]));
+		return this;
+	}
+
+	PolynomialBuilder addMul(RingElement[] a, RingElement[] b) throws OperationUndefinedException {
+		RingElement[] product = PolynomialArithmetic.multiply(ring, a, b);
+		return shiftAdd(product, product.length, 0);
+	}
+
+	/**
+	 * Freeze the builder into a trimmed coefficient array; this copies only if there is room left beyond the degree.
+	 */
+	RingElement[] buildArray() {
+		checkNotFrozen();
+		frozen = true;
+		int n = getDegree() + 1;
+		if (n == coefficients.length)
+			return coefficients;
+		RingElement[] result = new RingElement[n];
+		System.arraycopy(coefficients, 0, result, 0, n);
+		return result;
+	}
+
+	/**
+	 * Make room for a coefficients, doubling the capacity if it does not suffice.
+	 */
+	private void grow(int n) {
+		if (n > coefficients.length)
+			reserve(Math.max(n, 2 * coefficients.length));
+		if (n > length)
+			length = n;
+	}
+
+	private void check(Polynomial a) throws OperationUndefinedException {
+		if (!a.getRing().equals(ring))
+			throw new OperationUndefinedException("Cannot combine polynomial over " + a.getRing().getName() + " with a builder over " + ring.getName());
+	}
+
+	private void checkNotFrozen() {
+		if (frozen)
+			throw new IllegalStateException("The builder has already been frozen into a polynomial");
+	}
+}
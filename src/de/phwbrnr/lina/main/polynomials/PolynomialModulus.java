@@ -0,0 +1,264 @@
+/**
+ * Represent a fixed modulus f for polynomial arithmetic modulo f, that is, in the residue ring R[X]/(f).
+ *
+ * Algorithms over finite fields spend most of their time computing products, powers like X^(p^k) and compositions
+ * g(h) modulo one and the same polynomial, so the work that only depends on f is done once here: the inverse series
+ * of the reversal of f, with which every reduction of a product costs two short multiplications (Newton division)
+ * instead of a quadratic long division. On top of that, powers are computed by sliding-window exponentiation, and
+ * compositions by the baby-step/giant-step method of Brent and Kung, which needs about sqrt(n) multiplications modulo
+ * f plus one product of matrices of size sqrt(n) x sqrt(n) and sqrt(n) x n, instead of n multiplications.
+ *
+ * Over a PrimeField, all of this runs on primitive residues (see PrimeFieldArithmetic). A modulus is immutable and
+ * should be kept and reused as long as f stays the same.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.math.BigInteger;
+
+import de.phwbrnr.lina.main.fields.ElementNotInvertibleException;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+public class PolynomialModulus {
+	private Ring ring;
+	private Polynomial modulus;
+	private RingElement[] f;
+	/* the inverse series of the reversal of f to n - 1 coefficients, or null if classical division is faster */
+	private RingElement[] inverse;
+	/* the same modulus on residues, if the ring is a prime field */
+	private PrimeFieldArithmetic.Modulus primeModulus;
+
+	/**
+	 * Precompute the data needed for arithmetic modulo a polynomial.
+	 * @param modulus a polynomial of positive degree over a commutative ring
+	 * @throws OperationUndefinedException if the modulus is constant or its leading coefficient is not invertible.
+	 */
+	public PolynomialModulus(Polynomial modulus) throws OperationUndefinedException {
+		if (modulus.getDegree() < 1)
+			throw new OperationUndefinedException("The modulus " + modulus + " has to have positive degree");
+		if (!modulus.getLeadingCoefficient().invertible())
+			throw new OperationUndefinedException("Leading coefficient " + modulus.getLeadingCoefficient() + " of the modulus is not invertible");
+
+		this.modulus = modulus;
+		ring = modulus.getRing();
+		f = modulus.trimmedCoefficients();
+		if (ring instanceof PrimeField) {
+			primeModulus = new PrimeFieldArithmetic.Modulus(PrimeFieldArithmetic.fromPolynomial(modulus), ((PrimeField)ring).getCharacteristic());
+		} else if (f.length - 1 >= PolynomialArithmetic.NEWTON_DIVISION_THRESHOLD) {
+			try {
+				inverse = PolynomialArithmetic.inverseSeries(ring, PolynomialArithmetic.reverse(ring, f, f.length), f.length - 2);
+			} catch (ElementNotInvertibleException ex) {
+				throw new OperationUndefinedException("Leading coefficient " + modulus.getLeadingCoefficient() + " of the modulus is not invertible");
+			}
+		}
+	}
+
+	public Polynomial getModulus() {
+		return modulus;
+	}
+
+	public Ring getRing() {
+		return ring;
+	}
+
+	/**
+	 * @return the remainder of a modulo the modulus
+	 * @throws OperationUndefinedException if a is not a polynomial over the ring of the modulus.
+	 */
+	public Polynomial reduce(Polynomial a) throws OperationUndefinedException {
+		check(a);
+		if (primeModulus != null)
+			return toPolynomial(primeModulus.reduce(PrimeFieldArithmetic.fromPolynomial(a)));
+		return new Polynomial(ring, reduce(a.trimmedCoefficients()), true);
+	}
+
+	/**
+	 * @return the product a b modulo the modulus
+	 * @throws OperationUndefinedException if a or b is not a polynomial over the ring of the modulus.
+	 */
+	public Polynomial multiply(Polynomial a, Polynomial b) throws OperationUndefinedException {
+		check(a);
+		check(b);
+		if (primeModulus != null)
+			return toPolynomial(primeModulus.multiply(primeModulus.reduce(PrimeFieldArithmetic.fromPolynomial(a)),
+					primeModulus.reduce(PrimeFieldArithmetic.fromPolynomial(b))));
+		return new Polynomial(ring, multiply(reduce(a.trimmedCoefficients()), reduce(b.trimmedCoefficients())), true);
+	}
+
+	/**
+	 * Compute a^e modulo the modulus by sliding-window exponentiation.
+	 * @param e a nonnegative exponent
+	 * @throws IllegalArgumentException if the exponent is negative.
+	 * @throws OperationUndefinedException if a is not a polynomial over the ring of the modulus.
+	 */
+	public Polynomial power(Polynomial a, BigInteger e) throws OperationUndefinedException {
+		check(a);
+		if (e.signum() < 0)
+			throw new IllegalArgumentException("Powers modulo a polynomial need a nonnegative exponent, but got " + e);
+		if (primeModulus != null)
+			return toPolynomial(primeModulus.power(PrimeFieldArithmetic.fromPolynomial(a), e));
+		return new Polynomial(ring, power(reduce(a.trimmedCoefficients()), e), true);
+	}
+
+	public Polynomial power(Polynomial a, long e) throws OperationUndefinedException {
+		return power(a, BigInteger.valueOf(e));
+	}
+
+	/**
+	 * Compute the composition g(h) modulo the modulus by the method of Brent and Kung.
+	 * @throws OperationUndefinedException if g or h is not a polynomial over the ring of the modulus.
+	 */
+	public Polynomial compose(Polynomial g, Polynomial h) throws OperationUndefinedException {
+		check(g);
+		check(h);
+		if (primeModulus != null)
+			return toPolynomial(primeModulus.compose(PrimeFieldArithmetic.fromPolynomial(g), PrimeFieldArithmetic.fromPolynomial(h)));
+		return new Polynomial(ring, compose(g.trimmedCoefficients(), reduce(h.trimmedCoefficients())), true);
+	}
+
+	/**
+	 * Compute X^(p^k) modulo the modulus over the prime field F_p. Since the Frobenius map is a ring homomorphism
+	 * fixing the coefficients, X^(p^(i+j)) = X^(p^i)(X^(p^j)), so after the single exponentiation X^p, the power
+	 * is found by about 2 log k modular compositions instead of k log p multiplications.
+	 * @param k a nonnegative number of iterations of the Frobenius map
+	 * @throws OperationUndefinedException if the modulus is not over a PrimeField.
+	 */
+	public Polynomial frobenius(int k) throws OperationUndefinedException {
+		if (primeModulus == null)
+			throw new OperationUndefinedException("The Frobenius map is only available modulo polynomials over prime fields, not over " + ring.getName());
+		if (k < 0)
+			throw new IllegalArgumentException("The Frobenius map cannot be iterated " + k + " times");
+
+		long[] result = primeModulus.reduce(PrimeFieldArithmetic.X);
+		long[] step = primeModulus.power(PrimeFieldArithmetic.X, BigInteger.valueOf(primeModulus.p));
+		for (; k > 0; k >>= 1) {
+			if ((k & 1) != 0)
+				result = primeModulus.compose(result, step);
+			if (k > 1)
+				step = primeModulus.compose(step, step);
+		}
+		return toPolynomial(result);
+	}
+
+	@Override
+	public String toString() {
+		return "modulus[" + modulus.toString() + "]";
+	}
+
+	private void check(Polynomial a) throws OperationUndefinedException {
+		if (!a.getRing().equals(ring))
+			throw new OperationUndefinedException("Cannot reduce polynomial over " + a.getRing().getName() + " modulo a polynomial over " + ring.getName());
+	}
+
+	private Polynomial toPolynomial(long[] a) {
+		return PrimeFieldArithmetic.toPolynomial((PrimeField)ring, a);
+	}
+
+	private RingElement[] reduce(RingElement[] a) throws OperationUndefinedException {
+		if (a.length < f.length)
+			return a;
+		return PolynomialArithmetic.divideWithRemainder(ring, a, f, inverse)[1];
+	}
+
+	private RingElement[] multiply(RingElement[] a, RingElement[] b) throws OperationUndefinedException {
+		return reduce(PolynomialArithmetic.multiply(ring, a, b));
+	}
+
+	/**
+	 * Left-to-right sliding-window exponentiation of a reduced polynomial, as in PrimeFieldArithmetic.Modulus.
+	 */
+	private RingElement[] power(RingElement[] base, BigInteger e) throws OperationUndefinedException {
+		int bits = e.bitLength();
+		if (bits == 0)
+			return reduce(new RingElement[] { ring.getOne() });
+		int w = base.length <= 2 ? 1 : PrimeFieldArithmetic.windowSize(bits);
+
+		RingElement[][] odd = new RingElement[1 << (w - 1)][];
+		odd[0] = base;
+		if (odd.length > 1) {
+			RingElement[] square = multiply(base, base);
+			for (int i = 1; i < odd.length; i++)
+				odd[i] = multiply(odd[i - 1], square);
+		}
+
+		RingElement[] result = null;
+		for (int i = bits - 1; i >= 0; ) {
+			if (!e.testBit(i)) {
+				result = multiply(result, result);
+				i--;
+				continue;
+			}
+			int j = Math.max(i - w + 1, 0);
+			while (!e.testBit(j))
+				j++;
+			int window = 0;
+			for (int l = i; l >= j; l--)
+				window = window << 1 | (e.testBit(l) ? 1 : 0);
+			if (result == null) {
+				result = odd[window >> 1];
+			} else {
+				for (int l = i; l >= j; l--)
+					result = multiply(result, result);
+				result = multiply(result, odd[window >> 1]);
+			}
+			i = j - 1;
+		}
+		return result;
+	}
+
+	/**
+	 * Brent-Kung composition g(h) for a reduced h, as in PrimeFieldArithmetic.Composition.
+	 */
+	private RingElement[] compose(RingElement[] g, RingElement[] h) throws OperationUndefinedException {
+		if (g.length == 0)
+			return PolynomialArithmetic.EMPTY;
+		int n = f.length - 1;
+		int k = (int)Math.ceil(Math.sqrt(n));
+		RingElement zero = ring.getZero();
+
+		RingElement[][] babySteps = new RingElement[k][];
+		RingElement[] power = reduce(new RingElement[] { ring.getOne() });
+		for (int i = 0; i < k; i++) {
+			babySteps[i] = pad(power, n, zero);
+			power = multiply(power, h);
+		}
+		RingElement[] giantStep = power;
+
+		int blocks = (g.length + k - 1) / k;
+		RingElement[][] coefficients = new RingElement[blocks][k];
+		for (int i = 0; i < blocks * k; i++)
+			coefficients[i / k][i % k] = i < g.length ? g[i] : zero;
+		RingElement[][] values = multiplyMatrices(coefficients, babySteps);
+
+		RingElement[] result = values[blocks - 1];
+		for (int j = blocks - 2; j >= 0; j--)
+			result = PolynomialArithmetic.add(multiply(result, giantStep), values[j]);
+		return result;
+	}
+
+	/**
+	 * @return the matrix product a b, for a of size m x k and b of size k x n, with trimmed rows
+	 */
+	private RingElement[][] multiplyMatrices(RingElement[][] a, RingElement[][] b) throws OperationUndefinedException {
+		int n = b[0].length;
+		RingElement[][] result = new RingElement[a.length][];
+		for (int i = 0; i < a.length; i++) {
+			PolynomialBuilder row = new PolynomialBuilder(ring, n);
+			for (int l = 0; l < b.length; l++)
+				row.addMul(a[i][l], b[l], n, 0);
+			result[i] = row.buildArray();
+		}
+		return result;
+	}
+
+	private static RingElement[] pad(RingElement[] a, int n, RingElement zero) {
+		RingElement[] result = new RingElement[n];
+		for (int i = 0; i < n; i++)
+			result[i] = i < a.length ? a[i] : zero;
+		return result;
+	}
+}
@@ -9,16 +9,19 @@
 package de.phwbrnr.lina.main.polynomials;
 
 import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import de.phwbrnr.lina.main.fields.ElementParseException;
+import de.phwbrnr.lina.main.fields.Factorization;
 import de.phwbrnr.lina.main.fields.NotImplementedException;
 import de.phwbrnr.lina.main.fields.OperationUndefinedException;
 import de.phwbrnr.lina.main.fields.Ring;
 import de.phwbrnr.lina.main.fields.RingElement;
 import de.phwbrnr.lina.main.strategies.Computation;
-import de.phwbrnr.lina.main.strategies.Uncomputation;
+import de.phwbrnr.lina.main.strategies.NoStrategyException;
+import de.phwbrnr.lina.main.strategies.Strategy;
 
 public class PolynomialRing implements Ring {
 	private Ring ring;
@@ -61,7 +64,7 @@ public class PolynomialRing implements Ring {
 	public boolean contains(RingElement el) {
 		if (el instanceof Polynomial) {
 			Polynomial elp = (Polynomial)el;
-			return elp.getRing().equals(this);
+			return elp.getRing().equals(ring);
 		} else {
 			return ring.contains(el);
 		}
@@ -98,8 +101,235 @@ public class PolynomialRing implements Ring {
 		throw new NotImplementedException("The default PolynomialRing does not know about irreducible elements");
 	}
 
+	/**
+	 * Polynomials are factored by the strategies registered with PolynomialFactorComputation; which of them applies
+	 * depends on the coefficient ring of the polynomial to factor.
+	 */
 	@Override
 	public Computation<ArrayList<RingElement>> factor() {
-		return new Uncomputation<ArrayList<RingElement>>("The default PolynomialRing does not know about factorization");
+		return PolynomialFactorComputation.getInstance();
+	}
+	
+	public static class PolynomialFactorComputation extends Computation<ArrayList<RingElement>> {
+		private LinkedList<Strategy<ArrayList<RingElement>>> strategies;
+		private static PolynomialFactorComputation instance;
+		
+		public static synchronized PolynomialFactorComputation getInstance() {
+			if(instance == null)
+				instance = new PolynomialFactorComputation();
+			return instance;
+		}
+		
+		private PolynomialFactorComputation() {
+			strategies = new LinkedList<Strategy<ArrayList<RingElement>>>();
+			strategies.add(new CantorZassenhausFactorization());
+			strategies.add(new BerlekampFactorization());
+			strategies.add(new VanHoeijFactorization());
+		}
+
+		@Override
+		public String getDescription() {
+			return "Compute the factorization of a polynomial into irreducible polynomials";
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Strategy<ArrayList<RingElement>>[] getStrategies() {
+			return (Strategy<ArrayList<RingElement>>[]) strategies.toArray(new Strategy<?>[strategies.size()]);
+		}
+
+		@Override
+		public void addStrategy(Strategy<ArrayList<RingElement>> strategy) {
+			strategies.add(strategy);
+		}
+	}
+
+	/**
+	 * Square-free decomposition: write a polynomial as u * g_1^e_1 * ... * g_k^e_k with square-free, pairwise
+	 * coprime g_i of positive degree and distinct exponents e_i. Which strategy applies depends on the coefficient
+	 * ring; the normalization of the unit and the factors is described with each strategy.
+	 */
+	public Computation<Factorization> squareFreeDecomposition() {
+		return SquareFreeComputation.getInstance();
+	}
+
+	public static class SquareFreeComputation extends Computation<Factorization> {
+		private LinkedList<Strategy<Factorization>> strategies;
+		private static SquareFreeComputation instance;
+
+		public static synchronized SquareFreeComputation getInstance() {
+			if(instance == null)
+				instance = new SquareFreeComputation();
+			return instance;
+		}
+
+		private SquareFreeComputation() {
+			strategies = new LinkedList<Strategy<Factorization>>();
+			strategies.add(new YunSquareFreeDecomposition());
+			strategies.add(new PrimeFieldSquareFreeDecomposition());
+		}
+
+		@Override
+		public String getDescription() {
+			return "Compute the square-free decomposition of a polynomial";
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Strategy<Factorization>[] getStrategies() {
+			return (Strategy<Factorization>[]) strategies.toArray(new Strategy<?>[strategies.size()]);
+		}
+
+		@Override
+		public void addStrategy(Strategy<Factorization> strategy) {
+			strategies.add(strategy);
+		}
+	}
+
+	/**
+	 * Real root isolation: for a polynomial over the integers or rationals, compute one IsolatingInterval per
+	 * distinct real root, in increasing order. The intervals have rational endpoints and can be refined on demand.
+	 */
+	public Computation<ArrayList<IsolatingInterval>> realRootIsolation() {
+		return RealRootComputation.getInstance();
+	}
+
+	public static class RealRootComputation extends Computation<ArrayList<IsolatingInterval>> {
+		private LinkedList<Strategy<ArrayList<IsolatingInterval>>> strategies;
+		private static RealRootComputation instance;
+
+		public static synchronized RealRootComputation getInstance() {
+			if(instance == null)
+				instance = new RealRootComputation();
+			return instance;
+		}
+
+		private RealRootComputation() {
+			strategies = new LinkedList<Strategy<ArrayList<IsolatingInterval>>>();
+			strategies.add(new ContinuedFractionRootIsolation());
+		}
+
+		@Override
+		public String getDescription() {
+			return "Compute isolating intervals for the real roots of a polynomial";
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Strategy<ArrayList<IsolatingInterval>>[] getStrategies() {
+			return (Strategy<ArrayList<IsolatingInterval>>[]) strategies.toArray(new Strategy<?>[strategies.size()]);
+		}
+
+		@Override
+		public void addStrategy(Strategy<ArrayList<IsolatingInterval>> strategy) {
+			strategies.add(strategy);
+		}
+	}
+
+	/**
+	 * Root finding over prime fields: the distinct roots of a polynomial over F_p, as residues in increasing order.
+	 * The roots are returned in a primitive array, since polynomials of high degree can have very many of them.
+	 */
+	public Computation<long[]> primeFieldRoots() {
+		return PrimeFieldRootComputation.getInstance();
+	}
+
+	public static class PrimeFieldRootComputation extends Computation<long[]> {
+		private LinkedList<Strategy<long[]>> strategies;
+		private static PrimeFieldRootComputation instance;
+
+		public static synchronized PrimeFieldRootComputation getInstance() {
+			if(instance == null)
+				instance = new PrimeFieldRootComputation();
+			return instance;
+		}
+
+		private PrimeFieldRootComputation() {
+			strategies = new LinkedList<Strategy<long[]>>();
+			strategies.add(new PrimeFieldRootFinding());
+		}
+
+		@Override
+		public String getDescription() {
+			return "Compute the roots of a polynomial over a prime field";
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Strategy<long[]>[] getStrategies() {
+			return (Strategy<long[]>[]) strategies.toArray(new Strategy<?>[strategies.size()]);
+		}
+
+		@Override
+		public void addStrategy(Strategy<long[]> strategy) {
+			strategies.add(strategy);
+		}
+	}
+
+	/**
+	 * Resultants: for two polynomials over the same coefficient ring, the determinant of their Sylvester matrix, an
+	 * element of the coefficient ring that vanishes if and only if the polynomials have a common factor of positive
+	 * degree (over an integral domain). Which strategy applies depends on the coefficient ring.
+	 */
+	public Computation<RingElement> resultant() {
+		return ResultantComputation.getInstance();
+	}
+
+	public static class ResultantComputation extends Computation<RingElement> {
+		private LinkedList<Strategy<RingElement>> strategies;
+		private static ResultantComputation instance;
+
+		public static synchronized ResultantComputation getInstance() {
+			if(instance == null)
+				instance = new ResultantComputation();
+			return instance;
+		}
+
+		private ResultantComputation() {
+			strategies = new LinkedList<Strategy<RingElement>>();
+			strategies.add(new MultiModularResultant());
+			strategies.add(new EuclideanResultant());
+			strategies.add(new SubresultantResultant());
+		}
+
+		@Override
+		public String getDescription() {
+			return "Compute the resultant of two polynomials";
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Strategy<RingElement>[] getStrategies() {
+			return (Strategy<RingElement>[]) strategies.toArray(new Strategy<?>[strategies.size()]);
+		}
+
+		@Override
+		public void addStrategy(Strategy<RingElement> strategy) {
+			strategies.add(strategy);
+		}
+	}
+
+	/**
+	 * Compute the discriminant (-1)^(n(n-1)/2) res(f, f') / lc(f) of a polynomial f of degree n >= 1, which vanishes
+	 * if and only if f has a multiple root (over an integral domain of characteristic zero or not dividing n).
+	 * The resultant is computed by the resultant() computation.
+	 * @throws OperationUndefinedException if f is not a polynomial of positive degree over the coefficient ring, or no
+	 * resultant strategy applies to it.
+	 */
+	public RingElement discriminant(Polynomial f) throws OperationUndefinedException {
+		if (!f.getRing().equals(ring))
+			throw new OperationUndefinedException("Polynomial " + f + " is not an element of " + getName());
+		int n = f.getDegree();
+		if (n < 1)
+			throw new OperationUndefinedException("Discriminants are only defined for polynomials of positive degree, not for " + f);
+
+		RingElement result;
+		try {
+			result = resultant().compute(f, f.derivative());
+		} catch (NoStrategyException ex) {
+			throw new OperationUndefinedException("Cannot compute resultants over " + ring.getName() + ": " + ex.getMessage());
+		}
+		result = result.divide(f.getLeadingCoefficient());
+		return ((long)n * (n - 1) / 2) % 2 == 0 ? result : result.negative();
 	}
 }
@@ -0,0 +1,638 @@
+/**
+ * Represent a formal power series over a field, with lazily computed and memoized coefficients.
+ *
+ * A series is defined by how its coefficients are computed from its operands (another series, a polynomial, a
+ * formula for the i-th coefficient), and only as many coefficients are computed as are asked for. They are kept,
+ * and when more are needed, the known prefix is extended at least to twice its length, so that operations whose
+ * cost does not depend on the known prefix (products, compositions) are still computed only O(log n) times for n
+ * coefficients in total.
+ *
+ * Products use the fast multiplication of the polynomial arithmetic. The inverse, the exponential and the square root
+ * are computed by Newton iteration, which doubles the number of correct coefficients in each step and continues
+ * from the coefficients known so far; the logarithm is the integral of f'/f. So computing n coefficients of any of
+ * them costs a small multiple of one multiplication of length n. Composition f(g) uses the baby-step giant-step
+ * method of Brent and Kung, and the compositional inverse is again found by Newton iteration.
+ *
+ * Errors that only show up when a coefficient is computed (such as dividing by an integer that vanishes in the
+ * coefficient field) are reported by the methods that access coefficients.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.util.function.IntFunction;
+
+import de.phwbrnr.lina.main.fields.ElementNotInvertibleException;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+public class PowerSeries implements RingElement {
+	/**
+	 * Compute a longer prefix of the coefficients of a series.
+	 */
+	interface Generator {
+		/**
+		 * @param known the coefficients computed so far; the array must not be modified
+		 * @param n the number of coefficients needed, more than known.length
+		 * @return at least n coefficients, beginning with the known ones
+		 */
+		RingElement[] extend(RingElement[] known, int n) throws OperationUndefinedException;
+	}
+
+	private PowerSeriesRing ring;
+	private Ring field;
+	private Generator generator;
+	private RingElement[] known = PolynomialArithmetic.EMPTY;
+
+	PowerSeries(PowerSeriesRing ring, Generator generator) {
+		this.ring = ring;
+		this.field = ring.getCoefficientRing();
+		this.generator = generator;
+	}
+
+	/**
+	 * Create the series with finitely many nonzero coefficients, that is, a polynomial.
+	 */
+	public PowerSeries(PowerSeriesRing ring, RingElement... coefficients) {
+		this(ring, finite(ring, coefficients));
+	}
+
+	/**
+	 * Create the series of a polynomial over the coefficient field.
+	 */
+	public PowerSeries(PowerSeriesRing ring, Polynomial polynomial) {
+		this(ring, polynomial.getCoefficients());
+	}
+
+	/**
+	 * Create a series from a formula for its coefficients; the formula is evaluated at most once for every index.
+	 * @param coefficients computes the coefficient of X^i, which has to be an element of the coefficient field
+	 */
+	public PowerSeries(PowerSeriesRing ring, IntFunction<RingElement> coefficients) {
+		this(ring, (known, n) -> {
+			RingElement[] result = extendArray(known, n);
+			for (int i = known.length; i < n; i++) {
+				result[i] = coefficients.apply(i);
+				if (!ring.getCoefficientRing().contains(result[i]))
+					throw new OperationUndefinedException("Coefficient #" + i + " (" + result[i] + ") is not member of ring " + ring.getCoefficientRing());
+			}
+			return result;
+		});
+	}
+
+	private static Generator finite(PowerSeriesRing ring, RingElement[] coefficients) {
+		Ring field = ring.getCoefficientRing();
+		for (int i = 0; i < coefficients.length; i++) {
+			if (!field.contains(coefficients[i]))
+				throw new IllegalArgumentException("Coefficient #" + i + " (" + coefficients[i].toString() + ") is not member of ring " + field.toString());
+		}
+		RingElement[] c = coefficients.clone();
+		return (known, n) -> pad(field, c, n);
+	}
+
+	/**
+	 * @return the first n coefficients; the returned array may be longer and must not be modified
+	 */
+	synchronized RingElement[] prefix(int n) throws OperationUndefinedException {
+		if (known.length < n)
+			known = generator.extend(known, Math.max(n, 2 * known.length));
+		return known;
+	}
+
+	/**
+	 * @return the coefficient of X^i
+	 * @throws OperationUndefinedException if the coefficient cannot be computed
+	 */
+	public RingElement getCoefficient(int i) throws OperationUndefinedException {
+		return prefix(i + 1)[i];
+	}
+
+	/**
+	 * @return a new array of the coefficients of 1, X, ..., X^(n-1)
+	 * @throws OperationUndefinedException if a coefficient cannot be computed
+	 */
+	public RingElement[] getCoefficients(int n) throws OperationUndefinedException {
+		RingElement[] result = new RingElement[n];
+		System.arraycopy(prefix(n), 0, result, 0, n);
+		return result;
+	}
+
+	/**
+	 * @return the polynomial of the terms of degree less than n, that is, the series modulo X^n
+	 * @throws OperationUndefinedException if a coefficient cannot be computed
+	 */
+	public Polynomial toPolynomial(int n) throws OperationUndefinedException {
+		if (n == 0)
+			return new Polynomial(field);
+		return new Polynomial(field, getCoefficients(n), true);
+	}
+
+	/**
+	 * Interpret a ring element as a series over the same field.
+	 */
+	private PowerSeries asSeries(RingElement element) {
+		if (element instanceof PowerSeries)
+			return (PowerSeries)element;
+		if (element instanceof Polynomial)
+			return new PowerSeries(ring, (Polynomial)element);
+		return new PowerSeries(ring, element);
+	}
+
+	@Override
+	public PowerSeries add(RingElement... addends) throws OperationUndefinedException {
+		PowerSeries[] operands = new PowerSeries[addends.length + 1];
+		operands[0] = this;
+		for (int i = 0; i < addends.length; i++) {
+			if (!canAdd(addends[i]))
+				throw new OperationUndefinedException("Cannot add power series over " + field.getName() + " and element of " + addends[i].getRing());
+			operands[i + 1] = asSeries(addends[i]);
+		}
+		return new PowerSeries(ring, (known, n) -> {
+			RingElement[] result = extendArray(known, n);
+			RingElement[][] prefixes = new RingElement[operands.length][];
+			for (int j = 0; j < operands.length; j++)
+				prefixes[j] = operands[j].prefix(n);
+			for (int i = known.length; i < n; i++) {
+				RingElement sum = prefixes[0][i];
+				for (int j = 1; j < operands.length; j++)
+					sum = sum.add(prefixes[j][i]);
+				result[i] = sum;
+			}
+			return result;
+		});
+	}
+
+	@Override
+	public PowerSeries subtract(RingElement subtrahend) throws OperationUndefinedException {
+		if (!canAdd(subtrahend))
+			throw new OperationUndefinedException("Cannot subtract element of " + subtrahend.getRing() + " from power series over " + field.getName());
+		return add(asSeries(subtrahend).negative());
+	}
+
+	@Override
+	public PowerSeries negative() {
+		return new PowerSeries(ring, (known, n) -> {
+			RingElement[] result = extendArray(known, n);
+			RingElement[] a = prefix(n);
+			for (int i = known.length; i < n; i++)
+				result[i] = a[i].negative();
+			return result;
+		});
+	}
+
+	@Override
+	public PowerSeries multiply(RingElement... factors) throws OperationUndefinedException {
+		PowerSeries result = this;
+		for (int i = 0; i < factors.length; i++) {
+			if (!canMultiply(factors[i]))
+				throw new OperationUndefinedException("Cannot multiply power series over " + field.getName() + " and element of " + factors[i].getRing());
+			if (factors[i] instanceof PowerSeries || factors[i] instanceof Polynomial)
+				result = result.multiplySeries(asSeries(factors[i]));
+			else
+				result = result.scale(factors[i]);
+		}
+		return result;
+	}
+
+	private PowerSeries multiplySeries(PowerSeries other) {
+		PowerSeries self = this;
+		return new PowerSeries(ring, (known, n) ->
+			pad(field, PolynomialArithmetic.multiplyLow(field, self.prefix(n), other.prefix(n), n), n));
+	}
+
+	private PowerSeries scale(RingElement scalar) {
+		return new PowerSeries(ring, (known, n) -> {
+			RingElement[] result = extendArray(known, n);
+			RingElement[] a = prefix(n);
+			for (int i = known.length; i < n; i++)
+				result[i] = a[i].multiply(scalar);
+			return result;
+		});
+	}
+
+	/**
+	 * @return whether the divisor divides this series; false also if it vanishes up to the precision of the ring
+	 */
+	@Override
+	public boolean divisibleBy(RingElement divisor) {
+		try {
+			if (!canMultiply(divisor))
+				return false;
+			PowerSeries d = asSeries(divisor);
+			int v = d.valuation();
+			if (v < 0)
+				return false;
+			for (int i = 0; i < v; i++) {
+				if (!getCoefficient(i).isZero())
+					return false;
+			}
+			return true;
+		} catch (OperationUndefinedException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Divide by a series of valuation v, which is possible if the first v coefficients of this series vanish; then
+	 * both are divided by X^v, and the quotient is this series times the inverse of the divisor.
+	 * @throws OperationUndefinedException if the division is not possible, or the divisor vanishes up to the
+	 * precision of the ring.
+	 */
+	@Override
+	public PowerSeries divide(RingElement divisor) throws OperationUndefinedException {
+		if (!canMultiply(divisor))
+			throw new OperationUndefinedException("Cannot divide power series over " + field.getName() + " by element of " + divisor.getRing());
+		if (!divisibleBy(divisor))
+			throw new OperationUndefinedException("Power series " + this + " is not divisible by " + divisor);
+		int v = asSeries(divisor).valuation();
+		try {
+			return shiftDown(v).multiply(asSeries(divisor).shiftDown(v).inverse());
+		} catch (ElementNotInvertibleException ex) {
+			throw new Error("Programming error: a series divided by X^valuation is invertible", ex);
+		}
+	}
+
+	/**
+	 * @return the index of the first nonzero coefficient, or -1 if the series vanishes up to the precision of the
+	 * ring
+	 */
+	int valuation() throws OperationUndefinedException {
+		RingElement[] a = prefix(ring.getPrecision());
+		for (int i = 0; i < ring.getPrecision(); i++) {
+			if (!a[i].isZero())
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the series divided by X^k, dropping the first k coefficients
+	 */
+	private PowerSeries shiftDown(int k) {
+		if (k == 0)
+			return this;
+		return new PowerSeries(ring, (known, n) -> {
+			RingElement[] result = extendArray(known, n);
+			System.arraycopy(prefix(n + k), known.length + k, result, known.length, n - known.length);
+			return result;
+		});
+	}
+
+	/**
+	 * A series is invertible if and only if its constant term does not vanish.
+	 */
+	@Override
+	public boolean invertible() {
+		try {
+			return !getCoefficient(0).isZero();
+		} catch (OperationUndefinedException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Compute the inverse by Newton iteration g <- g (2 - f g).
+	 */
+	@Override
+	public PowerSeries inverse() throws ElementNotInvertibleException {
+		if (!invertible())
+			throw new ElementNotInvertibleException("Only power series with nonzero constant term are invertible");
+		return new PowerSeries(ring, (known, n) -> {
+			RingElement[] g = known;
+			int k = known.length;
+			if (k == 0) {
+				g = new RingElement[] { inverseOf(prefix(1)[0]) };
+				k = 1;
+			}
+			RingElement two = field.getOne().add(field.getOne());
+			while (k < n) {
+				k = Math.min(2 * k, n);
+				RingElement[] e = PolynomialArithmetic.negate(PolynomialArithmetic.multiplyLow(field, prefix(k), g, k));
+				e = pad(field, e, Math.max(e.length, 1));
+				e[0] = e[0].add(two);
+				g = pad(field, PolynomialArithmetic.multiplyLow(field, g, e, k), k);
+			}
+			return g;
+		});
+	}
+
+	/**
+	 * @return the formal derivative
+	 */
+	public PowerSeries derivative() {
+		return new PowerSeries(ring, (known, n) -> {
+			RingElement[] result = extendArray(known, n);
+			RingElement[] a = prefix(n + 1);
+			for (int i = known.length; i < n; i++)
+				result[i] = PolynomialArithmetic.multiplyByInteger(field, a[i + 1], i + 1);
+			return result;
+		});
+	}
+
+	/**
+	 * @return the formal integral with constant term zero
+	 */
+	public PowerSeries integral() {
+		return new PowerSeries(ring, (known, n) -> {
+			RingElement[] result = extendArray(known, n);
+			RingElement[] a = prefix(n - 1);
+			for (int i = known.length; i < n; i++)
+				result[i] = i == 0 ? field.getZero() : a[i - 1].multiply(integerInverse(field, i));
+			return result;
+		});
+	}
+
+	/**
+	 * Compute log f as the integral of f'/f.
+	 * @throws OperationUndefinedException if the constant term is not 1
+	 */
+	public PowerSeries log() throws OperationUndefinedException {
+		if (!getCoefficient(0).isOne())
+			throw new OperationUndefinedException("The logarithm is only defined for power series with constant term 1");
+		return new PowerSeries(ring, (known, n) -> pad(field, logarithm(field, prefix(n), n), n));
+	}
+
+	/**
+	 * Compute exp f by Newton iteration g <- g (1 + f - log g).
+	 * @throws OperationUndefinedException if the constant term does not vanish
+	 */
+	public PowerSeries exp() throws OperationUndefinedException {
+		if (!getCoefficient(0).isZero())
+			throw new OperationUndefinedException("The exponential is only defined for power series with constant term 0");
+		return new PowerSeries(ring, (known, n) -> {
+			RingElement[] g = known;
+			int k = known.length;
+			if (k == 0) {
+				g = new RingElement[] { field.getOne() };
+				k = 1;
+			}
+			while (k < n) {
+				k = Math.min(2 * k, n);
+				RingElement[] e = PolynomialArithmetic.subtract(PolynomialArithmetic.truncate(prefix(k), k), logarithm(field, g, k));
+				e = pad(field, e, Math.max(e.length, 1));
+				e[0] = e[0].add(field.getOne());
+				g = pad(field, PolynomialArithmetic.multiplyLow(field, g, e, k), k);
+			}
+			return g;
+		});
+	}
+
+	/**
+	 * Compute the square root with constant term 1 of a series with constant term 1.
+	 * @throws OperationUndefinedException if the constant term is not 1
+	 */
+	public PowerSeries sqrt() throws OperationUndefinedException {
+		return sqrt(field.getOne());
+	}
+
+	/**
+	 * Compute a square root by Newton iteration g <- (g + f / g) / 2.
+	 * @param root the constant term of the square root; its square has to be the constant term of this series
+	 * @throws OperationUndefinedException if root^2 is not the constant term, the constant term vanishes, or the
+	 * characteristic of the field is 2
+	 */
+	public PowerSeries sqrt(RingElement root) throws OperationUndefinedException {
+		if (!field.contains(root) || !root.multiply(root).equals(getCoefficient(0)))
+			throw new OperationUndefinedException(root + " is not a square root of the constant term " + getCoefficient(0));
+		RingElement half = integerInverse(field, 2);
+		if (root.isZero())
+			throw new OperationUndefinedException("Square roots are only computed for power series with nonzero constant term");
+		return new PowerSeries(ring, (known, n) -> {
+			RingElement[] g = known;
+			int k = known.length;
+			if (k == 0) {
+				g = new RingElement[] { root };
+				k = 1;
+			}
+			while (k < n) {
+				k = Math.min(2 * k, n);
+				RingElement[] quotient = PolynomialArithmetic.multiplyLow(field, prefix(k), inverseArray(field, g, k), k);
+				g = pad(field, PolynomialArithmetic.scale(PolynomialArithmetic.add(g, quotient), half), k);
+			}
+			return g;
+		});
+	}
+
+	/**
+	 * Compute the composition f(g) of this series f with a series g without constant term.
+	 * @throws OperationUndefinedException if the constant term of g does not vanish
+	 */
+	public PowerSeries compose(PowerSeries g) throws OperationUndefinedException {
+		if (!g.getRing().equals(ring))
+			throw new OperationUndefinedException("Cannot compose power series over " + field.getName() + " with element of " + g.getRing());
+		if (!g.getCoefficient(0).isZero())
+			throw new OperationUndefinedException("Only series without constant term can be substituted into a power series");
+		return new PowerSeries(ring, (known, n) -> pad(field, composition(field, prefix(n), g.prefix(n), n), n));
+	}
+
+	/**
+	 * Compute the compositional inverse h of this series f, with f(h) = h(f) = X, by Newton iteration
+	 * h <- h - (f(h) - X) / f'(h).
+	 * @throws OperationUndefinedException unless the constant term vanishes and the linear term does not
+	 */
+	public PowerSeries reversion() throws OperationUndefinedException {
+		if (!getCoefficient(0).isZero() || getCoefficient(1).isZero())
+			throw new OperationUndefinedException("Only series of the form c X + ... with c != 0 have a compositional inverse");
+		PowerSeries derivative = derivative();
+		return new PowerSeries(ring, (known, n) -> {
+			RingElement[] h = known;
+			int k = known.length;
+			if (k < 2) {
+				h = new RingElement[] { field.getZero(), inverseOf(prefix(2)[1]) };
+				k = 2;
+			}
+			while (k < n) {
+				k = Math.min(2 * k, n);
+				RingElement[] value = composition(field, prefix(k), h, k);
+				value = PolynomialArithmetic.subtract(value, new RingElement[] { field.getZero(), field.getOne() });
+				RingElement[] slope = composition(field, derivative.prefix(k), h, k);
+				RingElement[] step = PolynomialArithmetic.multiplyLow(field, value, inverseArray(field, slope, k), k);
+				h = pad(field, PolynomialArithmetic.subtract(PolynomialArithmetic.truncate(h, k), step), k);
+			}
+			return pad(field, h, n);
+		});
+	}
+
+	/**
+	 * Compute the first n coefficients of log f for f with constant term 1, as the integral of f'/f.
+	 */
+	private static RingElement[] logarithm(Ring field, RingElement[] f, int n) throws OperationUndefinedException {
+		if (n <= 1)
+			return PolynomialArithmetic.EMPTY;
+		RingElement[] derivative = new RingElement[n - 1];
+		for (int i = 1; i < n; i++)
+			derivative[i - 1] = i < f.length ? PolynomialArithmetic.multiplyByInteger(field, f[i], i) : field.getZero();
+		RingElement[] quotient = pad(field, PolynomialArithmetic.multiplyLow(field, derivative, inverseArray(field, f, n - 1), n - 1), n - 1);
+		RingElement[] result = new RingElement[n];
+		result[0] = field.getZero();
+		for (int i = 1; i < n; i++)
+			result[i] = quotient[i - 1].multiply(integerInverse(field, i));
+		return PolynomialArithmetic.trim(result);
+	}
+
+	/**
+	 * Compute f(g) mod X^n for g without constant term, by the baby-step giant-step method of Brent and Kung: with
+	 * k about sqrt(n), the powers g^0, ..., g^k are computed once, f is cut into blocks of k coefficients, every block
+	 * is evaluated at g as a linear combination of these powers, and the blocks are combined by Horner's scheme in
+	 * g^k. This takes 2 sqrt(n) multiplications instead of the n of Horner's scheme, plus n^2 scalar operations.
+	 */
+	private static RingElement[] composition(Ring field, RingElement[] f, RingElement[] g, int n) throws OperationUndefinedException {
+		int k = (int)Math.ceil(Math.sqrt(n));
+		RingElement[][] powers = new RingElement[k + 1][];
+		powers[0] = new RingElement[] { field.getOne() };
+		for (int i = 1; i <= k; i++)
+			powers[i] = PolynomialArithmetic.multiplyLow(field, powers[i - 1], g, n);
+
+		RingElement[] result = PolynomialArithmetic.EMPTY;
+		int blocks = (Math.min(n, f.length) + k - 1) / k;
+		for (int j = blocks - 1; j >= 0; j--) {
+			PolynomialBuilder block = new PolynomialBuilder(field, n);
+			for (int i = 0; i < k && j * k + i < Math.min(n, f.length); i++)
+				block.addMul(f[j * k + i], powers[i], powers[i].length, 0);
+			result = PolynomialArithmetic.add(PolynomialArithmetic.multiplyLow(field, result, powers[k], n), block.buildArray());
+		}
+		return result;
+	}
+
+	private static RingElement[] inverseArray(Ring field, RingElement[] f, int n) throws OperationUndefinedException {
+		try {
+			return PolynomialArithmetic.inverseSeries(field, PolynomialArithmetic.truncate(PolynomialArithmetic.trim(f), n), n);
+		} catch (ElementNotInvertibleException ex) {
+			throw new OperationUndefinedException("Power series with vanishing constant term is not invertible");
+		}
+	}
+
+	private static RingElement inverseOf(RingElement c) throws OperationUndefinedException {
+		try {
+			return c.inverse();
+		} catch (ElementNotInvertibleException ex) {
+			throw new OperationUndefinedException("Coefficient " + c + " is not invertible");
+		}
+	}
+
+	/**
+	 * @return the inverse of the integer i in the field
+	 * @throws OperationUndefinedException if i vanishes in the field, that is, the characteristic divides i
+	 */
+	private static RingElement integerInverse(Ring field, int i) throws OperationUndefinedException {
+		RingElement c = PolynomialArithmetic.multiplyByInteger(field, field.getOne(), i);
+		if (c.isZero())
+			throw new OperationUndefinedException("Cannot divide by " + i + ", which vanishes in " + field.getName());
+		return inverseOf(c);
+	}
+
+	/**
+	 * @return a new array of length n that begins with the known coefficients
+	 */
+	private static RingElement[] extendArray(RingElement[] known, int n) {
+		RingElement[] result = new RingElement[n];
+		System.arraycopy(known, 0, result, 0, known.length);
+		return result;
+	}
+
+	/**
+	 * @return the coefficients padded with zeros (or cut off) to length n
+	 */
+	private static RingElement[] pad(Ring field, RingElement[] a, int n) {
+		if (a.length == n)
+			return a;
+		RingElement[] result = new RingElement[n];
+		RingElement zero = field.getZero();
+		for (int i = 0; i < n; i++)
+			result[i] = i < a.length ? a[i] : zero;
+		return result;
+	}
+
+	@Override
+	public boolean canAdd(RingElement other) {
+		return ring.contains(other);
+	}
+
+	@Override
+	public boolean canMultiply(RingElement other) {
+		return canAdd(other);
+	}
+
+	@Override
+	public Ring getRing() {
+		return ring;
+	}
+
+	/**
+	 * @return whether the coefficients below the precision of the ring vanish
+	 */
+	@Override
+	public boolean isZero() {
+		try {
+			return valuation() < 0;
+		} catch (OperationUndefinedException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return whether the series is 1 up to the precision of the ring
+	 */
+	@Override
+	public boolean isOne() {
+		return equals(ring.getOne());
+	}
+
+	/**
+	 * Series are equal if they agree up to the precision of the ring; polynomials and elements of the coefficient
+	 * field are compared as series.
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof RingElement) || !canAdd((RingElement)other))
+			return false;
+		try {
+			int n = ring.getPrecision();
+			RingElement[] a = prefix(n), b = asSeries((RingElement)other).prefix(n);
+			for (int i = 0; i < n; i++) {
+				if (!a[i].equals(b[i]))
+					return false;
+			}
+			return true;
+		} catch (OperationUndefinedException ex) {
+			return false;
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		try {
+			int hash = 0;
+			RingElement[] a = prefix(ring.getPrecision());
+			for (int i = 0; i < ring.getPrecision(); i++)
+				hash = 31 * hash + a[i].hashCode();
+			return hash;
+		} catch (OperationUndefinedException ex) {
+			return 0;
+		}
+	}
+
+	/**
+	 * @return the coefficients below the precision of the ring, as "series[c0,c1,...]"
+	 */
+	@Override
+	public String toString() {
+		try {
+			RingElement[] a = prefix(ring.getPrecision());
+			StringBuilder sb = new StringBuilder("series[");
+			for (int i = 0; i < ring.getPrecision(); i++)
+				sb.append(i == 0 ? "" : ",").append(a[i]);
+			return sb.append("]").toString();
+		} catch (OperationUndefinedException ex) {
+			return "series[undefined: " + ex.getMessage() + "]";
+		}
+	}
+
+	@Override
+	public RingElement interpret(Ring r) throws OperationUndefinedException {
+		if (r.equals(ring))
+			return this;
+		return RingElement.interpret(this, r);
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * Represent the ring of formal power series K[[X]] over a field K.
+ *
+ * Power series are infinite objects, so their elements (see PowerSeries) are lazy: a coefficient is only computed
+ * when it is asked for, and then memoized. Questions that would need all coefficients, like equality or whether a
+ * series vanishes, are answered by looking at the coefficients below the precision of the ring, so the ring really
+ * behaves like the truncated power series K[X]/(X^precision) there; the precision is also the number of coefficients
+ * shown by toString().
+ *
+ * Elements are written as "series[c0,c1,...]"; a finite list of coefficients denotes the corresponding polynomial.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.util.ArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import de.phwbrnr.lina.main.fields.ElementParseException;
+import de.phwbrnr.lina.main.fields.Field;
+import de.phwbrnr.lina.main.fields.NotImplementedException;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.Computation;
+
+public class PowerSeriesRing implements Ring {
+	/**
+	 * The precision used if none is given.
+	 */
+	public static final int DEFAULT_PRECISION = 20;
+
+	private Ring field;
+	private int precision;
+
+	public PowerSeriesRing(Ring field) {
+		this(field, DEFAULT_PRECISION);
+	}
+
+	/**
+	 * @param field the coefficient field
+	 * @param precision the number of coefficients compared by equals() and shown by toString()
+	 */
+	public PowerSeriesRing(Ring field, int precision) {
+		if (!(field instanceof Field))
+			throw new IllegalArgumentException("PowerSeriesRing only works for coefficients from fields, not from " + field.toString());
+		if (precision <= 0)
+			throw new IllegalArgumentException("The precision of a power series ring has to be positive, but got " + precision);
+		this.field = field;
+		this.precision = precision;
+	}
+
+	@Override
+	public String getName() {
+		return field.getName() + "[[X]]";
+	}
+
+	@Override
+	public RingElement getZero() {
+		return new PowerSeries(this, field.getZero());
+	}
+
+	@Override
+	public RingElement getOne() {
+		return new PowerSeries(this, field.getOne());
+	}
+
+	/**
+	 * @return the series X
+	 */
+	public PowerSeries getX() {
+		return new PowerSeries(this, field.getZero(), field.getOne());
+	}
+
+	/**
+	 * @return An instance of the field the coefficients are from.
+	 */
+	public Ring getCoefficientRing() {
+		return field;
+	}
+
+	/**
+	 * @return the number of coefficients that are compared to decide equality
+	 */
+	public int getPrecision() {
+		return precision;
+	}
+
+	@Override
+	public boolean isCommutative() {
+		return true;
+	}
+
+	@Override
+	public boolean isIntegralDomain() {
+		return true;
+	}
+
+	@Override
+	public RingElement parseElement(String string) throws ElementParseException {
+		Pattern p = Pattern.compile("series\\[(.*)\\]");
+		Matcher m = p.matcher(string);
+		if (!m.matches())
+			throw new ElementParseException("Power series strings have to be of the form 'series[coeff0,coeff1,...]'");
+
+		ArrayList<RingElement> coeffs = new ArrayList<RingElement>();
+		String elements = m.group(1);
+		/* coefficients may be written with brackets and commas themselves, like fraction[1,2] */
+		int depth = 0, start = 0;
+		for (int i = 0; i <= elements.length(); i++) {
+			if (i == elements.length() || (elements.charAt(i) == ',' && depth == 0)) {
+				coeffs.add(field.parseElement(elements.substring(start, i)));
+				start = i + 1;
+			} else if (elements.charAt(i) == '[') {
+				depth++;
+			} else if (elements.charAt(i) == ']') {
+				depth--;
+			}
+		}
+		return new PowerSeries(this, coeffs.toArray(new RingElement[coeffs.size()]));
+	}
+
+	@Override
+	public boolean contains(RingElement el) {
+		if (el instanceof PowerSeries)
+			return el.getRing().equals(this);
+		if (el instanceof Polynomial)
+			return el.getRing().equals(field);
+		return field.contains(el);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof PowerSeriesRing))
+			return false;
+		PowerSeriesRing r = (PowerSeriesRing)other;
+		return r.precision == precision && r.field.equals(field);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * field.hashCode() + precision;
+	}
+
+	@Override
+	public String toString() {
+		return getName();
+	}
+
+	/**
+	 * Whether a series is irreducible depends on its valuation, which cannot be decided for lazy series in general.
+	 */
+	@Override
+	public boolean irreducible(RingElement el) throws OperationUndefinedException {
+		throw new NotImplementedException("The PowerSeriesRing does not know about irreducible elements");
+	}
+
+	@Override
+	public Computation<ArrayList<RingElement>> factor() throws OperationUndefinedException {
+		throw new NotImplementedException("Power series cannot be factored");
+	}
+}
@@ -0,0 +1,895 @@
+/**
+ * Arithmetic on polynomials over a prime field F_p, with the coefficients stored as primitive residues.
+ *
+ * The algorithms over finite fields (factorization, root finding, ...) spend all their time in polynomial
+ * multiplications and divisions, so they convert their input once into long arrays and work on those, instead of
+ * going through RingElement dispatch for every coefficient operation.
+ *
+ * Arrays hold the coefficients in ascending order, reduced into [0, p), and are trimmed: either empty (the zero
+ * polynomial) or with a nonzero last entry. The prime has to be smaller than 2^31 (see PrimeField), so that the
+ * product of two residues fits into a long. The methods never modify their arguments.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.PrimeFieldElement;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.matrices.PrimeFieldMatrixArithmetic;
+
+final class PrimeFieldArithmetic {
+	static final int KARATSUBA_THRESHOLD = 32;
+	/**
+	 * If both factors have at least this many coefficients, they are multiplied by number theoretic transforms.
+	 */
+	static final int NTT_THRESHOLD = 768;
+	/**
+	 * Quotients with at least this many coefficients are computed from the inverse series of the reversed divisor.
+	 */
+	static final int NEWTON_DIVISION_THRESHOLD = 128;
+	/**
+	 * Below this degree, greatest common divisors are computed by the classical euclidean algorithm.
+	 */
+	static final int HALF_GCD_THRESHOLD = 8192;
+	/**
+	 * Below this degree, the half-gcd recursion does the remaining euclidean steps classically.
+	 */
+	static final int HALF_GCD_BASE_CASE = 1024;
+	static final long[] ZERO = new long[0];
+	static final long[] ONE = new long[] { 1 };
+	static final long[] X = new long[] { 0, 1 };
+
+	private PrimeFieldArithmetic() {
+	}
+
+	/**
+	 * A square-free factor together with its multiplicity.
+	 */
+	static final class Factor {
+		final long[] polynomial;
+		final int multiplicity;
+
+		Factor(long[] polynomial, int multiplicity) {
+			this.polynomial = polynomial;
+			this.multiplicity = multiplicity;
+		}
+	}
+
+	/**
+	 * @return the residues of the coefficients of a polynomial over a prime field
+	 * @throws IllegalArgumentException if the polynomial is not over a PrimeField
+	 */
+	static long[] fromPolynomial(Polynomial f) {
+		if (!(f.getRing() instanceof PrimeField))
+			throw new IllegalArgumentException("Polynomial " + f + " is not over a prime field");
+
+		long[] a = new long[f.getDegree() + 1];
+		RingElement[] c = f.getCoefficients();
+		for (int i = 0; i < a.length; i++)
+			a[i] = ((PrimeFieldElement)c[i]).getValue();
+		return a;
+	}
+
+	static Polynomial toPolynomial(PrimeField field, long[] a) {
+		RingElement[] c = new RingElement[a.length];
+		for (int i = 0; i < a.length; i++)
+			c[i] = field.element(a[i]);
+		return new Polynomial(field, c, true);
+	}
+
+	static long[] trim(long[] a) {
+		int len = a.length;
+		while (len > 0 && a[len - 1] == 0)
+			len--;
+		if (len == a.length)
+			return a;
+		long[] result = new long[len];
+		System.arraycopy(a, 0, result, 0, len);
+		return result;
+	}
+
+	static int degree(long[] a) {
+		return a.length - 1;
+	}
+
+	static boolean isOne(long[] a) {
+		return a.length == 1 && a[0] == 1;
+	}
+
+	static long[] add(long[] a, long[] b, long p) {
+		if (a.length < b.length) {
+			long[] t = a;
+			a = b;
+			b = t;
+		}
+		long[] result = a.clone();
+		for (int i = 0; i < b.length; i++) {
+			result[i] += b[i];
+			if (result[i] >= p)
+				result[i] -= p;
+		}
+		return trim(result);
+	}
+
+	static long[] subtract(long[] a, long[] b, long p) {
+		long[] result = new long[Math.max(a.length, b.length)];
+		System.arraycopy(a, 0, result, 0, a.length);
+		for (int i = 0; i < b.length; i++) {
+			result[i] -= b[i];
+			if (result[i] < 0)
+				result[i] += p;
+		}
+		return trim(result);
+	}
+
+	static long[] scale(long[] a, long c, long p) {
+		if (c == 0)
+			return ZERO;
+		long[] result = new long[a.length];
+		for (int i = 0; i < a.length; i++)
+			result[i] = a[i] * c % p;
+		return result;
+	}
+
+	static long[] monic(long[] a, long p) {
+		if (a.length == 0 || a[a.length - 1] == 1)
+			return a;
+		return scale(a, PrimeFieldElement.inverse(a[a.length - 1], p), p);
+	}
+
+	/**
+	 * @return how many products of two residues may be summed up in a long before reducing
+	 */
+	static int lazyTerms(long p) {
+		double bound = (double)Long.MAX_VALUE / ((double)(p - 1) * (p - 1));
+		return (int)Math.max(1, Math.min(bound - 1, 1 << 20));
+	}
+
+	static long[] multiply(long[] a, long[] b, long p) {
+		if (a.length == 0 || b.length == 0)
+			return ZERO;
+		if (Math.min(a.length, b.length) >= NTT_THRESHOLD && a.length + b.length - 1 <= NumberTheoreticTransform.MAX_LENGTH)
+			return trim(NumberTheoreticTransform.multiply(a, b, p));
+		long[] result = new long[a.length + b.length - 1];
+		multiplyInto(a, 0, a.length, b, 0, b.length, result, 0, p);
+		return trim(result);
+	}
+
+	/**
+	 * Write the reduced product of a[aOff..aOff+aLen) and b[bOff..bOff+bLen) into result[rOff..rOff+aLen+bLen-1).
+	 */
+	private static void multiplyInto(long[] a, int aOff, int aLen, long[] b, int bOff, int bLen, long[] result, int rOff, long p) {
+		if (aLen < bLen) {
+			multiplyInto(b, bOff, bLen, a, aOff, aLen, result, rOff, p);
+			return;
+		}
+
+		if (bLen < KARATSUBA_THRESHOLD) {
+			/* column by column, reducing only every lazyTerms(p) products */
+			int lazy = lazyTerms(p);
+			for (int k = 0; k < aLen + bLen - 1; k++) {
+				int from = Math.max(0, k - aLen + 1), to = Math.min(k, bLen - 1);
+				long acc = 0;
+				int pending = 0;
+				for (int j = from; j <= to; j++) {
+					acc += a[aOff + k - j] * b[bOff + j];
+					if (++pending == lazy) {
+						acc %= p;
+						pending = 0;
+					}
+				}
+				result[rOff + k] = acc % p;
+			}
+			return;
+		}
+
+		int m = (aLen + 1) / 2;
+		if (bLen <= m) {
+			Arrays.fill(result, rOff, rOff + aLen + bLen - 1, 0);
+			long[] block = new long[2 * bLen - 1];
+			for (int start = 0; start < aLen; start += bLen) {
+				int len = Math.min(bLen, aLen - start);
+				multiplyInto(a, aOff + start, len, b, bOff, bLen, block, 0, p);
+				for (int i = 0; i < len + bLen - 1; i++) {
+					long s = result[rOff + start + i] + block[i];
+					result[rOff + start + i] = s >= p ? s - p : s;
+				}
+			}
+			return;
+		}
+
+		int a1Len = aLen - m, b1Len = bLen - m;
+		long[] aSum = new long[m], bSum = new long[m];
+		for (int i = 0; i < m; i++) {
+			long s = a[aOff + i] + (i < a1Len ? a[aOff + m + i] : 0);
+			aSum[i] = s >= p ? s - p : s;
+			s = b[bOff + i] + (i < b1Len ? b[bOff + m + i] : 0);
+			bSum[i] = s >= p ? s - p : s;
+		}
+
+		long[] low = new long[2 * m - 1], high = new long[a1Len + b1Len - 1], mid = new long[2 * m - 1];
+		multiplyInto(a, aOff, m, b, bOff, m, low, 0, p);
+		multiplyInto(a, aOff + m, a1Len, b, bOff + m, b1Len, high, 0, p);
+		multiplyInto(aSum, 0, m, bSum, 0, m, mid, 0, p);
+		for (int i = 0; i < low.length; i++) {
+			long s = mid[i] - low[i];
+			mid[i] = s < 0 ? s + p : s;
+		}
+		for (int i = 0; i < high.length; i++) {
+			long s = mid[i] - high[i];
+			mid[i] = s < 0 ? s + p : s;
+		}
+
+		Arrays.fill(result, rOff, rOff + aLen + bLen - 1, 0);
+		System.arraycopy(low, 0, result, rOff, low.length);
+		System.arraycopy(high, 0, result, rOff + 2 * m, high.length);
+		for (int i = 0; i < mid.length; i++) {
+			long s = result[rOff + m + i] + mid[i];
+			result[rOff + m + i] = s >= p ? s - p : s;
+		}
+	}
+
+	/**
+	 * @return a mod X^n
+	 */
+	static long[] truncate(long[] a, int n) {
+		if (a.length <= n)
+			return a;
+		long[] result = new long[n];
+		System.arraycopy(a, 0, result, 0, n);
+		return trim(result);
+	}
+
+	/**
+	 * @return the coefficients in reversed order, padded with zeros (or cut off) to the given length
+	 */
+	static long[] reverse(long[] a, int length) {
+		long[] result = new long[length];
+		for (int i = 0; i < length; i++) {
+			int j = length - 1 - i;
+			result[i] = j < a.length ? a[j] : 0;
+		}
+		return trim(result);
+	}
+
+	/**
+	 * Compute the power series inverse of f modulo X^n by Newton iteration; each step doubles the precision, so the
+	 * total cost is a small multiple of one multiplication of length n.
+	 * @throws ArithmeticException if the constant term of f vanishes
+	 */
+	static long[] inverseSeries(long[] f, int n, long p) {
+		if (f.length == 0 || f[0] == 0)
+			throw new ArithmeticException("Power series with vanishing constant term is not invertible");
+
+		long[] g = new long[] { PrimeFieldElement.inverse(f[0], p) };
+		int precision = 1;
+		while (precision < n) {
+			precision = Math.min(2 * precision, n);
+			/* g <- g (2 - f g) mod X^precision */
+			long[] e = subtract(new long[] { 2 % p }, multiplyLow(truncate(f, precision), g, precision, p), p);
+			g = multiplyLow(g, e, precision, p);
+		}
+		return g;
+	}
+
+	/**
+	 * @return the product a b mod X^n
+	 */
+	static long[] multiplyLow(long[] a, long[] b, int n, long p) {
+		return truncate(multiply(truncate(a, n), truncate(b, n), p), n);
+	}
+
+	/**
+	 * Divide a by a nonzero b with remainder.
+	 * @return the pair (quotient, remainder)
+	 */
+	static long[][] divideWithRemainder(long[] a, long[] b, long p) {
+		return divideWithRemainder(a, b, null, p);
+	}
+
+	/**
+	 * Divide a by a nonzero b with remainder.
+	 * @param bReverseInverse an optional precomputed inverse series of the reversal of b, of at least the length of the
+	 * quotient, or null
+	 * @return the pair (quotient, remainder)
+	 */
+	static long[][] divideWithRemainder(long[] a, long[] b, long[] bReverseInverse, long p) {
+		int db = b.length - 1;
+		if (db < 0)
+			throw new ArithmeticException("Division by zero polynomial");
+		if (a.length - 1 < db)
+			return new long[][] { ZERO, a };
+
+		int quotientLength = a.length - db;
+		if (bReverseInverse == null && (quotientLength < NEWTON_DIVISION_THRESHOLD || db < KARATSUBA_THRESHOLD)) {
+			long lcInverse = PrimeFieldElement.inverse(b[db], p);
+			long[] r = a.clone();
+			long[] q = new long[quotientLength];
+			for (int i = a.length - 1; i >= db; i--) {
+				long c = r[i] * lcInverse % p;
+				q[i - db] = c;
+				if (c == 0)
+					continue;
+				long negc = p - c;
+				for (int j = 0; j < db; j++)
+					r[i - db + j] = (r[i - db + j] + negc * b[j]) % p;
+				r[i] = 0;
+			}
+			long[] remainder = new long[db];
+			System.arraycopy(r, 0, remainder, 0, db);
+			return new long[][] { trim(q), trim(remainder) };
+		}
+
+		long[] inverse = bReverseInverse;
+		if (inverse == null || inverse.length < quotientLength)
+			inverse = inverseSeries(reverse(b, b.length), quotientLength, p);
+		long[] q = reverse(multiplyLow(reverse(a, a.length), inverse, quotientLength, p), quotientLength);
+		long[] r = subtract(truncate(a, db), multiplyLow(b, q, db, p), p);
+		return new long[][] { q, r };
+	}
+
+	static long[] remainder(long[] a, long[] b, long p) {
+		if (a.length < b.length)
+			return a;
+		return divideWithRemainder(a, b, p)[1];
+	}
+
+	/**
+	 * @return the quotient a / b, assuming b divides a.
+	 */
+	static long[] divide(long[] a, long[] b, long p) {
+		return divideWithRemainder(a, b, p)[0];
+	}
+
+	/**
+	 * @return the monic greatest common divisor of a and b (the zero polynomial if both vanish).
+	 */
+	static long[] gcd(long[] a, long[] b, long p) {
+		while (b.length > 0) {
+			long[] r = remainder(a, b, p);
+			a = b;
+			b = r;
+			if (b.length > 0 && a.length - 1 >= HALF_GCD_THRESHOLD) {
+				/* jump to the first remainders of about half the degree */
+				long[][] m = halfGcd(a, b, p);
+				long[] c = add(multiply(m[0], a, p), multiply(m[1], b, p), p);
+				b = add(multiply(m[2], a, p), multiply(m[3], b, p), p);
+				a = c;
+			}
+		}
+		return monic(a, p);
+	}
+
+	/**
+	 * The half-gcd algorithm (in the formulation of Thull and Yap): for deg a0 = n > deg a1, compute the matrix
+	 * (m00 m01; m10 m11) that maps (a0, a1) to the two consecutive remainders c0, c1 of the euclidean algorithm with
+	 * deg c0 >= ceil(n/2) > deg c1. The quotients that lead there only depend on the upper half of the coefficients,
+	 * so the matrix is built from two recursive calls on polynomials of half the degree and a single division, which
+	 * takes O(M(n) log n) instead of the O(n^2) of the classical algorithm.
+	 * @return the matrix entries {m00, m01, m10, m11}
+	 */
+	static long[][] halfGcd(long[] a0, long[] a1, long p) {
+		return halfGcd(a0, a1, p, null);
+	}
+
+	/**
+	 * The half-gcd algorithm, recording the degree and the leading coefficient of each quotient of the euclidean
+	 * steps that the matrix consists of, in order; the quotients of the truncated polynomials in the recursion are
+	 * those of the full ones.
+	 * @param quotients the list to append the pairs {degree, leading coefficient} to, or null
+	 */
+	static long[][] halfGcd(long[] a0, long[] a1, long p, ArrayList<long[]> quotients) {
+		int n = a0.length - 1, m = (n + 1) / 2;
+		long[][] r = new long[][] { ONE, ZERO, ZERO, ONE };
+		if (a1.length - 1 < m)
+			return r;
+
+		if (n < HALF_GCD_BASE_CASE) {
+			while (a1.length - 1 >= m) {
+				long[][] qr = divideWithRemainder(a0, a1, p);
+				r = quotientStep(qr[0], r, p, quotients);
+				a0 = a1;
+				a1 = qr[1];
+			}
+			return r;
+		}
+
+		r = halfGcd(shiftDown(a0, m), shiftDown(a1, m), p, quotients);
+		long[] b0 = add(multiply(r[0], a0, p), multiply(r[1], a1, p), p);
+		long[] b1 = add(multiply(r[2], a0, p), multiply(r[3], a1, p), p);
+		if (b1.length - 1 < m)
+			return r;
+
+		long[][] qr = divideWithRemainder(b0, b1, p);
+		r = quotientStep(qr[0], r, p, quotients);
+		b0 = b1;
+		b1 = qr[1];
+		int k = Math.max(0, 2 * m - (b0.length - 1));
+		long[][] s = halfGcd(shiftDown(b0, k), shiftDown(b1, k), p, quotients);
+		return new long[][] {
+			add(multiply(s[0], r[0], p), multiply(s[1], r[2], p), p),
+			add(multiply(s[0], r[1], p), multiply(s[1], r[3], p), p),
+			add(multiply(s[2], r[0], p), multiply(s[3], r[2], p), p),
+			add(multiply(s[2], r[1], p), multiply(s[3], r[3], p), p) };
+	}
+
+	/**
+	 * @return (0 1; 1 -q) r, the matrix r followed by one euclidean step with quotient q
+	 */
+	private static long[][] quotientStep(long[] q, long[][] r, long p, ArrayList<long[]> quotients) {
+		if (quotients != null)
+			quotients.add(new long[] { q.length - 1, q[q.length - 1] });
+		return new long[][] { r[2], r[3], subtract(r[0], multiply(q, r[2], p), p), subtract(r[1], multiply(q, r[3], p), p) };
+	}
+
+	/**
+	 * @return a div X^k
+	 */
+	static long[] shiftDown(long[] a, int k) {
+		if (k >= a.length)
+			return ZERO;
+		long[] result = new long[a.length - k];
+		System.arraycopy(a, k, result, 0, result.length);
+		return result;
+	}
+
+	/**
+	 * Compute the resultant of a and b by the euclidean algorithm: for deg a = m >= deg b = n > 0 and the remainder r
+	 * of a by b, of degree k, res(a, b) = (-1)^(mn) lc(b)^(m - k) res(b, r), and res(a, c) = c^m for a constant c.
+	 * From HALF_GCD_THRESHOLD on, the half-gcd algorithm jumps over about half of the remainder sequence at once;
+	 * the degrees and leading coefficients of the remainders it skips follow from the quotients it records, since
+	 * lc(r_(i-1)) = lc(q_i) lc(r_i) for r_(i-1) = q_i r_i + r_(i+1).
+	 * @return the resultant, zero if a or b vanishes
+	 */
+	static long resultant(long[] a, long[] b, long p) {
+		if (a.length == 0 || b.length == 0)
+			return 0;
+		long result = 1;
+		if (a.length < b.length) {
+			if (((a.length - 1) & (b.length - 1) & 1) != 0)
+				result = p - 1;
+			long[] t = a;
+			a = b;
+			b = t;
+		}
+
+		while (true) {
+			int m = a.length - 1, n = b.length - 1;
+			if (n == 0)
+				return result * power(b[0], m, p) % p;
+
+			if (m >= HALF_GCD_THRESHOLD && m > n) {
+				ArrayList<long[]> quotients = new ArrayList<long[]>();
+				long[][] matrix = halfGcd(a, b, p, quotients);
+				if (!quotients.isEmpty()) {
+					long[] c0 = add(multiply(matrix[0], a, p), multiply(matrix[1], b, p), p);
+					long[] c1 = add(multiply(matrix[2], a, p), multiply(matrix[3], b, p), p);
+					/* the remainders r_0 = a, r_1 = b, ..., r_j = c0, r_(j+1) = c1 */
+					int j = quotients.size();
+					int[] degrees = new int[j + 2];
+					long[] leading = new long[j + 1];
+					degrees[0] = m;
+					leading[0] = a[m];
+					for (int i = 1; i <= j; i++) {
+						long[] q = quotients.get(i - 1);
+						degrees[i] = degrees[i - 1] - (int)q[0];
+						leading[i] = leading[i - 1] * PrimeFieldElement.inverse(q[1], p) % p;
+					}
+					if (c1.length == 0)
+						return 0;
+					degrees[j + 1] = c1.length - 1;
+					for (int i = 1; i <= j; i++) {
+						if ((degrees[i - 1] & degrees[i] & 1) != 0)
+							result = (p - result) % p;
+						result = result * power(leading[i], degrees[i - 1] - degrees[i + 1], p) % p;
+					}
+					a = c0;
+					b = c1;
+					continue;
+				}
+			}
+
+			long[] r = remainder(a, b, p);
+			if (r.length == 0)
+				return 0;
+			if ((m & n & 1) != 0)
+				result = (p - result) % p;
+			result = result * power(b[n], m - (r.length - 1), p) % p;
+			a = b;
+			b = r;
+		}
+	}
+
+	/**
+	 * @return a^e modulo p for a residue a and e >= 0
+	 */
+	static long power(long a, long e, long p) {
+		long result = 1 % p;
+		for (; e > 0; e >>= 1) {
+			if ((e & 1) != 0)
+				result = result * a % p;
+			a = a * a % p;
+		}
+		return result;
+	}
+
+	/**
+	 * Extended Euclidean algorithm.
+	 * @return the triple (g, s, t) with g = s a + t b the monic greatest common divisor of a and b; if both have
+	 * positive degree, deg s < deg b - deg g and deg t < deg a - deg g.
+	 */
+	static long[][] extendedGcd(long[] a, long[] b, long p) {
+		long[] s0 = ONE, s1 = ZERO, t0 = ZERO, t1 = ONE;
+		while (b.length > 0) {
+			long[][] qr = divideWithRemainder(a, b, p);
+			long[] s2 = subtract(s0, multiply(qr[0], s1, p), p);
+			long[] t2 = subtract(t0, multiply(qr[0], t1, p), p);
+			a = b;
+			b = qr[1];
+			s0 = s1;
+			s1 = s2;
+			t0 = t1;
+			t1 = t2;
+		}
+		if (a.length == 0)
+			return new long[][] { ZERO, ZERO, ZERO };
+		long lcInverse = PrimeFieldElement.inverse(a[a.length - 1], p);
+		return new long[][] { scale(a, lcInverse, p), scale(s0, lcInverse, p), scale(t0, lcInverse, p) };
+	}
+
+	static long[] derivative(long[] a, long p) {
+		if (a.length <= 1)
+			return ZERO;
+		long[] result = new long[a.length - 1];
+		for (int i = 1; i < a.length; i++)
+			result[i - 1] = a[i] * (i % p) % p;
+		return trim(result);
+	}
+
+	static long[] multiplyMod(long[] a, long[] b, long[] modulus, long p) {
+		return remainder(multiply(a, b, p), modulus, p);
+	}
+
+	/**
+	 * Compute a^e modulo a nonzero modulus by sliding-window exponentiation (see Modulus).
+	 */
+	static long[] powerMod(long[] a, BigInteger e, long[] modulus, long p) {
+		return new Modulus(modulus, p).power(a, e);
+	}
+
+	static long[] powerMod(long[] a, long e, long[] modulus, long p) {
+		return powerMod(a, BigInteger.valueOf(e), modulus, p);
+	}
+
+	/**
+	 * A fixed nonzero modulus f of degree n together with the inverse series of its reversal. Products of reduced
+	 * polynomials have degree at most 2n - 2, so their quotients by f have at most n - 1 coefficients, and with the
+	 * inverse series at hand each reduction costs two short products instead of a division.
+	 */
+	static final class Modulus {
+		final long[] f;
+		final long p;
+		/* the inverse series of the reversal of f to n - 1 coefficients, or null if classical division is faster */
+		final long[] inverse;
+
+		Modulus(long[] f, long p) {
+			if (f.length == 0)
+				throw new ArithmeticException("Division by zero polynomial");
+			this.f = f;
+			this.p = p;
+			inverse = f.length - 1 >= NEWTON_DIVISION_THRESHOLD ? inverseSeries(reverse(f, f.length), f.length - 2, p) : null;
+		}
+
+		int degree() {
+			return f.length - 1;
+		}
+
+		long[] reduce(long[] a) {
+			if (a.length < f.length)
+				return a;
+			return divideWithRemainder(a, f, inverse, p)[1];
+		}
+
+		long[] multiply(long[] a, long[] b) {
+			return reduce(PrimeFieldArithmetic.multiply(a, b, p));
+		}
+
+		/**
+		 * Compute a^e modulo f by left-to-right sliding-window exponentiation: the odd powers a, a^3, ..., a^(2^w - 1)
+		 * are precomputed, and each window of up to w bits of e ending with a one costs a single multiplication, so
+		 * there are about bitLength / (w + 1) multiplications besides the squarings, instead of bitLength / 2.
+		 */
+		long[] power(long[] a, BigInteger e) {
+			if (e.signum() < 0)
+				throw new ArithmeticException("Negative exponent " + e);
+			long[] base = reduce(a);
+			int bits = e.bitLength();
+			if (bits == 0)
+				return reduce(ONE);
+			/* multiplying by a linear polynomial is as cheap as a shift, so there is nothing to save for it */
+			int w = base.length <= 2 ? 1 : windowSize(bits);
+
+			long[][] odd = new long[1 << (w - 1)][];
+			odd[0] = base;
+			if (odd.length > 1) {
+				long[] square = multiply(base, base);
+				for (int i = 1; i < odd.length; i++)
+					odd[i] = multiply(odd[i - 1], square);
+			}
+
+			long[] result = null;
+			for (int i = bits - 1; i >= 0; ) {
+				if (!e.testBit(i)) {
+					result = multiply(result, result);
+					i--;
+					continue;
+				}
+				/* the longest window e_i ... e_j of at most w bits with e_j = 1 */
+				int j = Math.max(i - w + 1, 0);
+				while (!e.testBit(j))
+					j++;
+				int window = 0;
+				for (int k = i; k >= j; k--)
+					window = window << 1 | (e.testBit(k) ? 1 : 0);
+				if (result == null) {
+					result = odd[window >> 1];
+				} else {
+					for (int k = i; k >= j; k--)
+						result = multiply(result, result);
+					result = multiply(result, odd[window >> 1]);
+				}
+				i = j - 1;
+			}
+			return result;
+		}
+
+		/**
+		 * @return g(h) modulo f
+		 */
+		long[] compose(long[] g, long[] h) {
+			return new Composition(this, h).apply(g);
+		}
+	}
+
+	/**
+	 * @return the window size w minimizing the 2^(w - 1) precomputed powers plus the bits / (w + 1) window products
+	 */
+	static int windowSize(int bits) {
+		int best = 1;
+		for (int w = 2; w <= 8; w++) {
+			if ((1 << (w - 1)) + (double)bits / (w + 1) < (1 << (best - 1)) + (double)bits / (best + 1))
+				best = w;
+		}
+		return best;
+	}
+
+	/**
+	 * Composition g(h) modulo f for a fixed h, by the baby-step/giant-step method of Brent and Kung.
+	 *
+	 * With k about sqrt(n), the baby steps 1, h, ..., h^(k-1) modulo f and the giant step H = h^k modulo f are
+	 * computed once. A polynomial g is cut into blocks of k coefficients, g = sum_j g_j(X) X^(jk); each block g_j(h) is a
+	 * linear combination of the baby steps, so all blocks together are a single product of the matrix of block
+	 * coefficients with the matrix of baby steps, and g(h) = sum_j g_j(h) H^j is put together by Horner's scheme in H.
+	 * This takes about sqrt(n) multiplications modulo f and one matrix product of size sqrt(n) x sqrt(n) x n, instead of
+	 * the n multiplications of Horner's scheme in h; the matrix product is done by the tiled and parallel engine of
+	 * PrimeFieldMatrixArithmetic.
+	 */
+	static final class Composition {
+		private final Modulus modulus;
+		private final int k, n;
+		/* the k x n matrix in row-major order whose row i holds h^i modulo f, padded to the degree n of f */
+		private final long[] babySteps;
+		private final long[] giantStep;
+
+		Composition(Modulus modulus, long[] h) {
+			this.modulus = modulus;
+			n = Math.max(modulus.degree(), 1);
+			k = (int)Math.ceil(Math.sqrt(n));
+			babySteps = new long[k * n];
+			long[] reduced = modulus.reduce(h);
+			long[] power = modulus.reduce(ONE);
+			for (int i = 0; i < k; i++) {
+				System.arraycopy(power, 0, babySteps, i * n, power.length);
+				power = modulus.multiply(power, reduced);
+			}
+			giantStep = power;
+		}
+
+		long[] apply(long[] g) {
+			if (g.length == 0)
+				return ZERO;
+			int blocks = (g.length + k - 1) / k;
+			long[] coefficients = Arrays.copyOf(g, blocks * k);
+			long[] values = PrimeFieldMatrixArithmetic.multiply(coefficients, babySteps, blocks, k, n, modulus.p);
+
+			long[] result = block(values, blocks - 1);
+			for (int j = blocks - 2; j >= 0; j--)
+				result = add(modulus.multiply(result, giantStep), block(values, j), modulus.p);
+			return result;
+		}
+
+		/**
+		 * @return g_j(h), row j of the product
+		 */
+		private long[] block(long[] values, int j) {
+			return trim(Arrays.copyOfRange(values, j * n, (j + 1) * n));
+		}
+	}
+
+	/**
+	 * Compute the matrix of the Frobenius map h -> h^p on F_p[X]/(f): row i holds X^(i p) mod f, padded to the
+	 * degree n of f. Building it costs one modular exponentiation and n modular multiplications; afterwards each
+	 * p-th power modulo f is a vector-matrix product (see applyFrobenius).
+	 */
+	static long[][] frobeniusMatrix(long[] f, long p) {
+		int n = f.length - 1;
+		long[][] q = new long[n][];
+		long[] xp = powerMod(X, p, f, p);
+		long[] row = remainder(ONE, f, p);
+		for (int i = 0; i < n; i++) {
+			q[i] = new long[n];
+			System.arraycopy(row, 0, q[i], 0, row.length);
+			if (i + 1 < n)
+				row = multiplyMod(row, xp, f, p);
+		}
+		return q;
+	}
+
+	/**
+	 * @return h^p modulo f, where q is the Frobenius matrix of f and h is reduced modulo f.
+	 */
+	static long[] applyFrobenius(long[] h, long[][] q, long p) {
+		int n = q.length;
+		long[] result = new long[n];
+		int lazy = lazyTerms(p);
+		for (int j = 0; j < n; j++) {
+			long acc = 0;
+			int pending = 0;
+			for (int i = 0; i < h.length; i++) {
+				acc += h[i] * q[i][j];
+				if (++pending == lazy) {
+					acc %= p;
+					pending = 0;
+				}
+			}
+			result[j] = acc % p;
+		}
+		return trim(result);
+	}
+
+	/**
+	 * @return b with b(X)^p = a(X), assuming a only has terms X^(kp); over F_p, c^p = c for the coefficients.
+	 */
+	static long[] pthRoot(long[] a, long p) {
+		if (a.length == 0)
+			return ZERO;
+		long[] result = new long[(a.length - 1) / (int)p + 1];
+		for (int i = 0; i < result.length; i++)
+			result[i] = a[(int)(i * p)];
+		return result;
+	}
+
+	/**
+	 * Compute the square-free decomposition of a monic polynomial: pairwise coprime square-free monic factors g_i with
+	 * multiplicities m_i, such that f is the product of the g_i^m_i. Factors whose multiplicity is divisible by p are
+	 * found by taking p-th roots.
+	 */
+	static ArrayList<Factor> squareFreeDecomposition(long[] f, long p) {
+		ArrayList<Factor> result = new ArrayList<Factor>();
+		squareFreeDecomposition(monic(f, p), p, 1, result);
+		return result;
+	}
+
+	private static void squareFreeDecomposition(long[] f, long p, int scale, ArrayList<Factor> result) {
+		if (f.length <= 1)
+			return;
+
+		long[] c = gcd(f, derivative(f, p), p);
+		long[] w = divide(f, c, p);
+		int i = 1;
+		while (!isOne(w)) {
+			long[] y = gcd(w, c, p);
+			long[] z = divide(w, y, p);
+			if (z.length > 1)
+				result.add(new Factor(z, i * scale));
+			w = y;
+			c = divide(c, y, p);
+			i++;
+		}
+		if (!isOne(c))
+			squareFreeDecomposition(pthRoot(c, p), p, scale * (int)p, result);
+	}
+
+	/**
+	 * Distinct-degree factorization of a square-free monic polynomial f: for each d, the product of all irreducible
+	 * factors of degree d. The p-th powers X^(p^d) mod f are obtained with the Frobenius matrix of f.
+	 * @return Factor objects, where the multiplicity field holds the common degree d of the irreducible factors.
+	 */
+	static ArrayList<Factor> distinctDegreeFactorization(long[] f, long p) {
+		ArrayList<Factor> result = new ArrayList<Factor>();
+		long[][] q = frobeniusMatrix(f, p);
+		long[] rest = f;
+		long[] h = remainder(X, f, p);
+		int d = 0;
+		while (rest.length - 1 >= 2 * (d + 1)) {
+			d++;
+			h = applyFrobenius(h, q, p);
+			long[] g = gcd(subtract(remainder(h, rest, p), remainder(X, rest, p), p), rest, p);
+			if (!isOne(g)) {
+				result.add(new Factor(g, d));
+				rest = divide(rest, g, p);
+			}
+		}
+		if (rest.length > 1)
+			result.add(new Factor(rest, rest.length - 1));
+		return result;
+	}
+
+	/**
+	 * Split a monic product of irreducible factors of common degree d into these factors, by the Cantor-Zassenhaus
+	 * method: gcd(a^((p^d - 1)/2) - 1, g) for random a is a proper factor with probability about 1/2.
+	 * For p = 2, the trace a + a^2 + ... + a^(2^(d-1)) is used instead.
+	 */
+	static void equalDegreeFactorization(long[] g, int d, long p, Random random, ArrayList<long[]> out) {
+		if (g.length - 1 == d) {
+			out.add(g);
+			return;
+		}
+
+		BigInteger exponent = p == 2 ? null : BigInteger.valueOf(p).pow(d).subtract(BigInteger.ONE).shiftRight(1);
+		while (true) {
+			long[] a = randomPolynomial(g.length - 1, p, random);
+			if (a.length <= 1)
+				continue;
+
+			long[] b;
+			if (p == 2) {
+				b = a;
+				long[] power = a;
+				for (int i = 1; i < d; i++) {
+					power = multiplyMod(power, power, g, p);
+					b = add(b, power, p);
+				}
+			} else {
+				b = subtract(powerMod(a, exponent, g, p), ONE, p);
+			}
+
+			long[] h = gcd(b, g, p);
+			if (h.length > 1 && h.length < g.length) {
+				equalDegreeFactorization(h, d, p, random, out);
+				equalDegreeFactorization(divide(g, h, p), d, p, random, out);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return a random polynomial of degree less than n
+	 */
+	static long[] randomPolynomial(int n, long p, Random random) {
+		long[] a = new long[n];
+		for (int i = 0; i < n; i++)
+			a[i] = Math.floorMod(random.nextLong(), p);
+		return trim(a);
+	}
+
+	/**
+	 * Order polynomials by degree, then by their coefficients from the top; used to return factors in a
+	 * reproducible order.
+	 */
+	static int compare(long[] a, long[] b) {
+		if (a.length != b.length)
+			return Integer.compare(a.length, b.length);
+		for (int i = a.length - 1; i >= 0; i--) {
+			if (a[i] != b[i])
+				return Long.compare(a[i], b[i]);
+		}
+		return 0;
+	}
+}
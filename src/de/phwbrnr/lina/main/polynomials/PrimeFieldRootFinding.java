@@ -0,0 +1,125 @@
+/**
+ * Find the roots of a polynomial over a prime field F_p.
+ *
+ * The roots of f in F_p are the roots of g = gcd(f, X^p - X), which is the product of the distinct linear factors
+ * of f. X^p is computed modulo f by square-and-multiply with a precomputed inverse of f, so each step costs a few
+ * multiplications of the degree of f, and the gcd is computed by the half-gcd algorithm; g is then split by random
+ * Cantor-Zassenhaus (Rabin) splits: for random d, gcd(g, (X + d)^((p - 1)/2) - 1) collects the roots r for which
+ * r + d is a nonzero square, which is a proper factor with probability about 1/2. For small p, where these splits
+ * are unlikely to succeed, all residues are tried instead.
+ *
+ * The problem instance is a single nonzero Polynomial over a PrimeField. The result is the array of distinct roots as
+ * residues in [0, p), in increasing order; multiplicities are not reported.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class PrimeFieldRootFinding extends AbstractStrategy<long[]> {
+	/**
+	 * Up to this characteristic, the roots are found by evaluating the polynomial at every residue.
+	 */
+	static final long EXHAUSTIVE_SEARCH_LIMIT = 64;
+
+	private Random random = new Random();
+
+	@Override
+	public String getDescription() {
+		return "Find the roots of a polynomial over a prime field by gcd(f, X^p - X) and random splitting";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		return problem.length == 1 && problem[0] instanceof Polynomial
+				&& ((Polynomial)problem[0]).getRing() instanceof PrimeField
+				&& !((Polynomial)problem[0]).isZero();
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		Polynomial f = (Polynomial)problem[0];
+		double n = f.getDegree() + 1;
+		double logP = 64 - Long.numberOfLeadingZeros(((PrimeField)f.getRing()).getCharacteristic());
+		/* about three multiplications per bit of p, each of O(n log n) */
+		return costFromOperations(3 * logP * n * Math.log(n + 1) / Math.log(2));
+	}
+
+	@Override
+	public long[] execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a single nonzero polynomial over a prime field");
+
+		Polynomial f = (Polynomial)problem[0];
+		long p = ((PrimeField)f.getRing()).getCharacteristic();
+		long[] a = PrimeFieldArithmetic.monic(PrimeFieldArithmetic.fromPolynomial(f), p);
+
+		long[] roots = new long[a.length - 1];
+		int count = 0;
+		int zeros = 0;
+		while (zeros < a.length && a[zeros] == 0)
+			zeros++;
+		if (zeros > 0) {
+			roots[count++] = 0;
+			a = PrimeFieldArithmetic.shiftDown(a, zeros);
+		}
+
+		if (a.length > 1) {
+			if (p <= EXHAUSTIVE_SEARCH_LIMIT) {
+				for (long x = 1; x < p; x++) {
+					if (evaluate(a, x, p) == 0)
+						roots[count++] = x;
+				}
+			} else {
+				long[] xp = PrimeFieldArithmetic.powerMod(PrimeFieldArithmetic.X, p, a, p);
+				long[] g = PrimeFieldArithmetic.gcd(a, PrimeFieldArithmetic.subtract(xp, PrimeFieldArithmetic.remainder(PrimeFieldArithmetic.X, a, p), p), p);
+				count = split(g, p, BigInteger.valueOf((p - 1) / 2), roots, count);
+			}
+		}
+
+		long[] result = Arrays.copyOf(roots, count);
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Store the roots of a monic product g of distinct linear factors into roots, starting at index count.
+	 * @return the new number of roots
+	 */
+	private int split(long[] g, long p, BigInteger exponent, long[] roots, int count) {
+		while (g.length > 2) {
+			long[] shifted = new long[] { Math.floorMod(random.nextLong(), p), 1 };
+			long[] w = PrimeFieldArithmetic.powerMod(shifted, exponent, g, p);
+			long[] h = PrimeFieldArithmetic.gcd(g, PrimeFieldArithmetic.subtract(w, PrimeFieldArithmetic.ONE, p), p);
+			if (h.length <= 1 || h.length == g.length)
+				continue;
+			/* recurse into the smaller part, keep splitting the larger one */
+			long[] other = PrimeFieldArithmetic.divide(g, h, p);
+			if (h.length > other.length) {
+				long[] t = h;
+				h = other;
+				other = t;
+			}
+			count = split(h, p, exponent, roots, count);
+			g = other;
+		}
+		if (g.length == 2)
+			roots[count++] = g[0] == 0 ? 0 : p - g[0];
+		return count;
+	}
+
+	private static long evaluate(long[] a, long x, long p) {
+		long result = 0;
+		for (int i = a.length - 1; i >= 0; i--)
+			result = (result * x + a[i]) % p;
+		return result;
+	}
+}
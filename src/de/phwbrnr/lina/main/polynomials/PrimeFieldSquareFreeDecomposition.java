@@ -0,0 +1,65 @@
+/**
+ * Square-free decomposition of polynomials over a prime field F_p.
+ *
+ * Over F_p, the derivative of X^p vanishes, so factors whose multiplicity is divisible by p survive in
+ * gcd(f, f') without showing up in the quotients. The decomposition therefore proceeds as in characteristic zero,
+ * with one derivative and repeated greatest common divisors with the cofactor, and then takes the p-th root of the
+ * remaining part (every exponent of it is divisible by p, and c^p = c for the coefficients) and decomposes that
+ * recursively, multiplying its exponents by p. All arithmetic is done on primitive residues.
+ *
+ * The problem instance is a single nonzero Polynomial over a PrimeField. The factors of the result are monic and
+ * ordered by increasing exponent; the unit is the leading coefficient.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.util.ArrayList;
+
+import de.phwbrnr.lina.main.fields.Factorization;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class PrimeFieldSquareFreeDecomposition extends AbstractStrategy<Factorization> {
+
+	@Override
+	public String getDescription() {
+		return "Compute the square-free decomposition of a polynomial over a prime field, taking p-th roots";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		return problem.length == 1 && problem[0] instanceof Polynomial
+				&& ((Polynomial)problem[0]).getRing() instanceof PrimeField
+				&& !((Polynomial)problem[0]).isZero();
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		double n = ((Polynomial)problem[0]).getDegree() + 1;
+		return costFromOperations(3 * n * n);
+	}
+
+	@Override
+	public Factorization execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a single nonzero polynomial over a prime field");
+
+		Polynomial f = (Polynomial)problem[0];
+		PrimeField field = (PrimeField)f.getRing();
+		long p = field.getCharacteristic();
+		ArrayList<PrimeFieldArithmetic.Factor> decomposition = PrimeFieldArithmetic.squareFreeDecomposition(PrimeFieldArithmetic.fromPolynomial(f), p);
+		decomposition.sort((g, h) -> Integer.compare(g.multiplicity, h.multiplicity));
+
+		RingElement[] factors = new RingElement[decomposition.size()];
+		int[] exponents = new int[factors.length];
+		for (int i = 0; i < factors.length; i++) {
+			factors[i] = PrimeFieldArithmetic.toPolynomial(field, decomposition.get(i).polynomial);
+			exponents[i] = decomposition.get(i).multiplicity;
+		}
+		return new Factorization(f.getLeadingCoefficient(), factors, exponents);
+	}
+}
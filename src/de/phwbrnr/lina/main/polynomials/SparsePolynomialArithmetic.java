@@ -0,0 +1,287 @@
+/**
+ * Arithmetic on the sparse form of univariate polynomials: ascending exponents with their nonzero coefficients.
+ *
+ * Sums merge the term lists. Products and divisions merge the term products through a MonomialHeap, as for
+ * multivariate polynomials (see MultivariateArithmetic), with the exponents as keys: the heap holds one product per
+ * term of the smaller factor, so the cost depends on the numbers of terms and not on the degrees, and a product of
+ * sparse polynomials never allocates an array of the length of its degree. The results are handed to
+ * Polynomial.fromTerms(), which chooses the representation by the fill ratio.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.util.Arrays;
+
+import de.phwbrnr.lina.main.fields.ElementNotInvertibleException;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+final class SparsePolynomialArithmetic {
+
+	private SparsePolynomialArithmetic() {
+	}
+
+	/**
+	 * @return f + g, or f - g if subtract is set
+	 */
+	static Polynomial add(Polynomial f, Polynomial g, boolean subtract) throws OperationUndefinedException {
+		int[] fe = f.termExponents(), ge = g.termExponents();
+		RingElement[] fc = f.termCoefficients(), gc = g.termCoefficients();
+		int[] exponents = new int[fe.length + ge.length];
+		RingElement[] coefficients = new RingElement[exponents.length];
+		int i = 0, j = 0, k = 0;
+		while (i < fe.length || j < ge.length) {
+			if (j == ge.length || (i < fe.length && fe[i] < ge[j])) {
+				exponents[k] = fe[i];
+				coefficients[k++] = fc[i++];
+			} else if (i == fe.length || ge[j] < fe[i]) {
+				exponents[k] = ge[j];
+				coefficients[k++] = subtract ? gc[j++].negative() : gc[j++];
+			} else {
+				RingElement c = subtract ? fc[i].subtract(gc[j]) : fc[i].add(gc[j]);
+				if (!c.isZero()) {
+					exponents[k] = fe[i];
+					coefficients[k++] = c;
+				}
+				i++;
+				j++;
+			}
+		}
+		return Polynomial.fromTerms(f.getRing(), exponents, coefficients, k);
+	}
+
+	/**
+	 * @return the product of f with a coefficient
+	 */
+	static Polynomial scale(Polynomial f, RingElement c) throws OperationUndefinedException {
+		int[] fe = f.termExponents();
+		RingElement[] fc = f.termCoefficients();
+		int[] exponents = new int[fe.length];
+		RingElement[] coefficients = new RingElement[fe.length];
+		int k = 0;
+		for (int i = 0; i < fe.length; i++) {
+			RingElement product = fc[i].multiply(c);
+			if (!product.isZero()) {
+				exponents[k] = fe[i];
+				coefficients[k++] = product;
+			}
+		}
+		return Polynomial.fromTerms(f.getRing(), exponents, coefficients, k);
+	}
+
+	/**
+	 * @return the product f g, by the heap algorithm
+	 */
+	static Polynomial multiply(Polynomial f, Polynomial g) throws OperationUndefinedException {
+		Ring ring = f.getRing();
+		if (f.isZero() || g.isZero())
+			return new Polynomial(ring);
+		if ((long)f.getDegree() + g.getDegree() > Integer.MAX_VALUE)
+			throw new OperationUndefinedException("The degree of the product exceeds " + Integer.MAX_VALUE);
+		/* the heap holds one entry per term of the first factor, which may be swapped if coefficients commute */
+		if (f.getTermCount() > g.getTermCount() && ring.isCommutative()) {
+			Polynomial t = f;
+			f = g;
+			g = t;
+		}
+		int[] fe = f.termExponents(), ge = g.termExponents();
+		RingElement[] fc = f.termCoefficients(), gc = g.termCoefficients();
+		/* the heap yields the largest exponents first, so the terms are walked from the top, row i being fe[n - 1 - i] */
+		int n = fe.length, m = ge.length;
+
+		MonomialHeap heap = new MonomialHeap(n);
+		heap.push((long)fe[n - 1] + ge[m - 1], 0, 0);
+		int[] exponents = new int[16];
+		RingElement[] coefficients = new RingElement[16];
+		int k = 0;
+		int[] poppedRows = new int[n], poppedColumns = new int[n];
+		while (!heap.isEmpty()) {
+			long e = heap.topKey();
+			RingElement sum = null;
+			int popped = 0;
+			while (!heap.isEmpty() && heap.topKey() == e) {
+				for (int i = heap.pop(); i >= 0; i = heap.next(i)) {
+					int j = heap.column(i);
+					RingElement product = fc[n - 1 - i].multiply(gc[m - 1 - j]);
+					sum = sum == null ? product : sum.add(product);
+					poppedRows[popped] = i;
+					poppedColumns[popped++] = j;
+				}
+			}
+			for (int l = 0; l < popped; l++) {
+				int i = poppedRows[l], j = poppedColumns[l];
+				if (j == 0 && i + 1 < n)
+					heap.push((long)fe[n - 2 - i] + ge[m - 1], i + 1, 0);
+				if (j + 1 < m)
+					heap.push((long)fe[n - 1 - i] + ge[m - 2 - j], i, j + 1);
+			}
+			if (sum.isZero())
+				continue;
+			if (k == exponents.length) {
+				exponents = Arrays.copyOf(exponents, 2 * k);
+				coefficients = Arrays.copyOf(coefficients, 2 * k);
+			}
+			exponents[k] = (int)e;
+			coefficients[k++] = sum;
+		}
+		reverse(exponents, coefficients, k);
+		return Polynomial.fromTerms(ring, exponents, coefficients, k);
+	}
+
+	/**
+	 * Divide f by g by the heap division: a term of degree at least deg g is reduced by the leading term of g, whose
+	 * coefficient has to divide it.
+	 * @param exact whether a nonzero remainder is an error; otherwise the leading coefficient of g has to be
+	 * invertible, as for the dense division
+	 * @return the quotient and the remainder
+	 * @throws OperationUndefinedException if g vanishes, its leading coefficient does not divide a coefficient of the
+	 * remainder sequence, or the division is exact and leaves a remainder.
+	 */
+	static Polynomial[] divideWithRemainder(Polynomial f, Polynomial g, boolean exact) throws OperationUndefinedException {
+		Ring ring = f.getRing();
+		if (g.isZero())
+			throw new OperationUndefinedException("Division by zero polynomial not possible");
+		int[] fe = f.termExponents(), ge = g.termExponents();
+		RingElement[] fc = f.termCoefficients(), gc = g.termCoefficients();
+		int n = fe.length, m = ge.length, dg = ge[m - 1];
+		RingElement lc = gc[m - 1], lcInverse = null;
+		if (lc.invertible()) {
+			try {
+				lcInverse = lc.inverse();
+			} catch (ElementNotInvertibleException ex) {
+				lcInverse = null;
+			}
+		}
+		if (lcInverse == null && !exact)
+			throw new OperationUndefinedException("The leading coefficient " + lc + " of the divisor is not invertible");
+
+		int[] quotientExponents = new int[16], remainderExponents = new int[16];
+		RingElement[] quotientCoefficients = new RingElement[16], remainderCoefficients = new RingElement[16];
+		int quotientCount = 0, remainderCount = 0;
+		/* row 0 runs down the terms of f, row q + 1 down the products of quotient term q with g, below its leading term */
+		MonomialHeap heap = new MonomialHeap(16);
+		if (n > 0)
+			heap.push(fe[n - 1], 0, 0);
+		int[] poppedRows = new int[16], poppedColumns = new int[16];
+		while (!heap.isEmpty()) {
+			long e = heap.topKey();
+			RingElement c = ring.getZero();
+			int popped = 0;
+			while (!heap.isEmpty() && heap.topKey() == e) {
+				for (int row = heap.pop(); row >= 0; row = heap.next(row)) {
+					int j = heap.column(row);
+					if (row == 0)
+						c = c.add(fc[n - 1 - j]);
+					else
+						c = c.subtract(quotientCoefficients[row - 1].multiply(gc[m - 2 - j]));
+					if (popped == poppedRows.length) {
+						poppedRows = Arrays.copyOf(poppedRows, 2 * popped);
+						poppedColumns = Arrays.copyOf(poppedColumns, 2 * popped);
+					}
+					poppedRows[popped] = row;
+					poppedColumns[popped++] = j;
+				}
+			}
+			for (int l = 0; l < popped; l++) {
+				int row = poppedRows[l], j = poppedColumns[l];
+				if (row == 0) {
+					if (j + 1 < n)
+						heap.push(fe[n - 2 - j], 0, j + 1);
+				} else if (j + 1 < m - 1) {
+					heap.push(quotientExponents[row - 1] + ge[m - 3 - j], row, j + 1);
+				}
+			}
+			if (c.isZero())
+				continue;
+
+			if (e < dg) {
+				if (exact)
+					throw new OperationUndefinedException("Polynomial " + f + " over " + ring.getName() + " not evenly divisible by " + g);
+				if (remainderCount == remainderExponents.length) {
+					remainderExponents = Arrays.copyOf(remainderExponents, 2 * remainderCount);
+					remainderCoefficients = Arrays.copyOf(remainderCoefficients, 2 * remainderCount);
+				}
+				remainderExponents[remainderCount] = (int)e;
+				remainderCoefficients[remainderCount++] = c;
+				continue;
+			}
+			RingElement q = lcInverse != null ? c.multiply(lcInverse) : c.divide(lc);
+			if (quotientCount == quotientExponents.length) {
+				quotientExponents = Arrays.copyOf(quotientExponents, 2 * quotientCount);
+				quotientCoefficients = Arrays.copyOf(quotientCoefficients, 2 * quotientCount);
+			}
+			quotientExponents[quotientCount] = (int)e - dg;
+			quotientCoefficients[quotientCount++] = q;
+			if (m > 1)
+				heap.push(quotientExponents[quotientCount - 1] + ge[m - 2], quotientCount, 0);
+		}
+		reverse(quotientExponents, quotientCoefficients, quotientCount);
+		reverse(remainderExponents, remainderCoefficients, remainderCount);
+		return new Polynomial[] { Polynomial.fromTerms(ring, quotientExponents, quotientCoefficients, quotientCount),
+				Polynomial.fromTerms(ring, remainderExponents, remainderCoefficients, remainderCount) };
+	}
+
+	/**
+	 * Evaluate by Horner's scheme over the terms, bridging the gaps between exponents by powers of the point.
+	 */
+	static RingElement evaluate(Polynomial f, RingElement point) throws OperationUndefinedException {
+		int[] fe = f.termExponents();
+		RingElement[] fc = f.termCoefficients();
+		if (fe.length == 0)
+			return f.getRing().getZero();
+		RingElement result = fc[fe.length - 1];
+		for (int i = fe.length - 2; i >= 0; i--)
+			result = result.multiply(power(point, fe[i + 1] - fe[i])).add(fc[i]);
+		return fe[0] == 0 ? result : result.multiply(power(point, fe[0]));
+	}
+
+	/**
+	 * @return the formal derivative
+	 */
+	static Polynomial derivative(Polynomial f) throws OperationUndefinedException {
+		Ring ring = f.getRing();
+		int[] fe = f.termExponents();
+		RingElement[] fc = f.termCoefficients();
+		int[] exponents = new int[fe.length];
+		RingElement[] coefficients = new RingElement[fe.length];
+		int k = 0;
+		for (int i = 0; i < fe.length; i++) {
+			if (fe[i] == 0)
+				continue;
+			RingElement c = PolynomialArithmetic.multiplyByInteger(ring, fc[i], fe[i]);
+			if (!c.isZero()) {
+				exponents[k] = fe[i] - 1;
+				coefficients[k++] = c;
+			}
+		}
+		return Polynomial.fromTerms(ring, exponents, coefficients, k);
+	}
+
+	/**
+	 * @return x^e for e >= 0, by repeated squaring
+	 */
+	private static RingElement power(RingElement x, int e) throws OperationUndefinedException {
+		RingElement result = null, square = x;
+		while (e > 0) {
+			if ((e & 1) != 0)
+				result = result == null ? square : result.multiply(square);
+			e >>= 1;
+			if (e > 0)
+				square = square.multiply(square);
+		}
+		return result == null ? x.getRing().getOne() : result;
+	}
+
+	private static void reverse(int[] exponents, RingElement[] coefficients, int length) {
+		for (int i = 0, j = length - 1; i < j; i++, j--) {
+			int e = exponents[i];
+			exponents[i] = exponents[j];
+			exponents[j] = e;
+			RingElement c = coefficients[i];
+			coefficients[i] = coefficients[j];
+			coefficients[j] = c;
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/**
+ * Represent the subproduct tree of a fixed set of points x_0, ..., x_{n-1} of a commutative ring.
+ *
+ * The leaves of the tree are the linear polynomials X - x_i, and every inner node is the product of its two children,
+ * so the root is the product of all X - x_i. With the tree at hand, a polynomial can be evaluated at all points by
+ * passing it down the tree and reducing it modulo each node (the remainder tree), and values at the points can be
+ * interpolated by combining them up the tree. Both take time quasi-linear in the number of points, compared to the
+ * quadratic cost of n separate Horner evaluations or of Lagrange interpolation.
+ *
+ * A tree is immutable once constructed and should be kept and reused as long as the set of points stays the same;
+ * the data needed for interpolation is computed on first use and then cached as well.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import de.phwbrnr.lina.main.fields.ElementNotInvertibleException;
+import de.phwbrnr.lina.main.fields.Field;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+public class SubproductTree {
+	/**
+	 * Subtrees with at most this many points are handled by Horner's scheme (evaluation) or directly (interpolation).
+	 */
+	static final int HORNER_CUTOFF = 8;
+
+	private Ring ring;
+	private RingElement[] points;
+	/* levels[0] are the leaves X - x_i; levels[k][j] covers the points j * 2^k, ..., (j + 1) * 2^k - 1 */
+	private RingElement[][][] levels;
+	private volatile RingElement[] inverseDerivativeValues;
+
+	/**
+	 * Build the subproduct tree for a set of points.
+	 * @param ring The (commutative) coefficient ring the points belong to
+	 * @param points The points; for interpolation they have to be pairwise distinct
+	 * @throws IllegalArgumentException if there are no points, or some point is not an element of the ring.
+	 * @throws OperationUndefinedException if the ring operations on the points fail.
+	 */
+	public SubproductTree(Ring ring, RingElement... points) throws OperationUndefinedException {
+		if (points.length == 0)
+			throw new IllegalArgumentException("A subproduct tree needs at least one point");
+		for (int i = 0; i < points.length; i++) {
+			if (!ring.contains(points[i]))
+				throw new IllegalArgumentException("Point #" + i + " (" + points[i].toString() + ") is not member of ring " + ring.toString());
+		}
+
+		this.ring = ring;
+		this.points = points.clone();
+
+		int height = 1;
+		while ((1 << (height - 1)) < points.length)
+			height++;
+		levels = new RingElement[height][][];
+
+		levels[0] = new RingElement[points.length][];
+		RingElement one = ring.getOne();
+		for (int i = 0; i < points.length; i++)
+			levels[0][i] = PolynomialArithmetic.trim(new RingElement[] { points[i].negative(), one });
+
+		for (int k = 1; k < height; k++) {
+			RingElement[][] below = levels[k - 1];
+			RingElement[][] level = new RingElement[(below.length + 1) / 2][];
+			for (int j = 0; j < level.length; j++) {
+				if (2 * j + 1 < below.length)
+					level[j] = PolynomialArithmetic.multiply(ring, below[2 * j], below[2 * j + 1]);
+				else
+					level[j] = below[2 * j];
+			}
+			levels[k] = level;
+		}
+	}
+
+	/**
+	 * @return a copy of the points of the tree.
+	 */
+	public RingElement[] getPoints() {
+		return points.clone();
+	}
+
+	public Ring getRing() {
+		return ring;
+	}
+
+	/**
+	 * @return the product of all X - x_i, that is, the root of the tree.
+	 */
+	public Polynomial getProduct() {
+		return new Polynomial(ring, levels[levels.length - 1][0], true);
+	}
+
+	/**
+	 * Evaluate a polynomial at all points of the tree by the remainder tree.
+	 * @param f a polynomial over the ring of the tree
+	 * @return the values f(x_0), ..., f(x_{n-1})
+	 * @throws OperationUndefinedException if f is not a polynomial over the ring of the tree.
+	 */
+	public RingElement[] evaluate(Polynomial f) throws OperationUndefinedException {
+		if (!f.getRing().equals(ring))
+			throw new OperationUndefinedException("Cannot evaluate polynomial over " + f.getRing().getName() + " at points of " + ring.getName());
+
+		RingElement[] values = new RingElement[points.length];
+		RingElement[] coefficients = f.trimmedCoefficients();
+		int top = levels.length - 1;
+		if (coefficients.length > levels[top][0].length - 1)
+			coefficients = PolynomialArithmetic.divideWithRemainder(ring, coefficients, levels[top][0], null)[1];
+		evaluateDown(coefficients, top, 0, values);
+		return values;
+	}
+
+	/**
+	 * Evaluate the remainder r of f modulo the node (k, j) at the points covered by that node.
+	 */
+	private void evaluateDown(RingElement[] r, int k, int j, RingElement[] values) throws OperationUndefinedException {
+		int first = j << k, last = Math.min((j + 1) << k, points.length);
+		if (last - first <= HORNER_CUTOFF || k == 0) {
+			for (int i = first; i < last; i++)
+				values[i] = PolynomialArithmetic.evaluate(ring, r, points[i]);
+			return;
+		}
+
+		RingElement[][] below = levels[k - 1];
+		for (int child = 2 * j; child <= 2 * j + 1 && child < below.length; child++) {
+			RingElement[] node = below[child];
+			RingElement[] childRemainder = r;
+			if (r.length > node.length - 1)
+				childRemainder = PolynomialArithmetic.divideWithRemainder(ring, r, node, null)[1];
+			evaluateDown(childRemainder, k - 1, child, values);
+		}
+	}
+
+	/**
+	 * Compute the unique polynomial of degree less than the number of points that takes the given values at the points
+	 * of the tree. The ring of the tree has to be a field, and the points pairwise distinct.
+	 * @param values the values at x_0, ..., x_{n-1}
+	 * @throws IllegalArgumentException if the number of values does not match the number of points
+	 * @throws OperationUndefinedException if the ring is not a field or two points coincide.
+	 */
+	public Polynomial interpolate(RingElement... values) throws OperationUndefinedException {
+		if (values.length != points.length)
+			throw new IllegalArgumentException("Expected " + points.length + " values, got " + values.length);
+
+		RingElement[] inverses = getInverseDerivativeValues();
+		RingElement[] weights = new RingElement[values.length];
+		for (int i = 0; i < values.length; i++)
+			weights[i] = values[i].multiply(inverses[i]);
+
+		return new Polynomial(ring, combineUp(weights, levels.length - 1, 0), true);
+	}
+
+	/**
+	 * Compute the sum of w_i * m / (X - x_i) over the points covered by the node (k, j), where m is that node.
+	 */
+	private RingElement[] combineUp(RingElement[] weights, int k, int j) throws OperationUndefinedException {
+		if (k == 0)
+			return PolynomialArithmetic.trim(new RingElement[] { weights[j] });
+
+		RingElement[][] below = levels[k - 1];
+		if (2 * j + 1 >= below.length)
+			return combineUp(weights, k - 1, 2 * j);
+
+		RingElement[] left = combineUp(weights, k - 1, 2 * j);
+		RingElement[] right = combineUp(weights, k - 1, 2 * j + 1);
+		PolynomialBuilder result = new PolynomialBuilder(ring, Math.max(0, Math.max(left.length + below[2 * j + 1].length, right.length + below[2 * j].length) - 1));
+		return result.addMul(left, below[2 * j + 1]).addMul(right, below[2 * j]).buildArray();
+	}
+
+	/**
+	 * @return the inverses of m'(x_i), where m is the root of the tree; computed once and cached.
+	 */
+	private RingElement[] getInverseDerivativeValues() throws OperationUndefinedException {
+		RingElement[] inverses = inverseDerivativeValues;
+		if (inverses != null)
+			return inverses;
+
+		if (!(ring instanceof Field))
+			throw new OperationUndefinedException("Interpolation needs a field, but " + ring.getName() + " is not a field");
+
+		RingElement[] derivativeValues = evaluate(getProduct().derivative());
+		inverses = new RingElement[derivativeValues.length];
+		for (int i = 0; i < inverses.length; i++) {
+			try {
+				inverses[i] = derivativeValues[i].inverse();
+			} catch (ElementNotInvertibleException ex) {
+				throw new OperationUndefinedException("Interpolation points are not pairwise distinct: " + points[i] + " occurs twice");
+			}
+		}
+		inverseDerivativeValues = inverses;
+		return inverses;
+	}
+}
@@ -0,0 +1,140 @@
+/**
+ * Resultants of polynomials over an integral domain by the subresultant pseudo-remainder sequence.
+ *
+ * Over a ring that is not a field, the euclidean algorithm is replaced by pseudo-divisions: lc(b)^(deg a - deg b + 1) a
+ * is divisible by b. The pseudo-remainders grow exponentially, but by the theory of subresultants (Collins, Brown),
+ * each of them is divisible by a known factor g h^delta, where g is a leading coefficient and h is updated along the
+ * sequence; after these exact divisions the remainders are the subresultants themselves, whose coefficients are
+ * determinants of submatrices of the Sylvester matrix and thus only grow linearly. The last one is the resultant, up
+ * to a power of h. Only ring operations and exact divisions are needed, so this works over the integers as well as
+ * over polynomial rings, like Z[Y] for the resultant of a bivariate system with respect to X.
+ *
+ * The problem instance is a pair of Polynomials over the same commutative integral domain. The result is the
+ * resultant, an element of the coefficient ring; it vanishes if one of the polynomials does.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class SubresultantResultant extends AbstractStrategy<RingElement> {
+
+	@Override
+	public String getDescription() {
+		return "Compute the resultant of two polynomials over an integral domain by the subresultant pseudo-remainder sequence";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		if (problem.length != 2 || !(problem[0] instanceof Polynomial) || !(problem[1] instanceof Polynomial))
+			return false;
+		Ring ring = ((Polynomial)problem[0]).getRing();
+		return ((Polynomial)problem[1]).getRing().equals(ring) && ring.isIntegralDomain() && ring.isCommutative();
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		double n = Math.max(((Polynomial)problem[0]).getDegree(), ((Polynomial)problem[1]).getDegree()) + 1;
+		/* a quadratic number of coefficient operations, on coefficients growing linearly */
+		return costFromOperations(4 * n * n * n);
+	}
+
+	@Override
+	public RingElement execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass two polynomials over the same commutative integral domain");
+
+		Polynomial f = (Polynomial)problem[0];
+		Ring ring = f.getRing();
+		try {
+			return resultant(ring, f.trimmedCoefficients(), ((Polynomial)problem[1]).trimmedCoefficients());
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("Ring operations failed in the subresultant sequence over " + ring.getName(), ex);
+		}
+	}
+
+	static RingElement resultant(Ring ring, RingElement[] a, RingElement[] b) throws OperationUndefinedException {
+		if (a.length == 0 || b.length == 0)
+			return ring.getZero();
+		boolean negate = false;
+		if (a.length < b.length) {
+			negate = ((a.length - 1) & (b.length - 1) & 1) != 0;
+			RingElement[] t = a;
+			a = b;
+			b = t;
+		}
+		if (b.length == 1)
+			return sign(power(ring, b[0], a.length - 1), negate);
+
+		RingElement g = ring.getOne(), h = ring.getOne();
+		while (true) {
+			int da = a.length - 1, db = b.length - 1, delta = da - db;
+			if ((da & db & 1) != 0)
+				negate = !negate;
+			RingElement[] r = pseudoRemainder(ring, a, b);
+			if (r.length == 0)
+				return ring.getZero();
+
+			/* divide out the known content of the pseudo-remainder */
+			RingElement divisor = g.multiply(power(ring, h, delta));
+			for (int i = 0; i < r.length; i++)
+				r[i] = r[i].divide(divisor);
+			a = b;
+			b = r;
+			g = a[a.length - 1];
+			if (delta > 0)
+				h = power(ring, g, delta).divide(power(ring, h, delta - 1));
+
+			if (b.length == 1) {
+				int d = a.length - 1;
+				return sign(power(ring, b[0], d).divide(power(ring, h, d - 1)), negate);
+			}
+		}
+	}
+
+	/**
+	 * @return the remainder of lc(b)^(deg a - deg b + 1) a by b, for deg a >= deg b
+	 */
+	static RingElement[] pseudoRemainder(Ring ring, RingElement[] a, RingElement[] b) throws OperationUndefinedException {
+		int db = b.length - 1;
+		RingElement lc = b[db];
+		RingElement zero = ring.getZero();
+		RingElement[] r = a.clone();
+		/* r = lc r - c X^(i - db) b in every step, also when c vanishes, so that lc occurs deg a - deg b + 1 times */
+		for (int i = r.length - 1; i >= db; i--) {
+			RingElement c = r[i];
+			for (int j = 0; j < i; j++)
+				r[j] = r[j].multiply(lc);
+			if (!c.isZero()) {
+				for (int j = 0; j < db; j++)
+					r[i - db + j] = r[i - db + j].subtract(c.multiply(b[j]));
+			}
+			r[i] = zero;
+		}
+		return PolynomialArithmetic.trim(PolynomialArithmetic.truncate(r, db));
+	}
+
+	/**
+	 * @return c^e for e >= 0, by repeated squaring
+	 */
+	static RingElement power(Ring ring, RingElement c, int e) throws OperationUndefinedException {
+		RingElement result = ring.getOne();
+		for (RingElement square = c; e > 0; e >>= 1) {
+			if ((e & 1) != 0)
+				result = result.multiply(square);
+			if (e > 1)
+				square = square.multiply(square);
+		}
+		return result;
+	}
+
+	private static RingElement sign(RingElement c, boolean negate) {
+		return negate ? c.negative() : c;
+	}
+}
@@ -0,0 +1,562 @@
+/**
+ * Factor polynomials over the integers by Hensel lifting and van Hoeij's lattice-based recombination.
+ *
+ * After the content has been split off and the primitive part has been decomposed into square-free factors (Yun's
+ * algorithm), every square-free factor f is factored as follows:
+ * - a good prime p is chosen: it does not divide lc(f), f mod p is square-free, and among a few such primes it is
+ *   the one with the fewest modular factors;
+ * - f is factored modulo p (Cantor-Zassenhaus), and the factorization is lifted to p^a by quadratic multifactor
+ *   Hensel lifting (see HenselLifting);
+ * - the r modular factors are recombined into the true factors over Z. Trying all subsets (Zassenhaus) takes 2^r
+ *   trial divisions, which is only done for very few modular factors. Otherwise, the power sums of the roots of the
+ *   modular factors (traces) are used: they are additive, and for a true factor, the sum of the traces of its
+ *   modular factors is a small integer. The 0/1 vectors describing the true factors are therefore short vectors of a
+ *   lattice built from the traces modulo p^a, which LLL finds; more traces and more precision are added until the
+ *   lattice reveals the partition, which is verified by trial division.
+ *
+ * The problem instance is a single nonzero Polynomial over the IntegerRing. The result lists the prime factors of
+ * the content (with -1 for a negative leading coefficient) as constant polynomials, followed by the irreducible
+ * primitive factors with positive leading coefficients, each repeated according to its multiplicity and ordered by
+ * degree, then by coefficients; the product of the list is the input. Contents for which the IntegerRing has no
+ * factorization strategy are kept as a single constant.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Random;
+
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.IntegerRing;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.matrices.LatticeReduction;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+import de.phwbrnr.lina.main.strategies.NoStrategyException;
+
+public class VanHoeijFactorization extends AbstractStrategy<ArrayList<RingElement>> {
+	/**
+	 * Up to this number of modular factors, all subsets are tried instead of reducing lattices.
+	 */
+	static final int SUBSET_SEARCH_MAX_FACTORS = 6;
+
+	/**
+	 * Number of good primes among which the one with the fewest modular factors is chosen.
+	 */
+	static final int PRIME_CANDIDATES = 5;
+
+	/**
+	 * Number of traces added to the lattice in one reduction.
+	 */
+	static final int TRACES_PER_ROUND = 3;
+
+	/**
+	 * How often the precision is doubled before giving up on the lattice and trying all subsets.
+	 */
+	static final int MAX_PRECISION_DOUBLINGS = 8;
+
+	private final Random random = new Random();
+	private final CantorZassenhausFactorization modular = new CantorZassenhausFactorization();
+
+	@Override
+	public String getDescription() {
+		return "Factor a polynomial over the integers by Hensel lifting and van Hoeij's recombination";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		return problem.length == 1 && problem[0] instanceof Polynomial
+				&& ((Polynomial)problem[0]).getRing() instanceof IntegerRing
+				&& !((Polynomial)problem[0]).isZero();
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		BigInteger[] f = IntegerPolynomialArithmetic.fromPolynomial((Polynomial)problem[0]);
+		double n = f.length - 1, bits = IntegerPolynomialArithmetic.normSquared(f).bitLength() / 2 + 1;
+		/* modular factorization, lifting, and a few reductions of lattices of dimension about n */
+		return costFromOperations(5 * n * n * n + n * n * (n + bits) * (n + bits));
+	}
+
+	@Override
+	public ArrayList<RingElement> execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a single nonzero polynomial over the integers");
+
+		BigInteger[] f = IntegerPolynomialArithmetic.fromPolynomial((Polynomial)problem[0]);
+		BigInteger unit = IntegerPolynomialArithmetic.content(f);
+		if (IntegerPolynomialArithmetic.leadingCoefficient(f).signum() < 0)
+			unit = unit.negate();
+		BigInteger[] primitive = IntegerPolynomialArithmetic.primitivePart(f);
+
+		ArrayList<BigInteger[]> factors = new ArrayList<BigInteger[]>();
+		if (primitive.length > 1) {
+			for (IntegerPolynomialArithmetic.Factor sf : IntegerPolynomialArithmetic.squareFreeDecomposition(primitive)) {
+				for (BigInteger[] g : factorSquareFree(sf.polynomial)) {
+					for (int i = 0; i < sf.multiplicity; i++)
+						factors.add(g);
+				}
+			}
+		}
+		factors.sort(IntegerPolynomialArithmetic::compare);
+
+		ArrayList<RingElement> result = new ArrayList<RingElement>(factors.size() + 1);
+		if (!unit.equals(BigInteger.ONE) || factors.isEmpty())
+			addContent(unit, result);
+		for (BigInteger[] g : factors)
+			result.add(IntegerPolynomialArithmetic.toPolynomial(g));
+		return result;
+	}
+
+	private static void addContent(BigInteger unit, ArrayList<RingElement> result) {
+		IntegerRing integers = IntegerRing.getInstance();
+		try {
+			for (RingElement c : integers.factor().compute(new IntegerElement(unit)))
+				result.add(new Polynomial(integers, c));
+		} catch (NoStrategyException ex) {
+			result.add(new Polynomial(integers, new IntegerElement(unit)));
+		} catch (Exception ex) {
+			throw new IllegalStateException("Unable to factor the content " + unit, ex);
+		}
+	}
+
+	/**
+	 * Factor a square-free primitive polynomial of positive degree with positive leading coefficient.
+	 */
+	ArrayList<BigInteger[]> factorSquareFree(BigInteger[] f) {
+		ArrayList<BigInteger[]> result = new ArrayList<BigInteger[]>();
+		if (f.length <= 2) {
+			result.add(f);
+			return result;
+		}
+
+		long p = choosePrime(f);
+		if (p == 0) {
+			result.add(f);
+			return result;
+		}
+		long[] monic = PrimeFieldArithmetic.monic(IntegerPolynomialArithmetic.toResidues(f, p), p);
+		ArrayList<long[]> local = new ArrayList<long[]>();
+		modular.factorSquareFree(monic, p, random, local);
+		local.sort(PrimeFieldArithmetic::compare);
+
+		HenselLifting lifting = new HenselLifting(f, p, local);
+		int a = minimalExponent(f, p);
+		if (local.size() <= SUBSET_SEARCH_MAX_FACTORS) {
+			lifting.liftTo(a);
+			return subsetSearch(f, lifting.getFactors(), lifting.getModulus());
+		}
+		return latticeRecombination(f, p, lifting, a);
+	}
+
+	/**
+	 * Find a prime p that does not divide the leading coefficient and for which f mod p is square-free; among the
+	 * first PRIME_CANDIDATES such primes, take the one with the fewest modular factors.
+	 * @return the prime, or 0 if f is irreducible modulo one of them (and therefore over the integers)
+	 */
+	private static long choosePrime(BigInteger[] f) {
+		long best = 0;
+		int bestCount = Integer.MAX_VALUE, candidates = 0;
+		BigInteger lc = IntegerPolynomialArithmetic.leadingCoefficient(f);
+		for (long p = 3; candidates < PRIME_CANDIDATES; p = BigInteger.valueOf(p).nextProbablePrime().longValue()) {
+			if (lc.mod(BigInteger.valueOf(p)).signum() == 0)
+				continue;
+			long[] g = PrimeFieldArithmetic.monic(IntegerPolynomialArithmetic.toResidues(f, p), p);
+			if (!PrimeFieldArithmetic.isOne(PrimeFieldArithmetic.gcd(g, PrimeFieldArithmetic.derivative(g, p), p)))
+				continue;
+
+			candidates++;
+			int count = 0;
+			for (PrimeFieldArithmetic.Factor block : PrimeFieldArithmetic.distinctDegreeFactorization(g, p))
+				count += (block.polynomial.length - 1) / block.multiplicity;
+			if (count == 1)
+				return 0;
+			if (count < bestCount) {
+				best = p;
+				bestCount = count;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return the smallest a with p^a > 2 |lc(f)| B, where B is the Landau-Mignotte bound on the coefficients of
+	 * factors of f. Then lc(f) times a product of modular factors determines an integer polynomial uniquely.
+	 */
+	private static int minimalExponent(BigInteger[] f, long p) {
+		int n = f.length - 1;
+		BigInteger norm = IntegerPolynomialArithmetic.normSquared(f).sqrt().add(BigInteger.ONE);
+		BigInteger binomial = BigInteger.ONE;
+		for (int i = 0; i < n / 2; i++)
+			binomial = binomial.multiply(BigInteger.valueOf(n - i)).divide(BigInteger.valueOf(i + 1));
+		BigInteger bound = IntegerPolynomialArithmetic.leadingCoefficient(f).abs().multiply(binomial).multiply(norm).shiftLeft(1);
+		return digits(bound, p);
+	}
+
+	/**
+	 * @return the smallest a with p^a > x
+	 */
+	private static int digits(BigInteger x, long p) {
+		BigInteger bp = BigInteger.valueOf(p), power = bp;
+		int a = 1;
+		while (power.compareTo(x) <= 0) {
+			power = power.multiply(bp);
+			a++;
+		}
+		return a;
+	}
+
+	/**
+	 * @return the primitive part of lc(f) times the product of the chosen modular factors, in the symmetric range
+	 */
+	private static BigInteger[] candidate(BigInteger[] f, BigInteger[][] factors, boolean[] chosen, BigInteger m) {
+		BigInteger[] product = new BigInteger[] { IntegerPolynomialArithmetic.leadingCoefficient(f).mod(m) };
+		for (int i = 0; i < factors.length; i++) {
+			if (chosen[i])
+				product = IntegerPolynomialArithmetic.multiplyMod(product, factors[i], m);
+		}
+		return IntegerPolynomialArithmetic.primitivePart(IntegerPolynomialArithmetic.symmetric(product, m));
+	}
+
+	/**
+	 * Zassenhaus' recombination: try the subsets of the modular factors by increasing size.
+	 */
+	private static ArrayList<BigInteger[]> subsetSearch(BigInteger[] f, BigInteger[][] factors, BigInteger m) {
+		ArrayList<BigInteger[]> result = new ArrayList<BigInteger[]>();
+		boolean[] used = new boolean[factors.length];
+		int remaining = factors.length;
+		for (int size = 1; 2 * size <= remaining; ) {
+			boolean[] chosen = firstSubset(used, size);
+			boolean found = false;
+			while (chosen != null) {
+				BigInteger[] g = candidate(f, factors, chosen, m);
+				BigInteger[] q = IntegerPolynomialArithmetic.divideExact(f, g);
+				if (q != null) {
+					result.add(g);
+					f = q;
+					for (int i = 0; i < used.length; i++)
+						used[i] |= chosen[i];
+					remaining -= size;
+					found = true;
+					break;
+				}
+				chosen = nextSubset(chosen, used);
+			}
+			if (!found)
+				size++;
+		}
+		result.add(f);
+		return result;
+	}
+
+	private static boolean[] firstSubset(boolean[] used, int size) {
+		boolean[] chosen = new boolean[used.length];
+		for (int i = 0; i < used.length && size > 0; i++) {
+			if (!used[i]) {
+				chosen[i] = true;
+				size--;
+			}
+		}
+		return chosen;
+	}
+
+	/**
+	 * @return the next subset of the unused indices of the same size in lexicographic order, or null if there is none
+	 */
+	private static boolean[] nextSubset(boolean[] chosen, boolean[] used) {
+		/* find the highest chosen index that can move up, then move it up and pack the following ones behind it */
+		int carried = 0;
+		for (int i = chosen.length - 1; i >= 0; i--) {
+			if (!chosen[i])
+				continue;
+			int j = i + 1;
+			while (j < chosen.length && used[j])
+				j++;
+			int free = 0;
+			for (int k = j; k < chosen.length; k++) {
+				if (!used[k])
+					free++;
+			}
+			chosen[i] = false;
+			if (free > carried) {
+				chosen[j] = true;
+				for (int k = j + 1; k < chosen.length && carried > 0; k++) {
+					if (!used[k]) {
+						chosen[k] = true;
+						carried--;
+					}
+				}
+				return chosen;
+			}
+			carried++;
+		}
+		return null;
+	}
+
+	/**
+	 * Van Hoeij's recombination, in the variant with truncated traces by Belabas.
+	 *
+	 * The power sums Tr_j(g_i) of the roots of the lifted modular factors g_i, scaled by lc(f)^j, are additive, and for
+	 * every true factor h of f, the sum over its modular factors is an integer bounded by B_j = n (|lc(f)| R)^j, where R
+	 * bounds the absolute values of the roots of f. Removing the lowest b_j digits (p^b_j >= B_j) of the traces
+	 * leaves residues modulo p^(a - b_j) that sum to at most r/2 + 1 in absolute value for every true factor.
+	 *
+	 * The lattice is spanned by the rows (M_i, M_i * T) and (0, p^(a - b_j) e_j), where the rows M_i of the current
+	 * basis M start as the unit vectors. The 0/1 vectors of the true factors (and their combinations) are short vectors
+	 * of it, so after LLL, they lie in the span of the vectors before the first one whose Gram-Schmidt norm exceeds
+	 * their norm bound; the projections of these vectors to the first r coordinates form the new M. Once M has as many
+	 * rows as there are true factors, its reduced row echelon form consists of the 0/1 vectors themselves.
+	 */
+	private static ArrayList<BigInteger[]> latticeRecombination(BigInteger[] f, long p, HenselLifting lifting, int minimalExponent) {
+		int n = f.length - 1;
+		int r = lifting.getFactors().length;
+		BigInteger bp = BigInteger.valueOf(p);
+		BigInteger lc = IntegerPolynomialArithmetic.leadingCoefficient(f);
+
+		/* Cauchy: |root| < 1 + max |f_i / lc|, so |lc root| < |lc| + max |f_i| */
+		BigInteger lcRootBound = BigInteger.ZERO;
+		for (int i = 0; i < n; i++)
+			lcRootBound = lcRootBound.max(f[i].abs());
+		lcRootBound = lcRootBound.add(lc.abs());
+		/* cut[j] is the smallest b with p^b >= B_j */
+		int[] cut = new int[n + 1];
+		BigInteger traceBound = BigInteger.valueOf(n);
+		for (int j = 1; j <= n; j++) {
+			traceBound = traceBound.multiply(lcRootBound);
+			cut[j] = digits(traceBound.subtract(BigInteger.ONE), p);
+		}
+
+		BigInteger[][] m = new BigInteger[r][r];
+		for (int i = 0; i < r; i++) {
+			for (int l = 0; l < r; l++)
+				m[i][l] = i == l ? BigInteger.ONE : BigInteger.ZERO;
+		}
+		int a = Math.max(minimalExponent, cut[Math.min(n, TRACES_PER_ROUND)] + extraDigits(r, p, r));
+		for (int doublings = 0; doublings <= MAX_PRECISION_DOUBLINGS; doublings++, a *= 2) {
+			lifting.liftTo(a);
+			BigInteger modulus = lifting.getModulus();
+			BigInteger[][] factors = lifting.getFactors();
+			BigInteger[][] traces = traces(factors, lc, n, modulus);
+
+			int next = 1;
+			while (next <= n) {
+				int s = m.length;
+				int extra = extraDigits(s, p, r);
+				int k = 0;
+				while (k < TRACES_PER_ROUND && next + k <= n && a - cut[next + k] >= extra)
+					k++;
+				if (k == 0)
+					break;
+
+				BigInteger[][] rows = new BigInteger[s + k][r + k];
+				for (int i = 0; i < s + k; i++) {
+					for (int l = 0; l < r + k; l++)
+						rows[i][l] = i < s && l < r ? m[i][l] : BigInteger.ZERO;
+				}
+				for (int c = 0; c < k; c++) {
+					int j = next + c;
+					BigInteger low = bp.pow(cut[j]);
+					BigInteger high = bp.pow(a - cut[j]);
+					BigInteger[] truncated = new BigInteger[r];
+					for (int l = 0; l < r; l++)
+						truncated[l] = traces[l][j].subtract(symmetric(traces[l][j], low)).divide(low);
+					for (int i = 0; i < s; i++) {
+						BigInteger sum = BigInteger.ZERO;
+						for (int l = 0; l < r; l++) {
+							if (m[i][l].signum() != 0)
+								sum = sum.add(m[i][l].multiply(truncated[l]));
+						}
+						rows[i][r + c] = symmetric(sum, high);
+					}
+					rows[s + c][r + c] = high;
+				}
+				next += k;
+
+				LatticeReduction lattice = new LatticeReduction(rows);
+				lattice.reduce();
+				/* the 0/1 vectors have norm^2 <= r + k (r/2 + 1)^2 */
+				BigInteger bound = BigInteger.valueOf(r).add(BigInteger.valueOf(k).multiply(BigInteger.valueOf((r + 2) * (r + 2) / 4 + 1)));
+				int kept = s + k;
+				while (kept > 0 && lattice.gramSchmidtNormExceeds(kept - 1, bound))
+					kept--;
+
+				BigInteger[][] projected = new BigInteger[kept][];
+				for (int i = 0; i < kept; i++) {
+					projected[i] = new BigInteger[r];
+					System.arraycopy(lattice.getVector(i), 0, projected[i], 0, r);
+				}
+				if (kept == 0 || rank(projected) < kept) {
+					/* the precision was too small to separate the lattice; more digits are needed */
+					break;
+				}
+				m = projected;
+				if (m.length == 1) {
+					ArrayList<BigInteger[]> result = new ArrayList<BigInteger[]>();
+					result.add(f);
+					return result;
+				}
+
+				ArrayList<BigInteger[]> result = tryPartition(f, m, factors, modulus);
+				if (result != null)
+					return result;
+			}
+		}
+
+		return subsetSearch(f, lifting.getFactors(), lifting.getModulus());
+	}
+
+	/**
+	 * @return the number of digits in base p that have to be kept above the cut of a trace so that a lattice with s
+	 * basis vectors and TRACES_PER_ROUND new columns separates the short vectors from the rest
+	 */
+	private static int extraDigits(int s, long p, int r) {
+		int d = s + TRACES_PER_ROUND;
+		double logBound = Math.log((double)r + TRACES_PER_ROUND * (r + 2.0) * (r + 2.0) / 4) / Math.log(2) / 2;
+		double bits = (double)d / TRACES_PER_ROUND * (d / 16.0 + logBound + 2);
+		return (int)Math.ceil(bits / (Math.log(p) / Math.log(2)));
+	}
+
+	private static BigInteger symmetric(BigInteger x, BigInteger m) {
+		BigInteger c = x.mod(m);
+		return c.compareTo(m.shiftRight(1)) > 0 ? c.subtract(m) : c;
+	}
+
+	/**
+	 * @return the power sums lc^j Tr_j(g_i) of the roots of the monic factors g_i for j = 1..n (index j of the rows),
+	 * modulo m, by Newton's identities
+	 */
+	private static BigInteger[][] traces(BigInteger[][] factors, BigInteger lc, int n, BigInteger m) {
+		BigInteger[][] result = new BigInteger[factors.length][n + 1];
+		for (int i = 0; i < factors.length; i++) {
+			BigInteger[] g = factors[i];
+			int d = g.length - 1;
+			BigInteger[] power = result[i];
+			power[0] = BigInteger.valueOf(d);
+			for (int j = 1; j <= n; j++) {
+				/* p_j = -(j c_(d-j) + sum_(l=1)^(j-1) c_(d-l) p_(j-l)), with c_(d-j) = 0 for j > d */
+				BigInteger acc = j <= d ? g[d - j].multiply(BigInteger.valueOf(j)) : BigInteger.ZERO;
+				for (int l = 1; l < j && l <= d; l++)
+					acc = acc.add(g[d - l].multiply(power[j - l]));
+				power[j] = acc.negate().mod(m);
+			}
+			/* scaled only now, since Newton's identities need the plain power sums */
+			BigInteger scale = BigInteger.ONE;
+			for (int j = 1; j <= n; j++) {
+				scale = scale.multiply(lc).mod(m);
+				power[j] = power[j].multiply(scale).mod(m);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the rank of an integer matrix, by fraction-free elimination
+	 */
+	private static int rank(BigInteger[][] a) {
+		if (a.length == 0)
+			return 0;
+		BigInteger[][] m = new BigInteger[a.length][];
+		for (int i = 0; i < a.length; i++)
+			m[i] = a[i].clone();
+		int rank = 0;
+		for (int col = 0; col < m[0].length && rank < m.length; col++) {
+			int pivot = rank;
+			while (pivot < m.length && m[pivot][col].signum() == 0)
+				pivot++;
+			if (pivot == m.length)
+				continue;
+			BigInteger[] t = m[pivot];
+			m[pivot] = m[rank];
+			m[rank] = t;
+			for (int i = rank + 1; i < m.length; i++) {
+				if (m[i][col].signum() == 0)
+					continue;
+				BigInteger c = m[i][col], dd = m[rank][col];
+				for (int j = col; j < m[i].length; j++)
+					m[i][j] = m[i][j].multiply(dd).subtract(m[rank][j].multiply(c));
+				BigInteger g = BigInteger.ZERO;
+				for (int j = col; j < m[i].length; j++)
+					g = g.gcd(m[i][j]);
+				if (g.compareTo(BigInteger.ONE) > 0) {
+					for (int j = col; j < m[i].length; j++)
+						m[i][j] = m[i][j].divide(g);
+				}
+			}
+			rank++;
+		}
+		return rank;
+	}
+
+	/**
+	 * Compute the reduced row echelon form of M; if it describes a partition of the modular factors (every row a 0/1
+	 * vector, every column with exactly one 1), check the corresponding candidates by trial division.
+	 * @return the factors of f, or null if M does not yet reveal them
+	 */
+	private static ArrayList<BigInteger[]> tryPartition(BigInteger[] f, BigInteger[][] m, BigInteger[][] factors, BigInteger modulus) {
+		int s = m.length, r = m[0].length;
+		BigInteger[][] e = new BigInteger[s][];
+		for (int i = 0; i < s; i++)
+			e[i] = m[i].clone();
+
+		int row = 0;
+		for (int col = 0; col < r && row < s; col++) {
+			int pivot = row;
+			while (pivot < s && e[pivot][col].signum() == 0)
+				pivot++;
+			if (pivot == s)
+				continue;
+			BigInteger[] t = e[pivot];
+			e[pivot] = e[row];
+			e[row] = t;
+			/* the 0/1 rows of the echelon form have a pivot 1, so the pivot row has to be divisible by its pivot */
+			BigInteger pv = e[row][col];
+			for (int j = 0; j < r; j++) {
+				BigInteger[] qr = e[row][j].divideAndRemainder(pv);
+				if (qr[1].signum() != 0)
+					return null;
+				e[row][j] = qr[0];
+			}
+			for (int i = 0; i < s; i++) {
+				if (i == row || e[i][col].signum() == 0)
+					continue;
+				BigInteger c = e[i][col];
+				for (int j = 0; j < r; j++)
+					e[i][j] = e[i][j].subtract(c.multiply(e[row][j]));
+			}
+			row++;
+		}
+
+		boolean[][] parts = new boolean[s][r];
+		for (int j = 0; j < r; j++) {
+			int ones = 0;
+			for (int i = 0; i < s; i++) {
+				if (e[i][j].signum() == 0)
+					continue;
+				if (!e[i][j].equals(BigInteger.ONE))
+					return null;
+				parts[i][j] = true;
+				ones++;
+			}
+			if (ones != 1)
+				return null;
+		}
+
+		/* the last part needs no trial division: its factor is the cofactor of the others */
+		ArrayList<BigInteger[]> result = new ArrayList<BigInteger[]>();
+		for (int i = 0; i < s - 1; i++) {
+			BigInteger[] g = candidate(f, factors, parts[i], modulus);
+			BigInteger[] q = IntegerPolynomialArithmetic.divideExact(f, g);
+			if (q == null || g.length <= 1)
+				return null;
+			result.add(g);
+			f = q;
+		}
+		if (f.length <= 1)
+			return null;
+		result.add(f);
+		return result;
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * Square-free decomposition of polynomials over the integers and over the rationals by Yun's algorithm.
+ *
+ * In characteristic zero, with c = gcd(f, f'), w = f / c and y = f' / c, the i-th step computes
+ * g_i = gcd(w, y - w') as the product of all irreducible factors of multiplicity exactly i, and continues with
+ * w / g_i and (y - w') / g_i. The derivative of f is computed once, every further derivative only of the shrinking w,
+ * and the cofactors are exact quotients. Rational polynomials are scaled to integer polynomials first, so that all
+ * greatest common divisors are computed on BigIntegers instead of with fractions, by the modular algorithm of
+ * MultiModularGcd, whose cost does not suffer from the coefficient growth of remainder sequences over Z.
+ *
+ * The problem instance is a single nonzero Polynomial over the IntegerRing or the RationalsField. Over the integers,
+ * the factors of the result are primitive with positive leading coefficients, and its unit is the content of the
+ * polynomial, with the sign of its leading coefficient. Over the rationals, the factors are monic and the unit is the
+ * leading coefficient. The factors are ordered by increasing exponent.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.polynomials;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+
+import de.phwbrnr.lina.main.fields.Factorization;
+import de.phwbrnr.lina.main.fields.Fraction;
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.IntegerRing;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.RationalsField;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.strategies.AbstractStrategy;
+
+public class YunSquareFreeDecomposition extends AbstractStrategy<Factorization> {
+
+	@Override
+	public String getDescription() {
+		return "Compute the square-free decomposition of a polynomial over the integers or rationals by Yun's algorithm";
+	}
+
+	@Override
+	public boolean appliesTo(Object... problem) {
+		return problem.length == 1 && problem[0] instanceof Polynomial
+				&& (((Polynomial)problem[0]).getRing() instanceof IntegerRing || ((Polynomial)problem[0]).getRing() instanceof RationalsField)
+				&& !((Polynomial)problem[0]).isZero();
+	}
+
+	@Override
+	public int expectedCost(Object... problem) {
+		if (!appliesTo(problem))
+			return 100;
+		double n = ((Polynomial)problem[0]).getDegree() + 1;
+		/* a few modular gcds, each a quadratic gcd modulo about n / 30 primes, and the quadratic trial divisions */
+		return costFromOperations(4 * n * n * n / 30 + 4 * n * n);
+	}
+
+	@Override
+	public Factorization execute(Object... problem) {
+		if (!appliesTo(problem))
+			throw new IllegalArgumentException("Unapplicable problem instance. Only pass a single nonzero polynomial over the integers or rationals");
+
+		Polynomial f = (Polynomial)problem[0];
+		boolean rational = f.getRing() instanceof RationalsField;
+		BigInteger[] a = rational ? IntegerPolynomialArithmetic.fromRationalPolynomial(f) : IntegerPolynomialArithmetic.fromPolynomial(f);
+		BigInteger[] primitive = IntegerPolynomialArithmetic.primitivePart(a);
+		ArrayList<IntegerPolynomialArithmetic.Factor> decomposition = primitive.length > 1
+				? IntegerPolynomialArithmetic.squareFreeDecomposition(primitive)
+				: new ArrayList<IntegerPolynomialArithmetic.Factor>();
+
+		RingElement[] factors = new RingElement[decomposition.size()];
+		int[] exponents = new int[factors.length];
+		try {
+			for (int i = 0; i < factors.length; i++) {
+				BigInteger[] g = decomposition.get(i).polynomial;
+				factors[i] = rational ? monicRational(g) : IntegerPolynomialArithmetic.toPolynomial(g);
+				exponents[i] = decomposition.get(i).multiplicity;
+			}
+		} catch (OperationUndefinedException ex) {
+			throw new IllegalStateException("Unable to make a square-free factor monic", ex);
+		}
+
+		RingElement unit;
+		if (rational) {
+			unit = f.getLeadingCoefficient();
+		} else {
+			BigInteger content = IntegerPolynomialArithmetic.content(a);
+			unit = new IntegerElement(IntegerPolynomialArithmetic.leadingCoefficient(a).signum() < 0 ? content.negate() : content);
+		}
+		return new Factorization(unit, factors, exponents);
+	}
+
+	private static Polynomial monicRational(BigInteger[] g) throws OperationUndefinedException {
+		IntegerElement lc = new IntegerElement(IntegerPolynomialArithmetic.leadingCoefficient(g));
+		RingElement[] c = new RingElement[g.length];
+		for (int i = 0; i < g.length; i++)
+			c[i] = new Fraction(new IntegerElement(g[i]), lc);
+		return new Polynomial(RationalsField.getInstance(), c, true);
+	}
+}
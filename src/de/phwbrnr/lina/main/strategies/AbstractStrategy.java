@@ -8,4 +8,15 @@
 package de.phwbrnr.lina.main.strategies;
 
 public abstract class AbstractStrategy<ResultType> implements Strategy<ResultType> {
+	/**
+	 * Translate an estimated number of elementary operations into the 0 to 100 scale of expectedCost().
+	 * The scale is logarithmic, so strategies of the same computation that estimate their operation counts can be
+	 * compared with each other; the result is always at least 1 and at most 99.
+	 */
+	protected static int costFromOperations(double operations) {
+		if (!(operations > 2))
+			return 1;
+		long cost = Math.round(2 * Math.log(operations) / Math.log(2));
+		return (int)Math.max(1, Math.min(99, cost));
+	}
 }
@@ -50,7 +50,7 @@ public abstract class Computation<ResultType> {
 				applicable.add(s);
 		}
 		
-		return (Strategy<ResultType>[])(applicable.toArray());
+		return (Strategy<ResultType>[])(applicable.toArray(new Strategy<?>[applicable.size()]));
 	}
 	
 	/**
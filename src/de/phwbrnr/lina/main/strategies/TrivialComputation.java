@@ -20,7 +20,7 @@ public class TrivialComputation<ResultType> extends Computation<ResultType> {
 		LinkedList<Strategy<ResultType>> templist = new LinkedList<Strategy<ResultType>>();
 		templist.add(singleStrategy);
 		@SuppressWarnings("unchecked")
-		Strategy<ResultType>[] array = (Strategy<ResultType>[])templist.toArray();
+		Strategy<ResultType>[] array = (Strategy<ResultType>[])templist.toArray(new Strategy<?>[1]);
 		strategyList = array;
 	}
 	
@@ -15,7 +15,7 @@ public class Uncomputation<ResultType> extends Computation<ResultType> {
 	@SuppressWarnings("unchecked")
 	public Uncomputation (String notice) {
 		this.notice = notice;
-		strategies = (Strategy<ResultType>[]) (new ArrayList<Strategy.WrapStrategy<ResultType>>()).toArray();
+		strategies = (Strategy<ResultType>[]) (new ArrayList<Strategy.WrapStrategy<ResultType>>()).toArray(new Strategy<?>[0]);
 	}
 	
 	@Override
@@ -11,7 +11,9 @@ public class FieldTest extends AbstractTestClass {
 	public FieldTest() {
 		tests = new AbstractTestClass[] {
 				new TestIntegers(),
-				new TestRationals()
+				new TestRationals(),
+				new TestPrimeFields(),
+				new TestChineseRemainder()
 		};
 	}
 	
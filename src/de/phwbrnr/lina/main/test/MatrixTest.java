@@ -0,0 +1,47 @@
+/**
+ * Perform tests on the subpackage main.matrices. Can be aggregated further through AbstractTestClass or invoked directly
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.test;
+
+public class MatrixTest extends AbstractTestClass {
+	private AbstractTestClass[] tests;
+
+	public MatrixTest() {
+		tests = new AbstractTestClass[] {
+				new TestMatrices()
+		};
+	}
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		MatrixTest test = new MatrixTest();
+
+		boolean result = test.performTests();
+		System.out.println();
+
+		if(result)
+			System.out.println("MatrixTest: All Tests okay");
+		else
+			System.out.println("MatrixTest: Some tests failed");
+	}
+
+	@Override
+	public boolean performTests() {
+		boolean result = true;
+		for(int i = 0; i < tests.length; i++) {
+			printHeader("MatrixTest [#" + i + "]: " + tests[i].getDescription());
+			result = result & tests[i].performTests();
+		}
+		return result;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Perform tests on de.phwbrnr.lina.main.matrices";
+	}
+
+}
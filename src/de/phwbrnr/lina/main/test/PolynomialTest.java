@@ -0,0 +1,50 @@
+/**
+ * Perform tests on the subpackage main.polynomials. Can be aggregated further through AbstractTestClass or invoked directly
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.test;
+
+public class PolynomialTest extends AbstractTestClass {
+	private AbstractTestClass[] tests;
+
+	public PolynomialTest() {
+		tests = new AbstractTestClass[] {
+				new TestPolynomials(),
+				new TestPowerSeries(),
+				new TestMultivariate(),
+				new TestGroebner()
+		};
+	}
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		PolynomialTest test = new PolynomialTest();
+
+		boolean result = test.performTests();
+		System.out.println();
+
+		if(result)
+			System.out.println("PolynomialTest: All Tests okay");
+		else
+			System.out.println("PolynomialTest: Some tests failed");
+	}
+
+	@Override
+	public boolean performTests() {
+		boolean result = true;
+		for(int i = 0; i < tests.length; i++) {
+			printHeader("PolynomialTest [#" + i + "]: " + tests[i].getDescription());
+			result = result & tests[i].performTests();
+		}
+		return result;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Perform tests on de.phwbrnr.lina.main.polynomials";
+	}
+
+}
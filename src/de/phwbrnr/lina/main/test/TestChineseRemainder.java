@@ -0,0 +1,330 @@
+/**
+ * Test Chinese remaindering, rational reconstruction and multi-modular lifting from the fields package
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import de.phwbrnr.lina.main.fields.ChineseRemainderAccumulator;
+import de.phwbrnr.lina.main.fields.ChineseRemainderTree;
+import de.phwbrnr.lina.main.fields.Fraction;
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.IntegerRing;
+import de.phwbrnr.lina.main.fields.MultiModularStrategy;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.RationalReconstruction;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.polynomials.FieldPolynomialRing;
+import de.phwbrnr.lina.main.polynomials.Polynomial;
+
+public class TestChineseRemainder extends AbstractTestClass {
+	IntegerRing integers;
+
+	public TestChineseRemainder() {
+		integers = IntegerRing.getInstance();
+	}
+
+	private boolean testIntegers() {
+		try {
+			Random random = new Random(36);
+			IntegerElement[] primes = primesBelow(PrimeField.MAX_CHARACTERISTIC, 2000);
+			ChineseRemainderTree tree = new ChineseRemainderTree(integers, primes);
+			BigInteger product = ((IntegerElement)tree.getProduct()).getBigValue();
+			assertThat(product.bitLength() > 61000, "The product of 2000 primes below 2^31 has more than 61000 bits");
+
+			BigInteger x = new BigInteger(60000, random).negate();
+			RingElement[] residues = tree.reduce(new IntegerElement(x));
+			boolean reduced = true;
+			for (int i = 0; i < primes.length; i += 97)
+				reduced &= ((IntegerElement)residues[i]).getBigValue().equals(x.mod(primes[i].getBigValue()));
+			assertThat(reduced, "The remainder tree reduces modulo every prime");
+			RingElement combined = tree.combine(residues);
+			assertThat(((IntegerElement)combined).getBigValue().equals(x.mod(product)), "Combining the residues gives the canonical remainder");
+			assertThat(ChineseRemainderTree.symmetric((IntegerElement)combined, (IntegerElement)tree.getProduct()).getBigValue().equals(x),
+					"The symmetric representative is the original negative integer");
+
+			ChineseRemainderAccumulator accumulator = new ChineseRemainderAccumulator(integers);
+			for (int i = 0; i < primes.length; i++)
+				accumulator.add(residues[i], primes[i]);
+			assertThat(accumulator.getModulus().equals(tree.getProduct()), "Garner accumulation ends with the same modulus");
+			assertThat(((IntegerElement)accumulator.getValue()).getBigValue().equals(x), "Garner accumulation agrees with the product tree");
+
+			/* a small value is recognized long before all primes are used */
+			BigInteger y = new BigInteger(200, random);
+			accumulator = new ChineseRemainderAccumulator(integers);
+			int used = 0;
+			while (!accumulator.isStable(3))
+				accumulator.add(new IntegerElement(y.mod(primes[used].getBigValue())), primes[used++]);
+			assertThat(used <= 12 && ((IntegerElement)accumulator.getValue()).getBigValue().equals(y),
+					"Early termination after " + used + " primes for a 200 bit integer");
+
+			assertThat(tree.combine(tree.reduce(new IntegerElement(7))).equals(new IntegerElement(7)), "Small values pass through unchanged");
+			ChineseRemainderTree small = new ChineseRemainderTree(integers, new IntegerElement(3), new IntegerElement(-5), new IntegerElement(7));
+			assertThat(small.combine(new IntegerElement(2), new IntegerElement(3), new IntegerElement(2)).equals(new IntegerElement(23)),
+					"x = 2 mod 3, x = 3 mod 5, x = 2 mod 7 gives 23 modulo 105");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testIntegers: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testPolynomials() {
+		try {
+			PrimeField fp = PrimeField.getInstance(1000003);
+			FieldPolynomialRing ring = new FieldPolynomialRing(fp);
+			Random random = new Random(37);
+
+			/* remaindering modulo X - a_i is interpolation at the points a_i */
+			int n = 64;
+			RingElement[] moduli = new RingElement[n];
+			RingElement[] points = new RingElement[n];
+			for (int i = 0; i < n; i++) {
+				points[i] = fp.element(3 * i + 1);
+				moduli[i] = new Polynomial(fp, points[i].negative(), fp.getOne());
+			}
+			ChineseRemainderTree tree = new ChineseRemainderTree(ring, moduli);
+			RingElement[] coefficients = new RingElement[n];
+			for (int i = 0; i < n; i++)
+				coefficients[i] = fp.element(random.nextInt(1000003));
+			Polynomial f = new Polynomial(fp, coefficients);
+			RingElement[] residues = tree.reduce(f);
+			RingElement[] values = f.evaluateAll(points);
+			boolean evaluated = true;
+			for (int i = 0; i < n; i++)
+				evaluated &= residues[i].equals(new Polynomial(fp, values[i]));
+			assertThat(evaluated, "Residues modulo X - a are the values at a");
+			assertThat(tree.combine(values).equals(f), "Combining the values interpolates");
+
+			/* moduli of different degrees */
+			Polynomial g = new Polynomial(fp, fp.element(5), fp.element(0), fp.element(2), fp.element(1), fp.element(9), fp.element(4));
+			ChineseRemainderTree mixed = new ChineseRemainderTree(ring, new Polynomial(fp, fp.getOne(), fp.getZero(), fp.getOne()),
+					new Polynomial(fp, fp.element(2), fp.getOne()), new Polynomial(fp, fp.element(7), fp.element(1), fp.getZero(), fp.getOne()));
+			assertThat(mixed.combine(mixed.reduce(g)).equals(g), "Reconstruction modulo X^2 + 1, X + 2, X^3 + X + 7");
+
+			ChineseRemainderAccumulator accumulator = new ChineseRemainderAccumulator(ring);
+			RingElement[] mixedModuli = mixed.getModuli();
+			RingElement[] mixedResidues = mixed.reduce(g);
+			for (int i = 0; i < mixedModuli.length; i++)
+				accumulator.add(mixedResidues[i], mixedModuli[i]);
+			assertThat(accumulator.getValue().equals(g), "Garner accumulation of polynomials");
+
+			/* (1 + X)/(1 - 2X) from its power series modulo X^6 */
+			Polynomial numerator = new Polynomial(fp, fp.getOne(), fp.getOne());
+			Polynomial denominator = new Polynomial(fp, fp.getOne(), fp.element(-2));
+			Polynomial x6 = new Polynomial(fp, 6, fp.getOne());
+			Polynomial series = new Polynomial(fp, fp.element(1), fp.element(3), fp.element(6), fp.element(12), fp.element(24), fp.element(48));
+			RingElement[] ab = RationalReconstruction.reconstruct(ring, series, x6, 2);
+			assertThat(ab[0].multiply(denominator).equals(ab[1].multiply(numerator)), "Pade approximation of (1 + X)/(1 - 2X)");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testPolynomials: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testRationalReconstruction() {
+		try {
+			IntegerElement p = new IntegerElement(PrimeField.MAX_CHARACTERISTIC - 1);
+			Fraction expected = new Fraction(new IntegerElement(-7), new IntegerElement(18));
+			IntegerElement residue = new IntegerElement(BigInteger.valueOf(-7).multiply(BigInteger.valueOf(18).modInverse(p.getBigValue())));
+			assertThat(RationalReconstruction.reconstruct(residue, p).equals(expected), "Reconstruct -7/18 modulo 2^31 - 1");
+			try {
+				RationalReconstruction.reconstruct(residue, p, new IntegerElement(100), new IntegerElement(10));
+				System.out.println("Fail: Expected OperationUndefinedException for a denominator above the bound");
+				return false;
+			} catch (OperationUndefinedException ex) {
+				System.out.println("Correct OperationUndefinedException");
+			}
+
+			/* the accumulator recognizes a fraction with 100 bit numerator and denominator */
+			Random random = new Random(38);
+			BigInteger a = new BigInteger(100, random).negate(), b = new BigInteger(100, random).setBit(99);
+			Fraction fraction = new Fraction(new IntegerElement(a), new IntegerElement(b));
+			IntegerElement[] primes = primesBelow(1L << 30, 20);
+			ChineseRemainderAccumulator accumulator = new ChineseRemainderAccumulator(integers, true);
+			int used = 0;
+			while (!accumulator.isStable(2)) {
+				BigInteger q = primes[used].getBigValue();
+				accumulator.add(new IntegerElement(a.multiply(b.modInverse(q)).mod(q)), primes[used++]);
+			}
+			assertThat(accumulator.getRationalValue().equals(fraction), "Rational reconstruction from " + used + " primes");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testRationalReconstruction: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testMultiModular() {
+		try {
+			/* the harmonic number H_60, without a bound: the lifting stops when the fraction stabilizes */
+			final int n = 60;
+			RingElement harmonic = integers.getZero();
+			for (int k = 1; k <= n; k++)
+				harmonic = new Fraction(new IntegerElement(1), new IntegerElement(k)).add(harmonic);
+			MultiModularStrategy<RingElement> harmonicStrategy = new MultiModularStrategy<RingElement>() {
+				public String getDescription() {
+					return "Harmonic numbers";
+				}
+				public boolean appliesTo(Object... problem) {
+					return true;
+				}
+				public int expectedCost(Object... problem) {
+					return 1;
+				}
+				protected boolean rationalCoordinates(Object... instance) {
+					return true;
+				}
+				protected long[] image(long p, Object... instance) {
+					long sum = 0;
+					for (int k = 1; k <= n; k++)
+						sum = (sum + BigInteger.valueOf(k).modInverse(BigInteger.valueOf(p)).longValue()) % p;
+					return new long[] { sum };
+				}
+				protected RingElement assemble(RingElement[] coordinates, Object... instance) {
+					return coordinates[0];
+				}
+			};
+			assertThat(harmonicStrategy.execute().equals(harmonic), "H_60 by rational reconstruction and early termination");
+
+			/* 3^200 - 5^100 with a bound, where some primes are known to be unlucky and some produce spurious images */
+			final BigInteger x = BigInteger.valueOf(3).pow(200).subtract(BigInteger.valueOf(5).pow(100));
+			final int[] skipped = new int[2];
+			MultiModularStrategy<RingElement> unluckyStrategy = new MultiModularStrategy<RingElement>() {
+				public String getDescription() {
+					return "Powers with unlucky primes";
+				}
+				public boolean appliesTo(Object... problem) {
+					return true;
+				}
+				public int expectedCost(Object... problem) {
+					return 1;
+				}
+				protected long coordinateBits(Object... instance) {
+					return x.bitLength();
+				}
+				protected long[] image(long p, Object... instance) {
+					long residue = x.mod(BigInteger.valueOf(p)).longValue();
+					if (p % 5 == 2) {
+						synchronized (skipped) {
+							skipped[0]++;
+						}
+						return null;
+					}
+					if (p % 3 == 1) {
+						synchronized (skipped) {
+							skipped[1]++;
+						}
+						return new long[] { residue, 1 };
+					}
+					return new long[] { residue };
+				}
+				protected RingElement assemble(RingElement[] coordinates, Object... instance) {
+					return coordinates[0];
+				}
+			};
+			assertThat(unluckyStrategy.execute().equals(new IntegerElement(x)),
+					"3^200 - 5^100 despite " + skipped[0] + " skipped and " + skipped[1] + " spurious images");
+			assertThat(skipped[0] > 0 && skipped[1] > 0, "Unlucky primes occurred");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testMultiModular: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testErrors() {
+		try {
+			try {
+				new ChineseRemainderTree(integers, new IntegerElement(6), new IntegerElement(5), new IntegerElement(4));
+				System.out.println("Fail: Expected OperationUndefinedException for moduli that are not coprime");
+				return false;
+			} catch (OperationUndefinedException ex) {
+				System.out.println("Correct OperationUndefinedException");
+			}
+			try {
+				ChineseRemainderAccumulator accumulator = new ChineseRemainderAccumulator(integers);
+				accumulator.add(new IntegerElement(1), new IntegerElement(10));
+				accumulator.add(new IntegerElement(1), new IntegerElement(15));
+				System.out.println("Fail: Expected OperationUndefinedException for moduli that are not coprime");
+				return false;
+			} catch (OperationUndefinedException ex) {
+				System.out.println("Correct OperationUndefinedException");
+			}
+			try {
+				new ChineseRemainderTree(integers, new IntegerElement(3)).combine(new IntegerElement(1), new IntegerElement(2));
+				System.out.println("Fail: Expected IllegalArgumentException for the wrong number of residues");
+				return false;
+			} catch (IllegalArgumentException ex) {
+				System.out.println("Correct IllegalArgumentException");
+			}
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testErrors: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the largest primes below the bound
+	 */
+	private static IntegerElement[] primesBelow(long bound, int count) {
+		IntegerElement[] primes = new IntegerElement[count];
+		BigInteger p = BigInteger.valueOf(bound);
+		for (int i = 0; i < count; ) {
+			p = p.subtract(BigInteger.ONE);
+			if (p.isProbablePrime(40))
+				primes[i++] = new IntegerElement(p);
+		}
+		return primes;
+	}
+
+	@Override
+	public boolean performTests() {
+		boolean result = true;
+
+		printHeader("Integers");
+		result = result && testIntegers();
+
+		printHeader("Polynomials over a prime field");
+		result = result && testPolynomials();
+
+		printHeader("Rational reconstruction");
+		result = result && testRationalReconstruction();
+
+		printHeader("Multi-modular lifting");
+		result = result && testMultiModular();
+
+		printHeader("Errors");
+		result = result && testErrors();
+
+		return result;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Test Chinese remaindering, rational reconstruction and multi-modular lifting";
+	}
+}
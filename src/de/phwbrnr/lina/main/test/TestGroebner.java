@@ -0,0 +1,361 @@
+/**
+ * Test the Groebner basis strategies of multivariate polynomial rings.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import de.phwbrnr.lina.main.fields.Fraction;
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.IntegerRing;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.RationalsField;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.polynomials.BuchbergerGroebner;
+import de.phwbrnr.lina.main.polynomials.F4Groebner;
+import de.phwbrnr.lina.main.polynomials.MonomialOrder;
+import de.phwbrnr.lina.main.polynomials.MultiModularGroebner;
+import de.phwbrnr.lina.main.polynomials.MultivariatePolynomial;
+import de.phwbrnr.lina.main.polynomials.MultivariatePolynomialRing;
+import de.phwbrnr.lina.main.strategies.NoStrategyException;
+
+public class TestGroebner extends AbstractTestClass {
+	private RationalsField rationals;
+	private PrimeField field;
+
+	public TestGroebner() {
+		rationals = RationalsField.getInstance();
+		field = PrimeField.getInstance(32003);
+	}
+
+	private boolean testRationals() {
+		try {
+			/* x^3 - 2 x y, x^2 y - 2 y^2 + x: the reduced basis in graded lex order is x^2, x y, y^2 - x/2 */
+			MultivariatePolynomialRing ring = new MultivariatePolynomialRing(rationals, MonomialOrder.GRLEX, "x", "y");
+			MultivariatePolynomial[] f = new MultivariatePolynomial[] {
+					term(ring, 1, 1, 3, 0).add(term(ring, -2, 1, 1, 1)),
+					term(ring, 1, 1, 2, 1).add(term(ring, -2, 1, 0, 2), term(ring, 1, 1, 1, 0)) };
+			ArrayList<MultivariatePolynomial> expected = new ArrayList<MultivariatePolynomial>();
+			expected.add(term(ring, 1, 1, 2, 0));
+			expected.add(term(ring, 1, 1, 1, 1));
+			expected.add(term(ring, 1, 1, 0, 2).add(term(ring, -1, 2, 1, 0)));
+			assertThat(new BuchbergerGroebner().execute((Object[])f).equals(expected), "Buchberger's algorithm over Q");
+			assertThat(new MultiModularGroebner().execute((Object[])f).equals(expected), "Multi-modular F4 over Q");
+			assertThat(ring.groebnerBasis().compute((Object[])f).equals(expected), "The Groebner basis computation over Q");
+
+			/* x^2 + y^2 + z^2 - 1, x^2 + z^2 - y, x - z in lex order: x - z, y - 2 z^2, z^4 + z^2/2 - 1/4 */
+			ring = new MultivariatePolynomialRing(rationals, MonomialOrder.LEX, "x", "y", "z");
+			f = new MultivariatePolynomial[] {
+					term(ring, 1, 1, 2, 0, 0).add(term(ring, 1, 1, 0, 2, 0), term(ring, 1, 1, 0, 0, 2), term(ring, -1, 1, 0, 0, 0)),
+					term(ring, 1, 1, 2, 0, 0).add(term(ring, 1, 1, 0, 0, 2), term(ring, -1, 1, 0, 1, 0)),
+					term(ring, 1, 1, 1, 0, 0).add(term(ring, -1, 1, 0, 0, 1)) };
+			expected = new ArrayList<MultivariatePolynomial>();
+			expected.add(term(ring, 1, 1, 1, 0, 0).add(term(ring, -1, 1, 0, 0, 1)));
+			expected.add(term(ring, 1, 1, 0, 1, 0).add(term(ring, -2, 1, 0, 0, 2)));
+			expected.add(term(ring, 1, 1, 0, 0, 4).add(term(ring, 1, 2, 0, 0, 2), term(ring, -1, 4, 0, 0, 0)));
+			assertThat(new BuchbergerGroebner().execute((Object[])f).equals(expected), "Buchberger's algorithm in lex order");
+			assertThat(new MultiModularGroebner().execute((Object[])f).equals(expected), "Multi-modular F4 in lex order");
+
+			/* Katsura-3 has rational coefficients with large denominators in lex order */
+			ring = new MultivariatePolynomialRing(rationals, MonomialOrder.LEX, "u0", "u1", "u2", "u3");
+			f = katsura3(ring);
+			ArrayList<MultivariatePolynomial> basis = new MultiModularGroebner().execute((Object[])f);
+			assertThat(basis.equals(new BuchbergerGroebner().execute((Object[])f)), "Both strategies agree on Katsura-3 in lex order");
+			assertThat(isReducedBasisOf(basis, f), "The basis is reduced and contains the generators");
+			assertThat(basis.get(basis.size() - 1).getDegree(3) == 8, "The eliminant of Katsura-3 has degree 8");
+			assertThat(ring.groebnerBasis().findCheapestStrategy((Object[])f) instanceof BuchbergerGroebner,
+					"Buchberger's algorithm is chosen for the small Katsura-3 in lex order");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testRationals: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testPrimeFields() {
+		try {
+			for (MonomialOrder order : MonomialOrder.values()) {
+				MultivariatePolynomialRing ring = new MultivariatePolynomialRing(field, order, "a", "b", "c", "d");
+				MultivariatePolynomial[] f = cyclic(ring);
+				ArrayList<MultivariatePolynomial> basis = new F4Groebner().execute((Object[])f);
+				assertThat(basis.equals(new BuchbergerGroebner().execute((Object[])f)), "F4 and Buchberger agree on cyclic-4 in " + order);
+				assertThat(isReducedBasisOf(basis, f), "The basis of cyclic-4 is reduced and contains the generators");
+			}
+
+			MultivariatePolynomialRing ring = new MultivariatePolynomialRing(field, MonomialOrder.GREVLEX, "a", "b", "c", "d", "e");
+			MultivariatePolynomial[] f = cyclic(ring);
+			ArrayList<MultivariatePolynomial> basis = ring.groebnerBasis().compute((Object[])f);
+			assertThat(ring.groebnerBasis().findCheapestStrategy((Object[])f) instanceof F4Groebner, "F4 is chosen for cyclic-5 over F_p");
+			assertThat(basis.equals(new BuchbergerGroebner().execute((Object[])f)), "F4 and Buchberger agree on cyclic-5");
+			assertThat(isReducedBasisOf(basis, f), "The basis of cyclic-5 is reduced and contains the generators");
+
+			/* zero-dimensional systems in lex order, whose direct computation swells even with the sugar strategy */
+			MultivariatePolynomialRing lex = ring.withOrder(MonomialOrder.LEX);
+			MultivariatePolynomial[] h = cyclic(lex);
+			ArrayList<MultivariatePolynomial> lexBasis = new F4Groebner().execute((Object[])h);
+			assertThat(isReducedBasisOf(lexBasis, h) && generatedBy(lexBasis, basis), "The lex basis of cyclic-5 generates the same ideal");
+			assertThat(lexBasis.get(lexBasis.size() - 1).getDegree(4) == 15, "The eliminant of cyclic-5 has degree 15");
+			Random random = new Random(5);
+			lex = new MultivariatePolynomialRing(field, MonomialOrder.LEX, "w", "x", "y", "z");
+			h = new MultivariatePolynomial[] { randomQuadric(lex, random), randomQuadric(lex, random), randomQuadric(lex, random), randomQuadric(lex, random) };
+			lexBasis = new F4Groebner().execute((Object[])h);
+			ArrayList<MultivariatePolynomial> graded = lex.withOrder(MonomialOrder.GREVLEX).groebnerBasis().compute((Object[])convert(h, lex.withOrder(MonomialOrder.GREVLEX)));
+			assertThat(isReducedBasisOf(lexBasis, h) && generatedBy(lexBasis, graded), "The lex basis of four random quadrics generates the same ideal");
+			assertThat(lexBasis.size() == 4 && lexBasis.get(3).getDegree(3) == 16 && lexBasis.get(3).getTotalDegree() == 16,
+					"Four random quadrics have a lex basis in shape position with an eliminant of degree 16");
+			assertThat(lexBasis.equals(lex.groebnerBasis().compute((Object[])h)), "The Groebner basis computation in lex order");
+
+			/* the reduction of the rational basis of Katsura-3 is the basis over F_p */
+			MultivariatePolynomialRing q = new MultivariatePolynomialRing(rationals, MonomialOrder.GREVLEX, "u0", "u1", "u2", "u3");
+			MultivariatePolynomialRing fp = new MultivariatePolynomialRing(field, MonomialOrder.GREVLEX, "u0", "u1", "u2", "u3");
+			ArrayList<MultivariatePolynomial> reduced = new ArrayList<MultivariatePolynomial>();
+			for (MultivariatePolynomial g : q.groebnerBasis().compute((Object[])katsura3(q)))
+				reduced.add(reduce(g, fp));
+			assertThat(reduced.equals(fp.groebnerBasis().compute((Object[])katsura3(fp))), "Reduction modulo p commutes with the Groebner basis of Katsura-3");
+
+			/* 12 variables take monomials of two words */
+			String[] names = new String[12];
+			for (int i = 0; i < names.length; i++)
+				names[i] = "x" + i;
+			for (MonomialOrder order : MonomialOrder.values()) {
+				MultivariatePolynomialRing wide = new MultivariatePolynomialRing(field, order, names);
+				MultivariatePolynomial[] g = new MultivariatePolynomial[names.length];
+				for (int i = 0; i + 1 < names.length; i++)
+					g[i] = wide.variable(i).subtract(wide.variable(i + 1).multiply(wide.variable(i + 1)));
+				g[names.length - 1] = wide.variable(names.length - 1).multiply(wide.variable(0)).subtract(wide.getOne());
+				ArrayList<MultivariatePolynomial> wideBasis = new F4Groebner().execute((Object[])g);
+				assertThat(wideBasis.equals(new BuchbergerGroebner().execute((Object[])g)) && isReducedBasisOf(wideBasis, g),
+						"F4 and Buchberger agree on a system in 12 variables in " + order);
+			}
+
+			/* with 9 variables, the default packing holds degree 63; the computations repack when they outgrow it */
+			names = Arrays.copyOf(names, 9);
+			MultivariatePolynomialRing packed = new MultivariatePolynomialRing(field, MonomialOrder.LEX, names);
+			int[] e = new int[names.length];
+			e[0] = 2;
+			e[2] = 1;
+			MultivariatePolynomial[] g = new MultivariatePolynomial[] {
+					packed.variable(0).subtract(packed.monomial(field.getOne(), 0, 40, 0, 0, 0, 0, 0, 0, 0)),
+					packed.monomial(field.getOne(), e).subtract(packed.getOne()) };
+			ArrayList<MultivariatePolynomial> expected = new ArrayList<MultivariatePolynomial>();
+			expected.add(g[0]);
+			expected.add(packed.monomial(field.getOne(), 0, 80, 1, 0, 0, 0, 0, 0, 0).subtract(packed.getOne()));
+			assertThat(new F4Groebner().execute((Object[])g).equals(expected) && new BuchbergerGroebner().execute((Object[])g).equals(expected),
+					"A lex basis of degree 80 in 9 variables");
+			packed = packed.withOrder(MonomialOrder.GREVLEX);
+			g = new MultivariatePolynomial[] {
+					packed.monomial(field.getOne(), 40, 0, 0, 0, 0, 0, 0, 0, 0).subtract(packed.variable(1)),
+					packed.monomial(field.getOne(), 1, 0, 30, 0, 0, 0, 0, 0, 0).subtract(packed.getOne()) };
+			ArrayList<MultivariatePolynomial> packedBasis = new F4Groebner().execute((Object[])g);
+			assertThat(packedBasis.equals(new BuchbergerGroebner().execute((Object[])g)) && isReducedBasisOf(packedBasis, g),
+					"F4 and Buchberger agree on a graded basis whose lcms exceed degree 63");
+
+			/* the unit and the zero ideal, and a small system for which Buchberger's algorithm is cheaper */
+			MultivariatePolynomial x = ring.variable("a");
+			ArrayList<MultivariatePolynomial> unit = ring.groebnerBasis().compute(x, x.subtract(ring.getOne()));
+			assertThat(unit.size() == 1 && unit.get(0).isOne(), "The unit ideal has the basis 1");
+			assertThat(ring.groebnerBasis().compute(ring.getZero()).isEmpty(), "The zero ideal has the empty basis");
+			assertThat(ring.groebnerBasis().findCheapestStrategy(x.add(ring.variable("b"))) instanceof BuchbergerGroebner,
+					"Buchberger's algorithm is chosen for a single linear polynomial");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testPrimeFields: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testErrors() {
+		try {
+			MultivariatePolynomialRing ring = new MultivariatePolynomialRing(IntegerRing.getInstance(), MonomialOrder.LEX, "x", "y");
+			try {
+				ring.groebnerBasis().compute(ring.variable(0), ring.variable(1));
+				System.out.println("Fail: Expected NoStrategyException for polynomials over the integers");
+				return false;
+			} catch (NoStrategyException ex) {
+				System.out.println("Correct NoStrategyException");
+			}
+			MultivariatePolynomialRing other = new MultivariatePolynomialRing(field, MonomialOrder.LEX, "x", "y");
+			try {
+				new F4Groebner().execute(other.variable(0), other.withOrder(MonomialOrder.GRLEX).variable(1));
+				System.out.println("Fail: Expected IllegalArgumentException for polynomials of different rings");
+				return false;
+			} catch (IllegalArgumentException ex) {
+				System.out.println("Correct IllegalArgumentException");
+			}
+			MultivariatePolynomial x = other.variable(0);
+			try {
+				x.reduce(x, (MultivariatePolynomial)other.getZero());
+				System.out.println("Fail: Expected OperationUndefinedException for the reduction by zero");
+				return false;
+			} catch (OperationUndefinedException ex) {
+				System.out.println("Correct OperationUndefinedException");
+			}
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testErrors: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the term (numerator / denominator) x^e in a ring over Q or F_p
+	 */
+	private static MultivariatePolynomial term(MultivariatePolynomialRing ring, long numerator, long denominator, int... e) throws OperationUndefinedException {
+		Ring coefficients = ring.getCoefficientRing();
+		RingElement c;
+		if (coefficients instanceof PrimeField)
+			c = ((PrimeField)coefficients).element(numerator).divide(((PrimeField)coefficients).element(denominator));
+		else
+			c = new Fraction(new IntegerElement(numerator), new IntegerElement(denominator));
+		return ring.monomial(c, e);
+	}
+
+	private static MultivariatePolynomial[] cyclic(MultivariatePolynomialRing ring) throws OperationUndefinedException {
+		int n = ring.getVariableCount();
+		MultivariatePolynomial[] f = new MultivariatePolynomial[n];
+		for (int k = 1; k < n; k++) {
+			f[k - 1] = (MultivariatePolynomial)ring.getZero();
+			for (int i = 0; i < n; i++) {
+				int[] e = new int[n];
+				for (int j = 0; j < k; j++)
+					e[(i + j) % n] = 1;
+				f[k - 1] = f[k - 1].add(term(ring, 1, 1, e));
+			}
+		}
+		int[] e = new int[n];
+		Arrays.fill(e, 1);
+		f[n - 1] = term(ring, 1, 1, e).subtract(ring.getOne());
+		return f;
+	}
+
+	private static MultivariatePolynomial[] katsura3(MultivariatePolynomialRing ring) throws OperationUndefinedException {
+		return new MultivariatePolynomial[] {
+				term(ring, 1, 1, 1, 0, 0, 0).add(term(ring, 2, 1, 0, 1, 0, 0), term(ring, 2, 1, 0, 0, 1, 0), term(ring, 2, 1, 0, 0, 0, 1),
+						term(ring, -1, 1, 0, 0, 0, 0)),
+				term(ring, 1, 1, 2, 0, 0, 0).add(term(ring, 2, 1, 0, 2, 0, 0), term(ring, 2, 1, 0, 0, 2, 0), term(ring, 2, 1, 0, 0, 0, 2),
+						term(ring, -1, 1, 1, 0, 0, 0)),
+				term(ring, 2, 1, 1, 1, 0, 0).add(term(ring, 2, 1, 0, 1, 1, 0), term(ring, 2, 1, 0, 0, 1, 1), term(ring, -1, 1, 0, 1, 0, 0)),
+				term(ring, 1, 1, 0, 2, 0, 0).add(term(ring, 2, 1, 1, 0, 1, 0), term(ring, 2, 1, 0, 1, 0, 1), term(ring, -1, 1, 0, 0, 1, 0)) };
+	}
+
+	/**
+	 * @return whether a basis is monic, no term of an element is divisible by the leading monomial of another, and
+	 * the generators reduce to zero
+	 */
+	private static boolean isReducedBasisOf(ArrayList<MultivariatePolynomial> basis, MultivariatePolynomial[] generators) throws OperationUndefinedException {
+		for (int i = 0; i < basis.size(); i++) {
+			MultivariatePolynomial g = basis.get(i);
+			if (!g.getLeadingCoefficient().isOne())
+				return false;
+			for (int j = 0; j < basis.size(); j++) {
+				if (j == i)
+					continue;
+				int[] lead = basis.get(j).getLeadingExponents();
+				for (int t = 0; t < g.getTermCount(); t++) {
+					int[] e = g.getTermExponents(t);
+					boolean divisible = true;
+					for (int v = 0; v < e.length; v++)
+						divisible &= lead[v] <= e[v];
+					if (divisible)
+						return false;
+				}
+			}
+		}
+		MultivariatePolynomial[] divisors = basis.toArray(new MultivariatePolynomial[basis.size()]);
+		for (MultivariatePolynomial f : generators)
+			if (!f.reduce(divisors).isZero())
+				return false;
+		return true;
+	}
+
+	/**
+	 * @return whether every element of a basis reduces to zero by a Groebner basis in another order
+	 */
+	private static boolean generatedBy(ArrayList<MultivariatePolynomial> basis, ArrayList<MultivariatePolynomial> other) throws OperationUndefinedException {
+		MultivariatePolynomialRing ring = other.get(0).getRing();
+		MultivariatePolynomial[] divisors = other.toArray(new MultivariatePolynomial[other.size()]);
+		for (MultivariatePolynomial g : basis)
+			if (!ring.convert(g).reduce(divisors).isZero())
+				return false;
+		return true;
+	}
+
+	private static MultivariatePolynomial[] convert(MultivariatePolynomial[] f, MultivariatePolynomialRing ring) throws OperationUndefinedException {
+		MultivariatePolynomial[] result = new MultivariatePolynomial[f.length];
+		for (int i = 0; i < f.length; i++)
+			result[i] = ring.convert(f[i]);
+		return result;
+	}
+
+	/**
+	 * @return a polynomial of total degree 2 with random coefficients on all monomials of degree at most 2
+	 */
+	private static MultivariatePolynomial randomQuadric(MultivariatePolynomialRing ring, Random random) throws OperationUndefinedException {
+		int n = ring.getVariableCount();
+		MultivariatePolynomial f = (MultivariatePolynomial)ring.getZero();
+		for (int i = 0; i <= n; i++) {
+			for (int j = i; j <= n; j++) {
+				int[] e = new int[n];
+				if (i < n)
+					e[i]++;
+				if (j < n)
+					e[j]++;
+				f = f.add(term(ring, 1 + random.nextInt(1000), 1, e));
+			}
+		}
+		return f;
+	}
+
+	/**
+	 * @return the reduction of a polynomial over Q into a ring over F_p
+	 */
+	private static MultivariatePolynomial reduce(MultivariatePolynomial g, MultivariatePolynomialRing ring) throws OperationUndefinedException {
+		PrimeField fp = (PrimeField)ring.getCoefficientRing();
+		long p = fp.getCharacteristic();
+		MultivariatePolynomial result = (MultivariatePolynomial)ring.getZero();
+		for (int i = 0; i < g.getTermCount(); i++) {
+			Fraction c = (Fraction)g.getTermCoefficient(i);
+			long numerator = ((IntegerElement)c.getNumerator()).getBigValue().mod(BigInteger.valueOf(p)).longValue();
+			long denominator = ((IntegerElement)c.getDenominator()).getBigValue().mod(BigInteger.valueOf(p)).longValue();
+			result = result.add(ring.monomial(fp.element(numerator).divide(fp.element(denominator)), g.getTermExponents(i)));
+		}
+		return result;
+	}
+
+	@Override
+	public boolean performTests() {
+		boolean result = true;
+
+		printHeader("Groebner bases over the rationals");
+		result = result && testRationals();
+
+		printHeader("Groebner bases over prime fields");
+		result = result && testPrimeFields();
+
+		printHeader("Errors");
+		result = result && testErrors();
+
+		return result;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Test Groebner bases of multivariate polynomials";
+	}
+}
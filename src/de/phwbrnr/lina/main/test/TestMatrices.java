@@ -0,0 +1,1289 @@
+/**
+ * Test the Matrix and Vector classes and the algorithms of the matrices package.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Random;
+
+import de.phwbrnr.lina.main.fields.ElementNotInvertibleException;
+import de.phwbrnr.lina.main.fields.Fraction;
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.IntegerRing;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.PrimeFieldElement;
+import de.phwbrnr.lina.main.fields.RationalsField;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.matrices.BareissDeterminant;
+import de.phwbrnr.lina.main.matrices.BareissElimination;
+import de.phwbrnr.lina.main.matrices.BerkowitzCharacteristicPolynomial;
+import de.phwbrnr.lina.main.matrices.BerlekampMassey;
+import de.phwbrnr.lina.main.matrices.BinaryMatrix;
+import de.phwbrnr.lina.main.matrices.BlockLanczosKernel;
+import de.phwbrnr.lina.main.matrices.BlockLanczosSolver;
+import de.phwbrnr.lina.main.matrices.BlockWiedemannKernel;
+import de.phwbrnr.lina.main.matrices.BlockWiedemannSolver;
+import de.phwbrnr.lina.main.matrices.DixonSolver;
+import de.phwbrnr.lina.main.matrices.EuclideanHermiteForm;
+import de.phwbrnr.lina.main.matrices.EuclideanInvariantFactors;
+import de.phwbrnr.lina.main.matrices.EvaluationDeterminant;
+import de.phwbrnr.lina.main.matrices.GaussianDeterminant;
+import de.phwbrnr.lina.main.matrices.GaussianSolver;
+import de.phwbrnr.lina.main.matrices.HessenbergCharacteristicPolynomial;
+import de.phwbrnr.lina.main.matrices.HermiteNormalForm;
+import de.phwbrnr.lina.main.matrices.KrylovMinimalPolynomial;
+import de.phwbrnr.lina.main.matrices.LatticeReduction;
+import de.phwbrnr.lina.main.matrices.Matrix;
+import de.phwbrnr.lina.main.matrices.MatrixRing;
+import de.phwbrnr.lina.main.matrices.ModularHermiteForm;
+import de.phwbrnr.lina.main.matrices.ModularInvariantFactors;
+import de.phwbrnr.lina.main.matrices.MultiModularCharacteristicPolynomial;
+import de.phwbrnr.lina.main.matrices.PencilInvariantFactors;
+import de.phwbrnr.lina.main.matrices.SmithNormalForm;
+import de.phwbrnr.lina.main.matrices.SparseMatrix;
+import de.phwbrnr.lina.main.matrices.Vector;
+import de.phwbrnr.lina.main.polynomials.FieldPolynomialRing;
+import de.phwbrnr.lina.main.polynomials.Polynomial;
+import de.phwbrnr.lina.main.polynomials.PolynomialRing;
+
+public class TestMatrices extends AbstractTestClass {
+	private IntegerRing integers;
+	private RationalsField rationals;
+
+	public TestMatrices() {
+		integers = IntegerRing.getInstance();
+		rationals = RationalsField.getInstance();
+	}
+
+	private Fraction rational(int num, int den) throws OperationUndefinedException {
+		return new Fraction(new IntegerElement(num), new IntegerElement(den));
+	}
+
+	private Matrix rationalMatrix(int rows, int columns, int... entries) throws OperationUndefinedException {
+		RingElement[] e = new RingElement[entries.length];
+		for (int i = 0; i < e.length; i++)
+			e[i] = rational(entries[i], 1);
+		return new Matrix(rationals, rows, columns, e);
+	}
+
+	/**
+	 * @return a random matrix over F_p
+	 */
+	private Matrix randomMatrix(PrimeField field, int rows, int columns, Random random) {
+		long[] values = new long[rows * columns];
+		for (int i = 0; i < values.length; i++)
+			values[i] = Math.floorMod(random.nextLong(), field.getCharacteristic());
+		return new Matrix(field, rows, columns, values);
+	}
+
+	/**
+	 * @return the product of two matrices by the definition, entry by entry
+	 */
+	private Matrix productByDefinition(Matrix a, Matrix b) throws OperationUndefinedException {
+		Ring ring = a.getCoefficientRing();
+		RingElement[] entries = new RingElement[a.getRowCount() * b.getColumnCount()];
+		for (int i = 0; i < a.getRowCount(); i++) {
+			for (int j = 0; j < b.getColumnCount(); j++) {
+				RingElement s = ring.getZero();
+				for (int l = 0; l < a.getColumnCount(); l++)
+					s = s.add(a.get(i, l).multiply(b.get(l, j)));
+				entries[i * b.getColumnCount() + j] = s;
+			}
+		}
+		return new Matrix(ring, a.getRowCount(), b.getColumnCount(), entries);
+	}
+
+	/**
+	 * @return the determinant by expansion along the first row
+	 */
+	private RingElement determinantByExpansion(Matrix a) throws OperationUndefinedException {
+		int n = a.getRowCount();
+		Ring ring = a.getCoefficientRing();
+		if (n == 0)
+			return ring.getOne();
+		RingElement result = ring.getZero();
+		for (int j = 0; j < n; j++) {
+			RingElement[] minor = new RingElement[(n - 1) * (n - 1)];
+			for (int i = 1; i < n; i++)
+				for (int l = 0, c = 0; l < n; l++)
+					if (l != j)
+						minor[(i - 1) * (n - 1) + c++] = a.get(i, l);
+			RingElement term = a.get(0, j).multiply(determinantByExpansion(new Matrix(ring, n - 1, n - 1, minor)));
+			result = j % 2 == 0 ? result.add(term) : result.subtract(term);
+		}
+		return result;
+	}
+
+	/**
+	 * @return a random sparse matrix over F_p with the given number of entries per row, and ones added to the diagonal
+	 * if regular is set
+	 */
+	private SparseMatrix randomSparse(PrimeField field, int rows, int columns, int perRow, boolean regular, Random random) {
+		int count = rows * (perRow + (regular ? 1 : 0));
+		int[] r = new int[count], c = new int[count];
+		long[] values = new long[count];
+		for (int i = 0, l = 0; i < rows; i++) {
+			for (int j = 0; j < perRow; j++, l++) {
+				r[l] = i;
+				c[l] = random.nextInt(columns);
+				values[l] = 1 + random.nextInt((int)Math.min(field.getCharacteristic() - 1, Integer.MAX_VALUE));
+			}
+			if (regular) {
+				r[l] = i;
+				c[l] = i % columns;
+				values[l++] = 1;
+			}
+		}
+		return new SparseMatrix(field, rows, columns, r, c, values);
+	}
+
+	/**
+	 * @return P diag(J, ..., J, R) P^T for a random permutation P, count nilpotent Jordan blocks J of size 2 and a
+	 * random regular sparse matrix R
+	 */
+	private SparseMatrix jordanSparse(PrimeField field, int n, int count, Random random) {
+		SparseMatrix r = randomSparse(field, n - 2 * count, n - 2 * count, 4, true, random);
+		int[] permutation = new int[n];
+		for (int i = 0; i < n; i++)
+			permutation[i] = i;
+		for (int i = n - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1), t = permutation[i];
+			permutation[i] = permutation[j];
+			permutation[j] = t;
+		}
+		ArrayList<Integer> rows = new ArrayList<Integer>(), columns = new ArrayList<Integer>();
+		ArrayList<Long> values = new ArrayList<Long>();
+		for (int k = 0; k < count; k++) {
+			rows.add(permutation[2 * k]);
+			columns.add(permutation[2 * k + 1]);
+			values.add(1L);
+		}
+		Matrix dense = r.toMatrix();
+		for (int i = 0; i < r.getRowCount(); i++) {
+			for (int j = 0; j < r.getColumnCount(); j++) {
+				long value = ((PrimeFieldElement)dense.get(i, j)).getValue();
+				if (value != 0) {
+					rows.add(permutation[2 * count + i]);
+					columns.add(permutation[2 * count + j]);
+					values.add(value);
+				}
+			}
+		}
+		int[] ri = new int[rows.size()], ci = new int[rows.size()];
+		long[] vi = new long[rows.size()];
+		for (int l = 0; l < ri.length; l++) {
+			ri[l] = rows.get(l);
+			ci[l] = columns.get(l);
+			vi[l] = values.get(l);
+		}
+		return new SparseMatrix(field, n, n, ri, ci, vi);
+	}
+
+	/**
+	 * @return whether the vectors are linearly independent and in the kernel of a
+	 */
+	private boolean isKernel(SparseMatrix a, ArrayList<Vector> vectors) throws OperationUndefinedException {
+		if (vectors.isEmpty())
+			return true;
+		RingElement[][] rows = new RingElement[vectors.size()][];
+		for (int i = 0; i < rows.length; i++) {
+			if (!a.multiply(vectors.get(i)).isZero())
+				return false;
+			rows[i] = vectors.get(i).toArray();
+		}
+		return new BareissElimination(new Matrix(a.getCoefficientRing(), rows)).getRank() == rows.length;
+	}
+
+	/**
+	 * @return the characteristic matrix x I - c of a matrix over F_p, over F_p[x]
+	 */
+	private Matrix characteristicMatrix(FieldPolynomialRing ring, Matrix c) {
+		int n = c.getRowCount();
+		RingElement[] entries = new RingElement[n * n];
+		for (int i = 0; i < n; i++)
+			for (int j = 0; j < n; j++)
+				entries[i * n + j] = new Polynomial(c.getCoefficientRing(), c.get(i, j).negative(), i == j ? c.getCoefficientRing().getOne() : c.getCoefficientRing().getZero());
+		return new Matrix(ring, n, n, entries);
+	}
+
+	private boolean testArithmetic() {
+		try {
+			Matrix a = new Matrix(integers, 2, 2, 1, 2, 3, 4);
+			Matrix b = new Matrix(integers, 2, 2, 0, 1, 1, 0);
+
+			assertThat(a.get(1, 0).equals(new IntegerElement(3)) && a.getRow(1).equals(new Vector(integers, new IntegerElement(3), new IntegerElement(4))), "Entries and rows");
+			assertThat(a.add(b).equals(new Matrix(integers, 2, 2, 1, 3, 4, 4)), "Addition");
+			assertThat(a.subtract(a).isZero() && !a.isZero(), "a - a = 0");
+			assertThat(a.multiply(b).equals(new Matrix(integers, 2, 2, 2, 1, 4, 3)) && b.multiply(a).equals(new Matrix(integers, 2, 2, 3, 4, 1, 2)), "Multiplication is not commutative");
+			assertThat(a.multiply(new IntegerElement(-2)).equals(new Matrix(integers, 2, 2, -2, -4, -6, -8)), "Multiplication with a scalar");
+			assertThat(a.add(new IntegerElement(1)).equals(new Matrix(integers, 2, 2, 2, 2, 3, 5)), "Scalars are added as scalar matrices");
+			assertThat(Matrix.identity(integers, 2).isOne() && a.multiply(Matrix.identity(integers, 2)).equals(a), "Identity");
+			assertThat(a.negative().add(a).isZero() && a.transpose().equals(new Matrix(integers, 2, 2, 1, 3, 2, 4)), "Negative and transpose");
+
+			/* rectangular matrices */
+			Matrix c = new Matrix(integers, 2, 3, 1, 0, -1, 2, 1, 0);
+			Matrix d = new Matrix(integers, new RingElement[][] { { new IntegerElement(1) }, { new IntegerElement(2) }, { new IntegerElement(3) } });
+			assertThat(c.multiply(d).equals(new Matrix(integers, 2, 1, -2, 4)), "2 x 3 times 3 x 1");
+			assertThat(c.multiply(d.getColumn(0)).equals(new Vector(integers, new IntegerElement(-2), new IntegerElement(4))), "Matrix times vector");
+			assertThat(!d.canMultiply(c.transpose()) && !c.canAdd(d) && !c.canAdd(new IntegerElement(1)), "Shapes have to match");
+			try {
+				d.multiply(d);
+				System.out.println("Fail: Expected OperationUndefinedException for a 3 x 1 times 3 x 1 product");
+				return false;
+			} catch (OperationUndefinedException ex) {
+				System.out.println("Correct OperationUndefinedException");
+			}
+
+			/* entries leaving the range of long fall back to arbitrary precision */
+			long big = 1L << 62;
+			Matrix e = new Matrix(integers, 2, 2, big, 1, 1, big);
+			BigInteger bigSquare = BigInteger.valueOf(big).pow(2).add(BigInteger.ONE);
+			Matrix square = e.multiply(e);
+			assertThat(square.get(0, 0).equals(new IntegerElement(bigSquare)) && square.get(0, 1).equals(new IntegerElement(BigInteger.valueOf(big).shiftLeft(1))), "Products of large integer matrices are exact");
+			assertThat(square.subtract(square).isZero() && square.add(e).subtract(e).equals(square), "Arithmetic on large integer matrices");
+
+			/* vectors */
+			Vector v = new Vector(integers, new IntegerElement(1), new IntegerElement(-1));
+			assertThat(v.dot(v).equals(new IntegerElement(2)) && v.add(v).equals(v.multiply(new IntegerElement(2))) && v.subtract(v).isZero(), "Vector arithmetic");
+			assertThat(a.multiply(v).equals(new Vector(integers, new IntegerElement(-1), new IntegerElement(-1))), "a v");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testArithmetic: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testPrimeFields() {
+		try {
+			PrimeField f101 = PrimeField.getInstance(101);
+			Random random = new Random(41);
+			Matrix a = randomMatrix(f101, 7, 5, random), b = randomMatrix(f101, 5, 6, random);
+			assertThat(a.multiply(b).equals(productByDefinition(a, b)), "Product over F_101");
+			assertThat(new Matrix(f101, 1, 3, -1, 102, 5).equals(new Matrix(f101, 1, 3, f101.element(100), f101.element(1), f101.element(5))), "Values are reduced");
+
+			Matrix s = randomMatrix(f101, 6, 6, random);
+			assertThat(s.invertible() && s.multiply(s.inverse()).isOne() && s.inverse().multiply(s).isOne(), "Inverse over F_101");
+			assertThat(a.multiply(b).transpose().equals(b.transpose().multiply(a.transpose())), "(a b)^T = b^T a^T");
+
+			PrimeField large = PrimeField.getInstance(2147483647);
+			Matrix l = randomMatrix(large, 20, 20, random);
+			assertThat(l.multiply(l).equals(productByDefinition(l, l)), "Product over F_(2^31 - 1)");
+			assertThat(l.divide(l).isOne(), "l / l = 1");
+
+			/* large products are tiled, with delayed reductions, and go through Strassen-Winograd steps; checked by Freivalds' test */
+			for (long prime : new long[] { 65521, 2147483647 }) {
+				PrimeField field = PrimeField.getInstance(prime);
+				Matrix x = randomMatrix(field, 301, 263, random), y = randomMatrix(field, 263, 517, random);
+				Vector v = randomMatrix(field, 517, 1, random).getColumn(0);
+				assertThat(x.multiply(y).multiply(v).equals(x.multiply(y.multiply(v))), "(x y) v = x (y v) for 301 x 263 and 263 x 517 matrices over " + field.getName());
+			}
+
+			Matrix singular = new Matrix(f101, 3, 3, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+			assertThat(!singular.invertible(), "A singular matrix is not invertible");
+			try {
+				singular.inverse();
+				System.out.println("Fail: Expected ElementNotInvertibleException for a singular matrix");
+				return false;
+			} catch (ElementNotInvertibleException ex) {
+				System.out.println("Correct ElementNotInvertibleException");
+			}
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testPrimeFields: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testRings() {
+		try {
+			Matrix a = rationalMatrix(2, 2, 1, 2, 3, 4);
+			Matrix inverse = new Matrix(rationals, 2, 2, rational(-2, 1), rational(1, 1), rational(3, 2), rational(-1, 2));
+			assertThat(a.invertible() && a.inverse().equals(inverse), "Inverse over the rationals");
+			assertThat(a.divide(a).isOne() && a.divide(rational(1, 2)).equals(rationalMatrix(2, 2, 2, 4, 6, 8)), "Division by matrices and scalars");
+
+			/* matrices are ring elements */
+			MatrixRing m2 = new MatrixRing(integers, 2);
+			Matrix b = new Matrix(integers, 2, 2, 1, 1, 0, 1);
+			assertThat(b.getRing().equals(m2) && m2.contains(b) && m2.getOne().equals(Matrix.identity(integers, 2)) && !m2.isCommutative(), "The ring M_2(Z)");
+			assertThat(Ring.multiply(b, b, b).equals(new Matrix(integers, 2, 2, 1, 3, 0, 1)), "Products by Ring.multiply");
+			assertThat(m2.parseElement(b.toString()).equals(b), "parse(toString()) is the identity on integer matrices");
+			MatrixRing q23 = new MatrixRing(rationals, 2, 3);
+			Matrix r = new Matrix(rationals, 2, 3, rational(1, 2), rational(0, 1), rational(-3, 4), rational(5, 1), rational(1, 3), rational(2, 7));
+			assertThat(q23.parseElement(r.toString()).equals(r), "parse(toString()) is the identity on rational matrices");
+			assertThat(b.invertible() && b.inverse().equals(new Matrix(integers, 2, 2, 1, -1, 0, 1)) && !new Matrix(integers, 2, 2, 2, 0, 0, 1).invertible() && new Matrix(integers, 1, 1, -1).invertible(), "Integer matrices are invertible if their determinant is a unit");
+
+			/* matrices of matrices */
+			MatrixRing blocks = new MatrixRing(integers, 2);
+			Matrix u = new Matrix(blocks, 2, 2, b, Matrix.identity(integers, 2), b.transpose(), b.negative());
+			Matrix product = u.multiply(u);
+			assertThat(product.get(0, 0).equals(b.multiply(b).add(b.transpose())), "Products of block matrices keep the order of the factors");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testRings: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testElimination() {
+		try {
+			Random random = new Random(43);
+			MatrixRing m5 = new MatrixRing(integers, 5);
+			for (int round = 0; round < 5; round++) {
+				long[] values = new long[25];
+				for (int i = 0; i < values.length; i++)
+					values[i] = random.nextInt(41) - 20;
+				Matrix a = new Matrix(integers, 5, 5, values);
+				assertThat(m5.determinant().compute(a).equals(determinantByExpansion(a)), "Determinant of " + a);
+			}
+
+			/* rank, pivots and echelon form of a singular matrix */
+			Matrix s = new Matrix(integers, 3, 4, 1, 2, 3, 4, 2, 4, 6, 8, 0, 1, 1, 0);
+			BareissElimination e = new BareissElimination(s);
+			assertThat(e.getRank() == 2 && e.getPivotColumns().length == 2 && e.getPivotColumns()[0] == 0 && e.getPivotColumns()[1] == 1, "Rank and pivots of a singular 3 x 4 matrix");
+			assertThat(e.getEchelonForm().equals(new Matrix(integers, 3, 4, 1, 2, 3, 4, 0, 1, 1, 0, 0, 0, 0, 0)), "Echelon form");
+			try {
+				e.getDeterminant();
+				System.out.println("Fail: Expected OperationUndefinedException for the determinant of a 3 x 4 matrix");
+				return false;
+			} catch (OperationUndefinedException ex) {
+				System.out.println("Correct OperationUndefinedException");
+			}
+			assertThat(m5.determinant().compute(new Matrix(integers, 5, 5, 1, 2, 3, 4, 5, 2, 4, 6, 8, 10, 0, 0, 1, 0, 0, 0, 0, 0, 1, 0, 1, 0, 0, 0, 1)).isZero(), "Singular matrices have determinant zero");
+
+			/* Cramer's rule: a y = det(a) b */
+			Matrix a = new Matrix(integers, 3, 3, 2, -1, 0, 4, 3, -2, 1, 0, 5);
+			Vector b = new Vector(integers, new IntegerElement(1), new IntegerElement(-3), new IntegerElement(7));
+			RingElement d = new BareissElimination(a).getDeterminant();
+			Vector y = new BareissElimination(a).cramer(b);
+			assertThat(d.equals(determinantByExpansion(a)) && a.multiply(y).equals(b.multiply(d)), "Cramer's rule over the integers");
+
+			/* unimodular matrices are invertible over the integers */
+			Matrix u = new Matrix(integers, 3, 3, 2, 3, 1, 1, 2, 1, 1, 1, 1);
+			assertThat(u.invertible() && u.multiply(u.inverse()).isOne() && !a.invertible(), "Inverses of integer matrices exist for determinant +-1");
+
+			/* polynomial entries: det [[x, 1], [1, x]] = x^2 - 1 */
+			PolynomialRing zx = new PolynomialRing(integers);
+			Polynomial x = new Polynomial(integers, new IntegerElement(0), new IntegerElement(1)), one = new Polynomial(integers, new IntegerElement(1));
+			Matrix p = new Matrix(zx, 2, 2, x, one, one, x);
+			Polynomial expected = new Polynomial(integers, new IntegerElement(-1), new IntegerElement(0), new IntegerElement(1));
+			assertThat(new MatrixRing(zx, 2).determinant().compute(p).equals(expected), "Determinant over Z[X]");
+			Matrix q = new Matrix(zx, 3, 3, x, one, x, one, x.multiply(x), one, x, one, one);
+			assertThat(new MatrixRing(zx, 3).determinant().compute(q).equals(determinantByExpansion(q)), "Determinant of a 3 x 3 matrix over Z[X]");
+
+			/* a 30 x 30 integer determinant, with entries growing beyond long, agrees with the determinant modulo p */
+			long[] values = new long[900];
+			for (int i = 0; i < values.length; i++)
+				values[i] = random.nextInt(2001) - 1000;
+			Matrix large = new Matrix(integers, 30, 30, values);
+			IntegerElement det = (IntegerElement)new MatrixRing(integers, 30).determinant().compute(large);
+			PrimeField f = PrimeField.getInstance(1000003);
+			RingElement modular = new MatrixRing(f, 30).determinant().compute(new Matrix(f, 30, 30, values));
+			assertThat(!det.isSmall() && modular.equals(f.element(det.getBigValue().mod(BigInteger.valueOf(1000003)).longValue())), "Integer determinant modulo p");
+
+			/* the strategies */
+			assertThat(new MatrixRing(f, 30).determinant().findCheapestStrategy(new Matrix(f, 30, 30, values)) instanceof GaussianDeterminant, "Gaussian elimination over prime fields");
+			assertThat(m5.determinant().findCheapestStrategy(large) instanceof BareissDeterminant, "Fraction-free elimination over the integers");
+			assertThat(!new BareissDeterminant().appliesTo(s) && !new GaussianDeterminant().appliesTo(a), "Only square matrices over suitable rings");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testElimination: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testNormalForms() {
+		try {
+			/* Hermite normal forms over the integers */
+			Matrix a = new Matrix(integers, 2, 2, 2, 4, 3, 5);
+			HermiteNormalForm hnf = new HermiteNormalForm(a);
+			assertThat(hnf.getHermiteForm().equals(new Matrix(integers, 2, 2, 1, 1, 0, 2)) && hnf.getTransformation().multiply(a).equals(hnf.getHermiteForm()), "Hermite normal form of a 2 x 2 matrix");
+			Matrix b = new Matrix(integers, 3, 4, 2, 3, 6, 2, 4, 6, 12, 4, 5, 6, 1, 6);
+			hnf = new HermiteNormalForm(b);
+			Matrix h = hnf.getHermiteForm(), u = hnf.getTransformation();
+			RingElement det = new MatrixRing(integers, 3).determinant().compute(u);
+			assertThat(u.multiply(b).equals(h) && det.invertible() && hnf.getRank() == 2 && hnf.getPivotColumns()[1] == 1, "Hermite normal form of a singular 3 x 4 matrix");
+			assertThat(h.get(0, 0).equals(new IntegerElement(1)) && h.get(1, 1).equals(new IntegerElement(3)) && h.getRow(2).isZero(), "Pivots of the Hermite normal form");
+
+			Random random = new Random(44);
+			MatrixRing m6 = new MatrixRing(integers, 6);
+			for (int round = 0; round < 5; round++) {
+				long[] values = new long[36];
+				for (int i = 0; i < values.length; i++)
+					values[i] = random.nextInt(201) - 100;
+				Matrix c = new Matrix(integers, 6, 6, values);
+				RingElement euclidean = new EuclideanHermiteForm().execute(c), modular = new ModularHermiteForm().execute(c);
+				assertThat(euclidean.equals(modular), "Hermite normal forms modulo the determinant, round " + round);
+				ArrayList<RingElement> factors = new ModularInvariantFactors().execute(c);
+				assertThat(factors.equals(new EuclideanInvariantFactors().execute(c)), "Invariant factors modulo the determinant, round " + round);
+			}
+			assertThat(m6.hermiteForm().findCheapestStrategy(Matrix.identity(integers, 6)) instanceof ModularHermiteForm && m6.invariantFactors().findCheapestStrategy(Matrix.identity(integers, 6)) instanceof ModularInvariantFactors, "Modular strategies for square integer matrices");
+
+			/* Smith normal forms over the integers */
+			Matrix s = new Matrix(integers, 3, 3, 2, 4, 4, -6, 6, 12, 10, -4, -16);
+			SmithNormalForm snf = new SmithNormalForm(s);
+			assertThat(snf.getSmithForm().equals(new Matrix(integers, 3, 3, 2, 0, 0, 0, 6, 0, 0, 0, 12)), "Smith normal form of a 3 x 3 matrix");
+			assertThat(snf.getLeftTransformation().multiply(s).multiply(snf.getRightTransformation()).equals(snf.getSmithForm()), "U A V = S");
+			MatrixRing m3 = new MatrixRing(integers, 3);
+			assertThat(m3.determinant().compute(snf.getLeftTransformation()).invertible() && m3.determinant().compute(snf.getRightTransformation()).invertible(), "The transformations are unimodular");
+			assertThat(m3.invariantFactors().compute(s).equals(snf.getInvariantFactors()), "Invariant factors");
+			snf = new SmithNormalForm(b);
+			assertThat(snf.getRank() == 2 && snf.getLeftTransformation().multiply(b).multiply(snf.getRightTransformation()).equals(snf.getSmithForm()) && snf.getInvariantFactors().get(0).equals(new IntegerElement(1)), "Smith normal form of a singular 3 x 4 matrix");
+			assertThat(new MatrixRing(integers, 3, 4).invariantFactors().compute(b).equals(snf.getInvariantFactors()), "Invariant factors of a 3 x 4 matrix");
+			try {
+				new SmithNormalForm(rationalMatrix(1, 1, 2));
+				System.out.println("Fail: Expected IllegalArgumentException for a Smith normal form over the rationals");
+				return false;
+			} catch (IllegalArgumentException ex) {
+				System.out.println("Correct IllegalArgumentException");
+			}
+
+			/* polynomial matrices */
+			PrimeField f7 = PrimeField.getInstance(7);
+			FieldPolynomialRing f7x = new FieldPolynomialRing(f7);
+			Polynomial x = new Polynomial(f7, f7.element(0), f7.element(1));
+			Matrix jordan = characteristicMatrix(f7x, new Matrix(f7, 3, 3, 2, 1, 0, 0, 2, 0, 0, 0, 2));
+			ArrayList<RingElement> factors = new SmithNormalForm(jordan).getInvariantFactors();
+			Polynomial linear = x.subtract(new Polynomial(f7, f7.element(2)));
+			assertThat(factors.size() == 3 && factors.get(0).isOne() && factors.get(1).equals(linear) && factors.get(2).equals(linear.multiply(linear)), "Invariant factors of x I - J over F_7[x]");
+			assertThat(new PencilInvariantFactors().execute(jordan).equals(factors), "Invariant factors of a pencil");
+			hnf = new HermiteNormalForm(jordan);
+			assertThat(hnf.getTransformation().multiply(jordan).equals(hnf.getHermiteForm()) && ((Polynomial)hnf.getHermiteForm().get(2, 2)).getLeadingCoefficient().isOne(), "Hermite normal form over F_7[x]");
+
+			/* x I - c for c similar to a diagonal matrix with repeated eigenvalues, and pencils x B + A = B (x I - c) */
+			int n = 24;
+			long[] diagonal = new long[n * n];
+			for (int i = 0; i < n; i++)
+				diagonal[i * n + i] = i % 5 == 4 ? 0 : i % 4;
+			Matrix p = randomMatrix(f7, n, n, random);
+			while (!p.invertible())
+				p = randomMatrix(f7, n, n, random);
+			Matrix c = p.multiply(new Matrix(f7, n, n, diagonal)).multiply(p.inverse());
+			Matrix characteristic = characteristicMatrix(f7x, c);
+			ArrayList<RingElement> expected = new ArrayList<RingElement>();
+			for (int i = 0; i < n; i++) {
+				/* the i-th factor from the end is the product of x - l over the eigenvalues l of multiplicity > i */
+				RingElement product = f7x.getOne();
+				for (int l = 0; l < 4; l++) {
+					int multiplicity = 0;
+					for (int j = 0; j < n; j++)
+						if (diagonal[j * n + j] == l)
+							multiplicity++;
+					if (multiplicity > i)
+						product = product.multiply(x.subtract(new Polynomial(f7, f7.element(l))));
+				}
+				expected.add(0, product);
+			}
+			MatrixRing mx = new MatrixRing(f7x, n);
+			assertThat(mx.invariantFactors().findCheapestStrategy(characteristic) instanceof PencilInvariantFactors && mx.invariantFactors().compute(characteristic).equals(expected), "Invariant factors of a 24 x 24 characteristic matrix");
+			Matrix q = randomMatrix(f7, n, n, random);
+			while (!q.invertible())
+				q = randomMatrix(f7, n, n, random);
+			RingElement[] entries = new RingElement[n * n];
+			for (int i = 0; i < n; i++)
+				for (int j = 0; j < n; j++) {
+					RingElement e = f7x.getZero();
+					for (int l = 0; l < n; l++)
+						e = e.add(characteristic.get(l, j).multiply(q.get(i, l)));
+					entries[i * n + j] = e;
+				}
+			Matrix pencil = new Matrix(f7x, n, n, entries);
+			assertThat(new PencilInvariantFactors().execute(pencil).equals(expected), "Invariant factors of a pencil x B + A");
+			Matrix small = characteristicMatrix(f7x, new Matrix(f7, 5, 5, 1, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 6, 0, 0, 0, 1, 0));
+			assertThat(new EuclideanInvariantFactors().execute(small).equals(new PencilInvariantFactors().execute(small)), "Euclidean and pencil strategies agree");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testNormalForms: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testSparse() {
+		try {
+			PrimeField f101 = PrimeField.getInstance(101), f65521 = PrimeField.getInstance(65521);
+			Random random = new Random(45);
+
+			/* construction and products */
+			SparseMatrix s = new SparseMatrix(f101, 3, 4, new int[] { 0, 2, 0, 1, 0 }, new int[] { 1, 3, 1, 0, 2 }, new long[] { 50, 7, 52, -1, 0 });
+			Matrix dense = new Matrix(f101, 3, 4, 0, 1, 0, 0, 100, 0, 0, 0, 0, 0, 0, 7);
+			assertThat(s.getNonzeroCount() == 3 && s.get(0, 1).isOne() && s.get(0, 2).isZero() && s.get(1, 0).equals(f101.element(-1)), "Duplicate entries are added up and zeros dropped");
+			assertThat(s.toMatrix().equals(dense) && new SparseMatrix(dense).equals(s), "Conversion from and to dense matrices");
+			assertThat(s.transpose().toMatrix().equals(dense.transpose()) && s.transpose().transpose() == s, "Transpose");
+			try {
+				new SparseMatrix(f101, 2, 2, new int[] { 2 }, new int[] { 0 }, new long[] { 1 });
+				System.out.println("Fail: Expected IllegalArgumentException for an entry outside of the matrix");
+				return false;
+			} catch (IllegalArgumentException ex) {
+				System.out.println("Correct IllegalArgumentException");
+			}
+			SparseMatrix r = randomSparse(f65521, 60, 80, 5, false, random);
+			Vector v = randomMatrix(f65521, 80, 1, random).getColumn(0);
+			assertThat(r.multiply(v).equals(r.toMatrix().multiply(v)), "Sparse product with a vector");
+
+			/* a product large enough to be split across cores, with sums that do not fit into a long */
+			long p = 2147483647;
+			int n = 40000, perRow = 8;
+			int[] rows = new int[n * perRow], columns = new int[n * perRow];
+			long[] values = new long[n * perRow], x = new long[n], expected = new long[n];
+			for (int j = 0; j < n; j++)
+				x[j] = Math.floorMod(random.nextLong(), p);
+			for (int l = 0; l < rows.length; l++) {
+				rows[l] = l / perRow;
+				columns[l] = random.nextInt(n);
+				values[l] = Math.floorMod(random.nextLong(), p);
+				expected[rows[l]] = (expected[rows[l]] + values[l] * x[columns[l]] % p) % p;
+			}
+			PrimeField large = PrimeField.getInstance(p);
+			RingElement[] xs = new RingElement[n], ys = new RingElement[n];
+			for (int j = 0; j < n; j++) {
+				xs[j] = large.element(x[j]);
+				ys[j] = large.element(expected[j]);
+			}
+			assertThat(new SparseMatrix(large, n, n, rows, columns, values).multiply(new Vector(large, xs)).equals(new Vector(large, ys)), "Parallel sparse product");
+
+			/* minimal polynomials */
+			RingElement[] fibonacci = new RingElement[12];
+			fibonacci[0] = f101.getZero();
+			fibonacci[1] = f101.getOne();
+			for (int i = 2; i < fibonacci.length; i++)
+				fibonacci[i] = fibonacci[i - 1].add(fibonacci[i - 2]);
+			Polynomial minimal = BerlekampMassey.minimalPolynomial(f101, fibonacci);
+			assertThat(minimal.equals(new Polynomial(f101, f101.element(-1), f101.element(-1), f101.getOne())), "Berlekamp-Massey on the Fibonacci numbers");
+			RingElement[] powers = { f101.element(3), f101.element(6), f101.element(12), f101.element(24) };
+			assertThat(BerlekampMassey.minimalPolynomial(f101, powers).equals(new Polynomial(f101, f101.element(-2), f101.getOne())), "Berlekamp-Massey on a geometric sequence");
+			int m = 12;
+			long[] diagonal = new long[m * m];
+			for (int i = 0; i < m; i++)
+				diagonal[i * m + i] = 1 + i % 3;
+			Matrix q = randomMatrix(f65521, m, m, random);
+			while (!q.invertible())
+				q = randomMatrix(f65521, m, m, random);
+			Matrix c = q.multiply(new Matrix(f65521, m, m, diagonal)).multiply(q.inverse());
+			Polynomial z = new Polynomial(f65521, f65521.getZero(), f65521.getOne());
+			RingElement product = z.subtract(new Polynomial(f65521, f65521.element(1))).multiply(z.subtract(new Polynomial(f65521, f65521.element(2)))).multiply(z.subtract(new Polynomial(f65521, f65521.element(3))));
+			assertThat(BerlekampMassey.minimalPolynomial(new SparseMatrix(c)).equals(product), "Minimal polynomial of a diagonalizable matrix");
+
+			/* linear systems */
+			SparseMatrix a = randomSparse(f65521, 300, 300, 10, true, random);
+			Vector solution = randomMatrix(f65521, 300, 1, random).getColumn(0), b = a.multiply(solution);
+			assertThat(SparseMatrix.solve().findCheapestStrategy(a, b) instanceof BlockLanczosSolver, "Block Lanczos for large primes");
+			assertThat(a.multiply(new BlockLanczosSolver().execute(a, b)).equals(b), "Block Lanczos solution of a 300 x 300 system");
+			assertThat(a.multiply(new BlockWiedemannSolver().execute(a, b)).equals(b), "Block Wiedemann solution of a 300 x 300 system");
+			SparseMatrix small = randomSparse(f101, 150, 150, 6, true, random);
+			b = small.multiply(randomMatrix(f101, 150, 1, random).getColumn(0));
+			assertThat(SparseMatrix.solve().findCheapestStrategy(small, b) instanceof BlockWiedemannSolver && small.multiply(SparseMatrix.solve().compute(small, b)).equals(b), "Block Wiedemann over a small field");
+			SparseMatrix tall = randomSparse(f65521, 200, 150, 6, false, random);
+			b = tall.multiply(randomMatrix(f65521, 150, 1, random).getColumn(0));
+			assertThat(tall.multiply(new BlockLanczosSolver().execute(tall, b)).equals(b) && tall.multiply(new BlockWiedemannSolver().execute(tall, b)).equals(b), "Consistent overdetermined system");
+			SparseMatrix wide = randomSparse(f101, 120, 160, 6, false, random);
+			b = wide.multiply(randomMatrix(f101, 160, 1, random).getColumn(0));
+			assertThat(wide.multiply(new BlockWiedemannSolver().execute(wide, b)).equals(b), "Underdetermined system");
+			/* singular matrices with nilpotent Jordan blocks, which hide b from the Krylov space of A */
+			for (PrimeField field : new PrimeField[] { PrimeField.getInstance(3), f101, f65521, PrimeField.getInstance(2147483647) }) {
+				SparseMatrix singular = jordanSparse(field, 300, 20, random);
+				b = singular.multiply(randomMatrix(field, 300, 1, random).getColumn(0));
+				assertThat(singular.multiply(new BlockWiedemannSolver().execute(singular, b)).equals(b) && singular.multiply(SparseMatrix.solve().compute(singular, b)).equals(b),
+						"Consistent singular system over " + field.getName());
+			}
+			try {
+				SparseMatrix singular = new SparseMatrix(f101, 3, 3, new int[] { 0, 1 }, new int[] { 0, 1 }, new long[] { 1, 1 });
+				new BlockWiedemannSolver().execute(singular, new Vector(f101, f101.getOne(), f101.getOne(), f101.getOne()));
+				System.out.println("Fail: Expected IllegalStateException for an inconsistent system");
+				return false;
+			} catch (IllegalStateException ex) {
+				System.out.println("Correct IllegalStateException");
+			}
+
+			/* kernels: three columns are sums of two others */
+			int[] extra = new int[6];
+			for (int i = 0; i < extra.length; i++)
+				extra[i] = random.nextInt(197);
+			for (PrimeField field : new PrimeField[] { f101, f65521 }) {
+				SparseMatrix base = randomSparse(field, 200, 197, 6, true, random);
+				Matrix columnsOf = base.toMatrix();
+				RingElement[][] e = new RingElement[200][200];
+				for (int i = 0; i < 200; i++) {
+					for (int j = 0; j < 197; j++)
+						e[i][j] = columnsOf.get(i, j);
+					for (int j = 0; j < 3; j++)
+						e[i][197 + j] = columnsOf.get(i, extra[2 * j]).add(columnsOf.get(i, extra[2 * j + 1]));
+				}
+				SparseMatrix singular = new SparseMatrix(new Matrix(field, e));
+				int nullity = 200 - new BareissElimination(singular.toMatrix()).getRank();
+				ArrayList<Vector> kernel = new BlockWiedemannKernel().execute(singular);
+				assertThat(kernel.size() == nullity && isKernel(singular, kernel), "Block Wiedemann kernel of a singular matrix over " + field.getName());
+				kernel = SparseMatrix.kernel().compute(singular);
+				assertThat(kernel.size() == nullity && isKernel(singular, kernel), "Kernel of a singular matrix over " + field.getName());
+			}
+			SparseMatrix flat = randomSparse(f65521, 200, 250, 6, false, random);
+			int nullity = 250 - new BareissElimination(flat.toMatrix()).getRank();
+			ArrayList<Vector> kernel = new BlockLanczosKernel().execute(flat);
+			assertThat(kernel.size() == nullity && isKernel(flat, kernel), "Block Lanczos kernel of a 200 x 250 matrix");
+			kernel = new BlockWiedemannKernel().execute(flat);
+			assertThat(kernel.size() == nullity && isKernel(flat, kernel), "Block Wiedemann kernel of a 200 x 250 matrix");
+			assertThat(new BlockLanczosKernel().execute(a).isEmpty(), "Regular matrices have a trivial kernel");
+
+			/* complete kernels: random matrices have empty columns, and nilpotent Jordan blocks for the eigenvalue 0 */
+			PrimeField f2 = PrimeField.getInstance(2);
+			boolean binaryComplete = true;
+			for (int i = 0; i < 3; i++) {
+				SparseMatrix binary = randomSparse(f2, 1000, 1000, 4, false, random);
+				nullity = 1000 - new BinaryMatrix(binary.toMatrix()).getRank();
+				kernel = new BlockWiedemannKernel().execute(binary);
+				binaryComplete &= kernel.size() == nullity && isKernel(binary, kernel);
+			}
+			assertThat(binaryComplete, "Complete kernels of 1000 x 1000 matrices over F_2");
+			for (PrimeField field : new PrimeField[] { PrimeField.getInstance(3), f65521 }) {
+				SparseMatrix jordan = jordanSparse(field, 300, 20, random);
+				nullity = 300 - new BareissElimination(jordan.toMatrix()).getRank();
+				kernel = new BlockWiedemannKernel().execute(jordan);
+				boolean complete = kernel.size() == nullity && isKernel(jordan, kernel);
+				if (new BlockLanczosKernel().appliesTo(jordan)) {
+					kernel = new BlockLanczosKernel().execute(jordan);
+					complete &= kernel.size() == nullity && isKernel(jordan, kernel);
+				}
+				SparseMatrix sparse = randomSparse(field, 300, 300, 3, false, random);
+				nullity = 300 - new BareissElimination(sparse.toMatrix()).getRank();
+				kernel = SparseMatrix.kernel().compute(sparse);
+				assertThat(complete && kernel.size() == nullity && isKernel(sparse, kernel), "Complete kernels of singular 300 x 300 matrices over " + field.getName());
+			}
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testSparse: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testBinary() {
+		try {
+			PrimeField f2 = PrimeField.getInstance(2);
+			Random random = new Random(46);
+
+			/* conversion, products and transposes against dense matrices over F_2, across word boundaries */
+			for (int[] shape : new int[][] { { 1, 1, 1 }, { 5, 63, 64 }, { 65, 130, 7 }, { 200, 129, 191 } }) {
+				Matrix a = randomMatrix(f2, shape[0], shape[1], random), b = randomMatrix(f2, shape[1], shape[2], random);
+				BinaryMatrix x = new BinaryMatrix(a), y = new BinaryMatrix(b);
+				assertThat(x.toMatrix().equals(a) && x.get(shape[0] - 1, shape[1] - 1).equals(a.get(shape[0] - 1, shape[1] - 1)), "Conversion of a " + shape[0] + " x " + shape[1] + " matrix");
+				assertThat(x.multiply(y).toMatrix().equals(a.multiply(b)), "Product of " + shape[0] + " x " + shape[1] + " and " + shape[1] + " x " + shape[2] + " matrices");
+				assertThat(x.transpose().toMatrix().equals(a.transpose()), "Transpose of a " + shape[0] + " x " + shape[1] + " matrix");
+				Vector v = randomMatrix(f2, shape[1], 1, random).getColumn(0);
+				assertThat(x.multiply(v).equals(a.multiply(v)), "Product of a " + shape[0] + " x " + shape[1] + " matrix with a vector");
+			}
+			BinaryMatrix c = BinaryMatrix.random(100, 90, random);
+			assertThat(c.add(c).equals(new BinaryMatrix(100, 90)) && BinaryMatrix.identity(100).multiply(c).equals(c), "Sums and the identity");
+			assertThat(BinaryMatrix.random(1000, 1100, random).multiply(BinaryMatrix.random(1100, 900, random)).getRank() <= 900, "Product large enough to be split across cores");
+			try {
+				c.multiply(c);
+				System.out.println("Fail: Expected OperationUndefinedException for matrices of mismatching shape");
+				return false;
+			} catch (OperationUndefinedException ex) {
+				System.out.println("Correct OperationUndefinedException");
+			}
+
+			/* elimination: rank, pivots and the reduced row echelon form; some columns are sums of others */
+			for (int[] shape : new int[][] { { 30, 40 }, { 150, 100 }, { 130, 300 } }) {
+				Matrix a = randomMatrix(f2, shape[0], shape[1], random);
+				RingElement[][] e = a.toArray();
+				for (int i = 0; i < shape[0]; i++)
+					for (int j = 0; j < shape[1]; j += 3)
+						e[i][j] = e[i][(j + 1) % shape[1]].add(e[i][(j + 2) % shape[1]]);
+				a = new Matrix(f2, e);
+				BinaryMatrix x = new BinaryMatrix(a), echelon = x.getEchelonForm();
+				BareissElimination elimination = new BareissElimination(a);
+				int rank = x.getRank();
+				assertThat(rank == elimination.getRank() && echelon.getRank() == rank, "Rank of a " + shape[0] + " x " + shape[1] + " matrix");
+				int[] pivots = elimination.getPivotColumns();
+				boolean reduced = true;
+				for (int i = 0; i < shape[0]; i++)
+					for (int k = 0; k < rank; k++)
+						reduced = reduced && echelon.get(i, pivots[k]).isOne() == (i == k);
+				for (int i = rank; i < shape[0]; i++)
+					for (int j = 0; j < shape[1]; j++)
+						reduced = reduced && echelon.get(i, j).isZero();
+				assertThat(reduced, "Reduced row echelon form of a " + shape[0] + " x " + shape[1] + " matrix");
+				BinaryMatrix kernel = x.getKernel();
+				assertThat(kernel.getRowCount() == shape[1] - rank && kernel.getRank() == shape[1] - rank && x.multiply(kernel.transpose()).equals(new BinaryMatrix(shape[0], shape[1] - rank))
+						&& echelon.multiply(kernel.transpose()).equals(new BinaryMatrix(shape[0], shape[1] - rank)), "Kernel of a " + shape[0] + " x " + shape[1] + " matrix");
+			}
+
+			/* linear systems and inverses */
+			BinaryMatrix a = BinaryMatrix.random(300, 280, random);
+			Vector b = a.multiply(randomMatrix(f2, 280, 1, random).getColumn(0));
+			assertThat(a.multiply(a.solve(b)).equals(b), "Solution of a consistent 300 x 280 system");
+			try {
+				BinaryMatrix singular = new BinaryMatrix(new Matrix(f2, 2, 2, 1, 1, 1, 1));
+				singular.solve(new Vector(f2, f2.getOne(), f2.getZero()));
+				System.out.println("Fail: Expected OperationUndefinedException for an inconsistent system");
+				return false;
+			} catch (OperationUndefinedException ex) {
+				System.out.println("Correct OperationUndefinedException");
+			}
+			BinaryMatrix s = BinaryMatrix.random(200, 200, random);
+			while (s.getRank() < 200)
+				s = BinaryMatrix.random(200, 200, random);
+			assertThat(s.inverse().multiply(s).equals(BinaryMatrix.identity(200)) && s.inverse().toMatrix().equals(s.toMatrix().inverse()), "Inverse of a 200 x 200 matrix");
+			try {
+				new BinaryMatrix(new Matrix(f2, 2, 2, 1, 1, 1, 1)).inverse();
+				System.out.println("Fail: Expected ElementNotInvertibleException for a singular matrix");
+				return false;
+			} catch (ElementNotInvertibleException ex) {
+				System.out.println("Correct ElementNotInvertibleException");
+			}
+
+			/* a system large enough for parallel elimination */
+			int n = 3000;
+			BinaryMatrix large = BinaryMatrix.random(n, n, random);
+			b = large.multiply(randomMatrix(f2, n, 1, random).getColumn(0));
+			assertThat(large.multiply(large.solve(b)).equals(b), "Solution of a " + n + " x " + n + " system");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testBinary: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testCharacteristicPolynomials() {
+		try {
+			Random random = new Random(47);
+			PrimeField f101 = PrimeField.getInstance(101), f65521 = PrimeField.getInstance(65521), f2 = PrimeField.getInstance(2);
+
+			/* det(t I - A) at integer points, by expansion */
+			MatrixRing m5 = new MatrixRing(integers, 5);
+			for (int round = 0; round < 3; round++) {
+				long[] values = new long[25];
+				for (int i = 0; i < values.length; i++)
+					values[i] = random.nextInt(41) - 20;
+				Matrix a = new Matrix(integers, 5, 5, values);
+				Polynomial chi = (Polynomial)new MultiModularCharacteristicPolynomial().execute(a);
+				assertThat(chi.getDegree() == 5 && chi.equals(new BerkowitzCharacteristicPolynomial().execute(a)) && chi.equals(m5.characteristicPolynomial().compute(a)), "Multi-modular and division-free characteristic polynomials agree");
+				boolean agrees = true;
+				for (int t = -2; t <= 2; t++) {
+					Matrix shifted = (Matrix)m5.getOne().multiply(new IntegerElement(t)).subtract(a);
+					agrees = agrees && chi.evaluate(new IntegerElement(t)).equals(determinantByExpansion(shifted));
+				}
+				assertThat(agrees, "Characteristic polynomial of " + a);
+			}
+			Matrix symmetric = new Matrix(integers, 2, 2, 2, 1, 1, 2);
+			assertThat(new MatrixRing(integers, 2).characteristicPolynomial().compute(symmetric).equals(new Polynomial(integers, new IntegerElement(3), new IntegerElement(-4), new IntegerElement(1))), "Characteristic polynomial of a 2 x 2 matrix");
+
+			/* a 40 x 40 integer matrix with larger entries */
+			int n = 40;
+			RingElement[] large = new RingElement[n * n];
+			for (int i = 0; i < large.length; i++)
+				large[i] = new IntegerElement(new BigInteger(20, random).subtract(BigInteger.ONE.shiftLeft(19)));
+			Matrix big = new Matrix(integers, n, n, large);
+			MatrixRing m40 = new MatrixRing(integers, n);
+			assertThat(m40.characteristicPolynomial().findCheapestStrategy(big) instanceof MultiModularCharacteristicPolynomial, "Multi-modular characteristic polynomials over the integers");
+			Polynomial chi = (Polynomial)m40.characteristicPolynomial().compute(big);
+			assertThat(chi.equals(new BerkowitzCharacteristicPolynomial().execute(big)), "Characteristic polynomial of a 40 x 40 matrix with 20 bit entries");
+			assertThat(chi.getCoefficient(0).equals(m40.determinant().compute(big)), "The constant coefficient is the determinant for even dimension");
+
+			/* fields: Hessenberg reduction, and the trace and determinant as coefficients */
+			Matrix a = randomMatrix(f101, 9, 9, random);
+			chi = (Polynomial)new MatrixRing(f101, 9).characteristicPolynomial().compute(a);
+			RingElement trace = f101.getZero();
+			for (int i = 0; i < 9; i++)
+				trace = trace.add(a.get(i, i));
+			assertThat(chi.equals(new BerkowitzCharacteristicPolynomial().execute(a)) && chi.getCoefficient(8).equals(trace.negative())
+					&& chi.getCoefficient(0).equals(new MatrixRing(f101, 9).determinant().compute(a).negative()), "Characteristic polynomial over a prime field");
+			Matrix r = rationalMatrix(4, 4, 1, 2, 0, -1, 3, 0, 1, 2, -2, 1, 1, 0, 0, 5, -1, 2);
+			r = r.multiply(rational(1, 3));
+			assertThat(new HessenbergCharacteristicPolynomial().execute(r).equals(new BerkowitzCharacteristicPolynomial().execute(r)), "Characteristic polynomial over the rationals");
+
+			/* rings without division, like Z[X] */
+			PolynomialRing zx = new PolynomialRing(integers);
+			Polynomial x = new Polynomial(integers, new IntegerElement(0), new IntegerElement(1)), one = new Polynomial(integers, new IntegerElement(1));
+			Matrix p = new Matrix(zx, 2, 2, x, one, x.multiply(x), x);
+			/* det(y I - P) = y^2 - 2 x y + x^2 - x^2 = y^2 - 2 x y */
+			Polynomial expected = new Polynomial(zx, zx.getZero(), x.multiply(new IntegerElement(-2)), one);
+			assertThat(new MatrixRing(zx, 2).characteristicPolynomial().compute(p).equals(expected), "Characteristic polynomial over Z[X]");
+
+			/* minimal polynomials: diagonalizable, a Jordan block, scalars and random matrices */
+			int m = 12;
+			long[] diagonal = new long[m * m];
+			for (int i = 0; i < m; i++)
+				diagonal[i * m + i] = 1 + i % 3;
+			Matrix q = randomMatrix(f65521, m, m, random);
+			while (!q.invertible())
+				q = randomMatrix(f65521, m, m, random);
+			Matrix c = q.multiply(new Matrix(f65521, m, m, diagonal)).multiply(q.inverse());
+			Polynomial z = new Polynomial(f65521, f65521.getZero(), f65521.getOne());
+			RingElement product = z.subtract(new Polynomial(f65521, f65521.element(1))).multiply(z.subtract(new Polynomial(f65521, f65521.element(2)))).multiply(z.subtract(new Polynomial(f65521, f65521.element(3))));
+			MatrixRing m12 = new MatrixRing(f65521, m);
+			assertThat(m12.minimalPolynomial().compute(c).equals(product), "Minimal polynomial of a diagonalizable matrix");
+			long[] jordan = new long[m * m];
+			for (int i = 0; i < m; i++) {
+				jordan[i * m + i] = 5;
+				if (i + 1 < m && i != 5)
+					jordan[i * m + i + 1] = 1;
+			}
+			Polynomial shifted = z.subtract(new Polynomial(f65521, f65521.element(5)));
+			RingElement power = new Polynomial(f65521, f65521.getOne());
+			for (int i = 0; i < 6; i++)
+				power = power.multiply(shifted);
+			assertThat(new KrylovMinimalPolynomial().execute(new Matrix(f65521, m, m, jordan)).equals(power), "Minimal polynomial of two Jordan blocks");
+			assertThat(m12.minimalPolynomial().compute(m12.getOne()).equals(z.subtract(new Polynomial(f65521, f65521.getOne()))) && m12.minimalPolynomial().compute(m12.getZero()).equals(z), "Minimal polynomials of scalar matrices");
+			Matrix generic = randomMatrix(f65521, 150, 150, random);
+			assertThat(new KrylovMinimalPolynomial().execute(generic).equals(new HessenbergCharacteristicPolynomial().execute(generic)), "Minimal polynomial of a random 150 x 150 matrix");
+			long[] blocks = new long[64 * 64];
+			for (int i = 0; i < 64; i++)
+				blocks[i * 64 + (i % 8 == 7 ? i - 7 : i + 1)] = 1;
+			/* eight cyclic permutations of length 8 over F_2: x^8 - 1 */
+			RingElement[] cyclic = new RingElement[9];
+			for (int i = 0; i < 9; i++)
+				cyclic[i] = i % 8 == 0 ? f2.getOne() : f2.getZero();
+			assertThat(new KrylovMinimalPolynomial().execute(new Matrix(f2, 64, 64, blocks)).equals(new Polynomial(f2, cyclic)), "Minimal polynomial of a permutation matrix over F_2");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testCharacteristicPolynomials: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return whether the rows are size reduced with |mu_ij| <= 0.51 and satisfy the Lovasz condition with delta =
+	 * 0.98, checked exactly with the Gram determinants d_i and lambda_ij = d_j mu_ij
+	 */
+	private boolean isReduced(Matrix basis) {
+		int n = basis.getRowCount(), m = basis.getColumnCount();
+		BigInteger[] d = new BigInteger[n + 1];
+		BigInteger[][] lambda = new BigInteger[n][n];
+		d[0] = BigInteger.ONE;
+		for (int k = 0; k < n; k++) {
+			for (int j = 0; j <= k; j++) {
+				BigInteger u = BigInteger.ZERO;
+				for (int l = 0; l < m; l++)
+					u = u.add(((IntegerElement)basis.get(k, l)).getBigValue().multiply(((IntegerElement)basis.get(j, l)).getBigValue()));
+				for (int i = 0; i < j; i++)
+					u = d[i + 1].multiply(u).subtract(lambda[k][i].multiply(lambda[j][i])).divide(d[i]);
+				if (j < k)
+					lambda[k][j] = u;
+				else
+					d[k + 1] = u;
+			}
+			for (int j = 0; j < k; j++) {
+				if (lambda[k][j].abs().multiply(BigInteger.valueOf(200)).compareTo(d[j + 1].multiply(BigInteger.valueOf(102))) > 0)
+					return false;
+			}
+			if (k > 0) {
+				BigInteger lhs = d[k + 1].multiply(d[k - 1]).add(lambda[k][k - 1].pow(2)).multiply(BigInteger.valueOf(100));
+				if (lhs.compareTo(d[k].pow(2).multiply(BigInteger.valueOf(98))) < 0)
+					return false;
+			}
+		}
+		return true;
+	}
+
+	private BigInteger squaredNorm(Matrix basis, int i) {
+		BigInteger result = BigInteger.ZERO;
+		for (int j = 0; j < basis.getColumnCount(); j++)
+			result = result.add(((IntegerElement)basis.get(i, j)).getBigValue().pow(2));
+		return result;
+	}
+
+	/**
+	 * @return the sum of a random subset of the weights
+	 */
+	private BigInteger plantSubset(BigInteger[] weights, Random random) {
+		BigInteger sum = BigInteger.ZERO;
+		for (BigInteger w : weights) {
+			if (random.nextBoolean())
+				sum = sum.add(w);
+		}
+		return sum;
+	}
+
+	/**
+	 * @return the rows (2 e_i, N a_i) and (1, ..., 1, N s), whose lattice contains (2 x - 1, 0) for a solution x
+	 */
+	private BigInteger[][] knapsackLattice(BigInteger[] weights, BigInteger sum) {
+		int n = weights.length;
+		BigInteger scale = BigInteger.valueOf(n);
+		BigInteger[][] rows = new BigInteger[n + 1][n + 1];
+		for (int i = 0; i <= n; i++) {
+			for (int j = 0; j < n; j++)
+				rows[i][j] = BigInteger.valueOf(i == n ? 1 : i == j ? 2 : 0);
+			rows[i][n] = scale.multiply(i == n ? sum : weights[i]);
+		}
+		return rows;
+	}
+
+	/**
+	 * @return whether one of the reduced vectors gives a subset of the weights with the given sum
+	 */
+	private boolean solvesKnapsack(LatticeReduction lattice, BigInteger[] weights, BigInteger sum) {
+		int n = weights.length;
+		BigInteger total = BigInteger.ZERO;
+		for (BigInteger w : weights)
+			total = total.add(w);
+		for (int i = 0; i <= n; i++) {
+			BigInteger[] v = lattice.getVector(i);
+			if (v[n].signum() != 0)
+				continue;
+			boolean signs = true;
+			BigInteger subset = BigInteger.ZERO;
+			for (int j = 0; j < n; j++) {
+				signs = signs && v[j].abs().equals(BigInteger.ONE);
+				if (v[j].signum() == v[0].signum())
+					subset = subset.add(weights[j]);
+			}
+			/* the vector is +-(2 x - 1), so the coordinates of one sign give the subset or its complement */
+			if (signs && (subset.equals(sum) || total.subtract(subset).equals(sum)))
+				return true;
+		}
+		return false;
+	}
+
+	private boolean testLatticeReduction() {
+		try {
+			Random random = new Random(48);
+
+			/* a small example: the reduced basis spans the same lattice */
+			Matrix a = new Matrix(integers, 3, 3, 1, 1, 1, -1, 0, 2, 3, 5, 6);
+			LatticeReduction lattice = new LatticeReduction(a);
+			lattice.reduce();
+			Matrix b = lattice.getBasis();
+			assertThat(isReduced(b) && new HermiteNormalForm(b).getHermiteForm().equals(new HermiteNormalForm(a).getHermiteForm()), "LLL reduction of a 3 x 3 basis");
+			assertThat(squaredNorm(b, 0).equals(BigInteger.ONE), "The first reduced vector is a shortest one");
+
+			/* random bases, up to entries far beyond the range of doubles */
+			for (int bits : new int[] { 10, 40, 90, 600, 2000 }) {
+				int n = 8;
+				RingElement[] entries = new RingElement[n * n];
+				for (int i = 0; i < entries.length; i++)
+					entries[i] = new IntegerElement(new BigInteger(bits, random).subtract(BigInteger.ONE.shiftLeft(bits - 1)));
+				a = new Matrix(integers, n, n, entries);
+				if (new MatrixRing(integers, n).determinant().compute(a).isZero())
+					continue;
+				lattice = new LatticeReduction(a);
+				lattice.reduce();
+				b = lattice.getBasis();
+				assertThat(isReduced(b) && new HermiteNormalForm(b).getHermiteForm().equals(new HermiteNormalForm(a).getHermiteForm()), "LLL reduction of an 8 x 8 basis with " + bits + " bit entries");
+			}
+
+			/* a knapsack of density 0.3 */
+			BigInteger[] weights = new BigInteger[30];
+			for (int i = 0; i < weights.length; i++)
+				weights[i] = new BigInteger(100, random);
+			BigInteger sum = plantSubset(weights, random);
+			lattice = new LatticeReduction(knapsackLattice(weights, sum));
+			lattice.reduceBlockwise(10);
+			assertThat(solvesKnapsack(lattice, weights, sum), "A planted knapsack solution is found by BKZ");
+
+			/* short vectors next to ones of 1200 bits: the approximations are scaled per vector, so doubles do */
+			weights = new BigInteger[120];
+			for (int i = 0; i < weights.length; i++)
+				weights[i] = new BigInteger(1200, random);
+			sum = plantSubset(weights, random);
+			lattice = new LatticeReduction(knapsackLattice(weights, sum));
+			lattice.reduce();
+			assertThat(!lattice.isExact(), "LLL of a knapsack lattice with 120 weights of 1200 bits stays in floating point");
+			assertThat(solvesKnapsack(lattice, weights, sum), "A planted knapsack solution of density 0.1 is found by LLL");
+
+			/* deep insertions and BKZ shorten the first vector; BKZ with a block of the whole dimension finds a shortest vector */
+			int n = 24;
+			BigInteger[][] rows = new BigInteger[n][n];
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j < n; j++)
+					rows[i][j] = BigInteger.valueOf(i == j ? 1 : 0);
+				rows[i][0] = new BigInteger(30, random);
+			}
+			rows[0][0] = BigInteger.ONE.shiftLeft(30).add(BigInteger.ONE);
+			LatticeReduction lll = new LatticeReduction(rows), deep = new LatticeReduction(rows), bkz = new LatticeReduction(rows);
+			lll.reduce();
+			deep.reduceDeep(n);
+			bkz.reduceBlockwise(12);
+			BigInteger first = squaredNorm(lll.getBasis(), 0);
+			assertThat(isReduced(deep.getBasis()) && squaredNorm(deep.getBasis(), 0).compareTo(first) <= 0, "Deep insertions give a reduced basis with a first vector no longer than LLL's");
+			assertThat(isReduced(bkz.getBasis()) && squaredNorm(bkz.getBasis(), 0).compareTo(first) <= 0, "BKZ gives a reduced basis with a first vector no longer than LLL's");
+			assertThat(new HermiteNormalForm(bkz.getBasis()).getHermiteForm().equals(new HermiteNormalForm(deep.getBasis()).getHermiteForm()), "Deep insertions and BKZ keep the lattice");
+
+			n = 6;
+			long[] values = new long[n * n];
+			for (int i = 0; i < values.length; i++)
+				values[i] = random.nextInt(2001) - 1000;
+			a = new Matrix(integers, n, n, values);
+			lattice = new LatticeReduction(a);
+			lattice.reduce();
+			long[][] reduced = new long[n][];
+			for (int i = 0; i < n; i++) {
+				reduced[i] = new long[n];
+				for (int j = 0; j < n; j++)
+					reduced[i][j] = lattice.getVector(i)[j].longValueExact();
+			}
+			lattice.reduceBlockwise(n);
+			BigInteger shortest = null;
+			long[] x = new long[n];
+			for (int code = 1; code < 729 * 9 * 9 * 9; code++) {
+				/* all vectors with coefficients in [-4, 4] with respect to the LLL reduced basis */
+				int c = code;
+				for (int i = 0; i < n; i++, c /= 9)
+					x[i] = c % 9 - 4;
+				BigInteger norm = BigInteger.ZERO;
+				for (int j = 0; j < n; j++) {
+					long y = 0;
+					for (int i = 0; i < n; i++)
+						y += x[i] * reduced[i][j];
+					norm = norm.add(BigInteger.valueOf(y).pow(2));
+				}
+				if (norm.signum() > 0 && (shortest == null || norm.compareTo(shortest) < 0))
+					shortest = norm;
+			}
+			assertThat(squaredNorm(lattice.getBasis(), 0).equals(shortest), "BKZ with a block of the whole dimension finds a shortest vector");
+
+			/* dependent vectors */
+			try {
+				new LatticeReduction(new Matrix(integers, 3, 2, 1, 2, 2, 4, 0, 1)).reduce();
+				System.out.println("Fail: Expected IllegalArgumentException for linearly dependent vectors");
+				return false;
+			} catch (IllegalArgumentException ex) {
+				System.out.println("Correct IllegalArgumentException");
+			}
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testLatticeReduction: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testSolve() {
+		try {
+			Random random = new Random(49);
+			DixonSolver dixon = new DixonSolver();
+			GaussianSolver gauss = new GaussianSolver();
+
+			/* 2 x + y = 1, x + 3 y = 2 has the solution (1/5, 3/5) */
+			Matrix a = new Matrix(integers, 2, 2, 2, 1, 1, 3);
+			Vector b = new Vector(integers, new IntegerElement(1), new IntegerElement(2));
+			Vector expected = new Vector(rationals, rational(1, 5), rational(3, 5));
+			assertThat(dixon.execute(a, b).equals(expected), "Dixon lifting of a 2 x 2 integer system");
+			assertThat(gauss.execute(rationalMatrix(2, 2, 2, 1, 1, 3), new Vector(rationals, rational(1, 1), rational(2, 1))).equals(expected), "Gaussian elimination of a 2 x 2 rational system");
+
+			/* rational entries, compared with Gaussian elimination */
+			int n = 8;
+			RingElement[] entries = new RingElement[n * n], rhs = new RingElement[n];
+			for (int i = 0; i < entries.length; i++)
+				entries[i] = rational(random.nextInt(201) - 100, random.nextInt(20) + 1);
+			for (int i = 0; i < n; i++)
+				rhs[i] = rational(random.nextInt(201) - 100, random.nextInt(20) + 1);
+			a = new Matrix(rationals, n, n, entries);
+			b = new Vector(rationals, rhs);
+			Vector x = dixon.execute(a, b);
+			assertThat(x.equals(gauss.execute(a, b)) && a.multiply(x).equals(b), "Dixon lifting and Gaussian elimination agree over the rationals");
+
+			/* a larger integer system with large entries, checked over the rationals */
+			n = 40;
+			entries = new RingElement[n * n];
+			rhs = new RingElement[n];
+			for (int i = 0; i < entries.length; i++)
+				entries[i] = new Fraction(new IntegerElement(new BigInteger(80, random).subtract(BigInteger.ONE.shiftLeft(79))));
+			for (int i = 0; i < n; i++)
+				rhs[i] = new Fraction(new IntegerElement(new BigInteger(80, random)));
+			a = new Matrix(rationals, n, n, entries);
+			b = new Vector(rationals, rhs);
+			MatrixRing m40 = new MatrixRing(rationals, n);
+			assertThat(m40.solve().findCheapestStrategy(a, b) instanceof DixonSolver, "Dixon lifting for rational systems");
+			assertThat(a.multiply(m40.solve().compute(a, b)).equals(b), "Solution of a 40 x 40 system with 80 bit entries");
+
+			/* over a prime field */
+			PrimeField f = PrimeField.getInstance(1000003);
+			a = randomMatrix(f, 30, 30, random);
+			RingElement[] values = new RingElement[30];
+			for (int i = 0; i < values.length; i++)
+				values[i] = f.element(random.nextInt(1000003));
+			b = new Vector(f, values);
+			assertThat(new MatrixRing(f, 30).solve().findCheapestStrategy(a, b) instanceof GaussianSolver && a.multiply(gauss.execute(a, b)).equals(b), "Gaussian elimination over a prime field");
+
+			/* singular matrices */
+			try {
+				dixon.execute(new Matrix(integers, 3, 3, 1, 2, 3, 4, 5, 6, 7, 8, 9), new Vector(integers, new IntegerElement(1), new IntegerElement(1), new IntegerElement(1)));
+				System.out.println("Fail: Expected IllegalStateException for a singular matrix");
+				return false;
+			} catch (IllegalStateException ex) {
+				System.out.println("Correct IllegalStateException");
+			}
+			try {
+				gauss.execute(new Matrix(f, 2, 2, 1, 2, 2, 4), new Vector(f, f.element(1), f.element(0)));
+				System.out.println("Fail: Expected IllegalStateException for a singular matrix");
+				return false;
+			} catch (IllegalStateException ex) {
+				System.out.println("Correct IllegalStateException");
+			}
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testSolve: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return a random polynomial of degree at most d, over the integers with entries of the given bit length or over F_p
+	 */
+	private Polynomial randomPolynomial(Ring ring, int d, int bits, Random random) {
+		RingElement[] c = new RingElement[d + 1];
+		for (int k = 0; k <= d; k++)
+			c[k] = ring instanceof PrimeField ? ((PrimeField)ring).element(random.nextInt((int)Math.min(((PrimeField)ring).getCharacteristic(), 1 << 30)))
+					: new IntegerElement(new BigInteger(bits, random).subtract(BigInteger.ONE.shiftLeft(bits - 1)));
+		return new Polynomial(ring, c);
+	}
+
+	/**
+	 * @return a random n x n matrix with entries of degree at most d, or a unit lower triangular one if lower holds and
+	 * a unit upper triangular one if upper holds
+	 */
+	private Matrix randomPolynomialMatrix(PolynomialRing ring, int n, int d, int bits, boolean lower, boolean upper, Random random) {
+		RingElement[] entries = new RingElement[n * n];
+		for (int i = 0; i < n; i++)
+			for (int j = 0; j < n; j++)
+				entries[i * n + j] = (lower || upper) && i == j ? ring.getOne() : lower && j > i || upper && j < i ? ring.getZero()
+						: randomPolynomial(ring.getCoefficientRing(), d, bits, random);
+		return new Matrix(ring, n, n, entries);
+	}
+
+	private boolean testPolynomialDeterminants() {
+		try {
+			Random random = new Random(50);
+			EvaluationDeterminant evaluation = new EvaluationDeterminant();
+			BareissDeterminant bareiss = new BareissDeterminant();
+			PolynomialRing zx = new PolynomialRing(integers);
+			PrimeField f65521 = PrimeField.getInstance(65521);
+			FieldPolynomialRing fx = new FieldPolynomialRing(f65521);
+
+			/* det [[x, 1], [1, x]] = x^2 - 1 */
+			Polynomial x = new Polynomial(integers, new IntegerElement(0), new IntegerElement(1)), one = new Polynomial(integers, new IntegerElement(1));
+			Polynomial expected = new Polynomial(integers, new IntegerElement(-1), new IntegerElement(0), new IntegerElement(1));
+			assertThat(evaluation.execute(new Matrix(zx, 2, 2, x, one, one, x)).equals(expected), "Evaluation and interpolation of a 2 x 2 determinant over Z[X]");
+
+			/* random matrices, compared with fraction-free elimination */
+			Matrix a = randomPolynomialMatrix(zx, 6, 3, 40, false, false, random);
+			assertThat(evaluation.execute(a).equals(bareiss.execute(a)), "Determinant of a 6 x 6 matrix over Z[X] with 40 bit coefficients");
+			a = randomPolynomialMatrix(fx, 8, 4, 0, false, false, random);
+			assertThat(evaluation.execute(a).equals(bareiss.execute(a)), "Determinant of an 8 x 8 matrix over F_p[X]");
+			a = randomPolynomialMatrix(zx, 10, 4, 10, false, false, random);
+			assertThat(new MatrixRing(zx, 10).determinant().findCheapestStrategy(a) instanceof EvaluationDeterminant, "Evaluation and interpolation for polynomial matrices");
+			a = randomPolynomialMatrix(fx, 12, 3, 0, false, false, random);
+			assertThat(((Polynomial)new MatrixRing(fx, 12).determinant().compute(a)).getDegree() == 36, "The determinant of a random 12 x 12 matrix over F_p[X] has full degree");
+
+			/* L U with unit triangular factors has determinant 1, far below the degree bound */
+			for (PolynomialRing ring : new PolynomialRing[] { zx, fx }) {
+				Matrix l = randomPolynomialMatrix(ring, 8, 3, 4, true, false, random), u = randomPolynomialMatrix(ring, 8, 3, 4, false, true, random);
+				assertThat(evaluation.execute(l.multiply(u)).equals(new Polynomial(ring.getCoefficientRing(), ring.getCoefficientRing().getOne())), "Early termination for a determinant of degree 0 over " + ring.getName());
+			}
+
+			/* a vanishing row, and fields too small for enough points */
+			Polynomial zero = new Polynomial(integers);
+			assertThat(evaluation.execute(new Matrix(zx, 2, 2, x, one, zero, zero)).isZero(), "The determinant vanishes with a row");
+			PrimeField f3 = PrimeField.getInstance(3);
+			FieldPolynomialRing f3x = new FieldPolynomialRing(f3);
+			Polynomial y = new Polynomial(f3, f3.getZero(), f3.getOne());
+			Matrix small = new Matrix(f3x, 2, 2, y, y.multiply(y), f3x.getOne(), y);
+			assertThat(!evaluation.appliesTo(small) && new MatrixRing(f3x, 2).determinant().compute(small).equals(bareiss.execute(small)), "Fraction-free elimination over small fields");
+			assertThat(!evaluation.appliesTo(new Matrix(integers, 2, 2, 1, 2, 3, 4)), "Only matrices over polynomial rings");
+
+			try {
+				evaluation.execute(small);
+				System.out.println("Fail: Expected IllegalArgumentException for a field with too few points");
+				return false;
+			} catch (IllegalArgumentException ex) {
+				System.out.println("Correct IllegalArgumentException");
+			}
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testPolynomialDeterminants: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean performTests() {
+		boolean result = true;
+
+		printHeader("Arithmetic");
+		result = result && testArithmetic();
+
+		printHeader("Matrices over prime fields");
+		result = result && testPrimeFields();
+
+		printHeader("Matrices over other rings");
+		result = result && testRings();
+
+		printHeader("Fraction-free elimination");
+		result = result && testElimination();
+
+		printHeader("Hermite and Smith normal forms");
+		result = result && testNormalForms();
+
+		printHeader("Sparse matrices");
+		result = result && testSparse();
+
+		printHeader("Matrices over F_2");
+		result = result && testBinary();
+
+		printHeader("Characteristic and minimal polynomials");
+		result = result && testCharacteristicPolynomials();
+
+		printHeader("Lattice reduction");
+		result = result && testLatticeReduction();
+
+		printHeader("Dense linear systems");
+		result = result && testSolve();
+
+		printHeader("Determinants of polynomial matrices");
+		result = result && testPolynomialDeterminants();
+
+		return result;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Test matrices, vectors and their algorithms";
+	}
+}
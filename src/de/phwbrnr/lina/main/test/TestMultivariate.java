@@ -0,0 +1,335 @@
+/**
+ * Test multivariate polynomials and their ring.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.IntegerRing;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.polynomials.MonomialOrder;
+import de.phwbrnr.lina.main.polynomials.MultivariatePolynomial;
+import de.phwbrnr.lina.main.polynomials.MultivariatePolynomialRing;
+import de.phwbrnr.lina.main.polynomials.Polynomial;
+import de.phwbrnr.lina.main.polynomials.PolynomialRing;
+
+public class TestMultivariate extends AbstractTestClass {
+	private IntegerRing integers;
+
+	public TestMultivariate() {
+		integers = IntegerRing.getInstance();
+	}
+
+	private boolean testOrders() {
+		try {
+			/* 4 x y^2 z + 4 z^2 - 5 x^3 + 7 x^2 z^2 */
+			MultivariatePolynomial[] f = new MultivariatePolynomial[3];
+			MonomialOrder[] orders = MonomialOrder.values();
+			for (int k = 0; k < orders.length; k++) {
+				MultivariatePolynomialRing ring = new MultivariatePolynomialRing(integers, orders[k], "x", "y", "z");
+				f[k] = ring.monomial(new IntegerElement(4), 1, 2, 1).add(ring.monomial(new IntegerElement(4), 0, 0, 2),
+						ring.monomial(new IntegerElement(-5), 3, 0, 0), ring.monomial(new IntegerElement(7), 2, 0, 2));
+			}
+			assertThat(Arrays.equals(f[0].getLeadingExponents(), new int[] { 3, 0, 0 }) && f[0].getLeadingCoefficient().equals(new IntegerElement(-5)),
+					"Leading term -5 x^3 in lex order");
+			assertThat(Arrays.equals(f[1].getLeadingExponents(), new int[] { 2, 0, 2 }), "Leading term 7 x^2 z^2 in graded lex order");
+			assertThat(Arrays.equals(f[2].getLeadingExponents(), new int[] { 1, 2, 1 }), "Leading term 4 x y^2 z in graded reverse lex order");
+			assertThat(f[2].getRing().convert(f[0]).equals(f[2]) && f[0].getRing().convert(f[2]).equals(f[0]), "Conversion between orders");
+			assertThat(Arrays.equals(f[0].getTermExponents(3), new int[] { 0, 0, 2 }) && f[2].getTotalDegree() == 4 && f[1].getDegree(1) == 2,
+					"Exponents and degrees");
+
+			/* the packing round trips in every order, also for many variables */
+			Random random = new Random(38);
+			boolean roundTrip = true;
+			for (MonomialOrder order : orders) {
+				String[] names = new String[7];
+				for (int i = 0; i < names.length; i++)
+					names[i] = "x" + i;
+				MultivariatePolynomialRing ring = new MultivariatePolynomialRing(integers, order, names);
+				for (int t = 0; t < 200; t++) {
+					int[] e = new int[names.length];
+					for (int i = 0; i < e.length; i++)
+						e[i] = random.nextInt(ring.getDegreeHint() / names.length + 1);
+					roundTrip &= Arrays.equals(ring.monomial(integers.getOne(), e).getLeadingExponents(), e);
+				}
+			}
+			assertThat(roundTrip, "Packed monomials unpack to their exponents");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testOrders: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testArithmetic() {
+		try {
+			Random random = new Random(39);
+			for (MonomialOrder order : MonomialOrder.values()) {
+				MultivariatePolynomialRing ring = new MultivariatePolynomialRing(integers, order, "x", "y", "z", "w");
+				MultivariatePolynomial x = ring.variable("x"), y = ring.variable("y");
+				assertThat(x.add(y).multiply(x.subtract(y)).equals(x.multiply(x).subtract(y.multiply(y))), "(x + y)(x - y) = x^2 - y^2 in " + order);
+
+				boolean agree = true;
+				for (int t = 0; t < 20; t++) {
+					MultivariatePolynomial f = randomPolynomial(ring, integers, 30, 8, random);
+					MultivariatePolynomial g = randomPolynomial(ring, integers, 25, 8, random);
+					agree &= f.multiply(g).equals(naiveProduct(ring, f, g)) && f.multiply(g).equals(g.multiply(f));
+				}
+				assertThat(agree, "Heap multiplication agrees with the sum of all term products in " + order);
+			}
+
+			/* (1 + x + y + z)^8 squared, a small version of Fateman's benchmark */
+			MultivariatePolynomialRing ring = new MultivariatePolynomialRing(integers, MonomialOrder.GREVLEX, "x", "y", "z");
+			MultivariatePolynomial s = ((MultivariatePolynomial)ring.getOne()).add(ring.variable(0), ring.variable(1), ring.variable(2));
+			MultivariatePolynomial p = (MultivariatePolynomial)ring.getOne();
+			for (int i = 0; i < 8; i++)
+				p = p.multiply(s);
+			assertThat(p.getTermCount() == 165 && p.getCoefficient(2, 3, 3).equals(new IntegerElement(560)), "(1 + x + y + z)^8 has 165 terms");
+			MultivariatePolynomial q = p.multiply(p);
+			RingElement[] point = { new IntegerElement(2), new IntegerElement(-1), new IntegerElement(3) };
+			assertThat(q.getTermCount() == 969 && q.evaluate(point).equals(new IntegerElement(152587890625L)),
+					"(1 + x + y + z)^16 has 969 terms and the value 5^16 at (2, -1, 3)");
+
+			/* coefficients from other rings: Z[t] */
+			PolynomialRing zt = new PolynomialRing(integers);
+			Polynomial t = new Polynomial(integers, integers.getZero(), integers.getOne());
+			MultivariatePolynomialRing overZt = new MultivariatePolynomialRing(zt, MonomialOrder.LEX, "x", "y");
+			MultivariatePolynomial tx = overZt.variable(0).multiply(t);
+			assertThat(tx.multiply(tx).getCoefficient(2, 0).equals(t.multiply(t)) && overZt.contains(t), "Coefficients from a polynomial ring");
+			assertThat(ring.fromUnivariate(t.add(integers.getOne()), 1).equals(ring.variable(1).add(integers.getOne())), "Embedding a univariate polynomial");
+
+			assertThat(ring.parseElement(p.toString()).equals(p), "parseElement(toString()) is the identity map");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testArithmetic: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testDivision() {
+		try {
+			Random random = new Random(40);
+			PrimeField fp = PrimeField.getInstance(32003);
+			for (MonomialOrder order : MonomialOrder.values()) {
+				MultivariatePolynomialRing ring = new MultivariatePolynomialRing(fp, order, "x", "y", "z");
+				boolean exact = true, remainders = true;
+				for (int t = 0; t < 10; t++) {
+					MultivariatePolynomial f = randomPolynomial(ring, fp, 20, 6, random);
+					MultivariatePolynomial g = randomPolynomial(ring, fp, 8, 4, random);
+					exact &= f.multiply(g).divide(g).equals(f);
+
+					MultivariatePolynomial h = randomPolynomial(ring, fp, 40, 10, random);
+					MultivariatePolynomial[] qr = h.divideWithRemainder(g);
+					remainders &= qr[0].multiply(g).add(qr[1]).equals(h) && noTermDivisible(qr[1], g);
+				}
+				assertThat(exact, "Exact heap division over F_p in " + order);
+				assertThat(remainders, "h = q g + r with no term of r divisible by lt(g) in " + order);
+			}
+
+			MultivariatePolynomialRing ring = new MultivariatePolynomialRing(integers, MonomialOrder.GRLEX, "x", "y");
+			MultivariatePolynomial f = randomPolynomial(ring, integers, 15, 6, random), g = randomPolynomial(ring, integers, 6, 4, random);
+			assertThat(f.multiply(g).divide(g).equals(f) && f.multiply(g).divisibleBy(f), "Exact division over Z");
+			assertThat(!f.multiply(g).add(integers.getOne()).divisibleBy(g) || g.isConstant(), "No exact division with a remainder");
+			assertThat(f.multiply(new IntegerElement(6)).divide(new IntegerElement(3)).equals(f.multiply(new IntegerElement(2))), "Division by a coefficient");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testDivision: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testLayouts() {
+		try {
+			/* 12 variables take two words, whose products and quotients agree with the naive ones */
+			Random random = new Random(41);
+			PrimeField fp = PrimeField.getInstance(32003);
+			String[] names = new String[12];
+			for (int i = 0; i < names.length; i++)
+				names[i] = "x" + i;
+			for (MonomialOrder order : MonomialOrder.values()) {
+				MultivariatePolynomialRing ring = new MultivariatePolynomialRing(fp, order, names);
+				boolean products = true, quotients = true, roundTrip = true;
+				for (int t = 0; t < 5; t++) {
+					MultivariatePolynomial f = randomPolynomial(ring, fp, 15, 40, random), g = randomPolynomial(ring, fp, 10, 40, random);
+					MultivariatePolynomial product = f.multiply(g);
+					products &= product.equals(naiveProduct(ring, f, g));
+					quotients &= product.divide(g).equals(f);
+					int[] e = new int[names.length];
+					for (int i = 0; i < e.length; i++)
+						e[i] = random.nextInt(1000);
+					roundTrip &= Arrays.equals(ring.monomial(fp.getOne(), e).getLeadingExponents(), e);
+				}
+				assertThat(products && quotients, "Heap products and divisions with 12 variables in " + order);
+				assertThat(roundTrip, "Monomials of 12 variables and degree beyond the hint unpack to their exponents in " + order);
+			}
+
+			/* with 9 variables, the default packing of one word holds degree 63; larger ones are repacked */
+			MultivariatePolynomialRing ring = new MultivariatePolynomialRing(integers, MonomialOrder.LEX, Arrays.copyOf(names, 9));
+			assertThat(ring.getDegreeHint() == MultivariatePolynomialRing.DEFAULT_DEGREE && ring.getMaxDegree() == Integer.MAX_VALUE,
+					"The default degree hint, and no maximal degree below Integer.MAX_VALUE");
+			MultivariatePolynomial x = ring.variable(0), y = ring.variable(1);
+			MultivariatePolynomial power = x;
+			for (int i = 0; i < 10; i++)
+				power = power.multiply(power);
+			assertThat(power.getDegree(0) == 1024 && power.equals(ring.monomial(integers.getOne(), 1024, 0, 0, 0, 0, 0, 0, 0, 0)),
+					"x^1024 by repeated squaring past the degree hint");
+			assertThat(power.add(y).subtract(power).equals(y) && power.add(y).hashCode() == y.add(power).hashCode(),
+					"Sums of polynomials of different packings");
+
+			/* in LEX, the division x^40 / (x - y^40) has the remainder y^1600, beyond the packing of the dividend */
+			MultivariatePolynomial x40 = ring.monomial(integers.getOne(), 40, 0, 0, 0, 0, 0, 0, 0, 0);
+			MultivariatePolynomial g = x.subtract(ring.monomial(integers.getOne(), 0, 40, 0, 0, 0, 0, 0, 0, 0));
+			MultivariatePolynomial[] qr = x40.divideWithRemainder(g);
+			assertThat(qr[1].equals(ring.monomial(integers.getOne(), 0, 1600, 0, 0, 0, 0, 0, 0, 0)) && qr[0].multiply(g).add(qr[1]).equals(x40),
+					"A LEX division whose remainder outgrows the packing");
+
+			/* the degree hint only chooses the packing */
+			MultivariatePolynomialRing wide = new MultivariatePolynomialRing(integers, MonomialOrder.GREVLEX, 1000, Arrays.copyOf(names, 9));
+			assertThat(wide.getDegreeHint() == 1000 && wide.withOrder(MonomialOrder.LEX).getDegreeHint() == 1000, "The degree hint is kept by withOrder");
+			MultivariatePolynomialRing standard = new MultivariatePolynomialRing(integers, MonomialOrder.GREVLEX, Arrays.copyOf(names, 9));
+			MultivariatePolynomial f = wide.monomial(integers.getOne(), 1, 2, 3, 0, 0, 0, 0, 0, 0).add(wide.variable(8));
+			MultivariatePolynomial h = standard.monomial(integers.getOne(), 1, 2, 3, 0, 0, 0, 0, 0, 0).add(standard.variable(8));
+			assertThat(wide.equals(standard) && f.equals(h) && f.hashCode() == h.hashCode(), "Rings and polynomials do not depend on the degree hint");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testLayouts: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testErrors() {
+		try {
+			MultivariatePolynomialRing ring = new MultivariatePolynomialRing(integers, MonomialOrder.LEX, "x", "y");
+			MultivariatePolynomial x = ring.variable(0);
+			MultivariatePolynomial power = x;
+			for (int i = 0; i < 30; i++)
+				power = power.multiply(power);
+			try {
+				power.multiply(power);
+				System.out.println("Fail: Expected OperationUndefinedException for an exponent beyond Integer.MAX_VALUE");
+				return false;
+			} catch (OperationUndefinedException ex) {
+				System.out.println("Correct OperationUndefinedException");
+			}
+			try {
+				new MultivariatePolynomialRing(integers, MonomialOrder.LEX, 0, "x", "y");
+				System.out.println("Fail: Expected IllegalArgumentException for a degree hint below 1");
+				return false;
+			} catch (IllegalArgumentException ex) {
+				System.out.println("Correct IllegalArgumentException");
+			}
+			try {
+				new MultivariatePolynomialRing(integers, MonomialOrder.LEX, "x", "x");
+				System.out.println("Fail: Expected IllegalArgumentException for repeated variables");
+				return false;
+			} catch (IllegalArgumentException ex) {
+				System.out.println("Correct IllegalArgumentException");
+			}
+			try {
+				x.add(new MultivariatePolynomialRing(integers, MonomialOrder.GRLEX, "x", "y").variable(0));
+				System.out.println("Fail: Expected OperationUndefinedException when adding polynomials of different orders");
+				return false;
+			} catch (OperationUndefinedException ex) {
+				System.out.println("Correct OperationUndefinedException");
+			}
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testErrors: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private static MultivariatePolynomial randomPolynomial(MultivariatePolynomialRing ring, Ring coefficients, int terms, int degree, Random random) throws OperationUndefinedException {
+		MultivariatePolynomial f = (MultivariatePolynomial)ring.getZero();
+		int n = ring.getVariableCount();
+		for (int t = 0; t < terms; t++) {
+			int[] e = new int[n];
+			int left = degree;
+			for (int i = 0; i < n; i++) {
+				e[i] = random.nextInt(left + 1);
+				left -= e[i];
+			}
+			RingElement c = coefficients instanceof PrimeField ? ((PrimeField)coefficients).element(random.nextInt(1000) + 1)
+					: new IntegerElement(random.nextInt(199) - 99);
+			f = f.add(ring.monomial(c, e));
+		}
+		return f;
+	}
+
+	private static MultivariatePolynomial naiveProduct(MultivariatePolynomialRing ring, MultivariatePolynomial f, MultivariatePolynomial g) throws OperationUndefinedException {
+		MultivariatePolynomial result = (MultivariatePolynomial)ring.getZero();
+		for (int i = 0; i < f.getTermCount(); i++) {
+			for (int j = 0; j < g.getTermCount(); j++) {
+				int[] e = f.getTermExponents(i), eg = g.getTermExponents(j);
+				for (int v = 0; v < e.length; v++)
+					e[v] += eg[v];
+				result = result.add(ring.monomial(f.getTermCoefficient(i).multiply(g.getTermCoefficient(j)), e));
+			}
+		}
+		return result;
+	}
+
+	private static boolean noTermDivisible(MultivariatePolynomial r, MultivariatePolynomial g) {
+		int[] lead = g.getLeadingExponents();
+		for (int i = 0; i < r.getTermCount(); i++) {
+			int[] e = r.getTermExponents(i);
+			boolean divisible = true;
+			for (int v = 0; v < e.length; v++)
+				divisible &= lead[v] <= e[v];
+			if (divisible)
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean performTests() {
+		boolean result = true;
+
+		printHeader("Monomial orders");
+		result = result && testOrders();
+
+		printHeader("Arithmetic");
+		result = result && testArithmetic();
+
+		printHeader("Division");
+		result = result && testDivision();
+
+		printHeader("Monomial layouts");
+		result = result && testLayouts();
+
+		printHeader("Errors");
+		result = result && testErrors();
+
+		return result;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Test multivariate polynomials";
+	}
+}
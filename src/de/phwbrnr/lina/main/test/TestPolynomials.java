@@ -0,0 +1,787 @@
+/**
+ * Test the Polynomial class and the algorithms of the polynomials package.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import de.phwbrnr.lina.main.fields.Factorization;
+import de.phwbrnr.lina.main.fields.Fraction;
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.IntegerRing;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.RationalsField;
+import de.phwbrnr.lina.main.fields.Ring;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.polynomials.BerlekampFactorization;
+import de.phwbrnr.lina.main.polynomials.CantorZassenhausFactorization;
+import de.phwbrnr.lina.main.polynomials.EuclideanResultant;
+import de.phwbrnr.lina.main.polynomials.FieldPolynomialRing;
+import de.phwbrnr.lina.main.polynomials.IsolatingInterval;
+import de.phwbrnr.lina.main.polynomials.MultiModularResultant;
+import de.phwbrnr.lina.main.polynomials.Polynomial;
+import de.phwbrnr.lina.main.polynomials.PolynomialBuilder;
+import de.phwbrnr.lina.main.polynomials.PolynomialModulus;
+import de.phwbrnr.lina.main.polynomials.PolynomialRing;
+import de.phwbrnr.lina.main.polynomials.SubproductTree;
+import de.phwbrnr.lina.main.polynomials.SubresultantResultant;
+import de.phwbrnr.lina.main.strategies.Strategy;
+
+public class TestPolynomials extends AbstractTestClass {
+	private IntegerRing integers;
+	private RationalsField rationals;
+
+	public TestPolynomials() {
+		integers = IntegerRing.getInstance();
+		rationals = RationalsField.getInstance();
+	}
+
+	private Polynomial integerPolynomial(int... coefficients) {
+		RingElement[] c = new RingElement[coefficients.length];
+		for (int i = 0; i < c.length; i++)
+			c[i] = new IntegerElement(coefficients[i]);
+		return new Polynomial(integers, c);
+	}
+
+	private Fraction rational(int num, int den) throws OperationUndefinedException {
+		return new Fraction(new IntegerElement(num), new IntegerElement(den));
+	}
+
+	private Polynomial rationalPolynomial(int... coefficients) throws OperationUndefinedException {
+		RingElement[] c = new RingElement[coefficients.length];
+		for (int i = 0; i < c.length; i++)
+			c[i] = rational(coefficients[i], 1);
+		return new Polynomial(rationals, c);
+	}
+
+	private boolean testArithmetic() {
+		try {
+			Polynomial p = integerPolynomial(1, 2, 3);
+			Polynomial q = integerPolynomial(-1, 1);
+
+			assertThat(p.getDegree() == 2, "deg(3X^2 + 2X + 1) = 2");
+			assertThat(integerPolynomial(5).getDegree() == 0, "Nonzero constants have degree 0");
+			assertThat(integerPolynomial(0, 0).getDegree() == -1, "The zero polynomial has degree -1");
+			assertThat(new Polynomial(integers, 3, new IntegerElement(2)).equals(integerPolynomial(0, 0, 0, 2)), "2 * X^3 by the monomial constructor");
+			assertThat(p.add(q).equals(integerPolynomial(0, 3, 3)), "Addition");
+			assertThat(p.subtract(p).isZero(), "p - p = 0");
+			assertThat(p.multiply(q).equals(integerPolynomial(-1, -1, -1, 3)), "Multiplication");
+			assertThat(p.multiply(q).divide(q).equals(p), "(p * q) / q = p");
+			assertThat(!p.divisibleBy(q), "X - 1 does not divide 3X^2 + 2X + 1");
+			assertThat(p.derivative().equals(integerPolynomial(2, 6)), "Derivative");
+
+			/* long factors go through Karatsuba's method */
+			int[] a = new int[100], b = new int[70];
+			for (int i = 0; i < a.length; i++)
+				a[i] = (i * 7) % 11 - 5;
+			for (int i = 0; i < b.length; i++)
+				b[i] = (i * 3) % 5 - 2;
+			Polynomial pa = integerPolynomial(a), pb = integerPolynomial(b);
+			int[] expected = new int[a.length + b.length - 1];
+			for (int i = 0; i < a.length; i++)
+				for (int j = 0; j < b.length; j++)
+					expected[i + j] += a[i] * b[j];
+			assertThat(pa.multiply(pb).equals(integerPolynomial(expected)), "Karatsuba multiplication agrees with the schoolbook method");
+
+			/* a monic divisor, so the division works over the integers; long quotients use Newton inversion */
+			int[] m = new int[31];
+			m[0] = 1;
+			m[1] = -1;
+			m[30] = 1;
+			Polynomial pm = integerPolynomial(m);
+			Polynomial[] qr = pa.divideWithRemainder(pm);
+			assertThat(qr[1].getDegree() < pm.getDegree(), "Degree of the remainder");
+			assertThat(qr[0].multiply(pm).add(qr[1]).equals(pa), "a = q * m + r");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testArithmetic: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testBuilder() {
+		try {
+			Polynomial p = integerPolynomial(1, 2, 3);
+			Polynomial q = integerPolynomial(-1, 1);
+
+			PolynomialBuilder builder = new PolynomialBuilder(integers);
+			builder.shiftAdd(p, 2).addMul(new IntegerElement(4), q).subMul(new IntegerElement(2), p, 1);
+			assertThat(builder.getDegree() == 4 && builder.getCoefficient(2).equals(new IntegerElement(-3)), "Degree and coefficients while building");
+			Polynomial built = builder.build();
+			assertThat(built.equals(p.multiply(integerPolynomial(0, 0, 1)).add(q.multiply(new IntegerElement(4)))
+					.subtract(p.multiply(integerPolynomial(0, 2)))), "X^2 p + 4 q - 2 X p");
+			boolean failed = false;
+			try {
+				builder.shiftAdd(p, 0);
+			} catch (IllegalStateException ex) {
+				failed = true;
+			}
+			assertThat(failed, "A frozen builder cannot be changed");
+
+			builder = new PolynomialBuilder(integers, 10);
+			builder.addMul(p, q).addMul(q, p).setCoefficient(7, new IntegerElement(1)).setCoefficient(7, new IntegerElement(0));
+			built = builder.build();
+			assertThat(built.equals(p.multiply(q, new IntegerElement(2))) && built.getDegree() == 3
+					&& built.toString().equals(p.multiply(q, new IntegerElement(2)).toString()), "Products, cancellation and spare capacity");
+			assertThat(new PolynomialBuilder(p).subMul(new IntegerElement(1), p).build().isZero(), "p - p = 0");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testBuilder: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testSparse() {
+		try {
+			RingElement one = new IntegerElement(1);
+			Polynomial f = new Polynomial(integers, 1000000, one).add(new Polynomial(integers, 17, one), new IntegerElement(3));
+			assertThat(f.isSparse() && f.getDegree() == 1000000 && f.getTermCount() == 3, "X^1000000 + X^17 + 3 is stored by its three terms");
+			assertThat(f.getCoefficient(17).isOne() && f.getCoefficient(18).isZero() && f.getLeadingCoefficient().isOne(), "Coefficients of a sparse polynomial");
+			assertThat(Arrays.equals(f.getTermExponents(), new int[] { 0, 17, 1000000 }), "Exponents of the terms");
+			assertThat(f.evaluate(new IntegerElement(1)).equals(new IntegerElement(5)) && f.evaluate(new IntegerElement(-1)).equals(new IntegerElement(3)), "Evaluation of a sparse polynomial");
+			PrimeField f101 = PrimeField.getInstance(101);
+			Polynomial fp = Polynomial.fromTerms(f101, new int[] { 0, 17, 1000000 }, new RingElement[] { f101.element(3), f101.element(1), f101.element(1) });
+			long expected = BigInteger.valueOf(2).modPow(BigInteger.valueOf(1000000), BigInteger.valueOf(101)).longValue() + (1 << 17) % 101 + 3;
+			assertThat(fp.evaluate(f101.element(2)).equals(f101.element(expected)), "Evaluation over F_101");
+			assertThat(f.derivative().equals(Polynomial.fromTerms(integers, new int[] { 16, 999999 }, new RingElement[] { new IntegerElement(17), new IntegerElement(1000000) })), "Derivative of a sparse polynomial");
+
+			/* the representation switches by the fill ratio, and does not affect equality */
+			int[] c = new int[101];
+			c[0] = 1;
+			c[100] = 1;
+			Polynomial dense = integerPolynomial(c), sparse = Polynomial.fromTerms(integers, new int[] { 0, 100 }, new RingElement[] { one, one });
+			assertThat(dense.isSparse() && dense.equals(sparse) && dense.hashCode() == sparse.hashCode(), "X^100 + 1 is stored sparsely however it is created");
+			assertThat(sparse.getCoefficients().length == 101 && sparse.toString().equals(dense.toString()), "Expansion of sparse polynomials");
+
+			/* products and divisions with sparse operands agree with the dense algorithms */
+			int[] a = new int[100];
+			for (int i = 0; i < a.length; i++)
+				a[i] = (i * 7) % 11 - 5;
+			Polynomial pa = integerPolynomial(a);
+			assertThat(!integerPolynomial(1, 2, 3).isSparse() && !pa.add(sparse).isSparse(), "Small or full polynomials are stored densely");
+			int[] product = new int[a.length + 100];
+			for (int i = 0; i < a.length; i++) {
+				product[i] += a[i];
+				product[i + 100] += a[i];
+			}
+			assertThat(pa.multiply(sparse).equals(integerPolynomial(product)) && sparse.multiply(pa).equals(integerPolynomial(product)), "Product of a dense and a sparse polynomial");
+			assertThat(sparse.multiply(sparse).equals(integerPolynomial(c).multiply(integerPolynomial(c))), "Square of a sparse polynomial");
+			Polynomial g = new Polynomial(integers, 500000, one).subtract(new IntegerElement(2));
+			Polynomial[] qr = f.divideWithRemainder(g);
+			assertThat(qr[1].getDegree() < g.getDegree() && qr[0].multiply(g).add(qr[1]).equals(f), "f = q * g + r");
+			assertThat(f.multiply(g).divide(g).equals(f) && f.multiply(g).isSparse(), "(f * g) / g = f");
+			assertThat(integerPolynomial(product).divide(sparse).equals(pa), "Exact division by a sparse polynomial");
+			qr = pa.divideWithRemainder(sparse);
+			assertThat(qr[0].isZero() && qr[1].equals(pa), "Division by a sparse polynomial of higher degree");
+			try {
+				f.divideWithRemainder(new Polynomial(integers, 100, new IntegerElement(2)));
+				assertThat(false, "Division with remainder by 2 X^100 over the integers");
+			} catch (OperationUndefinedException ex) {
+				System.out.println("Correct OperationUndefinedException");
+			}
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testSparse: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testEvaluation() {
+		try {
+			Polynomial p = integerPolynomial(1, 2, 3);
+			assertThat(p.evaluate(new IntegerElement(2)).equals(new IntegerElement(17)), "3*2^2 + 2*2 + 1 = 17");
+			assertThat(rationalPolynomial(1, 2, 3).evaluate(rational(1, 2)).equals(rational(11, 4)), "Evaluation at 1/2");
+
+			int[] c = new int[40];
+			for (int i = 0; i < c.length; i++)
+				c[i] = (i % 3) - 1;
+			Polynomial f = integerPolynomial(c);
+			RingElement[] points = new RingElement[37];
+			for (int i = 0; i < points.length; i++)
+				points[i] = new IntegerElement(i % 2 == 0 ? i / 7 : -i / 9);
+			SubproductTree tree = new SubproductTree(integers, points);
+			RingElement[] values = f.evaluate(tree);
+			boolean agree = true;
+			for (int i = 0; i < points.length; i++)
+				agree = agree && values[i].equals(f.evaluate(points[i]));
+			assertThat(agree, "Remainder tree evaluation agrees with Horner's scheme");
+
+			FieldPolynomialRing qx = new FieldPolynomialRing(rationals);
+			Polynomial g = rationalPolynomial(3, 0, -1, 2, 1, 0, 1, -2, 1);
+			RingElement[] nodes = new RingElement[g.getDegree() + 1];
+			for (int i = 0; i < nodes.length; i++)
+				nodes[i] = rational(i - 5, 1);
+			SubproductTree qtree = new SubproductTree(rationals, nodes);
+			assertThat(qtree.interpolate(g.evaluate(qtree)).equals(g), "Interpolating the values of a polynomial gives the polynomial");
+			assertThat(qx.interpolate(nodes, g.evaluateAll(nodes)).equals(g), "FieldPolynomialRing.interpolate");
+
+			try {
+				new SubproductTree(rationals, rational(1, 2), rational(2, 4)).interpolate(rational(1, 1), rational(2, 1));
+				System.out.println("Fail: Expected OperationUndefinedException when interpolating at coinciding points");
+				return false;
+			} catch (OperationUndefinedException ex) {
+				System.out.println("Good: Interpolation at coinciding points fails");
+			}
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testEvaluation: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private Polynomial modularPolynomial(PrimeField field, long... coefficients) {
+		RingElement[] c = new RingElement[coefficients.length];
+		for (int i = 0; i < c.length; i++)
+			c[i] = field.element(coefficients[i]);
+		return new Polynomial(field, c);
+	}
+
+	/**
+	 * Check that a factorization multiplies up to f and agrees with the other strategy.
+	 */
+	private void checkFactorization(Polynomial f, Strategy<ArrayList<RingElement>> strategy, ArrayList<RingElement> reference, String message) throws Exception {
+		ArrayList<RingElement> factors = strategy.execute(f);
+		RingElement product = Ring.multiply(factors.toArray(new RingElement[0]));
+		assertThat(product.equals(f), message + ": product of the factors");
+		if (reference != null)
+			assertThat(factors.equals(reference), message + ": agrees with " + strategy.getDescription());
+	}
+
+	private boolean testFactorization() {
+		try {
+			PrimeField f5 = PrimeField.getInstance(5);
+			Strategy<ArrayList<RingElement>> cz = new CantorZassenhausFactorization();
+			Strategy<ArrayList<RingElement>> berlekamp = new BerlekampFactorization();
+			PolynomialRing f5x = new FieldPolynomialRing(f5);
+
+			/* (X + 1)^2 (X^2 + 2) (X^5 + ...) * 3 over F_5; X^2 + 2 is irreducible since 3 is no square mod 5 */
+			Polynomial f = modularPolynomial(f5, 1, 1).multiply(modularPolynomial(f5, 1, 1), modularPolynomial(f5, 2, 0, 1),
+					modularPolynomial(f5, 3));
+			ArrayList<RingElement> factors = f5x.factor().compute(f);
+			assertThat(factors.size() == 4, "3 (X + 1)^2 (X^2 + 2) has four factors including the unit");
+			checkFactorization(f, berlekamp, factors, "Small example");
+
+			/* p-th powers: (X^5 - X + 1)^5 (X + 2)^10 */
+			Polynomial g = modularPolynomial(f5, 1, 4, 0, 0, 0, 1);
+			Polynomial h = g.multiply(g, g, g, g);
+			for (int i = 0; i < 10; i++)
+				h = h.multiply(modularPolynomial(f5, 2, 1));
+			ArrayList<RingElement> hf = cz.execute(h);
+			assertThat(hf.size() == 15 && hf.get(14).equals(g), "Square-free decomposition with multiplicities divisible by p");
+			checkFactorization(h, berlekamp, hf, "Multiplicities divisible by p");
+
+			/* a larger random polynomial over a word-size prime */
+			PrimeField fp = PrimeField.getInstance(1000003);
+			Random random = new Random(42);
+			long[] c = new long[61];
+			for (int i = 0; i < c.length; i++)
+				c[i] = random.nextInt(1000003);
+			c[60] = 1;
+			Polynomial r = modularPolynomial(fp, c);
+			ArrayList<RingElement> rf = cz.execute(r);
+			checkFactorization(r, cz, null, "Degree 60 over F_1000003");
+			checkFactorization(r, berlekamp, rf, "Degree 60 over F_1000003");
+			assertThat(new FieldPolynomialRing(fp).factor().findCheapestStrategy(r) instanceof CantorZassenhausFactorization,
+					"Cantor-Zassenhaus is chosen for degree 60 over F_1000003");
+
+			long[] d = new long[41];
+			for (int i = 0; i < d.length; i++)
+				d[i] = random.nextInt(2);
+			d[40] = 1;
+			d[0] = 1;
+			Polynomial r2 = modularPolynomial(PrimeField.getInstance(2), d);
+			checkFactorization(r2, berlekamp, cz.execute(r2), "Degree 40 over F_2");
+			assertThat(new FieldPolynomialRing(PrimeField.getInstance(2)).factor().findCheapestStrategy(r2) instanceof BerlekampFactorization,
+					"Berlekamp's algorithm is chosen for degree 40 over F_2");
+
+			Polynomial irreducible = modularPolynomial(f5, 2, 0, 1);
+			assertThat(cz.execute(irreducible).size() == 1, "Irreducible polynomials are their own factorization");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testFactorization: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testSquareFree() {
+		try {
+			PolynomialRing zx = new PolynomialRing(integers);
+
+			/* -2 (X^2 + 1) (X - 2)^2 (X + 1)^3 */
+			Polynomial linear = integerPolynomial(1, 1);
+			Polynomial f = integerPolynomial(-2).multiply(integerPolynomial(1, 0, 1), integerPolynomial(-2, 1),
+					integerPolynomial(-2, 1), linear, linear, linear);
+			Factorization d = zx.squareFreeDecomposition().compute(f);
+			assertThat(d.size() == 3 && d.getExponent(0) == 1 && d.getExponent(1) == 2 && d.getExponent(2) == 3,
+					"Three square-free factors with exponents 1, 2, 3");
+			assertThat(d.getUnit().equals(new IntegerElement(-2)), "The unit over Z is the signed content");
+			assertThat(d.getFactor(0).equals(integerPolynomial(1, 0, 1)) && d.getFactor(2).equals(linear), "Square-free factors over Z");
+			assertThat(d.expand().equals(f), "Expanding the decomposition gives the polynomial");
+
+			/* g_1 g_2^2 g_3^3 for random g_i of degree 70, whose gcds are computed modulo many primes */
+			Random random = new Random(29);
+			Polynomial large = integerPolynomial(1);
+			Polynomial[] factors = new Polynomial[3];
+			for (int i = 0; i < 3; i++) {
+				int[] coefficients = new int[71];
+				for (int j = 0; j < coefficients.length; j++)
+					coefficients[j] = random.nextInt(201) - 100;
+				coefficients[70] = 1 + random.nextInt(100);
+				factors[i] = integerPolynomial(coefficients);
+				for (int k = 0; k <= i; k++)
+					large = large.multiply(factors[i]);
+			}
+			Factorization dl = zx.squareFreeDecomposition().compute(large);
+			assertThat(dl.size() == 3 && dl.getExponent(0) == 1 && dl.getExponent(1) == 2 && dl.getExponent(2) == 3
+					&& ((Polynomial)dl.getFactor(2)).getDegree() == 70 && dl.expand().equals(large),
+					"Square-free decomposition of a polynomial of degree 420");
+
+			/* 1/2 (3X + 1)^2 (X + 1) = 9/2 (X + 1/3)^2 (X + 1) over Q */
+			PolynomialRing qx = new FieldPolynomialRing(rationals);
+			Polynomial g = new Polynomial(rationals, rational(1, 2)).multiply(rationalPolynomial(1, 3), rationalPolynomial(1, 3),
+					rationalPolynomial(1, 1));
+			Factorization dq = qx.squareFreeDecomposition().compute(g);
+			assertThat(dq.size() == 2 && dq.getUnit().equals(rational(9, 2)), "The unit over Q is the leading coefficient");
+			assertThat(dq.getFactor(1).equals(new Polynomial(rationals, rational(1, 3), rational(1, 1))) && dq.getExponent(1) == 2,
+					"Square-free factors over Q are monic");
+			assertThat(dq.expand().equals(g), "Expanding the decomposition over Q gives the polynomial");
+
+			/* 3 (X + 1)^2 (X^5 - X + 1)^5 (X + 2)^10 over F_5: the last two need p-th roots */
+			PrimeField f5 = PrimeField.getInstance(5);
+			Polynomial h = modularPolynomial(f5, 3).multiply(modularPolynomial(f5, 1, 1), modularPolynomial(f5, 1, 1));
+			for (int i = 0; i < 5; i++)
+				h = h.multiply(modularPolynomial(f5, 1, 4, 0, 0, 0, 1));
+			for (int i = 0; i < 10; i++)
+				h = h.multiply(modularPolynomial(f5, 2, 1));
+			Factorization dp = new FieldPolynomialRing(f5).squareFreeDecomposition().compute(h);
+			assertThat(dp.size() == 3 && dp.getExponent(0) == 2 && dp.getExponent(1) == 5 && dp.getExponent(2) == 10,
+					"Exponents 2, 5, 10 over F_5");
+			assertThat(dp.getFactor(2).equals(modularPolynomial(f5, 2, 1)), "(X + 2)^10 is found through a 5-th root");
+			assertThat(dp.expand().equals(h), "Expanding the decomposition over F_5 gives the polynomial");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testSquareFree: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testIntegerFactorization() {
+		try {
+			PolynomialRing zx = new PolynomialRing(integers);
+
+			/* -6 (2X + 3) (X^2 + 1) (X^3 - 2) (X^4 + X + 1)^2 */
+			Polynomial quartic = integerPolynomial(1, 1, 0, 0, 1);
+			Polynomial f = integerPolynomial(-6).multiply(integerPolynomial(3, 2), integerPolynomial(1, 0, 1),
+					integerPolynomial(-2, 0, 0, 1), quartic, quartic);
+			ArrayList<RingElement> factors = zx.factor().compute(f);
+			assertThat(factors.size() == 8, "-6 (2X + 3) (X^2 + 1) (X^3 - 2) (X^4 + X + 1)^2 has eight factors");
+			assertThat(factors.get(0).equals(integerPolynomial(-1)) && factors.get(1).equals(integerPolynomial(2))
+					&& factors.get(2).equals(integerPolynomial(3)), "The content comes first, split into -1 and primes");
+			assertThat(factors.get(6).equals(quartic) && factors.get(7).equals(quartic), "Repeated factors are listed by multiplicity");
+			assertThat(product(factors).equals(f), "The product of the factors is the polynomial");
+
+			/*
+			 * The Swinnerton-Dyer polynomial for 2, 3, 5, 7 is irreducible, but splits into linear and quadratic factors
+			 * modulo every prime, so the recombination has to work with at least eight modular factors.
+			 */
+			Polynomial sd = integerPolynomial(46225, 0, -5596840, 0, 13950764, 0, -7453176, 0, 1513334, 0, -141912, 0,
+					6476, 0, -136, 0, 1);
+			ArrayList<RingElement> sdFactors = zx.factor().compute(sd);
+			assertThat(sdFactors.size() == 1 && sdFactors.get(0).equals(sd), "Swinnerton-Dyer polynomials are irreducible");
+			Polynomial shifted = sd.add(integerPolynomial(1));
+			ArrayList<RingElement> twoFactors = zx.factor().compute(sd.multiply(shifted));
+			assertThat(twoFactors.size() == 2 && twoFactors.contains(sd) && twoFactors.contains(shifted),
+					"Product of a Swinnerton-Dyer polynomial and another irreducible polynomial");
+
+			/* X^105 - 1 is the product of the cyclotomic polynomials of the eight divisors of 105 */
+			int[] c = new int[106];
+			c[0] = -1;
+			c[105] = 1;
+			Polynomial x105 = integerPolynomial(c);
+			ArrayList<RingElement> cyclotomic = zx.factor().compute(x105);
+			assertThat(cyclotomic.size() == 8, "X^105 - 1 has eight irreducible factors");
+			assertThat(product(cyclotomic).equals(x105), "The product of the cyclotomic polynomials is X^105 - 1");
+
+			assertThat(zx.factor().compute(integerPolynomial(-12)).size() == 4, "Constants are factored as integers");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testIntegerFactorization: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testRootIsolation() {
+		try {
+			PolynomialRing zx = new PolynomialRing(integers);
+
+			/* (X^2 - 2) (X - 1)^2 (2X + 1) has the roots -sqrt(2), -1/2, 1 (twice) and sqrt(2) */
+			Polynomial f = integerPolynomial(-2, 0, 1).multiply(integerPolynomial(-1, 1), integerPolynomial(-1, 1),
+					integerPolynomial(1, 2));
+			ArrayList<IsolatingInterval> roots = zx.realRootIsolation().compute(f);
+			assertThat(roots.size() == 4, "(X^2 - 2) (X - 1)^2 (2X + 1) has four distinct real roots");
+			assertThat(contains(roots.get(1), rational(-1, 2)) && contains(roots.get(2), rational(1, 1)),
+					"The rational roots are isolated in order");
+			assertThat(roots.get(2).getMultiplicity() == 2 && roots.get(3).getMultiplicity() == 1, "Multiplicities of the roots");
+			IsolatingInterval sqrt2 = roots.get(3);
+			sqrt2.refine(20);
+			RingElement two = rational(2, 1);
+			assertThat(sign(sqrt2.getLeft().multiply(sqrt2.getLeft()).subtract(two)) < 0
+					&& sign(sqrt2.getRight().multiply(sqrt2.getRight()).subtract(two)) > 0, "Refined interval still contains sqrt(2)");
+			assertThat(sign(sqrt2.getRight().subtract(sqrt2.getLeft()).subtract(rational(1, 1 << 20))) <= 0,
+					"Refinement to 20 bits");
+
+			assertThat(zx.realRootIsolation().compute(integerPolynomial(1, 0, 1)).isEmpty(), "X^2 + 1 has no real roots");
+			ArrayList<IsolatingInterval> zero = new FieldPolynomialRing(rationals).realRootIsolation()
+					.compute(new Polynomial(rationals, rational(0, 1), rational(-1, 3), rational(1, 1)));
+			assertThat(zero.size() == 2 && zero.get(0).isExact() && contains(zero.get(1), rational(1, 3)),
+					"Rational polynomials, and zero as a root");
+
+			/* Wilkinson's polynomial (X - 1) (X - 2) ... (X - 20) */
+			Polynomial wilkinson = integerPolynomial(1);
+			for (int i = 1; i <= 20; i++)
+				wilkinson = wilkinson.multiply(integerPolynomial(-i, 1));
+			ArrayList<IsolatingInterval> wilkinsonRoots = zx.realRootIsolation().compute(wilkinson);
+			boolean found = wilkinsonRoots.size() == 20;
+			for (int i = 0; found && i < 20; i++)
+				found = contains(wilkinsonRoots.get(i), rational(i + 1, 1));
+			assertThat(found, "The roots of Wilkinson's polynomial are isolated");
+
+			/* the Chebyshev polynomial T_60 has 60 real roots in (-1, 1), which are explored in parallel */
+			Polynomial previous = integerPolynomial(1), chebyshev = integerPolynomial(0, 1);
+			for (int i = 1; i < 60; i++) {
+				Polynomial next = integerPolynomial(0, 2).multiply(chebyshev).subtract(previous);
+				previous = chebyshev;
+				chebyshev = next;
+			}
+			ArrayList<IsolatingInterval> cosines = zx.realRootIsolation().compute(chebyshev);
+			boolean disjoint = cosines.size() == 60 && sign(cosines.get(0).getLeft().add(rational(1, 1))) >= 0
+					&& sign(cosines.get(59).getRight().subtract(rational(1, 1))) <= 0;
+			for (int i = 1; disjoint && i < cosines.size(); i++)
+				disjoint = sign(cosines.get(i).getLeft().subtract(cosines.get(i - 1).getRight())) >= 0;
+			assertThat(disjoint, "T_60 has 60 disjoint isolating intervals in [-1, 1]");
+
+			/* a random polynomial of degree 300 times (X - 3)^2 (2X - 1), whose square-free part takes modular gcds */
+			Random random = new Random(30);
+			int[] coefficients = new int[301];
+			for (int i = 0; i < coefficients.length; i++)
+				coefficients[i] = random.nextInt(2001) - 1000;
+			coefficients[300] = 1 + random.nextInt(1000);
+			Polynomial high = integerPolynomial(coefficients).multiply(integerPolynomial(-3, 1), integerPolynomial(-3, 1),
+					integerPolynomial(-1, 2));
+			ArrayList<IsolatingInterval> highRoots = zx.realRootIsolation().compute(high);
+			int half = -1, three = -1;
+			for (int i = 0; i < highRoots.size(); i++) {
+				if (contains(highRoots.get(i), rational(1, 2)))
+					half = i;
+				if (contains(highRoots.get(i), rational(3, 1)))
+					three = i;
+			}
+			disjoint = true;
+			for (int i = 1; disjoint && i < highRoots.size(); i++)
+				disjoint = sign(highRoots.get(i).getLeft().subtract(highRoots.get(i - 1).getRight())) >= 0;
+			assertThat(disjoint && half >= 0 && three > half && highRoots.get(three).getMultiplicity() == 2
+					&& highRoots.get(half).getMultiplicity() == 1, "The real roots of a polynomial of degree 303 are isolated");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testRootIsolation: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testPrimeFieldRoots() {
+		try {
+			/* 2 X^3 (X - 3)^2 (X - 7) (X^2 + 2) (X^2 + 1) over F_13: X^2 + 1 has the roots 5 and 8, X^2 + 2 none */
+			PrimeField f13 = PrimeField.getInstance(13);
+			PolynomialRing f13x = new FieldPolynomialRing(f13);
+			Polynomial f = modularPolynomial(f13, 0, 0, 0, 2).multiply(modularPolynomial(f13, 10, 1), modularPolynomial(f13, 10, 1),
+					modularPolynomial(f13, 6, 1), modularPolynomial(f13, 2, 0, 1), modularPolynomial(f13, 1, 0, 1));
+			assertThat(Arrays.equals(f13x.primeFieldRoots().compute(f), new long[] { 0, 3, 5, 7, 8 }), "Roots over F_13");
+			assertThat(f13x.primeFieldRoots().compute(modularPolynomial(f13, 2, 0, 1)).length == 0, "X^2 + 2 has no roots over F_13");
+
+			PrimeField f2 = PrimeField.getInstance(2);
+			assertThat(Arrays.equals(new FieldPolynomialRing(f2).primeFieldRoots().compute(modularPolynomial(f2, 0, 1, 1)),
+					new long[] { 0, 1 }), "Roots over F_2");
+
+			/* 700 prescribed roots times a random factor, over a large prime */
+			long p = 2147483629L;
+			PrimeField fp = PrimeField.getInstance(p);
+			Random random = new Random(7);
+			ArrayList<Polynomial> linear = new ArrayList<Polynomial>();
+			long[] expected = new long[700];
+			for (int i = 0; i < expected.length; i++) {
+				expected[i] = Math.floorMod(random.nextLong(), p);
+				linear.add(modularPolynomial(fp, p - expected[i], 1));
+			}
+			long[] c = new long[601];
+			for (int i = 0; i < c.length; i++)
+				c[i] = Math.floorMod(random.nextLong(), p);
+			c[600] = 1;
+			linear.add(modularPolynomial(fp, c));
+			Polynomial g = balancedProduct(linear, 0, linear.size());
+			long[] roots = new FieldPolynomialRing(fp).primeFieldRoots().compute(g);
+			boolean all = roots.length >= 700;
+			for (long x : expected)
+				all = all && Arrays.binarySearch(roots, x) >= 0;
+			for (long x : roots)
+				all = all && g.evaluate(fp.element(x)).isZero();
+			assertThat(all, "All 700 roots of a polynomial of degree 1300 over F_p, p = 2^31 - 19");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testPrimeFieldRoots: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testModularArithmetic() {
+		try {
+			/* over Q, modulo X^3 - 2 */
+			Polynomial f = rationalPolynomial(-2, 0, 0, 1);
+			PolynomialModulus m = new PolynomialModulus(f);
+			Polynomial x = rationalPolynomial(0, 1);
+			assertThat(m.power(x, 3).equals(rationalPolynomial(2)) && m.power(x, 0).isOne(), "X^3 = 2 modulo X^3 - 2");
+			Polynomial a = rationalPolynomial(1, 1);
+			Polynomial power = rationalPolynomial(1);
+			for (int i = 0; i < 37; i++)
+				power = power.multiply(a).mod(f);
+			assertThat(m.power(a, 37).equals(power), "(X + 1)^37 modulo X^3 - 2");
+			Polynomial g = rationalPolynomial(3, -1, 4, 1, -5, 9, 2, 6);
+			Polynomial h = rationalPolynomial(-1, 2, 0, 7, 1);
+			assertThat(m.compose(g, h).equals(composeNaive(g, h, f)), "Composition modulo X^3 - 2");
+
+			/* long moduli use Newton division */
+			Polynomial longModulus = new Polynomial(rationals, 60, rational(1, 1)).subtract(rationalPolynomial(1, 1));
+			PolynomialModulus lm = new PolynomialModulus(longModulus);
+			assertThat(lm.power(x, 200).equals(new Polynomial(rationals, 200, rational(1, 1)).mod(longModulus)),
+					"X^200 modulo X^60 - X - 1");
+			assertThat(lm.compose(g, rationalPolynomial(1, 0, 1)).equals(composeNaive(g, rationalPolynomial(1, 0, 1), longModulus)),
+					"Composition modulo X^60 - X - 1");
+
+			/* over F_p with residue arithmetic */
+			long p = 1000003;
+			PrimeField fp = PrimeField.getInstance(p);
+			Random random = new Random(5);
+			Polynomial fpModulus = randomModularPolynomial(fp, 200, random);
+			PolynomialModulus fm = new PolynomialModulus(fpModulus);
+			Polynomial b = randomModularPolynomial(fp, 150, random), c = randomModularPolynomial(fp, 250, random);
+			BigInteger e1 = BigInteger.valueOf(p).pow(2).add(BigInteger.valueOf(17)), e2 = BigInteger.valueOf(123456789);
+			assertThat(fm.power(b, e1.add(e2)).equals(fm.multiply(fm.power(b, e1), fm.power(b, e2))), "b^(e1 + e2) = b^e1 b^e2 over F_p");
+			assertThat(fm.compose(c, b).equals(composeNaive(c, b, fpModulus)), "Composition over F_p");
+			assertThat(fm.frobenius(3).equals(fm.power(modularPolynomial(fp, 0, 1), BigInteger.valueOf(p).pow(3))), "X^(p^3) over F_p");
+
+			/* X^2 + 2 is irreducible over F_13, so X^(13^2) = X modulo it */
+			PrimeField f13 = PrimeField.getInstance(13);
+			PolynomialModulus m13 = new PolynomialModulus(modularPolynomial(f13, 2, 0, 1));
+			assertThat(m13.frobenius(2).equals(modularPolynomial(f13, 0, 1)) && !m13.frobenius(1).equals(modularPolynomial(f13, 0, 1)),
+					"Frobenius modulo an irreducible quadratic");
+
+			boolean failed = false;
+			try {
+				new PolynomialModulus(rationalPolynomial(5));
+			} catch (OperationUndefinedException ex) {
+				failed = true;
+			}
+			assertThat(failed, "Constant moduli are rejected");
+			failed = false;
+			try {
+				m.frobenius(1);
+			} catch (OperationUndefinedException ex) {
+				failed = true;
+			}
+			assertThat(failed, "The Frobenius map needs a prime field");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testModularArithmetic: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testResultants() {
+		try {
+			PolynomialRing zx = new PolynomialRing(integers);
+			assertThat(zx.resultant().compute(integerPolynomial(1, 0, 1), integerPolynomial(-2, 1)).equals(new IntegerElement(5)),
+					"res(X^2 + 1, X - 2) = 5");
+			assertThat(zx.resultant().compute(integerPolynomial(-1, 0, 1), integerPolynomial(1, 1)).isZero(), "Common root -1");
+
+			/* all strategies agree, also with the sign change when swapping the arguments (odd degrees) */
+			Random random = new Random(3);
+			int[] a = new int[10], b = new int[8];
+			for (int i = 0; i < a.length; i++)
+				a[i] = random.nextInt(201) - 100;
+			for (int i = 0; i < b.length; i++)
+				b[i] = random.nextInt(201) - 100;
+			a[9] = 3;
+			b[7] = -5;
+			Polynomial fa = integerPolynomial(a), fb = integerPolynomial(b);
+			RingElement reference = new SubresultantResultant().execute(fa, fb);
+			assertThat(new MultiModularResultant().execute(fa, fb).equals(reference), "Multi-modular and subresultant resultants agree over Z");
+			assertThat(new MultiModularResultant().execute(fb, fa).equals(reference.negative()), "res(b, a) = -res(a, b) for odd degrees");
+			Polynomial qa = rationalPolynomial(a), qb = rationalPolynomial(b);
+			assertThat(new EuclideanResultant().execute(qa, qb).equals(new Fraction(reference)), "Euclidean resultant over Q");
+
+			Polynomial half = new Polynomial(rationals, rational(1, 3), rational(1, 2));
+			RingElement expected = new EuclideanResultant().execute(half, rationalPolynomial(-2, 0, 1));
+			assertThat(expected.equals(rational(-7, 18)) && new MultiModularResultant().execute(half, rationalPolynomial(-2, 0, 1)).equals(expected),
+					"res(X/2 + 1/3, X^2 - 2) = -7/18, also with scaled denominators");
+
+			/* eliminate X from X^2 + Y^2 - 1 and X - Y over Z[Y] */
+			PolynomialRing zy = new PolynomialRing(integers);
+			Polynomial circle = new Polynomial(zy, integerPolynomial(-1, 0, 1), integerPolynomial(0), integerPolynomial(1));
+			Polynomial line = new Polynomial(zy, integerPolynomial(0, -1), integerPolynomial(1));
+			assertThat(new PolynomialRing(zy).resultant().compute(circle, line).equals(integerPolynomial(-1, 0, 2)),
+					"Bivariate resultant: res_X(X^2 + Y^2 - 1, X - Y) = 2Y^2 - 1");
+
+			assertThat(zx.discriminant(integerPolynomial(-7, 5, 3)).equals(new IntegerElement(109)), "disc(3X^2 + 5X - 7) = 109");
+			assertThat(zx.discriminant(integerPolynomial(2, -3, 0, 1)).isZero(), "(X - 1)^2 (X + 2) has discriminant 0");
+			assertThat(zx.discriminant(integerPolynomial(1, 0, 0, 1)).equals(new IntegerElement(-27)), "disc(X^3 + 1) = -27");
+
+			/* over F_p, long inputs go through the half-gcd algorithm; res(f, g h) = res(f, g) res(f, h) */
+			long p = 2147483629L;
+			PrimeField fp = PrimeField.getInstance(p);
+			PolynomialRing fpx = new FieldPolynomialRing(fp);
+			Polynomial f = randomModularPolynomial(fp, 8500, random);
+			Polynomial g = randomModularPolynomial(fp, 4200, random), h = randomModularPolynomial(fp, 4100, random);
+			assertThat(fpx.resultant().compute(f, g.multiply(h)).equals(fpx.resultant().compute(f, g).multiply(fpx.resultant().compute(f, h))),
+					"Multiplicativity of resultants of degree 8500 over F_p");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testResultants: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return g(h) modulo f by Horner's scheme
+	 */
+	private Polynomial composeNaive(Polynomial g, Polynomial h, Polynomial f) throws OperationUndefinedException {
+		Polynomial result = new Polynomial(g.getRing());
+		for (int i = g.getDegree(); i >= 0; i--)
+			result = result.multiply(h).add(g.getCoefficient(i)).mod(f);
+		return result;
+	}
+
+	private Polynomial randomModularPolynomial(PrimeField field, int degree, Random random) {
+		long[] c = new long[degree + 1];
+		for (int i = 0; i < degree; i++)
+			c[i] = Math.floorMod(random.nextLong(), field.getCharacteristic());
+		c[degree] = 1;
+		return modularPolynomial(field, c);
+	}
+
+	private Polynomial balancedProduct(ArrayList<Polynomial> factors, int from, int to) throws OperationUndefinedException {
+		if (to - from == 1)
+			return factors.get(from);
+		int mid = (from + to) / 2;
+		return balancedProduct(factors, from, mid).multiply(balancedProduct(factors, mid, to));
+	}
+
+	private int sign(RingElement r) {
+		Fraction f = (Fraction)r;
+		return ((IntegerElement)f.getNumerator()).getBigValue().signum() * ((IntegerElement)f.getDenominator()).getBigValue().signum();
+	}
+
+	private boolean contains(IsolatingInterval interval, RingElement x) throws OperationUndefinedException {
+		return sign(x.subtract(interval.getLeft())) >= 0 && sign(interval.getRight().subtract(x)) >= 0;
+	}
+
+	private Polynomial product(ArrayList<RingElement> factors) throws OperationUndefinedException {
+		Polynomial result = integerPolynomial(1);
+		for (RingElement g : factors)
+			result = result.multiply((Polynomial)g);
+		return result;
+	}
+
+	@Override
+	public boolean performTests() {
+		boolean result = true;
+
+		printHeader("Arithmetic");
+		result = result && testArithmetic();
+
+		printHeader("Polynomial builder");
+		result = result && testBuilder();
+
+		printHeader("Sparse polynomials");
+		result = result && testSparse();
+
+		printHeader("Evaluation and interpolation");
+		result = result && testEvaluation();
+
+		printHeader("Factorization over prime fields");
+		result = result && testFactorization();
+
+		printHeader("Square-free decomposition");
+		result = result && testSquareFree();
+
+		printHeader("Factorization over the integers");
+		result = result && testIntegerFactorization();
+
+		printHeader("Roots over prime fields");
+		result = result && testPrimeFieldRoots();
+
+		printHeader("Arithmetic modulo a polynomial");
+		result = result && testModularArithmetic();
+
+		printHeader("Resultants and discriminants");
+		result = result && testResultants();
+
+		printHeader("Real root isolation");
+		result = result && testRootIsolation();
+
+		return result;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Test polynomials and their algorithms";
+	}
+}
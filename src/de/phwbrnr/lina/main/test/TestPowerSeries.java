@@ -0,0 +1,177 @@
+/**
+ * Test the PowerSeries class and its ring.
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.test;
+
+import java.util.Random;
+
+import de.phwbrnr.lina.main.fields.Fraction;
+import de.phwbrnr.lina.main.fields.IntegerElement;
+import de.phwbrnr.lina.main.fields.OperationUndefinedException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.RationalsField;
+import de.phwbrnr.lina.main.fields.RingElement;
+import de.phwbrnr.lina.main.polynomials.Polynomial;
+import de.phwbrnr.lina.main.polynomials.PowerSeries;
+import de.phwbrnr.lina.main.polynomials.PowerSeriesRing;
+
+public class TestPowerSeries extends AbstractTestClass {
+	private RationalsField rationals;
+	private PowerSeriesRing series;
+
+	public TestPowerSeries() {
+		rationals = RationalsField.getInstance();
+		series = new PowerSeriesRing(rationals, 12);
+	}
+
+	private Fraction rational(long num, long den) throws OperationUndefinedException {
+		return new Fraction(new IntegerElement(num), new IntegerElement(den));
+	}
+
+	private PowerSeries rationalSeries(int... coefficients) throws OperationUndefinedException {
+		RingElement[] c = new RingElement[coefficients.length];
+		for (int i = 0; i < c.length; i++)
+			c[i] = rational(coefficients[i], 1);
+		return new PowerSeries(series, c);
+	}
+
+	private boolean testArithmetic() {
+		try {
+			PowerSeries oneMinusX = rationalSeries(1, -1);
+			PowerSeries geometric = oneMinusX.inverse();
+			boolean ones = true;
+			for (int i = 0; i < 40; i++)
+				ones = ones && geometric.getCoefficient(i).isOne();
+			assertThat(ones, "1 / (1 - X) = 1 + X + X^2 + ...");
+
+			PowerSeries squares = new PowerSeries(series, i -> {
+				try {
+					return rational(i + 1, 1);
+				} catch (OperationUndefinedException ex) {
+					throw new IllegalStateException(ex);
+				}
+			});
+			assertThat(geometric.multiply(geometric).equals(squares), "1 / (1 - X)^2 = sum (i + 1) X^i, given by a formula");
+			assertThat(squares.multiply(oneMinusX, oneMinusX).isOne(), "Products of series and polynomials");
+			assertThat(squares.divide(geometric).equals(geometric), "Division by an invertible series");
+			assertThat(rationalSeries(0, 0, 1, 1).divide(rationalSeries(0, 1, 1)).equals(rationalSeries(0, 1)),
+					"Division by a series of positive valuation");
+			assertThat(!rationalSeries(1, 1).divisibleBy(rationalSeries(0, 1)), "1 + X is not divisible by X");
+
+			assertThat(geometric.toPolynomial(3).equals(new Polynomial(rationals, rational(1, 1), rational(1, 1), rational(1, 1))),
+					"Truncation to a polynomial");
+			assertThat(series.parseElement("series[fraction[1,1],fraction[-1,1]]").equals(oneMinusX)
+					&& series.parseElement(geometric.toString()).equals(geometric), "Parse series");
+			assertThat(geometric.derivative().equals(squares) && squares.integral().equals(geometric.subtract(rational(1, 1))),
+					"Derivative and integral");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testArithmetic: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testNewton() {
+		try {
+			PowerSeries x = series.getX();
+			PowerSeries e = x.exp();
+			boolean factorials = true;
+			long factorial = 1;
+			for (int i = 0; i < 15; i++) {
+				if (i > 0)
+					factorial *= i;
+				factorials = factorials && e.getCoefficient(i).equals(rational(1, factorial));
+			}
+			assertThat(factorials, "exp(X) = sum X^i / i!");
+
+			PowerSeries onePlusX = rationalSeries(1, 1);
+			assertThat(e.log().equals(x), "log(exp(X)) = X");
+			assertThat(onePlusX.log().exp().equals(onePlusX), "exp(log(1 + X)) = 1 + X");
+			assertThat(e.compose(onePlusX.log().multiply(rational(1, 1))).equals(onePlusX), "exp composed with log(1 + X)");
+
+			PowerSeries root = onePlusX.sqrt();
+			assertThat(root.getCoefficient(2).equals(rational(-1, 8)) && root.multiply(root).equals(onePlusX), "sqrt(1 + X)");
+			PowerSeries four = rationalSeries(4, 4, 1);
+			assertThat(four.sqrt(rational(-2, 1)).equals(rationalSeries(-2, -1)), "The square root with a given constant term");
+
+			/* the inverse of X + X^2 has the signed Catalan numbers as coefficients */
+			PowerSeries f = rationalSeries(0, 1, 1);
+			PowerSeries h = f.reversion();
+			assertThat(h.equals(rationalSeries(0, 1, -1, 2, -5, 14, -42, 132, -429, 1430, -4862, 16796)), "Reversion of X + X^2");
+			assertThat(f.compose(h).equals(x) && h.compose(f).equals(x), "f(h) = h(f) = X");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testNewton: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testPrimeField() {
+		try {
+			PrimeField f7 = PrimeField.getInstance(7);
+			PowerSeriesRing f7series = new PowerSeriesRing(f7, 6);
+			PowerSeries e = f7series.getX().exp();
+			assertThat(e.getCoefficient(6).equals(f7.element(6)), "exp(X) over F_7 up to X^6 (1/720 = 6 mod 7)");
+			boolean failed = false;
+			try {
+				e.getCoefficient(7);
+			} catch (OperationUndefinedException ex) {
+				failed = true;
+			}
+			assertThat(failed, "exp(X) over F_7 has no coefficient of X^7");
+
+			/* a long random series over a word-size prime: log and exp are inverse to each other */
+			long p = 1000003;
+			PrimeField fp = PrimeField.getInstance(p);
+			PowerSeriesRing fpseries = new PowerSeriesRing(fp, 2000);
+			Random random = new Random(11);
+			RingElement[] c = new RingElement[2000];
+			c[0] = fp.element(0);
+			for (int i = 1; i < c.length; i++)
+				c[i] = fp.element(random.nextInt((int)p));
+			PowerSeries g = new PowerSeries(fpseries, c);
+			assertThat(g.exp().log().equals(g), "log(exp(g)) = g for 2000 coefficients over F_1000003");
+			PowerSeries one = (PowerSeries)fpseries.getOne();
+			assertThat(g.add(one).inverse().multiply(g.add(one)).isOne(), "Inverse of a long series");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testPrimeField: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean performTests() {
+		boolean result = true;
+
+		printHeader("Arithmetic");
+		result = result && testArithmetic();
+
+		printHeader("Newton iteration");
+		result = result && testNewton();
+
+		printHeader("Series over prime fields");
+		result = result && testPrimeField();
+
+		return result;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Test power series and their algorithms";
+	}
+}
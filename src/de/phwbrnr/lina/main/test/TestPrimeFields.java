@@ -0,0 +1,98 @@
+/**
+ * Test the PrimeField class from the fields package
+ *
+ * @author Philipp Weinbrenner
+ */
+package de.phwbrnr.lina.main.test;
+
+import de.phwbrnr.lina.main.fields.ElementParseException;
+import de.phwbrnr.lina.main.fields.PrimeField;
+import de.phwbrnr.lina.main.fields.PrimeFieldElement;
+import de.phwbrnr.lina.main.fields.RingElement;
+
+public class TestPrimeFields extends AbstractTestClass {
+	private PrimeField f7;
+	private PrimeField big;
+
+	public TestPrimeFields() {
+		f7 = PrimeField.getInstance(7);
+		big = PrimeField.getInstance(2147483647);
+	}
+
+	private boolean testArithmetic() {
+		try {
+			PrimeFieldElement three = f7.element(3);
+			PrimeFieldElement five = f7.element(5);
+
+			assertThat(three.add(five).equals(f7.element(1)), "3 + 5 = 1 in F_7");
+			assertThat(three.subtract(five).equals(f7.element(5)), "3 - 5 = 5 in F_7");
+			assertThat(three.multiply(five).equals(f7.element(1)), "3 * 5 = 1 in F_7");
+			assertThat(three.inverse().equals(five), "3^-1 = 5 in F_7");
+			assertThat(f7.element(-1).equals(f7.element(6)), "-1 = 6 in F_7");
+			assertThat(three.negative().add(three).isZero(), "3 + (-3) = 0");
+			assertThat(!f7.getZero().invertible(), "0 is not invertible");
+			assertThat(f7.element(12).divide(three).equals(f7.element(4)), "12 / 3 = 4 in F_7");
+
+			RingElement x = big.element(2147483646);
+			assertThat(x.multiply(x).isOne(), "(-1)^2 = 1 modulo 2^31 - 1 without overflow");
+			assertThat(big.element(123456789).multiply(big.element(123456789).inverse()).isOne(), "Inverses modulo 2^31 - 1");
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testArithmetic: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean testMisc() {
+		try {
+			assertThat(PrimeField.getInstance(7) == f7, "One instance per prime");
+			assertThat(!f7.contains(PrimeField.getInstance(11).getOne()), "1 in F_11 is not an element of F_7");
+			assertThat(!f7.getOne().canAdd(PrimeField.getInstance(11).getOne()), "Elements of different prime fields cannot be added");
+			assertThat(f7.parseElement(f7.element(4).toString()).equals(f7.element(4)), "parse(toString()) should be the identity map");
+			try {
+				PrimeField.getInstance(15);
+				System.out.println("Fail: Expected IllegalArgumentException for F_15");
+				return false;
+			} catch (IllegalArgumentException ex) {
+				System.out.println("Good: 15 is not a prime");
+			}
+			try {
+				f7.parseElement("x");
+				System.out.println("Fail: Expected ElementParseException when parsing illegal element");
+				return false;
+			} catch (ElementParseException ex) {
+				System.out.println("Correct ElementParseException");
+			}
+		} catch (TestFailedException ex) {
+			System.out.println(ex);
+			return false;
+		} catch (Exception ex) {
+			System.out.println("Unexpected exception in testMisc: " + ex);
+			ex.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean performTests() {
+		boolean result = true;
+
+		printHeader("Arithmetic");
+		result = result && testArithmetic();
+
+		printHeader("Misc");
+		result = result && testMisc();
+
+		return result;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Test the prime fields F_p";
+	}
+}